@@ -6965,7 +6965,8 @@ CREATE TABLE IF NOT EXISTS measurements(
   KEY type (type),
   KEY measuringInstruction (measuringInstruction),
   KEY demographicNo (demographicNo),
-  KEY measurement_integrator (demographicNo,dateEntered)
+  KEY measurement_integrator (demographicNo,dateEntered),
+  KEY measurement_demo_type_observed (demographicNo,type,dateObserved)
 ) ;
 
 --
@@ -7102,7 +7103,8 @@ CREATE TABLE IF NOT EXISTS msgDemoMap (
   demographic_no int(10) NOT NULL DEFAULT 0,
   PRIMARY KEY (id),
   KEY (messageID, demographic_no),
-  KEY `demoMap_messageID_demographic_no` (`messageID`,`demographic_no`)
+  KEY `demoMap_messageID_demographic_no` (`messageID`,`demographic_no`),
+  KEY `demoMap_demographic_no` (`demographic_no`)
 ) ;
 
 --
@@ -7884,6 +7886,16 @@ CREATE TABLE IF NOT EXISTS `log` (
   KEY `provider_noIndex` (`provider_no`)
 ) ;
 
+CREATE TABLE IF NOT EXISTS `recent_demographic_access` (
+  `id` int(10) NOT NULL auto_increment,
+  `provider_no` varchar(10) NOT NULL,
+  `demographic_no` int(10) NOT NULL,
+  `last_access` datetime NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `provider_demographic` (`provider_no`, `demographic_no`),
+  KEY `provider_last_access` (`provider_no`, `last_access`)
+);
+
 CREATE TABLE IF NOT EXISTS preventions (
   id int(10) NOT NULL auto_increment,
   demographic_no int(10) NOT NULL default '0',
@@ -8856,6 +8868,40 @@ CREATE TABLE IF NOT EXISTS `casemgmt_note_ext` (
 );
 
 
+CREATE TABLE IF NOT EXISTS `caseload_summary` (
+  `demographic_no` int(10) NOT NULL,
+  `last_appt` date default NULL,
+  `next_appt` date default NULL,
+  `next_appt_time` datetime default NULL,
+  `num_appts` int(10) NOT NULL default 0,
+  `new_ticklers` int(10) NOT NULL default 0,
+  `new_msgs` int(10) NOT NULL default 0,
+  `bmi` varchar(255) default NULL,
+  `bp` varchar(255) default NULL,
+  `wt` varchar(255) default NULL,
+  `smk` varchar(255) default NULL,
+  `a1c` varchar(255) default NULL,
+  `acr` varchar(255) default NULL,
+  `scr` varchar(255) default NULL,
+  `ldl` varchar(255) default NULL,
+  `hdl` varchar(255) default NULL,
+  `tchd` varchar(255) default NULL,
+  `egfr` varchar(255) default NULL,
+  `eyee` varchar(255) default NULL,
+  `last_update` datetime NOT NULL,
+  PRIMARY KEY (`demographic_no`),
+  KEY `next_appt_time` (`next_appt_time`)
+);
+
+
+CREATE TABLE IF NOT EXISTS `program_domain_client` (
+  `provider_no` varchar(6) NOT NULL,
+  `demographic_no` int(10) NOT NULL,
+  PRIMARY KEY (`provider_no`,`demographic_no`),
+  KEY `demographic_no` (`demographic_no`)
+);
+
+
   CREATE TABLE IF NOT EXISTS flowsheet_customization(
       id int(10) NOT NULL auto_increment primary key,
       flowsheet varchar(40),
@@ -9477,7 +9523,12 @@ CREATE TABLE IF NOT EXISTS `HRMDocument` (
   `className` varchar(255) DEFAULT NULL,
   `subClassName` varchar(255) DEFAULT NULL,
   `sourceFacilityReportNo` varchar(100) DEFAULT NULL,
-  PRIMARY KEY (`id`)
+  `reportContentHash` varchar(64) DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  INDEX idx_hrm_reportHash (`reportHash`),
+  INDEX idx_hrm_reportLessTransactionInfoHash (`reportLessTransactionInfoHash`),
+  INDEX idx_hrm_reportLessDemographicInfoHash (`reportLessDemographicInfoHash`),
+  INDEX idx_hrm_sourceFacilityReportNo (`sourceFacility`, `sourceFacilityReportNo`)
 ) ;
 
 CREATE TABLE IF NOT EXISTS `HRMDocumentSubClass` (
@@ -10956,6 +11007,62 @@ CREATE TABLE IF NOT EXISTS `OscarJobType` (
     `updated` DATETIME NOT NULL
 );
 
+CREATE TABLE IF NOT EXISTS `OscarJobLease` (
+    `name` VARCHAR(100) NOT NULL PRIMARY KEY,
+    `paused` TINYINT(1) NOT NULL DEFAULT 0,
+    `owner` VARCHAR(255),
+    `leaseUntil` DATETIME
+);
+
+CREATE TABLE IF NOT EXISTS `OscarJobRun` (
+    `id` int AUTO_INCREMENT PRIMARY KEY,
+    `name` VARCHAR(100) NOT NULL,
+    `owner` VARCHAR(255),
+    `started` DATETIME NOT NULL,
+    `finished` DATETIME,
+    `durationMillis` BIGINT,
+    `rowsProcessed` INTEGER,
+    `status` VARCHAR(10) NOT NULL,
+    `error` text,
+    KEY `name_started` (`name`, `started`),
+    KEY `started` (`started`)
+);
+
+CREATE TABLE IF NOT EXISTS `DomainEvent` (
+    `id` BIGINT AUTO_INCREMENT PRIMARY KEY,
+    `eventType` VARCHAR(100) NOT NULL,
+    `aggregateId` VARCHAR(100) NOT NULL,
+    `payload` text,
+    `created` DATETIME NOT NULL,
+    KEY `created` (`created`)
+);
+
+CREATE TABLE IF NOT EXISTS `DomainEventDelivery` (
+    `id` BIGINT AUTO_INCREMENT PRIMARY KEY,
+    `eventId` BIGINT NOT NULL,
+    `listener` VARCHAR(255) NOT NULL,
+    `aggregateId` VARCHAR(100) NOT NULL,
+    `attempts` INTEGER NOT NULL DEFAULT 0,
+    `nextAttempt` DATETIME NOT NULL,
+    `claimedBy` VARCHAR(255),
+    `claimedUntil` DATETIME,
+    `lastError` text,
+    KEY `eventId` (`eventId`),
+    KEY `listener_aggregateId` (`listener`, `aggregateId`)
+);
+
+CREATE TABLE IF NOT EXISTS `DomainEventDeadLetter` (
+    `id` BIGINT AUTO_INCREMENT PRIMARY KEY,
+    `eventId` BIGINT NOT NULL,
+    `listener` VARCHAR(255) NOT NULL,
+    `aggregateId` VARCHAR(100) NOT NULL,
+    `attempts` INTEGER NOT NULL,
+    `error` text,
+    `failed` DATETIME NOT NULL,
+    KEY `eventId` (`eventId`),
+    KEY `listener` (`listener`)
+);
+
 CREATE TABLE IF NOT EXISTS ProductLocation (
   `id` int(11) NOT NULL auto_increment,
   `name` varchar(255),
@@ -0,0 +1,29 @@
+-- Per-patient caseload columns, kept current in the background by CaseloadSummaryManager and used to
+-- sort the caseload. Rows are rebuilt from appointment, tickler, msgDemoMap/messagelisttbl and measurements.
+CREATE TABLE IF NOT EXISTS `caseload_summary` (
+  `demographic_no` int(10) NOT NULL,
+  `last_appt` date default NULL,
+  `next_appt` date default NULL,
+  `next_appt_time` datetime default NULL,
+  `num_appts` int(10) NOT NULL default 0,
+  `new_ticklers` int(10) NOT NULL default 0,
+  `new_msgs` int(10) NOT NULL default 0,
+  `bmi` varchar(255) default NULL,
+  `bp` varchar(255) default NULL,
+  `wt` varchar(255) default NULL,
+  `smk` varchar(255) default NULL,
+  `a1c` varchar(255) default NULL,
+  `acr` varchar(255) default NULL,
+  `scr` varchar(255) default NULL,
+  `ldl` varchar(255) default NULL,
+  `hdl` varchar(255) default NULL,
+  `tchd` varchar(255) default NULL,
+  `egfr` varchar(255) default NULL,
+  `eyee` varchar(255) default NULL,
+  `last_update` datetime NOT NULL,
+  PRIMARY KEY (`demographic_no`),
+  KEY `next_appt_time` (`next_appt_time`)
+);
+
+-- New message counts by patient
+CREATE INDEX IF NOT EXISTS `demoMap_demographic_no` ON `msgDemoMap` (`demographic_no`);
@@ -0,0 +1,36 @@
+-- Domain events written in the same transaction as the change that raised them (transactional outbox),
+-- one delivery row per listener until it has handled the event, and the deliveries that ran out of retries.
+CREATE TABLE IF NOT EXISTS `DomainEvent` (
+    `id` BIGINT AUTO_INCREMENT PRIMARY KEY,
+    `eventType` VARCHAR(100) NOT NULL,
+    `aggregateId` VARCHAR(100) NOT NULL,
+    `payload` text,
+    `created` DATETIME NOT NULL,
+    KEY `created` (`created`)
+);
+
+CREATE TABLE IF NOT EXISTS `DomainEventDelivery` (
+    `id` BIGINT AUTO_INCREMENT PRIMARY KEY,
+    `eventId` BIGINT NOT NULL,
+    `listener` VARCHAR(255) NOT NULL,
+    `aggregateId` VARCHAR(100) NOT NULL,
+    `attempts` INTEGER NOT NULL DEFAULT 0,
+    `nextAttempt` DATETIME NOT NULL,
+    `claimedBy` VARCHAR(255),
+    `claimedUntil` DATETIME,
+    `lastError` text,
+    KEY `eventId` (`eventId`),
+    KEY `listener_aggregateId` (`listener`, `aggregateId`)
+);
+
+CREATE TABLE IF NOT EXISTS `DomainEventDeadLetter` (
+    `id` BIGINT AUTO_INCREMENT PRIMARY KEY,
+    `eventId` BIGINT NOT NULL,
+    `listener` VARCHAR(255) NOT NULL,
+    `aggregateId` VARCHAR(100) NOT NULL,
+    `attempts` INTEGER NOT NULL,
+    `error` text,
+    `failed` DATETIME NOT NULL,
+    KEY `eventId` (`eventId`),
+    KEY `listener` (`listener`)
+);
@@ -0,0 +1,10 @@
+-- Fingerprint of the report content, used with reportDate, reportStatus and className to find earlier
+-- versions of a received HRM report without re-parsing the patient's stored reports.
+-- Rows received before this update are fingerprinted the first time they are compared.
+ALTER TABLE `HRMDocument` ADD COLUMN IF NOT EXISTS `reportContentHash` varchar(64) DEFAULT NULL;
+
+-- Duplicate and version lookups done for every received report
+CREATE INDEX IF NOT EXISTS `idx_hrm_reportHash` ON `HRMDocument` (`reportHash`);
+CREATE INDEX IF NOT EXISTS `idx_hrm_reportLessTransactionInfoHash` ON `HRMDocument` (`reportLessTransactionInfoHash`);
+CREATE INDEX IF NOT EXISTS `idx_hrm_reportLessDemographicInfoHash` ON `HRMDocument` (`reportLessDemographicInfoHash`);
+CREATE INDEX IF NOT EXISTS `idx_hrm_sourceFacilityReportNo` ON `HRMDocument` (`sourceFacility`, `sourceFacilityReportNo`);
@@ -0,0 +1,3 @@
+-- Index supporting per patient, per type, chronologically ordered measurement reads
+-- used by the measurement time series (flowsheets and graphs)
+CREATE INDEX IF NOT EXISTS `measurement_demo_type_observed` ON `measurements` (`demographicNo`, `type`, `dateObserved`);
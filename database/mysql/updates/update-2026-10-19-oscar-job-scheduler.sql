@@ -0,0 +1,22 @@
+-- Background jobs run through OscarJobSchedulerManager: one row per job holding the pause flag and the
+-- lease that keeps a job to one server at a time, and the history of each run.
+CREATE TABLE IF NOT EXISTS `OscarJobLease` (
+    `name` VARCHAR(100) NOT NULL PRIMARY KEY,
+    `paused` TINYINT(1) NOT NULL DEFAULT 0,
+    `owner` VARCHAR(255),
+    `leaseUntil` DATETIME
+);
+
+CREATE TABLE IF NOT EXISTS `OscarJobRun` (
+    `id` int AUTO_INCREMENT PRIMARY KEY,
+    `name` VARCHAR(100) NOT NULL,
+    `owner` VARCHAR(255),
+    `started` DATETIME NOT NULL,
+    `finished` DATETIME,
+    `durationMillis` BIGINT,
+    `rowsProcessed` INTEGER,
+    `status` VARCHAR(10) NOT NULL,
+    `error` text,
+    KEY `name_started` (`name`, `started`),
+    KEY `started` (`started`)
+);
@@ -0,0 +1,8 @@
+-- The clients each provider can see through program admissions, the program domain restriction of the
+-- demographic searches. Kept current by ProgramDomainManager from admission and program_provider.
+CREATE TABLE IF NOT EXISTS `program_domain_client` (
+  `provider_no` varchar(6) NOT NULL,
+  `demographic_no` int(10) NOT NULL,
+  PRIMARY KEY (`provider_no`,`demographic_no`),
+  KEY `demographic_no` (`demographic_no`)
+);
@@ -0,0 +1,19 @@
+-- A provider's recently accessed patients, written by LogAction with every log entry for a patient and
+-- capped per provider (recent_demographic_access.max_entries). The recent patient lists read it instead
+-- of grouping the log table.
+CREATE TABLE IF NOT EXISTS `recent_demographic_access` (
+  `id` int(10) NOT NULL auto_increment,
+  `provider_no` varchar(10) NOT NULL,
+  `demographic_no` int(10) NOT NULL,
+  `last_access` datetime NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `provider_demographic` (`provider_no`, `demographic_no`),
+  KEY `provider_last_access` (`provider_no`, `last_access`)
+);
+
+-- seed it from the last 90 days of the log so the lists aren't empty after the upgrade, entries past the
+-- cap are dropped the next time the provider opens a chart
+INSERT IGNORE INTO `recent_demographic_access` (`provider_no`, `demographic_no`, `last_access`)
+SELECT `provider_no`, `demographic_no`, MAX(`dateTime`) FROM `log`
+WHERE `dateTime` >= DATE_SUB(NOW(), INTERVAL 90 DAY) AND `provider_no` IS NOT NULL AND `demographic_no` > 0
+GROUP BY `provider_no`, `demographic_no`;
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.benchmark;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.sql.DataSource;
+
+import ca.openosp.openo.utility.DbConnectionFilter;
+import ca.openosp.openo.utility.SpringUtils;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * In-memory H2 database (MySQL mode) shared by the database backed benchmarks.
+ * <p>
+ * The first call to {@link #get()} starts benchmark-applicationContext.xml, creates the tables of
+ * benchmark-schema.sql and seeds them with synthetic patients, providers and object privileges. The
+ * context is registered with {@link SpringUtils} so the code under measurement finds its beans the
+ * same way it does in the web application. The data is generated from a fixed seed so every fork of
+ * a benchmark sees the same rows.
+ */
+public final class BenchmarkDatabase {
+
+    public static final int PATIENTS = 10000;
+    public static final int PROVIDERS = 200;
+    public static final int OBJECTS = 500;
+
+    public static final String[] ROLES = {"doctor", "nurse", "receptionist", "admin", "locum", "resident", "midwife", "er_clerk"};
+
+    private static final String[] LAST_NAMES = {"Smith", "Tremblay", "Li", "Martin", "Roy", "Wilson", "Macdonald", "Gagnon", "Taylor", "Singh"};
+    private static final String[] FIRST_NAMES = {"Olivia", "Liam", "Emma", "Noah", "Amelia", "William", "Ava", "Lucas", "Sophia", "Ethan"};
+    private static final String[] CITIES = {"Hamilton", "Toronto", "Ottawa", "London", "Kingston", "Sudbury"};
+
+    private static BenchmarkDatabase instance;
+
+    private final ClassPathXmlApplicationContext context;
+    private final JdbcTemplate jdbcTemplate;
+
+    private BenchmarkDatabase() {
+        context = new ClassPathXmlApplicationContext("benchmark-applicationContext.xml");
+        SpringUtils.setBeanFactory(context);
+
+        DataSource dataSource = context.getBean(DataSource.class);
+        new ResourceDatabasePopulator(new ClassPathResource("benchmark-schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        seed(new Random(42));
+    }
+
+    public static synchronized BenchmarkDatabase get() {
+        if (instance == null) {
+            instance = new BenchmarkDatabase();
+        }
+        return instance;
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public static String providerNo(int i) {
+        return String.valueOf(100000 + i % PROVIDERS);
+    }
+
+    public static String objectName(int i) {
+        return "_bench.object" + (i % OBJECTS);
+    }
+
+    /**
+     * Closes the connection the calling thread picked up through {@link DbConnectionFilter}, the
+     * benchmark threads play the part of the request filter.
+     */
+    public static void releaseThreadResources() {
+        DbConnectionFilter.releaseThreadLocalDbConnection();
+    }
+
+    private void seed(Random random) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        List<Object[]> providers = new ArrayList<Object[]>(PROVIDERS);
+        for (int i = 0; i < PROVIDERS; i++) {
+            providers.add(new Object[]{providerNo(i), pick(random, LAST_NAMES), pick(random, FIRST_NAMES), "doctor", "FAMILY", "T" + (i % 10),
+                    i % 2 == 0 ? "F" : "M", i + " King St", "905-555-" + String.format("%04d", i), String.valueOf(900000 + i), "dr" + i + "@example.org", "1", now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO provider (provider_no, last_name, first_name, provider_type, specialty, team, sex, address, phone, ohip_no, email, status, lastUpdateDate)"
+                + " VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?)", providers);
+
+        List<Object[]> patients = new ArrayList<Object[]>(1000);
+        for (int i = 1; i <= PATIENTS; i++) {
+            patients.add(new Object[]{i, pick(random, LAST_NAMES), pick(random, FIRST_NAMES), (i * 7) + " Main St", pick(random, CITIES), "ON",
+                    "L8P" + (i % 10) + "A" + (i % 10), "905-555-" + String.format("%04d", i % 10000), "patient" + i + "@example.org",
+                    String.valueOf(1930 + random.nextInt(90)), String.format("%02d", 1 + random.nextInt(12)), String.format("%02d", 1 + random.nextInt(28)),
+                    String.valueOf(1000000000L + i), "AB", "ON", String.valueOf(i), providerNo(i), random.nextBoolean() ? "F" : "M", "AC", now});
+            if (patients.size() == 1000) {
+                insertPatients(patients);
+                patients.clear();
+            }
+        }
+        insertPatients(patients);
+
+        // a handful of roles on every object, the higher priority ones first like the admin screens store them
+        List<Object[]> privileges = new ArrayList<Object[]>(OBJECTS * 3);
+        for (int i = 0; i < OBJECTS; i++) {
+            int roles = 2 + random.nextInt(3);
+            for (int r = 0; r < roles; r++) {
+                String role = ROLES[(i + r) % ROLES.length];
+                privileges.add(new Object[]{role, objectName(i), r == 0 ? "x" : (r == 1 ? "w" : "r"), r == 0 ? 1 : 0});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO secObjPrivilege (roleUserGroup, objectName, privilege, priority) VALUES (?,?,?,?)", privileges);
+    }
+
+    private void insertPatients(List<Object[]> patients) {
+        if (patients.isEmpty()) return;
+        jdbcTemplate.batchUpdate("INSERT INTO demographic (demographic_no, last_name, first_name, address, city, province, postal, phone, email,"
+                + " year_of_birth, month_of_birth, date_of_birth, hin, ver, hc_type, chart_no, provider_no, sex, patient_status, lastUpdateDate)"
+                + " VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)", patients);
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
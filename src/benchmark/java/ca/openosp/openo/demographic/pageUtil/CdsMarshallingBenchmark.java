@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.demographic.pageUtil;
+
+import java.io.StringWriter;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import cds.ClinicalNotesDocument.ClinicalNotes;
+import cds.DemographicsDocument.Demographics;
+import cds.OmdCdsDocument;
+import cds.PatientRecordDocument.PatientRecord;
+import cds.ProblemListDocument.ProblemList;
+import org.apache.xmlbeans.XmlOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Marshalling and unmarshalling of an OMD CDS patient record with the options used by
+ * DemographicExportAction42Action and ImportDemographicDataAction42Action. The record is a
+ * synthetic patient with the given number of problems and clinical notes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class CdsMarshallingBenchmark {
+
+    @Param({"10", "200"})
+    public int notes;
+
+    private OmdCdsDocument document;
+    private XmlOptions saveOptions;
+    private String xml;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        saveOptions = new XmlOptions();
+        saveOptions.put(XmlOptions.SAVE_PRETTY_PRINT);
+        saveOptions.put(XmlOptions.SAVE_PRETTY_PRINT_INDENT, 3);
+        saveOptions.put(XmlOptions.SAVE_AGGRESSIVE_NAMESPACES);
+        HashMap<String, String> suggestedPrefix = new HashMap<String, String>();
+        suggestedPrefix.put("cds_dt", "cdsd");
+        saveOptions.setSaveSuggestedPrefixes(suggestedPrefix);
+        saveOptions.setSaveOuter();
+
+        document = createRecord(notes);
+        xml = marshal();
+    }
+
+    @Benchmark
+    public String marshal() throws Exception {
+        StringWriter writer = new StringWriter();
+        document.save(writer, saveOptions);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public OmdCdsDocument unmarshal() throws Exception {
+        XmlOptions opts = new XmlOptions();
+        opts.setDocumentType(OmdCdsDocument.Factory.newInstance().schemaType());
+        return OmdCdsDocument.Factory.parse(xml, opts);
+    }
+
+    private static OmdCdsDocument createRecord(int notes) {
+        OmdCdsDocument omdCdsDoc = OmdCdsDocument.Factory.newInstance();
+        PatientRecord patientRec = omdCdsDoc.addNewOmdCds().addNewPatientRecord();
+        Demographics demo = patientRec.addNewDemographics();
+        demo.setUniqueVendorIdSequence("1");
+
+        cdsDt.PersonNameStandard.LegalName legalName = demo.addNewNames().addNewLegalName();
+        legalName.setNamePurpose(cdsDt.PersonNamePurposeCode.L);
+        cdsDt.PersonNameStandard.LegalName.FirstName firstName = legalName.addNewFirstName();
+        firstName.setPart("Olivia");
+        firstName.setPartType(cdsDt.PersonNamePartTypeCode.GIV);
+        cdsDt.PersonNameStandard.LegalName.LastName lastName = legalName.addNewLastName();
+        lastName.setPart("Tremblay");
+        lastName.setPartType(cdsDt.PersonNamePartTypeCode.FAMC);
+
+        demo.setGender(cdsDt.Gender.F);
+        demo.setDateOfBirth(new GregorianCalendar(1962, Calendar.APRIL, 12));
+        cdsDt.HealthCard healthCard = demo.addNewHealthCard();
+        healthCard.setNumber("1000000001");
+        healthCard.setProvinceCode(cdsDt.HealthCardProvinceCode.CA_ON);
+        cdsDt.PhoneNumber phone = demo.addNewPhoneNumber();
+        phone.setPhoneNumber("9055550100");
+        phone.setPhoneNumberType(cdsDt.PhoneNumberType.R);
+
+        Calendar date = new GregorianCalendar(2015, Calendar.JANUARY, 5, 9, 30);
+        for (int i = 0; i < notes; i++) {
+            if (i % 5 == 0) {
+                ProblemList problem = patientRec.addNewProblemList();
+                problem.setProblemDiagnosisDescription("Problem " + i + ": type 2 diabetes mellitus without complication");
+            }
+            ClinicalNotes note = patientRec.addNewClinicalNotes();
+            note.setMyClinicalNotesContent("S: follow up visit " + i + ", patient reports feeling well. O: BP 128/82, HR 72. "
+                    + "A: hypertension, controlled. P: continue current medications, repeat bloodwork in 3 months.");
+            note.setNoteType("Physician Progress Note");
+            note.addNewEventDateTime().setFullDateTime((Calendar) date.clone());
+            date.add(Calendar.DAY_OF_MONTH, 11);
+        }
+        return omdCdsDoc;
+    }
+}
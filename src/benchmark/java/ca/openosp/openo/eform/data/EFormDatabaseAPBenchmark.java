@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.eform.data;
+
+import java.util.concurrent.TimeUnit;
+
+import ca.openosp.openo.benchmark.BenchmarkDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link EForm#setDatabaseAPs()} on a large generated form: every field is filled from a patient or
+ * provider database AP, the queries run against the seeded benchmark database. Each invocation opens
+ * the form for a different patient.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class EFormDatabaseAPBenchmark {
+
+    private static final String[] APS = {"patient_nameL", "patient_nameF", "address_street_number_and_name", "city", "province", "postal",
+            "hinc", "hinversion", "sex", "phone", "email", "chartno", "dob_year", "dob_month", "dob_day", "doctor_provider_no",
+            "current_user_phone", "current_user_ohip_no", "current_user_email", "current_user_team"};
+
+    @Param({"100", "500"})
+    public int fields;
+
+    private String formHtml;
+    private int patient;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.get();
+
+        StringBuilder html = new StringBuilder("<html><head><title>Benchmark form</title></head><body><form method=\"post\" action=\"\">\n");
+        for (int i = 0; i < fields; i++) {
+            String ap = APS[i % APS.length];
+            html.append("<div class=\"row\"><label for=\"f").append(i).append("\">").append(ap).append("</label>");
+            if (i % 10 == 9) {
+                html.append("<textarea name=\"f").append(i).append("\" oscarDB=").append(ap).append("></textarea>");
+            } else {
+                html.append("<input type=\"text\" name=\"f").append(i).append("\" id=\"f").append(i).append("\" oscarDB=").append(ap).append(">");
+            }
+            html.append("</div>\n");
+        }
+        html.append("</form></body></html>");
+        formHtml = html.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.releaseThreadResources();
+    }
+
+    @Benchmark
+    public String setDatabaseAPs() {
+        patient = patient % BenchmarkDatabase.PATIENTS + 1;
+
+        EForm eForm = new EForm();
+        eForm.setFormHtml(formHtml);
+        eForm.setDemographicNo(String.valueOf(patient));
+        eForm.setProviderNo(BenchmarkDatabase.providerNo(patient));
+        eForm.setDatabaseAPs();
+        return eForm.getFormHtml();
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.inboxhub.inboxdata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import ca.openosp.openo.lab.ca.on.LabResultData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link LabDataController#filterOldLabVersions} on an inbox page of HL7 lab results where most
+ * accession numbers come back in several versions, some without an accession number at all.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class FilterOldLabVersionsBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int labs;
+
+    private List<LabResultData> results;
+    private List<LabResultData> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        results = new ArrayList<LabResultData>(labs);
+        for (int i = 0; i < labs; i++) {
+            // roughly three versions per accession number, the versions a few days apart and the same
+            // accession number reused by the lab years later
+            int accession = random.nextInt(Math.max(1, labs / 3));
+            LabResultData lab = new LabResultData(LabResultData.HL7TEXT);
+            lab.segmentID = String.valueOf(i + 1);
+            lab.accessionNumber = i % 20 == 0 ? null : "ACC" + (accession % 100);
+            lab.dateTime = String.format("20%02d-%02d-%02d 08:30:00", 10 + accession % 14, 1 + accession % 12, 1 + random.nextInt(28));
+            results.add(lab);
+        }
+        page = new ArrayList<LabResultData>(labs);
+    }
+
+    @Benchmark
+    public List<LabResultData> filterOldLabVersions() {
+        // the method filters the list in place
+        page.clear();
+        page.addAll(results);
+        return LabDataController.filterOldLabVersions(page);
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.lab.ca.all.parsers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing of the sample messages in src/test/resources by each lab handler that has samples.
+ * <p>
+ * {@link #parse} measures the handler alone, {@link #factoryGetHandler} measures the same messages
+ * through {@link Factory#getHandler(String, String)} the way the lab upload and display code does,
+ * including the lookup of the handler class in message_config.xml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class Hl7ParsingBenchmark {
+
+    @Param({"CLS", "CML", "EPSILON", "PATHL7", "IHAPOI", "MEDITECH"})
+    public String type;
+
+    private List<String> messages;
+    private Class<? extends MessageHandler> handlerClass;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if ("CLS".equals(type)) {
+            messages = resources("labs/HL7-CLS/MillenniumUpgrade2010_Clinic_Validation_Current.hl7");
+        } else if ("CML".equals(type)) {
+            messages = resources("labs/HL7-CML/AJ19819.hl7", "labs/HL7-CML/CC63171.hl7", "labs/HL7-CML/CC63208.hl7", "labs/HL7-CML/CT71691.hl7", "labs/HL7-CML/HT05038.hl7");
+        } else if ("EPSILON".equals(type)) {
+            messages = resources("labs/HL7-Epsilon/medhealth-general.hl7", "labs/HL7-Epsilon/medhealth-pap.hl7");
+        } else if ("PATHL7".equals(type)) {
+            messages = zipEntries("EXCELLERIS_test_data.zip");
+        } else if ("IHAPOI".equals(type)) {
+            messages = zipEntries("IHAPOI_test_data.zip");
+        } else if ("MEDITECH".equals(type)) {
+            messages = zipEntries("MEDITECH_test_data.zip");
+        }
+        if (messages == null || messages.isEmpty()) {
+            throw new IllegalStateException("No sample messages for " + type);
+        }
+
+        MessageHandler handler = Factory.getHandler(type, messages.get(0));
+        if (handler == null || handler.getClass() == DefaultGenericHandler.class) {
+            throw new IllegalStateException("No handler configured for " + type);
+        }
+        handlerClass = handler.getClass();
+    }
+
+    @Benchmark
+    public MessageHandler parse() throws Exception {
+        MessageHandler handler = handlerClass.getDeclaredConstructor().newInstance();
+        handler.init(nextMessage());
+        return handler;
+    }
+
+    @Benchmark
+    public MessageHandler factoryGetHandler() {
+        return Factory.getHandler(type, nextMessage());
+    }
+
+    private String nextMessage() {
+        String message = messages.get(next);
+        next = (next + 1) % messages.size();
+        return message;
+    }
+
+    private static List<String> resources(String... names) throws IOException {
+        List<String> result = new ArrayList<String>();
+        for (String name : names) {
+            try (InputStream is = Hl7ParsingBenchmark.class.getClassLoader().getResourceAsStream(name)) {
+                if (is == null) throw new IOException("Missing test resource " + name);
+                result.add(IOUtils.toString(is, StandardCharsets.UTF_8));
+            }
+        }
+        return result;
+    }
+
+    private static List<String> zipEntries(String zip) throws Exception {
+        List<String> result = new ArrayList<String>();
+        try (ZipFile zipFile = new ZipFile(Hl7ParsingBenchmark.class.getClassLoader().getResource(zip).getPath())) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.getName().endsWith(".txt")) continue;
+                try (InputStream is = zipFile.getInputStream(entry)) {
+                    result.add(IOUtils.toString(is, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.util;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import ca.openosp.openo.benchmark.BenchmarkDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The security tag check: {@link #checkPrivilege} is the in-memory role match done for every
+ * security:oscarSec tag, {@link #getPrivilegePropAndCheck} adds the secObjPrivilege lookup that
+ * precedes it, against the seeded benchmark database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class OscarRoleObjectPrivilegeBenchmark {
+
+    private static final String ROLES = "doctor,locum,midwife";
+
+    private Properties privileges;
+    private List<String> roleInObj;
+    private List<String> priority;
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        BenchmarkDatabase.get();
+        List<Object> prop = OscarRoleObjectPrivilege.getPrivilegeProp(objectNames(0));
+        privileges = (Properties) prop.get(0);
+        roleInObj = (List<String>) prop.get(1);
+        priority = (List<String>) prop.get(2);
+    }
+
+    @Benchmark
+    public boolean checkPrivilege() {
+        return OscarRoleObjectPrivilege.checkPrivilege(ROLES, privileges, roleInObj, priority, "w");
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public boolean getPrivilegePropAndCheck() {
+        List<Object> prop = OscarRoleObjectPrivilege.getPrivilegeProp(objectNames(next++));
+        return OscarRoleObjectPrivilege.checkPrivilege(ROLES, (Properties) prop.get(0), (List<String>) prop.get(1), (List<String>) prop.get(2), "w");
+    }
+
+    // pages usually check a global object together with a more specific one
+    private static String objectNames(int i) {
+        return BenchmarkDatabase.objectName(i) + "," + BenchmarkDatabase.objectName(i + 1);
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.util;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Peak heap per merged page of a chart package: {@link PDFAssembler} against the way ConcatPDF used
+ * to merge, every source saved to a byte array and merged in main memory. The sources are synthetic
+ * scanned documents, every page a noise image that does not compress.
+ * <p>
+ * Each invocation starts after a full GC with the peak usage of the heap pools reset. The
+ * peakHeapKbPerPage counter is the summed pool peaks above that baseline divided by the pages
+ * merged. Garbage not yet collected counts too, so it is an upper bound; compare the two
+ * benchmarks run with the same heap settings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g"})
+public class PDFAssemblerBenchmark {
+
+    @Param({"5", "25"})
+    public int documents;
+
+    @Param({"20"})
+    public int pagesPerDocument;
+
+    private File directory;
+    private List<File> files;
+    private List<MemoryPoolMXBean> heapPools;
+    private long baseline;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapCounters {
+
+        public long peakHeapKbPerPage;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            peakHeapKbPerPage = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = File.createTempFile("pdfassembly", "");
+        directory.delete();
+        directory.mkdir();
+
+        Random random = new Random(42);
+        files = new ArrayList<File>(documents);
+        for (int i = 0; i < documents; i++) {
+            File file = new File(directory, "document" + i + ".pdf");
+            try (PDDocument document = createScannedDocument(random, pagesPerDocument)) {
+                document.save(file);
+            }
+            files.add(file);
+        }
+
+        heapPools = new ArrayList<MemoryPoolMXBean>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (File file : files) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Setup(Level.Invocation)
+    public void resetPeakHeap() {
+        System.gc();
+        baseline = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+            baseline += pool.getUsage().getUsed();
+        }
+    }
+
+    @Benchmark
+    public int assemble(HeapCounters counters) throws IOException {
+        PDFAssembler assembler = new PDFAssembler(MemoryUsageSetting.setupMixed(4 * 1024 * 1024));
+        for (File file : files) {
+            assembler.addSource(file).setBookmark(file.getName());
+        }
+        int pages = assembler.assemble(OutputStream.nullOutputStream());
+        recordPeakHeap(counters, pages);
+        return pages;
+    }
+
+    @Benchmark
+    public int mergeInMainMemory(HeapCounters counters) throws IOException {
+        PDFMergerUtility merger = new PDFMergerUtility();
+        int pages = 0;
+        for (File file : files) {
+            try (PDDocument document = PDDocument.load(file); ByteArrayOutputStream bytes = new ByteArrayOutputStream()) {
+                pages += document.getNumberOfPages();
+                document.save(bytes);
+                merger.addSource(new ByteArrayInputStream(bytes.toByteArray()));
+            }
+        }
+        merger.setDestinationStream(OutputStream.nullOutputStream());
+        merger.mergeDocuments(MemoryUsageSetting.setupMainMemoryOnly());
+        recordPeakHeap(counters, pages);
+        return pages;
+    }
+
+    private void recordPeakHeap(HeapCounters counters, int pages) {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        counters.peakHeapKbPerPage += Math.max(0, peak - baseline) / 1024 / Math.max(1, pages);
+    }
+
+    private static PDDocument createScannedDocument(Random random, int pages) throws IOException {
+        PDDocument document = new PDDocument();
+        for (int i = 0; i < pages; i++) {
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            document.addPage(page);
+
+            BufferedImage scan = new BufferedImage(300, 400, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < scan.getHeight(); y++) {
+                for (int x = 0; x < scan.getWidth(); x++) {
+                    scan.setRGB(x, y, random.nextInt(0x1000000));
+                }
+            }
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.drawImage(LosslessFactory.createFromImage(document, scan), 36, 72, 540, 720);
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 10);
+                content.newLineAtOffset(36, 36);
+                content.showText("Page " + (i + 1) + " of " + pages);
+                content.endText();
+            }
+        }
+        return document;
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.utility;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link QueueCache} under contention: the "mixed" group runs six readers against two writers on one
+ * cache, the way the provider, demographic and lab caches are hit by concurrent requests. Keys are
+ * drawn from a range larger than the cache so reads miss and writes shift the pools.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class QueueCacheBenchmark {
+
+    @Param({"4"})
+    public int pools;
+
+    @Param({"1000", "10000"})
+    public int objectsToCache;
+
+    private QueueCache<String, String> cache;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = new QueueCache<String, String>(pools, objectsToCache, null);
+        keys = new String[objectsToCache * 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "key" + i;
+            if (i < objectsToCache) cache.put(keys[i], "value" + i);
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public String get() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void put() {
+        String key = keys[ThreadLocalRandom.current().nextInt(keys.length)];
+        cache.put(key, key);
+    }
+
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(8)
+    public String getOnly() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(objectsToCache)]);
+    }
+}
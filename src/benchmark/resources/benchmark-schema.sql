@@ -0,0 +1,61 @@
+-- Tables read by the database backed benchmarks, trimmed from database/mysql/oscarinit.sql
+-- to the columns the benchmarked queries use. Loaded into H2 running in MySQL mode.
+
+CREATE TABLE IF NOT EXISTS demographic (
+  demographic_no int(10) NOT NULL auto_increment,
+  title varchar(10),
+  last_name varchar(30) NOT NULL default '',
+  first_name varchar(30) NOT NULL default '',
+  middleNames varchar(100) DEFAULT NULL,
+  alias varchar(70),
+  address varchar(60),
+  city varchar(50),
+  province varchar(20),
+  postal varchar(9),
+  phone varchar(20),
+  phone2 varchar(20),
+  email varchar(100),
+  year_of_birth varchar(4),
+  month_of_birth varchar(2),
+  date_of_birth varchar(2),
+  hin varchar(20),
+  ver char(3),
+  hc_type varchar(20),
+  hc_renew_date date,
+  chart_no varchar(10),
+  provider_no varchar(11),
+  sex char(1) NOT NULL default '',
+  patient_status varchar(20),
+  sin varchar(15),
+  newsletter varchar(10),
+  lastUpdateDate datetime not null,
+  PRIMARY KEY (demographic_no)
+);
+CREATE INDEX IF NOT EXISTS demographic_name ON demographic (last_name, first_name);
+
+CREATE TABLE IF NOT EXISTS provider (
+  provider_no varchar(6) NOT NULL default '',
+  last_name varchar(30) NOT NULL default '',
+  first_name varchar(30) NOT NULL default '',
+  provider_type varchar(15) NOT NULL default '',
+  specialty varchar(40) NOT NULL default '',
+  team varchar(20) default '',
+  sex char(1) NOT NULL default '',
+  address varchar(40) default NULL,
+  phone varchar(20) default NULL,
+  work_phone varchar(50) default NULL,
+  ohip_no varchar(20) default NULL,
+  email varchar(60) default NULL,
+  status char(1) default NULL,
+  lastUpdateDate datetime not null,
+  PRIMARY KEY (provider_no)
+);
+
+CREATE TABLE IF NOT EXISTS secObjPrivilege (
+  roleUserGroup varchar(30) NOT NULL default '',
+  objectName varchar(100) NOT NULL default '',
+  privilege varchar(100) NOT NULL default '|0|',
+  priority int(2) default '0',
+  provider_no varchar(6) default NULL,
+  PRIMARY KEY (roleUserGroup, objectName)
+);
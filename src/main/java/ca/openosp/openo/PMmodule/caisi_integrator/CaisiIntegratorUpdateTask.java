@@ -61,7 +61,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.Timer;
 import java.util.TimerTask;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -151,6 +150,7 @@ import ca.openosp.openo.commn.dao.PatientLabRoutingDao;
 import ca.openosp.openo.commn.dao.PreventionDao;
 import ca.openosp.openo.commn.dao.PreventionExtDao;
 import ca.openosp.openo.commn.dao.UserPropertyDAO;
+import ca.openosp.openo.commn.jobs.OscarJobProgress;
 import ca.openosp.openo.commn.model.Admission;
 import ca.openosp.openo.commn.model.Allergy;
 import ca.openosp.openo.commn.model.Appointment;
@@ -182,6 +182,7 @@ import ca.openosp.openo.labs.LabIdAndType;
 import ca.openosp.openo.managers.IntegratorFileLogManager;
 import ca.openosp.openo.managers.IntegratorPushManager;
 import ca.openosp.openo.managers.MessengerIntegratorManager;
+import ca.openosp.openo.managers.OscarJobSchedulerManager;
 import ca.openosp.openo.managers.PatientConsentManager;
 import org.springframework.beans.BeanUtils;
 import org.w3c.dom.Document;
@@ -352,8 +353,6 @@ public class CaisiIntegratorUpdateTask extends TimerTask {
 
     private PrintWriter documentMetaWriter;
 
-    private static Timer timer = new Timer("CaisiIntegratorUpdateTask Timer", true);
-
     private int numberOfTimesRun = 0;
 
     private FacilityDao facilityDao = (FacilityDao) SpringUtils.getBean(FacilityDao.class);
@@ -400,10 +399,12 @@ public class CaisiIntegratorUpdateTask extends TimerTask {
 
     private ConsentType consentType;
 
-    private static TimerTask timerTask = null;
+    private static final String JOB_NAME = "CaisiIntegratorUpdateTask";
+
+    private static boolean scheduled = false;
 
     public static synchronized void startTask() {
-        if (timerTask == null) {
+        if (!scheduled) {
             long period = 0;
             String periodStr = null;
             try {
@@ -416,17 +417,19 @@ public class CaisiIntegratorUpdateTask extends TimerTask {
             }
 
             logger.info("Scheduling CaisiIntegratorUpdateTask for period : " + period);
-            timerTask = new CaisiIntegratorUpdateTask();
-            timer.schedule(timerTask, 10000, period);
+            OscarJobSchedulerManager jobScheduler = SpringUtils.getBean(OscarJobSchedulerManager.class);
+            jobScheduler.schedule(JOB_NAME, new CaisiIntegratorUpdateTask(), 10000, period);
+            scheduled = true;
         } else {
             logger.error("Start was called twice on this timer task object.", new Exception());
         }
     }
 
     public static synchronized void stopTask() {
-        if (timerTask != null) {
-            timerTask.cancel();
-            timerTask = null;
+        if (scheduled) {
+            OscarJobSchedulerManager jobScheduler = SpringUtils.getBean(OscarJobSchedulerManager.class);
+            jobScheduler.unschedule(JOB_NAME, false);
+            scheduled = false;
 
             logger.info("CaisiIntegratorUpdateTask has been unscheduled.");
         }
@@ -1056,6 +1059,7 @@ public class CaisiIntegratorUpdateTask extends TimerTask {
                 DbConnectionFilter.releaseAllThreadDbResources();
 
                 demoOut.flush();
+                OscarJobProgress.addRowsProcessed(1);
 
             } catch (IOException e) {
                 logger.error(
@@ -2730,6 +2734,7 @@ public class CaisiIntegratorUpdateTask extends TimerTask {
 
         // sort out the current status' in the integrator file log with the integrator
         // log.
+        List<IntegratorFileLog> changedFileLogs = new ArrayList<IntegratorFileLog>();
         for (IntegratorFileLog integratorFileLog : integratorFileLogList) {
             List<ImportLog> importLogList = null;
 
@@ -2744,9 +2749,12 @@ public class CaisiIntegratorUpdateTask extends TimerTask {
 
             for (ImportLog importLog : importLogList) {
                 integratorFileLog.setIntegratorStatus(importLog.getStatus());
-                integratorFileLogManager.updateIntegratorFileLog(loggedInInfo, integratorFileLog);
+            }
+            if (!importLogList.isEmpty()) {
+                changedFileLogs.add(integratorFileLog);
             }
         }
+        integratorFileLogManager.updateIntegratorFileLogs(loggedInInfo, changedFileLogs);
 
         return lastFile;
     }
@@ -31,15 +31,25 @@ import org.apache.commons.lang3.time.DateUtils;
 import org.apache.logging.log4j.Logger;
 import ca.openosp.openo.PMmodule.model.ProgramProvider;
 import ca.openosp.openo.commn.model.Facility;
+import ca.openosp.openo.event.ProgramDomainChangeEvent;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.QueueCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.orm.hibernate5.support.HibernateDaoSupport;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Iterator;
 import java.util.List;
 
-public class ProgramProviderDAOImpl extends HibernateDaoSupport implements ProgramProviderDAO {
+public class ProgramProviderDAOImpl extends HibernateDaoSupport implements ProgramProviderDAO, ApplicationEventPublisherAware {
+
+    private ApplicationEventPublisher publisher;
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
 
     private Logger log = MiscUtils.getLogger();
 
@@ -206,6 +216,7 @@ public class ProgramProviderDAOImpl extends HibernateDaoSupport implements Progr
 
         programProviderByProviderProgramIdCache.remove(makeCacheKey(pp.getProviderNo(), pp.getProgramId()));
         getHibernateTemplate().saveOrUpdate(pp);
+        publishProgramDomainChange(pp);
 
         if (log.isDebugEnabled()) {
             log.debug("saveProgramProvider: id=" + pp.getId());
@@ -223,6 +234,7 @@ public class ProgramProviderDAOImpl extends HibernateDaoSupport implements Progr
         if (pp != null) {
             programProviderByProviderProgramIdCache.remove(makeCacheKey(pp.getProviderNo(), pp.getProgramId()));
             getHibernateTemplate().delete(pp);
+            publishProgramDomainChange(pp);
         }
 
         if (log.isDebugEnabled()) {
@@ -243,6 +255,7 @@ public class ProgramProviderDAOImpl extends HibernateDaoSupport implements Progr
                 ProgramProvider pp = (ProgramProvider) it.next();
                 programProviderByProviderProgramIdCache.remove(makeCacheKey(pp.getProviderNo(), pp.getProgramId()));
                 getHibernateTemplate().delete(pp);
+                publishProgramDomainChange(pp);
             }
         }
 
@@ -355,4 +368,10 @@ public class ProgramProviderDAOImpl extends HibernateDaoSupport implements Progr
         pp.setRoleId(roleId);
         getHibernateTemplate().update(pp);
     }
+
+    private void publishProgramDomainChange(ProgramProvider pp) {
+        if (publisher != null) {
+            publisher.publishEvent(new ProgramDomainChangeEvent(pp, null, pp.getProviderNo()));
+        }
+    }
 }
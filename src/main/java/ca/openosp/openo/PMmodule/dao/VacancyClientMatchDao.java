@@ -44,4 +44,20 @@ public interface VacancyClientMatchDao extends AbstractDao<VacancyClientMatch> {
 
     public void updateStatusAndRejectedReason(String status, String rejectedReason, int clientId, int vacancyId);
 
+    /**
+     * @return the vacancies the client has a match row for
+     */
+    public List<Integer> findVacancyIdsByClientId(int clientId);
+
+    /**
+     * @return the clients with a match row for the vacancy
+     */
+    public List<Integer> findClientIdsByVacancyId(int vacancyId);
+
+    /**
+     * Writes the match scores in multi-row inserts. Existing rows only get their score and proportion
+     * updated, the status and contact history of a match are kept.
+     */
+    public void upsertScores(List<VacancyClientMatch> matches);
+
 }
@@ -38,6 +38,8 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class VacancyClientMatchDaoImpl extends AbstractDaoImpl<VacancyClientMatch> implements VacancyClientMatchDao {
 
+    private static final int UPSERT_BATCH_SIZE = 200;
+
     public VacancyClientMatchDaoImpl() {
         super(VacancyClientMatch.class);
     }
@@ -92,4 +94,54 @@ public class VacancyClientMatchDaoImpl extends AbstractDaoImpl<VacancyClientMatc
         }
     }
 
+    @Override
+    public List<Integer> findVacancyIdsByClientId(int clientId) {
+        Query q = entityManager.createQuery("select distinct x.vacancy_id from VacancyClientMatch x where x.client_id = ?1");
+        q.setParameter(1, clientId);
+
+        @SuppressWarnings("unchecked")
+        List<Integer> results = q.getResultList();
+
+        return results;
+    }
+
+    @Override
+    public List<Integer> findClientIdsByVacancyId(int vacancyId) {
+        Query q = entityManager.createQuery("select distinct x.client_id from VacancyClientMatch x where x.vacancy_id = ?1");
+        q.setParameter(1, vacancyId);
+
+        @SuppressWarnings("unchecked")
+        List<Integer> results = q.getResultList();
+
+        return results;
+    }
+
+    @Override
+    public void upsertScores(List<VacancyClientMatch> matches) {
+        for (int from = 0; from < matches.size(); from += UPSERT_BATCH_SIZE) {
+            List<VacancyClientMatch> batch = matches.subList(from, Math.min(from + UPSERT_BATCH_SIZE, matches.size()));
+
+            StringBuilder sql = new StringBuilder("insert into vacancy_client_match (vacancy_id, client_id, form_id, status, match_percent, proportion) values ");
+            for (int i = 0; i < batch.size(); i++) {
+                int p = i * 6;
+                if (i > 0) sql.append(',');
+                sql.append("(?").append(p + 1).append(",?").append(p + 2).append(",?").append(p + 3)
+                        .append(",?").append(p + 4).append(",?").append(p + 5).append(",?").append(p + 6).append(')');
+            }
+            sql.append(" on duplicate key update match_percent = values(match_percent), proportion = values(proportion)");
+
+            Query query = entityManager.createNativeQuery(sql.toString());
+            for (int i = 0; i < batch.size(); i++) {
+                VacancyClientMatch match = batch.get(i);
+                int p = i * 6;
+                query.setParameter(p + 1, match.getVacancy_id());
+                query.setParameter(p + 2, match.getClient_id());
+                query.setParameter(p + 3, match.getForm_id());
+                query.setParameter(p + 4, match.getStatus());
+                query.setParameter(p + 5, match.getMatchPercentage());
+                query.setParameter(p + 6, match.getProportion());
+            }
+            query.executeUpdate();
+        }
+    }
 }
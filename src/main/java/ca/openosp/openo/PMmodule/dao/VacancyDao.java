@@ -28,6 +28,7 @@
 
 package ca.openosp.openo.PMmodule.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import ca.openosp.openo.PMmodule.model.Vacancy;
@@ -46,4 +47,9 @@ public interface VacancyDao extends AbstractDao<Vacancy> {
     public Vacancy getVacancyById(int vacancyId);
 
     public List<Vacancy> findCurrent();
+
+    /**
+     * @return the ids of the given vacancies that are active
+     */
+    public List<Integer> findActiveIds(Collection<Integer> vacancyIds);
 }
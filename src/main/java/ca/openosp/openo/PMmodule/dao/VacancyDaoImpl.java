@@ -28,21 +28,42 @@
 
 package ca.openosp.openo.PMmodule.dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.Query;
 
 import ca.openosp.openo.PMmodule.model.Vacancy;
 import ca.openosp.openo.commn.dao.AbstractDaoImpl;
+import ca.openosp.openo.commn.model.AbstractModel;
+import ca.openosp.openo.commn.model.DomainEvent;
+import ca.openosp.openo.managers.DomainEventManager;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class VacancyDaoImpl extends AbstractDaoImpl<Vacancy> implements VacancyDao {
 
+    @Autowired
+    private DomainEventManager domainEventManager;
+
     public VacancyDaoImpl() {
         super(Vacancy.class);
     }
 
+    /**
+     * Also writes a VacancyUpdated domain event in the same transaction, the vacancy is matched again by
+     * MatchEventListener.
+     */
+    @Override
+    public void merge(AbstractModel<?> o) {
+        super.merge(o);
+        if (o instanceof Vacancy) {
+            domainEventManager.publish(DomainEvent.VACANCY_UPDATED, String.valueOf(((Vacancy) o).getId()), null);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public List<Vacancy> getVacanciesByWlProgramId(Integer wlProgramId) {
@@ -114,4 +135,17 @@ public class VacancyDaoImpl extends AbstractDaoImpl<Vacancy> implements VacancyD
 
         return query.getResultList();
     }
+
+    @Override
+    public List<Integer> findActiveIds(Collection<Integer> vacancyIds) {
+        if (vacancyIds.isEmpty()) return new ArrayList<Integer>();
+
+        Query query = entityManager.createQuery("select x.id from Vacancy x where x.status = ?1 and x.id in (?2)");
+        query.setParameter(1, "ACTIVE");
+        query.setParameter(2, vacancyIds);
+
+        @SuppressWarnings("unchecked")
+        List<Integer> results = query.getResultList();
+        return results;
+    }
 }
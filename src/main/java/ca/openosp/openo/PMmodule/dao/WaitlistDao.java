@@ -81,4 +81,9 @@ public interface WaitlistDao {
 
     public VacancyData loadVacancyData(final int vacancyId, final int wlProgramId);
 
+    /**
+     * @return the criteria of every active vacancy, read in one query
+     */
+    public List<VacancyData> loadActiveVacancyData();
+
 }
@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -587,36 +588,7 @@ public class WaitlistDaoImpl implements WaitlistDao {
         @SuppressWarnings("unchecked")
         List<Object[]> results = query.getResultList();
         for (Object[] cols : results) {
-
-            String fieldName = (String) cols[2];
-            String fieldType = (String) cols[3];
-            String critValue = (String) cols[4];
-            String optionValue = (String) cols[5];
-            Integer rangeStart = (Integer) cols[6];
-            Integer rangeEnd = (Integer) cols[7];
-            if (fieldName != null) {
-                fieldName = fieldName.toLowerCase(Locale.ENGLISH);
-            }
-            VacancyTemplateData vtData = new VacancyTemplateData();
-            vtData.setParam(fieldName);
-            if (field_type_range.equals(fieldType)) {
-                vtData.setRange(true);
-                vtData.addRange(rangeStart, rangeEnd);
-            } else {
-                if (field_type_multiple.equals(fieldType)) {
-                    VacancyTemplateData vtMultiData = vacancyData.getVacancyData().get(fieldName);
-                    if (vtMultiData != null) {
-                        vtData = vtMultiData;
-                    }
-                }
-                if (critValue != null) {
-                    vtData.getValues().add(critValue);
-                } else {
-                    vtData.getValues().add(optionValue);
-                }
-            }
-
-            vacancyData.getVacancyData().put(vtData.getParam(), vtData);
+            addCriteria(vacancyData, cols);
         }
 
         return vacancyData;
@@ -638,37 +610,73 @@ public class WaitlistDaoImpl implements WaitlistDao {
         @SuppressWarnings("unchecked")
         List<Object[]> results = query.getResultList();
         for (Object[] cols : results) {
-            String fieldName = (String) cols[2];
-            String fieldType = (String) cols[3];
-            String critValue = (String) cols[4];
-            String optionValue = (String) cols[5];
-            Integer rangeStart = (Integer) cols[6];
-            Integer rangeEnd = (Integer) cols[7];
-            if (fieldName != null) {
-                fieldName = fieldName.toLowerCase(Locale.ENGLISH);
-            }
-            VacancyTemplateData vtData = new VacancyTemplateData();
-            vtData.setParam(fieldName);
-            if (field_type_range.equals(fieldType)) {
-                vtData.setRange(true);
-                vtData.addRange(rangeStart, rangeEnd);
-            } else {
-                if (field_type_multiple.equals(fieldType)) {
-                    VacancyTemplateData vtMultiData = vacancyData.getVacancyData().get(fieldName);
-                    if (vtMultiData != null) {
-                        vtData = vtMultiData;
-                    }
-                }
-                if (critValue != null) {
-                    vtData.getValues().add(critValue);
-                } else {
-                    vtData.getValues().add(optionValue);
-                }
-            }
-            vacancyData.getVacancyData().put(vtData.getParam(), vtData);
+            addCriteria(vacancyData, cols);
         }
 
         return vacancyData;
     }
 
+    private static final String QUERY_ACTIVE_VACANCY_DATA = "SELECT v.id, v.wlProgramId, ct.field_name,ct.field_type,"
+            + "c.criteria_value,cso.option_value,c.range_start_value,c.range_end_value "
+            + "FROM vacancy v LEFT JOIN criteria c ON c.VACANCY_ID=v.id LEFT JOIN criteria_type ct ON c.CRITERIA_TYPE_ID=ct.CRITERIA_TYPE_ID "
+            + "LEFT JOIN criteria_selection_option cso ON cso.CRITERIA_ID=c.CRITERIA_ID "
+            + "WHERE v.status='ACTIVE' ORDER BY v.id";
+
+    @Override
+    public List<VacancyData> loadActiveVacancyData() {
+        Map<Integer, VacancyData> vacancies = new LinkedHashMap<Integer, VacancyData>();
+
+        Query query = entityManager.createNativeQuery(QUERY_ACTIVE_VACANCY_DATA);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+        for (Object[] cols : results) {
+            Integer vacancyId = (Integer) cols[0];
+            VacancyData vacancyData = vacancies.get(vacancyId);
+            if (vacancyData == null) {
+                vacancyData = new VacancyData();
+                vacancyData.setVacancy_id(vacancyId);
+                vacancyData.setProgram_id(cols[1] != null ? (Integer) cols[1] : 0);
+                vacancies.put(vacancyId, vacancyData);
+            }
+            // a vacancy without criteria is kept, it matches on nothing
+            if (cols[3] != null) addCriteria(vacancyData, cols);
+        }
+        return new ArrayList<VacancyData>(vacancies.values());
+    }
+
+    /**
+     * Adds a row of the vacancy criteria queries to the vacancy, the values of a multiple choice
+     * criterion are collected on one VacancyTemplateData.
+     */
+    private static void addCriteria(VacancyData vacancyData, Object[] cols) {
+        String fieldName = (String) cols[2];
+        String fieldType = (String) cols[3];
+        String critValue = (String) cols[4];
+        String optionValue = (String) cols[5];
+        Integer rangeStart = (Integer) cols[6];
+        Integer rangeEnd = (Integer) cols[7];
+        if (fieldName != null) {
+            fieldName = fieldName.toLowerCase(Locale.ENGLISH);
+        }
+        VacancyTemplateData vtData = new VacancyTemplateData();
+        vtData.setParam(fieldName);
+        if (field_type_range.equals(fieldType)) {
+            vtData.setRange(true);
+            vtData.addRange(rangeStart, rangeEnd);
+        } else {
+            if (field_type_multiple.equals(fieldType)) {
+                VacancyTemplateData vtMultiData = vacancyData.getVacancyData().get(fieldName);
+                if (vtMultiData != null) {
+                    vtData = vtMultiData;
+                }
+            }
+            if (critValue != null) {
+                vtData.getValues().add(critValue);
+            } else {
+                vtData.getValues().add(optionValue);
+            }
+        }
+        vacancyData.getVacancyData().put(vtData.getParam(), vtData);
+    }
 }
@@ -22,11 +22,15 @@
 
 package ca.openosp.openo.PMmodule.model;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.util.Date;
 
 import ca.openosp.Misc;
@@ -39,6 +43,8 @@ import ca.openosp.openo.commn.model.AbstractModel;
  * Entity implementation class for Entity: Program
  * Represents a program in the system.
  */
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Entity
 @Table(name = "program")
 public class Program extends AbstractModel<Integer> {
@@ -35,6 +35,7 @@ import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.util.LabelValueBean;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ProgramManager {
 
@@ -204,6 +205,12 @@ public interface ProgramManager {
 
     VacancyTemplate getVacancyTemplate(Integer templateId);
 
+    /**
+     * Saves a new vacancy, then saves its criteria through saveCriteria, and writes a VacancyCreated domain
+     * event, all in one transaction. MatchEventListener never sees the vacancy without its criteria.
+     */
+    void createVacancy(Vacancy vacancy, Consumer<Vacancy> saveCriteria);
+
     void setVacancyTemplateDao(VacancyTemplateDao vacancyTemplateDao);
 
     boolean hasAccessBasedOnCurrentFacility(LoggedInInfo loggedInInfo, Integer programId);
@@ -33,6 +33,8 @@ import ca.openosp.openo.PMmodule.model.*;
 import ca.openosp.openo.PMmodule.dao.*;
 import ca.openosp.openo.commn.dao.AdmissionDao;
 import ca.openosp.openo.commn.model.Admission;
+import ca.openosp.openo.commn.model.DomainEvent;
+import ca.openosp.openo.managers.DomainEventManager;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.OscarProperties;
 import ca.openosp.openo.util.LabelValueBean;
@@ -40,6 +42,10 @@ import ca.openosp.openo.util.LabelValueBean;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
 
 public class ProgramManagerImpl implements ProgramManager {
 
@@ -54,6 +60,12 @@ public class ProgramManagerImpl implements ProgramManager {
     private ProgramSignatureDao programSignatureDao;
     private VacancyTemplateDao vacancyTemplateDao;
 
+    @Autowired
+    private VacancyDao vacancyDao;
+
+    @Autowired
+    private DomainEventManager domainEventManager;
+
     private boolean enabled;
 
     public boolean getEnabled() {
@@ -449,6 +461,13 @@ public class ProgramManagerImpl implements ProgramManager {
         return vacancyTemplateDao.getVacancyTemplate(templateId);
     }
 
+    @Transactional
+    public void createVacancy(Vacancy vacancy, Consumer<Vacancy> saveCriteria) {
+        vacancyDao.persist(vacancy);
+        saveCriteria.accept(vacancy);
+        domainEventManager.publish(DomainEvent.VACANCY_CREATED, String.valueOf(vacancy.getId()), null);
+    }
+
     public void setVacancyTemplateDao(VacancyTemplateDao vacancyTemplateDao) {
         this.vacancyTemplateDao = vacancyTemplateDao;
     }
@@ -82,9 +82,6 @@ import ca.openosp.openo.commn.model.Facility;
 import ca.openosp.openo.commn.model.FunctionalCentre;
 import ca.openosp.openo.commn.model.Tickler;
 import ca.openosp.openo.managers.TicklerManager;
-import ca.openosp.openo.match.IMatchManager;
-import ca.openosp.openo.match.MatchManager;
-import ca.openosp.openo.match.MatchManagerException;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.SpringUtils;
@@ -146,8 +143,6 @@ public class ProgramManager2Action extends ActionSupport {
 
     private TicklerManager ticklerManager = SpringUtils.getBean(TicklerManager.class);
 
-    private IMatchManager matchManager = new MatchManager();
-
     
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -1020,55 +1015,52 @@ public class ProgramManager2Action extends ActionSupport {
             vacancy.setStatus(parameters.get("vacancyStatus")[0]);
             vacancy.setReasonClosed(parameters.get("reasonClosed")[0]);
             vacancy.setDateClosed(dateClosedFormatted);
-            VacancyTemplateManager.saveVacancy(vacancy);
+
+            // the vacancy, its criteria and the VacancyCreated event matched by MatchEventListener commit together
+            Integer vacancyTemplateId = templateId;
+            programManager.createVacancy(vacancy, created -> saveVacancyCriteria(created, vacancyTemplateId, parameters));
 
             Facility f = loggedInInfo.getCurrentFacility();
             if (f.getAssignNewVacancyTicklerProvider() != null && f.getAssignNewVacancyTicklerProvider().length() > 0
                     && f.getAssignNewVacancyTicklerDemographic() != null && f.getAssignNewVacancyTicklerDemographic() > 0) {
                 createWaitlistNotificationTickler(loggedInInfo, f, vacancy, loggedInInfo.getLoggedInProviderNo());
             }
+        }
 
-            List<Criteria> criteriaList = VacancyTemplateManager.getRefinedCriteriasByTemplateId(templateId);
-            for (Criteria c : criteriaList) {
-                CriteriaType type = VacancyTemplateManager.getCriteriaTypeById(c.getCriteriaTypeId());
-                Criteria newCriteria = new Criteria();
-                newCriteria.setVacancyId(vacancy.getId());
-                newCriteria.setMatchScoreWeight(1.0); //???
-
-                if (c.getCanBeAdhoc() == 1) { //mandatory and not changeable, disabled in the form and the value not contained in request. But it should keep same value in new criteria.
-                    newCriteria.setCanBeAdhoc(c.getCanBeAdhoc());
-                    newCriteria.setCriteriaTypeId(c.getCriteriaTypeId());
-                    newCriteria.setCriteriaValue(c.getCriteriaValue());
-                    newCriteria.setRangeEndValue(c.getRangeEndValue());
-                    newCriteria.setRangeStartValue(c.getRangeStartValue());
-                    VacancyTemplateManager.saveCriteria(newCriteria);
-                    continue;
-                }
+        setEditAttributes(request, String.valueOf(program.getId()));
+        return edit();
 
-                String required = type.getFieldName().toLowerCase().replaceAll(" ", "_") + "Required";
-                if (request.getParameter(required) == null)
-                    newCriteria.setCanBeAdhoc(0);
-                else
-                    newCriteria.setCanBeAdhoc(Integer.valueOf(request.getParameter(required)));
+    }
 
-                String targetName = "targetOf" + type.getFieldName().toLowerCase().replaceAll(" ", "_");
-                String[] answers = parameters.get(targetName);
+    private void saveVacancyCriteria(Vacancy vacancy, Integer templateId, HashMap<String, String[]> parameters) {
+        List<Criteria> criteriaList = VacancyTemplateManager.getRefinedCriteriasByTemplateId(templateId);
+        for (Criteria c : criteriaList) {
+            CriteriaType type = VacancyTemplateManager.getCriteriaTypeById(c.getCriteriaTypeId());
+            Criteria newCriteria = new Criteria();
+            newCriteria.setVacancyId(vacancy.getId());
+            newCriteria.setMatchScoreWeight(1.0); //???
 
-                saveTemplateOrVacancy(parameters, answers, type, newCriteria, request);
+            if (c.getCanBeAdhoc() == 1) { //mandatory and not changeable, disabled in the form and the value not contained in request. But it should keep same value in new criteria.
+                newCriteria.setCanBeAdhoc(c.getCanBeAdhoc());
+                newCriteria.setCriteriaTypeId(c.getCriteriaTypeId());
+                newCriteria.setCriteriaValue(c.getCriteriaValue());
+                newCriteria.setRangeEndValue(c.getRangeEndValue());
+                newCriteria.setRangeStartValue(c.getRangeStartValue());
+                VacancyTemplateManager.saveCriteria(newCriteria);
+                continue;
             }
 
-            //Call Match Manager
-            //TODO do the testing
-            try {
-                matchManager.processEvent(vacancy, IMatchManager.Event.VACANCY_CREATED);
-            } catch (MatchManagerException e) {
-                //log.error("Match manager failed", e);
-            }
-        }
+            String required = type.getFieldName().toLowerCase().replaceAll(" ", "_") + "Required";
+            if (request.getParameter(required) == null)
+                newCriteria.setCanBeAdhoc(0);
+            else
+                newCriteria.setCanBeAdhoc(Integer.valueOf(request.getParameter(required)));
 
-        setEditAttributes(request, String.valueOf(program.getId()));
-        return edit();
+            String targetName = "targetOf" + type.getFieldName().toLowerCase().replaceAll(" ", "_");
+            String[] answers = parameters.get(targetName);
 
+            saveTemplateOrVacancy(parameters, answers, type, newCriteria, request);
+        }
     }
 
     private void createWaitlistWithdrawnNotificationTickler(LoggedInInfo loggedInInfo, Facility facility, Vacancy vacancy, String creatorProviderNo) {
@@ -40,7 +40,7 @@ import ca.openosp.OscarProperties;
 
 /*
  *  a) determine which rows to be purged 
- b) backup rows to be purged using mysqldump and saving that output file directly on the server (somewhere under DOCUMENT_DIR) 
+ b) archive rows to be purged into compressed segment files directly on the server (somewhere under DOCUMENT_DIR) 
  c) log it's own action to the Log 
  c) permanently remove identified rows from log table. 
  
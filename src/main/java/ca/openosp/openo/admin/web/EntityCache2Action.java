@@ -0,0 +1,70 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.admin.web;
+
+import javax.servlet.http.HttpServletRequest;
+
+import ca.openosp.openo.managers.EntityCacheManager;
+import ca.openosp.openo.managers.SecurityInfoManager;
+import ca.openosp.openo.utility.LoggedInInfo;
+import ca.openosp.openo.utility.SpringUtils;
+
+import com.opensymphony.xwork2.ActionSupport;
+import org.apache.struts2.ServletActionContext;
+
+/**
+ * Shows the second level cache regions and lets an administrator evict them.
+ */
+public class EntityCache2Action extends ActionSupport {
+    HttpServletRequest request = ServletActionContext.getRequest();
+
+    private SecurityInfoManager securityInfoManager = SpringUtils.getBean(SecurityInfoManager.class);
+    private EntityCacheManager entityCacheManager = SpringUtils.getBean(EntityCacheManager.class);
+
+    @Override
+    public String execute() throws Exception {
+        LoggedInInfo loggedInInfo = LoggedInInfo.getLoggedInInfoFromSession(request);
+        if (!securityInfoManager.hasPrivilege(loggedInInfo, "_admin", "r", null)) {
+            throw new SecurityException("missing required sec object (_admin)");
+        }
+
+        String method = request.getParameter("method");
+        if (("evict".equals(method) || "evictAll".equals(method)) && "POST".equalsIgnoreCase(request.getMethod())) {
+            if (!securityInfoManager.hasPrivilege(loggedInInfo, "_admin", "w", null)) {
+                throw new SecurityException("missing required sec object (_admin)");
+            }
+            if ("evictAll".equals(method)) {
+                entityCacheManager.evictAll();
+                request.setAttribute("msg", "Every region was cleared.");
+            } else if (request.getParameter("region") != null) {
+                entityCacheManager.evictRegion(request.getParameter("region"));
+                request.setAttribute("msg", "Region " + request.getParameter("region") + " was cleared.");
+            }
+        }
+
+        request.setAttribute("regions", entityCacheManager.getRegionStatistics());
+        return SUCCESS;
+    }
+}
@@ -31,12 +31,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import ca.openosp.openo.commn.dao.BillingServiceDao;
+import ca.openosp.openo.commn.model.BillingService;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.SpringUtils;
 
@@ -51,38 +57,41 @@ public class ScheduleOfBenefits {
     int newfees, oldfees, total;
     BillingCodeData bc;
 
+    // the fees in effect today, loaded once per schedule
+    private Map<String, Hashtable<String, String>> currentFees;
+    private Map<String, Integer> numCodes;
+    private Map<String, BillingService> defaultDescriptions;
+    private List<BillingService> currentServices;
+
     public ScheduleOfBenefits() {
     }
 
 
     public List processNewFeeSchedule(InputStream is, boolean addNewCodes, boolean addChangedCodes, boolean forceUpdate, BigDecimal updateAssistantFeesValue, BigDecimal updateAnaesthetistFeesValue) {
+        return processNewFeeSchedule(is, addNewCodes, addChangedCodes, false, forceUpdate, updateAssistantFeesValue, updateAnaesthetistFeesValue);
+    }
+
+    /**
+     * Compares the whole schedule to the fees in effect today and lists the changes without writing anything,
+     * the list is the preview the changes are applied from.
+     *
+     * @param addRetiredCodes also list the current A codes the schedule no longer has, to end them today
+     */
+    public List processNewFeeSchedule(InputStream is, boolean addNewCodes, boolean addChangedCodes, boolean addRetiredCodes, boolean forceUpdate, BigDecimal updateAssistantFeesValue, BigDecimal updateAnaesthetistFeesValue) {
         ArrayList changes = new ArrayList();
         bc = new BillingCodeData();
-        StringBuilder codesThatHaveBothGPSpec = new StringBuilder();
         this.addNewCodes = addNewCodes;
         this.addChangedCodes = addChangedCodes;
         this.forceUpdate = forceUpdate;
 
         try {
-            InputStreamReader isr = new InputStreamReader(is);
-            BufferedReader in = new BufferedReader(isr);
-            String str;
-            int total = 0;
-            int newfees = 0;
-            int oldfees = 0;
-            Map change;
-            while ((str = in.readLine()) != null) {
-                total++;
-                Hashtable newPricingInfo = breakLine(str);
-                Hashtable<String, String> billingInfo = bc.searchBillingCode((String) newPricingInfo.get("feeCode") + "A");
+            List<Hashtable> schedule = readFeeSchedule(is);
+            loadCurrentFees();
 
-                BigDecimal gpBD = getJBD((String) newPricingInfo.get("gpFees"));
-                BigDecimal specBD = getJBD((String) newPricingInfo.get("specFee"));
-                BigDecimal zeroBD = new BigDecimal("0.00");
-
-                if (gpBD.compareTo(zeroBD) != 0 && specBD.compareTo(zeroBD) != 0 && gpBD.compareTo(specBD) != 0) {
-                    codesThatHaveBothGPSpec.append(((String) newPricingInfo.get("feeCode")) + ":" + gpBD + " " + specBD + "\n");
-                }
+            Map change;
+            for (Hashtable newPricingInfo : schedule) {
+                String feeCode = (String) newPricingInfo.get("feeCode");
+                Hashtable<String, String> billingInfo = currentFees.get(feeCode + "A");
 
                 String moreprices = "(gp.:" + getJBD((String) newPricingInfo.get("gpFees")) +
                         ")  (asst.:" + getJBD((String) newPricingInfo.get("assistantCompFee")) +
@@ -90,9 +99,10 @@ public class ScheduleOfBenefits {
                         ")  (anaes:" + getJBD((String) newPricingInfo.get("anaesthetistFee")) +
                         ")  (non-a:" + getJBD((String) newPricingInfo.get("nonAnaesthetistFee")) + ")";
 
-                BillingServiceDao bsd = (BillingServiceDao) SpringUtils.getBean(BillingServiceDao.class);
-                String defaultDescription = bsd.searchDescBillingCode((String) newPricingInfo.get("feeCode"), "ON");
+                BillingService described = defaultDescriptions.get(feeCode);
+                String defaultDescription = described == null ? "----" : described.getDescription();
 
+                BigDecimal zeroBD = new BigDecimal("0.00");
                 String newPrice = (String) newPricingInfo.get("gpFees");
                 double newDoub = (Double.parseDouble(newPrice)) / 10000;
                 BigDecimal newPriceDec = new BigDecimal(newDoub).setScale(2, BigDecimal.ROUND_HALF_UP);
@@ -110,7 +120,7 @@ public class ScheduleOfBenefits {
                 }
 
                 if (updateAssistantFeesValue != null && updateAssistantFeesValue.compareTo(BigDecimal.ZERO) != 0) {
-                    billingInfo = bc.searchBillingCode((String) newPricingInfo.get("feeCode") + "B");
+                    billingInfo = currentFees.get(feeCode + "B");
                     newPriceDec = updateAssistantFeesValue;
                     change = processBillingCode(newPricingInfo, billingInfo, newPriceDec, "B", moreprices, defaultDescription);
                     if (change != null) {
@@ -119,7 +129,7 @@ public class ScheduleOfBenefits {
                 }
 
                 if (updateAnaesthetistFeesValue != null && updateAnaesthetistFeesValue.compareTo(BigDecimal.ZERO) != 0) {
-                    billingInfo = bc.searchBillingCode((String) newPricingInfo.get("feeCode") + "C");
+                    billingInfo = currentFees.get(feeCode + "C");
                     newPriceDec = updateAnaesthetistFeesValue;
                     change = processBillingCode(newPricingInfo, billingInfo, newPriceDec, "C", moreprices, defaultDescription);
                     if (change != null) {
@@ -127,13 +137,109 @@ public class ScheduleOfBenefits {
                     }
                 }
             }
-            in.close();
+
+            if (addRetiredCodes) {
+                changes.addAll(findRetiredCodes(schedule));
+            }
         } catch (IOException e) {
             MiscUtils.getLogger().error("SOB Upload error", e);
         }
         return changes;
     }
 
+    /**
+     * Reads every fee line of the schedule before anything is compared, lines that aren't fee lines are skipped.
+     */
+    List<Hashtable> readFeeSchedule(InputStream is) throws IOException {
+        List<Hashtable> schedule = new ArrayList<Hashtable>();
+        BufferedReader in = new BufferedReader(new InputStreamReader(is));
+        try {
+            String str;
+            while ((str = in.readLine()) != null) {
+                total++;
+                Hashtable newPricingInfo = breakLine(str);
+                if (newPricingInfo != null) {
+                    schedule.add(newPricingInfo);
+                } else if (str.trim().length() > 0) {
+                    MiscUtils.getLogger().warn("SOB line " + total + " is not a fee line, skipped");
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return schedule;
+    }
+
+    /**
+     * Loads the fees in effect today in one query, keyed the way the schedule is compared: the current version of
+     * each service code, the number of current codes and the description to default to for each fee code.
+     */
+    private void loadCurrentFees() {
+        BillingServiceDao billingServiceDao = SpringUtils.getBean(BillingServiceDao.class);
+        currentServices = billingServiceDao.findAllMostRecent();
+        currentFees = new HashMap<String, Hashtable<String, String>>();
+        numCodes = new HashMap<String, Integer>();
+        defaultDescriptions = new HashMap<String, BillingService>();
+
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for (BillingService bs : currentServices) {
+            String serviceCode = bs.getServiceCode();
+            if (serviceCode == null) continue;
+            counts.merge(serviceCode, 1, Integer::sum);
+            currentFees.put(serviceCode, bc.fillCodeDataHashtable(bs));
+            if (serviceCode.length() < 4) continue;
+
+            String feeCode = serviceCode.substring(0, 4);
+            numCodes.merge(feeCode, 1, Integer::sum);
+            if ("ON".equals(bs.getRegion()) && !isEmptyDescription(bs.getDescription())) {
+                BillingService described = defaultDescriptions.get(feeCode);
+                if (described == null || bs.getBillingserviceDate().after(described.getBillingserviceDate())) {
+                    defaultDescriptions.put(feeCode, bs);
+                }
+            }
+        }
+        for (Map.Entry<String, Hashtable<String, String>> fee : currentFees.entrySet()) {
+            fee.getValue().put("count", "" + counts.get(fee.getKey()));
+        }
+    }
+
+    /**
+     * @return the current Ontario A codes missing from the schedule, each ending today
+     */
+    private List<Map> findRetiredCodes(List<Hashtable> schedule) {
+        Set<String> scheduled = new HashSet<String>();
+        for (Hashtable newPricingInfo : schedule) {
+            scheduled.add((String) newPricingInfo.get("feeCode"));
+        }
+
+        Date today = new Date();
+        String todayString = new SimpleDateFormat("yyyyMMdd").format(today);
+        Set<String> retired = new HashSet<String>();
+        List<Map> changes = new ArrayList<Map>();
+        for (BillingService bs : currentServices) {
+            String serviceCode = bs.getServiceCode();
+            if (serviceCode == null || serviceCode.length() != 5 || !serviceCode.endsWith("A") || !"ON".equals(bs.getRegion())
+                    || scheduled.contains(serviceCode.substring(0, 4)) || !retired.add(serviceCode)) {
+                continue;
+            }
+            if (bs.getTerminationDate() != null && !bs.getTerminationDate().after(today)) {
+                continue;
+            }
+            Hashtable change = new Hashtable();
+            change.put("changeType", "retired");
+            change.put("feeCode", serviceCode);
+            change.put("oldprice", bs.getValue() == null ? "" : bs.getValue());
+            change.put("newprice", bs.getValue() == null ? "" : bs.getValue());
+            change.put("diff", "");
+            change.put("prices", "");
+            change.put("effectiveDate", new SimpleDateFormat("yyyyMMdd").format(bs.getBillingserviceDate()));
+            change.put("terminactionDate", todayString);
+            change.put("description", isEmptyDescription(bs.getDescription()) ? "----" : bs.getDescription());
+            changes.add(change);
+        }
+        return changes;
+    }
+
     public Map processBillingCode(Map newPricingInfo, Map oldPricingInfo, BigDecimal fee, String feeType, String moreprices, String defaultDescription) {
         Hashtable change = new Hashtable();
         String oldPrice = oldPricingInfo == null ? "0.00" : (String) oldPricingInfo.get("value");
@@ -184,6 +290,8 @@ public class ScheduleOfBenefits {
         change.put("effectiveDate", newPricingInfo.get("effectiveDate"));
         change.put("terminactionDate", newPricingInfo.get("terminactionDate"));
 
+        change.put("changeType", oldPricingInfo == null ? "new" : (feeChanged ? "price" : "dates"));
+
         if (oldPricingInfo == null) {
             newfees++;
             change.put("oldprice", "--");
@@ -193,7 +301,7 @@ public class ScheduleOfBenefits {
             oldfees++;
             change.put("oldprice", oldPriceDec);
             change.put("diff", diffPriceDec);
-            change.put("numCodes", "" + bc.searchNumBillingCode((String) newPricingInfo.get("feeCode")));
+            change.put("numCodes", "" + numCodes.getOrDefault((String) newPricingInfo.get("feeCode"), 0));
             change.put("description", isEmptyDescription((String) oldPricingInfo.get("description")) ? defaultDescription : oldPricingInfo.get("description"));
         }
         return change;
@@ -26,6 +26,7 @@
 
 package ca.openosp.openo.billings.ca.on.OHIP;
 
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -37,9 +38,11 @@ import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import ca.openosp.openo.commn.dao.BillingServiceDao;
+import ca.openosp.openo.commn.model.BillingService;
+import ca.openosp.openo.managers.EntityCacheManager;
 import ca.openosp.openo.utility.MiscUtils;
-
-import ca.openosp.openo.billings.ca.on.data.BillingCodeData;
+import ca.openosp.openo.utility.SpringUtils;
 
 /**
  * @author Jay Gallagher
@@ -53,113 +56,138 @@ public class ScheduleOfBenefitsUpdate2Action extends ActionSupport {
 
 
 
+    private BillingServiceDao billingServiceDao = SpringUtils.getBean(BillingServiceDao.class);
+    private EntityCacheManager entityCacheManager = SpringUtils.getBean(EntityCacheManager.class);
+
     public String execute() {
 
         boolean forceUpdate = request.getAttribute("forceUpdate") == null ? "true".equals(request.getParameter("forceUpdate")) : (Boolean) request.getAttribute("forceUpdate");
 
+        List<String[]> changes = new ArrayList<String[]>();
         if (forceUpdate) {
             List codes = (List) request.getAttribute("warnings");
-            BillingCodeData bc = new BillingCodeData();
-            ArrayList list = new ArrayList();
             for (int i = 0; i < codes.size(); i++) {
                 Map code = (Map) (codes.get(i));
-
-                String effDate;
-                if (((String) code.get("effectiveDate")).equalsIgnoreCase("null")) {
-                    Calendar c = Calendar.getInstance();
-                    SimpleDateFormat dfmt = new SimpleDateFormat();
-                    dfmt.applyPattern("yyyy-MM-dd");
-                    Date d = c.getTime();
-                    effDate = dfmt.format(d);
-                } else {
-                    effDate = ((String) code.get("effectiveDate")).substring(0, 4) + "-" + ((String) code.get("effectiveDate")).substring(4, 6) + "-"
-                            + ((String) code.get("effectiveDate")).substring(6, 8);
-                }
-                String termDate;
-                if (((String) code.get("terminactionDate")).equals("99999999")) {
-                    termDate = "9999-12-31";
-                } else {
-                    termDate = ((String) code.get("terminactionDate")).substring(0, 4) + "-" + ((String) code.get("terminactionDate")).substring(4, 6) + "-";
-                    if (((String) code.get("terminactionDate")).substring(6, 8).equals("00")) {
-                        termDate += "01";
-                    } else {
-                        termDate += ((String) code.get("terminactionDate")).substring(6, 8);
-                    }
-                }
-                try {
-                    bc.insertBillingCode(code.get("newprice").toString(), (String) code.get("feeCode"), effDate, (String) code.get("description"), termDate);
-                    Hashtable h = new Hashtable();
-                    h.put("code", code.get("feeCode"));
-                    h.put("value", code.get("newprice").toString());
-                    list.add(h);
-                } catch (Exception e) {
-                    MiscUtils.getLogger().error("Error", e);
-                }
-
-
+                changes.add(new String[]{(String) code.get("feeCode"), code.get("newprice").toString(), (String) code.get("effectiveDate"),
+                        (String) code.get("terminactionDate"), (String) code.get("description"), (String) code.get("changeType")});
             }
-            request.setAttribute("changes", list);
             request.setAttribute("warnings", null);
         } else {
-            String[] changes = request.getParameterValues("change");
-            if (changes != null) {
-                BillingCodeData bc = new BillingCodeData();
-                ArrayList list = new ArrayList();
-                MiscUtils.getLogger().debug("changes #" + changes.length);
-
-                for (int i = 0; i < changes.length; i++) {
-                    MiscUtils.getLogger().debug(changes[i]);
-                    String[] change = changes[i].split("\\|");
-                    if (change != null && change.length == 5) {
-                        //change[0] // billing code
-                        //change[1] // value
-                        //change[2] //effectiveDate
-                        //change[3] //terminactionDate
-                        //change[4] //description
-
-                        String effDate;
-                        if (change[2].equalsIgnoreCase("null")) {
-                            Calendar c = Calendar.getInstance();
-                            SimpleDateFormat dfmt = new SimpleDateFormat();
-                            dfmt.applyPattern("yyyy-MM-dd");
-                            Date d = c.getTime();
-                            effDate = dfmt.format(d);
-                        } else {
-                            effDate = change[2].substring(0, 4) + "-" + change[2].substring(4, 6) + "-" + change[2].substring(6, 8);
-                        }
-
-                        String termDate;
-                        if (change[3].equals("99999999")) {
-                            termDate = "9999-12-31";
-                        } else {
-                            termDate = change[3].substring(0, 4) + "-" + change[3].substring(4, 6) + "-";
-                            if (change[3].substring(6, 8).equals("00")) {
-                                termDate += "01";
-                            } else {
-                                termDate += change[3].substring(6, 8);
-                            }
-                        }
-                        try {
-                            bc.insertBillingCode(change[1], change[0], effDate, change[4], termDate);
-                            Hashtable h = new Hashtable();
-                            h.put("code", change[0]);
-                            h.put("value", change[1]);
-                            list.add(h);
-                        } catch (Exception e) {
-                            MiscUtils.getLogger().error("Error", e);
-                        }
-
-                        request.setAttribute("changes", list);
+            String[] selected = request.getParameterValues("change");
+            if (selected != null) {
+                MiscUtils.getLogger().debug("changes #" + selected.length);
+                for (int i = 0; i < selected.length; i++) {
+                    MiscUtils.getLogger().debug(selected[i]);
+                    String[] change = selected[i].split("\\|");
+                    //change[0] // billing code
+                    //change[1] // value
+                    //change[2] //effectiveDate
+                    //change[3] //terminactionDate
+                    //change[4] //description
+                    //change[5] //change type, missing from older pages
+                    if (change.length == 5 || change.length == 6) {
+                        changes.add(change);
                     } else {
                         MiscUtils.getLogger().debug("test was null");
                     }
-
                 }
             }
         }
+
+        if (!changes.isEmpty()) {
+            List applied = applyChanges(changes);
+            if (applied == null) {
+                request.setAttribute("outcome", "updateFailed");
+            } else {
+                request.setAttribute("changes", applied);
+            }
+        }
         return SUCCESS;
     }
 
+    /**
+     * Writes the whole selection in one transaction, new fees as new billing service versions and retired codes
+     * ended on their termination date.
+     *
+     * @return the changes written, or null if the transaction failed and nothing was changed
+     */
+    private List applyChanges(List<String[]> changes) {
+        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
+        List<BillingService> newFees = new ArrayList<BillingService>();
+        List<String> retiredCodes = new ArrayList<String>();
+        Date retiredOn = null;
+        ArrayList list = new ArrayList();
+        for (String[] change : changes) {
+            String effDate = toEffectiveDate(change[2]);
+            String termDate = toTerminationDate(change[3]);
+            try {
+                Hashtable h = new Hashtable();
+                h.put("code", change[0]);
+                if (change.length == 6 && "retired".equals(change[5])) {
+                    retiredOn = formatter.parse(termDate);
+                    retiredCodes.add(change[0]);
+                    h.put("value", change[1] + ", ended " + termDate);
+                } else {
+                    newFees.add(newBillingService(change[1], change[0], formatter.parse(effDate), change[4], formatter.parse(termDate)));
+                    h.put("value", change[1]);
+                }
+                list.add(h);
+            } catch (ParseException e) {
+                MiscUtils.getLogger().error("Error", e);
+            }
+        }
+
+        try {
+            billingServiceDao.applyFeeSchedule(newFees, retiredCodes, retiredOn);
+        } catch (RuntimeException e) {
+            MiscUtils.getLogger().error("Error", e);
+            return null;
+        }
+        entityCacheManager.evict(BillingService.class);
+        return list;
+    }
+
+    private static BillingService newBillingService(String value, String code, Date date, String description, Date termDate) {
+        BillingService bs = new BillingService();
+        bs.setServiceCompositecode("");
+        bs.setServiceCode(code);
+        bs.setDescription(description);
+        bs.setValue(value);
+        bs.setPercentage("");
+        bs.setBillingserviceDate(date);
+        bs.setSpecialty("");
+        bs.setRegion("ON");
+        bs.setAnaesthesia("00");
+        bs.setTerminationDate(termDate);
+        bs.setGstFlag(false);
+        bs.setSliFlag(false);
+        return bs;
+    }
+
+    private static String toEffectiveDate(String date) {
+        if (date.equalsIgnoreCase("null")) {
+            Calendar c = Calendar.getInstance();
+            SimpleDateFormat dfmt = new SimpleDateFormat();
+            dfmt.applyPattern("yyyy-MM-dd");
+            Date d = c.getTime();
+            return dfmt.format(d);
+        }
+        return date.substring(0, 4) + "-" + date.substring(4, 6) + "-" + date.substring(6, 8);
+    }
+
+    private static String toTerminationDate(String date) {
+        if (date.equals("99999999")) {
+            return "9999-12-31";
+        }
+        String termDate = date.substring(0, 4) + "-" + date.substring(4, 6) + "-";
+        if (date.substring(6, 8).equals("00")) {
+            termDate += "01";
+        } else {
+            termDate += date.substring(6, 8);
+        }
+        return termDate;
+    }
+
     public ScheduleOfBenefitsUpdate2Action() {
     }
 
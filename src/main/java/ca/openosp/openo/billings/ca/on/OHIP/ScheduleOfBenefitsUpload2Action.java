@@ -77,12 +77,13 @@ public class ScheduleOfBenefitsUpload2Action extends ActionSupport {
             ScheduleOfBenefits sob = new ScheduleOfBenefits();
             String codeChanges = request.getParameter("showChangedCodes");
             String newCodes = request.getParameter("showNewCodes");
+            boolean showRetiredCodes = checkBox(request.getParameter("showRetiredCodes"));
 
             boolean showNewCodes = checkBox(newCodes);
             boolean showChangedCodes = checkBox(codeChanges);
             forceUpdate = checkBox(request.getParameter("forceUpdate"));
 
-            warnings = sob.processNewFeeSchedule(is, showNewCodes, showChangedCodes, forceUpdate, updateAssistantFeesValue, updateAnaesthetistFeesValue);
+            warnings = sob.processNewFeeSchedule(is, showNewCodes, showChangedCodes, showRetiredCodes, forceUpdate, updateAssistantFeesValue, updateAnaesthetistFeesValue);
 
             outcome = "success";
         } catch (Exception e) {
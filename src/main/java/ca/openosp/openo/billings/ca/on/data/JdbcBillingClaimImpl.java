@@ -39,6 +39,7 @@ import ca.openosp.openo.billing.CA.ON.model.BillingONHeader;
 import ca.openosp.openo.commn.dao.BillingONCHeader1Dao;
 import ca.openosp.openo.commn.dao.BillingONExtDao;
 import ca.openosp.openo.commn.dao.BillingONItemDao;
+import ca.openosp.openo.commn.dao.BulkWriter;
 import ca.openosp.openo.commn.dao.BillingONPaymentDao;
 import ca.openosp.openo.commn.dao.BillingONRepoDao;
 import ca.openosp.openo.commn.dao.BillingOnItemPaymentDao;
@@ -173,27 +174,31 @@ public class JdbcBillingClaimImpl {
     public boolean addItemRecord(List lVal, int id) {
 
         boolean retval = true;
-        for (int i = 0; i < lVal.size(); i++) {
-            BillingItemData val = (BillingItemData) lVal.get(i);
-
-            BillingONItem b = new BillingONItem();
-            b.setCh1Id(id);
-            b.setTranscId(val.transc_id);
-            b.setRecId(val.rec_id);
-            b.setServiceCode(val.service_code);
-            b.setFee(val.fee);
-            b.setServiceCount(val.ser_num);
-            if (val.service_date.length() > 0)
-                try {
-                    b.setServiceDate(dateformatter.parse(val.service_date));
-                } catch (ParseException e) {/*empty*/}
-            b.setDx(val.dx);
-            b.setDx1(val.dx1);
-            b.setDx2(val.dx2);
-            b.setStatus(val.status);
-
-            itemDao.persist(b);
-            val.setId(b.getId().toString());
+        // a batch as large as the claim: the writer commits its items once, when it is closed, and
+        // rolls all of them back if one fails. The header is saved before, in its own transaction.
+        try (BulkWriter<BillingONItem> writer = itemDao.bulkWriter(Math.max(1, lVal.size()))) {
+            for (int i = 0; i < lVal.size(); i++) {
+                BillingItemData val = (BillingItemData) lVal.get(i);
+
+                BillingONItem b = new BillingONItem();
+                b.setCh1Id(id);
+                b.setTranscId(val.transc_id);
+                b.setRecId(val.rec_id);
+                b.setServiceCode(val.service_code);
+                b.setFee(val.fee);
+                b.setServiceCount(val.ser_num);
+                if (val.service_date.length() > 0)
+                    try {
+                        b.setServiceDate(dateformatter.parse(val.service_date));
+                    } catch (ParseException e) {/*empty*/}
+                b.setDx(val.dx);
+                b.setDx1(val.dx1);
+                b.setDx2(val.dx2);
+                b.setStatus(val.status);
+
+                writer.persist(b);
+                val.setId(b.getId().toString());
+            }
         }
         return retval;
     }
@@ -52,6 +52,25 @@ public class CaseloadContent2Action extends ActionSupport {
     
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * The caseload columns read for a page at once: privilege, query and the program for the admission dates.
+     */
+    private static final String[][] PAGE_COLUMNS = {
+            {"_caseload.LastAppt", "cl_last_appt", null},
+            {"_caseload.NextAppt", "cl_next_appt", null},
+            {"_caseload.ApptsLYTD", "cl_num_appts", null},
+            {"_caseload.Lab", "cl_new_labs", null},
+            {"_caseload.Doc", "cl_new_docs", null},
+            {"_caseload.Tickler", "cl_new_ticklers", null},
+            {"_caseload.Msg", "cl_new_msgs", null},
+            {"_caseload.LastEncounterDate", "LastEncounterDate", null},
+            {"_caseload.LastEncounterType", "LastEncounterType", null},
+            {"_caseload.CashAdmissionDate", "CashAdmissionDate", "CASH WAITLIST PROGRAM"},
+            {"_caseload.Access1AdmissionDate", "Access1AdmissionDate", "ACCESS 1 WAITLIST PROGRAM"}
+    };
+
+    private final Map<String, Boolean> privileges = new HashMap<String, Boolean>();
+
     public String execute() {
         String mtd = request.getParameter("method");
         if ("noteSearch".equals(mtd)) {
@@ -479,15 +498,39 @@ public class CaseloadContent2Action extends ActionSupport {
 
         String contextPath = request.getContextPath();
 
+        // each column is read for the whole page at once
+        Map<String, Map<Integer, Map<String, Object>>> pageData = new HashMap<String, Map<Integer, Map<String, Object>>>();
+        pageData.put("cl_demographic_query", caseloadDao.getCaseloadPageData("cl_demographic_query", demoSearchResult, null));
+        for (String[] column : PAGE_COLUMNS) {
+            if (hasPrivilege(column[0], roleName$)) {
+                String param = "cl_new_labs".equals(column[1]) || "cl_new_docs".equals(column[1]) ? curUser_no : column[2];
+                pageData.put(column[1], caseloadDao.getCaseloadPageData(column[1], demoSearchResult, param));
+            }
+        }
+        List<String> measurementTypes = new ArrayList<String>();
+        for (CaseloadCategory category : CaseloadCategory.values()) {
+            if (category.isMeasurement() && hasPrivilege("_caseload." + category.getLabel(), roleName$)) {
+                measurementTypes.add(category.getLabel());
+            }
+        }
+        Map<Integer, Map<String, Object>> measurements = caseloadDao.getCaseloadPageMeasurements(demoSearchResult, measurementTypes);
+        for (String type : measurementTypes) {
+            Map<Integer, Map<String, Object>> values = new HashMap<Integer, Map<String, Object>>();
+            for (Map.Entry<Integer, Map<String, Object>> demographicMeasurements : measurements.entrySet()) {
+                if (demographicMeasurements.getValue().containsKey(type)) {
+                    values.put(demographicMeasurements.getKey(), Collections.singletonMap("dataField", demographicMeasurements.getValue().get(type)));
+                }
+            }
+            pageData.put(type, values);
+        }
+
         for (Integer result : demoSearchResult) {
 
             String demographic_no = result.toString();
             entry = objectMapper.createArrayNode();
             // name
             String demographicQuery = "cl_demographic_query";
-            String[] demographicParam = new String[1];
-            demographicParam[0] = demographic_no;
-            List<Map<String, Object>> demographicResult = caseloadDao.getCaseloadDemographicData(demographicQuery, demographicParam);
+            List<Map<String, Object>> demographicResult = getPageData(pageData, demographicQuery, result);
 
             String clLastName = demographicResult.get(0).get("last_name").toString();
             String clFirstName = demographicResult.get(0).get("first_name").toString();
@@ -565,7 +608,7 @@ public class CaseloadContent2Action extends ActionSupport {
             // last appt
             if (hasPrivilege("_caseload.LastAppt", roleName$)) {
                 String lapptQuery = "cl_last_appt";
-                List<Map<String, Object>> lapptResult = caseloadDao.getCaseloadDemographicData(lapptQuery, demographicParam);
+                List<Map<String, Object>> lapptResult = getPageData(pageData, lapptQuery, result);
                 if ((!lapptResult.isEmpty()) && lapptResult.get(0).get("max(appointment_date)") != null && !lapptResult.get(0).get("max(appointment_date)").toString().equals("")) {
                     String clLappt = lapptResult.get(0).get("max(appointment_date)").toString();
 
@@ -579,7 +622,7 @@ public class CaseloadContent2Action extends ActionSupport {
             // next appt
             if (hasPrivilege("_caseload.NextAppt", roleName$)) {
                 String napptQuery = "cl_next_appt";
-                List<Map<String, Object>> napptResult = caseloadDao.getCaseloadDemographicData(napptQuery, demographicParam);
+                List<Map<String, Object>> napptResult = getPageData(pageData, napptQuery, result);
                 if (!napptResult.isEmpty() && napptResult.get(0).get("min(appointment_date)") != null && !napptResult.get(0).get("min(appointment_date)").toString().equals("")) {
                     String clNappt = napptResult.get(0).get("min(appointment_date)").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + request.getContextPath() + "/demographic/demographiccontrol.jsp?demographic_no=" + demographic_no + "&last_name=" + URLEncoder.encode(clLastName, StandardCharsets.UTF_8) + "&first_name=" + URLEncoder.encode(clFirstName, StandardCharsets.UTF_8) + "&orderby=appttime&displaymode=appt_history&dboperation=appt_history&limit1=0&limit2=25'); return false;\">" + clNappt + "</a>");
@@ -591,7 +634,7 @@ public class CaseloadContent2Action extends ActionSupport {
             // num appts in last year
             if (hasPrivilege("_caseload.ApptsLYTD", roleName$)) {
                 String numApptsQuery = "cl_num_appts";
-                List<Map<String, Object>> numApptsResult = caseloadDao.getCaseloadDemographicData(numApptsQuery, demographicParam);
+                List<Map<String, Object>> numApptsResult = getPageData(pageData, numApptsQuery, result);
                 if (!numApptsResult.isEmpty() && numApptsResult.get(0).get("count(*)") != null && !numApptsResult.get(0).get("count(*)").toString().equals("") && !numApptsResult.get(0).get("count(*)").toString().equals("0")) {
                     String clNumAppts = numApptsResult.get(0).get("count(*)").toString();
                     entry.add(clNumAppts);
@@ -601,13 +644,9 @@ public class CaseloadContent2Action extends ActionSupport {
             }
 
             // new labs
-            String[] userDemoParam = new String[2];
-
             if (hasPrivilege("_caseload.Lab", roleName$)) {
-                userDemoParam[0] = curUser_no;
-                userDemoParam[1] = demographic_no;
                 String newLabQuery = "cl_new_labs";
-                List<Map<String, Object>> newLabResult = caseloadDao.getCaseloadDemographicData(newLabQuery, userDemoParam);
+                List<Map<String, Object>> newLabResult = getPageData(pageData, newLabQuery, result);
                 if (!newLabResult.isEmpty() && newLabResult.get(0).get("count(*)") != null && !newLabResult.get(0).get("count(*)").toString().equals("") && !newLabResult.get(0).get("count(*)").toString().equals("0")) {
                     String clNewLab = newLabResult.get(0).get("count(*)").toString();
 
@@ -620,7 +659,7 @@ public class CaseloadContent2Action extends ActionSupport {
             // new docs
             if (hasPrivilege("_caseload.Doc", roleName$)) {
                 String newDocQuery = "cl_new_docs";
-                List<Map<String, Object>> newDocResult = caseloadDao.getCaseloadDemographicData(newDocQuery, userDemoParam);
+                List<Map<String, Object>> newDocResult = getPageData(pageData, newDocQuery, result);
                 if (!newDocResult.isEmpty() && newDocResult.get(0).get("count(*)") != null && !newDocResult.get(0).get("count(*)").toString().equals("") && !newDocResult.get(0).get("count(*)").toString().equals("0")) {
                     String clNewDoc = newDocResult.get(0).get("count(*)").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/documentManager/inboxManage.do?method=prepareForIndexPage&providerNo=" + curUser_no + "&selectedCategory=CATEGORY_PATIENT_SUB&selectedCategoryPatient=" + demographic_no + "&selectedCategoryType=CATEGORY_TYPE_DOC'); return false;\">" + clNewDoc + "</a>");
@@ -632,7 +671,7 @@ public class CaseloadContent2Action extends ActionSupport {
             // new ticklers
             if (hasPrivilege("_caseload.Tickler", roleName$)) {
                 String newTicklerQuery = "cl_new_ticklers";
-                List<Map<String, Object>> newTicklerResult = caseloadDao.getCaseloadDemographicData(newTicklerQuery, demographicParam);
+                List<Map<String, Object>> newTicklerResult = getPageData(pageData, newTicklerQuery, result);
                 if (!newTicklerResult.isEmpty() && newTicklerResult.get(0).get("count(*)") != null && !newTicklerResult.get(0).get("count(*)").toString().equals("") && !newTicklerResult.get(0).get("count(*)").toString().equals("0")) {
                     String clNewTickler = newTicklerResult.get(0).get("count(*)").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/tickler/ticklerMain.jsp?demoview=" + demographic_no + "'); return false;\">" + clNewTickler + "</a>");
@@ -644,7 +683,7 @@ public class CaseloadContent2Action extends ActionSupport {
             // new messages
             if (hasPrivilege("_caseload.Msg", roleName$)) {
                 String newMsgQuery = "cl_new_msgs";
-                List<Map<String, Object>> newMsgResult = caseloadDao.getCaseloadDemographicData(newMsgQuery, demographicParam);
+                List<Map<String, Object>> newMsgResult = getPageData(pageData, newMsgQuery, result);
                 if (!newMsgResult.isEmpty() && newMsgResult.get(0).get("count(*)") != null && !newMsgResult.get(0).get("count(*)").toString().equals("") && !newMsgResult.get(0).get("count(*)").toString().equals("0")) {
                     String clNewMsg = newMsgResult.get(0).get("count(*)").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/messenger/DisplayDemographicMessages.do?orderby=date&boxType=3&demographic_no=" + demographic_no + "&providerNo=" + curUser_no + "&userName=" + URLEncoder.encode(userfirstname + " " + userlastname, StandardCharsets.UTF_8) + "'); return false;\">" + clNewMsg + "</a>");
@@ -654,15 +693,12 @@ public class CaseloadContent2Action extends ActionSupport {
             }
 
             // measurements
-            String msmtQuery = "cl_measurement";
-            String[] msmtParam = new String[2];
-            msmtParam[1] = demographic_no;
+            String msmtQuery;
             List<Map<String, Object>> msmtResult = null;
 
             if (hasPrivilege("_caseload.BMI", roleName$)) {
                 // BMI
-                msmtParam[0] = "BMI";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, "BMI", result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("dataField") != null && !msmtResult.get(0).get("dataField").toString().equals("")) {
                     String clBmi = msmtResult.get(0).get("dataField").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo=" + demographic_no + "&type=BMI'); return false;\">" + clBmi + "</a>");
@@ -673,8 +709,7 @@ public class CaseloadContent2Action extends ActionSupport {
 
             // BP
             if (hasPrivilege("_caseload.BP", roleName$)) {
-                msmtParam[0] = "BP";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, "BP", result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("dataField") != null && !msmtResult.get(0).get("dataField").toString().equals("")) {
                     String clBp = msmtResult.get(0).get("dataField").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo=" + demographic_no + "&type=BP'); return false;\">" + clBp + "</a>");
@@ -685,8 +720,7 @@ public class CaseloadContent2Action extends ActionSupport {
 
             // WT
             if (hasPrivilege("_caseload.WT", roleName$)) {
-                msmtParam[0] = "WT";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, "WT", result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("dataField") != null && !msmtResult.get(0).get("dataField").toString().equals("")) {
                     String clWt = msmtResult.get(0).get("dataField").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo=" + demographic_no + "&type=WT'); return false;\">" + clWt + "</a>");
@@ -697,8 +731,7 @@ public class CaseloadContent2Action extends ActionSupport {
 
             // SMK
             if (hasPrivilege("_caseload.SMK", roleName$)) {
-                msmtParam[0] = "SMK";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, "SMK", result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("dataField") != null && !msmtResult.get(0).get("dataField").toString().equals("")) {
                     String clSmk = msmtResult.get(0).get("dataField").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo=" + demographic_no + "&type=SMK'); return false;\">" + clSmk + "</a>");
@@ -709,8 +742,7 @@ public class CaseloadContent2Action extends ActionSupport {
 
             // A1C
             if (hasPrivilege("_caseload.A1C", roleName$)) {
-                msmtParam[0] = "A1C";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, "A1C", result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("dataField") != null && !msmtResult.get(0).get("dataField").toString().equals("")) {
                     String clA1c = msmtResult.get(0).get("dataField").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo=" + demographic_no + "&type=A1C'); return false;\">" + clA1c + "</a>");
@@ -721,8 +753,7 @@ public class CaseloadContent2Action extends ActionSupport {
 
             // ACR
             if (hasPrivilege("_caseload.ACR", roleName$)) {
-                msmtParam[0] = "ACR";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, "ACR", result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("dataField") != null && !msmtResult.get(0).get("dataField").toString().equals("")) {
                     String clAcr = msmtResult.get(0).get("dataField").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo=" + demographic_no + "&type=ACR'); return false;\">" + clAcr + "</a>");
@@ -733,8 +764,7 @@ public class CaseloadContent2Action extends ActionSupport {
 
             // SCR
             if (hasPrivilege("_caseload.SCR", roleName$)) {
-                msmtParam[0] = "SCR";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, "SCR", result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("dataField") != null && !msmtResult.get(0).get("dataField").toString().equals("")) {
                     String clScr = msmtResult.get(0).get("dataField").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo=" + demographic_no + "&type=SCR'); return false;\">" + clScr + "</a>");
@@ -745,8 +775,7 @@ public class CaseloadContent2Action extends ActionSupport {
 
             // LDL
             if (hasPrivilege("_caseload.LDL", roleName$)) {
-                msmtParam[0] = "LDL";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, "LDL", result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("dataField") != null && !msmtResult.get(0).get("dataField").toString().equals("")) {
                     String clLdl = msmtResult.get(0).get("dataField").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo=" + demographic_no + "&type=LDL'); return false;\">" + clLdl + "</a>");
@@ -757,8 +786,7 @@ public class CaseloadContent2Action extends ActionSupport {
 
             // HDL
             if (hasPrivilege("_caseload.HDL", roleName$)) {
-                msmtParam[0] = "HDL";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, "HDL", result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("dataField") != null && !msmtResult.get(0).get("dataField").toString().equals("")) {
                     String clHdl = msmtResult.get(0).get("dataField").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo=" + demographic_no + "&type=HDL'); return false;\">" + clHdl + "</a>");
@@ -769,8 +797,7 @@ public class CaseloadContent2Action extends ActionSupport {
 
             // TCHD
             if (hasPrivilege("_caseload.TCHD", roleName$)) {
-                msmtParam[0] = "TCHD";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, "TCHD", result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("dataField") != null && !msmtResult.get(0).get("dataField").toString().equals("")) {
                     String clTchd = msmtResult.get(0).get("dataField").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo=" + demographic_no + "&type=TCHD'); return false;\">" + clTchd + "</a>");
@@ -781,8 +808,7 @@ public class CaseloadContent2Action extends ActionSupport {
 
             // EGFR
             if (hasPrivilege("_caseload.EGFR", roleName$)) {
-                msmtParam[0] = "EGFR";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, "EGFR", result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("dataField") != null && !msmtResult.get(0).get("dataField").toString().equals("")) {
                     String clEgfr = msmtResult.get(0).get("dataField").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo=" + demographic_no + "&type=EGFR'); return false;\">" + clEgfr + "</a>");
@@ -793,8 +819,7 @@ public class CaseloadContent2Action extends ActionSupport {
 
             // EYEE
             if (hasPrivilege("_caseload.EYEE", roleName$)) {
-                msmtParam[0] = "EYEE";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, "EYEE", result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("dataField") != null && !msmtResult.get(0).get("dataField").toString().equals("")) {
                     String clEyee = msmtResult.get(0).get("dataField").toString();
                     entry.add("<a href='#' onclick=\"popupPage('700', '1000', '" + contextPath + "/oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo=" + demographic_no + "&type=EYEE'); return false;\">" + clEyee + "</a>");
@@ -806,7 +831,7 @@ public class CaseloadContent2Action extends ActionSupport {
             // LastEncounterDate
             if (hasPrivilege("_caseload.LastEncounterDate", roleName$)) {
                 msmtQuery = "LastEncounterDate";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, demographicParam);
+                msmtResult = getPageData(pageData, msmtQuery, result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("update_date") != null && !msmtResult.get(0).get("update_date").toString().equals("")) {
                     String lastEncDate = msmtResult.get(0).get("update_date").toString();
                     int endIdx = lastEncDate.lastIndexOf('.');
@@ -822,7 +847,7 @@ public class CaseloadContent2Action extends ActionSupport {
             // LastEncounterType
             if (hasPrivilege("_caseload.LastEncounterType", roleName$)) {
                 msmtQuery = "LastEncounterType";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, demographicParam);
+                msmtResult = getPageData(pageData, msmtQuery, result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("encounter_type") != null && !msmtResult.get(0).get("encounter_type").toString().equals("")) {
                     String lastEncType = msmtResult.get(0).get("encounter_type").toString();
                     //entry.add("<a href='#' onclick=\"popupPage('700', '1000', '../oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo="+demographic_no+"&type=LastEncounterType'); return false;\">" + clEyee + "</a>");
@@ -832,13 +857,10 @@ public class CaseloadContent2Action extends ActionSupport {
                 }
             }
 
-            msmtParam[0] = demographic_no;
-
             // [CASH]AdmissionDate
             if (hasPrivilege("_caseload.CashAdmissionDate", roleName$)) {
                 msmtQuery = "CashAdmissionDate";
-                msmtParam[1] = "CASH WAITLIST PROGRAM";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, msmtQuery, result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("referral_date") != null && !msmtResult.get(0).get("referral_date").toString().equals("")) {
                     String cashAdDate = msmtResult.get(0).get("referral_date").toString();
                     //entry.add("<a href='#' onclick=\"popupPage('700', '1000', '../oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo="+demographic_no+"&type=CashAdmissionDate'); return false;\">" + clEyee + "</a>");
@@ -855,8 +877,7 @@ public class CaseloadContent2Action extends ActionSupport {
             // [ACCESS1]AdmissionDate
             if (hasPrivilege("_caseload.Access1AdmissionDate", roleName$)) {
                 msmtQuery = "Access1AdmissionDate";
-                msmtParam[1] = "ACCESS 1 WAITLIST PROGRAM";
-                msmtResult = caseloadDao.getCaseloadDemographicData(msmtQuery, msmtParam);
+                msmtResult = getPageData(pageData, msmtQuery, result);
                 if (!msmtResult.isEmpty() && msmtResult.get(0).get("referral_date") != null && !msmtResult.get(0).get("referral_date").toString().equals("")) {
                     String access1Date = msmtResult.get(0).get("referral_date").toString();
                     //entry.add("<a href='#' onclick=\"popupPage('700', '1000', '../oscarEncounter/oscarMeasurements/SetupDisplayHistory.do?demographicNo="+demographic_no+"&type=Access1AdmissionDate'); return false;\">" + clEyee + "</a>");
@@ -875,9 +896,20 @@ public class CaseloadContent2Action extends ActionSupport {
         return data;
     }
 
+    /**
+     * The same row list the single demographic query returned, empty if the demographic has no row.
+     */
+    private static List<Map<String, Object>> getPageData(Map<String, Map<Integer, Map<String, Object>>> pageData, String query, Integer demographicNo) {
+        Map<String, Object> row = pageData.getOrDefault(query, Collections.emptyMap()).get(demographicNo);
+        return row == null ? Collections.emptyList() : Collections.singletonList(row);
+    }
+
     public boolean hasPrivilege(String objectName, String roleName) {
-        ArrayList<Object> v = OscarRoleObjectPrivilege.getPrivilegePropAsArrayList(objectName);
-        return OscarRoleObjectPrivilege.checkPrivilege(roleName, (Properties) v.get(0), (ArrayList<String>) v.get(1));
+        // checked for every row of the page
+        return privileges.computeIfAbsent(objectName + "|" + roleName, key -> {
+            ArrayList<Object> v = OscarRoleObjectPrivilege.getPrivilegePropAsArrayList(objectName);
+            return OscarRoleObjectPrivilege.checkPrivilege(roleName, (Properties) v.get(0), (ArrayList<String>) v.get(1));
+        });
     }
 
     public boolean isModuleLoaded(HttpServletRequest request, String moduleName, boolean reverse) {
@@ -46,6 +46,7 @@ import java.util.TreeMap;
 import java.util.UUID;
 
 import org.apache.logging.log4j.Logger;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.hibernate.Criteria;
 import org.hibernate.SQLQuery;
 import org.hibernate.Session;
@@ -59,11 +60,14 @@ import ca.openosp.openo.PMmodule.model.Program;
 import ca.openosp.openo.casemgmt.model.CaseManagementNote;
 import ca.openosp.openo.casemgmt.model.CaseManagementSearchBean;
 import ca.openosp.openo.commn.model.Provider;
+import ca.openosp.openo.event.ClinicalDataChangeEvent;
 import ca.openosp.openo.utility.DbConnectionFilter;
 import ca.openosp.openo.utility.MiscUtils;
 import org.springframework.orm.hibernate5.HibernateTemplate;
 import org.springframework.orm.hibernate5.support.HibernateDaoSupport;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.hibernate.SessionFactory;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -71,10 +75,23 @@ import ca.openosp.OscarProperties;
 import ca.openosp.openo.util.SqlUtils;
 
 @Transactional
-public class CaseManagementNoteDAOImpl extends HibernateDaoSupport implements CaseManagementNoteDAO {
+public class CaseManagementNoteDAOImpl extends HibernateDaoSupport implements CaseManagementNoteDAO, ApplicationEventPublisherAware {
 
     private static Logger log = MiscUtils.getLogger();
 
+    private ApplicationEventPublisher publisher;
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    private void publishClinicalDataChange(CaseManagementNote note) {
+        if (publisher != null && NumberUtils.isDigits(note.getDemographic_no())) {
+            publisher.publishEvent(new ClinicalDataChangeEvent(note, Integer.valueOf(note.getDemographic_no())));
+        }
+    }
+
     @Autowired
     public void setSessionFactoryOverride(SessionFactory sessionFactory) {
         super.setSessionFactory(sessionFactory);
@@ -513,6 +530,7 @@ public class CaseManagementNoteDAOImpl extends HibernateDaoSupport implements Ca
         note.setUpdate_date(new Date());
         this.getHibernateTemplate().update(note);
         this.getHibernateTemplate().flush();
+        publishClinicalDataChange(note);
     }
 
     @Override
@@ -527,6 +545,7 @@ public class CaseManagementNoteDAOImpl extends HibernateDaoSupport implements Ca
         }
         this.getHibernateTemplate().save(note);
         this.getHibernateTemplate().flush();
+        publishClinicalDataChange(note);
     }
 
     @Override
@@ -539,7 +558,9 @@ public class CaseManagementNoteDAOImpl extends HibernateDaoSupport implements Ca
         if (note.getUpdate_date() == null) {
             note.setUpdate_date(new Date());
         }
-        return this.getHibernateTemplate().save(note);
+        Object id = this.getHibernateTemplate().save(note);
+        publishClinicalDataChange(note);
+        return id;
     }
 
     @Override
@@ -49,6 +49,13 @@ public interface AbstractDao<T extends AbstractModel<?>> {
 
     void batchRemove(List<T> oList, int batchSize);
 
+    /**
+     * @return a writer streaming rows of this dao's entity with a flush every hibernate.jdbc.batch_size rows
+     */
+    BulkWriter<T> bulkWriter();
+
+    BulkWriter<T> bulkWriter(int batchSize);
+
     void refresh(AbstractModel<?> o);
 
     T find(Object id);
@@ -34,13 +34,13 @@ import java.util.Objects;
 import javax.annotation.Nonnull;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
-import javax.persistence.EntityTransaction;
 import javax.persistence.NonUniqueResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 
 import ca.openosp.openo.commn.model.AbstractModel;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import ca.openosp.openo.util.ParamAppender;
@@ -85,41 +85,33 @@ public abstract class AbstractDaoImpl<T extends AbstractModel<?>> implements Abs
 
     @Override
     public void batchPersist(List<T> oList) {
-        batchPersist(oList, 25);
+        batchPersist(oList, BulkWriter.getDefaultBatchSize());
     }
 
     @Override
     public void batchPersist(List<T> oList, int batchSize) {
-        EntityManager batchEntityManager = null;
-        EntityTransaction transaction = null;
-        try {
-            batchEntityManager = entityManagerFactory.createEntityManager();
-            transaction = batchEntityManager.getTransaction();
-            transaction.begin();
-            int i = 0;
+        try (BulkWriter<T> writer = bulkWriter(batchSize)) {
             for (T entity : oList) {
-                batchEntityManager.persist(entity);
-                i++;
-                if (i > 0 && i % batchSize == 0) {
-                    batchEntityManager.flush();
-                    batchEntityManager.clear();
-                    transaction.commit();
-                    transaction.begin();
-                }
-            }
-            transaction.commit();
-        } catch (RuntimeException e) {
-            if (transaction != null && transaction.isActive()) {
-                transaction.rollback();
-            }
-            throw e;
-        } finally {
-            if (batchEntityManager != null) {
-                batchEntityManager.close();
+                writer.persist(entity);
             }
         }
     }
 
+    /**
+     * Not transactional itself, the writer joins the caller's transaction or opens its own.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BulkWriter<T> bulkWriter() {
+        return bulkWriter(BulkWriter.getDefaultBatchSize());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BulkWriter<T> bulkWriter(int batchSize) {
+        return new BulkWriter<T>(modelClass, entityManagerFactory, entityManager, batchSize);
+    }
+
     /**
      * You can only remove attached instances.
      */
@@ -130,41 +122,14 @@ public abstract class AbstractDaoImpl<T extends AbstractModel<?>> implements Abs
 
     @Override
     public void batchRemove(List<T> oList) {
-        batchRemove(oList, 25);
+        batchRemove(oList, BulkWriter.getDefaultBatchSize());
     }
 
     @Override
     public void batchRemove(List<T> oList, int batchSize) {
-        EntityManager batchEntityManager = null;
-        EntityTransaction transaction = null;
-        try {
-            batchEntityManager = entityManagerFactory.createEntityManager();
-            transaction = batchEntityManager.getTransaction();
-            transaction.begin();
-            int i = 0;
+        try (BulkWriter<T> writer = bulkWriter(batchSize)) {
             for (T entity : oList) {
-                // Gets the model and gets the reference to it so that it is attached to the new entity manager's session
-                Object entityObj = batchEntityManager.getReference(entity.getClass(), entity.getId());
-                batchEntityManager.remove(entityObj);
-                i++;
-                if (i > 0 && i % batchSize == 0) {
-                    batchEntityManager.flush();
-                    batchEntityManager.clear();
-                    transaction.commit();
-                    transaction.begin();
-                }
-                // Gets the model and gets the reference to it so that it is attached to the new
-                // entity manager's session
-            }
-            transaction.commit();
-        } catch (RuntimeException e) {
-            if (transaction != null && transaction.isActive()) {
-                transaction.rollback();
-            }
-            throw e;
-        } finally {
-            if (batchEntityManager != null) {
-                batchEntityManager.close();
+                writer.remove(entity);
             }
         }
     }
@@ -37,17 +37,52 @@ import javax.persistence.Query;
 import org.apache.logging.log4j.Logger;
 import ca.openosp.openo.PMmodule.dao.ProgramDao;
 import ca.openosp.openo.PMmodule.model.AdmissionSearchBean;
+import ca.openosp.openo.commn.model.AbstractModel;
 import ca.openosp.openo.commn.model.Admission;
+import ca.openosp.openo.event.ProgramDomainChangeEvent;
 import ca.openosp.openo.utility.MiscUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public class AdmissionDaoImpl extends AbstractDaoImpl<Admission> implements AdmissionDao {
+public class AdmissionDaoImpl extends AbstractDaoImpl<Admission> implements AdmissionDao, ApplicationEventPublisherAware {
+
+    private ApplicationEventPublisher publisher;
 
     public AdmissionDaoImpl() {
         super(Admission.class);
     }
 
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void persist(AbstractModel<?> o) {
+        super.persist(o);
+        publishProgramDomainChange(o);
+    }
+
+    @Override
+    public void merge(AbstractModel<?> o) {
+        super.merge(o);
+        publishProgramDomainChange(o);
+    }
+
+    @Override
+    public void remove(AbstractModel<?> o) {
+        super.remove(o);
+        publishProgramDomainChange(o);
+    }
+
+    private void publishProgramDomainChange(AbstractModel<?> o) {
+        if (o instanceof Admission && publisher != null) {
+            publisher.publishEvent(new ProgramDomainChangeEvent(o, ((Admission) o).getClientId(), null));
+        }
+    }
+
     private Logger log = MiscUtils.getLogger();
 
     @Override
@@ -113,6 +113,11 @@ public interface BillingONCHeader1Dao extends AbstractDao<BillingONCHeader1> {
 
     public List<BillingONCHeader1> getBillingItemByDxCode(Integer demographicNo, String dxCode);
 
+    /**
+     * @return demographic number, dx, dx1 and dx2 of the billing items of the given demographics billed with any of the codes
+     */
+    public List<Object[]> findDxCodesByDemographicNos(List<Integer> demographicNos, List<String> dxCodes);
+
     public List<Object[]> findByMagic2(List<String> payPrograms, String statusType, String providerNo, Date startDate,
                                        Date endDate, Integer demoNo, List<String> serviceCodes, String dx, String visitType, String visitLocation,
                                        Date paymentStartDate, Date paymentEndDate);
@@ -719,6 +719,22 @@ public class BillingONCHeader1DaoImpl extends AbstractDaoImpl<BillingONCHeader1>
         return rs;
     }
 
+    @Override
+    public List<Object[]> findDxCodesByDemographicNos(List<Integer> demographicNos, List<String> dxCodes) {
+        if (demographicNos.isEmpty() || dxCodes.isEmpty()) {
+            return new ArrayList<Object[]>();
+        }
+        String queryStr = "select h.demographicNo, b.dx, b.dx1, b.dx2 FROM BillingONItem b, BillingONCHeader1 h WHERE h.id = b.ch1Id and h.demographicNo IN (?1) and (b.dx IN (?2) or b.dx1 IN (?2) or b.dx2 IN (?2))";
+        Query query = entityManager.createQuery(queryStr);
+        query.setParameter(1, demographicNos);
+        query.setParameter(2, dxCodes);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rs = query.getResultList();
+
+        return rs;
+    }
+
     @Override
     public List<Object[]> findByMagic2(List<String> payPrograms, String statusType, String providerNo, Date startDate,
                                        Date endDate, Integer demoNo, List<String> serviceCodes, String dx, String visitType, String visitLocation,
@@ -82,6 +82,20 @@ public interface BillingServiceDao extends AbstractDao<BillingService> {
 
     List<BillingService> findMostRecentByServiceCode(String serviceCode);
 
+    /**
+     * @return the version of every service code in effect today, like {@link #findMostRecentByServiceCode(String)} for all codes in one query
+     */
+    List<BillingService> findAllMostRecent();
+
+    /**
+     * Inserts the new fee versions and ends the retired codes in JDBC batches in one transaction. The second level
+     * cache doesn't see these writes, the caller evicts BillingService once they're committed.
+     *
+     * @param newFees the billing services to insert
+     * @param retiredCodes service codes whose versions still running past terminationDate end on it
+     */
+    void applyFeeSchedule(List<BillingService> newFees, List<String> retiredCodes, Date terminationDate);
+
     List<BillingService> findAll();
 
     List<Object[]> findSomethingByBillingId(Integer billingNo);
@@ -26,6 +26,7 @@
  */
 package ca.openosp.openo.commn.dao;
 
+import java.sql.PreparedStatement;
 import java.text.DateFormat;
 import java.text.ParseException;
 
@@ -38,6 +39,7 @@ import javax.persistence.Query;
 
 import ca.openosp.openo.commn.NativeSql;
 import ca.openosp.openo.commn.model.BillingService;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 
 import ca.openosp.openo.util.UtilDateUtilities;
@@ -47,6 +49,9 @@ import ca.openosp.openo.util.UtilDateUtilities;
 public class BillingServiceDaoImpl extends AbstractDaoImpl<BillingService> implements BillingServiceDao {
     static public final String BC = "BC";
 
+    // statements sent per JDBC batch when applying a fee schedule
+    private static final int FEE_SCHEDULE_BATCH_SIZE = 500;
+
     public BillingServiceDaoImpl() {
         super(BillingService.class);
     }
@@ -309,6 +314,58 @@ public class BillingServiceDaoImpl extends AbstractDaoImpl<BillingService> imple
         return query.getResultList();
     }
 
+    public List<BillingService> findAllMostRecent() {
+        Query query = entityManager.createNativeQuery("select b.* from billingservice b join " +
+                "(select service_code, max(billingservice_date) billingservice_date from billingservice where billingservice_date <= now() group by service_code) m " +
+                "on m.service_code = b.service_code and m.billingservice_date = b.billingservice_date", BillingService.class);
+        return query.getResultList();
+    }
+
+    public void applyFeeSchedule(List<BillingService> newFees, List<String> retiredCodes, Date terminationDate) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement("insert into billingservice (service_compositecode, service_code, description, value, percentage, " +
+                    "billingservice_date, specialty, region, anaesthesia, termination_date, gstFlag, sliFlag) values (?,?,?,?,?,?,?,?,?,?,?,?)")) {
+                int batched = 0;
+                for (BillingService bs : newFees) {
+                    insert.setString(1, bs.getServiceCompositecode());
+                    insert.setString(2, bs.getServiceCode());
+                    insert.setString(3, bs.getDescription());
+                    insert.setString(4, bs.getValue());
+                    insert.setString(5, bs.getPercentage());
+                    insert.setDate(6, toSqlDate(bs.getBillingserviceDate()));
+                    insert.setString(7, bs.getSpecialty());
+                    insert.setString(8, bs.getRegion());
+                    insert.setString(9, bs.getAnaesthesia());
+                    insert.setDate(10, toSqlDate(bs.getTerminationDate()));
+                    insert.setBoolean(11, Boolean.TRUE.equals(bs.getGstFlag()));
+                    insert.setBoolean(12, Boolean.TRUE.equals(bs.getSliFlag()));
+                    insert.addBatch();
+                    if (++batched % FEE_SCHEDULE_BATCH_SIZE == 0) insert.executeBatch();
+                }
+                if (batched % FEE_SCHEDULE_BATCH_SIZE != 0) insert.executeBatch();
+            }
+
+            // only the Ontario fees in effect by then, codes of other regions and fees that start later are left alone
+            try (PreparedStatement retire = connection.prepareStatement("update billingservice set termination_date = ? where service_code = ? and termination_date > ?"
+                    + " and region = 'ON' and billingservice_date <= ?")) {
+                int batched = 0;
+                for (String serviceCode : retiredCodes) {
+                    retire.setDate(1, toSqlDate(terminationDate));
+                    retire.setString(2, serviceCode);
+                    retire.setDate(3, toSqlDate(terminationDate));
+                    retire.setDate(4, toSqlDate(terminationDate));
+                    retire.addBatch();
+                    if (++batched % FEE_SCHEDULE_BATCH_SIZE == 0) retire.executeBatch();
+                }
+                if (batched % FEE_SCHEDULE_BATCH_SIZE != 0) retire.executeBatch();
+            }
+        });
+    }
+
+    private static java.sql.Date toSqlDate(Date date) {
+        return date == null ? null : new java.sql.Date(date.getTime());
+    }
+
     public List<BillingService> findAll() {
         Query query = entityManager.createQuery("FROM BillingService bs ORDER BY TRIM(bs.description)");
         return query.getResultList();
@@ -0,0 +1,324 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.PostInsertIdentifierGenerator;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.commn.model.AbstractModel;
+import ca.openosp.openo.utility.MiscUtils;
+
+/**
+ * Streams a large number of inserts, updates or deletes of one entity type through the JPA
+ * entity manager, flushing every batchSize rows so hibernate can send them as JDBC batches
+ * (hibernate.jdbc.batch_size) and so the persistence context never holds more than one batch.
+ * <p>
+ * When a spring transaction is active the writer joins it: each flush only detaches the rows
+ * written by the writer, other entities the caller holds stay managed, and nothing is committed
+ * until the caller's transaction is. Outside a transaction the writer opens its own entity
+ * manager and commits once per batch, the same as the old AbstractDao.batchPersist.
+ * <p>
+ * Inserts of entities with an IDENTITY key are executed one statement at a time by hibernate
+ * whatever the batch size, since the id is only known after the insert; they still gain from
+ * sharing one transaction and a bounded persistence context. Updates and deletes are batched
+ * for every key strategy.
+ * <p>
+ * Obtain a writer from {@link AbstractDao#bulkWriter()} and always close it:
+ * <pre>
+ * try (BulkWriter&lt;MeasurementsExt&gt; writer = measurementsExtDao.bulkWriter()) {
+ *     for (MeasurementsExt ext : exts) {
+ *         writer.persist(ext);
+ *     }
+ * }
+ * </pre>
+ */
+public class BulkWriter<T extends AbstractModel<?>> implements AutoCloseable {
+
+    private static final Logger logger = MiscUtils.getLogger();
+
+    private static final Set<Class<?>> identityKeyLogged = ConcurrentHashMap.newKeySet();
+
+    private final EntityManager entityManager;
+    private final EntityTransaction transaction;
+    private final int batchSize;
+    private final List<Object> written = new ArrayList<Object>();
+    private final Statistics statistics;
+
+    private final long started = System.nanoTime();
+    private boolean closed = false;
+
+    /**
+     * @return the batch size used when none is given, the hibernate.jdbc.batch_size property
+     */
+    public static int getDefaultBatchSize() {
+        return Math.max(1, NumberUtils.toInt(OscarProperties.getInstance().getProperty("hibernate.jdbc.batch_size"), 50));
+    }
+
+    BulkWriter(Class<T> modelClass, EntityManagerFactory entityManagerFactory, EntityManager sharedEntityManager, int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        this.statistics = new Statistics(modelClass, isInsertBatchable(modelClass, entityManagerFactory));
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            entityManager = sharedEntityManager;
+            transaction = null;
+        } else {
+            entityManager = entityManagerFactory.createEntityManager();
+            transaction = entityManager.getTransaction();
+            transaction.begin();
+        }
+    }
+
+    /**
+     * aka create, the id of an IDENTITY keyed entity is set when this returns
+     */
+    public void persist(T entity) {
+        checkOpen();
+        try {
+            entityManager.persist(entity);
+            written.add(entity);
+            statistics.inserts++;
+            flushIfFull();
+        } catch (RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * aka update
+     */
+    public void merge(T entity) {
+        checkOpen();
+        try {
+            written.add(entityManager.merge(entity));
+            statistics.updates++;
+            flushIfFull();
+        } catch (RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes the row of the given, possibly detached, entity.
+     */
+    public void remove(T entity) {
+        checkOpen();
+        try {
+            Object reference = entityManager.contains(entity) ? entity : entityManager.getReference(entity.getClass(), entity.getId());
+            entityManager.remove(reference);
+            written.add(reference);
+            statistics.deletes++;
+            flushIfFull();
+        } catch (RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends the pending rows to the database now rather than at the next full batch.
+     */
+    public void flush() {
+        checkOpen();
+        try {
+            flushBatch();
+        } catch (RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Flushes the pending rows and, for a writer with its own transaction, commits them.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        try {
+            if (transaction != null) {
+                if (!written.isEmpty()) {
+                    entityManager.flush();
+                    statistics.flushes++;
+                }
+                transaction.commit();
+            } else {
+                flushBatch();
+            }
+        } catch (RuntimeException e) {
+            abort();
+            throw e;
+        } finally {
+            finish();
+        }
+    }
+
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    private void flushIfFull() {
+        if (written.size() >= batchSize) {
+            flushBatch();
+        }
+    }
+
+    private void flushBatch() {
+        if (written.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        statistics.flushes++;
+        if (transaction != null) {
+            entityManager.clear();
+            transaction.commit();
+            transaction.begin();
+        } else {
+            for (Object entity : written) {
+                entityManager.detach(entity);
+            }
+        }
+        written.clear();
+    }
+
+    private void abort() {
+        if (transaction != null && transaction.isActive()) {
+            try {
+                transaction.rollback();
+            } catch (RuntimeException e) {
+                logger.warn("Could not roll back the bulk write of " + statistics.getModelClass().getSimpleName(), e);
+            }
+        }
+        finish();
+    }
+
+    private void finish() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        written.clear();
+        statistics.elapsedMillis = (System.nanoTime() - started) / 1000000;
+        if (transaction != null) {
+            entityManager.close();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(statistics.toString());
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The bulk writer for " + statistics.getModelClass().getSimpleName() + " is closed");
+        }
+    }
+
+    private static boolean isInsertBatchable(Class<?> modelClass, EntityManagerFactory entityManagerFactory) {
+        boolean batchable = true;
+        try {
+            SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+            batchable = !(sessionFactory.getMetamodel().entityPersister(modelClass).getIdentifierGenerator() instanceof PostInsertIdentifierGenerator);
+        } catch (RuntimeException e) {
+            logger.debug("Could not inspect the id generator of " + modelClass.getName(), e);
+        }
+        if (!batchable && identityKeyLogged.add(modelClass)) {
+            logger.info(modelClass.getSimpleName() + " has an IDENTITY key, its bulk inserts are not sent as JDBC batches");
+        }
+        return batchable;
+    }
+
+    /**
+     * Row counts and timing of one bulk write.
+     */
+    public static class Statistics {
+        private final Class<?> modelClass;
+        private final boolean insertBatchable;
+        private int inserts;
+        private int updates;
+        private int deletes;
+        private int flushes;
+        private long elapsedMillis;
+
+        Statistics(Class<?> modelClass, boolean insertBatchable) {
+            this.modelClass = modelClass;
+            this.insertBatchable = insertBatchable;
+        }
+
+        public Class<?> getModelClass() {
+            return modelClass;
+        }
+
+        /**
+         * @return false when hibernate has to insert the rows one at a time to learn their IDENTITY key
+         */
+        public boolean isInsertBatchable() {
+            return insertBatchable;
+        }
+
+        public int getInserts() {
+            return inserts;
+        }
+
+        public int getUpdates() {
+            return updates;
+        }
+
+        public int getDeletes() {
+            return deletes;
+        }
+
+        public int getFlushes() {
+            return flushes;
+        }
+
+        /**
+         * @return the time from opening to closing the writer, 0 while it is open
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "bulk write of " + modelClass.getSimpleName() + ": " + inserts + " inserted, " + updates + " updated, " + deletes + " deleted in "
+                    + flushes + " flushes, " + elapsedMillis + " ms" + (insertBatchable ? "" : " (inserts not batched, IDENTITY key)");
+        }
+    }
+}
@@ -23,4 +23,45 @@ public interface CaseloadDao {
     List<Map<String, Object>> getCaseloadDemographicData(String searchQuery, Object[] params);
 
     Integer getCaseloadDemographicSearchSize(String searchQuery, String[] searchParams);
+
+    /**
+     * Set based form of {@link #getCaseloadDemographicData(String, Object[])}: reads one caseload column for a
+     * page of demographics in one query. The rows have the same keys as the single demographic query.
+     *
+     * @param searchQuery String the caseload column query, e.g. cl_last_appt
+     * @param demographicNos List the demographics on the page
+     * @param param String the provider for the lab and document counts, the program name for the
+     *              admission dates, otherwise null
+     * @return Map the row of each demographic that has one
+     */
+    Map<Integer, Map<String, Object>> getCaseloadPageData(String searchQuery, List<Integer> demographicNos, String param);
+
+    /**
+     * @return Map the latest value (dataField) of each of the measurement types, by demographic and type
+     */
+    Map<Integer, Map<String, Object>> getCaseloadPageMeasurements(List<Integer> demographicNos, List<String> types);
+
+    /**
+     * Recomputes the caseload_summary rows of the given demographics.
+     */
+    void refreshCaseloadSummary(List<Integer> demographicNos);
+
+    /**
+     * Recomputes the caseload_summary rows of the demographics numbered from fromDemographicNo to toDemographicNo.
+     */
+    void refreshCaseloadSummary(int fromDemographicNo, int toDemographicNo);
+
+    /**
+     * @return List the demographics whose next appointment in caseload_summary has started, their last and
+     * next appointments need to be recomputed
+     */
+    List<Integer> findCaseloadSummaryPastNextAppointment();
+
+    boolean hasCaseloadSummary();
+
+    /**
+     * Sorts by the caseload_summary columns where there is one instead of aggregating the source tables
+     * over the whole caseload.
+     */
+    void setCaseloadSummarySorting(boolean caseloadSummarySorting);
 }
@@ -38,8 +38,13 @@ public class CaseloadDaoImpl implements CaseloadDao {
         if (caseloadDemoQueries == null) {
             initializeDemoQueries();
         }
+        if (caseloadPageQueries == null) {
+            initializePageQueries();
+        }
     }
 
+    private volatile boolean caseloadSummarySorting = false;
+
     private static HashMap<String, String> caseloadSearchQueries;
 
     private static void initializeSearchQueries() {
@@ -202,6 +207,71 @@ public class CaseloadDaoImpl implements CaseloadDao {
         caseloadDemoQueryColumns.put("Access1AdmissionDate", new String[]{"referral_date"});
     }
 
+    private static HashMap<String, String> caseloadPageQueries;
+
+    private static HashMap<String, String> caseloadSummarySortQueries;
+
+    private static String caseloadSummaryRefreshQuery;
+
+    /**
+     * The demographic queries above for a page of demographics at once, ?1 is the list of demographics and
+     * ?2 the provider or program name. The first column is the demographic the row belongs to, the others
+     * are named by caseloadDemoQueryColumns.
+     */
+    private static void initializePageQueries() {
+        caseloadPageQueries = new HashMap<String, String>();
+        caseloadPageQueries.put("cl_demographic_query", "select demographic_no, last_name, first_name, sex, CAST(month_of_birth AS UNSIGNED INTEGER), CAST(date_of_birth AS UNSIGNED INTEGER), CAST((DATE_FORMAT(NOW(), '%Y') - DATE_FORMAT(concat(year_of_birth,month_of_birth,date_of_birth), '%Y') - (DATE_FORMAT(NOW(), '00-%m-%d') < DATE_FORMAT(concat(year_of_birth,month_of_birth,date_of_birth), '00-%m-%d'))) as UNSIGNED INTEGER) as age from demographic where demographic_no in (?1)");
+        caseloadPageQueries.put("cl_last_appt", "select demographic_no, max(appointment_date) from appointment where addtime(appointment_date, start_time) < now() and demographic_no in (?1) group by demographic_no");
+        caseloadPageQueries.put("cl_next_appt", "select demographic_no, min(appointment_date) from appointment where addtime(appointment_date, start_time) > now() and demographic_no in (?1) group by demographic_no");
+        caseloadPageQueries.put("cl_num_appts", "select demographic_no, count(*) from appointment where demographic_no in (?1) and appointment_date > curdate() - 365 group by demographic_no");
+        caseloadPageQueries.put("cl_new_labs", "select demographic_no, count(*) from providerLabRouting left join patientLabRouting using (lab_no) where providerLabRouting.lab_type='HL7' and status='N' and provider_no=?2 and demographic_no in (?1) group by demographic_no");
+        caseloadPageQueries.put("cl_new_docs", "select demographic_no, count(*) from providerLabRouting left join patientLabRouting using (lab_no) where providerLabRouting.lab_type='DOC' and status='N' and provider_no=?2 and demographic_no in (?1) group by demographic_no");
+        caseloadPageQueries.put("cl_new_ticklers", "select demographic_no, count(*) from tickler where status='A' and demographic_no in (?1) group by demographic_no");
+        caseloadPageQueries.put("cl_new_msgs", "select demographic_no, count(*) from msgDemoMap left join messagelisttbl on message = messageID where demographic_no in (?1) and status='new' group by demographic_no");
+
+        caseloadPageQueries.put("LastEncounterDate", "select demographic_no, max(update_date) from casemgmt_note where update_date < now() and demographic_no in (?1) group by demographic_no");
+        caseloadPageQueries.put("LastEncounterType", "SELECT demographic_no, encounter_type FROM casemgmt_note AS c WHERE demographic_no in (?1) AND NOT EXISTS (SELECT * FROM casemgmt_note WHERE update_date > c.update_date)");
+        caseloadPageQueries.put("CashAdmissionDate", "SELECT client_id, MAX(referral_date) FROM client_referral WHERE client_id in (?1) AND program_id IN (SELECT id FROM program WHERE name=?2) GROUP BY client_id");
+        caseloadPageQueries.put("Access1AdmissionDate", "SELECT client_id, MAX(referral_date) FROM client_referral WHERE client_id in (?1) AND program_id IN (SELECT id FROM program WHERE name=?2) GROUP BY client_id");
+
+        // the same columns from caseload_summary, counts of zero are null like patients missing from the aggregates
+        caseloadSummarySortQueries = new HashMap<String, String>();
+        caseloadSummarySortQueries.put("cl_search_last_appt", "SELECT demographic_no, last_appt appointment_date FROM caseload_summary");
+        caseloadSummarySortQueries.put("cl_search_next_appt", "SELECT demographic_no, next_appt appointment_date FROM caseload_summary");
+        caseloadSummarySortQueries.put("cl_search_num_appts", "SELECT demographic_no, NULLIF(num_appts, 0) count FROM caseload_summary");
+        caseloadSummarySortQueries.put("cl_search_new_ticklers", "SELECT demographic_no, NULLIF(new_ticklers, 0) count FROM caseload_summary");
+        caseloadSummarySortQueries.put("cl_search_new_msgs", "SELECT demographic_no, NULLIF(new_msgs, 0) count FROM caseload_summary");
+        caseloadSummarySortQueries.put("cl_search_measurement", "SELECT demographic_no, %s dataField FROM caseload_summary");
+
+        StringBuilder refresh = new StringBuilder("REPLACE INTO caseload_summary (demographic_no, last_appt, next_appt, next_appt_time, num_appts, new_ticklers, new_msgs");
+        StringBuilder select = new StringBuilder(" SELECT d.demographic_no"
+                + ", (select max(appointment_date) from appointment a where a.demographic_no=d.demographic_no and addtime(a.appointment_date, a.start_time) < now())"
+                + ", (select min(appointment_date) from appointment a where a.demographic_no=d.demographic_no and addtime(a.appointment_date, a.start_time) > now())"
+                + ", (select min(addtime(appointment_date, start_time)) from appointment a where a.demographic_no=d.demographic_no and addtime(a.appointment_date, a.start_time) > now())"
+                + ", (select count(*) from appointment a where a.demographic_no=d.demographic_no and a.appointment_date > curdate() - 365)"
+                + ", (select count(*) from tickler t where t.status='A' and t.demographic_no=d.demographic_no)"
+                + ", (select count(*) from msgDemoMap mdm left join messagelisttbl ml on ml.message = mdm.messageID where mdm.demographic_no=d.demographic_no and ml.status='new')");
+        for (CaseloadCategory category : CaseloadCategory.values()) {
+            if (category.isMeasurement()) {
+                refresh.append(", ").append(getSummaryColumn(category));
+                select.append(", (select dataField from measurements m where m.type='").append(category.getLabel()).append("' and m.demographicNo=d.demographic_no order by m.dateObserved desc limit 1)");
+            }
+        }
+        caseloadSummaryRefreshQuery = refresh.append(", last_update)").append(select).append(", now() FROM demographic d WHERE ").toString();
+    }
+
+    private static String getSummaryColumn(CaseloadCategory category) {
+        return category.getLabel().toLowerCase();
+    }
+
+    private static String getSummarySortQuery(CaseloadCategory category) {
+        String query = caseloadSummarySortQueries.get(category.getQuery());
+        if (query != null && category.isMeasurement()) {
+            query = String.format(query, getSummaryColumn(category));
+        }
+        return query;
+    }
+
     private String getFormatedSearchQuery(String searchQuery, String[] searchParams) {
         if ("search_notes".equals(searchQuery)) {
             return String.format(caseloadSearchQueries.get(searchQuery), (Object[]) searchParams);
@@ -234,7 +304,10 @@ public class CaseloadDaoImpl implements CaseloadDao {
             int split = demoQuery.indexOf(",", demoQuery.indexOf("demographic_no"));
             query = demoQuery.substring(0, split) + ", sex " + demoQuery.substring(split) + String.format(" ORDER BY sex = '' ASC, sex %s, last_name %s, first_name %s LIMIT %d, %d", sortDir, sortDir, sortDir, page * pageSize, pageSize);
         } else {
-            sortQuery = sortParams != null ? String.format(caseloadSortQueries.get(category.getQuery()), (Object[]) sortParams) : caseloadSortQueries.get(category.getQuery());
+            sortQuery = caseloadSummarySorting ? getSummarySortQuery(category) : null;
+            if (sortQuery == null) {
+                sortQuery = sortParams != null ? String.format(caseloadSortQueries.get(category.getQuery()), (Object[]) sortParams) : caseloadSortQueries.get(category.getQuery());
+            }
             if (category.isMeasurement()) {
                 query = String.format("SELECT Y.demographic_no, Y.last_name, Y.first_name, X.%s FROM (%s) as Y LEFT JOIN (%s) as X on Y.demographic_no = X.demographic_no ORDER BY ISNULL(X.%s) ASC, CAST(X.%s as DECIMAL(10,4)) %s, Y.last_name %s, Y.first_name %s LIMIT %d, %d",
                         category.getField(), demoQuery, sortQuery, category.getField(), category.getField(), sortDir, sortDir, sortDir, page * pageSize, pageSize);
@@ -302,4 +375,85 @@ public class CaseloadDaoImpl implements CaseloadDao {
 
         return result.get(0).intValue();
     }
+
+    @SuppressWarnings("unchecked")
+    public Map<Integer, Map<String, Object>> getCaseloadPageData(String searchQuery, List<Integer> demographicNos, String param) {
+        Map<Integer, Map<String, Object>> dataResult = new HashMap<Integer, Map<String, Object>>();
+        if (demographicNos.isEmpty()) {
+            return dataResult;
+        }
+        String query = caseloadPageQueries.get(searchQuery);
+        String[] queryColumns = caseloadDemoQueryColumns.get(searchQuery);
+
+        Query q = entityManager.createNativeQuery(query);
+        q.setParameter(1, demographicNos);
+        if (query.contains("?2")) {
+            q.setParameter(2, param);
+        }
+
+        List<Object[]> result = q.getResultList();
+        for (Object[] r : result) {
+            Map<String, Object> row = new HashMap<String, Object>();
+            for (int i = 1; i < r.length; i++) {
+                row.put(queryColumns[i - 1], r[i]);
+            }
+            // the first row, as the single demographic queries read it
+            dataResult.putIfAbsent(((Number) r[0]).intValue(), row);
+        }
+        return dataResult;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<Integer, Map<String, Object>> getCaseloadPageMeasurements(List<Integer> demographicNos, List<String> types) {
+        Map<Integer, Map<String, Object>> dataResult = new HashMap<Integer, Map<String, Object>>();
+        if (demographicNos.isEmpty() || types.isEmpty()) {
+            return dataResult;
+        }
+        Query q = entityManager.createNativeQuery("SELECT m.demographicNo, m.type, m.dataField FROM measurements m JOIN (SELECT demographicNo, type, max(dateObserved) max_date FROM measurements WHERE demographicNo in (?1) AND type in (?2) GROUP BY demographicNo, type) m2 ON m.demographicNo = m2.demographicNo AND m.type = m2.type AND m.dateObserved = m2.max_date");
+        q.setParameter(1, demographicNos);
+        q.setParameter(2, types);
+
+        List<Object[]> result = q.getResultList();
+        for (Object[] r : result) {
+            dataResult.computeIfAbsent(((Number) r[0]).intValue(), k -> new HashMap<String, Object>()).putIfAbsent((String) r[1], r[2]);
+        }
+        return dataResult;
+    }
+
+    public void refreshCaseloadSummary(List<Integer> demographicNos) {
+        if (demographicNos.isEmpty()) {
+            return;
+        }
+        Query q = entityManager.createNativeQuery(caseloadSummaryRefreshQuery + "d.demographic_no in (?1)");
+        q.setParameter(1, demographicNos);
+        q.executeUpdate();
+    }
+
+    public void refreshCaseloadSummary(int fromDemographicNo, int toDemographicNo) {
+        Query q = entityManager.createNativeQuery(caseloadSummaryRefreshQuery + "d.demographic_no between ?1 and ?2");
+        q.setParameter(1, fromDemographicNo);
+        q.setParameter(2, toDemographicNo);
+        q.executeUpdate();
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Integer> findCaseloadSummaryPastNextAppointment() {
+        Query q = entityManager.createNativeQuery("SELECT demographic_no FROM caseload_summary WHERE next_appt_time <= now()");
+        List<Integer> demographicNos = new ArrayList<Integer>();
+        for (Object r : (List<Object>) q.getResultList()) {
+            demographicNos.add(((Number) r).intValue());
+        }
+        return demographicNos;
+    }
+
+    @SuppressWarnings("unchecked")
+    public boolean hasCaseloadSummary() {
+        Query q = entityManager.createNativeQuery("SELECT demographic_no FROM caseload_summary");
+        q.setMaxResults(1);
+        return !q.getResultList().isEmpty();
+    }
+
+    public void setCaseloadSummarySorting(boolean caseloadSummarySorting) {
+        this.caseloadSummarySorting = caseloadSummarySorting;
+    }
 }
@@ -35,15 +35,52 @@ import javax.persistence.Query;
 
 import org.apache.commons.lang3.time.DateFormatUtils;
 import ca.openosp.openo.commn.NativeSql;
+import ca.openosp.openo.commn.model.AbstractModel;
 import ca.openosp.openo.commn.model.ConsultationRequest;
+import ca.openosp.openo.event.TabAlertChangeEvent;
+import ca.openosp.openo.managers.TabAlertManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 
 @SuppressWarnings("unchecked")
-public class ConsultationRequestDaoImpl extends AbstractDaoImpl<ConsultationRequest> implements ConsultationRequestDao {
+public class ConsultationRequestDaoImpl extends AbstractDaoImpl<ConsultationRequest> implements ConsultationRequestDao, ApplicationEventPublisherAware {
+
+    private ApplicationEventPublisher publisher;
 
     public ConsultationRequestDaoImpl() {
         super(ConsultationRequest.class);
     }
 
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void persist(AbstractModel<?> o) {
+        super.persist(o);
+        publishTabAlertChange(o);
+    }
+
+    @Override
+    public void merge(AbstractModel<?> o) {
+        super.merge(o);
+        publishTabAlertChange(o);
+    }
+
+    @Override
+    public void remove(AbstractModel<?> o) {
+        super.remove(o);
+        publishTabAlertChange(o);
+    }
+
+    private void publishTabAlertChange(AbstractModel<?> o) {
+        if (o instanceof ConsultationRequest && publisher != null) {
+            // the aged consultation count is clinic or team wide
+            publisher.publishEvent(new TabAlertChangeEvent(o, TabAlertManager.Alert.CONSULT, null));
+        }
+    }
+
     public int getCountReferralsAfterCutOffDateAndNotCompleted(Date referralDateCutoff) {
         Query query = entityManager.createNativeQuery("select count(*) from consultationRequests where referalDate < ?1 and status != 4");
         query.setParameter(1, referralDateCutoff);
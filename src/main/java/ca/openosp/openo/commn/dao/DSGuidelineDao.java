@@ -35,4 +35,9 @@ public interface DSGuidelineDao extends AbstractDao<DSGuideline> {
     DSGuideline findByUUID(String uuid);
 
     List<DSGuideline> getDSGuidelinesByProvider(String providerNo);
+
+    /**
+     * @return the active guidelines, whatever provider they are mapped to
+     */
+    List<DSGuideline> findActive();
 }
@@ -69,4 +69,16 @@ public class DSGuidelineDaoImpl extends AbstractDaoImpl<DSGuideline> implements
 
         return list;
     }
+
+    @Override
+    public List<DSGuideline> findActive() {
+        String sql = "select c from DSGuideline c where c.status = 'A'";
+
+        Query query = entityManager.createQuery(sql);
+
+        @SuppressWarnings("unchecked")
+        List<DSGuideline> list = query.getResultList();
+
+        return list;
+    }
 }
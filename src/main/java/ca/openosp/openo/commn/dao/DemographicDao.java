@@ -431,6 +431,24 @@ public interface DemographicDao {
     public List<DemographicSearchResult> searchPatients(LoggedInInfo loggedInInfo,
                                                         DemographicSearchRequest searchRequest, int startIndex, int itemsToReturn);
 
+    /**
+     * Reads the columns needed by the in-memory patient search index, for every demographic
+     * with a demographic number in the given (inclusive) range.
+     *
+     * @return List of {demographic_no, last_name, first_name, chart_no, sex, provider_no, roster_status,
+     * patient_status, phone, year_of_birth, month_of_birth, date_of_birth, provider last name,
+     * provider first name, hin, address} ordered by demographic number
+     */
+    public List<Object[]> findSearchIndexRows(int fromDemographicNo, int toDemographicNo);
+
+    public Integer getMaxDemographicNo();
+
+    /**
+     * Restricts the searches to the provider's program domain with program_domain_client instead of
+     * joining the program providers to every admission.
+     */
+    public void setProgramDomainFromTable(boolean programDomainFromTable);
+
 
     public List<Integer> getMissingExtKey(String keyName);
 
@@ -57,6 +57,7 @@ import org.hibernate.Query;
 import org.hibernate.SQLQuery;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Expression;
 import org.hibernate.criterion.LogicalExpression;
@@ -73,9 +74,11 @@ import ca.openosp.openo.commn.NativeSql;
 import ca.openosp.openo.commn.model.Admission;
 import ca.openosp.openo.commn.model.Demographic;
 import ca.openosp.openo.commn.model.DemographicExt;
+import ca.openosp.openo.commn.model.DomainEvent;
 import ca.openosp.openo.event.DemographicCreateEvent;
 import ca.openosp.openo.event.DemographicUpdateEvent;
 import ca.openosp.openo.integration.hl7.generators.HL7A04Generator;
+import ca.openosp.openo.managers.DomainEventManager;
 import ca.openosp.openo.utility.DbConnectionFilter;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
@@ -105,6 +108,9 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
     static Logger log = MiscUtils.getLogger();
 
     private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private DomainEventManager domainEventManager;
     // public SessionFactory sessionFactory;
 
     @Autowired
@@ -449,6 +455,29 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
 
     private final String PROGRAM_DOMAIN_RESTRICTION = "select distinct a.clientId from ProgramProvider pp,Admission a WHERE pp.ProgramId=a.programId AND pp.ProviderNo=:providerNo";
 
+    // the same clients, from program_domain_client
+    private final String PROGRAM_DOMAIN_TABLE_RESTRICTION = "select pdc.id.demographicNo from ProgramDomainClient pdc WHERE pdc.id.providerNo=:providerNo";
+
+    // the native sql of the two for searchPatients and searchPatientCount
+    private final String NATIVE_PROGRAM_DOMAIN_RESTRICTION = "select distinct a.client_id from program_provider pp,admission a WHERE pp.program_id=a.program_id AND pp.provider_no=:providerNo";
+
+    private final String NATIVE_PROGRAM_DOMAIN_TABLE_RESTRICTION = "select pdc.demographic_no from program_domain_client pdc WHERE pdc.provider_no=:providerNo";
+
+    private volatile boolean programDomainFromTable = false;
+
+    private String getProgramDomainRestriction() {
+        return programDomainFromTable ? PROGRAM_DOMAIN_TABLE_RESTRICTION : PROGRAM_DOMAIN_RESTRICTION;
+    }
+
+    private String getNativeProgramDomainRestriction() {
+        return programDomainFromTable ? NATIVE_PROGRAM_DOMAIN_TABLE_RESTRICTION : NATIVE_PROGRAM_DOMAIN_RESTRICTION;
+    }
+
+    @Override
+    public void setProgramDomainFromTable(boolean programDomainFromTable) {
+        this.programDomainFromTable = programDomainFromTable;
+    }
+
     @Override
     public List<Demographic> searchDemographicByName(String searchStr, int limit, int offset, String providerNo,
                                                      boolean outOfDomain) {
@@ -516,7 +545,7 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
         }
 
         if (providerNo != null && !outOfDomain) {
-            queryString += " AND d.id IN (" + PROGRAM_DOMAIN_RESTRICTION + ") ";
+            queryString += " AND d.id IN (" + getProgramDomainRestriction() + ") ";
         }
         if (orderBy != null) {
             queryString += " ORDER BY " + getOrderField(orderBy);
@@ -682,7 +711,7 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
         }
 
         if (providerNo != null && !outOfDomain) {
-            queryString += " AND d.id IN (" + PROGRAM_DOMAIN_RESTRICTION + ") ";
+            queryString += " AND d.id IN (" + getProgramDomainRestriction() + ") ";
         }
 
         if (orderBy != null) {
@@ -830,7 +859,7 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
         }
 
         if (providerNo != null && !outOfDomain) {
-            queryString += " AND d.id IN (" + PROGRAM_DOMAIN_RESTRICTION + ") ";
+            queryString += " AND d.id IN (" + getProgramDomainRestriction() + ") ";
         }
         if (orderBy != null) {
             queryString += " ORDER BY " + getOrderField(orderBy);
@@ -964,7 +993,7 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
         }
 
         if (providerNo != null && !outOfDomain) {
-            queryString += " AND d.id IN (" + PROGRAM_DOMAIN_RESTRICTION + ") ";
+            queryString += " AND d.id IN (" + getProgramDomainRestriction() + ") ";
         }
 
         if (orderBy != null) {
@@ -1260,7 +1289,7 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
         }
 
         if (providerNo != null && !outOfDomain) {
-            queryString += " AND d.id IN (" + PROGRAM_DOMAIN_RESTRICTION + ") ";
+            queryString += " AND d.id IN (" + getProgramDomainRestriction() + ") ";
         }
 
         if (orderBy != null) {
@@ -1369,7 +1398,7 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
         }
 
         if (providerNo != null && !outOfDomain) {
-            queryString += " AND de.id IN (" + PROGRAM_DOMAIN_RESTRICTION + ") ";
+            queryString += " AND de.id IN (" + getProgramDomainRestriction() + ") ";
         }
 
         if (orderBy != null) {
@@ -1479,7 +1508,7 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
         }
 
         if (providerNo != null && !outOfDomain) {
-            queryString += " AND d.id IN (" + PROGRAM_DOMAIN_RESTRICTION + ") ";
+            queryString += " AND d.id IN (" + getProgramDomainRestriction() + ") ";
         }
 
         if (orderBy != null) {
@@ -1573,7 +1602,7 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
         }
 
         if (providerNo != null && !outOfDomain) {
-            queryString += " AND d.id IN (" + PROGRAM_DOMAIN_RESTRICTION + ") ";
+            queryString += " AND d.id IN (" + getProgramDomainRestriction() + ") ";
         }
 
         if (orderBy != null) {
@@ -1618,7 +1647,7 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
             objExists = clientExistsThenEvict(demographic.getDemographicNo());
         }
 
-        this.getHibernateTemplate().saveOrUpdate(demographic);
+        saveAndPublish(demographic, objExists);
 
         if (OscarProperties.getInstance().isHL7A04GenerationEnabled() && !objExists) {
             (new HL7A04Generator()).generateHL7A04(demographic);
@@ -1633,6 +1662,24 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
 
     }
 
+    /**
+     * Saves the demographic and writes its domain event in one transaction of the Hibernate session. The
+     * session doesn't take part in the JPA transaction, so one is started here unless the caller has one
+     * open on the session.
+     */
+    private void saveAndPublish(Demographic demographic, boolean objExists) {
+        Session session = currentSession();
+        Transaction transaction = session.getTransaction().isActive() ? null : session.beginTransaction();
+        try {
+            this.getHibernateTemplate().saveOrUpdate(demographic);
+            domainEventManager.publish(session, objExists ? DomainEvent.DEMOGRAPHIC_UPDATE : DomainEvent.DEMOGRAPHIC_CREATE, String.valueOf(demographic.getDemographicNo()), null);
+            if (transaction != null) transaction.commit();
+        } catch (RuntimeException e) {
+            if (transaction != null && transaction.isActive()) transaction.rollback();
+            throw e;
+        }
+    }
+
     @Override
     public String getOrderField(String orderBy, boolean nativeQuery) {
         if (!nativeQuery) {
@@ -2150,7 +2197,7 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
             objExists = clientExistsThenEvict(client.getDemographicNo());
 
         client.setLastUpdateDate(new Date());
-        this.getHibernateTemplate().saveOrUpdate(client);
+        saveAndPublish(client, objExists);
 
         if (OscarProperties.getInstance().isHL7A04GenerationEnabled() && !objExists)
             (new HL7A04Generator()).generateHL7A04(client);
@@ -2804,6 +2851,27 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
         }
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<Object[]> findSearchIndexRows(int fromDemographicNo, int toDemographicNo) {
+        Session session = currentSession();
+        SQLQuery sqlQuery = session.createSQLQuery("select d.demographic_no, d.last_name, d.first_name, d.chart_no, d.sex, d.provider_no, d.roster_status,"
+            + " d.patient_status, d.phone, d.year_of_birth, d.month_of_birth, d.date_of_birth, p.last_name as providerLastName,"
+            + " p.first_name as providerFirstName, d.hin, d.address"
+            + " from demographic d left join provider p on d.provider_no = p.provider_no"
+            + " where d.demographic_no between :fromDemographicNo and :toDemographicNo order by d.demographic_no");
+        sqlQuery.setParameter("fromDemographicNo", fromDemographicNo);
+        sqlQuery.setParameter("toDemographicNo", toDemographicNo);
+        return sqlQuery.list();
+    }
+
+    @Override
+    public Integer getMaxDemographicNo() {
+        Session session = currentSession();
+        Number result = (Number) session.createSQLQuery("select max(demographic_no) from demographic").uniqueResult();
+        return result == null ? null : result.intValue();
+    }
+
     private String generateDemographicSearchQuery(LoggedInInfo loggedInInfo, DemographicSearchRequest searchRequest,
                                                   Map<String, Object> params, String select) {
         OscarProperties props = OscarProperties.getInstance();
@@ -2903,7 +2971,7 @@ public class DemographicDaoImpl extends HibernateDaoSupport implements Applicati
 
         String domainRestriction = "";
         if (!searchRequest.isOutOfDomain()) {
-            domainRestriction = " and d.demographic_no in ( select distinct a.client_id from program_provider pp,admission a WHERE pp.program_id=a.program_id AND pp.provider_no=:providerNo ) ";
+            domainRestriction = " and d.demographic_no in ( " + getNativeProgramDomainRestriction() + " ) ";
             params.put("providerNo", loggedInInfo.getLoggedInProviderNo());
         }
 
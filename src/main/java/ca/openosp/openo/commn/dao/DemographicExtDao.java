@@ -49,6 +49,11 @@ public interface DemographicExtDao extends AbstractDao<DemographicExt> {
 
     public DemographicExt getLatestDemographicExt(Integer demographicNo, String key);
 
+    /**
+     * @return the values of the key for all the given demographics, ordered by demographic and latest first
+     */
+    public List<DemographicExt> getDemographicExts(Collection<Integer> demographicNos, String key);
+
     public void updateDemographicExt(DemographicExt de);
 
     public void saveDemographicExt(Integer demographicNo, String key, String value);
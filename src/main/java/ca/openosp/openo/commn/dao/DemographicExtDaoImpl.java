@@ -144,6 +144,28 @@ public class DemographicExtDaoImpl extends AbstractDaoImpl<DemographicExt> imple
         return result;
     }
 
+    @Override
+    public List<DemographicExt> getDemographicExts(Collection<Integer> demographicNos, String key) {
+
+        if (key == null || key.length() <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        if (demographicNos.isEmpty()) {
+            return new ArrayList<DemographicExt>();
+        }
+
+        Query query = entityManager.createQuery(
+                "SELECT d from DemographicExt d where d.demographicNo IN (?1) and d.key = ?2 order by d.demographicNo, d.dateCreated DESC, d.id DESC");
+        query.setParameter(1, demographicNos);
+        query.setParameter(2, key);
+
+        @SuppressWarnings("unchecked")
+        List<DemographicExt> results = query.getResultList();
+
+        return results;
+    }
+
     @Override
     public void updateDemographicExt(DemographicExt de) {
 
@@ -37,6 +37,8 @@ public interface DemographicMergedDao extends AbstractDao<DemographicMerged> {
 
     public List<DemographicMerged> findCurrentByDemographicNo(int demographicNo);
 
+    public List<DemographicMerged> findCurrent();
+
     public List<DemographicMerged> findByDemographicNo(int demographicNo);
 
     public List<DemographicMerged> findByParentAndChildIds(Integer parentId, Integer childId);
@@ -63,6 +63,16 @@ public class DemographicMergedDaoImpl extends AbstractDaoImpl<DemographicMerged>
         return results;
     }
 
+    @Override
+    public List<DemographicMerged> findCurrent() {
+        Query q = entityManager.createQuery("select d from DemographicMerged d where d.deleted=0");
+
+        @SuppressWarnings("unchecked")
+        List<DemographicMerged> results = q.getResultList();
+
+        return results;
+    }
+
     @Override
     public List<DemographicMerged> findByDemographicNo(int demographicNo) {
         Query q = entityManager.createQuery("select d from DemographicMerged d where d.demographicNo=?1");
@@ -0,0 +1,61 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.dao;
+
+import java.util.Collection;
+import java.util.List;
+
+import ca.openosp.openo.commn.model.DomainEventDelivery;
+
+public interface DomainEventDeliveryDao extends AbstractDao<DomainEventDelivery> {
+
+    /**
+     * Only the earliest undelivered event of each listener and aggregate is returned, so a delivery waiting
+     * for a retry holds back the later events of its aggregate and nothing else.
+     *
+     * @return the deliveries to the listeners that are due and not claimed by another server, in the order
+     * their events were written
+     */
+    public List<DomainEventDelivery> findPending(Collection<String> listeners, int itemsToReturn);
+
+    /**
+     * Claims the delivery for the owner if it is due and no other server holds an unexpired claim on it.
+     * Both are checked against the database clock so servers with drifting clocks agree.
+     *
+     * @return true if the owner now holds the claim
+     */
+    public boolean claim(Long id, String owner, int claimSeconds);
+
+    /**
+     * Records a failed attempt and releases the claim, the delivery becomes due again after the delay.
+     */
+    public void retryLater(Long id, int attempts, int delaySeconds, String error);
+
+    /**
+     * @return listener, pending deliveries, deliveries that have failed at least once and the time the oldest
+     * pending event was written, one row per listener
+     */
+    public List<Object[]> findLagByListener();
+}
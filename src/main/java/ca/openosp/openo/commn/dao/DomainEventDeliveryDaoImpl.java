@@ -0,0 +1,91 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.Query;
+
+import ca.openosp.openo.commn.model.DomainEventDelivery;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class DomainEventDeliveryDaoImpl extends AbstractDaoImpl<DomainEventDelivery> implements DomainEventDeliveryDao {
+
+    public DomainEventDeliveryDaoImpl() {
+        super(DomainEventDelivery.class);
+    }
+
+    @Override
+    public List<DomainEventDelivery> findPending(Collection<String> listeners, int itemsToReturn) {
+        if (listeners.isEmpty()) return new ArrayList<DomainEventDelivery>();
+
+        // current_timestamp is the database clock, the same one claim() and retryLater() use
+        Query query = entityManager.createQuery("select x from " + modelClass.getSimpleName() + " x where x.listener in (?1)"
+                + " and x.nextAttempt <= current_timestamp and (x.claimedBy is null or x.claimedUntil < current_timestamp)"
+                + " and not exists (select y from " + modelClass.getSimpleName() + " y where y.listener = x.listener and y.aggregateId = x.aggregateId"
+                + " and (y.eventId < x.eventId or (y.eventId = x.eventId and y.id < x.id)))"
+                + " order by x.eventId, x.id");
+        query.setParameter(1, listeners);
+        setLimit(query, 0, itemsToReturn);
+
+        @SuppressWarnings("unchecked")
+        List<DomainEventDelivery> results = query.getResultList();
+        return results;
+    }
+
+    @Override
+    public boolean claim(Long id, String owner, int claimSeconds) {
+        Query query = entityManager.createNativeQuery("update DomainEventDelivery set claimedBy = ?2, claimedUntil = date_add(now(), interval ?3 second)"
+                + " where id = ?1 and nextAttempt <= now() and (claimedBy is null or claimedUntil < now() or claimedBy = ?2)");
+        query.setParameter(1, id);
+        query.setParameter(2, owner);
+        query.setParameter(3, claimSeconds);
+        return query.executeUpdate() == 1;
+    }
+
+    @Override
+    public void retryLater(Long id, int attempts, int delaySeconds, String error) {
+        Query query = entityManager.createNativeQuery("update DomainEventDelivery set attempts = ?2, nextAttempt = date_add(now(), interval ?3 second),"
+                + " lastError = ?4, claimedBy = null, claimedUntil = null where id = ?1");
+        query.setParameter(1, id);
+        query.setParameter(2, attempts);
+        query.setParameter(3, delaySeconds);
+        query.setParameter(4, error);
+        query.executeUpdate();
+    }
+
+    @Override
+    public List<Object[]> findLagByListener() {
+        Query query = entityManager.createQuery("select d.listener, count(d), sum(case when d.attempts > 0 then 1 else 0 end), min(e.created)"
+                + " from DomainEventDelivery d, DomainEvent e where e.id = d.eventId group by d.listener order by d.listener");
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+        return results;
+    }
+}
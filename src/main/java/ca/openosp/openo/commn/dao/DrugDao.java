@@ -41,6 +41,8 @@ public interface DrugDao extends AbstractDao<Drug> {
 
     public List<Drug> findByDemographicId(Integer demographicId, Boolean archived);
 
+    public List<Drug> findByDemographicIdsAndAtc(List<Integer> demographicIds, Boolean archived, List<String> atcCodes);
+
     public List<Drug> findByScriptNo(Integer scriptNo, Boolean archived);
 
     public List<Drug> findByDemographicIdOrderByDate(Integer demographicId, Boolean archived);
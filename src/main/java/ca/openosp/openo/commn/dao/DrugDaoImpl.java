@@ -36,19 +36,55 @@ import javax.persistence.TypedQuery;
 
 import org.apache.commons.lang3.StringUtils;
 import ca.openosp.openo.commn.NativeSql;
+import ca.openosp.openo.commn.model.AbstractModel;
 import ca.openosp.openo.commn.model.Drug;
+import ca.openosp.openo.event.ClinicalDataChangeEvent;
 import ca.openosp.openo.utility.MiscUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 
-public class DrugDaoImpl extends AbstractDaoImpl<Drug> implements DrugDao {
+public class DrugDaoImpl extends AbstractDaoImpl<Drug> implements DrugDao, ApplicationEventPublisherAware {
+
+    private ApplicationEventPublisher publisher;
 
     public DrugDaoImpl() {
         super(Drug.class);
     }
 
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void persist(AbstractModel<?> o) {
+        super.persist(o);
+        publishClinicalDataChange(o);
+    }
+
+    @Override
+    public void merge(AbstractModel<?> o) {
+        super.merge(o);
+        publishClinicalDataChange(o);
+    }
+
+    @Override
+    public void remove(AbstractModel<?> o) {
+        super.remove(o);
+        publishClinicalDataChange(o);
+    }
+
+    private void publishClinicalDataChange(AbstractModel<?> o) {
+        if (o instanceof Drug && publisher != null) {
+            publisher.publishEvent(new ClinicalDataChangeEvent(o, ((Drug) o).getDemographicId()));
+        }
+    }
+
     @Override
     public boolean addNewDrug(Drug d) {
         try {
             entityManager.persist(d);
+            publishClinicalDataChange(d);
         } catch (Exception e) {
             MiscUtils.getLogger().error("Error", e);
             return false;
@@ -92,6 +128,27 @@ public class DrugDaoImpl extends AbstractDaoImpl<Drug> implements DrugDao {
         return (results);
     }
 
+    @Override
+    public List<Drug> findByDemographicIdsAndAtc(List<Integer> demographicIds, Boolean archived, List<String> atcCodes) {
+        if (demographicIds.isEmpty() || atcCodes.isEmpty()) {
+            return new ArrayList<Drug>();
+        }
+
+        String sqlCommand = "select x from Drug x where x.demographicId IN (?1) and x.atc IN (?2) "
+                + (archived == null ? "" : "and x.archived=?3 ") + " order by x.demographicId, x.createDate DESC";
+
+        Query query = entityManager.createQuery(sqlCommand);
+        query.setParameter(1, demographicIds);
+        query.setParameter(2, atcCodes);
+        if (archived != null) {
+            query.setParameter(3, archived);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Drug> results = query.getResultList();
+        return (results);
+    }
+
     @Override
     public List<Drug> findByScriptNo(Integer scriptNo, Boolean archived) {
 
@@ -55,6 +55,11 @@ public interface DxresearchDAO extends AbstractDao<Dxresearch> {
 
     boolean activeEntryExists(int demographicNo, String codeType, String code);
 
+    /**
+     * @return all entries of the given demographics, most recently updated first for each demographic
+     */
+    List<Dxresearch> findByDemographicNos(List<Integer> demographicNos);
+
     void removeAllAssociationEntries();
 
     List<Object[]> findResearchAndCodingSystemByDemographicAndCondingSystem(String codingSystem, String demographicNo);
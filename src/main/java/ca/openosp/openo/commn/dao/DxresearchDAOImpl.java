@@ -37,11 +37,15 @@ import javax.persistence.Query;
 import org.apache.logging.log4j.Logger;
 import ca.openosp.openo.commn.NativeSql;
 import ca.openosp.openo.commn.model.AbstractCodeSystemModel;
+import ca.openosp.openo.commn.model.AbstractModel;
 import ca.openosp.openo.commn.model.Demographic;
 import ca.openosp.openo.commn.model.DxRegistedPTInfo;
 import ca.openosp.openo.commn.model.Dxresearch;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.SpringUtils;
+import ca.openosp.openo.event.ClinicalDataChangeEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Repository;
 
 import ca.openosp.openo.dxresearch.bean.dxCodeSearchBean;
@@ -52,13 +56,44 @@ import ca.openosp.openo.dxresearch.bean.dxQuickListItemsHandler;
  */
 @Repository
 @SuppressWarnings("unchecked")
-public class DxresearchDAOImpl extends AbstractDaoImpl<Dxresearch> implements DxresearchDAO {
+public class DxresearchDAOImpl extends AbstractDaoImpl<Dxresearch> implements DxresearchDAO, ApplicationEventPublisherAware {
     private static final Logger logger = MiscUtils.getLogger();
 
+    private ApplicationEventPublisher publisher;
+
     public DxresearchDAOImpl() {
         super(Dxresearch.class);
     }
 
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void persist(AbstractModel<?> o) {
+        super.persist(o);
+        publishClinicalDataChange(o);
+    }
+
+    @Override
+    public void merge(AbstractModel<?> o) {
+        super.merge(o);
+        publishClinicalDataChange(o);
+    }
+
+    @Override
+    public void remove(AbstractModel<?> o) {
+        super.remove(o);
+        publishClinicalDataChange(o);
+    }
+
+    private void publishClinicalDataChange(AbstractModel<?> o) {
+        if (o instanceof Dxresearch && publisher != null) {
+            publisher.publishEvent(new ClinicalDataChangeEvent(o, ((Dxresearch) o).getDemographicNo()));
+        }
+    }
+
     public List<DxRegistedPTInfo> getPatientRegisted(List<Dxresearch> dList, List<String> doctorList) {
 
         List<DxRegistedPTInfo> rList = new ArrayList<DxRegistedPTInfo>();
@@ -330,11 +365,28 @@ public class DxresearchDAOImpl extends AbstractDaoImpl<Dxresearch> implements Dx
         return !items.isEmpty();
     }
 
+    public List<Dxresearch> findByDemographicNos(List<Integer> demographicNos) {
+        if (demographicNos.isEmpty()) {
+            return new ArrayList<Dxresearch>();
+        }
+        String hql = "select d from Dxresearch d where d.demographicNo in (?1) order by d.demographicNo, d.updateDate desc";
+        Query query = entityManager.createQuery(hql);
+        query.setParameter(1, demographicNos);
+
+        @SuppressWarnings("unchecked")
+        List<Dxresearch> items = query.getResultList();
+
+        return items;
+    }
+
     public void removeAllAssociationEntries() {
         String hql = "DELETE from Dxresearch dx WHERE dx.association='1'";
         Query query = entityManager.createQuery(hql);
 
         query.executeUpdate();
+        if (publisher != null) {
+            publisher.publishEvent(new ClinicalDataChangeEvent(this, null));
+        }
     }
 
     @SuppressWarnings("unchecked")
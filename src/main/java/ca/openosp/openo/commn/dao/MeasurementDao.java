@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import ca.openosp.openo.commn.model.Measurement;
 import ca.openosp.openo.commn.model.MeasurementType;
@@ -301,6 +302,11 @@ public interface MeasurementDao extends AbstractDao<Measurement> {
      */
     public List<Measurement> findByType(Integer demographicId, List<String> types);
 
+    /**
+     * @return the measurements of the type for all the given demographics, ordered by demographic and newest first
+     */
+    public List<Measurement> findByDemographicIdsAndType(List<Integer> demographicIds, String type);
+
     public List<Measurement> findByType(Integer demographicId, List<String> types, Date after);
 
     public List<Measurement> findByType(String type);
@@ -333,4 +339,13 @@ public interface MeasurementDao extends AbstractDao<Measurement> {
      * @return List<Measurement> measurements matching all criteria
      */
     public List<Measurement> findMeasurementByTypeAndDate(Integer demoNo, String type, Date start, Date end);
+
+    /**
+     * Registers a callback that receives the demographic ID of every measurement persisted, merged
+     * or removed through this DAO, at the change and again once its transaction completes. Used to keep
+     * derived per-patient data such as cached time series consistent with the measurements table.
+     *
+     * @param listener Consumer<Integer> callback receiving the affected demographic ID
+     */
+    public void addMeasurementChangeListener(Consumer<Integer> listener);
 }
@@ -35,21 +35,90 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 import javax.persistence.Query;
 
 import ca.openosp.openo.commn.NativeSql;
+import ca.openosp.openo.commn.model.AbstractModel;
 import ca.openosp.openo.commn.model.Measurement;
 import ca.openosp.openo.commn.model.MeasurementType;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Repository
 public class MeasurementDaoImpl extends AbstractDaoImpl<Measurement> implements MeasurementDao {
 
+    private final List<Consumer<Integer>> changeListeners = new CopyOnWriteArrayList<Consumer<Integer>>();
+
     public MeasurementDaoImpl() {
         super(Measurement.class);
     }
 
+    @Override
+    public void addMeasurementChangeListener(Consumer<Integer> listener) {
+        changeListeners.add(listener);
+    }
+
+    private void fireChanged(AbstractModel<?> o) {
+        if (!(o instanceof Measurement) || ((Measurement) o).getDemographicId() == null) return;
+
+        Integer demographicId = ((Measurement) o).getDemographicId();
+        notifyListeners(demographicId);
+        // a reader on another connection may cache the rows from before the commit in the meantime, and
+        // one inside this transaction the rows of a rollback, so the listeners hear of it again at the end
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    notifyListeners(demographicId);
+                }
+            });
+        }
+    }
+
+    private void notifyListeners(Integer demographicId) {
+        for (Consumer<Integer> listener : changeListeners) {
+            listener.accept(demographicId);
+        }
+    }
+
+    @Override
+    public void persist(AbstractModel<?> o) {
+        super.persist(o);
+        fireChanged(o);
+    }
+
+    @Override
+    public void merge(AbstractModel<?> o) {
+        super.merge(o);
+        fireChanged(o);
+    }
+
+    @Override
+    public void remove(AbstractModel<?> o) {
+        super.remove(o);
+        fireChanged(o);
+    }
+
+    @Override
+    public void batchPersist(List<Measurement> oList, int batchSize) {
+        super.batchPersist(oList, batchSize);
+        for (Measurement m : oList) {
+            fireChanged(m);
+        }
+    }
+
+    @Override
+    public void batchRemove(List<Measurement> oList, int batchSize) {
+        super.batchRemove(oList, batchSize);
+        for (Measurement m : oList) {
+            fireChanged(m);
+        }
+    }
+
     @Override
     public List<Measurement> findByDemographicIdUpdatedAfterDate(Integer demographicId, Date updatedAfterThisDate) {
 
@@ -740,6 +809,23 @@ public class MeasurementDaoImpl extends AbstractDaoImpl<Measurement> implements
         return results;
     }
 
+    @Override
+    public List<Measurement> findByDemographicIdsAndType(List<Integer> demographicIds, String type) {
+        if (demographicIds.isEmpty()) {
+            return new ArrayList<Measurement>();
+        }
+        String sqlCommand = "select x from Measurement x where x.demographicId IN (?1) and x.type = ?2 order by x.demographicId, x.dateObserved desc";
+
+        Query query = entityManager.createQuery(sqlCommand);
+        query.setParameter(1, demographicIds);
+        query.setParameter(2, type);
+
+        @SuppressWarnings("unchecked")
+        List<Measurement> results = query.getResultList();
+
+        return results;
+    }
+
     @Override
     public List<Measurement> findByType(Integer demographicId, List<String> types) {
         String sqlCommand = "select x from Measurement x where x.demographicId = ?1 and x.type IN (?2) order by x.dateObserved desc";
@@ -33,18 +33,65 @@ import java.util.List;
 
 import javax.persistence.Query;
 
+import ca.openosp.openo.commn.model.AbstractModel;
 import ca.openosp.openo.commn.model.MessageList;
 import ca.openosp.openo.commn.model.OscarMsgType;
+import ca.openosp.openo.event.CaseloadSummaryChangeEvent;
+import ca.openosp.openo.event.TabAlertChangeEvent;
+import ca.openosp.openo.managers.TabAlertManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Repository;
 
 @Repository
 @SuppressWarnings("unchecked")
-public class MessageListDaoImpl extends AbstractDaoImpl<MessageList> implements MessageListDao {
+public class MessageListDaoImpl extends AbstractDaoImpl<MessageList> implements MessageListDao, ApplicationEventPublisherAware {
+
+    private ApplicationEventPublisher publisher;
 
     public MessageListDaoImpl() {
         super(MessageList.class);
     }
 
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void persist(AbstractModel<?> o) {
+        super.persist(o);
+        publishTabAlertChange(o);
+        publishCaseloadSummaryChange(o);
+    }
+
+    @Override
+    public void merge(AbstractModel<?> o) {
+        super.merge(o);
+        publishTabAlertChange(o);
+        publishCaseloadSummaryChange(o);
+    }
+
+    @Override
+    public void remove(AbstractModel<?> o) {
+        super.remove(o);
+        publishTabAlertChange(o);
+        publishCaseloadSummaryChange(o);
+    }
+
+    private void publishTabAlertChange(AbstractModel<?> o) {
+        if (o instanceof MessageList && publisher != null) {
+            publisher.publishEvent(new TabAlertChangeEvent(o, TabAlertManager.Alert.MESSAGE, ((MessageList) o).getProviderNo()));
+        }
+    }
+
+    private void publishCaseloadSummaryChange(AbstractModel<?> o) {
+        if (o instanceof MessageList && publisher != null) {
+            // the patients the message is filed under are looked up when the summary is refreshed
+            publisher.publishEvent(new CaseloadSummaryChangeEvent(o, null, (int) ((MessageList) o).getMessage()));
+        }
+    }
+
     @Override
     public List<MessageList> findByProviderNoAndMessageNo(String providerNo, Long messageNo) {
         Query query = createQuery("msg", "msg.providerNo = ?1 AND msg.message = ?2");
@@ -31,16 +31,51 @@ import java.util.List;
 
 import javax.persistence.Query;
 
+import ca.openosp.openo.commn.model.AbstractModel;
 import ca.openosp.openo.commn.model.MsgDemoMap;
+import ca.openosp.openo.event.CaseloadSummaryChangeEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public class MsgDemoMapDaoImpl extends AbstractDaoImpl<MsgDemoMap> implements MsgDemoMapDao {
+public class MsgDemoMapDaoImpl extends AbstractDaoImpl<MsgDemoMap> implements MsgDemoMapDao, ApplicationEventPublisherAware {
+
+    private ApplicationEventPublisher publisher;
 
     public MsgDemoMapDaoImpl() {
         super(MsgDemoMap.class);
     }
 
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void persist(AbstractModel<?> o) {
+        super.persist(o);
+        publishCaseloadSummaryChange(o);
+    }
+
+    @Override
+    public void merge(AbstractModel<?> o) {
+        super.merge(o);
+        publishCaseloadSummaryChange(o);
+    }
+
+    @Override
+    public void remove(AbstractModel<?> o) {
+        super.remove(o);
+        publishCaseloadSummaryChange(o);
+    }
+
+    private void publishCaseloadSummaryChange(AbstractModel<?> o) {
+        if (o instanceof MsgDemoMap && publisher != null) {
+            publisher.publishEvent(new CaseloadSummaryChangeEvent(o, ((MsgDemoMap) o).getDemographic_no()));
+        }
+    }
+
     @Override
     public List<MsgDemoMap> findByDemographicNo(Integer demographicNo) {
         String sql = "select x from MsgDemoMap x where x.demographic_no=?1";
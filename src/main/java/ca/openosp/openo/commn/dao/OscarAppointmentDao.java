@@ -44,6 +44,19 @@ import ca.openosp.openo.commn.model.AppointmentArchive;
 
 public interface OscarAppointmentDao extends AbstractDao<Appointment> {
 
+    /**
+     * Saves a new appointment and writes its AppointmentCreated domain event in the same transaction.
+     */
+    public void persistAndPublish(Appointment appointment);
+
+    /**
+     * Saves the appointment and, when its status changed, writes an AppointmentStatusChange domain event
+     * carrying changedStatus in the same transaction.
+     *
+     * @param changedStatus the status reported to the listeners, null if the status didn't change
+     */
+    public void mergeAndPublish(Appointment appointment, String changedStatus);
+
     public boolean checkForConflict(Appointment appt);
 
     public List<Appointment> getAppointmentHistory(Integer demographicNo, Integer offset, Integer limit);
@@ -30,11 +30,18 @@ package ca.openosp.openo.commn.dao;
 import org.apache.commons.lang3.StringUtils;
 import ca.openosp.openo.PMmodule.model.Program;
 import ca.openosp.openo.commn.NativeSql;
+import ca.openosp.openo.commn.model.AbstractModel;
 import ca.openosp.openo.commn.model.Appointment;
 import ca.openosp.openo.commn.model.AppointmentArchive;
+import ca.openosp.openo.commn.model.DomainEvent;
 import ca.openosp.openo.commn.model.Facility;
+import ca.openosp.openo.event.CaseloadSummaryChangeEvent;
+import ca.openosp.openo.managers.DomainEventManager;
 import ca.openosp.openo.utility.MiscUtils;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Repository;
 import ca.openosp.openo.util.UtilDateUtilities;
 
@@ -44,12 +51,65 @@ import java.util.Map.Entry;
 
 @Repository
 @SuppressWarnings("unchecked")
-public class OscarAppointmentDaoImpl extends AbstractDaoImpl<Appointment> implements OscarAppointmentDao {
+public class OscarAppointmentDaoImpl extends AbstractDaoImpl<Appointment> implements OscarAppointmentDao, ApplicationEventPublisherAware {
+
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private DomainEventManager domainEventManager;
 
     public OscarAppointmentDaoImpl() {
         super(Appointment.class);
     }
 
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void persist(AbstractModel<?> o) {
+        super.persist(o);
+        publishCaseloadSummaryChange(o);
+    }
+
+    @Override
+    public void merge(AbstractModel<?> o) {
+        super.merge(o);
+        publishCaseloadSummaryChange(o);
+    }
+
+    @Override
+    public void remove(AbstractModel<?> o) {
+        super.remove(o);
+        publishCaseloadSummaryChange(o);
+    }
+
+    @Override
+    public void persistAndPublish(Appointment appointment) {
+        persist(appointment);
+        Map<String, String> payload = new HashMap<String, String>();
+        payload.put("provider_no", appointment.getProviderNo());
+        domainEventManager.publish(DomainEvent.APPOINTMENT_CREATED, String.valueOf(appointment.getId()), payload);
+    }
+
+    @Override
+    public void mergeAndPublish(Appointment appointment, String changedStatus) {
+        merge(appointment);
+        if (changedStatus != null) {
+            Map<String, String> payload = new HashMap<String, String>();
+            payload.put("provider_no", appointment.getProviderNo());
+            payload.put("status", changedStatus);
+            domainEventManager.publish(DomainEvent.APPOINTMENT_STATUS_CHANGE, String.valueOf(appointment.getId()), payload);
+        }
+    }
+
+    private void publishCaseloadSummaryChange(AbstractModel<?> o) {
+        if (o instanceof Appointment && publisher != null) {
+            publisher.publishEvent(new CaseloadSummaryChangeEvent(o, ((Appointment) o).getDemographicNo()));
+        }
+    }
+
     @Override
     public boolean checkForConflict(Appointment appt) {
         String sb = "select a from Appointment a where a.appointmentDate = ?1 and a.startTime >= ?2 and a.endTime <= ?3" +
@@ -0,0 +1,83 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.dao;
+
+import javax.persistence.Query;
+
+import ca.openosp.openo.commn.model.OscarJobLease;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class OscarJobLeaseDaoImpl extends AbstractDaoImpl<OscarJobLease> implements OscarJobLeaseDao {
+
+    public OscarJobLeaseDaoImpl() {
+        super(OscarJobLease.class);
+    }
+
+    @Override
+    public boolean acquire(String name, String owner, int leaseSeconds, boolean evenIfPaused) {
+        insertIfMissing(name);
+
+        Query query = entityManager.createNativeQuery("update OscarJobLease set owner = ?2, leaseUntil = date_add(now(), interval ?3 second)"
+                + " where name = ?1" + (evenIfPaused ? "" : " and paused = 0") + " and (owner is null or leaseUntil is null or leaseUntil < now() or owner = ?2)");
+        query.setParameter(1, name);
+        query.setParameter(2, owner);
+        query.setParameter(3, leaseSeconds);
+        return query.executeUpdate() == 1;
+    }
+
+    @Override
+    public void renew(String name, String owner, int leaseSeconds) {
+        Query query = entityManager.createNativeQuery("update OscarJobLease set leaseUntil = date_add(now(), interval ?3 second) where name = ?1 and owner = ?2");
+        query.setParameter(1, name);
+        query.setParameter(2, owner);
+        query.setParameter(3, leaseSeconds);
+        query.executeUpdate();
+    }
+
+    @Override
+    public void release(String name, String owner) {
+        Query query = entityManager.createNativeQuery("update OscarJobLease set owner = null, leaseUntil = null where name = ?1 and owner = ?2");
+        query.setParameter(1, name);
+        query.setParameter(2, owner);
+        query.executeUpdate();
+    }
+
+    @Override
+    public void setPaused(String name, boolean paused) {
+        insertIfMissing(name);
+
+        Query query = entityManager.createNativeQuery("update OscarJobLease set paused = ?2 where name = ?1");
+        query.setParameter(1, name);
+        query.setParameter(2, paused);
+        query.executeUpdate();
+    }
+
+    private void insertIfMissing(String name) {
+        Query query = entityManager.createNativeQuery("insert ignore into OscarJobLease (name, paused) values (?1, 0)");
+        query.setParameter(1, name);
+        query.executeUpdate();
+    }
+}
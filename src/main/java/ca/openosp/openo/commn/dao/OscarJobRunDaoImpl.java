@@ -0,0 +1,69 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.Query;
+
+import ca.openosp.openo.commn.model.OscarJobRun;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class OscarJobRunDaoImpl extends AbstractDaoImpl<OscarJobRun> implements OscarJobRunDao {
+
+    public OscarJobRunDaoImpl() {
+        super(OscarJobRun.class);
+    }
+
+    @Override
+    public List<OscarJobRun> findByName(String name, int startPosition, int itemsToReturn) {
+        Query query = entityManager.createQuery("select x from " + modelClass.getSimpleName() + " x where x.name = ?1 order by x.started desc, x.id desc");
+        query.setParameter(1, name);
+        setLimit(query, startPosition, itemsToReturn);
+
+        @SuppressWarnings("unchecked")
+        List<OscarJobRun> results = query.getResultList();
+        return results;
+    }
+
+    @Override
+    public List<OscarJobRun> findLatestRuns() {
+        Query query = entityManager.createQuery("select x from " + modelClass.getSimpleName() + " x where x.id in (select max(y.id) from "
+                + modelClass.getSimpleName() + " y group by y.name) order by x.name");
+
+        @SuppressWarnings("unchecked")
+        List<OscarJobRun> results = query.getResultList();
+        return results;
+    }
+
+    @Override
+    public int deleteStartedBefore(Date date) {
+        Query query = entityManager.createQuery("delete from " + modelClass.getSimpleName() + " x where x.started < ?1");
+        query.setParameter(1, date);
+        return query.executeUpdate();
+    }
+}
@@ -51,15 +51,23 @@ public interface OscarLogDao extends AbstractDao<OscarLog> {
 
     public List<Integer> getDemographicIdsOpenedSinceTime(Date value);
 
-    public List<Integer> getRecentDemographicsAccessedByProvider(String providerNo, int startPosition,
-                                                                 int itemsToReturn);
-
-    public List<Object[]> getRecentDemographicsViewedByProvider(String providerNo, int startPosition,
-                                                                int itemsToReturn);
-
-    public List<Object[]> getRecentDemographicsViewedByProviderAfterDateIncluded(String providerNo, Date date,
-                                                                                 int startPosition, int itemsToReturn);
-
     public int purgeLogEntries(Date maxDateToRemove);
 
+    /**
+     * @return the highest id of a log entry created on or before maxDate, or null if there is none
+     */
+    public Long findMaxIdCreatedOnOrBefore(Date maxDate);
+
+    /**
+     * Reads, in id order, up to limit log entries with afterId &lt; id &lt;= maxId created on or before maxDate.
+     *
+     * @return List of Object array [id, dateTime, provider_no, action, content, contentId, ip, demographic_no, data, securityId]
+     */
+    public List<Object[]> findEntriesForArchive(long afterId, long maxId, Date maxDate, int limit);
+
+    /*
+     * Warning. Don't use this. It's only for the log purging feature.
+     */
+    public int purgeLogEntries(long fromId, long toId, Date maxDateToRemove);
+
 }
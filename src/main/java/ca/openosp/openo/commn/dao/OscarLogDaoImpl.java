@@ -159,82 +159,60 @@ public class OscarLogDaoImpl extends AbstractDaoImpl<OscarLog> implements OscarL
         return (results);
     }
 
+    /*
+     * Warning. Don't use this. It's only for the log purging feature.
+     */
     @Override
-    public List<Integer> getRecentDemographicsAccessedByProvider(String providerNo, int startPosition,
-                                                                 int itemsToReturn) {
-        String sqlCommand = "select distinct demographicId from " + modelClass.getSimpleName() + " l where l.providerNo = ?1 and l.demographicId is not null and l.demographicId != '-1' order by dateTime desc";
+    public int purgeLogEntries(Date maxDateToRemove) {
+        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+        String sqlCommand = "delete from " + modelClass.getSimpleName() + " WHERE dateTime <= ?1";
 
         Query query = entityManager.createQuery(sqlCommand);
-        query.setParameter(1, providerNo);
-        query.setFirstResult(startPosition);
-        setLimit(query, itemsToReturn);
+        query.setParameter(1, formatter.format(maxDateToRemove));
+        int ret = query.executeUpdate();
 
-        @SuppressWarnings("unchecked")
-        List<Integer> results = query.getResultList();
+        return ret;
 
-        return (results);
     }
 
-    /**
-     * @param providerNo
-     * @param startPosition
-     * @param itemsToReturn
-     * @return List of Object array [demographicId (Integer), lastDateViewed Date]
-     */
     @Override
-    public List<Object[]> getRecentDemographicsViewedByProvider(String providerNo, int startPosition,
-                                                                int itemsToReturn) {
-        String sqlCommand = "select l.demographicId,MAX(l.created) as dt from " + modelClass.getSimpleName() + " l where l.providerNo = ?1 and l.demographicId is not null and l.demographicId != '-1' group by l.demographicId order by MAX(l.created) desc";
-
-        Query query = entityManager.createQuery(sqlCommand);
-        query.setParameter(1, providerNo);
-        query.setFirstResult(startPosition);
-        setLimit(query, itemsToReturn);
+    public Long findMaxIdCreatedOnOrBefore(Date maxDate) {
+        Query query = entityManager.createQuery("select max(x.id) from " + modelClass.getSimpleName() + " x where x.created <= ?1");
+        query.setParameter(1, maxDate);
 
-        @SuppressWarnings("unchecked")
-        List<Object[]> results = query.getResultList();
-
-        return (results);
+        return (Long) query.getSingleResult();
     }
 
-    /**
-     * @param providerNo
-     * @param startPosition
-     * @param itemsToReturn
-     * @return List of Object array [demographicId (Integer), lastDateViewed Date]
-     */
     @Override
-    public List<Object[]> getRecentDemographicsViewedByProviderAfterDateIncluded(String providerNo, Date date,
-                                                                                 int startPosition, int itemsToReturn) {
-        String sqlCommand = "select l.demographicId,MAX(l.created) as dt from " + modelClass.getSimpleName() + " l where l.providerNo = ?1 and l.created >= ?2 and l.demographicId is not null and l.demographicId != '-1' group by l.demographicId order by MAX(l.created) desc";
+    public List<Object[]> findEntriesForArchive(long afterId, long maxId, Date maxDate, int limit) {
+        String sqlCommand = "select id, dateTime, provider_no, action, content, contentId, ip, demographic_no, data, securityId from log where id > ?1 and id <= ?2 and dateTime <= ?3 order by id";
 
-        Query query = entityManager.createQuery(sqlCommand);
-        query.setParameter(1, providerNo);
-        query.setParameter(2, date);
-        query.setFirstResult(startPosition);
-        setLimit(query, itemsToReturn);
+        Query query = entityManager.createNativeQuery(sqlCommand);
+        query.setParameter(1, afterId);
+        query.setParameter(2, maxId);
+        query.setParameter(3, maxDate);
+        setLimit(query, limit);
 
         @SuppressWarnings("unchecked")
         List<Object[]> results = query.getResultList();
 
-        return (results);
+        return results;
     }
 
     /*
      * Warning. Don't use this. It's only for the log purging feature.
      */
     @Override
-    public int purgeLogEntries(Date maxDateToRemove) {
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    public int purgeLogEntries(long fromId, long toId, Date maxDateToRemove) {
+        String sqlCommand = "delete from log where id >= ?1 and id <= ?2 and dateTime <= ?3";
 
-        String sqlCommand = "delete from " + modelClass.getSimpleName() + " WHERE dateTime <= ?1";
-
-        Query query = entityManager.createQuery(sqlCommand);
-        query.setParameter(1, formatter.format(maxDateToRemove));
-        int ret = query.executeUpdate();
-
-        return ret;
+        Query query = entityManager.createNativeQuery(sqlCommand);
+        query.setParameter(1, fromId);
+        query.setParameter(2, toId);
+        query.setParameter(3, maxDateToRemove);
 
+        return query.executeUpdate();
     }
 
     @Override
@@ -0,0 +1,92 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.dao;
+
+import java.util.List;
+
+import javax.persistence.Query;
+
+import ca.openosp.openo.commn.model.ProgramDomainClient;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ProgramDomainClientDaoImpl extends AbstractDaoImpl<ProgramDomainClient> implements ProgramDomainClientDao {
+
+    // every admission, current or not, puts the client in the domain of the program's providers
+    private static final String INSERT_DOMAIN_CLIENTS = "INSERT IGNORE INTO program_domain_client (provider_no, demographic_no) "
+            + "SELECT DISTINCT pp.provider_no, a.client_id FROM program_provider pp JOIN admission a ON a.program_id = pp.program_id WHERE ";
+
+    public ProgramDomainClientDaoImpl() {
+        super(ProgramDomainClient.class);
+    }
+
+    @Override
+    public void refreshClients(List<Integer> demographicNos) {
+        if (demographicNos.isEmpty()) {
+            return;
+        }
+        Query q = entityManager.createNativeQuery("DELETE FROM program_domain_client WHERE demographic_no IN (?1)");
+        q.setParameter(1, demographicNos);
+        q.executeUpdate();
+
+        q = entityManager.createNativeQuery(INSERT_DOMAIN_CLIENTS + "a.client_id IN (?1)");
+        q.setParameter(1, demographicNos);
+        q.executeUpdate();
+    }
+
+    @Override
+    public void refreshClients(int fromDemographicNo, int toDemographicNo) {
+        Query q = entityManager.createNativeQuery("DELETE FROM program_domain_client WHERE demographic_no BETWEEN ?1 AND ?2");
+        q.setParameter(1, fromDemographicNo);
+        q.setParameter(2, toDemographicNo);
+        q.executeUpdate();
+
+        q = entityManager.createNativeQuery(INSERT_DOMAIN_CLIENTS + "a.client_id BETWEEN ?1 AND ?2");
+        q.setParameter(1, fromDemographicNo);
+        q.setParameter(2, toDemographicNo);
+        q.executeUpdate();
+    }
+
+    @Override
+    public void refreshProviders(List<String> providerNos) {
+        if (providerNos.isEmpty()) {
+            return;
+        }
+        Query q = entityManager.createNativeQuery("DELETE FROM program_domain_client WHERE provider_no IN (?1)");
+        q.setParameter(1, providerNos);
+        q.executeUpdate();
+
+        q = entityManager.createNativeQuery(INSERT_DOMAIN_CLIENTS + "pp.provider_no IN (?1)");
+        q.setParameter(1, providerNos);
+        q.executeUpdate();
+    }
+
+    @Override
+    public boolean hasProgramDomainClients() {
+        Query q = entityManager.createNativeQuery("SELECT provider_no FROM program_domain_client");
+        q.setMaxResults(1);
+        return !q.getResultList().isEmpty();
+    }
+}
@@ -54,6 +54,8 @@ public interface ProviderLabRoutingDao extends AbstractDao<ProviderLabRoutingMod
 
     public List<ProviderLabRoutingModel> findByProviderNo(String providerNo, String status);
 
+    public int countByProviderNo(String providerNo, String status);
+
     public List<ProviderLabRoutingModel> findByLabNoTypeAndStatus(int labId, String labType, String status);
 
     public List<Integer> findLastRoutingIdGroupedByProviderAndCreatedByDocCreator(String docCreator);
@@ -18,8 +18,13 @@ import java.util.List;
 import javax.persistence.Query;
 
 import ca.openosp.openo.commn.NativeSql;
+import ca.openosp.openo.commn.model.AbstractModel;
 import ca.openosp.openo.commn.model.Provider;
 import ca.openosp.openo.commn.model.ProviderLabRoutingModel;
+import ca.openosp.openo.event.TabAlertChangeEvent;
+import ca.openosp.openo.managers.TabAlertManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,7 +32,9 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 @SuppressWarnings("unchecked")
 public class ProviderLabRoutingDaoImpl extends AbstractDaoImpl<ProviderLabRoutingModel>
-        implements ProviderLabRoutingDao {
+        implements ProviderLabRoutingDao, ApplicationEventPublisherAware {
+
+    private ApplicationEventPublisher publisher;
 
     public enum LAB_TYPE {
         DOC, HL7
@@ -42,6 +49,35 @@ public class ProviderLabRoutingDaoImpl extends AbstractDaoImpl<ProviderLabRoutin
         super(ProviderLabRoutingModel.class);
     }
 
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void persist(AbstractModel<?> o) {
+        super.persist(o);
+        publishTabAlertChange(o);
+    }
+
+    @Override
+    public void merge(AbstractModel<?> o) {
+        super.merge(o);
+        publishTabAlertChange(o);
+    }
+
+    @Override
+    public void remove(AbstractModel<?> o) {
+        super.remove(o);
+        publishTabAlertChange(o);
+    }
+
+    private void publishTabAlertChange(AbstractModel<?> o) {
+        if (o instanceof ProviderLabRoutingModel && publisher != null) {
+            publisher.publishEvent(new TabAlertChangeEvent(o, TabAlertManager.Alert.LAB, ((ProviderLabRoutingModel) o).getProviderNo()));
+        }
+    }
+
     private List<ProviderLabRoutingModel> getProviderLabRoutings(Integer labNo, String labType, String providerNo,
                                                                  String status) {
         Query q = entityManager.createQuery("select x from " + modelClass.getName() + " x "
@@ -95,6 +131,10 @@ public class ProviderLabRoutingDaoImpl extends AbstractDaoImpl<ProviderLabRoutin
         query.setParameter(2, labType);
 
         query.executeUpdate();
+        if (publisher != null) {
+            // the providers the lab is routed to aren't known here
+            publisher.publishEvent(new TabAlertChangeEvent(this, TabAlertManager.Alert.LAB, null));
+        }
     }
 
     @Override
@@ -158,6 +198,14 @@ public class ProviderLabRoutingDaoImpl extends AbstractDaoImpl<ProviderLabRoutin
         return query.getResultList();
     }
 
+    @Override
+    public int countByProviderNo(String providerNo, String status) {
+        Query query = entityManager.createQuery("SELECT COUNT(p) FROM " + modelClass.getSimpleName() + " p WHERE p.providerNo = ?1 AND p.status = ?2");
+        query.setParameter(1, providerNo);
+        query.setParameter(2, status);
+        return ((Long) query.getSingleResult()).intValue();
+    }
+
     @Override
     public List<ProviderLabRoutingModel> findByLabNoTypeAndStatus(int labId, String labType, String status) {
         Query query = createQuery("p", "p.labNo = ?1 AND p.status = ?2 AND p.labType = ?3");
@@ -0,0 +1,79 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.Query;
+
+import ca.openosp.openo.commn.model.RecentDemographicAccess;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class RecentDemographicAccessDaoImpl extends AbstractDaoImpl<RecentDemographicAccess> implements RecentDemographicAccessDao {
+
+    public RecentDemographicAccessDaoImpl() {
+        super(RecentDemographicAccess.class);
+    }
+
+    @Override
+    public void recordAccess(String providerNo, Integer demographicNo, Date accessed, int maxEntries) {
+        // log entries are written from several threads, let the unique key sort out concurrent views of the same patient
+        Query query = entityManager.createNativeQuery("insert into recent_demographic_access (provider_no, demographic_no, last_access) values (?1, ?2, ?3)"
+                + " on duplicate key update last_access = greatest(last_access, values(last_access))");
+        query.setParameter(1, providerNo);
+        query.setParameter(2, demographicNo);
+        query.setParameter(3, accessed);
+        query.executeUpdate();
+
+        // patients opened in the same second share a timestamp, so the rows past the newest maxEntries are removed by id
+        query = entityManager.createQuery("select x.id from " + modelClass.getSimpleName() + " x where x.providerNo = ?1 order by x.lastAccess desc, x.id desc");
+        query.setParameter(1, providerNo);
+        query.setFirstResult(maxEntries);
+        @SuppressWarnings("unchecked")
+        List<Integer> expired = query.getResultList();
+        if (expired.isEmpty()) return;
+
+        query = entityManager.createQuery("delete from " + modelClass.getSimpleName() + " x where x.id in (?1)");
+        query.setParameter(1, expired);
+        query.executeUpdate();
+    }
+
+    @Override
+    public List<RecentDemographicAccess> findByProviderNo(String providerNo, Date since, int startPosition, int itemsToReturn) {
+        String sqlCommand = "select x from " + modelClass.getSimpleName() + " x where x.providerNo = ?1" + (since != null ? " and x.lastAccess >= ?2" : "") + " order by x.lastAccess desc, x.id desc";
+
+        Query query = entityManager.createQuery(sqlCommand);
+        query.setParameter(1, providerNo);
+        if (since != null) query.setParameter(2, since);
+        query.setFirstResult(startPosition);
+        setLimit(query, itemsToReturn);
+
+        @SuppressWarnings("unchecked")
+        List<RecentDemographicAccess> results = query.getResultList();
+        return results;
+    }
+}
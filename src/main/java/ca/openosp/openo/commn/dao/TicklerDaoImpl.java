@@ -39,21 +39,69 @@ import java.util.stream.Collectors;
 
 import javax.persistence.Query;
 
+import ca.openosp.openo.commn.model.AbstractModel;
 import ca.openosp.openo.commn.model.CustomFilter;
 import ca.openosp.openo.commn.model.Provider;
 import ca.openosp.openo.commn.model.Tickler;
+import ca.openosp.openo.event.CaseloadSummaryChangeEvent;
+import ca.openosp.openo.event.TabAlertChangeEvent;
+import ca.openosp.openo.managers.TabAlertManager;
 import ca.openosp.openo.tickler.dto.TicklerCommentDTO;
 import ca.openosp.openo.tickler.dto.TicklerLinkDTO;
 import ca.openosp.openo.tickler.dto.TicklerListDTO;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public class TicklerDaoImpl extends AbstractDaoImpl<Tickler> implements TicklerDao {
+public class TicklerDaoImpl extends AbstractDaoImpl<Tickler> implements TicklerDao, ApplicationEventPublisherAware {
+
+    private ApplicationEventPublisher publisher;
 
     public TicklerDaoImpl() {
         super(Tickler.class);
     }
 
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void persist(AbstractModel<?> o) {
+        super.persist(o);
+        publishTabAlertChange(o);
+        publishCaseloadSummaryChange(o);
+    }
+
+    @Override
+    public void merge(AbstractModel<?> o) {
+        super.merge(o);
+        publishTabAlertChange(o);
+        publishCaseloadSummaryChange(o);
+    }
+
+    @Override
+    public void remove(AbstractModel<?> o) {
+        super.remove(o);
+        publishTabAlertChange(o);
+        publishCaseloadSummaryChange(o);
+    }
+
+    private void publishTabAlertChange(AbstractModel<?> o) {
+        if (o instanceof Tickler && publisher != null) {
+            // ticklers assigned to all providers count for everyone
+            String assignedTo = ((Tickler) o).getTaskAssignedTo();
+            publisher.publishEvent(new TabAlertChangeEvent(o, TabAlertManager.Alert.TICKLER, "All Providers".equals(assignedTo) ? null : assignedTo));
+        }
+    }
+
+    private void publishCaseloadSummaryChange(AbstractModel<?> o) {
+        if (o instanceof Tickler && publisher != null) {
+            publisher.publishEvent(new CaseloadSummaryChangeEvent(o, ((Tickler) o).getDemographicNo()));
+        }
+    }
+
     @Override
     public Tickler find(Integer id) {
         Tickler tickler = super.find(id);
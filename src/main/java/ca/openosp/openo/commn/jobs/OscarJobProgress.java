@@ -0,0 +1,58 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.jobs;
+
+/**
+ * Lets a job report how much work a run did, the count is stored with the run's history. Calls from outside a
+ * scheduled run are ignored, and the runs of a job that reports nothing have no count.
+ */
+public final class OscarJobProgress {
+
+    private static final ThreadLocal<Integer[]> rowsProcessed = new ThreadLocal<Integer[]>();
+
+    private OscarJobProgress() {
+    }
+
+    public static void addRowsProcessed(int rows) {
+        Integer[] counter = rowsProcessed.get();
+        if (counter != null) counter[0] = (counter[0] != null ? counter[0] : 0) + rows;
+    }
+
+    /**
+     * Called by the scheduler around each run.
+     */
+    public static void begin() {
+        rowsProcessed.set(new Integer[1]);
+    }
+
+    /**
+     * @return the rows reported since {@link #begin()}, null if the job reported none
+     */
+    public static Integer end() {
+        Integer[] counter = rowsProcessed.get();
+        rowsProcessed.remove();
+        return counter != null ? counter[0] : null;
+    }
+}
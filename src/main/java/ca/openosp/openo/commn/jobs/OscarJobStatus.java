@@ -0,0 +1,120 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.jobs;
+
+import java.util.Date;
+
+import ca.openosp.openo.commn.model.OscarJobRun;
+
+/**
+ * What the scheduler knows about one background job, for the job admin screens.
+ */
+public class OscarJobStatus {
+
+    private String name;
+    private String schedule;
+    private Date nextRun;
+    private boolean paused;
+    private boolean running;
+    private String leaseOwner;
+    private Date leaseUntil;
+    private OscarJobRun lastRun;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the cron expression or fixed delay the job runs on
+     */
+    public String getSchedule() {
+        return schedule;
+    }
+
+    public void setSchedule(String schedule) {
+        this.schedule = schedule;
+    }
+
+    /**
+     * @return when this server next runs the job, null if it isn't scheduled here
+     */
+    public Date getNextRun() {
+        return nextRun;
+    }
+
+    public void setNextRun(Date nextRun) {
+        this.nextRun = nextRun;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * @return true if the job is running on this server
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    /**
+     * @return the server running the job, null if it isn't running anywhere
+     */
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public Date getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(Date leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public OscarJobRun getLastRun() {
+        return lastRun;
+    }
+
+    public void setLastRun(OscarJobRun lastRun) {
+        this.lastRun = lastRun;
+    }
+}
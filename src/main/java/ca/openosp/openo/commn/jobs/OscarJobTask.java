@@ -0,0 +1,83 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.jobs;
+
+/**
+ * A background task for {@link ca.openosp.openo.managers.OscarJobSchedulerManager} declared in a Spring context.
+ * The task runs with a fixed delay between the end of one run and the start of the next.
+ * <pre>
+ * &lt;bean class="ca.openosp.openo.commn.jobs.OscarJobTask"&gt;
+ *     &lt;property name="name" value="OLISSchedulerJob" /&gt;
+ *     &lt;property name="delay" value="1000" /&gt;
+ *     &lt;property name="period" value="60000" /&gt;
+ *     &lt;property name="runnable" ref="olisScheduledPullTask" /&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ */
+public class OscarJobTask {
+
+    private String name;
+    private Runnable runnable;
+    private long delay = 0;
+    private long period;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Runnable getRunnable() {
+        return runnable;
+    }
+
+    public void setRunnable(Runnable runnable) {
+        this.runnable = runnable;
+    }
+
+    /**
+     * @return milliseconds before the first run
+     */
+    public long getDelay() {
+        return delay;
+    }
+
+    public void setDelay(long delay) {
+        this.delay = delay;
+    }
+
+    /**
+     * @return milliseconds between runs
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(long period) {
+        this.period = period;
+    }
+}
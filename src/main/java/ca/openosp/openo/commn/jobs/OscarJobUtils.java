@@ -32,9 +32,8 @@ import ca.openosp.openo.commn.model.OscarJob;
 import ca.openosp.openo.commn.model.OscarJobType;
 import ca.openosp.openo.commn.model.Provider;
 import ca.openosp.openo.commn.model.Security;
+import ca.openosp.openo.managers.OscarJobSchedulerManager;
 import ca.openosp.openo.utility.SpringUtils;
-import org.springframework.scheduling.TaskScheduler;
-import org.springframework.scheduling.support.CronTrigger;
 
 public class OscarJobUtils {
 
@@ -76,13 +75,9 @@ public class OscarJobUtils {
         OscarJobDao oscarJobDao = SpringUtils.getBean(OscarJobDao.class);
 
 
-        for (Integer jobId : OscarJobExecutingManager.getFutures().keySet()) {
-            ScheduledFuture<Object> future = OscarJobExecutingManager.getFutures().get(jobId);
-            if (future != null) {
-                future.cancel(false);
-            }
+        for (Integer jobId : OscarJobExecutingManager.getFutures().keySet().toArray(new Integer[0])) {
+            unscheduleJob(jobId, false);
         }
-        OscarJobExecutingManager.getFutures().clear();
 
 
         for (OscarJob job : oscarJobDao.findAll(0, OscarJobDao.MAX_LIST_RETURN_SIZE)) {
@@ -93,15 +88,10 @@ public class OscarJobUtils {
 
 
     public static boolean scheduleJob(OscarJob job) throws Exception {
-        //SpringTaskScheduler
-        TaskScheduler taskScheduler = (TaskScheduler) SpringUtils.getBean(TaskScheduler.class);
-        OscarJobDao oscarJobDao = SpringUtils.getBean(OscarJobDao.class);
+        OscarJobSchedulerManager jobScheduler = SpringUtils.getBean(OscarJobSchedulerManager.class);
         ProviderDao providerDao = SpringUtils.getBean(ProviderDao.class);
 
-        ScheduledFuture<Object> future = OscarJobExecutingManager.getFutures().get(job.getId());
-        if (future != null) {
-            future.cancel(false);
-        }
+        unscheduleJob(job.getId(), false);
 
         if (!job.isEnabled()) {
             return false;
@@ -113,8 +103,6 @@ public class OscarJobUtils {
             return false;
         }
 
-        CronTrigger trigger = new CronTrigger(job.getCronExpression());
-
         OscarRunnable oscarRunnableInstance = (OscarRunnable) Class.forName(job.getOscarJobType().getClassName()).newInstance();
 
         Security security = new Security();
@@ -128,7 +116,8 @@ public class OscarJobUtils {
         oscarRunnableInstance.setLoggedInProvider(provider);
         oscarRunnableInstance.setConfig(job.getConfig());
 
-        ScheduledFuture<Object> schedulefuture = (ScheduledFuture<Object>) taskScheduler.schedule(oscarRunnableInstance, trigger);
+        @SuppressWarnings("unchecked")
+        ScheduledFuture<Object> schedulefuture = (ScheduledFuture<Object>) jobScheduler.schedule(getJobName(job.getId()), oscarRunnableInstance, job.getCronExpression());
         //cancel,isCancelled, isDone
 
         OscarJobExecutingManager.getFutures().put(job.getId(), schedulefuture);
@@ -136,4 +125,17 @@ public class OscarJobUtils {
         return true;
     }
 
+    public static void unscheduleJob(Integer jobId, boolean mayInterruptIfRunning) {
+        OscarJobSchedulerManager jobScheduler = SpringUtils.getBean(OscarJobSchedulerManager.class);
+        jobScheduler.unschedule(getJobName(jobId), mayInterruptIfRunning);
+        OscarJobExecutingManager.getFutures().remove(jobId);
+    }
+
+    /**
+     * @return the name the job's runs are recorded under by the job scheduler
+     */
+    public static String getJobName(Integer jobId) {
+        return "OscarJob." + jobId;
+    }
+
 }
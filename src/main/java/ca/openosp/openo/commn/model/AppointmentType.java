@@ -24,6 +24,11 @@ package ca.openosp.openo.commn.model;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Entity
 @Table(name = "appointmentType")
 public class AppointmentType extends AbstractModel<Integer> {
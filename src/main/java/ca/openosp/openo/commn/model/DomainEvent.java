@@ -0,0 +1,100 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.model;
+
+import java.util.Date;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * An event written to the outbox by DomainEventManager in the transaction of the change that raised it.
+ * Events of one aggregate are delivered to each listener in the order they were written.
+ */
+@Entity
+public class DomainEvent extends AbstractModel<Long> {
+
+    public static final String APPOINTMENT_CREATED = "AppointmentCreated";
+    public static final String APPOINTMENT_STATUS_CHANGE = "AppointmentStatusChange";
+    public static final String DEMOGRAPHIC_CREATE = "DemographicCreate";
+    public static final String DEMOGRAPHIC_UPDATE = "DemographicUpdate";
+    public static final String CLIENT_CREATED = "ClientCreated";
+    public static final String VACANCY_CREATED = "VacancyCreated";
+    public static final String VACANCY_UPDATED = "VacancyUpdated";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String eventType;
+
+    private String aggregateId;
+
+    private String payload;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date created;
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getAggregateId() {
+        return aggregateId;
+    }
+
+    public void setAggregateId(String aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(Date created) {
+        this.created = created;
+    }
+}
@@ -29,6 +29,7 @@ package ca.openosp.openo.commn.model;
 import java.io.Serializable;
 import java.util.Date;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -37,6 +38,9 @@ import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import org.apache.commons.lang3.StringUtils;
 
 /**
@@ -70,6 +74,8 @@ import org.apache.commons.lang3.StringUtils;
  * @see MeasurementMap
  * @see ca.openosp.openo.encounter.oscarMeasurements.data.MeasurementTypes
  */
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Entity
 @Table(name = "measurementType")
 public class MeasurementType extends AbstractModel<Integer> implements Serializable {
@@ -0,0 +1,80 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.model;
+
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+@Embeddable
+public class ProgramDomainClientPK implements java.io.Serializable {
+
+    @Column(name = "provider_no")
+    private String providerNo;
+    @Column(name = "demographic_no")
+    private int demographicNo;
+
+    public ProgramDomainClientPK() {
+
+    }
+
+    public ProgramDomainClientPK(String providerNo, int demographicNo) {
+        this.providerNo = providerNo;
+        this.demographicNo = demographicNo;
+    }
+
+    public String getProviderNo() {
+        return providerNo;
+    }
+
+    public void setProviderNo(String providerNo) {
+        this.providerNo = providerNo;
+    }
+
+    public int getDemographicNo() {
+        return demographicNo;
+    }
+
+    public void setDemographicNo(int demographicNo) {
+        this.demographicNo = demographicNo;
+    }
+
+    public String toString() {
+        return ("providerNo=" + providerNo + ", demographicNo=" + demographicNo);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(providerNo, demographicNo);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ProgramDomainClientPK)) return false;
+        ProgramDomainClientPK o1 = (ProgramDomainClientPK) o;
+        return Objects.equals(providerNo, o1.providerNo) && demographicNo == o1.demographicNo;
+    }
+}
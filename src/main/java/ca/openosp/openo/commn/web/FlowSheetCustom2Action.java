@@ -284,6 +284,7 @@ public class FlowSheetCustom2Action extends ActionSupport {
                 logger.debug("SAVE " + cust);
 
                 flowSheetCustomizationDao.persist(cust);
+                MeasurementTemplateFlowSheetConfig.getInstance().invalidateCompiledFlowsheets(cust.getFlowsheet());
 
             }
         }
@@ -412,6 +413,7 @@ public class FlowSheetCustom2Action extends ActionSupport {
             logger.debug("UPDATE " + cust);
 
             flowSheetCustomizationDao.persist(cust);
+            MeasurementTemplateFlowSheetConfig.getInstance().invalidateCompiledFlowsheets(cust.getFlowsheet());
 
         }
         request.setAttribute("demographic", demographicNo);
@@ -441,6 +443,7 @@ public class FlowSheetCustom2Action extends ActionSupport {
         cust.setDemographicNo(ctx.demographicNo);
 
         flowSheetCustomizationDao.persist(cust);
+        MeasurementTemplateFlowSheetConfig.getInstance().invalidateCompiledFlowsheets(cust.getFlowsheet());
         logger.debug("HIDE " + cust);
 
         setResponseAttributes(ctx);
@@ -476,6 +479,7 @@ public class FlowSheetCustom2Action extends ActionSupport {
         for (FlowSheetCustomization cust : customizations) {
             if (FlowSheetCustomization.DELETE.equals(cust.getAction()) && ctx.measurement.equals(cust.getMeasurement())) {
                 flowSheetCustomizationDao.remove(cust.getId());
+                MeasurementTemplateFlowSheetConfig.getInstance().invalidateCompiledFlowsheets(cust.getFlowsheet());
             }
         }
 
@@ -514,6 +518,7 @@ public class FlowSheetCustom2Action extends ActionSupport {
                 cust.setArchived(true);
                 cust.setArchivedDate(new Date());
                 flowSheetCustomizationDao.merge(cust);
+                MeasurementTemplateFlowSheetConfig.getInstance().invalidateCompiledFlowsheets(cust.getFlowsheet());
                 logger.info("Reverted UPDATE customization {} for measurement {}",
                     cust.getId(), ctx.measurement);
             }
@@ -553,6 +558,7 @@ public class FlowSheetCustom2Action extends ActionSupport {
             cust.setArchived(true);
             cust.setArchivedDate(new Date());
             flowSheetCustomizationDao.merge(cust);
+            MeasurementTemplateFlowSheetConfig.getInstance().invalidateCompiledFlowsheets(cust.getFlowsheet());
         }
         logger.debug("archiveMod " + cust);
 
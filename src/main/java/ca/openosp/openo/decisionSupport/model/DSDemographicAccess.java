@@ -32,7 +32,6 @@
 package ca.openosp.openo.decisionSupport.model;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Date;
 import java.util.Hashtable;
 import java.util.List;
@@ -40,8 +39,6 @@ import java.util.Map;
 
 import ca.openosp.openo.commn.model.Demographic;
 import org.apache.logging.log4j.Logger;
-import ca.openosp.openo.casemgmt.dao.CaseManagementNoteDAO;
-import ca.openosp.openo.casemgmt.model.CaseManagementNote;
 import ca.openosp.openo.commn.dao.BillingONCHeader1Dao;
 import ca.openosp.openo.commn.dao.FlowSheetCustomizationDao;
 import ca.openosp.openo.commn.model.FlowSheetCustomization;
@@ -57,8 +54,6 @@ import ca.openosp.openo.encounter.oscarMeasurements.MeasurementFlowSheet;
 import ca.openosp.openo.encounter.oscarMeasurements.MeasurementInfo;
 import ca.openosp.openo.encounter.oscarMeasurements.MeasurementTemplateFlowSheetConfig;
 import ca.openosp.openo.dxresearch.bean.dxResearchBean;
-import ca.openosp.openo.dxresearch.bean.dxResearchBeanHandler;
-import ca.openosp.openo.prescript.data.RxPrescriptionData;
 import ca.openosp.openo.prescript.data.RxPrescriptionData.Prescription;
 
 /**
@@ -104,10 +99,24 @@ public class DSDemographicAccess {
     private List<Prescription> prescriptionData;
 
     private LoggedInInfo loggedInInfo;
+    private DSPatientFacts facts;
 
     public DSDemographicAccess(LoggedInInfo loggedInInfo, String demographicNo) {
+        this(loggedInInfo, new DSPatientFacts(demographicNo));
+    }
+
+    /**
+     * @param facts the patient's data, shared with the other guidelines evaluated for the patient
+     */
+    public DSDemographicAccess(LoggedInInfo loggedInInfo, DSPatientFacts facts) {
         this.loggedInInfo = loggedInInfo;
-        this.demographicNo = demographicNo;
+        this.demographicNo = facts.getDemographicNo();
+        this.facts = facts;
+    }
+
+    public DSDemographicAccess(LoggedInInfo loggedInInfo, DSPatientFacts facts, String providerNo) {
+        this(loggedInInfo, facts);
+        this.providerNo = providerNo;
     }
 
     public DSDemographicAccess(LoggedInInfo loggedInInfo, String demographicNo, String providerNo) {
@@ -226,9 +235,7 @@ public class DSDemographicAccess {
 
 
     public List<dxResearchBean> getDxCodes() {
-        dxResearchBeanHandler handler = new dxResearchBeanHandler(demographicNo);
-        List<dxResearchBean> dxCodes = handler.getDxResearchBeanVector();
-        return dxCodes;
+        return facts.getDxCodes();
     }
 
     public String getDxCodesStr() {
@@ -288,14 +295,7 @@ public class DSDemographicAccess {
 
     public List<Prescription> getRxCodes() {
         logger.debug("GET RX CODES CALLED");
-        try {
-            Prescription[] prescriptions = new RxPrescriptionData().getActivePrescriptionsByPatient(Integer.parseInt(this.demographicNo));
-            List<Prescription> prescribedDrugs = Arrays.asList(prescriptions);
-            return prescribedDrugs;
-        } catch (NumberFormatException nfe) {
-            logger.error("Decision Support Exception, could not format demographicNo: " + demographicNo);
-        }
-        return new ArrayList<Prescription>();
+        return facts.getPrescriptions();
     }
 
     //generally for testing
@@ -460,10 +460,7 @@ public class DSDemographicAccess {
 
 
     public boolean noteContains(DSValue searchValue) {
-        CaseManagementNoteDAO dao = (CaseManagementNoteDAO) SpringUtils.getBean(CaseManagementNoteDAO.class);
-        List<CaseManagementNote> notes = dao.searchDemographicNotes(demographicNo, "%" + searchValue.getValue() + "%");
-        if (notes != null && notes.size() > 0) return true;
-        else return false;
+        return facts.noteContains(searchValue.getValue());
     }
 
     public boolean noteContainsAny(String searchStrings) {
@@ -500,8 +497,7 @@ public class DSDemographicAccess {
         flowsheetId = flowsheetId.replaceAll("'", "");
         FlowSheetCustomizationDao flowSheetCustomizationDao = (FlowSheetCustomizationDao) SpringUtils.getBean(FlowSheetCustomizationDao.class);
 
-        dxResearchBeanHandler dxRes = new dxResearchBeanHandler(demographicNo);
-        List<String> dxCodes = dxRes.getActiveCodeListWithCodingSystem();
+        List<String> dxCodes = facts.getActiveDxCodesWithCodingSystem();
         MeasurementTemplateFlowSheetConfig templateConfig = MeasurementTemplateFlowSheetConfig.getInstance();
         ArrayList<String> flowsheets = templateConfig.getFlowsheetsFromDxCodes(dxCodes);
 
@@ -815,7 +811,7 @@ public class DSDemographicAccess {
      */
     public Demographic getDemographicData(LoggedInInfo loggedInInfo) {
         if (this.demographicData == null) {
-            this.demographicData = new DemographicData().getDemographic(loggedInInfo, demographicNo);
+            this.demographicData = facts.getDemographic(loggedInInfo);
         }
         return demographicData;
     }
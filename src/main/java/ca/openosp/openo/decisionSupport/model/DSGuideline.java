@@ -177,6 +177,19 @@ public abstract class DSGuideline extends AbstractModel<Integer> {
      */
     public abstract List<DSConsequence> evaluate(LoggedInInfo loggedInInfo, String demographicNo, String providerNo, List<Object> dynamicArgs) throws DecisionSupportException;
 
+    /**
+     * Evaluates this clinical guideline against a snapshot of the patient's data shared with the other
+     * guidelines evaluated for the patient.
+     *
+     * @param loggedInInfo LoggedInInfo session information for the evaluating provider
+     * @param facts DSPatientFacts the patient's data, read once for all the guidelines evaluated against it
+     * @param providerNo String provider identifier for provider-specific evaluation context, may be null
+     * @return List of DSConsequence objects representing triggered clinical recommendations or warnings, null if no conditions match
+     * @throws DecisionSupportException if evaluation fails due to data access or logic errors
+     * @see DSPatientFacts
+     */
+    public abstract List<DSConsequence> evaluate(LoggedInInfo loggedInInfo, DSPatientFacts facts, String providerNo) throws DecisionSupportException;
+
     /**
      * Evaluates this guideline and returns a simple boolean indicating if any conditions were met.
      * <p>
@@ -194,6 +207,16 @@ public abstract class DSGuideline extends AbstractModel<Integer> {
         return true;
     }
 
+    /**
+     * Parses the guideline so it can then be evaluated from several threads at once.
+     *
+     * @throws DecisionSupportException if the guideline can't be made ready for evaluation
+     */
+    public void prepare() throws DecisionSupportException {
+        getConditions();
+        getConsequences();
+    }
+
     private void tryParseFromXml() {
         try {
             this.parseFromXml();
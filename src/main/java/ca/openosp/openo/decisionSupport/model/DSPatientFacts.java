@@ -0,0 +1,125 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.decisionSupport.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.Logger;
+import ca.openosp.openo.casemgmt.dao.CaseManagementNoteDAO;
+import ca.openosp.openo.casemgmt.model.CaseManagementNote;
+import ca.openosp.openo.commn.model.Demographic;
+import ca.openosp.openo.demographic.data.DemographicData;
+import ca.openosp.openo.dxresearch.bean.dxResearchBean;
+import ca.openosp.openo.dxresearch.bean.dxResearchBeanHandler;
+import ca.openosp.openo.prescript.data.RxPrescriptionData;
+import ca.openosp.openo.prescript.data.RxPrescriptionData.Prescription;
+import ca.openosp.openo.utility.LoggedInInfo;
+import ca.openosp.openo.utility.MiscUtils;
+import ca.openosp.openo.utility.SpringUtils;
+
+/**
+ * The patient data decision support guidelines are evaluated against, shared by the {@link DSDemographicAccess}
+ * of every guideline evaluated for the patient in one go.
+ * <p>
+ * Each kind of data is read the first time a guideline condition asks for it and kept for the life of the
+ * snapshot, so a chart with twenty guidelines reads the patient's disease registry once instead of once per
+ * condition. Note searches are kept per search text. The getters are synchronized, guidelines may be evaluated
+ * against the same snapshot from several threads.
+ */
+public class DSPatientFacts {
+    private static final Logger logger = MiscUtils.getLogger();
+
+    private final String demographicNo;
+
+    private Demographic demographic;
+    private dxResearchBeanHandler dxResearch;
+    private List<Prescription> prescriptions;
+    private final Map<String, Boolean> noteSearches = new HashMap<String, Boolean>();
+
+    public DSPatientFacts(String demographicNo) {
+        this.demographicNo = demographicNo;
+    }
+
+    public String getDemographicNo() {
+        return demographicNo;
+    }
+
+    public synchronized Demographic getDemographic(LoggedInInfo loggedInInfo) {
+        if (demographic == null) {
+            demographic = new DemographicData().getDemographic(loggedInInfo, demographicNo);
+        }
+        return demographic;
+    }
+
+    public synchronized List<dxResearchBean> getDxCodes() {
+        return Collections.unmodifiableList(getDxResearch().getDxResearchBeanVector());
+    }
+
+    public synchronized List<String> getActiveDxCodesWithCodingSystem() {
+        return Collections.unmodifiableList(getDxResearch().getActiveCodeListWithCodingSystem());
+    }
+
+    private dxResearchBeanHandler getDxResearch() {
+        if (dxResearch == null) {
+            dxResearch = new dxResearchBeanHandler(demographicNo);
+        }
+        return dxResearch;
+    }
+
+    /**
+     * @return the patient's active prescriptions
+     */
+    public synchronized List<Prescription> getPrescriptions() {
+        if (prescriptions == null) {
+            try {
+                Prescription[] active = new RxPrescriptionData().getActivePrescriptionsByPatient(Integer.parseInt(demographicNo));
+                prescriptions = Collections.unmodifiableList(new ArrayList<Prescription>(Arrays.asList(active)));
+            } catch (NumberFormatException nfe) {
+                logger.error("Decision Support Exception, could not format demographicNo: " + demographicNo);
+                prescriptions = Collections.emptyList();
+            }
+        }
+        return prescriptions;
+    }
+
+    /**
+     * @return true if one of the patient's notes contains the text
+     */
+    public synchronized boolean noteContains(String text) {
+        Boolean found = noteSearches.get(text);
+        if (found == null) {
+            CaseManagementNoteDAO dao = (CaseManagementNoteDAO) SpringUtils.getBean(CaseManagementNoteDAO.class);
+            List<CaseManagementNote> notes = dao.searchDemographicNotes(demographicNo, "%" + text + "%");
+            found = notes != null && notes.size() > 0;
+            noteSearches.put(text, found);
+        }
+        return found;
+    }
+}
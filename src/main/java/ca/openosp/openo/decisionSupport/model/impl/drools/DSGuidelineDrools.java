@@ -52,6 +52,7 @@ import ca.openosp.openo.decisionSupport.model.DSConsequence;
 import ca.openosp.openo.decisionSupport.model.DSDemographicAccess;
 import ca.openosp.openo.decisionSupport.model.DSGuideline;
 import ca.openosp.openo.decisionSupport.model.DSParameter;
+import ca.openosp.openo.decisionSupport.model.DSPatientFacts;
 import ca.openosp.openo.decisionSupport.model.DecisionSupportException;
 import ca.openosp.openo.drools.RuleBaseFactory;
 import ca.openosp.openo.utility.LoggedInInfo;
@@ -87,73 +88,25 @@ public class DSGuidelineDrools extends DSGuideline {
     }
 
     public List<DSConsequence> evaluate(LoggedInInfo loggedInInfo, String demographicNo) throws DecisionSupportException {
-        if (_ruleBase == null) generateRuleBase();
-        //at this point _ruleBase WILL be set or exception is thrown in generateRuleBase()
-        WorkingMemory workingMemory = _ruleBase.newWorkingMemory();
-        DSDemographicAccess dsDemographicAccess = new DSDemographicAccess(loggedInInfo, demographicNo);
-        //put "bob" in working memory
-        try {
-
-            workingMemory.assertObject(dsDemographicAccess);
-
-            for (DSCondition dsc : this.getConditions()) {
-                if (dsc.getParam() != null && !dsc.getParam().isEmpty()) {
-                    log.debug("PARAM:" + dsc.getParam().toString());
-                    workingMemory.assertObject(dsc.getParam());
-                }
-            }
+        return evaluate(new DSDemographicAccess(loggedInInfo, demographicNo));
+    }
 
-            List<DSParameter> lDSP = this.getParameters();
-            if (lDSP != null) {
-                for (DSParameter dsp : lDSP) {
-                    Class clas = Class.forName(dsp.getStrClass());
-                    Constructor constructor = clas.getConstructor();
-                    Object obj = constructor.newInstance();
+    public List<DSConsequence> evaluate(LoggedInInfo loggedInInfo, String demographicNo, String providerNo) throws DecisionSupportException {
+        return evaluate(new DSDemographicAccess(loggedInInfo, demographicNo, providerNo));
+    }
 
-                    workingMemory.assertObject(obj);
-                }
-            }
+    public List<DSConsequence> evaluate(LoggedInInfo loggedInInfo, String demographicNo, String providerNo, List<Object> dynamicArgs) throws DecisionSupportException {
+        return evaluate(new DSDemographicAccess(loggedInInfo, demographicNo, providerNo, dynamicArgs));
+    }
 
-            workingMemory.fireAllRules();
-            if (dsDemographicAccess.isPassedGuideline()) {
-                List<DSConsequence> returnDsConsequences = new ArrayList<DSConsequence>();
-                if (this.getConsequences() == null) return returnDsConsequences;
-                else {
-                    for (DSConsequence dsConsequence : this.getConsequences()) {
-                        if (dsConsequence.getConsequenceType() != DSConsequence.ConsequenceType.java) {
-                            returnDsConsequences.add(dsConsequence);
-                        } else if (dsConsequence.getConsequenceType() == DSConsequence.ConsequenceType.java) {
-                            @SuppressWarnings("unchecked")
-                            List<Object> javaConsequences = workingMemory.getObjects();
-                            dsConsequence.setObjConsequence(javaConsequences);
-                            returnDsConsequences.add(dsConsequence);
-                        }
-                    }
-                    return returnDsConsequences;
-                }
-            } else {
-                return null;
-            }
-        } catch (FactException factException) {
-            throw new DecisionSupportException("Unable to assert guideline", factException);
-        } catch (ClassNotFoundException e) {
-            throw new DecisionSupportException("Unable to instantiate class", e);
-        } catch (NoSuchMethodException e) {
-            throw new DecisionSupportException("Unable to instantiate class", e);
-        } catch (InstantiationException e) {
-            throw new DecisionSupportException("Unable to instantiate class", e);
-        } catch (IllegalAccessException e) {
-            throw new DecisionSupportException("Unable to instantiate class", e);
-        } catch (InvocationTargetException e) {
-            throw new DecisionSupportException("Unable to instantiate class", e);
-        }
+    public List<DSConsequence> evaluate(LoggedInInfo loggedInInfo, DSPatientFacts facts, String providerNo) throws DecisionSupportException {
+        return evaluate(new DSDemographicAccess(loggedInInfo, facts, providerNo));
     }
 
-    public List<DSConsequence> evaluate(LoggedInInfo loggedInInfo, String demographicNo, String providerNo) throws DecisionSupportException {
+    private List<DSConsequence> evaluate(DSDemographicAccess dsDemographicAccess) throws DecisionSupportException {
         if (_ruleBase == null) generateRuleBase();
         //at this point _ruleBase WILL be set or exception is thrown in generateRuleBase()
         WorkingMemory workingMemory = _ruleBase.newWorkingMemory();
-        DSDemographicAccess dsDemographicAccess = new DSDemographicAccess(loggedInInfo, demographicNo, providerNo);
         //put "bob" in working memory
         try {
 
@@ -186,10 +139,15 @@ public class DSGuidelineDrools extends DSGuideline {
                         if (dsConsequence.getConsequenceType() != DSConsequence.ConsequenceType.java) {
                             returnDsConsequences.add(dsConsequence);
                         } else if (dsConsequence.getConsequenceType() == DSConsequence.ConsequenceType.java) {
+                            // a copy, the working memory objects belong to this evaluation only
+                            DSConsequence javaConsequence = new DSConsequence();
+                            javaConsequence.setConsequenceType(dsConsequence.getConsequenceType());
+                            javaConsequence.setConsequenceStrength(dsConsequence.getConsequenceStrength());
+                            javaConsequence.setText(dsConsequence.getText());
                             @SuppressWarnings("unchecked")
                             List<Object> javaConsequences = workingMemory.getObjects();
-                            dsConsequence.setObjConsequence(javaConsequences);
-                            returnDsConsequences.add(dsConsequence);
+                            javaConsequence.setObjConsequence(javaConsequences);
+                            returnDsConsequences.add(javaConsequence);
                         }
                     }
                     return returnDsConsequences;
@@ -212,67 +170,10 @@ public class DSGuidelineDrools extends DSGuideline {
         }
     }
 
-    public List<DSConsequence> evaluate(LoggedInInfo loggedInInfo, String demographicNo, String providerNo, List<Object> dynamicArgs) throws DecisionSupportException {
+    @Override
+    public void prepare() throws DecisionSupportException {
+        super.prepare();
         if (_ruleBase == null) generateRuleBase();
-        //at this point _ruleBase WILL be set or exception is thrown in generateRuleBase()
-        WorkingMemory workingMemory = _ruleBase.newWorkingMemory();
-        DSDemographicAccess dsDemographicAccess = new DSDemographicAccess(loggedInInfo, demographicNo, providerNo, dynamicArgs);
-        //put "bob" in working memory
-        try {
-
-            workingMemory.assertObject(dsDemographicAccess);
-
-            for (DSCondition dsc : this.getConditions()) {
-                if (dsc.getParam() != null && !dsc.getParam().isEmpty()) {
-                    log.debug("PARAM:" + dsc.getParam().toString());
-                    workingMemory.assertObject(dsc.getParam());
-                }
-            }
-
-            List<DSParameter> lDSP = this.getParameters();
-            if (lDSP != null) {
-                for (DSParameter dsp : lDSP) {
-                    Class clas = Class.forName(dsp.getStrClass());
-                    Constructor constructor = clas.getConstructor();
-                    Object obj = constructor.newInstance();
-
-                    workingMemory.assertObject(obj);
-                }
-            }
-
-            workingMemory.fireAllRules();
-            if (dsDemographicAccess.isPassedGuideline()) {
-                List<DSConsequence> returnDsConsequences = new ArrayList<DSConsequence>();
-                if (this.getConsequences() == null) return returnDsConsequences;
-                else {
-                    for (DSConsequence dsConsequence : this.getConsequences()) {
-                        if (dsConsequence.getConsequenceType() != DSConsequence.ConsequenceType.java) {
-                            returnDsConsequences.add(dsConsequence);
-                        } else if (dsConsequence.getConsequenceType() == DSConsequence.ConsequenceType.java) {
-                            @SuppressWarnings("unchecked")
-                            List<Object> javaConsequences = workingMemory.getObjects();
-                            dsConsequence.setObjConsequence(javaConsequences);
-                            returnDsConsequences.add(dsConsequence);
-                        }
-                    }
-                    return returnDsConsequences;
-                }
-            } else {
-                return null;
-            }
-        } catch (FactException factException) {
-            throw new DecisionSupportException("Unable to assert guideline", factException);
-        } catch (ClassNotFoundException e) {
-            throw new DecisionSupportException("Unable to instantiate class", e);
-        } catch (NoSuchMethodException e) {
-            throw new DecisionSupportException("Unable to instantiate class", e);
-        } catch (InstantiationException e) {
-            throw new DecisionSupportException("Unable to instantiate class", e);
-        } catch (IllegalAccessException e) {
-            throw new DecisionSupportException("Unable to instantiate class", e);
-        } catch (InvocationTargetException e) {
-            throw new DecisionSupportException("Unable to instantiate class", e);
-        }
     }
 
     public void generateRuleBase() throws DecisionSupportException {
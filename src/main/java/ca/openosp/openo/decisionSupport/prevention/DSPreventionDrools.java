@@ -35,6 +35,7 @@ import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.Namespace;
 import org.jdom2.input.SAXBuilder;
+import ca.openosp.openo.drools.RuleBaseCompiler;
 import ca.openosp.openo.utility.MiscUtils;
 
 import ca.openosp.OscarProperties;
@@ -49,6 +50,17 @@ public class DSPreventionDrools {
     public static final String preventionObjectClassPath = "ca.openosp.openo.prevention.Prevention";
 
     public static RuleBase createRuleBase(byte[] ruleSet) throws Exception {
+        return RuleBaseCompiler.compile(createRuleSetXml(ruleSet));
+    }
+
+    /**
+     * Converts the prevention recommendations stored in resource storage into a Drools XML rule set.
+     *
+     * @param ruleSet byte[] the stored recommendations XML
+     * @return String the Drools rule set
+     * @throws Exception if the recommendations cannot be parsed
+     */
+    public static String createRuleSetXml(byte[] ruleSet) throws Exception {
         logger.debug(preventionObjectClassPath);
         RuleBaseCreator rbc = new RuleBaseCreator();
         ResourceBundle oscarResource = ResourceBundle.getBundle("oscarResources");
@@ -87,7 +99,7 @@ public class DSPreventionDrools {
                 elementList.add(rbc.getRule(ruleNumber, DSPreventionDrools.preventionObjectClassPath, dsConditions, consequence.toString()));
             }
         }
-        return rbc.getRuleBase("preventions", elementList);
+        return rbc.getRuleSetXml("preventions", elementList);
 
     }
 
@@ -32,17 +32,35 @@
 package ca.openosp.openo.decisionSupport.service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.Logger;
 import ca.openosp.openo.commn.dao.DSGuidelineDao;
 import ca.openosp.openo.commn.dao.DSGuidelineProviderMappingDao;
+import ca.openosp.openo.commn.dao.DemographicDao;
+import ca.openosp.openo.decisionSupport.model.DSCondition;
 import ca.openosp.openo.decisionSupport.model.DSConsequence;
+import ca.openosp.openo.decisionSupport.model.DSDemographicAccess;
 import ca.openosp.openo.decisionSupport.model.DSGuideline;
-import ca.openosp.openo.decisionSupport.model.DecisionSupportException;
+import ca.openosp.openo.decisionSupport.model.DSGuidelineResult;
+import ca.openosp.openo.decisionSupport.model.DSPatientFacts;
+import ca.openosp.openo.utility.DbConnectionFilter;
+import ca.openosp.openo.utility.DeamonThreadFactory;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ca.openosp.OscarProperties;
 
 /**
  * @author apavel
@@ -53,6 +71,21 @@ public abstract class DSService {
     protected DSGuidelineDao dSGuidelineDao;
     @Autowired
     protected DSGuidelineProviderMappingDao dSGuidelineProviderMappingDao;
+    @Autowired
+    protected DemographicDao demographicDao;
+
+    private static final int MAX_CACHED_RESULTS = 10000;
+
+    private final Map<ResultKey, Results> results = new ConcurrentHashMap<ResultKey, Results>();
+
+    private record ResultKey(String demographicNo, String providerNo) {
+    }
+
+    private static final class Results {
+        private volatile long computedAt = -1;
+        private volatile String guidelines;
+        private volatile List<DSGuidelineResult> passed;
+    }
 
     public DSService() {
 
@@ -63,20 +96,229 @@ public abstract class DSService {
         List<DSGuideline> dsGuidelines = this.dSGuidelineDao.getDSGuidelinesByProvider(providerNo);
         logger.info("Decision Support 'evaluateAndGetConsequences' has been called, reading " + dsGuidelines.size() + " for this providers");
         ArrayList<DSConsequence> allResultingConsequences = new ArrayList<DSConsequence>();
+        DSPatientFacts facts = new DSPatientFacts(demographicNo);
         for (DSGuideline dsGuideline : dsGuidelines) {
             try {
-                List<DSConsequence> newConsequences = dsGuideline.evaluate(loggedInInfo, demographicNo);
+                List<DSConsequence> newConsequences = dsGuideline.evaluate(loggedInInfo, facts, null);
                 if (newConsequences != null) {
                     allResultingConsequences.addAll(newConsequences);
                 }
-            } catch (DecisionSupportException dse) {
-                logger.error("Failed to evaluate the patient against guideline, skipping guideline uuid: " + dsGuideline.getUuid(), dse);
+            } catch (Exception e) {
+                logger.error("Failed to evaluate the patient against guideline, skipping guideline uuid: " + dsGuideline.getUuid(), e);
             }
         }
         logger.info("Decision Support 'evaluateAndGetConsequences' finished, returing " + allResultingConsequences.size() + " consequences");
         return allResultingConsequences;
     }
 
+    /**
+     * Evaluates the patient against the provider's guidelines, the ones turned off with dsa.skip.&lt;title&gt;
+     * aside. The patient's data is read once for all the guidelines.
+     * <p>
+     * The results are kept until the patient's disease registry, prescriptions, notes or demographic record
+     * change, the provider's guidelines change, or they are decision_support.max_age_seconds old. Guidelines
+     * with billing or flowsheet conditions are evaluated on every call, see {@link #isCacheable(DSGuideline)}.
+     *
+     * @return the guidelines the patient passed with their consequences, in the provider's guideline order
+     */
+    public List<DSGuidelineResult> evaluate(LoggedInInfo loggedInInfo, String demographicNo, String providerNo) {
+        return evaluate(loggedInInfo, demographicNo, providerNo, getGuidelinesToEvaluate(providerNo));
+    }
+
+    /**
+     * Evaluates every patient of the provider's panel against the provider's guidelines, several
+     * patients at a time. The results are cached the same way as {@link #evaluate(LoggedInInfo, String, String)},
+     * so a panel run also speeds up opening those charts.
+     *
+     * @return the results by demographic number, patients who passed no guideline are left out
+     */
+    public Map<String, List<DSGuidelineResult>> evaluatePanel(LoggedInInfo loggedInInfo, String providerNo) {
+        List<DSGuideline> guidelines = getGuidelinesToEvaluate(providerNo);
+        Map<String, List<DSGuidelineResult>> panel = new LinkedHashMap<String, List<DSGuidelineResult>>();
+        if (guidelines.isEmpty()) return panel;
+
+        // parsed up front, the guidelines are then only read by the evaluating threads
+        List<DSGuideline> prepared = new ArrayList<DSGuideline>();
+        for (DSGuideline guideline : guidelines) {
+            try {
+                guideline.prepare();
+                prepared.add(guideline);
+            } catch (Exception e) {
+                logger.error("Unable to prepare guideline uuid: " + guideline.getUuid() + ", skipping it for the panel", e);
+            }
+        }
+
+        int threads = NumberUtils.toInt(OscarProperties.getInstance().getProperty("decision_support.panel_threads"), 4);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), new DeamonThreadFactory("DecisionSupportPanel", Thread.NORM_PRIORITY));
+        try {
+            Map<String, Future<List<DSGuidelineResult>>> pending = new LinkedHashMap<String, Future<List<DSGuidelineResult>>>();
+            for (Integer demographicNo : demographicDao.getDemographicNosByProvider(providerNo, true)) {
+                String demographic = String.valueOf(demographicNo);
+                pending.put(demographic, executor.submit(() -> {
+                    try {
+                        return evaluate(loggedInInfo, demographic, providerNo, prepared);
+                    } finally {
+                        DbConnectionFilter.releaseAllThreadDbResources();
+                    }
+                }));
+            }
+            for (Map.Entry<String, Future<List<DSGuidelineResult>>> entry : pending.entrySet()) {
+                List<DSGuidelineResult> passed = entry.getValue().get();
+                if (!passed.isEmpty()) {
+                    panel.put(entry.getKey(), passed);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating the panel of provider " + providerNo, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to evaluate the panel of provider " + providerNo, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return panel;
+    }
+
+    /**
+     * Drops the cached results of the patient, or of every patient if demographicNo is null, once the current
+     * transaction commits.
+     */
+    public void patientDataChanged(Integer demographicNo) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(demographicNo);
+                }
+            });
+        } else {
+            invalidate(demographicNo);
+        }
+    }
+
+    private void invalidate(Integer demographicNo) {
+        if (demographicNo == null) {
+            results.clear();
+        } else {
+            String demographic = demographicNo.toString();
+            results.keySet().removeIf(key -> demographic.equals(key.demographicNo()));
+        }
+    }
+
+    private List<DSGuidelineResult> evaluate(LoggedInInfo loggedInInfo, String demographicNo, String providerNo, List<DSGuideline> guidelines) {
+        List<DSGuideline> cacheable = new ArrayList<DSGuideline>();
+        for (DSGuideline guideline : guidelines) {
+            if (isCacheable(guideline)) {
+                cacheable.add(guideline);
+            }
+        }
+        DSPatientFacts facts = new DSPatientFacts(demographicNo);
+        List<DSGuidelineResult> cachedPassed = getCachedResults(loggedInInfo, facts, demographicNo, providerNo, cacheable);
+        if (cacheable.size() == guidelines.size()) {
+            return cachedPassed;
+        }
+
+        // the cached results are in the order of the cacheable guidelines, the others are slotted in between
+        List<DSGuidelineResult> passed = new ArrayList<DSGuidelineResult>();
+        int next = 0;
+        for (DSGuideline guideline : guidelines) {
+            if (!isCacheable(guideline)) {
+                evaluate(loggedInInfo, facts, providerNo, guideline, passed);
+            } else if (next < cachedPassed.size() && isSameGuideline(guideline, cachedPassed.get(next).getGuideline())) {
+                passed.add(cachedPassed.get(next++));
+            }
+        }
+        return passed;
+    }
+
+    private List<DSGuidelineResult> getCachedResults(LoggedInInfo loggedInInfo, DSPatientFacts facts, String demographicNo, String providerNo, List<DSGuideline> guidelines) {
+        String signature = getSignature(guidelines);
+        long maxAge = getMaxAgeMillis();
+        if (results.size() > MAX_CACHED_RESULTS) {
+            long expired = System.currentTimeMillis() - maxAge;
+            results.values().removeIf(r -> r.computedAt >= 0 && r.computedAt < expired);
+        }
+        Results cached = results.computeIfAbsent(new ResultKey(demographicNo, providerNo), key -> new Results());
+        if (isCurrent(cached, signature, maxAge)) {
+            return cached.passed;
+        }
+
+        // the same as the tab alert counts: results dropped by a change while they were being worked out
+        // were removed from the map with their holder, so they are never served again
+        synchronized (cached) {
+            if (!isCurrent(cached, signature, maxAge)) {
+                List<DSGuidelineResult> passed = new ArrayList<DSGuidelineResult>();
+                for (DSGuideline guideline : guidelines) {
+                    evaluate(loggedInInfo, facts, providerNo, guideline, passed);
+                }
+                cached.passed = passed;
+                cached.guidelines = signature;
+                cached.computedAt = System.currentTimeMillis();
+            }
+            return cached.passed;
+        }
+    }
+
+    // a guideline that can't be evaluated is logged and skipped, it must not hide the others from the chart
+    private static void evaluate(LoggedInInfo loggedInInfo, DSPatientFacts facts, String providerNo, DSGuideline guideline, List<DSGuidelineResult> passed) {
+        try {
+            List<DSConsequence> consequences = guideline.evaluate(loggedInInfo, facts, providerNo);
+            if (consequences != null) {
+                passed.add(new DSGuidelineResult(guideline, consequences));
+            }
+        } catch (Exception e) {
+            logger.error("Unable to evaluate patient against a DS guideline '" + guideline.getTitle() + "' of UUID '" + guideline.getUuid() + "'", e);
+        }
+    }
+
+    /**
+     * Billing and flowsheet conditions read bills, payments and measurements, which are written through
+     * too many paths to be tracked, and flowsheets also go out of date with time. Guidelines that use them
+     * are not cached.
+     */
+    private static boolean isCacheable(DSGuideline guideline) {
+        List<DSCondition> conditions = guideline.getConditions();
+        if (conditions == null) return true;
+        for (DSCondition condition : conditions) {
+            DSDemographicAccess.Module type = condition.getConditionType();
+            if (type == DSDemographicAccess.Module.billedFor || type == DSDemographicAccess.Module.paid || type == DSDemographicAccess.Module.flowsheet) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameGuideline(DSGuideline guideline, DSGuideline other) {
+        return guideline == other || (guideline.getId() != null && guideline.getId().equals(other.getId()));
+    }
+
+    private static boolean isCurrent(Results cached, String signature, long maxAge) {
+        return cached.computedAt >= 0 && System.currentTimeMillis() - cached.computedAt <= maxAge && signature.equals(cached.guidelines);
+    }
+
+    private List<DSGuideline> getGuidelinesToEvaluate(String providerNo) {
+        List<DSGuideline> guidelines = new ArrayList<DSGuideline>();
+        for (DSGuideline guideline : getDsGuidelinesByProvider(providerNo)) {
+            if (!OscarProperties.getInstance().getProperty("dsa.skip." + guideline.getTitle().replaceAll(" ", "_"), "false").equals("true")) {
+                guidelines.add(guideline);
+            }
+        }
+        return guidelines;
+    }
+
+    // a guideline edited or mapped to the provider changes the signature
+    private static String getSignature(List<DSGuideline> guidelines) {
+        StringBuilder signature = new StringBuilder();
+        for (DSGuideline guideline : guidelines) {
+            signature.append(guideline.getId()).append(':').append(guideline.getVersion()).append(':').append(guideline.getXml() == null ? 0 : guideline.getXml().hashCode()).append(',');
+        }
+        return signature.toString();
+    }
+
+    private static long getMaxAgeMillis() {
+        return NumberUtils.toLong(OscarProperties.getInstance().getProperty("decision_support.max_age_seconds"), 300) * 1000;
+    }
+
     public void fetchGuidelinesFromServiceInBackground(LoggedInInfo loggedInInfo) {
         DSServiceThread dsServiceThread = new DSServiceThread(this, loggedInInfo);
         dsServiceThread.start();
@@ -46,6 +46,7 @@ import ca.openosp.openo.commn.dao.SecObjPrivilegeDao;
 import ca.openosp.openo.commn.model.RecycleBin;
 import ca.openosp.openo.commn.model.SecObjPrivilege;
 import ca.openosp.openo.commn.model.SecObjPrivilegePrimaryKey;
+import ca.openosp.openo.managers.PatientSearchIndexManager;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.SpringUtils;
@@ -81,6 +82,7 @@ public class DemographicMerged {
         dm.setLastUpdateUser(loggedInInfo.getLoggedInProviderNo());
         dm.setLastUpdateDate(new Date());
         dao.persist(dm);
+        patientSearchIndexManager().refreshMerge(dm.getDemographicNo());
 
         //only if it doesn't exist
         if (secObjPrivilegeDao.find(new SecObjPrivilegePrimaryKey("_all", "_eChart$" + demographic_no)) == null) {
@@ -113,6 +115,7 @@ public class DemographicMerged {
             dm.setDeleted(1);
             dao.merge(dm);
         }
+        patientSearchIndexManager().refreshMerge(Integer.parseInt(demographic_no));
 
         String privilege = "";
         String priority = "";
@@ -139,6 +142,10 @@ public class DemographicMerged {
 
     }
 
+    private PatientSearchIndexManager patientSearchIndexManager() {
+        return SpringUtils.getBean(PatientSearchIndexManager.class);
+    }
+
     public String getHead(String demographic_no) {
         Integer result = getHead(Integer.parseInt(demographic_no));
         if (result != null) {
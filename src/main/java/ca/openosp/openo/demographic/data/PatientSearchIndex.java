@@ -0,0 +1,712 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.demographic.data;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.Logger;
+import ca.openosp.openo.utility.MiscUtils;
+import ca.openosp.openo.webserv.rest.to.model.DemographicSearchRequest.SEARCHMODE;
+import ca.openosp.openo.webserv.rest.to.model.DemographicSearchRequest.SORTDIR;
+import ca.openosp.openo.webserv.rest.to.model.DemographicSearchRequest.SORTMODE;
+
+/**
+ * In-memory index answering the patient searches of DemographicDao.searchPatients without a table scan.
+ *
+ * Last and first names are normalized (lower case, accents removed) and indexed by trigram, so a name
+ * keyword is resolved by intersecting the posting lists of its trigrams and checking the few candidates.
+ * Phone, HIN, address and chart number are matched against the normalized values held in memory, phone
+ * and HIN also by their digits alone so "905 555-1234" finds "(905)555-1234".
+ *
+ * Matching follows the SQL search: a plain keyword matches anywhere in the field, the status filter uses
+ * the inactive status list, results are sorted the same way and a merged record is returned as its head
+ * record. When an exact name search finds nothing, names that sound the same (double metaphone) and
+ * common nicknames of the first name are tried instead. Keywords using wildcards or regular expression
+ * syntax, and date of birth searches, are left to the database; see {@link #isSupported(SEARCHMODE, String)}.
+ */
+public final class PatientSearchIndex {
+
+    private static Logger logger = MiscUtils.getLogger();
+
+    private static final String NICKNAME_RESOURCE = "patient_search_nicknames.txt";
+    private static final String REGEX_CHARACTERS = ".^$*+?()[]{}|\\%";
+    private static final String PHONE_SEPARATORS = " -().+/";
+
+    private static final DoubleMetaphone PHONETIC = new DoubleMetaphone();
+    private static final Map<String, Set<String>> NICKNAMES = loadNicknames();
+
+    private final Set<String> inactiveStatuses;
+
+    private final Map<Integer, Entry> entries = new HashMap<Integer, Entry>();
+    private final Map<Integer, Integer> mergedTo = new HashMap<Integer, Integer>();
+    private final Map<String, Postings> lastNameGrams = new HashMap<String, Postings>();
+    private final Map<String, Postings> firstNameGrams = new HashMap<String, Postings>();
+    private final Map<String, Postings> lastNameSounds = new HashMap<String, Postings>();
+    private final Map<String, Postings> firstNameSounds = new HashMap<String, Postings>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param inactiveStatuses Collection the patient statuses treated as inactive, as in the inactive_statuses property
+     */
+    public PatientSearchIndex(Collection<String> inactiveStatuses) {
+        Set<String> statuses = new HashSet<String>();
+        for (String status : inactiveStatuses) {
+            statuses.add(status.trim().toUpperCase());
+        }
+        this.inactiveStatuses = statuses;
+    }
+
+    /**
+     * Parses the inactive_statuses property, e.g. "'IN','DE','IC', 'ID', 'MO', 'FI'".
+     */
+    public static Set<String> parseStatuses(String property) {
+        Set<String> statuses = new LinkedHashSet<String>();
+        if (property == null) return statuses;
+        for (String status : property.split(",")) {
+            status = status.replace("'", "").replace("\"", "").trim();
+            if (!status.isEmpty()) statuses.add(status);
+        }
+        return statuses;
+    }
+
+    /**
+     * @return true if a search for this keyword in this mode can be answered by the index
+     */
+    public static boolean isSupported(SEARCHMODE mode, String keyword) {
+        if (mode == null || mode == SEARCHMODE.DOB || keyword == null || keyword.trim().isEmpty()) return false;
+        if ((mode == SEARCHMODE.Phone || mode == SEARCHMODE.HIN) && isDigitKeyword(keyword)) return true;
+        if (StringUtils.containsAny(keyword, REGEX_CHARACTERS)) return false;
+        if (mode == SEARCHMODE.Name) {
+            NameKeyword name = NameKeyword.parse(keyword);
+            return name != null;
+        }
+        return true;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces the indexed values of one demographic.
+     */
+    public void put(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.put(entry.demographicNo, entry);
+            if (previous != null) unindex(previous);
+            index(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAll(Collection<Entry> entries) {
+        lock.writeLock().lock();
+        try {
+            for (Entry entry : entries) {
+                Entry previous = this.entries.put(entry.demographicNo, entry);
+                if (previous != null) unindex(previous);
+                index(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records the current merge of a demographic, or clears it when head is null.
+     */
+    public void setMergedTo(Integer demographicNo, Integer head) {
+        lock.writeLock().lock();
+        try {
+            if (head == null) {
+                mergedTo.remove(demographicNo);
+            } else {
+                mergedTo.put(demographicNo, head);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the demographics matching a search, in the order the SQL search would return them.
+     * A merged record is replaced by its head record, as DemographicSearchResultTransformer does.
+     *
+     * @return List of entries, or null if the search is not supported by the index
+     */
+    public List<Entry> search(SEARCHMODE mode, String keyword, boolean active, SORTMODE sortMode, SORTDIR sortDir) {
+        if (!isSupported(mode, keyword)) return null;
+
+        lock.readLock().lock();
+        try {
+            List<Entry> matches = match(mode, keyword, active);
+            if (matches.isEmpty() && mode == SEARCHMODE.Name) {
+                matches = matchSimilarNames(NameKeyword.parse(keyword), active);
+            }
+
+            Collections.sort(matches, comparator(sortMode, sortDir));
+
+            List<Entry> results = new ArrayList<Entry>(matches.size());
+            for (Entry entry : matches) {
+                results.add(resolveHead(entry));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Entry> match(SEARCHMODE mode, String keyword, boolean active) {
+        List<Entry> matches = new ArrayList<Entry>();
+        if (mode == SEARCHMODE.Name) {
+            NameKeyword name = NameKeyword.parse(keyword);
+            Postings candidates = Postings.intersect(candidates(lastNameGrams, name.last), candidates(firstNameGrams, name.first));
+            for (Entry entry : candidates == null ? entries.values() : candidates.entries(entries)) {
+                if (name.last != null && (entry.lastName == null || !entry.lastName.contains(name.last))) continue;
+                if (name.first != null && (entry.firstName == null || !entry.firstName.contains(name.first))) continue;
+                if (hasStatus(entry, active)) matches.add(entry);
+            }
+            return matches;
+        }
+
+        String value = normalize(keyword);
+        String digits = (mode == SEARCHMODE.Phone || mode == SEARCHMODE.HIN) && isDigitKeyword(keyword) ? digits(keyword) : null;
+        for (Entry entry : entries.values()) {
+            boolean matched;
+            switch (mode) {
+                case Phone:
+                    matched = contains(entry.phone, value) || digits != null && contains(entry.phoneDigits, digits);
+                    break;
+                case HIN:
+                    matched = contains(entry.hin, value) || digits != null && contains(entry.hinDigits, digits);
+                    break;
+                case Address:
+                    matched = contains(entry.address, value);
+                    break;
+                case ChartNo:
+                    matched = contains(entry.chartNo, value);
+                    break;
+                case DemographicNo:
+                    matched = String.valueOf(entry.demographicNo).contains(value);
+                    break;
+                default:
+                    matched = false;
+            }
+            if (matched && hasStatus(entry, active)) matches.add(entry);
+        }
+        return matches;
+    }
+
+    private List<Entry> matchSimilarNames(NameKeyword name, boolean active) {
+        List<Entry> matches = new ArrayList<Entry>();
+        if (!name.isPlain()) return matches;
+
+        Set<String> lastSounds = name.last == null ? null : sounds(Collections.singleton(name.last));
+        Set<String> firstSounds = name.first == null ? null : sounds(nicknames(name.first));
+
+        Postings candidates = Postings.intersect(union(lastNameSounds, lastSounds), union(firstNameSounds, firstSounds));
+        if (candidates == null) return matches;
+        for (Entry entry : candidates.entries(entries)) {
+            if (lastSounds != null && !lastSounds.contains(entry.lastNameSound)) continue;
+            if (firstSounds != null && !firstSounds.contains(entry.firstNameSound)) continue;
+            if (hasStatus(entry, active)) matches.add(entry);
+        }
+        return matches;
+    }
+
+    private boolean hasStatus(Entry entry, boolean active) {
+        // "patient_status not in (...)" and "patient_status in (...)" are both false for a null status
+        if (entry.patientStatus == null) return false;
+        return inactiveStatuses.contains(entry.patientStatus.toUpperCase()) != active;
+    }
+
+    private Entry resolveHead(Entry entry) {
+        Integer head = mergedTo.get(entry.demographicNo);
+        Entry headEntry = null;
+        for (int depth = 0; head != null && depth < 10; depth++) {
+            Entry next = entries.get(head);
+            if (next != null) headEntry = next;
+            head = mergedTo.get(head);
+        }
+        return headEntry != null ? headEntry : entry;
+    }
+
+    private void index(Entry entry) {
+        for (String gram : grams(entry.lastName)) add(lastNameGrams, gram, entry.demographicNo);
+        for (String gram : grams(entry.firstName)) add(firstNameGrams, gram, entry.demographicNo);
+        if (entry.lastNameSound != null) add(lastNameSounds, entry.lastNameSound, entry.demographicNo);
+        if (entry.firstNameSound != null) add(firstNameSounds, entry.firstNameSound, entry.demographicNo);
+    }
+
+    private void unindex(Entry entry) {
+        for (String gram : grams(entry.lastName)) remove(lastNameGrams, gram, entry.demographicNo);
+        for (String gram : grams(entry.firstName)) remove(firstNameGrams, gram, entry.demographicNo);
+        if (entry.lastNameSound != null) remove(lastNameSounds, entry.lastNameSound, entry.demographicNo);
+        if (entry.firstNameSound != null) remove(firstNameSounds, entry.firstNameSound, entry.demographicNo);
+    }
+
+    private static void add(Map<String, Postings> index, String key, int demographicNo) {
+        Postings postings = index.get(key);
+        if (postings == null) {
+            postings = new Postings();
+            index.put(key, postings);
+        }
+        postings.add(demographicNo);
+    }
+
+    private static void remove(Map<String, Postings> index, String key, int demographicNo) {
+        Postings postings = index.get(key);
+        if (postings != null && postings.remove(demographicNo) && postings.size == 0) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * @return the demographics containing every trigram of value, or null if value is too short to narrow the search
+     */
+    private static Postings candidates(Map<String, Postings> index, String value) {
+        if (value == null || value.length() < 3) return null;
+        List<Postings> lists = new ArrayList<Postings>();
+        for (String gram : grams(value)) {
+            Postings postings = index.get(gram);
+            if (postings == null) return new Postings();
+            lists.add(postings);
+        }
+        return Postings.intersect(lists);
+    }
+
+    private static Postings union(Map<String, Postings> index, Set<String> keys) {
+        if (keys == null) return null;
+        Postings result = new Postings();
+        for (String key : keys) {
+            Postings postings = index.get(key);
+            if (postings != null) result.addAll(postings);
+        }
+        return result;
+    }
+
+    private static Set<String> grams(String value) {
+        if (value == null || value.length() < 3) return Collections.emptySet();
+        Set<String> grams = new HashSet<String>();
+        for (int i = 0; i + 3 <= value.length(); i++) {
+            grams.add(value.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static Comparator<Entry> comparator(SORTMODE sortMode, SORTDIR sortDir) {
+        Comparator<Entry> order;
+        if (sortMode == null) {
+            order = by(e -> e.lastName).thenComparing(by(e -> e.firstName));
+        } else {
+            switch (sortMode) {
+                case Address:
+                    order = by(e -> e.address);
+                    break;
+                case ChartNo:
+                    order = by(e -> e.chartNo);
+                    break;
+                case DemographicNo:
+                    order = Comparator.comparingInt(e -> e.demographicNo);
+                    break;
+                case DOB:
+                    order = by(e -> e.yearOfBirth).thenComparing(by(e -> e.monthOfBirth)).thenComparing(by(e -> e.dateOfBirth));
+                    break;
+                case Phone:
+                    order = by(e -> e.phone);
+                    break;
+                case ProviderName:
+                    order = by(e -> normalize(e.providerLastName)).thenComparing(by(e -> normalize(e.providerFirstName)));
+                    break;
+                case PS:
+                    order = by(e -> e.patientStatus == null ? null : e.patientStatus.toLowerCase());
+                    break;
+                case RS:
+                    order = by(e -> e.rosterStatus == null ? null : e.rosterStatus.toLowerCase());
+                    break;
+                case Sex:
+                    order = by(e -> e.sex == null ? null : e.sex.toLowerCase());
+                    break;
+                case Name:
+                default:
+                    order = by(e -> e.lastName).thenComparing(by(e -> e.firstName));
+            }
+            if (sortDir == SORTDIR.desc) order = order.reversed();
+        }
+        // keeps paging stable where the database would return ties in any order
+        return order.thenComparingInt(e -> e.demographicNo);
+    }
+
+    private static Comparator<Entry> by(java.util.function.Function<Entry, String> key) {
+        return Comparator.comparing(key, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+    }
+
+    private static boolean contains(String value, String keyword) {
+        return value != null && value.contains(keyword);
+    }
+
+    private static boolean isDigitKeyword(String keyword) {
+        boolean digit = false;
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (Character.isDigit(c)) {
+                digit = true;
+            } else if (PHONE_SEPARATORS.indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return digit;
+    }
+
+    static String digits(String value) {
+        if (value == null) return null;
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isDigit(c)) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Lower case without accents, the way the database collation compares names.
+     */
+    static String normalize(String value) {
+        if (value == null) return null;
+        return StringUtils.stripAccents(value).toLowerCase();
+    }
+
+    private static String sound(String name) {
+        if (name == null) return null;
+        String letters = name.replaceAll("[^a-z]", "");
+        if (letters.isEmpty()) return null;
+        return PHONETIC.doubleMetaphone(letters);
+    }
+
+    private static Set<String> sounds(Collection<String> names) {
+        Set<String> sounds = new HashSet<String>();
+        for (String name : names) {
+            String sound = sound(name);
+            if (sound != null) sounds.add(sound);
+        }
+        return sounds;
+    }
+
+    private static Set<String> nicknames(String firstName) {
+        Set<String> names = new HashSet<String>();
+        names.add(firstName);
+        Set<String> group = NICKNAMES.get(firstName);
+        if (group != null) names.addAll(group);
+        return names;
+    }
+
+    private static Map<String, Set<String>> loadNicknames() {
+        Map<String, Set<String>> nicknames = new HashMap<String, Set<String>>();
+        try (InputStream is = PatientSearchIndex.class.getResourceAsStream(NICKNAME_RESOURCE)) {
+            if (is == null) return nicknames;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                List<String> group = Arrays.asList(line.toLowerCase().split("\\s*,\\s*"));
+                for (String name : group) {
+                    Set<String> names = nicknames.get(name);
+                    if (names == null) {
+                        names = new HashSet<String>();
+                        nicknames.put(name, names);
+                    }
+                    names.addAll(group);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Unable to read " + NICKNAME_RESOURCE, e);
+        }
+        return nicknames;
+    }
+
+    /**
+     * The name keyword split the way the SQL search splits "last,first".
+     */
+    private static final class NameKeyword {
+        private final String last;
+        private final String first;
+
+        private NameKeyword(String last, String first) {
+            this.last = last;
+            this.first = first;
+        }
+
+        static NameKeyword parse(String keyword) {
+            String last = null;
+            String first = null;
+            int comma = keyword.indexOf(',');
+            if (comma == -1) {
+                last = keyword;
+            } else if (comma == keyword.length() - 1) {
+                last = keyword.substring(0, keyword.length() - 1).trim();
+            } else if (comma == 0) {
+                first = keyword.substring(1).trim();
+            } else {
+                String[] parts = keyword.split(",");
+                if (parts.length < 2) return null;
+                last = parts[0].trim();
+                first = parts[1].trim();
+            }
+            // an empty pattern is an error for the database, leave it to the SQL search
+            if (last != null && last.isEmpty() || first != null && first.isEmpty()) return null;
+            return new NameKeyword(normalize(last), normalize(first));
+        }
+
+        boolean isPlain() {
+            return (last == null || last.matches("[a-z' -]+")) && (first == null || first.matches("[a-z' -]+"));
+        }
+    }
+
+    /**
+     * Indexed values of one demographic. Name, address, phone and chart values are kept normalized for
+     * matching and sorting; the display values are returned by the getters.
+     */
+    public static final class Entry {
+        private final int demographicNo;
+        private final String displayLastName;
+        private final String displayFirstName;
+        private final String displayChartNo;
+        private final String displayPhone;
+        private final String displayHin;
+        private final String lastName;
+        private final String firstName;
+        private final String chartNo;
+        private final String sex;
+        private final String providerNo;
+        private final String rosterStatus;
+        private final String patientStatus;
+        private final String phone;
+        private final String phoneDigits;
+        private final String yearOfBirth;
+        private final String monthOfBirth;
+        private final String dateOfBirth;
+        private final String providerLastName;
+        private final String providerFirstName;
+        private final String hin;
+        private final String hinDigits;
+        private final String address;
+        private final String lastNameSound;
+        private final String firstNameSound;
+
+        public Entry(int demographicNo, String lastName, String firstName, String chartNo, String sex, String providerNo,
+                     String rosterStatus, String patientStatus, String phone, String yearOfBirth, String monthOfBirth,
+                     String dateOfBirth, String providerLastName, String providerFirstName, String hin, String address) {
+            this.demographicNo = demographicNo;
+            this.displayLastName = lastName;
+            this.displayFirstName = firstName;
+            this.displayChartNo = chartNo;
+            this.displayPhone = phone;
+            this.displayHin = hin;
+            this.lastName = normalize(lastName);
+            this.firstName = normalize(firstName);
+            this.chartNo = normalize(chartNo);
+            this.sex = sex;
+            this.providerNo = providerNo;
+            this.rosterStatus = rosterStatus;
+            this.patientStatus = patientStatus;
+            this.phone = normalize(phone);
+            this.phoneDigits = digits(phone);
+            this.yearOfBirth = yearOfBirth;
+            this.monthOfBirth = monthOfBirth;
+            this.dateOfBirth = dateOfBirth;
+            this.providerLastName = providerLastName;
+            this.providerFirstName = providerFirstName;
+            this.hin = normalize(hin);
+            this.hinDigits = digits(hin);
+            this.address = normalize(address);
+            this.lastNameSound = sound(this.lastName);
+            this.firstNameSound = sound(this.firstName);
+        }
+
+        /**
+         * @param row Object[] as returned by DemographicDao.findSearchIndexRows
+         */
+        public static Entry fromRow(Object[] row) {
+            return new Entry(((Number) row[0]).intValue(), (String) row[1], (String) row[2], (String) row[3],
+                    row[4] == null ? null : String.valueOf(row[4]), (String) row[5], (String) row[6], (String) row[7],
+                    (String) row[8], (String) row[9], row[10] == null ? null : String.valueOf(row[10]),
+                    row[11] == null ? null : String.valueOf(row[11]), (String) row[12], (String) row[13], (String) row[14],
+                    (String) row[15]);
+        }
+
+        public int getDemographicNo() {
+            return demographicNo;
+        }
+
+        public String getLastName() {
+            return displayLastName;
+        }
+
+        public String getFirstName() {
+            return displayFirstName;
+        }
+
+        public String getChartNo() {
+            return displayChartNo;
+        }
+
+        public String getSex() {
+            return sex;
+        }
+
+        public String getProviderNo() {
+            return providerNo;
+        }
+
+        public String getRosterStatus() {
+            return rosterStatus;
+        }
+
+        public String getPatientStatus() {
+            return patientStatus;
+        }
+
+        public String getPhone() {
+            return displayPhone;
+        }
+
+        public String getYearOfBirth() {
+            return yearOfBirth;
+        }
+
+        public String getMonthOfBirth() {
+            return monthOfBirth;
+        }
+
+        public String getDateOfBirth() {
+            return dateOfBirth;
+        }
+
+        public String getProviderLastName() {
+            return providerLastName;
+        }
+
+        public String getProviderFirstName() {
+            return providerFirstName;
+        }
+
+        public String getHin() {
+            return displayHin;
+        }
+    }
+
+    /**
+     * Sorted list of demographic numbers.
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size = 0;
+
+        void add(int id) {
+            int i = size > 0 && ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (i >= 0) return;
+            i = -i - 1;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            ids[i] = id;
+            size++;
+        }
+
+        void addAll(Postings other) {
+            for (int i = 0; i < other.size; i++) add(other.ids[i]);
+        }
+
+        boolean remove(int id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i < 0) return false;
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        List<Entry> entries(Map<Integer, Entry> entries) {
+            List<Entry> result = new ArrayList<Entry>(size);
+            for (int i = 0; i < size; i++) {
+                Entry entry = entries.get(ids[i]);
+                if (entry != null) result.add(entry);
+            }
+            return result;
+        }
+
+        static Postings intersect(Postings a, Postings b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            return intersect(Arrays.asList(a, b));
+        }
+
+        static Postings intersect(List<Postings> lists) {
+            if (lists.isEmpty()) return null;
+            List<Postings> sorted = new ArrayList<Postings>(lists);
+            sorted.sort(Comparator.comparingInt(p -> p.size));
+            Postings smallest = sorted.get(0);
+            Postings result = new Postings();
+            for (int i = 0; i < smallest.size; i++) {
+                int id = smallest.ids[i];
+                boolean all = true;
+                for (int j = 1; j < sorted.size() && all; j++) {
+                    all = sorted.get(j).contains(id);
+                }
+                if (all) result.add(id);
+            }
+            return result;
+        }
+    }
+}
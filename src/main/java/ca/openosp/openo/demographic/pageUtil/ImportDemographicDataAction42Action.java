@@ -4698,7 +4698,7 @@ public class ImportDemographicDataAction42Action extends ActionSupport {
                         }
                     }
 
-                    measurementsExtDao.batchPersist(measurementsExtsToSave, 50);
+                    measurementsExtDao.batchPersist(measurementsExtsToSave);
 
                     String labInfo = getLabDline(labResult, 0);
                     if (StringUtils.filled(labInfo)) {
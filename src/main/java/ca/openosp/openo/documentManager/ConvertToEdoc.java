@@ -39,14 +39,10 @@ import ca.openosp.openo.managers.NioFileManager;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.PDFGenerationException;
 import ca.openosp.openo.utility.SpringUtils;
-import org.xhtmlrenderer.layout.SharedContext;
-import org.xhtmlrenderer.pdf.ITextRenderer;
 import ca.openosp.OscarProperties;
 import ca.openosp.openo.form.util.FormTransportContainer;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -80,7 +76,7 @@ public final class ConvertToEdoc {
     private static final String DEFAULT_WKHTMLTOPDF_COMMAND = "/usr/bin/wkhtmltopdf";
     private static final String DEFAULT_WKHTMLTOPDF_ARGS = "--enable-local-file-access --minimum-font-size 10 --print-media-type --encoding utf-8 -T 10mm -L 8mm -R 8mm --disable-javascript";
     
-    private static String realPath;
+    private static volatile String realPath;
     private static final NioFileManager nioFileManager = SpringUtils.getBean(NioFileManager.class);
 
     /**
@@ -90,7 +86,7 @@ public final class ConvertToEdoc {
      * temporary path to a file storage path prior to persisting this Object to the
      * database.
      */
-    public synchronized static EDoc from(EFormData eform) {
+    public static EDoc from(EFormData eform) {
 
         String eformString = eform.getFormData();
         String demographicNo = eform.getDemographicId() + "";
@@ -114,7 +110,7 @@ public final class ConvertToEdoc {
         return edoc;
     }
 
-    public synchronized static EDoc from(EFormData eForm, Path eFormPDFPath) throws PDFGenerationException {
+    public static EDoc from(EFormData eForm, Path eFormPDFPath) throws PDFGenerationException {
         String demographicNo = eForm.getDemographicId() + "";
         String filename = buildFilename(eForm.getFormName(), demographicNo);
         String eDocDescription = eForm.getSubject().trim().isEmpty() ? eForm.getFormName() : eForm.getSubject();
@@ -161,7 +157,7 @@ public final class ConvertToEdoc {
      * return ActionForward;
      * }
      */
-    public synchronized static EDoc from(FormTransportContainer formTransportContainer) {
+    public static EDoc from(FormTransportContainer formTransportContainer) {
 
         String htmlString = formTransportContainer.getHTML();
         String demographicNo = formTransportContainer.getDemographicNo();
@@ -198,7 +194,7 @@ public final class ConvertToEdoc {
      *
      * @return temporary path to the produced PDF..
      */
-    public synchronized static Path saveAsTempPDF(EFormData eform) {
+    public static Path saveAsTempPDF(EFormData eform) {
         String eformString = eform.getFormData();
         String filename = buildFilename(eform.getFormName(), eform.getDemographicId() + "");
         return execute(eformString, filename);
@@ -210,7 +206,7 @@ public final class ConvertToEdoc {
      *
      * @return temporary path to the produced PDF.
      */
-    public synchronized static Path saveAsTempPDF(FormTransportContainer formTransportContainer) {
+    public static Path saveAsTempPDF(FormTransportContainer formTransportContainer) {
         String htmlString = formTransportContainer.getHTML();
         ConvertToEdoc.realPath = formTransportContainer.getRealPath();
         String filename = buildFilename(formTransportContainer.getFormName(), formTransportContainer.getDemographicNo());
@@ -224,7 +220,7 @@ public final class ConvertToEdoc {
      * @param emailData An object representing email-related data, including HTML content.
      * @return temporary path to the produced PDF..
      */
-    public synchronized static Path saveAsTempPDF(EmailData emailData) {
+    public static Path saveAsTempPDF(EmailData emailData) {
         String htmlString = emailData.getEncryptedMessage();
         String filename = buildFilename("emailbody_", "");
         return execute(htmlString, filename);
@@ -236,18 +232,27 @@ public final class ConvertToEdoc {
     private static Path execute(final String eformString, final String filename) {
         Path path = null;
         String document = tidyDocument(eformString);
-        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-            renderPDF(document, os);
-            path = nioFileManager.saveTempFile(filename, os);
+        try {
+            path = nioFileManager.createTempPDFFile(filename);
+            PdfRenderingService.getInstance().render(document, path);
         } catch (DocumentException e1) {
             logger.error("Exception parsing file to PDF. File not saved. ", e1);
+            path = discard(path);
         } catch (IOException e) {
             logger.error("Problem while writing PDF file to filesystem. " + filename, e);
+            path = discard(path);
         }
 
         return path;
     }
 
+    private static Path discard(Path path) {
+        if (path != null) {
+            nioFileManager.deleteTempFile(path.toString());
+        }
+        return null;
+    }
+
     /**
      * create a well-formed filename
      */
@@ -298,85 +303,6 @@ public final class ConvertToEdoc {
         return eDoc;
     }
 
-    /**
-     * Use the io.woo.htmltopdf tools for HTML to PDF or
-     * use the Flying Saucer tools if there is a failure.
-     * Flying Saucer requires a well formed w3c XHTML document - which is usually
-     * not the case.
-     */
-    private static void renderPDF(final String document, ByteArrayOutputStream os)
-            throws DocumentException, IOException {
-        EDocConverterInterface converter = new InternalEDocConverter();
-
-        try {
-            converter.convert(document, os);
-        } catch(Exception e) {
-            logger.warn("Primary PDF conversion failed, attempting fallback: " + e.getMessage());
-
-            try {
-                os.reset();
-                fallbackRender(document, os);
-            } catch (Exception fallbackError) {
-                logger.error("Fallback PDF conversion also failed", fallbackError);
-                String combinedMessage = "PDF conversion failed with all methods. "
-                        + "Primary error: " + e.getMessage()
-                        + "; Fallback error: " + fallbackError.getMessage();
-                DocumentException docEx = new DocumentException(combinedMessage);
-                docEx.initCause(fallbackError);
-                throw docEx;
-            }
-        }
-    }
-
-    private static void fallbackRender(String document, OutputStream os)
-        throws DocumentException, IOException {
-        // Prepare document for Flying Saucer's strict XHTML requirements
-        Document doc = prepareDocumentForFlyingSaucer(document);
-        
-        ITextRenderer renderer = new ITextRenderer();
-        SharedContext sharedContext = renderer.getSharedContext();
-        sharedContext.setPrint(true);
-        sharedContext.setInteractive(false);
-        sharedContext.setReplacedElementFactory(new ReplacedElementFactoryImpl());
-        sharedContext.getTextRenderer().setSmoothingThreshold(0);
-        
-        renderer.setDocumentFromString(doc.outerHtml(), null);
-        renderer.layout();
-        try {
-            renderer.createPDF(os, true);
-        } catch (com.lowagie.text.DocumentException e) {
-            // Flying Saucer uses OpenPDF library which has a different DocumentException class
-            // Wrap it to maintain API consistency with iText-based PDF generation
-            logger.error("Failed to create PDF with Flying Saucer", e);
-            throw new DocumentException(e);
-        }
-    }
-
-    /**
-     * Prepare document for Flying Saucer which requires strict XHTML
-     */
-    private static Document prepareDocumentForFlyingSaucer(String document) {
-        Document doc = Jsoup.parse(document);
-        
-        // Flying Saucer requires XML/XHTML syntax
-        doc.outputSettings()
-            .syntax(Document.OutputSettings.Syntax.xml)  // Self-closes tags automatically
-            .escapeMode(Entities.EscapeMode.xhtml)
-            .charset("UTF-8")
-            .prettyPrint(false);
-        
-        // Remove scripts (Flying Saucer can't execute them)
-        doc.select("script").remove();
-        
-        // Ensure img tags have alt attributes (XHTML requirement)
-        doc.select("img:not([alt])").attr("alt", "");
-        
-        // Ensure input tags have type attribute
-        doc.select("input:not([type])").attr("type", "text");
-        
-        return doc;
-    }
-
     public static Document getDocument(final String documentString, String realPath) {
 		ConvertToEdoc.realPath = realPath;
 		return getDocument(documentString);
@@ -0,0 +1,458 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.documentManager;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.itextpdf.text.DocumentException;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.Logger;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Entities;
+import org.xhtmlrenderer.layout.SharedContext;
+import org.xhtmlrenderer.pdf.ITextRenderer;
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.utility.DeamonThreadFactory;
+import ca.openosp.openo.utility.MiscUtils;
+
+/**
+ * Renders HTML documents to PDF files on a bounded pool of worker threads.
+ *
+ * Every eForm, form and email body that is turned into a PDF used to be rendered on the request
+ * thread into an in-memory byte array, with a new Flying Saucer renderer (and its font setup) for
+ * each document whenever the primary converter failed. At a busy clinic concurrent printing then
+ * competes for heap and CPU without limit.
+ *
+ * This service:
+ * <ul>
+ * <li>renders on at most <code>pdf_render_threads</code> worker threads, of which at most
+ * <code>pdf_render_converter_threads</code> are inside the primary converter at once;</li>
+ * <li>admits at most <code>pdf_render_queue_size</code> waiting documents; further callers wait up to
+ * <code>pdf_render_timeout_seconds</code> for a slot and are then refused, so a spike degrades into
+ * waiting rather than memory pressure;</li>
+ * <li>keeps one Flying Saucer renderer per worker thread, so its shared context and font cache are built once;</li>
+ * <li>streams the PDF straight into a file of its own next to the target instead of buffering it in memory;</li>
+ * <li>records throughput and latency figures, see {@link #getStatistics()}, shown on the oscar status page.</li>
+ * </ul>
+ *
+ * A caller that times out abandons its document. A conversion does not stop on interrupt, so the
+ * worker keeps its admission slot until it really finishes, and then deletes what it wrote instead of
+ * moving it onto the target.
+ */
+public final class PdfRenderingService {
+
+    private static final Logger logger = MiscUtils.getLogger();
+
+    private static final int DEFAULT_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int DEFAULT_QUEUE_SIZE = 20;
+    private static final int DEFAULT_TIMEOUT_SECONDS = 120;
+    // the native wkhtmltopdf library behind the primary converter is not reentrant
+    private static final int DEFAULT_CONVERTER_THREADS = 1;
+
+    private static PdfRenderingService instance;
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore admission;
+    private final int timeoutSeconds;
+
+    private final EDocConverterInterface converter;
+    private final Semaphore converterPermits;
+    private final ThreadLocal<ITextRenderer> fallbackRenderer = new ThreadLocal<ITextRenderer>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong totalRenderMillis = new AtomicLong();
+    private final AtomicLong maxRenderMillis = new AtomicLong();
+
+    public static synchronized PdfRenderingService getInstance() {
+        if (instance == null) {
+            OscarProperties props = OscarProperties.getInstance();
+            instance = new PdfRenderingService(
+                    NumberUtils.toInt(props.getProperty("pdf_render_threads"), DEFAULT_THREADS),
+                    NumberUtils.toInt(props.getProperty("pdf_render_queue_size"), DEFAULT_QUEUE_SIZE),
+                    NumberUtils.toInt(props.getProperty("pdf_render_timeout_seconds"), DEFAULT_TIMEOUT_SECONDS),
+                    NumberUtils.toInt(props.getProperty("pdf_render_converter_threads"), DEFAULT_CONVERTER_THREADS),
+                    new InternalEDocConverter());
+        }
+        return instance;
+    }
+
+    PdfRenderingService(int threads, int queueSize, int timeoutSeconds, int converterThreads, EDocConverterInterface converter) {
+        threads = Math.max(1, threads);
+        this.timeoutSeconds = Math.max(1, timeoutSeconds);
+        this.converter = converter;
+        this.converterPermits = new Semaphore(Math.max(1, Math.min(threads, converterThreads)), true);
+        this.admission = new Semaphore(threads + Math.max(0, queueSize), true);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new DeamonThreadFactory(PdfRenderingService.class.getSimpleName() + ".executor", Thread.NORM_PRIORITY));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Renders an HTML document into the given file, blocking the caller until the PDF is written.
+     *
+     * @param document String a tidied HTML document
+     * @param target Path the file to write, it is overwritten
+     * @throws DocumentException if neither converter could render the document
+     * @throws IOException if the file could not be written, or the service is too busy to accept the document in time
+     */
+    public void render(final String document, final Path target) throws DocumentException, IOException {
+        final long queuedAt = System.currentTimeMillis();
+        submitted.incrementAndGet();
+        try {
+            if (!admission.tryAcquire(timeoutSeconds, TimeUnit.SECONDS)) {
+                rejected.incrementAndGet();
+                throw new IOException("PDF rendering is busy, " + admission.getQueueLength() + " documents waiting. Document not rendered: " + target.getFileName());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            throw new IOException("Interrupted while waiting to render " + target.getFileName(), e);
+        }
+
+        RenderTask task = new RenderTask(document, target, queuedAt);
+        Future<Void> future;
+        try {
+            future = executor.submit(task);
+        } catch (RuntimeException e) {
+            admission.release();
+            failed.incrementAndGet();
+            throw new IOException("Could not queue " + target.getFileName() + " for rendering", e);
+        }
+
+        try {
+            try {
+                future.get(timeoutSeconds, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                if (task.abandon()) {
+                    future.cancel(true);
+                    failed.incrementAndGet();
+                    throw new IOException("Timed out rendering " + target.getFileName(), e);
+                }
+                // the worker moved the PDF into place just as the wait ran out
+                future.get();
+            }
+            completed.incrementAndGet();
+        } catch (InterruptedException e) {
+            task.abandon();
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            failed.incrementAndGet();
+            throw new IOException("Interrupted while rendering " + target.getFileName(), e);
+        } catch (ExecutionException e) {
+            failed.incrementAndGet();
+            Throwable cause = e.getCause();
+            if (cause instanceof DocumentException) throw (DocumentException) cause;
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException("Failed rendering " + target.getFileName(), cause);
+        } finally {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Rendered " + target.getFileName() + " in " + (System.currentTimeMillis() - queuedAt) + "ms, " + getStatistics());
+            }
+        }
+    }
+
+    /**
+     * One document on its way through the pool. The worker holds the admission permit from the
+     * moment it starts until it is done with the converter and its file, whether or not the caller is
+     * still waiting.
+     */
+    private final class RenderTask implements Callable<Void> {
+        private final String document;
+        private final Path target;
+        private final long queuedAt;
+        private boolean started = false;
+        private boolean finished = false;
+        private boolean abandoned = false;
+
+        RenderTask(String document, Path target, long queuedAt) {
+            this.document = document;
+            this.target = target;
+            this.queuedAt = queuedAt;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            if (!begin()) {
+                return null;
+            }
+            long startedAt = System.currentTimeMillis();
+            totalWaitMillis.addAndGet(startedAt - queuedAt);
+            Path part = null;
+            try {
+                part = Files.createTempFile(target.getParent(), "render", ".part");
+                renderToFile(document, part);
+                if (publish(part)) {
+                    part = null;
+                }
+                return null;
+            } finally {
+                if (part != null) {
+                    Files.deleteIfExists(part);
+                }
+                long elapsed = System.currentTimeMillis() - startedAt;
+                totalRenderMillis.addAndGet(elapsed);
+                maxRenderMillis.accumulateAndGet(elapsed, Math::max);
+                admission.release();
+            }
+        }
+
+        private synchronized boolean begin() {
+            if (abandoned) {
+                return false;
+            }
+            started = true;
+            return true;
+        }
+
+        /**
+         * Moves the rendered file onto the target, unless the caller has given up on it.
+         */
+        private synchronized boolean publish(Path part) throws IOException {
+            if (abandoned) {
+                return false;
+            }
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+            finished = true;
+            return true;
+        }
+
+        /**
+         * Called by a caller that stops waiting. A task still in the queue never runs and its permit
+         * is returned here, a running one returns it when the worker is done.
+         *
+         * @return false when the PDF is already on the target
+         */
+        synchronized boolean abandon() {
+            if (finished) {
+                return false;
+            }
+            if (!abandoned && !started) {
+                admission.release();
+            }
+            abandoned = true;
+            return true;
+        }
+    }
+
+    /**
+     * Use the io.woo.htmltopdf tools for HTML to PDF or
+     * use the Flying Saucer tools if there is a failure.
+     * Flying Saucer requires a well formed w3c XHTML document - which is usually
+     * not the case.
+     */
+    private void renderToFile(String document, Path file) throws DocumentException, IOException, InterruptedException {
+        Exception primaryError;
+        // a worker abandoned while waiting for the converter stops here
+        converterPermits.acquire();
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            converter.convert(document, os);
+            return;
+        } catch (Exception e) {
+            primaryError = e;
+        } finally {
+            converterPermits.release();
+        }
+
+        logger.warn("Primary PDF conversion failed, attempting fallback: " + primaryError.getMessage());
+        fallbacks.incrementAndGet();
+
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            fallbackRender(document, os);
+        } catch (Exception fallbackError) {
+            logger.error("Fallback PDF conversion also failed", fallbackError);
+            String combinedMessage = "PDF conversion failed with all methods. "
+                    + "Primary error: " + primaryError.getMessage()
+                    + "; Fallback error: " + fallbackError.getMessage();
+            DocumentException docEx = new DocumentException(combinedMessage);
+            docEx.initCause(fallbackError);
+            throw docEx;
+        }
+    }
+
+    private void fallbackRender(String document, OutputStream os) throws DocumentException {
+        // Prepare document for Flying Saucer's strict XHTML requirements
+        Document doc = prepareDocumentForFlyingSaucer(document);
+
+        ITextRenderer renderer = fallbackRenderer.get();
+        if (renderer == null) {
+            renderer = new ITextRenderer();
+            SharedContext sharedContext = renderer.getSharedContext();
+            sharedContext.setPrint(true);
+            sharedContext.setInteractive(false);
+            sharedContext.setReplacedElementFactory(new ReplacedElementFactoryImpl());
+            sharedContext.getTextRenderer().setSmoothingThreshold(0);
+            fallbackRenderer.set(renderer);
+        }
+
+        try {
+            renderer.setDocumentFromString(doc.outerHtml(), null);
+            renderer.layout();
+            renderer.createPDF(os, true);
+        } catch (com.lowagie.text.DocumentException e) {
+            // Flying Saucer uses OpenPDF library which has a different DocumentException class
+            // Wrap it to maintain API consistency with iText-based PDF generation
+            fallbackRenderer.remove();
+            logger.error("Failed to create PDF with Flying Saucer", e);
+            throw new DocumentException(e);
+        } catch (RuntimeException e) {
+            // do not reuse a renderer left in an unknown state
+            fallbackRenderer.remove();
+            throw e;
+        }
+    }
+
+    /**
+     * Prepare document for Flying Saucer which requires strict XHTML
+     */
+    private static Document prepareDocumentForFlyingSaucer(String document) {
+        Document doc = Jsoup.parse(document);
+
+        // Flying Saucer requires XML/XHTML syntax
+        doc.outputSettings()
+            .syntax(Document.OutputSettings.Syntax.xml)  // Self-closes tags automatically
+            .escapeMode(Entities.EscapeMode.xhtml)
+            .charset("UTF-8")
+            .prettyPrint(false);
+
+        // Remove scripts (Flying Saucer can't execute them)
+        doc.select("script").remove();
+
+        // Ensure img tags have alt attributes (XHTML requirement)
+        doc.select("img:not([alt])").attr("alt", "");
+
+        // Ensure input tags have type attribute
+        doc.select("input:not([type])").attr("type", "text");
+
+        return doc;
+    }
+
+    /**
+     * @return Statistics a snapshot of the rendering counters
+     */
+    public Statistics getStatistics() {
+        return new Statistics(submitted.get(), completed.get(), failed.get(), rejected.get(), fallbacks.get(),
+                executor.getActiveCount(), executor.getQueue().size(), totalWaitMillis.get(), totalRenderMillis.get(), maxRenderMillis.get());
+    }
+
+    /**
+     * Point in time throughput and latency figures of the rendering pool.
+     */
+    public static final class Statistics {
+        private final long submitted;
+        private final long completed;
+        private final long failed;
+        private final long rejected;
+        private final long fallbacks;
+        private final int active;
+        private final int queued;
+        private final long totalWaitMillis;
+        private final long totalRenderMillis;
+        private final long maxRenderMillis;
+
+        Statistics(long submitted, long completed, long failed, long rejected, long fallbacks, int active, int queued,
+                   long totalWaitMillis, long totalRenderMillis, long maxRenderMillis) {
+            this.submitted = submitted;
+            this.completed = completed;
+            this.failed = failed;
+            this.rejected = rejected;
+            this.fallbacks = fallbacks;
+            this.active = active;
+            this.queued = queued;
+            this.totalWaitMillis = totalWaitMillis;
+            this.totalRenderMillis = totalRenderMillis;
+            this.maxRenderMillis = maxRenderMillis;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getFallbacks() {
+            return fallbacks;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public long getAverageWaitMillis() {
+            long rendered = completed + failed;
+            return rendered == 0 ? 0 : totalWaitMillis / rendered;
+        }
+
+        public long getAverageRenderMillis() {
+            long rendered = completed + failed;
+            return rendered == 0 ? 0 : totalRenderMillis / rendered;
+        }
+
+        public long getMaxRenderMillis() {
+            return maxRenderMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "submitted=" + submitted + ", completed=" + completed + ", failed=" + failed + ", rejected=" + rejected
+                    + ", fallbacks=" + fallbacks + ", active=" + active + ", queued=" + queued
+                    + ", avgWaitMs=" + getAverageWaitMillis() + ", avgRenderMs=" + getAverageRenderMillis() + ", maxRenderMs=" + maxRenderMillis;
+        }
+    }
+}
@@ -27,21 +27,20 @@
 package ca.openosp.openo.documentManager.actions;
 
 import java.io.IOException;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import ca.openosp.openo.documentManager.EDocUtil;
+import ca.openosp.openo.commn.dao.DocumentDao;
+import ca.openosp.openo.commn.model.Document;
 import ca.openosp.openo.managers.SecurityInfoManager;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.SpringUtils;
 
 import ca.openosp.OscarProperties;
-import ca.openosp.openo.util.ConcatPDF;
+import ca.openosp.openo.util.PDFAssembler;
 import ca.openosp.openo.util.UtilDateUtilities;
 
 /**
@@ -56,6 +55,7 @@ public class CombinePDF2Action extends ActionSupport {
 
 
     private SecurityInfoManager securityInfoManager = SpringUtils.getBean(SecurityInfoManager.class);
+    private DocumentDao documentDao = SpringUtils.getBean(DocumentDao.class);
 
     public String execute() {
 
@@ -65,18 +65,21 @@ public class CombinePDF2Action extends ActionSupport {
 
         String[] files = request.getParameterValues("docNo");
         String ContentDisposition = request.getParameter("ContentDisposition");
-        ArrayList<Object> alist = new ArrayList<Object>();
         if (files != null) {
             MiscUtils.getLogger().debug("size = " + files.length);
-            EDocUtil docData = new EDocUtil();
             String path = OscarProperties.getInstance().getProperty("DOCUMENT_DIR");
-            Path filePath;
+            PDFAssembler assembler = new PDFAssembler();
+            assembler.setSkipUnreadableSources(true);
+            int documents = 0;
             for (int i = 0; i < files.length; i++) {
-                String filename = docData.getDocumentName(files[i]);
-                filePath = Paths.get(path, filename);
-                alist.add(filePath.toAbsolutePath().toString());
+                Document document = documentDao.getDocument(files[i]);
+                if (document == null) {
+                    continue;
+                }
+                assembler.addSource(Paths.get(path, document.getDocfilename()).toFile()).setBookmark(document.getDocdesc());
+                documents++;
             }
-            if (alist.size() > 0) {
+            if (documents > 0) {
                 response.setContentType("application/pdf");  //octet-stream
                 if (ContentDisposition != null && ContentDisposition.equals("inline")) {
                     response.setHeader("Transfer-Encoding", "chunked");
@@ -88,7 +91,7 @@ public class CombinePDF2Action extends ActionSupport {
                     response.setHeader("Content-Disposition", "attachment; filename=\"combinedPDF-" + UtilDateUtilities.getToday("yyyy-MM-dd.hh.mm.ss") + ".pdf\"");
                 }
                 try {
-                    ConcatPDF.concat(alist, response.getOutputStream());
+                    assembler.assemble(response.getOutputStream());
                 } catch (IOException ex) {
                     MiscUtils.getLogger().error("Error", ex);
                 }
@@ -30,7 +30,6 @@ import org.apache.pdfbox.io.RandomAccessFile;
 import org.apache.pdfbox.pdfparser.PDFParser;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageTree;
 import ca.openosp.openo.commn.dao.CtlDocumentDao;
 import ca.openosp.openo.commn.dao.DocumentDao;
 import ca.openosp.openo.commn.dao.PatientLabRoutingDao;
@@ -52,6 +51,7 @@ import org.springframework.web.context.support.WebApplicationContextUtils;
 import ca.openosp.openo.documentManager.EDoc;
 import ca.openosp.openo.documentManager.EDocUtil;
 import ca.openosp.openo.lab.ca.all.upload.ProviderLabRouting;
+import ca.openosp.openo.util.PDFAssembler;
 
 
 import com.opensymphony.xwork2.ActionSupport;
@@ -104,18 +104,9 @@ public class SplitDocument2Action extends ActionSupport {
 
         String newFilename = doc.getDocfilename();
 
-        PDDocument pdf = null;
-        PDDocument newPdf = null;
-
         try {
-            File input = new File(docdownload + doc.getDocfilename());
-            PDFParser parser = new PDFParser(new RandomAccessFile(input, "rw"));
-            parser.parse();
-            pdf = parser.getPDDocument();
-
-            newPdf = new PDDocument();
-
-            PDPageTree pages = pdf.getDocumentCatalog().getPages();
+            PDFAssembler assembler = new PDFAssembler();
+            PDFAssembler.Source source = assembler.addSource(new File(docdownload + doc.getDocfilename()));
 
             if (commands != null) {
                 for (String c : commands) {
@@ -123,27 +114,23 @@ public class SplitDocument2Action extends ActionSupport {
                     int pageNum = Integer.parseInt(command[0]);
                     int rotation = Integer.parseInt(command[1]);
 
-                    PDPage p = (PDPage) pages.get(pageNum - 1);
-                    p.setRotation(rotation);
-
-                    newPdf.addPage(p);
+                    source.addPage(pageNum, rotation);
                 }
 
             }
 
-            if (newPdf.getNumberOfPages() > 0) {
+            EDoc newDoc = new EDoc("", "", newFilename, "", providerNo, doc.getDoccreator(), "", 'A', DateFormatUtils.format(new Date(), "yyyy-MM-dd"), "", "", "demographic", "-1", 0);
+            int numberOfPages = commands != null ? assembler.assemble(new File(docdownload + newDoc.getFileName())) : 0;
+
+            if (numberOfPages > 0) {
 
 
-                EDoc newDoc = new EDoc("", "", newFilename, "", providerNo, doc.getDoccreator(), "", 'A', DateFormatUtils.format(new Date(), "yyyy-MM-dd"), "", "", "demographic", "-1", 0);
                 newDoc.setDocPublic("0");
                 newDoc.setContentType("application/pdf");
-                newDoc.setNumberOfPages(newPdf.getNumberOfPages());
+                newDoc.setNumberOfPages(numberOfPages);
 
                 String newDocNo = EDocUtil.addDocumentSQL(newDoc);
 
-                newPdf.save(docdownload + newDoc.getFileName());
-                newPdf.close();
-
 
                 WebApplicationContext ctx = WebApplicationContextUtils.getRequiredWebApplicationContext(request.getSession().getServletContext());
                 ProviderInboxRoutingDao providerInboxRoutingDao = (ProviderInboxRoutingDao) ctx.getBean("queueDocumentLinkDao");
@@ -210,14 +197,6 @@ public class SplitDocument2Action extends ActionSupport {
         } catch (Exception e) {
             MiscUtils.getLogger().error(e.getMessage(), e);
             return null;
-        } finally {
-            try {
-
-                if (pdf != null) pdf.close();
-
-            } catch (IOException e) {
-                //do nothing
-            }
         }
 
         return SUCCESS;
@@ -0,0 +1,474 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.drools;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.codec.digest.HmacAlgorithms;
+import org.apache.commons.codec.digest.HmacUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.Logger;
+import org.drools.RuleBase;
+import org.drools.io.RuleBaseLoader;
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.utility.MiscUtils;
+
+/**
+ * Compiles Drools rule sets, sharing the compiled rule bases by content.
+ *
+ * A rule set is identified by the SHA-256 hash of its XML, so identical rule sets built by
+ * different flowsheets, guidelines or reports share one compiled {@link RuleBase}, and a changed
+ * rule set can never match a stale entry. Compiled rule bases are kept in {@link RuleBaseFactory}
+ * and serialized to an on-disk cache (drools.compiled_cache_dir), so after a restart they are read
+ * back instead of being compiled again. The cache directory is versioned by the Drools release and
+ * the application build; when either changes the old entries are ignored. An entry that can't be
+ * read back is deleted and the rule set is compiled from source.
+ *
+ * Reading an entry deserializes it, so the cache is only used in a directory owned by the
+ * application user that no one else can write to, and every entry carries an HMAC-SHA256 of its
+ * bytes made with a key generated for that directory. An entry whose HMAC doesn't match is never
+ * deserialized.
+ *
+ * Rule sets whose source can change while the application runs (e.g. the prevention rules) are
+ * registered by name with a {@link RuleSetSource}. {@link #getRuleBase(String)} returns the rule
+ * base compiled from the source as last read, and {@link #refresh(String)} re-reads the source and
+ * compiles it if its content changed. Callers keep getting the previous rule base until the new one
+ * is compiled, see RuleBaseCompilationManager for the startup compilation and the background checks.
+ *
+ * Thread Safety: concurrent requests for the same rule set wait for a single compilation.
+ *
+ * @see RuleBaseFactory
+ * @see RuleSetSource
+ */
+public final class RuleBaseCompiler {
+
+    private static final Logger logger = MiscUtils.getLogger();
+
+    /**
+     * Version of the serialized form, bumped when the way rule bases are written changes.
+     */
+    static final String CACHE_FORMAT = "drools-2.0-v2";
+
+    private static final String RULE_BASE_FACTORY_PREFIX = "RuleBaseCompiler:";
+    private static final String CACHE_FILE_SUFFIX = ".rulebase";
+    private static final String CACHE_KEY_FILE = "cache.key";
+    private static final int CACHE_KEY_LENGTH = 32;
+    private static final int MAC_LENGTH = 32;
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+
+    private static final Map<String, FutureTask<RuleBase>> compiling = new ConcurrentHashMap<String, FutureTask<RuleBase>>();
+
+    private static final Map<String, RuleSetSource> sources = new ConcurrentHashMap<String, RuleSetSource>();
+    private static final Map<String, CompiledRuleSet> compiled = new ConcurrentHashMap<String, CompiledRuleSet>();
+
+    private static volatile File cacheDirectory = null;
+    private static volatile boolean cacheDirectoryResolved = false;
+    private static byte[] cacheKey = null;
+
+    private static final class CompiledRuleSet {
+        private final String hash;
+        private final RuleBase ruleBase;
+
+        private CompiledRuleSet(String hash, RuleBase ruleBase) {
+            this.hash = hash;
+            this.ruleBase = ruleBase;
+        }
+    }
+
+    private RuleBaseCompiler() {
+    }
+
+    /**
+     * Returns the compiled rule base for the given rule set XML.
+     *
+     * @param ruleSetXml String the Drools XML rule set
+     * @return RuleBase the compiled rule base, shared with every caller compiling the same XML
+     * @throws Exception if the rule set cannot be compiled
+     */
+    public static RuleBase compile(String ruleSetXml) throws Exception {
+        return compile(ruleSetXml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the compiled rule base for a rule set file.
+     *
+     * @param file File the Drools XML rule set (.drl)
+     * @return RuleBase the compiled rule base
+     * @throws Exception if the file cannot be read or the rule set cannot be compiled
+     */
+    public static RuleBase compile(File file) throws Exception {
+        return compile(FileUtils.readFileToByteArray(file));
+    }
+
+    /**
+     * Returns the compiled rule base for a rule set resource.
+     *
+     * @param url URL the Drools XML rule set (.drl), usually a classpath resource
+     * @return RuleBase the compiled rule base
+     * @throws Exception if the resource cannot be read or the rule set cannot be compiled
+     */
+    public static RuleBase compile(URL url) throws Exception {
+        InputStream in = url.openStream();
+        try {
+            return compile(IOUtils.toByteArray(in));
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Returns the compiled rule base for the given rule set content.
+     *
+     * @param ruleSet byte[] the Drools XML rule set
+     * @return RuleBase the compiled rule base
+     * @throws Exception if the rule set cannot be compiled
+     */
+    public static RuleBase compile(byte[] ruleSet) throws Exception {
+        return compile(ruleSet, hash(ruleSet));
+    }
+
+    private static RuleBase compile(byte[] ruleSet, String hash) throws Exception {
+        RuleBase ruleBase = RuleBaseFactory.getRuleBase(RULE_BASE_FACTORY_PREFIX + hash);
+        if (ruleBase != null) return ruleBase;
+
+        FutureTask<RuleBase> task = new FutureTask<RuleBase>(() -> load(ruleSet, hash));
+        FutureTask<RuleBase> running = compiling.putIfAbsent(hash, task);
+        if (running == null) {
+            running = task;
+            task.run();
+        }
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+            throw e;
+        } finally {
+            compiling.remove(hash, running);
+        }
+    }
+
+    private static RuleBase load(byte[] ruleSet, String hash) throws Exception {
+        File cacheFile = getCacheFile(hash);
+        RuleBase ruleBase = cacheFile != null ? read(cacheFile) : null;
+        if (ruleBase == null) {
+            long start = System.currentTimeMillis();
+            ruleBase = RuleBaseLoader.loadFromInputStream(new ByteArrayInputStream(ruleSet));
+            logger.debug("Compiled rule set " + hash + " in " + (System.currentTimeMillis() - start) + " ms");
+            if (cacheFile != null) write(cacheFile, ruleBase);
+        }
+        RuleBaseFactory.putRuleBase(RULE_BASE_FACTORY_PREFIX + hash, ruleBase);
+        return ruleBase;
+    }
+
+    /**
+     * Registers a named rule set. The source is not read until the rule set is first requested or
+     * refreshed, registering the same name again replaces the source.
+     *
+     * @param name String the rule set name, e.g. "prevention"
+     * @param source RuleSetSource supplies the current rule set content
+     */
+    public static void register(String name, RuleSetSource source) {
+        sources.put(name, source);
+        compiled.remove(name);
+    }
+
+    /**
+     * @return List the names of the registered rule sets
+     */
+    public static List<String> getRuleSetNames() {
+        return new ArrayList<String>(sources.keySet());
+    }
+
+    /**
+     * Returns the rule base of a registered rule set, compiling it on first use.
+     *
+     * @param name String the registered rule set name
+     * @return RuleBase the rule base compiled from the source as last read
+     * @throws Exception if the rule set is not registered or cannot be compiled
+     */
+    public static RuleBase getRuleBase(String name) throws Exception {
+        CompiledRuleSet current = compiled.get(name);
+        if (current != null) return current.ruleBase;
+        return refresh(name);
+    }
+
+    /**
+     * Reads the source of a registered rule set again and compiles it if its content changed. The
+     * previous rule base stays in use until the new one is compiled, and is kept if compiling fails.
+     *
+     * @param name String the registered rule set name
+     * @return RuleBase the current rule base
+     * @throws Exception if the rule set is not registered, or its source cannot be read or compiled
+     */
+    public static RuleBase refresh(String name) throws Exception {
+        RuleSetSource source = sources.get(name);
+        if (source == null) {
+            throw new IllegalArgumentException("No rule set registered as " + name);
+        }
+        byte[] ruleSet = source.getRuleSet();
+        String hash = hash(ruleSet);
+
+        CompiledRuleSet current = compiled.get(name);
+        if (current != null && current.hash.equals(hash)) return current.ruleBase;
+
+        CompiledRuleSet updated = new CompiledRuleSet(hash, compile(ruleSet, hash));
+        if (sources.get(name) == source) {
+            compiled.put(name, updated);
+            if (current != null) logger.info("Rule set " + name + " changed, now using " + hash);
+        }
+        return updated.ruleBase;
+    }
+
+    /**
+     * Refreshes every registered rule set, logging the ones that fail. Used by the background check.
+     */
+    public static void refreshAll() {
+        for (String name : getRuleSetNames()) {
+            try {
+                refresh(name);
+            } catch (Exception e) {
+                logger.error("Unable to compile rule set " + name, e);
+            }
+        }
+    }
+
+    static String hash(byte[] ruleSet) {
+        return DigestUtils.sha256Hex(ruleSet);
+    }
+
+    /**
+     * @return File the versioned cache directory, or null when the on-disk cache is turned off or not writable
+     */
+    static File getCacheDirectory() {
+        if (!cacheDirectoryResolved) {
+            synchronized (RuleBaseCompiler.class) {
+                if (!cacheDirectoryResolved) {
+                    cacheDirectory = resolveCacheDirectory();
+                    cacheDirectoryResolved = true;
+                }
+            }
+        }
+        return cacheDirectory;
+    }
+
+    /**
+     * Points the on-disk cache at another directory, null turns it off.
+     */
+    static synchronized void setCacheDirectory(File directory) {
+        cacheDirectory = directory;
+        cacheDirectoryResolved = true;
+        cacheKey = null;
+    }
+
+    private static File resolveCacheDirectory() {
+        OscarProperties props = OscarProperties.getInstance();
+        if (props.getBooleanProperty("drools.compiled_cache", "false")) return null;
+
+        String dir = props.getProperty("drools.compiled_cache_dir");
+        if (StringUtils.isBlank(dir)) {
+            dir = props.getProperty("BASE_DOCUMENT_DIR");
+            if (StringUtils.isBlank(dir)) return null;
+            dir = new File(dir.trim(), "drools_cache").getPath();
+        }
+        File base = new File(dir.trim());
+        // compiled consequences call application classes, a rule base compiled by another build is not reused
+        String build = StringUtils.defaultIfBlank(OscarProperties.getBuildTag(), "unknown") + "-" + StringUtils.defaultIfBlank(OscarProperties.getBuildDate(), "unknown");
+        File format = new File(base, CACHE_FORMAT);
+        File directory = new File(format, build.replaceAll("[^A-Za-z0-9._-]", "_"));
+        try {
+            if (!base.isDirectory() && base.getAbsoluteFile().getParentFile() != null) Files.createDirectories(base.getAbsoluteFile().getParentFile().toPath());
+            for (File d : new File[]{base, format, directory}) {
+                if (!d.isDirectory()) createPrivate(d.toPath(), true);
+                if (!isPrivate(d.toPath())) {
+                    logger.warn("The compiled rule base cache " + d + " is not owned by the application user or can be written by others, rule sets will be compiled on every start");
+                    return null;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to create the compiled rule base cache " + directory + ", rule sets will be compiled on every start: " + e);
+            return null;
+        }
+        return directory;
+    }
+
+    /**
+     * @return true if the file is owned by the user running the application and, where the file
+     * system has POSIX permissions, can't be written by its group or others
+     */
+    static boolean isPrivate(Path path) {
+        try {
+            Path real = path.toRealPath();
+            if (!Files.getOwner(real, LinkOption.NOFOLLOW_LINKS).equals(getProcessOwner())) return false;
+            if (Files.getFileStore(real).supportsFileAttributeView(PosixFileAttributeView.class)) {
+                Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(real, LinkOption.NOFOLLOW_LINKS);
+                return !permissions.contains(PosixFilePermission.GROUP_WRITE) && !permissions.contains(PosixFilePermission.OTHERS_WRITE);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Unable to check the owner of " + path + ": " + e);
+            return false;
+        }
+    }
+
+    private static UserPrincipal getProcessOwner() throws IOException {
+        // the owner of a file this process creates, names alone differ between platforms
+        Path probe = Files.createTempFile("owner", ".tmp");
+        try {
+            return Files.getOwner(probe);
+        } finally {
+            Files.deleteIfExists(probe);
+        }
+    }
+
+    /**
+     * @return byte[] the HMAC key of the cache directory, generated the first time the directory is used
+     */
+    private static synchronized byte[] getCacheKey(File directory) throws IOException {
+        if (cacheKey != null) return cacheKey;
+        Path keyFile = new File(directory, CACHE_KEY_FILE).toPath();
+        if (!Files.exists(keyFile, LinkOption.NOFOLLOW_LINKS)) {
+            byte[] key = new byte[CACHE_KEY_LENGTH];
+            new SecureRandom().nextBytes(key);
+            Path tmp = new File(directory, CACHE_KEY_FILE + "." + Thread.currentThread().getId() + ".tmp").toPath();
+            Files.deleteIfExists(tmp);
+            createPrivate(tmp, false);
+            try {
+                Files.write(tmp, key);
+                Files.move(tmp, keyFile, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        if (!isPrivate(keyFile)) {
+            throw new IOException("The compiled rule base cache key " + keyFile + " is not owned by the application user or can be written by others");
+        }
+        byte[] key = Files.readAllBytes(keyFile);
+        if (key.length != CACHE_KEY_LENGTH) {
+            throw new IOException("The compiled rule base cache key " + keyFile + " is invalid");
+        }
+        cacheKey = key;
+        return key;
+    }
+
+    private static void createPrivate(Path path, boolean directory) throws IOException {
+        if (!Files.getFileStore(path.toAbsolutePath().getParent()).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            if (directory) Files.createDirectory(path);
+            else Files.createFile(path);
+        } else if (directory) {
+            Files.createDirectory(path, PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY));
+        } else {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+        }
+    }
+
+    private static byte[] mac(byte[] key, byte[] data, int offset) {
+        HmacUtils hmac = new HmacUtils(HmacAlgorithms.HMAC_SHA_256, key);
+        return hmac.hmac(Arrays.copyOfRange(data, offset, data.length));
+    }
+
+    private static File getCacheFile(String hash) {
+        File directory = getCacheDirectory();
+        return directory == null ? null : new File(directory, hash + CACHE_FILE_SUFFIX);
+    }
+
+    /**
+     * Reads a cache entry: the HMAC of the serialized rule base followed by the rule base. Nothing
+     * is deserialized unless the HMAC matches.
+     */
+    private static RuleBase read(File cacheFile) {
+        if (!cacheFile.isFile()) return null;
+        ObjectInputStream in = null;
+        try {
+            byte[] entry = Files.readAllBytes(cacheFile.toPath());
+            if (entry.length <= MAC_LENGTH
+                    || !MessageDigest.isEqual(Arrays.copyOf(entry, MAC_LENGTH), mac(getCacheKey(cacheFile.getParentFile()), entry, MAC_LENGTH))) {
+                throw new IOException("HMAC mismatch");
+            }
+            in = new ObjectInputStream(new ByteArrayInputStream(entry, MAC_LENGTH, entry.length - MAC_LENGTH));
+            return (RuleBase) in.readObject();
+        } catch (Exception | LinkageError e) {
+            logger.warn("Discarding unreadable compiled rule base " + cacheFile + ": " + e);
+            if (!cacheFile.delete()) cacheFile.deleteOnExit();
+            return null;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private static void write(File cacheFile, RuleBase ruleBase) {
+        File tmp = new File(cacheFile.getParentFile(), cacheFile.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            serialized.write(new byte[MAC_LENGTH]);
+            ObjectOutputStream objectOut = new ObjectOutputStream(serialized);
+            objectOut.writeObject(ruleBase);
+            objectOut.flush();
+            byte[] entry = serialized.toByteArray();
+            System.arraycopy(mac(getCacheKey(cacheFile.getParentFile()), entry, MAC_LENGTH), 0, entry, 0, MAC_LENGTH);
+
+            OutputStream out = Files.newOutputStream(tmp.toPath());
+            try {
+                out.write(entry);
+            } finally {
+                out.close();
+            }
+            Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Unable to write compiled rule base " + cacheFile + ": " + e);
+            tmp.delete();
+        }
+    }
+}
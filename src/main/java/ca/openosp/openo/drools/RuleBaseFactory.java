@@ -24,7 +24,6 @@
  */
 package ca.openosp.openo.drools;
 
-import org.apache.commons.lang3.time.DateUtils;
 import org.drools.RuleBase;
 import ca.openosp.openo.utility.QueueCache;
 
@@ -36,13 +35,15 @@ import ca.openosp.openo.utility.QueueCache;
  * It implements a caching mechanism to optimize performance by avoiding repeated
  * compilation of rule bases.
  *
- * The factory uses a QueueCache to store rule base instances with automatic expiration
- * after 24 hours. This ensures that rule updates can be deployed without requiring
- * system restarts while maintaining good performance through caching.
+ * The factory uses a QueueCache to store rule base instances. Entries are not expired on a
+ * timer: rule bases compiled through {@link RuleBaseCompiler} are keyed by a hash of their
+ * content, so a changed rule set gets a new key, and entries keyed by a source id are removed
+ * by the code that changes the source (see {@link #removeRuleBase(String)}). Least recently
+ * added entries are dropped when the cache is full.
  *
  * Key features:
  * - Thread-safe singleton pattern for rule base management
- * - Automatic cache expiration after 24 hours
+ * - No time based expiry, rule bases are only recompiled when their source changes
  * - Maximum of 2048 cached rule bases with a queue size of 4
  * - Support for multiple rule bases identified by unique source keys
  *
@@ -74,26 +75,22 @@ public final class RuleBaseFactory {
      * Configuration parameters:
      * - Queue size: 4 (number of queue buckets for load distribution)
      * - Max entries: 2048 (maximum number of rule bases to cache)
-     * - Expiry time: 24 hours (DateUtils.MILLIS_PER_DAY)
-     * - Expiry handler: null (no custom cleanup on expiration)
-     *
-     * The cache automatically evicts entries older than 24 hours to ensure
-     * rule updates are reflected within a day without manual intervention.
+     * - Cloner: null (rule bases are shared, not copied)
      */
-    private static QueueCache<String, RuleBase> ruleBaseInstances = new QueueCache<String, RuleBase>(4, 2048, DateUtils.MILLIS_PER_DAY, null);
+    private static QueueCache<String, RuleBase> ruleBaseInstances = new QueueCache<String, RuleBase>(4, 2048, null);
 
     /**
      * Retrieves a cached RuleBase instance by its source key.
      *
      * This method provides thread-safe access to compiled rule bases. If the
-     * requested rule base is not in the cache or has expired, null is returned.
+     * requested rule base is not in the cache or was evicted, null is returned.
      * Callers should check for null and compile/load the rule base if needed.
      *
      * The source key typically identifies the type of rules being accessed,
      * such as "prevention", "ckd", "diabetes", or module-specific identifiers.
      *
      * @param sourceKey String unique identifier for the rule base (e.g., "prevention", "ckd")
-     * @return RuleBase the cached rule base instance, or null if not found or expired
+     * @return RuleBase the cached rule base instance, or null if not found
      */
     public static synchronized RuleBase getRuleBase(String sourceKey) {
         return (ruleBaseInstances.get(sourceKey));
@@ -103,8 +100,8 @@ public final class RuleBaseFactory {
      * Stores a RuleBase instance in the cache.
      *
      * Adds or updates a compiled rule base in the cache with the specified key.
-     * The rule base will be automatically evicted after 24 hours to ensure
-     * updates to rules are reflected within a reasonable timeframe.
+     * The rule base stays cached until it is removed, flushed or pushed out by
+     * newer entries.
      *
      * This method should be called after successfully compiling a rule base
      * from DRL (Drools Rule Language) files or other rule sources.
@@ -119,8 +116,7 @@ public final class RuleBaseFactory {
     /**
      * Removes a specific RuleBase from the cache.
      *
-     * Explicitly removes a rule base from the cache before its natural expiration.
-     * This is useful when rules have been updated and the cached version needs
+     * Explicitly removes a rule base from the cache. This is useful when rules have been updated and the cached version needs
      * to be invalidated immediately.
      *
      * Common scenarios for removal:
@@ -151,6 +147,6 @@ public final class RuleBaseFactory {
      */
     public static synchronized void flushAllCached() {
         // Create new cache instance to clear all cached entries
-        ruleBaseInstances = new QueueCache<String, RuleBase>(4, 2048, DateUtils.MILLIS_PER_DAY, null);
+        ruleBaseInstances = new QueueCache<String, RuleBase>(4, 2048, null);
     }
 }
@@ -187,9 +187,7 @@ public class EFormLoader {
             String configpath = op.getProperty("eform_databaseap_config");
             InputStream fs = null;
             if (configpath == null) {
-                EFormLoader eLoader = new EFormLoader();
-                ClassLoader loader = eLoader.getClass().getClassLoader();
-                fs = loader.getResourceAsStream("/oscar/eform/apconfig.xml");
+                fs = EFormLoader.class.getResourceAsStream("/oscar/eform/apconfig.xml");
             } else {
                 fs = new FileInputStream(configpath);
             }
@@ -27,7 +27,6 @@
 package ca.openosp.openo.eform.actions;
 
 import org.apache.logging.log4j.Logger;
-import ca.openosp.openo.commn.model.Demographic;
 import ca.openosp.openo.commn.model.enumerator.DocumentType;
 import ca.openosp.openo.documentManager.DocumentAttachmentManager;
 import ca.openosp.openo.email.core.EmailAttachmentSettings;
@@ -36,9 +35,6 @@ import ca.openosp.openo.managers.EformDataManager;
 import ca.openosp.openo.managers.EmailManager;
 import ca.openosp.openo.managers.FaxManager.TransactionType;
 import ca.openosp.openo.managers.SecurityInfoManager;
-import ca.openosp.openo.match.IMatchManager;
-import ca.openosp.openo.match.MatchManager;
-import ca.openosp.openo.match.MatchManagerException;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.PDFGenerationException;
@@ -464,17 +460,6 @@ public class AddEForm2Action extends ActionSupport {
             }
         }
 
-        if (demographic_no != null) {
-            IMatchManager matchManager = new MatchManager();
-            DemographicManager demographicManager = SpringUtils.getBean(DemographicManager.class);
-            Demographic client = demographicManager.getDemographic(loggedInInfo, demographic_no);
-            try {
-                matchManager.<Demographic>processEvent(client, IMatchManager.Event.CLIENT_CREATED);
-            } catch (MatchManagerException e) {
-                MiscUtils.getLogger().error("Error while processing MatchManager.processEvent(Client)", e);
-            }
-		}
-
         String fdid = (String) request.getAttribute("fdid");
 
 		String pdfBase64;
@@ -0,0 +1,126 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.eform.data;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.time.DateUtils;
+import ca.openosp.openo.utility.QueueCache;
+
+/**
+ * Pre-tokenized form fields of an eForm template.
+ *
+ * Filling database APs used to rescan the whole document with a regular expression for every
+ * field and re-parse each field header. The result of that scan depends only on the template
+ * content, so it is done once per distinct template and the field list (position, header and
+ * oscarDB name) is shared by every later open of the same form.
+ *
+ * Templates are keyed by a hash of their content, so an edited form never matches a stale entry.
+ */
+public final class CompiledEFormTemplate {
+
+    private static final QueueCache<String, CompiledEFormTemplate> templates = new QueueCache<String, CompiledEFormTemplate>(4, 200, DateUtils.MILLIS_PER_HOUR, null);
+
+    private final int length;
+    private final List<Field> fields;
+
+    CompiledEFormTemplate(int length, List<Field> fields) {
+        this.length = length;
+        this.fields = Collections.unmodifiableList(fields);
+    }
+
+    /**
+     * @return int the length of the html the fields were found in
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return List the form fields in document order
+     */
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    static String key(String marker, String html) {
+        return DigestUtils.sha1Hex(marker + '\u0000' + html);
+    }
+
+    static CompiledEFormTemplate get(String key) {
+        return templates.get(key);
+    }
+
+    static void put(String key, CompiledEFormTemplate template) {
+        templates.put(key, template);
+    }
+
+    /**
+     * A form field (input, select, textarea or div) that either carries an oscarDB attribute
+     * or has a name under which its value is remembered for {ref} lookups.
+     */
+    public static final class Field {
+        private final int position;
+        private final String header;
+        private final String apName;
+
+        Field(int position, String header, String apName) {
+            this.position = position;
+            this.header = header;
+            this.apName = apName;
+        }
+
+        /**
+         * @return int the offset of the field's opening '&lt;' in the template
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * @return String the field's opening tag, e.g. &lt;input name=... oscarDB=...&gt;
+         */
+        public String getHeader() {
+            return header;
+        }
+
+        /**
+         * @return String the unquoted oscarDB name, or null if the field has none
+         */
+        public String getApName() {
+            return apName;
+        }
+
+        boolean isAt(CharSequence html, int index) {
+            if (index < 0 || index + header.length() > html.length()) return false;
+            for (int i = 0; i < header.length(); i++) {
+                if (html.charAt(index + i) != header.charAt(i)) return false;
+            }
+            return true;
+        }
+    }
+}
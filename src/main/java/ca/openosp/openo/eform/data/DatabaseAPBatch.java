@@ -0,0 +1,328 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.eform.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.Logger;
+import ca.openosp.openo.eform.EFormUtil;
+import ca.openosp.openo.utility.MiscUtils;
+
+/**
+ * Resolves the database APs of one eForm open with as few queries as possible.
+ *
+ * Most APs in apconfig.xml read a few columns of one row, e.g. the patient's demographic row or the
+ * provider's row, and a form with many such fields used to run one query per field. APs whose SQL
+ * is a simple single table SELECT with the same FROM / WHERE clause are merged into one query
+ * selecting the union of their columns, and the values are handed back per AP.
+ *
+ * Only queries that are certain to give the same answer once merged are grouped: no aggregates,
+ * DISTINCT, joins, sub-queries, variables or conflicting column labels. Anything else, and any AP
+ * whose merged query fails, is left to {@link EFormUtil#getValues(ArrayList, String)} as before.
+ */
+public final class DatabaseAPBatch {
+
+    private static Logger logger = MiscUtils.getLogger();
+
+    private static final Pattern UNSUPPORTED = Pattern.compile("(?i)\\b(?:SELECT|DISTINCT|UNION|JOIN|INTO|HAVING|GROUP\\s+BY|COUNT|SUM|MIN|MAX|AVG|GROUP_CONCAT)\\b|[@;]");
+    private static final Pattern TABLE = Pattern.compile("(?is)`?(\\w+)`?(?:\\s+(?:WHERE|ORDER\\s+BY|LIMIT)\\b.*)?");
+    private static final Pattern PLAIN_COLUMN = Pattern.compile("(?:`?(\\w+)`?\\.)?`?(\\w+)`?");
+    private static final Pattern ALIASED = Pattern.compile("(?is)(.+?)\\s+AS\\s+`?(\\w+)`?");
+    private static final String NOT_FOUND = ")NotFound>";
+
+    private final Map<String, Group> groups = new LinkedHashMap<String, Group>();
+    private final Map<String, ArrayList<String>> resolved = new HashMap<String, ArrayList<String>>();
+
+    /**
+     * Registers an AP query for prefetching.
+     *
+     * @param sql String the final SQL, with all ${...} parameters already substituted
+     * @param names List the column labels the AP output refers to
+     */
+    public void add(String sql, List<String> names) {
+        if (sql == null || names == null || names.isEmpty()) return;
+        Query query = parse(sql, names);
+        if (query == null) return;
+
+        Group group = groups.get(query.tail);
+        if (group == null) {
+            group = new Group(query.tail);
+            groups.put(query.tail, group);
+        }
+        group.add(query);
+    }
+
+    /**
+     * Runs one query per group of two or more compatible APs and stores the values of each member.
+     *
+     * @return int the number of queries run
+     */
+    public int execute() {
+        int queries = 0;
+        for (Group group : groups.values()) {
+            if (group.members.size() < 2) continue;
+            String sql = group.getSql();
+            ArrayList<String> names = group.getNames();
+            ArrayList<String> values;
+            try {
+                values = EFormUtil.getValues(names, sql);
+            } catch (Exception e) {
+                logger.warn("Merged eform AP query failed, falling back to individual queries: " + sql, e);
+                continue;
+            }
+            queries++;
+            if (!values.isEmpty() && values.size() != names.size()) continue;
+
+            Map<String, String> byLabel = new HashMap<String, String>();
+            boolean complete = true;
+            for (int i = 0; i < values.size(); i++) {
+                String value = values.get(i);
+                if (value != null && value.startsWith("<(") && value.endsWith(NOT_FOUND)) {
+                    complete = false;
+                    break;
+                }
+                byLabel.put(names.get(i).toLowerCase(), value);
+            }
+            if (!complete) continue;
+
+            for (Query member : group.members) {
+                ArrayList<String> memberValues = new ArrayList<String>();
+                if (!values.isEmpty()) {
+                    for (String name : member.names) {
+                        memberValues.add(byLabel.get(name.toLowerCase()));
+                    }
+                }
+                resolved.put(key(member.sql, member.names), memberValues);
+            }
+        }
+        groups.clear();
+        return queries;
+    }
+
+    /**
+     * @param sql String the final SQL of the AP
+     * @param names List the column labels the AP output refers to
+     * @return ArrayList the prefetched values in the order of names (empty if the query returned no row),
+     *         or null if the AP was not resolved by a merged query
+     */
+    public ArrayList<String> getValues(String sql, List<String> names) {
+        ArrayList<String> values = resolved.get(key(sql, names));
+        return values == null ? null : new ArrayList<String>(values);
+    }
+
+    /**
+     * @return List the merged SQL of every group that {@link #execute()} would run
+     */
+    List<String> getMergedSql() {
+        List<String> result = new ArrayList<String>();
+        for (Group group : groups.values()) {
+            if (group.members.size() >= 2) result.add(group.getSql());
+        }
+        return result;
+    }
+
+    private static String key(String sql, List<String> names) {
+        return sql + '\u0000' + names;
+    }
+
+    static Query parse(String sql, List<String> names) {
+        String s = sql.trim();
+        while (s.endsWith(";")) s = s.substring(0, s.length() - 1).trim();
+        if (s.length() < 7 || !s.regionMatches(true, 0, "SELECT", 0, 6) || !Character.isWhitespace(s.charAt(6))) return null;
+
+        int from = indexOfTopLevelKeyword(s, "FROM", 6);
+        if (from < 0) return null;
+        String selectList = s.substring(6, from).trim();
+        String tail = s.substring(from + 4).trim();
+        if (UNSUPPORTED.matcher(selectList).find() || UNSUPPORTED.matcher(tail).find()) return null;
+
+        Matcher table = TABLE.matcher(tail);
+        if (!table.matches()) return null;
+        String tableName = table.group(1);
+
+        Query query = new Query(sql, names, tail);
+        for (String item : splitTopLevel(selectList)) {
+            item = item.trim();
+            if (item.equals("*")) {
+                query.star = true;
+                continue;
+            }
+            Matcher plain = PLAIN_COLUMN.matcher(item);
+            if (plain.matches()) {
+                if (plain.group(1) != null && !plain.group(1).equalsIgnoreCase(tableName)) return null;
+                query.addColumn(plain.group(2), item, plain.group(2).toLowerCase(), true);
+                continue;
+            }
+            Matcher aliased = ALIASED.matcher(item);
+            if (aliased.matches()) {
+                String label = aliased.group(2);
+                query.addColumn(label, item, aliased.group(1).trim().replaceAll("\\s+", " ").toLowerCase() + " as " + label.toLowerCase(), false);
+                continue;
+            }
+            return null; // unlabelled expression
+        }
+
+        // every value the output refers to must come from this query's own select list
+        if (!query.star) {
+            for (String name : names) {
+                if (!query.columns.containsKey(name.toLowerCase())) return null;
+            }
+        }
+        return query;
+    }
+
+    private static int indexOfTopLevelKeyword(String s, String keyword, int from) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = from; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+                continue;
+            }
+            if (c == '\'' || c == '"' || c == '`') quote = c;
+            else if (c == '(') depth++;
+            else if (c == ')') depth--;
+            else if (depth == 0 && s.regionMatches(true, i, keyword, 0, keyword.length())
+                    && (i == 0 || !Character.isLetterOrDigit(s.charAt(i - 1)) && s.charAt(i - 1) != '_')
+                    && (i + keyword.length() == s.length() || Character.isWhitespace(s.charAt(i + keyword.length())))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<String> splitTopLevel(String s) {
+        List<String> items = new ArrayList<String>();
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+                continue;
+            }
+            if (c == '\'' || c == '"' || c == '`') quote = c;
+            else if (c == '(') depth++;
+            else if (c == ')') depth--;
+            else if (c == ',' && depth == 0) {
+                items.add(s.substring(start, i));
+                start = i + 1;
+            }
+        }
+        items.add(s.substring(start));
+        return items;
+    }
+
+    static final class Query {
+        final String sql;
+        final List<String> names;
+        final String tail;
+        boolean star = false;
+        boolean plainOnly = true;
+        // lower case label -> select item, and lower case label -> normalized item used to detect conflicts
+        final Map<String, String> columns = new LinkedHashMap<String, String>();
+        final Map<String, String> canonical = new HashMap<String, String>();
+
+        Query(String sql, List<String> names, String tail) {
+            this.sql = sql;
+            this.names = new ArrayList<String>(names);
+            this.tail = tail;
+        }
+
+        void addColumn(String label, String item, String normalized, boolean plain) {
+            columns.put(label.toLowerCase(), item);
+            canonical.put(label.toLowerCase(), normalized);
+            if (!plain) plainOnly = false;
+        }
+    }
+
+    private static final class Group {
+        private final String tail;
+        private final List<Query> members = new ArrayList<Query>();
+        private final Map<String, String> columns = new LinkedHashMap<String, String>();
+        private final Map<String, String> canonical = new HashMap<String, String>();
+        private boolean star = false;
+
+        Group(String tail) {
+            this.tail = tail;
+        }
+
+        void add(Query query) {
+            boolean star = this.star || query.star;
+            if (star) {
+                // SELECT * already returns every plain column, but computed labels could shadow a real column
+                if (!query.plainOnly) return;
+                for (Query member : members) {
+                    if (!member.plainOnly) return;
+                }
+            }
+            for (Map.Entry<String, String> e : query.canonical.entrySet()) {
+                String existing = canonical.get(e.getKey());
+                if (existing != null && !existing.equals(e.getValue())) return;
+            }
+            this.star = star;
+            for (Map.Entry<String, String> e : query.columns.entrySet()) {
+                if (!columns.containsKey(e.getKey())) {
+                    columns.put(e.getKey(), e.getValue());
+                    canonical.put(e.getKey(), query.canonical.get(e.getKey()));
+                }
+            }
+            members.add(query);
+        }
+
+        String getSql() {
+            StringBuilder sb = new StringBuilder("SELECT ");
+            if (star) {
+                sb.append('*');
+            } else {
+                boolean first = true;
+                for (String item : columns.values()) {
+                    if (!first) sb.append(", ");
+                    sb.append(item);
+                    first = false;
+                }
+            }
+            return sb.append(" FROM ").append(tail).toString();
+        }
+
+        ArrayList<String> getNames() {
+            Map<String, String> names = new LinkedHashMap<String, String>();
+            for (Query member : members) {
+                for (String name : member.names) {
+                    if (!names.containsKey(name.toLowerCase())) names.put(name.toLowerCase(), name);
+                }
+            }
+            return new ArrayList<String>(names.values());
+        }
+    }
+}
@@ -70,6 +70,7 @@ public class EForm extends EFormBase {
     private HashMap<String, String> fieldValues = new HashMap<String, String>();
     private int needValueInForm = 0;
     private boolean setAP2nd = false;
+    private DatabaseAPBatch apBatch = null;
 
     private static final String EFORM_DEMOGRAPHIC = "eform_demographic";
     private static final String VAR_NAME = "var_name";
@@ -81,6 +82,8 @@ public class EForm extends EFormBase {
     private static final String TABLE_ID = "table_id";
     private static final String OTHER_KEY = "other_key";
     private static final String OPENER_VALUE = "link$eform";
+    private static final Pattern FIELD_PATTERN = Pattern.compile("<input|<select|<textarea|<div");
+    private static final Pattern AP_EXTRA_PATTERN = Pattern.compile("\\b[a-z]\\$[^ \\$#]+#[^\n]+");
 
     public EForm() {
     }
@@ -264,56 +267,116 @@ public class EForm extends EFormBase {
         StringBuilder html = new StringBuilder(this.formHtml);
         EFormLoader.getInstance();
         String marker = EFormLoader.getMarker(); // default: marker: "oscarDB="
-        for (int i = 0; i < 2; i++) { // run the following twice if "count"-type field is found
-            int markerLoc = -1;
-            while ((markerLoc = getFieldIndex(html, markerLoc + 1)) >= 0) {
-                log.debug("===============START CYCLE===========");
-                String fieldHeader = getFieldHeader(html, markerLoc);
-                String apName = EFormUtil.getAttribute(marker, fieldHeader); // gets varname from oscarDB=varname
-                if (StringUtils.isBlank(apName)) {
-                    if (!setAP2nd) saveFieldValue(html, markerLoc);
-                    continue;
-                }
-                apName = EFormUtil.removeQuotes(apName);
-
-                log.debug("AP ==== " + apName);
-                if (setAP2nd && !apName.startsWith("e$")) continue; // ignore non-e$ oscarDB on 2nd run
-
-                int needing = needValueInForm;
-                String fieldType = getFieldType(fieldHeader); // textarea, text, hidden etc..
-                if ((fieldType == null || fieldType.equals("")) || (apName == null || apName.equals(""))) continue;
-
-                // Position pointer right after the oscardb attribute's closing quote
-                // This works for all field types, which then handle insertion differently in putValuesFromAP():
-                // - textarea: searches forward for closing > and inserts content inside the tags
-                // - select: searches forward for matching option value and adds "selected" attribute
-                // - input: directly inserts value="" attribute at this position
-                int attributeEndPos = EFormUtil.getAttributeEndPos(marker, fieldHeader);
-                if (attributeEndPos == -1) {
-                    log.error("Failed to find attribute end position for marker: " + marker + " in field: " + fieldHeader);
-                    continue;
-                }
-                int pointer = markerLoc + attributeEndPos;
-                EFormLoader.getInstance();
-                DatabaseAP curAP = EFormLoader.getAP(apName);
-
-                if (curAP == null) curAP = getAPExtra(apName, fieldHeader);
-                if (curAP == null) continue;
-                if (!setAP2nd) { // 1st run
-                    html = putValuesFromAP(curAP, fieldType, pointer, html);
-                    saveFieldValue(html, markerLoc);
-                } else { // 2nd run
-                    if (needing > needValueInForm) html = putValuesFromAP(curAP, fieldType, pointer, html);
-                }
+        CompiledEFormTemplate template = compileTemplate(this.formHtml, marker);
+        prefetchDatabaseAPs(template);
 
-                log.debug("Marker ==== " + markerLoc);
-                log.debug("FIELD TYPE ====" + fieldType);
-                log.debug("=================End Cycle==============");
+        // 1st run: walk the pre-tokenized fields. Values are only ever inserted inside or right after
+        // the current field, so every later field is shifted by exactly the length added so far.
+        int markerLoc = -1;
+        boolean compiled = true;
+        for (CompiledEFormTemplate.Field field : template.getFields()) {
+            int fieldLoc = field.getPosition() + html.length() - template.getLength();
+            if (!field.isAt(html, fieldLoc)) {
+                log.warn("Compiled eform field not found at " + fieldLoc + ", scanning the rest of the form");
+                compiled = false;
+                break;
             }
-            formHtml = html.toString();
-            if (needValueInForm > 0) setAP2nd = true;
-            else i = 2;
+            markerLoc = fieldLoc;
+            html = setDatabaseAP(html, markerLoc, field.getHeader(), field.getApName(), marker);
+        }
+        if (!compiled) html = scanDatabaseAPs(html, markerLoc, marker);
+        formHtml = html.toString();
+
+        // 2nd run if "count"-type field is found: e$ fields referencing other values in the form
+        if (needValueInForm > 0) {
+            setAP2nd = true;
+            formHtml = scanDatabaseAPs(html, -1, marker).toString();
+        }
+        apBatch = null;
+    }
+
+    private StringBuilder scanDatabaseAPs(StringBuilder html, int markerLoc, String marker) {
+        while ((markerLoc = getFieldIndex(html, markerLoc + 1)) >= 0) {
+            String fieldHeader = getFieldHeader(html, markerLoc);
+            String apName = EFormUtil.getAttribute(marker, fieldHeader); // gets varname from oscarDB=varname
+            html = setDatabaseAP(html, markerLoc, fieldHeader, StringUtils.isBlank(apName) ? null : EFormUtil.removeQuotes(apName), marker);
+        }
+        return html;
+    }
+
+    private StringBuilder setDatabaseAP(StringBuilder html, int markerLoc, String fieldHeader, String apName, String marker) {
+        log.debug("===============START CYCLE===========");
+        if (StringUtils.isBlank(apName)) {
+            if (!setAP2nd) saveFieldValue(html, markerLoc);
+            return html;
+        }
+
+        log.debug("AP ==== " + apName);
+        if (setAP2nd && !apName.startsWith("e$")) return html; // ignore non-e$ oscarDB on 2nd run
+
+        int needing = needValueInForm;
+        String fieldType = getFieldType(fieldHeader); // textarea, text, hidden etc..
+        if (fieldType == null || fieldType.equals("")) return html;
+
+        // Position pointer right after the oscardb attribute's closing quote
+        // This works for all field types, which then handle insertion differently in putValuesFromAP():
+        // - textarea: searches forward for closing > and inserts content inside the tags
+        // - select: searches forward for matching option value and adds "selected" attribute
+        // - input: directly inserts value="" attribute at this position
+        int attributeEndPos = EFormUtil.getAttributeEndPos(marker, fieldHeader);
+        if (attributeEndPos == -1) {
+            log.error("Failed to find attribute end position for marker: " + marker + " in field: " + fieldHeader);
+            return html;
+        }
+        int pointer = markerLoc + attributeEndPos;
+        DatabaseAP curAP = EFormLoader.getAP(apName);
+
+        if (curAP == null) curAP = getAPExtra(apName, fieldHeader);
+        if (curAP == null) return html;
+        if (!setAP2nd) { // 1st run
+            html = putValuesFromAP(curAP, fieldType, pointer, html);
+            saveFieldValue(html, markerLoc);
+        } else { // 2nd run
+            if (needing > needValueInForm) html = putValuesFromAP(curAP, fieldType, pointer, html);
+        }
+
+        log.debug("Marker ==== " + markerLoc);
+        log.debug("FIELD TYPE ====" + fieldType);
+        log.debug("=================End Cycle==============");
+        return html;
+    }
+
+    private CompiledEFormTemplate compileTemplate(String html, String marker) {
+        String key = CompiledEFormTemplate.key(marker, html);
+        CompiledEFormTemplate template = CompiledEFormTemplate.get(key);
+        if (template != null) return template;
+
+        StringBuilder sb = new StringBuilder(html);
+        List<CompiledEFormTemplate.Field> fields = new ArrayList<CompiledEFormTemplate.Field>();
+        int markerLoc = -1;
+        while ((markerLoc = getFieldIndex(sb, markerLoc + 1)) >= 0) {
+            String fieldHeader = getFieldHeader(sb, markerLoc);
+            String apName = EFormUtil.getAttribute(marker, fieldHeader);
+            apName = StringUtils.isBlank(apName) ? null : EFormUtil.removeQuotes(apName);
+            // fields without an AP only matter when they have a name to remember their value under
+            if (apName == null && StringUtils.isBlank(EFormUtil.getAttribute("name", fieldHeader))) continue;
+            fields.add(new CompiledEFormTemplate.Field(markerLoc, fieldHeader, apName));
+        }
+        template = new CompiledEFormTemplate(html.length(), fields);
+        CompiledEFormTemplate.put(key, template);
+        return template;
+    }
+
+    // runs the plain (apconfig.xml) APs of the form as a few merged queries, see putValuesFromAP()
+    private void prefetchDatabaseAPs(CompiledEFormTemplate template) {
+        apBatch = new DatabaseAPBatch();
+        for (CompiledEFormTemplate.Field field : template.getFields()) {
+            if (field.getApName() == null) continue;
+            DatabaseAP ap = EFormLoader.getAP(field.getApName());
+            if (ap == null || ap.isJsonOutput() || StringUtils.isBlank(ap.getApSQL()) || ap.getApOutput() == null) continue;
+            apBatch.add(DatabaseAP.parserClean(replaceAllFields(ap.getApSQL())), DatabaseAP.parserGetNames(ap.getApOutput()));
         }
+        apBatch.execute();
     }
 
     // Gets all the fields that are "input" (i.e. write-to-database) fields.
@@ -468,8 +531,7 @@ public class EForm extends EFormBase {
     // -----------------------------------------
     private DatabaseAP getAPExtra(String apName, String fieldHeader) {
         // --------------------------Process extra attributes for APs --------------------------------
-        Pattern p = Pattern.compile("\\b[a-z]\\$[^ \\$#]+#[^\n]+");
-        Matcher m = p.matcher(apName);
+        Matcher m = AP_EXTRA_PATTERN.matcher(apName);
         if (!m.matches()) return null;
 
         String module = apName.substring(0, apName.indexOf("$"));
@@ -711,7 +773,8 @@ public class EForm extends EFormBase {
                 ArrayNode values = EFormUtil.getJsonValues(names, sql);
                 output = values.toString(); //in case of JsonOutput, return the whole JSONArray and let the javascript deal with it
             } else {
-                ArrayList<String> values = EFormUtil.getValues(names, sql);
+                ArrayList<String> values = apBatch == null ? null : apBatch.getValues(sql, names);
+                if (values == null) values = EFormUtil.getValues(names, sql);
                 if (values.size() != names.size()) {
                     output = "";
                 } else {
@@ -785,8 +848,7 @@ public class EForm extends EFormBase {
 
     private int getFieldIndex(StringBuilder html, int from) {
         if (html == null) return -1;
-        Pattern p = Pattern.compile("<input|<select|<textarea|<div");
-        Matcher matcher = p.matcher(html);
+        Matcher matcher = FIELD_PATTERN.matcher(html);
         if (matcher.find(from)) {
             int start = matcher.start();
             return start;
@@ -33,9 +33,9 @@ import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.JspWriter;
 import javax.servlet.jsp.tagext.TagSupport;
 
-import ca.openosp.openo.commn.dao.ConsultationRequestDao;
 import ca.openosp.openo.commn.dao.UserPropertyDAO;
 import ca.openosp.openo.commn.model.UserProperty;
+import ca.openosp.openo.managers.TabAlertManager;
 import ca.openosp.openo.utility.MiscUtils;
 import org.springframework.web.context.support.WebApplicationContextUtils;
 
@@ -54,7 +54,7 @@ public class ConsultTag extends TagSupport {
         numNewLabs = 0;
         if (providerNo != null) {
             try {
-                ConsultationRequestDao tcm = (ConsultationRequestDao) WebApplicationContextUtils.getWebApplicationContext(pageContext.getServletContext()).getBean(ConsultationRequestDao.class);
+                TabAlertManager tabAlertManager = WebApplicationContextUtils.getWebApplicationContext(pageContext.getServletContext()).getBean(TabAlertManager.class);
                 UserPropertyDAO pref = (UserPropertyDAO) WebApplicationContextUtils.getWebApplicationContext(pageContext.getServletContext()).getBean(UserPropertyDAO.class);
 
                 // There are to two properties that could be set. One is the referal date and the other is the team
@@ -97,9 +97,9 @@ public class ConsultTag extends TagSupport {
 
 
                 if (allTeams) {
-                    numNewLabs = tcm.getCountReferralsAfterCutOffDateAndNotCompleted(cutoffDate);
+                    numNewLabs = tabAlertManager.getAgedConsultCount(cutoffDate, null);
                 } else if (team != null) {
-                    numNewLabs = tcm.getCountReferralsAfterCutOffDateAndNotCompleted(cutoffDate, team);
+                    numNewLabs = tabAlertManager.getAgedConsultCount(cutoffDate, team);
                 }
 
 
@@ -0,0 +1,166 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.encounter.oscarMeasurements;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import ca.openosp.openo.commn.model.FlowSheetCustomization;
+import ca.openosp.openo.commn.model.FlowSheetUserCreated;
+
+/**
+ * Cache of compiled, personalized measurement flowsheets.
+ *
+ * Building a personalized flowsheet means exporting the base flowsheet to XML, re-parsing it,
+ * applying each customization and recompiling the Drools rule bases. The result depends only on
+ * the base flowsheet and on the content of the customizations applied to it, so every patient
+ * sharing the same customization set (clinic, provider or patient scope) can share one compiled
+ * instance.
+ *
+ * Entries are grouped by flowsheet name and keyed by a fingerprint of the customization content,
+ * so a changed customization set never matches a stale entry. Entries are additionally dropped
+ * when customizations are saved ({@link #invalidate(String)}) and when the base flowsheets are
+ * reloaded ({@link #clear()}).
+ *
+ * Cached flowsheets are shared between requests and must be treated as read only by callers.
+ *
+ * @see MeasurementTemplateFlowSheetConfig#getFlowSheet(String, List)
+ * @see MeasurementTemplateFlowSheetConfig#getFlowSheet(String, String, Integer)
+ */
+public final class FlowSheetCompilationCache {
+
+    /**
+     * Maximum number of distinct compiled variants kept per flowsheet, least recently used are evicted first.
+     */
+    private static final int MAX_VARIANTS_PER_FLOWSHEET = 256;
+
+    private final Map<String, Map<String, MeasurementFlowSheet>> compiled = new ConcurrentHashMap<String, Map<String, MeasurementFlowSheet>>();
+
+    /**
+     * Returns the compiled flowsheet for the given flowsheet and variant key, or null if it has not been compiled.
+     *
+     * @param flowsheetName String the out-of-the-box flowsheet name
+     * @param variantKey String the key produced by {@link #customizationKey(List)} or {@link #userCreatedKey(FlowSheetUserCreated)}
+     * @return MeasurementFlowSheet the shared compiled flowsheet or null
+     */
+    public MeasurementFlowSheet get(String flowsheetName, String variantKey) {
+        Map<String, MeasurementFlowSheet> variants = compiled.get(flowsheetName);
+        if (variants == null) {
+            return null;
+        }
+        synchronized (variants) {
+            return variants.get(variantKey);
+        }
+    }
+
+    /**
+     * Stores a compiled flowsheet. If another thread compiled the same variant first, that instance
+     * is kept and returned so all callers share a single copy.
+     *
+     * @param flowsheetName String the out-of-the-box flowsheet name
+     * @param variantKey String the variant key
+     * @param flowsheet MeasurementFlowSheet the compiled flowsheet
+     * @return MeasurementFlowSheet the instance held by the cache
+     */
+    public MeasurementFlowSheet put(String flowsheetName, String variantKey, MeasurementFlowSheet flowsheet) {
+        Map<String, MeasurementFlowSheet> variants = compiled.computeIfAbsent(flowsheetName, k -> new LinkedHashMap<String, MeasurementFlowSheet>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MeasurementFlowSheet> eldest) {
+                return size() > MAX_VARIANTS_PER_FLOWSHEET;
+            }
+        });
+        synchronized (variants) {
+            MeasurementFlowSheet existing = variants.get(variantKey);
+            if (existing != null) {
+                return existing;
+            }
+            variants.put(variantKey, flowsheet);
+            return flowsheet;
+        }
+    }
+
+    /**
+     * Drops every compiled variant of a flowsheet, called when its customizations change.
+     *
+     * @param flowsheetName String the out-of-the-box flowsheet name
+     */
+    public void invalidate(String flowsheetName) {
+        if (flowsheetName != null) {
+            compiled.remove(flowsheetName);
+        }
+    }
+
+    /**
+     * Drops every compiled flowsheet, called when the base flowsheets are reloaded.
+     */
+    public void clear() {
+        compiled.clear();
+    }
+
+    /**
+     * @return int the number of compiled variants currently held
+     */
+    public int size() {
+        int count = 0;
+        for (Map<String, MeasurementFlowSheet> variants : compiled.values()) {
+            synchronized (variants) {
+                count += variants.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Builds the variant key for a list of customizations. Customizations are applied in order, so
+     * the order is part of the key.
+     *
+     * @param customizations List the customizations in the order they are applied
+     * @return String a hash of the customization content
+     */
+    public static String customizationKey(List<FlowSheetCustomization> customizations) {
+        StringBuilder sb = new StringBuilder();
+        for (FlowSheetCustomization cust : customizations) {
+            sb.append(cust.getId()).append('\u0000')
+                    .append(cust.getAction()).append('\u0000')
+                    .append(cust.getMeasurement()).append('\u0000')
+                    .append(cust.getPayload()).append('\u0001');
+        }
+        return "cust:" + DigestUtils.sha1Hex(sb.toString());
+    }
+
+    /**
+     * Builds the variant key for a user created (scoped) flowsheet definition.
+     *
+     * @param flowSheetUserCreated FlowSheetUserCreated the stored flowsheet definition
+     * @return String a key made of the row id and a hash of its XML content
+     */
+    public static String userCreatedKey(FlowSheetUserCreated flowSheetUserCreated) {
+        String content = flowSheetUserCreated.getXmlContent() == null ? "" : flowSheetUserCreated.getXmlContent();
+        return "user:" + flowSheetUserCreated.getId() + ":" + DigestUtils.sha1Hex(content);
+    }
+}
@@ -47,8 +47,8 @@ import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Logger;
 import org.drools.RuleBase;
 import org.drools.WorkingMemory;
-import org.drools.io.RuleBaseLoader;
 import org.jdom2.Element;
+import ca.openosp.openo.drools.RuleBaseCompiler;
 import ca.openosp.openo.commn.dao.DxDao;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
@@ -400,8 +400,7 @@ public class MeasurementFlowSheet {
                 File file = new File(OscarProperties.getInstance().getProperty("MEASUREMENT_DS_DIRECTORY") + string);
                 if (file.isFile() || file.canRead()) {
                     log.debug("Loading from file " + file.getName());
-                    FileInputStream fis = new FileInputStream(file);
-                    ruleBase = RuleBaseLoader.loadFromInputStream(fis);
+                    ruleBase = RuleBaseCompiler.compile(file);
                     fileFound = true;
                 }
             }
@@ -409,7 +408,7 @@ public class MeasurementFlowSheet {
             if (!fileFound) {
                 URL url = MeasurementFlowSheet.class.getResource("/oscar/oscarEncounter/oscarMeasurements/flowsheets/" + string);  //TODO: change this so it is configurable;
                 log.debug("loading from URL " + url.getFile());
-                ruleBase = RuleBaseLoader.loadFromUrl(url);
+                ruleBase = RuleBaseCompiler.compile(url);
             }
         } catch (Exception e) {
             MiscUtils.getLogger().error("Error", e);
@@ -461,8 +460,7 @@ public class MeasurementFlowSheet {
                 File file = new File(OscarProperties.getInstance().getProperty("MEASUREMENT_DS_DIRECTORY") + string);
                 if (file.isFile() || file.canRead()) {
                     log.debug("Loading from file " + file.getName());
-                    FileInputStream fis = new FileInputStream(file);
-                    ruleBase = RuleBaseLoader.loadFromInputStream(fis);
+                    ruleBase = RuleBaseCompiler.compile(file);
                     fileFound = true;
                 }
             }
@@ -470,7 +468,7 @@ public class MeasurementFlowSheet {
             if (!fileFound) {
                 URL url = MeasurementFlowSheet.class.getResource("/oscar/oscarEncounter/oscarMeasurements/flowsheets/decisionSupport/" + string);  //TODO: change this so it is configurable;
                 log.debug("loading from URL " + url.getFile());
-                measurementRuleBase = RuleBaseLoader.loadFromUrl(url);
+                measurementRuleBase = RuleBaseCompiler.compile(url);
             }
         } catch (Exception e) {
             MiscUtils.getLogger().error("Error", e);
@@ -34,16 +34,21 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.logging.log4j.Logger;
 import ca.openosp.openo.commn.dao.DemographicDao;
 import ca.openosp.openo.commn.model.Demographic;
+import ca.openosp.openo.commn.model.Measurement;
+import ca.openosp.openo.commn.model.Provider;
 import ca.openosp.openo.managers.DemographicManager;
+import ca.openosp.openo.managers.MeasurementTimeSeriesManager;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.SpringUtils;
 
 import ca.openosp.openo.encounter.oscarMeasurements.bean.EctMeasurementsDataBean;
 import ca.openosp.openo.encounter.oscarMeasurements.bean.EctMeasurementsDataBeanHandler;
+import ca.openosp.openo.encounter.oscarMeasurements.data.MeasurementTimeSeries;
 
 /**
  * @author jay
@@ -122,9 +127,14 @@ public class MeasurementInfo {
 
 
     public void getMeasurements(List<String> list) {
+        // one indexed read for every type on the flowsheet instead of a query per type
+        MeasurementTimeSeriesManager timeSeriesManager = SpringUtils.getBean(MeasurementTimeSeriesManager.class);
+        Map<String, MeasurementTimeSeries> seriesByType = timeSeriesManager.getSeries(Integer.valueOf(demographicNo), list);
+        Map<String, Provider> providerCache = new HashMap<String, Provider>();
         for (int i = 0; i < list.size(); i++) {
             String measurement = list.get(i);
-            EctMeasurementsDataBeanHandler ect = new EctMeasurementsDataBeanHandler(Integer.valueOf(demographicNo), measurement);
+            List<Measurement> rows = seriesByType.get(measurement).getMeasurementsNewestFirst();
+            EctMeasurementsDataBeanHandler ect = new EctMeasurementsDataBeanHandler(measurement, rows, providerCache);
             Collection v = ect.getMeasurementsDataVector();
             measurementList.add(new ArrayList(v));
             measurementHash.put(measurement, new ArrayList(v));
@@ -92,6 +92,8 @@ public class MeasurementTemplateFlowSheetConfig implements InitializingBean {
 
     HashMap<String, Flowsheet> flowsheetSettings = null;
 
+    private final FlowSheetCompilationCache compilationCache = new FlowSheetCompilationCache();
+
     public Hashtable<String, File> getFileMap() {
         return flowsheetFiles;
     }
@@ -246,9 +248,20 @@ public class MeasurementTemplateFlowSheetConfig implements InitializingBean {
         universalFlowSheets = new ArrayList<String>();
         flowsheets = null;
         flowsheetSettings = null;
+        compilationCache.clear();
         loadFlowsheets();
     }
 
+    /**
+     * Drops the compiled personalized variants of a flowsheet. Must be called whenever a
+     * customization or user created definition of that flowsheet is saved.
+     *
+     * @param flowsheetName String the out-of-the-box flowsheet name
+     */
+    public void invalidateCompiledFlowsheets(String flowsheetName) {
+        compilationCache.invalidate(flowsheetName);
+    }
+
     void loadFlowsheets() {
         FlowsheetDao flowsheetDao = (FlowsheetDao) SpringUtils.getBean(FlowsheetDao.class);
         FlowSheetUserCreatedDao flowSheetUserCreatedDao = (FlowSheetUserCreatedDao) SpringUtils.getBean(FlowSheetUserCreatedDao.class);
@@ -773,6 +786,11 @@ public class MeasurementTemplateFlowSheetConfig implements InitializingBean {
         log.debug("IN CUSTOMIZED FLOWSHEET ");
         if (list.size() > 0) {
             log.debug("IN CUSTOMIZED FLOWSHEET " + list.size());
+            String variantKey = FlowSheetCompilationCache.customizationKey(list);
+            MeasurementFlowSheet cached = compilationCache.get(flowsheetName, variantKey);
+            if (cached != null) {
+                return cached;
+            }
             try {
                 MeasurementFlowSheet personalizedFlowsheet = makeNewFlowsheet(getFlowSheet(flowsheetName));
 
@@ -803,7 +821,7 @@ public class MeasurementTemplateFlowSheetConfig implements InitializingBean {
                     }
                 }
                 personalizedFlowsheet.loadRuleBase();
-                return personalizedFlowsheet;
+                return compilationCache.put(flowsheetName, variantKey, personalizedFlowsheet);
             } catch (Exception e) {
                 MiscUtils.getLogger().error("Error", e);
             }
@@ -830,10 +848,14 @@ public class MeasurementTemplateFlowSheetConfig implements InitializingBean {
         }
 
         if (fsuc != null) {
-            //use custom flowsheet
-            InputStream targetStream = IOUtils.toInputStream(fsuc.getXmlContent().replaceAll("<flowsheet xmlns=\"flowsheets.oscarehr.org\"", "<flowsheet"));
-            EctMeasurementTypeBeanHandler mType = new EctMeasurementTypeBeanHandler();
-            m = createflowsheet(mType, targetStream);
+            //use custom flowsheet, compiled once per stored definition
+            String variantKey = FlowSheetCompilationCache.userCreatedKey(fsuc);
+            m = compilationCache.get(flowsheetName, variantKey);
+            if (m == null) {
+                InputStream targetStream = IOUtils.toInputStream(fsuc.getXmlContent().replaceAll("<flowsheet xmlns=\"flowsheets.oscarehr.org\"", "<flowsheet"));
+                EctMeasurementTypeBeanHandler mType = new EctMeasurementTypeBeanHandler();
+                m = compilationCache.put(flowsheetName, variantKey, createflowsheet(mType, targetStream));
+            }
 
         } else {
             //use out of the box flowsheet
@@ -860,10 +882,14 @@ public class MeasurementTemplateFlowSheetConfig implements InitializingBean {
         }
 
         if (fsuc != null) {
-            //use custom flowsheet
-            InputStream targetStream = IOUtils.toInputStream(fsuc.getXmlContent().replaceAll("<flowsheet xmlns=\"flowsheets.oscarehr.org\"", "<flowsheet"));
-            EctMeasurementTypeBeanHandler mType = new EctMeasurementTypeBeanHandler();
-            m = createflowsheet(mType, targetStream);
+            //use custom flowsheet, compiled once per stored definition
+            String variantKey = FlowSheetCompilationCache.userCreatedKey(fsuc);
+            m = compilationCache.get(flowsheetName, variantKey);
+            if (m == null) {
+                InputStream targetStream = IOUtils.toInputStream(fsuc.getXmlContent().replaceAll("<flowsheet xmlns=\"flowsheets.oscarehr.org\"", "<flowsheet"));
+                EctMeasurementTypeBeanHandler mType = new EctMeasurementTypeBeanHandler();
+                m = compilationCache.put(flowsheetName, variantKey, createflowsheet(mType, targetStream));
+            }
 
         }
 
@@ -34,6 +34,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 import ca.openosp.openo.PMmodule.caisi_integrator.CaisiIntegratorManager;
@@ -64,6 +65,18 @@ public class EctMeasurementsDataBeanHandler {
         init(demo, type);
     }
 
+    /**
+     * Builds the beans from measurement rows that were already loaded, e.g. from
+     * {@link ca.openosp.openo.managers.MeasurementTimeSeriesManager}, instead of querying per type.
+     *
+     * @param type String the measurement type code
+     * @param measurements List the rows of that type, newest first
+     * @param providerCache Map provider lookups shared between handlers built for the same page, may be null
+     */
+    public EctMeasurementsDataBeanHandler(String type, List<Measurement> measurements, Map<String, Provider> providerCache) {
+        init(type, measurements, providerCache == null ? new HashMap<String, Provider>() : providerCache);
+    }
+
     public boolean init(Integer demo) {
         MeasurementDao dao = SpringUtils.getBean(MeasurementDao.class);
         for (MeasurementType mt : dao.findMeasurementsTypes(demo)) {
@@ -135,6 +148,61 @@ public class EctMeasurementsDataBeanHandler {
         return true;
     }
 
+    private boolean init(String type, List<Measurement> measurements, Map<String, Provider> providerCache) {
+        EctMeasurementTypesBean mBean = MeasurementTypes.getInstance().getByType(type);
+        if (mBean == null || measurements.isEmpty()) {
+            return true;
+        }
+        Integer validationId = ConversionUtils.fromIntString(mBean.getValidation());
+        ValidationsDao validationsDao = SpringUtils.getBean(ValidationsDao.class);
+        Validations v = validationId == null ? null : validationsDao.find(validationId);
+        if (v == null) {
+            // same as the validations join in init(Integer, String): no validation, no rows
+            return true;
+        }
+        boolean isNumeric = v.isNumeric() != null && v.isNumeric();
+        String canPlot = (isNumeric || v.getName().equalsIgnoreCase("Blood Pressure")) ? "true" : null;
+
+        ProviderDao providerDao = SpringUtils.getBean(ProviderDao.class);
+        for (Measurement m : measurements) {
+            Provider provider;
+            if (providerCache.containsKey(m.getProviderNo())) {
+                provider = providerCache.get(m.getProviderNo());
+            } else {
+                provider = providerDao.getProvider(m.getProviderNo());
+                providerCache.put(m.getProviderNo(), provider);
+            }
+
+            String firstName = null;
+            String lastName = null;
+            if (provider != null) {
+                firstName = provider.getFirstName();
+                lastName = provider.getLastName();
+            }
+            if (firstName == null && lastName == null) {
+                firstName = "Automatic";
+                lastName = "";
+            }
+
+            measurementsDataVector.add(new EctMeasurementsDataBean(
+                    m.getId().intValue(),
+                    m.getType(),
+                    mBean.getTypeDisplayName(),
+                    mBean.getTypeDesc(),
+                    "" + m.getDemographicId(),
+                    firstName, lastName,
+                    m.getDataField(),
+                    m.getMeasuringInstruction(),
+                    m.getComments(),
+                    ConversionUtils.toDateString(m.getDateObserved()),
+                    ConversionUtils.toDateString(m.getCreateDate()),
+                    canPlot,
+                    m.getDateObserved(),
+                    m.getCreateDate()));
+        }
+        return true;
+    }
+
     public Collection<EctMeasurementsDataBean> getMeasurementsDataVector() {
         return measurementsDataVector;
     }
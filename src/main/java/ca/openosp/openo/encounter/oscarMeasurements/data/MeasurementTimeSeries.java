@@ -0,0 +1,279 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.encounter.oscarMeasurements.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import ca.openosp.openo.commn.model.Measurement;
+
+/**
+ * Immutable, chronologically ordered series of one measurement type for one patient.
+ *
+ * The series is built once from the patient's measurement rows and keeps running totals
+ * (count and sum of the numeric values) alongside the ordered rows, so "latest N",
+ * "value at date" and "min / max / average over a window" are answered with a binary
+ * search over the observation dates instead of re-querying and re-sorting the rows.
+ *
+ * Rows are ordered by observation date (falling back to the entry date when the observation
+ * date is missing), then entry date, then id. Non numeric values (e.g. blood pressure
+ * "120/80" or "Yes") are kept in the series but are ignored by the statistics.
+ *
+ * @see ca.openosp.openo.managers.MeasurementTimeSeriesManager
+ */
+public final class MeasurementTimeSeries {
+
+    private static final Comparator<Measurement> CHRONOLOGICAL = new Comparator<Measurement>() {
+        @Override
+        public int compare(Measurement o1, Measurement o2) {
+            int c = Long.compare(effectiveTime(o1), effectiveTime(o2));
+            if (c != 0) {
+                return c;
+            }
+            c = Long.compare(time(o1.getCreateDate()), time(o2.getCreateDate()));
+            if (c != 0) {
+                return c;
+            }
+            return Integer.compare(o1.getId() == null ? 0 : o1.getId(), o2.getId() == null ? 0 : o2.getId());
+        }
+    };
+
+    private final String type;
+    private final List<Measurement> measurements;
+    private final long[] times;
+    private final double[] values;
+    // prefixCount[i] / prefixSum[i] are the count and sum of the numeric values in [0, i)
+    private final int[] prefixCount;
+    private final double[] prefixSum;
+
+    /**
+     * @param type String the measurement type code
+     * @param rows List the measurement rows of this type, in any order
+     */
+    public MeasurementTimeSeries(String type, List<Measurement> rows) {
+        this.type = type;
+        List<Measurement> sorted = new ArrayList<Measurement>(rows);
+        Collections.sort(sorted, CHRONOLOGICAL);
+        this.measurements = Collections.unmodifiableList(sorted);
+
+        int n = sorted.size();
+        times = new long[n];
+        values = new double[n];
+        prefixCount = new int[n + 1];
+        prefixSum = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            Measurement m = sorted.get(i);
+            times[i] = effectiveTime(m);
+            values[i] = parseValue(m.getDataField());
+            boolean numeric = !Double.isNaN(values[i]);
+            prefixCount[i + 1] = prefixCount[i] + (numeric ? 1 : 0);
+            prefixSum[i + 1] = prefixSum[i] + (numeric ? values[i] : 0);
+        }
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int size() {
+        return measurements.size();
+    }
+
+    public boolean isEmpty() {
+        return measurements.isEmpty();
+    }
+
+    /**
+     * @return List all rows, oldest first
+     */
+    public List<Measurement> getMeasurements() {
+        return measurements;
+    }
+
+    /**
+     * @return List all rows, newest first
+     */
+    public List<Measurement> getMeasurementsNewestFirst() {
+        return getLatest(measurements.size());
+    }
+
+    /**
+     * @return Measurement the most recent row or null if the series is empty
+     */
+    public Measurement getLatest() {
+        return measurements.isEmpty() ? null : measurements.get(measurements.size() - 1);
+    }
+
+    /**
+     * @param n int the maximum number of rows to return
+     * @return List up to n of the most recent rows, newest first
+     */
+    public List<Measurement> getLatest(int n) {
+        int count = Math.max(0, Math.min(n, measurements.size()));
+        List<Measurement> result = new ArrayList<Measurement>(count);
+        for (int i = measurements.size() - 1; i >= measurements.size() - count; i--) {
+            result.add(measurements.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * @param date Date the point in time
+     * @return Measurement the most recent row observed on or before the date, or null
+     */
+    public Measurement getValueAt(Date date) {
+        int idx = upperBound(time(date)) - 1;
+        return idx < 0 ? null : measurements.get(idx);
+    }
+
+    /**
+     * @param from Date start of the window (inclusive), null for unbounded
+     * @param to Date end of the window (inclusive), null for unbounded
+     * @return List the rows observed within the window, oldest first
+     */
+    public List<Measurement> getBetween(Date from, Date to) {
+        int start = from == null ? 0 : lowerBound(time(from));
+        int end = to == null ? measurements.size() : upperBound(time(to));
+        if (start >= end) {
+            return Collections.emptyList();
+        }
+        return measurements.subList(start, end);
+    }
+
+    /**
+     * Computes count, min, max and average of the numeric values observed within the window.
+     *
+     * @param from Date start of the window (inclusive), null for unbounded
+     * @param to Date end of the window (inclusive), null for unbounded
+     * @return Statistics the window statistics, with a count of zero if no numeric value was found
+     */
+    public Statistics getStatistics(Date from, Date to) {
+        int start = from == null ? 0 : lowerBound(time(from));
+        int end = to == null ? measurements.size() : upperBound(time(to));
+        if (start >= end) {
+            return new Statistics(0, Double.NaN, Double.NaN, Double.NaN);
+        }
+        int count = prefixCount[end] - prefixCount[start];
+        if (count == 0) {
+            return new Statistics(0, Double.NaN, Double.NaN, Double.NaN);
+        }
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = start; i < end; i++) {
+            if (!Double.isNaN(values[i])) {
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+        }
+        double average = (prefixSum[end] - prefixSum[start]) / count;
+        return new Statistics(count, min, max, average);
+    }
+
+    // first index with times[i] >= t
+    private int lowerBound(long t) {
+        int lo = 0;
+        int hi = times.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < t) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // first index with times[i] > t
+    private int upperBound(long t) {
+        int lo = 0;
+        int hi = times.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] <= t) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static long effectiveTime(Measurement m) {
+        return m.getDateObserved() != null ? m.getDateObserved().getTime() : time(m.getCreateDate());
+    }
+
+    private static long time(Date date) {
+        return date == null ? 0L : date.getTime();
+    }
+
+    static double parseValue(String dataField) {
+        if (dataField == null) {
+            return Double.NaN;
+        }
+        String trimmed = dataField.trim();
+        if (!NumberUtils.isParsable(trimmed)) {
+            return Double.NaN;
+        }
+        return Double.parseDouble(trimmed);
+    }
+
+    /**
+     * Numeric summary of the values in a window of the series.
+     */
+    public static final class Statistics {
+        private final int count;
+        private final double min;
+        private final double max;
+        private final double average;
+
+        Statistics(int count, double min, double max, double average) {
+            this.count = count;
+            this.min = min;
+            this.max = max;
+            this.average = average;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public double getAverage() {
+            return average;
+        }
+    }
+}
@@ -75,7 +75,10 @@ import org.jfree.data.xy.OHLCDataItem;
 import org.jfree.data.xy.XYDataset;
 import ca.openosp.openo.PMmodule.utility.UtilDateUtilities;
 import ca.openosp.openo.commn.dao.MeasurementsExtDao;
+import ca.openosp.openo.commn.model.Measurement;
 import ca.openosp.openo.commn.model.MeasurementsExt;
+import ca.openosp.openo.commn.model.Provider;
+import ca.openosp.openo.managers.MeasurementTimeSeriesManager;
 import ca.openosp.openo.managers.SecurityInfoManager;
 import ca.openosp.openo.utility.DbConnectionFilter;
 import ca.openosp.openo.utility.LoggedInInfo;
@@ -99,6 +102,8 @@ public class MeasurementGraphAction22Action extends ActionSupport {
 
     private static Logger log = MiscUtils.getLogger();
     private SecurityInfoManager securityInfoManager = SpringUtils.getBean(SecurityInfoManager.class);
+    private MeasurementTimeSeriesManager measurementTimeSeriesManager = SpringUtils.getBean(MeasurementTimeSeriesManager.class);
+    private Map<String, Provider> providerCache = new HashMap<String, Provider>();
     private final String NUMERIC_REGEX = "[^-.\\d]";
 
     public String execute() throws IOException, ParseException {
@@ -167,7 +172,8 @@ public class MeasurementGraphAction22Action extends ActionSupport {
     }
 
     ArrayList<EctMeasurementsDataBean> getList(Integer demographicNo, String typeIdName) {
-        EctMeasurementsDataBeanHandler ectMeasure = new EctMeasurementsDataBeanHandler(demographicNo, typeIdName);
+        List<Measurement> rows = measurementTimeSeriesManager.getSeries(demographicNo, typeIdName).getMeasurementsNewestFirst();
+        EctMeasurementsDataBeanHandler ectMeasure = new EctMeasurementsDataBeanHandler(typeIdName, rows, providerCache);
         Collection<EctMeasurementsDataBean> dataVector = ectMeasure.getMeasurementsDataVector();
         ArrayList<EctMeasurementsDataBean> list = new ArrayList<EctMeasurementsDataBean>(dataVector);
         return list;
@@ -25,18 +25,16 @@
 
 package ca.openosp.openo.encounter.oscarMeasurements.util;
 
-import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.logging.log4j.Logger;
 import org.drools.RuleBase;
-import org.drools.io.RuleBaseLoader;
 import org.jdom2.Element;
 import org.jdom2.Namespace;
 import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
-import ca.openosp.openo.drools.RuleBaseFactory;
+import ca.openosp.openo.drools.RuleBaseCompiler;
 import ca.openosp.openo.utility.MiscUtils;
 
 /**
@@ -54,36 +52,41 @@ public class RuleBaseCreator {
     public RuleBase getRuleBase(String rulesetName, List<Element> elementRules) throws Exception {
         long timer = System.currentTimeMillis();
         try {
-            Element va = new Element("rule-set");
-
-            addAttributeifValueNotNull(va, "name", rulesetName);
-
-            va.setNamespace(namespace);
-            va.addNamespaceDeclaration(javaNamespace);
-            va.addNamespaceDeclaration(xsNs);
-            va.setAttribute("schemaLocation", "http://drools.org/rules rules.xsd http://drools.org/semantics/java java.xsd", xsNs);
-
-            for (Element ele : elementRules) {
-                va.addContent(ele);
-            }
-
-            XMLOutputter outp = new XMLOutputter();
-            outp.setFormat(Format.getPrettyFormat());
-            String ooo = outp.outputString(va);
-
-            log.debug(ooo);
-
-            RuleBase ruleBase = RuleBaseFactory.getRuleBase("RuleBaseCreator:" + ooo);
-            if (ruleBase != null) return (ruleBase);
-
-            ruleBase = RuleBaseLoader.loadFromInputStream(new ByteArrayInputStream(ooo.getBytes()));
-            RuleBaseFactory.putRuleBase("RuleBaseCreator:" + ooo, ruleBase);
-            return ruleBase;
+            return RuleBaseCompiler.compile(getRuleSetXml(rulesetName, elementRules));
         } finally {
             log.debug("generateRuleBase TimeMs : " + (System.currentTimeMillis() - timer));
         }
     }
 
+    /**
+     * Builds the Drools XML rule set for the given rules, the rule elements are moved into the rule set.
+     *
+     * @param rulesetName String the rule set name
+     * @param elementRules List the rule elements, see {@link #getRule(String, String, List, String)}
+     * @return String the rule set XML
+     */
+    public String getRuleSetXml(String rulesetName, List<Element> elementRules) {
+        Element va = new Element("rule-set");
+
+        addAttributeifValueNotNull(va, "name", rulesetName);
+
+        va.setNamespace(namespace);
+        va.addNamespaceDeclaration(javaNamespace);
+        va.addNamespaceDeclaration(xsNs);
+        va.setAttribute("schemaLocation", "http://drools.org/rules rules.xsd http://drools.org/semantics/java java.xsd", xsNs);
+
+        for (Element ele : elementRules) {
+            va.addContent(ele);
+        }
+
+        XMLOutputter outp = new XMLOutputter();
+        outp.setFormat(Format.getPrettyFormat());
+        String ooo = outp.outputString(va);
+
+        log.debug(ooo);
+        return ooo;
+    }
+
     public void test() {
 
         ArrayList elementList = new ArrayList();
@@ -46,6 +46,7 @@ import ca.openosp.openo.commn.dao.DxresearchDAO;
 import ca.openosp.openo.commn.model.Dxresearch;
 import ca.openosp.openo.decisionSupport.model.DSConsequence;
 import ca.openosp.openo.decisionSupport.model.DSGuideline;
+import ca.openosp.openo.decisionSupport.model.DSGuidelineResult;
 import ca.openosp.openo.decisionSupport.service.DSService;
 import ca.openosp.openo.renal.CkdScreener;
 import ca.openosp.openo.utility.LoggedInInfo;
@@ -99,8 +100,6 @@ public class EctDisplayDecisionSupportAlerts2Action extends EctDisplayAction {
             WebApplicationContext ctx = WebApplicationContextUtils.getRequiredWebApplicationContext(ServletActionContext.getServletContext());
             DSService dsService = (DSService) ctx.getBean(DSService.class);
 
-            List<DSGuideline> dsGuidelines = dsService.getDsGuidelinesByProvider(bean.providerNo);
-
             String key;
 
             String BGCOLOUR = request.getParameter("hC");
@@ -154,40 +153,32 @@ public class EctDisplayDecisionSupportAlerts2Action extends EctDisplayAction {
             }
 
 
-            for (DSGuideline dsGuideline : dsGuidelines) {
-                if (OscarProperties.getInstance().getProperty("dsa.skip." + dsGuideline.getTitle().replaceAll(" ", "_"), "false").equals("true")) {
-                    continue;
-                }
-                try {
-                    List<DSConsequence> dsConsequences = dsGuideline.evaluate(loggedInInfo, bean.demographicNo);
-                    if (dsConsequences == null) continue;
-                    for (DSConsequence dsConsequence : dsConsequences) {
-                        if (dsConsequence.getConsequenceType() != DSConsequence.ConsequenceType.warning)
-                            continue;
-
-                        NavBarDisplayDAO.Item item = NavBarDisplayDAO.Item();
-                        winName = dsConsequence.getConsequenceType().toString() + bean.demographicNo;
-
-                        url = "popupPage(500,950,'" + winName + "','" + request.getContextPath() + "/oscarEncounter/decisionSupport/guidelineAction.do?method=detail&guidelineId=" + dsGuideline.getId() + "&provider_no=" + bean.providerNo + "&demographic_no=" + bean.demographicNo + "&parentAjaxId=" + cmd + "'); return false;";
-                        //Date date = (Date)curform.get("formDateAsDate");
-                        //String formattedDate = DateUtils.getDate(date,dateFormat,request.getLocale());
-                        key = StringUtils.maxLenString(dsConsequence.getText(), MAX_LEN_KEY, CROP_LEN_KEY, ELLIPSES);
-                        item.setLinkTitle(dsGuideline.getTitle());
-                        key = StringEscapeUtils.escapeEcmaScript(key);
-                        js = "itemColours['" + key + "'] = '" + BGCOLOUR + "'; autoCompleted['" + key + "'] = \"" + url + "\"; autoCompList.push('" + key + "');";
-                        javascript.append(js);
-                        url += "return false;";
-                        item.setURL(url);
-                        String strTitle = StringUtils.maxLenString(dsGuideline.getTitle(), MAX_LEN_TITLE, CROP_LEN_TITLE, ELLIPSES);
-                        item.setTitle(strTitle);
-                        if (dsConsequence.getConsequenceStrength() == DSConsequence.ConsequenceStrength.warning) {
-                            item.setColour("#ff5409;");
-                        }
-                        //item.setDate(new Date());
-                        Dao.addItem(item);
+            for (DSGuidelineResult result : dsService.evaluate(loggedInInfo, bean.demographicNo, bean.providerNo)) {
+                DSGuideline dsGuideline = result.getGuideline();
+                for (DSConsequence dsConsequence : result.getConsequences()) {
+                    if (dsConsequence.getConsequenceType() != DSConsequence.ConsequenceType.warning)
+                        continue;
+
+                    NavBarDisplayDAO.Item item = NavBarDisplayDAO.Item();
+                    winName = dsConsequence.getConsequenceType().toString() + bean.demographicNo;
+
+                    url = "popupPage(500,950,'" + winName + "','" + request.getContextPath() + "/oscarEncounter/decisionSupport/guidelineAction.do?method=detail&guidelineId=" + dsGuideline.getId() + "&provider_no=" + bean.providerNo + "&demographic_no=" + bean.demographicNo + "&parentAjaxId=" + cmd + "'); return false;";
+                    //Date date = (Date)curform.get("formDateAsDate");
+                    //String formattedDate = DateUtils.getDate(date,dateFormat,request.getLocale());
+                    key = StringUtils.maxLenString(dsConsequence.getText(), MAX_LEN_KEY, CROP_LEN_KEY, ELLIPSES);
+                    item.setLinkTitle(dsGuideline.getTitle());
+                    key = StringEscapeUtils.escapeEcmaScript(key);
+                    js = "itemColours['" + key + "'] = '" + BGCOLOUR + "'; autoCompleted['" + key + "'] = \"" + url + "\"; autoCompList.push('" + key + "');";
+                    javascript.append(js);
+                    url += "return false;";
+                    item.setURL(url);
+                    String strTitle = StringUtils.maxLenString(dsGuideline.getTitle(), MAX_LEN_TITLE, CROP_LEN_TITLE, ELLIPSES);
+                    item.setTitle(strTitle);
+                    if (dsConsequence.getConsequenceStrength() == DSConsequence.ConsequenceStrength.warning) {
+                        item.setColour("#ff5409;");
                     }
-                } catch (Exception e) {
-                    logger.error("Unable to evaluate patient against a DS guideline '" + dsGuideline.getTitle() + "' of UUID '" + dsGuideline.getUuid() + "'", e);
+                    //item.setDate(new Date());
+                    Dao.addItem(item);
                 }
             }
 
@@ -0,0 +1,62 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published by the DAOs behind the caseload summary columns when a row that a patient's summary depends
+ * on is written. The source is the saved entity. Message status changes only know the message, the
+ * patients it is filed under are looked up when the summary is refreshed.
+ */
+public class CaseloadSummaryChangeEvent extends ApplicationEvent {
+
+    private Integer demographicNo;
+    private Integer messageId;
+
+    public CaseloadSummaryChangeEvent(Object source, Integer demographicNo) {
+        this(source, demographicNo, null);
+    }
+
+    public CaseloadSummaryChangeEvent(Object source, Integer demographicNo, Integer messageId) {
+        super(source);
+        this.demographicNo = demographicNo;
+        this.messageId = messageId;
+    }
+
+    /**
+     * @return Integer the patient whose summary changed, null if only the message is known
+     */
+    public Integer getDemographicNo() {
+        return demographicNo;
+    }
+
+    /**
+     * @return Integer the message whose status changed, or null
+     */
+    public Integer getMessageId() {
+        return messageId;
+    }
+}
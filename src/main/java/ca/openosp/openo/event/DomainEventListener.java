@@ -0,0 +1,47 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.event;
+
+import java.util.Map;
+
+import ca.openosp.openo.commn.model.DomainEvent;
+
+/**
+ * A bean handling domain events after the transaction that wrote them has committed, on the
+ * DomainEventManager dispatcher threads rather than the request thread.
+ * <p>
+ * Events of one aggregate reach a listener in the order they were written. A listener that throws is
+ * called again with the same event after a delay, so handling an event twice must be harmless. The
+ * listener's class name identifies its pending deliveries, renaming the class orphans them.
+ */
+public interface DomainEventListener {
+
+    /**
+     * @return true if events of the type should be queued for this listener
+     */
+    public boolean supportsEventType(String eventType);
+
+    public void onDomainEvent(DomainEvent event, Map<String, String> payload) throws Exception;
+}
@@ -41,6 +41,9 @@ public class EventService implements ApplicationEventPublisherAware {
 
 
     /*
+     * Spring listeners are called on the request thread. The domain events for DomainEventListeners are
+     * written with the change, see OscarAppointmentDao.persistAndPublish and mergeAndPublish.
+     *
      * Event is fired:
          src/main/webapp/appointment/appointmentupdatearecord.jsp -- edit appt screen
          src/main/webapp/provider/provideraddstatus.jsp  -- in appt screen when user clicks on the icon to change the appt status
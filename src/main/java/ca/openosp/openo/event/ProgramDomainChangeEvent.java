@@ -0,0 +1,57 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published by the admission and program provider DAOs when a row that decides which clients a provider can
+ * see is written. The source is the saved entity.
+ */
+public class ProgramDomainChangeEvent extends ApplicationEvent {
+
+    private Integer demographicNo;
+    private String providerNo;
+
+    public ProgramDomainChangeEvent(Object source, Integer demographicNo, String providerNo) {
+        super(source);
+        this.demographicNo = demographicNo;
+        this.providerNo = providerNo;
+    }
+
+    /**
+     * @return Integer the client whose admissions changed, or null
+     */
+    public Integer getDemographicNo() {
+        return demographicNo;
+    }
+
+    /**
+     * @return String the provider whose programs changed, or null
+     */
+    public String getProviderNo() {
+        return providerNo;
+    }
+}
@@ -49,6 +49,7 @@ import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.Logger;
 import ca.openosp.openo.commn.dao.FaxConfigDao;
 import ca.openosp.openo.commn.dao.FaxJobDao;
+import ca.openosp.openo.commn.jobs.OscarJobProgress;
 import ca.openosp.openo.commn.dao.ProviderLabRoutingDao;
 import ca.openosp.openo.commn.dao.QueueDocumentLinkDao;
 import ca.openosp.openo.commn.model.FaxConfig;
@@ -165,6 +166,7 @@ public class FaxImporter {
 
                             // save the receivedFax Object regardless of status or fileName.
                             saveFaxJob(new FaxJob(receivedFax));
+                            OscarJobProgress.addRowsProcessed(1);
                         }
 
                     } else {
@@ -24,13 +24,12 @@
  */
 package ca.openosp.openo.fax.core;
 
-import java.util.Timer;
 import java.util.TimerTask;
 
-import javax.annotation.PreDestroy;
-
 import org.apache.logging.log4j.Logger;
+import ca.openosp.openo.managers.OscarJobSchedulerManager;
 import ca.openosp.openo.utility.MiscUtils;
+import ca.openosp.openo.utility.SpringUtils;
 import org.springframework.stereotype.Component;
 
 import ca.openosp.OscarProperties;
@@ -48,8 +47,8 @@ public class FaxSchedulerJob extends TimerTask {
     private static boolean isRunning = false;
 
     private static final String FAX_POLL_INTERVAL_KEY = "faxPollInterval";
-    private static Timer timer;
-    private static TimerTask timerTask = null;
+    // the name the job is scheduled under in applicationContextFax.xml
+    public static final String JOB_NAME = "FaxSchedulerJob";
 
     @Override
     public void run() {
@@ -67,17 +66,17 @@ public class FaxSchedulerJob extends TimerTask {
         } catch (Exception e) {
             /*
              * Catching any unexpected exception thrown by these methods here and logging it.
-             * Also, cancelling the thread so that an admin has to manually reboot the scheduler
+             * Also, unscheduling the job so that an admin has to manually reboot the scheduler
              * or restart the system to start the task again. Doing this because it would not be good
              * to keep running the thread even after it throws an unknown error, which may lead to the
              * fax scheduler going haywire.
              */
-            cancel();
+            getJobScheduler().unschedule(JOB_NAME, false);
             logger.error("Fax scheduler has been stopped due to an unexpected error", e);
             setRunning(false);
 
             /*
-             * Rethrowing the caught exception to ensure termination of the thread.
+             * Rethrowing the caught exception so the run is recorded as failed.
              */
             throw e;
         }
@@ -100,22 +99,19 @@ public class FaxSchedulerJob extends TimerTask {
             logger.error("FaxSchedularJob not scheduled, period is missing or invalid in properties file : " + FAX_POLL_INTERVAL_KEY + ": " + faxPollInterval, e);
             logger.error("Setting period to default: 60000 ms");
         }
-        timerTask = new FaxSchedulerJob();
-        timer = new Timer("FaxSchedulerJob Timer");
-        timer.schedule(timerTask, 3000, period);
+        getJobScheduler().schedule(JOB_NAME, this, 3000, period);
     }
 
-    @PreDestroy
+    // the scheduler stops its own threads on shutdown
     private synchronized void cancelTask() {
-        if (timerTask != null) {
-            timerTask.cancel();
-            timer.cancel();
-        } else {
-            this.cancel();
-        }
+        getJobScheduler().unschedule(JOB_NAME, false);
         setRunning(false);
     }
 
+    private static OscarJobSchedulerManager getJobScheduler() {
+        return SpringUtils.getBean(OscarJobSchedulerManager.class);
+    }
+
     public static Boolean isRunning() {
         return isRunning;
     }
@@ -45,6 +45,7 @@ import org.apache.logging.log4j.Logger;
 import ca.openosp.openo.commn.dao.FaxClientLogDao;
 import ca.openosp.openo.commn.dao.FaxConfigDao;
 import ca.openosp.openo.commn.dao.FaxJobDao;
+import ca.openosp.openo.commn.jobs.OscarJobProgress;
 import ca.openosp.openo.commn.model.FaxClientLog;
 import ca.openosp.openo.commn.model.FaxConfig;
 import ca.openosp.openo.commn.model.FaxJob;
@@ -191,6 +192,7 @@ public class FaxSender {
                     } finally {
                         faxJob.setStatus(faxStatus);
                         faxJobDao.merge(faxJob);
+                        OscarJobProgress.addRowsProcessed(1);
                         log.info("Updated Fax with jobid " + faxJob.getJobId() + " and status " + faxJob.getStatus());
                         if (faxClientLog != null) {
                             faxClientLog.setResult(faxStatus.name());
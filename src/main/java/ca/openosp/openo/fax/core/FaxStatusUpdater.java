@@ -42,6 +42,7 @@ import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.Logger;
 import ca.openosp.openo.commn.dao.FaxConfigDao;
 import ca.openosp.openo.commn.dao.FaxJobDao;
+import ca.openosp.openo.commn.jobs.OscarJobProgress;
 import ca.openosp.openo.commn.model.FaxConfig;
 import ca.openosp.openo.commn.model.FaxJob;
 import ca.openosp.openo.utility.MiscUtils;
@@ -94,6 +95,7 @@ public class FaxStatusUpdater {
 
                         log.info("UPDATED FAX JOB ID " + faxJob.getJobId() + " WITH STATUS " + faxJob.getStatus());
                         faxJobDao.merge(faxJob);
+                        OscarJobProgress.addRowsProcessed(1);
 
                     } else {
                         log.error("WEB SERVICE RESPONDED WITH " + response.getStatusLine().getStatusCode(), new IOException());
@@ -10,8 +10,8 @@
 
 package ca.openosp.openo.hospitalReportManager;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
@@ -20,13 +20,12 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 
 import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
-import javax.xml.transform.Source;
-import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 
@@ -36,6 +35,7 @@ import java.nio.file.Files;
 import java.nio.charset.StandardCharsets;
 
 import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.Logger;
 import ca.openosp.openo.PMmodule.dao.ProviderDao;
 import ca.openosp.openo.commn.dao.DemographicCustDao;
@@ -57,6 +57,7 @@ import ca.openosp.openo.hospitalReportManager.model.HRMDocumentToDemographic;
 import ca.openosp.openo.hospitalReportManager.model.HRMDocumentToProvider;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
+import ca.openosp.openo.utility.QueueCache;
 import ca.openosp.openo.utility.SpringUtils;
 
 import org.springframework.core.io.ClassPathResource;
@@ -72,6 +73,13 @@ public class HRMReportParser {
 
     private static Logger logger = MiscUtils.getLogger();
 
+    private static JAXBContext jaxbContext = null;
+    private static Schema schema = null;
+
+    // parsed reports by hash of the file content, the unmarshalled reports are only read after parsing
+    private static final QueueCache<String, OmdCds> parsedReports = new QueueCache<String, OmdCds>(4,
+            NumberUtils.toInt(OscarProperties.getInstance().getProperty("hrm.parsed_report_cache_size"), 200), null);
+
     private HRMReportParser() {
     }
 
@@ -112,29 +120,21 @@ public class HRMReportParser {
                 if (!tmpXMLholder.exists()) {
                     logger.warn("unable to find the HRM report. checked "
                         + hrmReportFileLocation + ", and in the document_dir");
+                    throw new FileNotFoundException(hrmReportFileLocation);
                 }
 
-                // read file into UTF-8 String using NIO
-                if (tmpXMLholder.exists()) {
-                    fileData = Files.readString(
-                        tmpXMLholder.toPath(),
-                        StandardCharsets.UTF_8
-                    );
-                }
-
-                // Load and compile the XSD schema
-                SchemaFactory factory = SchemaFactory
-                    .newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-                File schemaFile = new ClassPathResource("/xsd/hrm/1.1.2/ontariomd_hrm.xsd").getFile();
-                Source schemaSource = new StreamSource(schemaFile);
-                Schema schema = factory.newSchema(schemaSource);
-
-                // Unmarshal into JAXB model
-                JAXBContext jc = JAXBContext.newInstance("omd.hrm");
-                Unmarshaller u = jc.createUnmarshaller();
-                u.setSchema(schema);
-                try (FileInputStream fileInputStream = new FileInputStream(tmpXMLholder)) {
-                    root = (OmdCds) u.unmarshal(fileInputStream);
+                byte[] fileBytes = Files.readAllBytes(tmpXMLholder.toPath());
+                fileData = new String(fileBytes, StandardCharsets.UTF_8);
+
+                // the same file is parsed again each time the report is displayed, printed or compared
+                String fileHash = DigestUtils.sha256Hex(fileBytes);
+                root = parsedReports.get(fileHash);
+                if (root == null) {
+                    // Unmarshal into JAXB model, validated against the HRM schema
+                    Unmarshaller u = getJAXBContext().createUnmarshaller();
+                    u.setSchema(getSchema());
+                    root = (OmdCds) u.unmarshal(new ByteArrayInputStream(fileBytes));
+                    parsedReports.put(fileHash, root);
                 }
 
                 tmpXMLholder = null;
@@ -162,6 +162,39 @@ public class HRMReportParser {
         return null;
     }
 
+    /**
+     * The JAXB context is thread safe and expensive to build, one is shared by every parse.
+     */
+    private static synchronized JAXBContext getJAXBContext() throws JAXBException {
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance("omd.hrm");
+        }
+        return jaxbContext;
+    }
+
+    /**
+     * The compiled HRM schema, thread safe once built.
+     */
+    private static synchronized Schema getSchema() throws SAXException, IOException {
+        if (schema == null) {
+            SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            schema = factory.newSchema(new ClassPathResource("/xsd/hrm/1.1.2/ontariomd_hrm.xsd").getURL());
+        }
+        return schema;
+    }
+
+    /**
+     * Fingerprint of the report's text content. Compared case insensitively like the report text
+     * itself used to be, so the content is lower cased before hashing.
+     *
+     * @param report HRMReport the parsed report
+     * @return String the hash stored in HRMDocument.reportContentHash
+     */
+    public static String getReportContentHash(HRMReport report) {
+        String content = report.getFirstReportTextContent();
+        return DigestUtils.sha256Hex(content == null ? "" : content.toLowerCase(Locale.ROOT));
+    }
+
     public static void addReportToInbox(LoggedInInfo loggedInInfo, HRMReport report) {
 
         if (report == null) {
@@ -195,6 +228,7 @@ public class HRMReportParser {
         document.setReportHash(noMessageIdHash);
         document.setReportLessTransactionInfoHash(noTransactionInfoHash);
         document.setReportLessDemographicInfoHash(noDemographicInfoHash);
+        document.setReportContentHash(getReportContentHash(report));
 
         document.setReportDate(HRMReportParser.getAppropriateDateFromReport(report));
 
@@ -351,80 +385,75 @@ public class HRMReportParser {
             }
         }
 
-        // Load all the reports for this demographic into memory -- check by name only
-        List<HRMReport> thisDemoHrmReportList = HRMReportParser.loadAllReportsRoutedToDemographic(loggedInInfo, report.getLegalName());
-
-        for (HRMReport loadedReport : thisDemoHrmReportList) {
-            boolean hasSameReportContent = report.getFirstReportTextContent().equalsIgnoreCase(loadedReport.getFirstReportTextContent());
-            boolean hasSameStatus = hasSameStatus(report, loadedReport);
-            boolean hasSameClass = report.getFirstReportClass().equalsIgnoreCase(loadedReport.getFirstReportClass());
-            boolean hasSameDate = false;
-
-            hasSameDate = HRMReportParser.getAppropriateDateFromReport(report).equals(HRMReportParser.getAppropriateDateFromReport(loadedReport));
-
-            Integer threshold = 0;
-
-            if (hasSameReportContent)
-                threshold += 100;
-            else
-                threshold += 10;
-
-            if (hasSameStatus)
-                threshold += 5;
-            else
-                threshold += 10;
-
-            if (hasSameClass)
-                threshold += 10;
-            else
-                threshold += 10;
-
-            if (hasSameDate)
-                threshold += 20;
-            else
-                threshold += 5;
-
-            if (threshold >= 45) {
-                // This is probably a changed report addressed to the same demographic, so set the parent id (as long as this isn't the same report) and we're done!
-                if (loadedReport.getHrmParentDocumentId() != null && loadedReport.getHrmDocumentId().intValue() != mergedDocument.getId().intValue()) {
-                    mergedDocument.setParentReport(loadedReport.getHrmParentDocumentId());
-                    hrmDocumentDao.merge(mergedDocument);
-                    return;
-                } else if (loadedReport.getHrmParentDocumentId() == null) {
-                    mergedDocument.setParentReport(loadedReport.getHrmDocumentId());
-                    hrmDocumentDao.merge(mergedDocument);
-                    return;
-                }
-            }
-        }
-    }
-
-
-    private static List<HRMReport> loadAllReportsRoutedToDemographic(LoggedInInfo loggedInInfo, String legalName) {
+        // Compare with the reports routed to demographics of the same name, using the fingerprint stored with each report
         DemographicDao demographicDao = (DemographicDao) SpringUtils.getBean(DemographicDao.class);
-        HRMDocumentToDemographicDao hrmDocumentToDemographicDao = (HRMDocumentToDemographicDao) SpringUtils.getBean(HRMDocumentToDemographicDao.class);
-        HRMDocumentDao hrmDocumentDao = (HRMDocumentDao) SpringUtils.getBean(HRMDocumentDao.class);
-
-        List<Demographic> matchingDemographicListByName = demographicDao.searchDemographic(legalName);
-
-        List<HRMReport> allRoutedReports = new LinkedList<HRMReport>();
+        String reportContentHash = getReportContentHash(report);
+        Date reportDate = HRMReportParser.getAppropriateDateFromReport(report);
+
+        for (Demographic d : demographicDao.searchDemographic(report.getLegalName())) {
+            for (HRMDocument loadedDocument : hrmDocumentDao.findRoutedToDemographic(d.getDemographicNo())) {
+                boolean hasSameReportContent;
+                boolean hasSameStatus;
+                boolean hasSameClass;
+                boolean hasSameDate = false;
+
+                if (loadedDocument.getReportContentHash() != null) {
+                    hasSameReportContent = reportContentHash.equals(loadedDocument.getReportContentHash());
+                    hasSameStatus = report.getResultStatus() == null || report.getResultStatus().equalsIgnoreCase(loadedDocument.getReportStatus());
+                    hasSameClass = report.getFirstReportClass().equalsIgnoreCase(loadedDocument.getClassName());
+                    // reportDate is stored without milliseconds
+                    hasSameDate = loadedDocument.getReportDate() != null && reportDate.getTime() / 1000 == loadedDocument.getReportDate().getTime() / 1000;
+                } else {
+                    // received before the fingerprint was recorded, parse it once and keep its fingerprint
+                    HRMReport loadedReport = HRMReportParser.parseReport(loggedInInfo, loadedDocument.getReportFile());
+                    if (loadedReport == null) {
+                        continue;
+                    }
+                    loadedDocument.setReportContentHash(getReportContentHash(loadedReport));
+                    hrmDocumentDao.merge(loadedDocument);
 
-        for (Demographic d : matchingDemographicListByName) {
-            List<HRMDocumentToDemographic> matchingHrmDocumentList = hrmDocumentToDemographicDao.findByDemographicNo(d.getDemographicNo().toString());
-            for (HRMDocumentToDemographic matchingHrmDocument : matchingHrmDocumentList) {
-                HRMDocument hrmDocument = hrmDocumentDao.find(matchingHrmDocument.getHrmDocumentId());
+                    hasSameReportContent = reportContentHash.equals(loadedDocument.getReportContentHash());
+                    hasSameStatus = hasSameStatus(report, loadedReport);
+                    hasSameClass = report.getFirstReportClass().equalsIgnoreCase(loadedReport.getFirstReportClass());
+                    hasSameDate = reportDate.equals(HRMReportParser.getAppropriateDateFromReport(loadedReport));
+                }
 
-                HRMReport hrmReport = HRMReportParser.parseReport(loggedInInfo, hrmDocument.getReportFile());
-                if (hrmReport != null) {
-                    hrmReport.setHrmDocumentId(hrmDocument.getId());
-                    hrmReport.setHrmParentDocumentId(hrmDocument.getParentReport());
-                    allRoutedReports.add(hrmReport);
+                Integer threshold = 0;
+
+                if (hasSameReportContent)
+                    threshold += 100;
+                else
+                    threshold += 10;
+
+                if (hasSameStatus)
+                    threshold += 5;
+                else
+                    threshold += 10;
+
+                if (hasSameClass)
+                    threshold += 10;
+                else
+                    threshold += 10;
+
+                if (hasSameDate)
+                    threshold += 20;
+                else
+                    threshold += 5;
+
+                if (threshold >= 45) {
+                    // This is probably a changed report addressed to the same demographic, so set the parent id (as long as this isn't the same report) and we're done!
+                    if (loadedDocument.getParentReport() != null && loadedDocument.getId().intValue() != mergedDocument.getId().intValue()) {
+                        mergedDocument.setParentReport(loadedDocument.getParentReport());
+                        hrmDocumentDao.merge(mergedDocument);
+                        return;
+                    } else if (loadedDocument.getParentReport() == null) {
+                        mergedDocument.setParentReport(loadedDocument.getId());
+                        hrmDocumentDao.merge(mergedDocument);
+                        return;
+                    }
                 }
             }
         }
-
-        return allRoutedReports;
-
     }
 
 
@@ -67,6 +67,18 @@ public class HRMDocumentDao extends AbstractDaoImpl<HRMDocument> {
         return matches;
     }
 
+    /**
+     * Reports routed to a demographic, newest report date first.
+     */
+    public List<HRMDocument> findRoutedToDemographic(Integer demographicNo) {
+        String sql = "select x from " + this.modelClass.getName() + " x, HRMDocumentToDemographic d where d.hrmDocumentId = x.id and d.demographicNo = ?1 order by x.reportDate DESC";
+        Query query = entityManager.createQuery(sql);
+        query.setParameter(1, demographicNo);
+        @SuppressWarnings("unchecked")
+        List<HRMDocument> documents = query.getResultList();
+        return documents;
+    }
+
     public List<HRMDocument> findByNoTransactionInfoHash(String hash) {
         String sql = "select x from " + this.modelClass.getName() + " x where x.reportLessTransactionInfoHash=?1";
         Query query = entityManager.createQuery(sql);
@@ -68,6 +68,8 @@ public class HRMDocument extends AbstractModel<Integer> {
 
     private String sourceFacilityReportNo;
 
+    private String reportContentHash;
+
     @Transient
     private String displayName;
 
@@ -284,6 +286,17 @@ public class HRMDocument extends AbstractModel<Integer> {
         this.sourceFacilityReportNo = sourceFacilityReportNo;
     }
 
+    /**
+     * @return String hash of the report's text content, null for reports received before it was recorded
+     */
+    public String getReportContentHash() {
+        return reportContentHash;
+    }
+
+    public void setReportContentHash(String reportContentHash) {
+        this.reportContentHash = reportContentHash;
+    }
+
     public String getDisplayName() {
         return displayName;
     }
@@ -286,7 +286,7 @@ public class LabDataController {
         return encodedUrl;
     }
 
-    private List<LabResultData> filterOldLabVersions(List<LabResultData> labs) {
+    static List<LabResultData> filterOldLabVersions(List<LabResultData> labs) {
         HashMap<String, LabResultData> labMap = new HashMap<>();
 
         // Maps unique accession keys to a list of associated segment IDs
@@ -346,7 +346,7 @@ public class Hl7textResultsData {
                         me.setMeasurementId(mId);
                         me.setKeyVal("blocked");
                         me.setVal(blocked);
-                        measurementsExtDao.persist(me);
+                        measurementsExts.add(me);
                     }
 
                     me = new MeasurementsExt();
@@ -358,7 +358,7 @@ public class Hl7textResultsData {
                 }
             }
         }
-        measurementsExtDao.batchPersist(measurementsExts, 50);
+        measurementsExtDao.batchPersist(measurementsExts);
     }
 
     public static String getMatchingLabs_CLS(String lab_no) {
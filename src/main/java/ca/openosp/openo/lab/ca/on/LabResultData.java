@@ -51,7 +51,6 @@ import ca.openosp.openo.util.UtilDateUtilities;
 public class LabResultData implements Comparable<LabResultData> {
 
     Logger logger = MiscUtils.getLogger();
-	OscarLogDao oscarLogDao = (OscarLogDao) SpringUtils.getBean(OscarLogDao.class);
 
     public static final String CML = "CML";
     public static final String EPSILON = "Epsilon";
@@ -381,6 +380,7 @@ public class LabResultData implements Comparable<LabResultData> {
 
 	public boolean hasRead(String providerNo) {
 		String type = isHRM() ? "hrm" : (isDocument() ? "document" : "lab");
+		OscarLogDao oscarLogDao = SpringUtils.getBean(OscarLogDao.class);
 		return oscarLogDao.hasRead(providerNo, type, segmentID);
 	}
 
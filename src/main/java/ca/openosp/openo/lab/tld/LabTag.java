@@ -29,7 +29,7 @@ import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.JspWriter;
 import javax.servlet.jsp.tagext.TagSupport;
 
-import ca.openosp.openo.commn.dao.ProviderLabRoutingDao;
+import ca.openosp.openo.managers.TabAlertManager;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.SpringUtils;
 
@@ -46,9 +46,9 @@ public class LabTag extends TagSupport {
     }
 
     public int doStartTag() throws JspException {
-        ProviderLabRoutingDao dao = SpringUtils.getBean(ProviderLabRoutingDao.class);
+        TabAlertManager tabAlertManager = SpringUtils.getBean(TabAlertManager.class);
 
-        numNewLabs = dao.findByProviderNo(providerNo, "N").size();
+        numNewLabs = tabAlertManager.getNewLabCount(providerNo);
         try {
             JspWriter out = super.pageContext.getOut();
             if (numNewLabs > 0) {
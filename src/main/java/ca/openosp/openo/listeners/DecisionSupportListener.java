@@ -0,0 +1,52 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.listeners;
+
+import ca.openosp.openo.decisionSupport.service.DSService;
+import ca.openosp.openo.event.ClinicalDataChangeEvent;
+import ca.openosp.openo.event.DemographicUpdateEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops a patient's cached decision support results when the data the guidelines look at changes.
+ */
+@Component
+public class DecisionSupportListener implements ApplicationListener<ApplicationEvent> {
+
+    @Autowired
+    private DSService dsService;
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof ClinicalDataChangeEvent) {
+            dsService.patientDataChanged(((ClinicalDataChangeEvent) event).getDemographicNo());
+        } else if (event instanceof DemographicUpdateEvent) {
+            dsService.patientDataChanged(((DemographicUpdateEvent) event).getDemographicNo());
+        }
+    }
+}
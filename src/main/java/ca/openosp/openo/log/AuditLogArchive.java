@@ -0,0 +1,431 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * On-disk archive of purged audit log (<code>log</code> table) entries.
+ *
+ * Entries are written in id order as segments: a gzip compressed file holding one JSON object per
+ * line, plus a small <code>.meta.json</code> file recording the id and date range, the row count and
+ * the SHA-256 checksum of the compressed file. A segment only counts as written once its meta file
+ * exists, so a half written segment left behind by an interruption is ignored and overwritten.
+ *
+ * A checkpoint file records how far archiving and deleting have progressed, so an interrupted
+ * purge can finish deleting what it already archived without archiving it twice.
+ *
+ * Segments can be searched in place by date, patient, provider and action; segments whose date
+ * range does not overlap the requested window are skipped without being opened.
+ *
+ * @see ca.openosp.openo.managers.AuditLogManager#purgeAuditLog(ca.openosp.openo.utility.LoggedInInfo, Date)
+ */
+public final class AuditLogArchive {
+
+    private static final String SEGMENT_PREFIX = "audit_log_";
+    private static final String SEGMENT_SUFFIX = ".jsonl.gz";
+    private static final String META_SUFFIX = ".meta.json";
+    private static final String CHECKPOINT_FILE = "checkpoint.properties";
+    private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Path directory;
+
+    public AuditLogArchive(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes one segment.
+     *
+     * @param rows List rows in id order, each [id, dateTime, provider_no, action, content, contentId, ip, demographic_no, data, securityId]
+     * @return Segment the written segment
+     */
+    public Segment write(List<Object[]> rows) throws IOException {
+        if (rows.isEmpty()) throw new IllegalArgumentException("Cannot archive an empty segment");
+
+        long firstId = ((Number) rows.get(0)[0]).longValue();
+        long lastId = ((Number) rows.get(rows.size() - 1)[0]).longValue();
+        String name = SEGMENT_PREFIX + firstId + "_" + lastId;
+        Path file = directory.resolve(name + SEGMENT_SUFFIX);
+        Path tmp = directory.resolve(name + SEGMENT_SUFFIX + ".tmp");
+
+        SimpleDateFormat formatter = new SimpleDateFormat(DATE_FORMAT);
+        MessageDigest digest = sha256();
+        Date minDate = null;
+        Date maxDate = null;
+        try (OutputStream fileOut = Files.newOutputStream(tmp);
+             DigestOutputStream digestOut = new DigestOutputStream(fileOut, digest);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(digestOut, 65536), StandardCharsets.UTF_8))) {
+            for (Object[] row : rows) {
+                Date created = (Date) row[1];
+                if (created != null) {
+                    if (minDate == null || created.before(minDate)) minDate = created;
+                    if (maxDate == null || created.after(maxDate)) maxDate = created;
+                }
+                ObjectNode node = objectMapper.createObjectNode();
+                node.put("id", ((Number) row[0]).longValue());
+                node.put("dateTime", created == null ? null : formatter.format(created));
+                node.put("provider_no", (String) row[2]);
+                node.put("action", (String) row[3]);
+                node.put("content", (String) row[4]);
+                node.put("contentId", (String) row[5]);
+                node.put("ip", (String) row[6]);
+                node.put("demographic_no", row[7] == null ? null : ((Number) row[7]).intValue());
+                node.put("data", (String) row[8]);
+                node.put("securityId", row[9] == null ? null : ((Number) row[9]).intValue());
+                writer.write(objectMapper.writeValueAsString(node));
+                writer.write('\n');
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Segment segment = new Segment(file, firstId, lastId, rows.size(), minDate, maxDate, Hex.encodeHexString(digest.digest()));
+        ObjectNode meta = objectMapper.createObjectNode();
+        meta.put("file", file.getFileName().toString());
+        meta.put("firstId", firstId);
+        meta.put("lastId", lastId);
+        meta.put("rows", rows.size());
+        meta.put("minDate", minDate == null ? null : formatter.format(minDate));
+        meta.put("maxDate", maxDate == null ? null : formatter.format(maxDate));
+        meta.put("sha256", segment.getSha256());
+        Path metaTmp = directory.resolve(name + META_SUFFIX + ".tmp");
+        Files.write(metaTmp, objectMapper.writeValueAsBytes(meta));
+        Files.move(metaTmp, directory.resolve(name + META_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return segment;
+    }
+
+    /**
+     * @return List every complete segment of the archive, in id order
+     */
+    public List<Segment> getSegments() throws IOException {
+        List<Segment> segments = new ArrayList<Segment>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + META_SUFFIX)) {
+            for (Path metaFile : stream) {
+                JsonNode meta = objectMapper.readTree(metaFile.toFile());
+                segments.add(new Segment(directory.resolve(meta.get("file").asText()),
+                        meta.get("firstId").asLong(),
+                        meta.get("lastId").asLong(),
+                        meta.get("rows").asInt(),
+                        parseDate(meta.get("minDate")),
+                        parseDate(meta.get("maxDate")),
+                        meta.get("sha256").asText()));
+            }
+        }
+        Collections.sort(segments, Comparator.comparingLong(Segment::getFirstId));
+        return segments;
+    }
+
+    /**
+     * @return boolean true if the segment file is present and matches its recorded checksum
+     */
+    public boolean verify(Segment segment) throws IOException {
+        if (!Files.isReadable(segment.getFile())) return false;
+        try (InputStream in = Files.newInputStream(segment.getFile())) {
+            return DigestUtils.sha256Hex(in).equalsIgnoreCase(segment.getSha256());
+        }
+    }
+
+    /**
+     * Searches the archived entries without restoring them. Any criterion left null matches everything.
+     *
+     * @param from Date entries created on or after this date
+     * @param to Date entries created on or before this date
+     * @param demographicNo Integer the patient
+     * @param providerNo String the provider
+     * @param action String the logged action
+     * @param limit int the maximum number of entries to return
+     * @return List the matching entries in id order
+     */
+    public List<Entry> search(Date from, Date to, Integer demographicNo, String providerNo, String action, int limit) throws IOException {
+        List<Entry> results = new ArrayList<Entry>();
+        for (Segment segment : getSegments()) {
+            if (results.size() >= limit) break;
+            if (from != null && segment.getMaxDate() != null && segment.getMaxDate().before(from)) continue;
+            if (to != null && segment.getMinDate() != null && segment.getMinDate().after(to)) continue;
+
+            try (Reader reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(segment.getFile()), 65536), StandardCharsets.UTF_8);
+                 BufferedReader lines = new BufferedReader(reader)) {
+                String line;
+                while ((line = lines.readLine()) != null && results.size() < limit) {
+                    if (line.isEmpty()) continue;
+                    Entry entry = new Entry(objectMapper.readTree(line));
+                    if (from != null && (entry.getDateTime() == null || entry.getDateTime().before(from))) continue;
+                    if (to != null && (entry.getDateTime() == null || entry.getDateTime().after(to))) continue;
+                    if (demographicNo != null && !demographicNo.equals(entry.getDemographicNo())) continue;
+                    if (providerNo != null && !providerNo.equals(entry.getProviderNo())) continue;
+                    if (action != null && !action.equals(entry.getAction())) continue;
+                    results.add(entry);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return Checkpoint the progress of the last purge, or null if none was recorded
+     */
+    public Checkpoint readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) return null;
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        }
+        try {
+            return new Checkpoint(new SimpleDateFormat(DATE_FORMAT).parse(props.getProperty("endDate")),
+                    Long.parseLong(props.getProperty("archivedThroughId")),
+                    Long.parseLong(props.getProperty("deletedThroughId")));
+        } catch (ParseException | RuntimeException e) {
+            throw new IOException("Unreadable audit log archive checkpoint " + file, e);
+        }
+    }
+
+    public void writeCheckpoint(Checkpoint checkpoint) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("endDate", new SimpleDateFormat(DATE_FORMAT).format(checkpoint.getEndDate()));
+        props.setProperty("archivedThroughId", String.valueOf(checkpoint.getArchivedThroughId()));
+        props.setProperty("deletedThroughId", String.valueOf(checkpoint.getDeletedThroughId()));
+        Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, "audit log purge progress");
+        }
+        Files.move(tmp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Date parseDate(JsonNode node) {
+        if (node == null || node.isNull()) return null;
+        try {
+            return new SimpleDateFormat(DATE_FORMAT).parse(node.asText());
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * An archived, compressed run of log entries.
+     */
+    public static final class Segment {
+        private final Path file;
+        private final long firstId;
+        private final long lastId;
+        private final int rows;
+        private final Date minDate;
+        private final Date maxDate;
+        private final String sha256;
+
+        Segment(Path file, long firstId, long lastId, int rows, Date minDate, Date maxDate, String sha256) {
+            this.file = file;
+            this.firstId = firstId;
+            this.lastId = lastId;
+            this.rows = rows;
+            this.minDate = minDate;
+            this.maxDate = maxDate;
+            this.sha256 = sha256;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public long getFirstId() {
+            return firstId;
+        }
+
+        public long getLastId() {
+            return lastId;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public Date getMinDate() {
+            return minDate;
+        }
+
+        public Date getMaxDate() {
+            return maxDate;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+    }
+
+    /**
+     * Progress of a purge: entries up to archivedThroughId are safely archived and entries up to
+     * deletedThroughId have been removed from the log table.
+     */
+    public static final class Checkpoint {
+        private final Date endDate;
+        private final long archivedThroughId;
+        private final long deletedThroughId;
+
+        public Checkpoint(Date endDate, long archivedThroughId, long deletedThroughId) {
+            this.endDate = endDate;
+            this.archivedThroughId = archivedThroughId;
+            this.deletedThroughId = deletedThroughId;
+        }
+
+        public Date getEndDate() {
+            return endDate;
+        }
+
+        public long getArchivedThroughId() {
+            return archivedThroughId;
+        }
+
+        public long getDeletedThroughId() {
+            return deletedThroughId;
+        }
+    }
+
+    /**
+     * One archived log entry.
+     */
+    public static final class Entry {
+        private final long id;
+        private final Date dateTime;
+        private final String providerNo;
+        private final String action;
+        private final String content;
+        private final String contentId;
+        private final String ip;
+        private final Integer demographicNo;
+        private final String data;
+        private final Integer securityId;
+
+        Entry(JsonNode node) {
+            this.id = node.get("id").asLong();
+            this.dateTime = parseDate(node.get("dateTime"));
+            this.providerNo = text(node, "provider_no");
+            this.action = text(node, "action");
+            this.content = text(node, "content");
+            this.contentId = text(node, "contentId");
+            this.ip = text(node, "ip");
+            this.demographicNo = number(node, "demographic_no");
+            this.data = text(node, "data");
+            this.securityId = number(node, "securityId");
+        }
+
+        private static String text(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+
+        private static Integer number(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() ? null : value.asInt();
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public Date getDateTime() {
+            return dateTime;
+        }
+
+        public String getProviderNo() {
+            return providerNo;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public String getContentId() {
+            return contentId;
+        }
+
+        public String getIp() {
+            return ip;
+        }
+
+        public Integer getDemographicNo() {
+            return demographicNo;
+        }
+
+        public String getData() {
+            return data;
+        }
+
+        public Integer getSecurityId() {
+            return securityId;
+        }
+    }
+}
@@ -32,8 +32,11 @@ import java.util.concurrent.Executors;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.Logger;
+import ca.openosp.OscarProperties;
 import ca.openosp.openo.commn.dao.OscarLogDao;
+import ca.openosp.openo.commn.dao.RecentDemographicAccessDao;
 import ca.openosp.openo.commn.model.OscarLog;
 import ca.openosp.openo.commn.model.Provider;
 import ca.openosp.openo.utility.DeamonThreadFactory;
@@ -44,6 +47,8 @@ import ca.openosp.openo.utility.SpringUtils;
 public class LogAction {
     private static Logger logger = MiscUtils.getLogger();
     private static OscarLogDao oscarLogDao = (OscarLogDao) SpringUtils.getBean(OscarLogDao.class);
+    private static RecentDemographicAccessDao recentDemographicAccessDao = SpringUtils.getBean(RecentDemographicAccessDao.class);
+    private static final int RECENT_DEMOGRAPHICS_PER_PROVIDER = NumberUtils.toInt(OscarProperties.getInstance().getProperty("recent_demographic_access.max_entries"), 50);
     private static ExecutorService executorService = Executors.newCachedThreadPool(new DeamonThreadFactory(LogAction.class.getSimpleName() + ".executorService", Thread.MAX_PRIORITY));
 
     public static void addLogSynchronous(LoggedInInfo loggedInInfo, String action, String data) {
@@ -145,6 +150,22 @@ public class LogAction {
         } catch (Exception e) {
             logger.error("Error in logger.", e);
             logger.error("Error logging entry : " + oscarLog);
+            return;
+        }
+        recordRecentDemographic(oscarLog);
+    }
+
+    /**
+     * Keeps the provider's recent patient list, what the recent patient menus read instead of the log table.
+     */
+    private static void recordRecentDemographic(OscarLog oscarLog) {
+        Integer demographicNo = oscarLog.getDemographicId();
+        if (oscarLog.getProviderNo() == null || demographicNo == null || demographicNo <= 0) return;
+
+        try {
+            recentDemographicAccessDao.recordAccess(oscarLog.getProviderNo(), demographicNo, oscarLog.getCreated(), RECENT_DEMOGRAPHICS_PER_PROVIDER);
+        } catch (Exception e) {
+            logger.error("Error recording recent patient " + demographicNo + " for provider " + oscarLog.getProviderNo(), e);
         }
     }
 
@@ -538,7 +538,7 @@ public final class Login2Action extends ActionSupport {
             /*
              * if (OscarProperties.getInstance().isTorontoRFQ()) { where = "caisiPMM"; }
              */
-            // Lazy Loads AlertTimer instance only once, will run as daemon for duration of
+            // Lazy Loads AlertTimer instance only once, its job runs on the OscarJobSchedulerManager for the duration of
             // server runtime
             if (pvar.getProperty("billregion").equals("BC")) {
                 String alertFreq = pvar.getProperty("ALERT_POLL_FREQUENCY");
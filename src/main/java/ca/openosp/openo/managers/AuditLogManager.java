@@ -24,17 +24,20 @@
  */
 package ca.openosp.openo.managers;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.Logger;
 import org.joda.time.Days;
 import org.joda.time.LocalDate;
+import ca.openosp.openo.commn.dao.AbstractDao;
 import ca.openosp.openo.commn.dao.OscarLogDao;
+import ca.openosp.openo.log.AuditLogArchive;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.SpringUtils;
@@ -43,19 +46,29 @@ import org.springframework.stereotype.Service;
 import ca.openosp.OscarProperties;
 import ca.openosp.openo.log.LogAction;
 
+/**
+ * Archives and purges old audit log entries.
+ *
+ * Entries are streamed out of the log table in primary key chunks into compressed, checksummed
+ * archive segments (see {@link AuditLogArchive}) under log.purge.outputdir, and each archived chunk
+ * is then deleted in small transactions of log.purge.deleteBatchSize rows, pausing
+ * log.purge.throttleMillis between them so the table is never locked for long. Progress is
+ * checkpointed, so a purge interrupted part way resumes without archiving rows twice.
+ */
 @Service
 public class AuditLogManager {
 
+    private static final String ARCHIVE_DIRECTORY = "audit_log_archive";
+
     Logger logger = MiscUtils.getLogger();
 
     String minDays = OscarProperties.getInstance().getProperty("log.purge.minDays", String.valueOf(365 * 10));
-    String mysqldump = OscarProperties.getInstance().getProperty("log.purge.mysqldump");
     String outputDirectory = OscarProperties.getInstance().getProperty("log.purge.outputdir");
     String daysFromNowToRemove = OscarProperties.getInstance().getProperty("log.purge.daysfromnowtopurge");
 
-    String user = OscarProperties.getInstance().getProperty("db_username");
-    String password = OscarProperties.getInstance().getProperty("db_password");
-    String dbName = OscarProperties.getInstance().getProperty("db_name").substring(0, OscarProperties.getInstance().getProperty("db_name").indexOf("?"));
+    int chunkSize = Math.min(AbstractDao.MAX_LIST_RETURN_SIZE, NumberUtils.toInt(OscarProperties.getInstance().getProperty("log.purge.chunkSize"), AbstractDao.MAX_LIST_RETURN_SIZE));
+    int deleteBatchSize = NumberUtils.toInt(OscarProperties.getInstance().getProperty("log.purge.deleteBatchSize"), 1000);
+    long throttleMillis = NumberUtils.toLong(OscarProperties.getInstance().getProperty("log.purge.throttleMillis"), 100);
 
 
     public int purgeAuditLog(LoggedInInfo loggedInInfo, Date endDateToPurge) throws Exception {
@@ -63,10 +76,6 @@ public class AuditLogManager {
         if (outputDirectory == null || outputDirectory.isEmpty()) {
             outputDirectory = OscarProperties.getInstance().getProperty("DOCUMENT_DIR");
         }
-        if (mysqldump == null) {
-            logger.warn("No mysqldump command has been defined. Please set log.purge.mysqldump in the properties file");
-            throw new Exception("No mysqldump command has been defined. Please set log.purge.mysqldump in the properties file");
-        }
         Integer iMinDays = null;
         try {
             iMinDays = Integer.parseInt(minDays);
@@ -92,66 +101,55 @@ public class AuditLogManager {
         }
 
         SimpleDateFormat formatter2 = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        SimpleDateFormat formatter3 = new SimpleDateFormat("yyyyMMddHHmmss");
-
-        String filename = outputDirectory + "/OSCAR_AUDIR_LOG_PURGE_FILE_" + formatter3.format(endDateToPurge) + ".sql";
-
-        String vars[] = new String[9];
-        vars[0] = mysqldump;
-        vars[1] = "--user=" + user;
-        vars[2] = "--password=" + password;
-        vars[3] = "-w";
-        vars[4] = "dateTime < '" + formatter2.format(endDateToPurge) + "'";
-        vars[5] = "-t";
-        vars[6] = "--result-file=" + filename;
-        vars[7] = dbName;
-        vars[8] = "log";
-
-        Integer exitValue = null;
-
-
-        try {
-            String s = null;
-
-            Process p = Runtime.getRuntime().exec(vars);
-
-            BufferedReader stdInput = new BufferedReader(new InputStreamReader(p.getInputStream()));
-
-            BufferedReader stdError = new BufferedReader(new InputStreamReader(p.getErrorStream()));
 
-            logger.info("Here is the standard output of the command:\n");
-            while ((s = stdInput.readLine()) != null) {
-                logger.info(s);
-            }
-
-            logger.info("Here is the standard error of the command (if any):\n");
-            while ((s = stdError.readLine()) != null) {
-                logger.info(s);
-            }
+        AuditLogArchive archive = new AuditLogArchive(Paths.get(outputDirectory, ARCHIVE_DIRECTORY));
+        OscarLogDao oscarLogDao = SpringUtils.getBean(OscarLogDao.class);
+        int numRecordAffected = 0;
 
-            exitValue = p.waitFor();
-        } catch (IOException e) {
-            logger.error("Error running mysqldump command. Aborting!", e);
-            throw new Exception(e);
-        } catch (InterruptedException e) {
-            logger.error("Error running mysqldump command. Aborting!", e);
-            throw new Exception(e);
+        // finish deleting what an interrupted purge had already archived
+        AuditLogArchive.Checkpoint checkpoint = archive.readCheckpoint();
+        if (checkpoint != null && checkpoint.getArchivedThroughId() > checkpoint.getDeletedThroughId()) {
+            logger.info("Resuming interrupted purge, deleting archived entries " + (checkpoint.getDeletedThroughId() + 1) + " to " + checkpoint.getArchivedThroughId());
+            numRecordAffected += deleteRange(archive, oscarLogDao, checkpoint.getEndDate(), checkpoint.getDeletedThroughId() + 1, checkpoint.getArchivedThroughId(), checkpoint.getArchivedThroughId());
         }
 
-        if (exitValue != 0) {
-            logger.warn("Error running mysqldump command. Received an exit value of " + exitValue);
-            throw new Exception("Error running mysqldump command. Received an exit value of " + exitValue);
+        Long maxId = oscarLogDao.findMaxIdCreatedOnOrBefore(endDateToPurge);
+        if (maxId == null) {
+            logger.info("No audit log entries to purge");
+            return numRecordAffected;
         }
 
-        logger.info("Backed up audit log which will be purged to " + filename);
-
         LogAction.addLogSynchronous(loggedInInfo, "AuditLogManager.purgeAuditLog", formatter2.format(endDateToPurge));
 
-        OscarLogDao oscarLogDao = SpringUtils.getBean(OscarLogDao.class);
-        int numRecordAffected = oscarLogDao.purgeLogEntries(endDateToPurge);
+        long afterId = 0;
+        List<Object[]> rows;
+        while (!(rows = oscarLogDao.findEntriesForArchive(afterId, maxId, endDateToPurge, chunkSize)).isEmpty()) {
+            AuditLogArchive.Segment segment = archive.write(rows);
+            archive.writeCheckpoint(new AuditLogArchive.Checkpoint(endDateToPurge, segment.getLastId(), segment.getFirstId() - 1));
+            logger.info("Archived " + segment.getRows() + " audit log entries to " + segment.getFile());
+
+            numRecordAffected += deleteRange(archive, oscarLogDao, endDateToPurge, segment.getFirstId(), segment.getLastId(), segment.getLastId());
+            afterId = segment.getLastId();
+        }
 
         logger.info("removed  " + numRecordAffected + " records");
 
         return numRecordAffected;
     }
+
+    /**
+     * Deletes archived entries fromId..toId in transactions of deleteBatchSize ids, checkpointing after each.
+     */
+    private int deleteRange(AuditLogArchive archive, OscarLogDao oscarLogDao, Date endDate, long fromId, long toId, long archivedThroughId) throws IOException, InterruptedException {
+        int deleted = 0;
+        for (long start = fromId; start <= toId; start += deleteBatchSize) {
+            long end = Math.min(toId, start + deleteBatchSize - 1);
+            deleted += oscarLogDao.purgeLogEntries(start, end, endDate);
+            archive.writeCheckpoint(new AuditLogArchive.Checkpoint(endDate, archivedThroughId, end));
+            if (throttleMillis > 0) {
+                Thread.sleep(throttleMillis);
+            }
+        }
+        return deleted;
+    }
 }
@@ -0,0 +1,61 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+
+package ca.openosp.openo.managers;
+
+/**
+ * Keeps the caseload_summary table, the per-patient caseload columns used to sort the caseload, current.
+ *
+ * Appointment, tickler, message and measurement writes mark the patient's row as changed; changed rows are
+ * recomputed in the background every caseload_summary.refresh_seconds. Rows whose next appointment has
+ * started are recomputed the same way. The whole table is rebuilt after startup and every
+ * caseload_summary.rebuild_hours, which ages the appointment counts and picks up changes made outside the
+ * DAOs. The caseload sorts by the table once it has been built.
+ */
+public interface CaseloadSummaryManager {
+
+    /**
+     * Starts the initial build and the background refresh, if they have not been started yet.
+     */
+    public void start();
+
+    /**
+     * Marks the summary of a patient as changed. When called inside a transaction the row is marked after commit.
+     *
+     * @param demographicNo Integer the patient, or null if only the message is known
+     * @param messageId Integer the message whose status changed, its patients are looked up on refresh, or null
+     */
+    public void summaryChanged(Integer demographicNo, Integer messageId);
+
+    /**
+     * Recomputes the rows marked as changed and the rows whose next appointment has started.
+     */
+    public void refresh();
+
+    /**
+     * Recomputes every row.
+     */
+    public void rebuild();
+}
@@ -0,0 +1,133 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import ca.openosp.openo.commn.dao.CaseloadDao;
+import ca.openosp.openo.commn.dao.DemographicDao;
+import ca.openosp.openo.commn.dao.MeasurementDao;
+import ca.openosp.openo.commn.dao.MsgDemoMapDao;
+import ca.openosp.openo.commn.model.MsgDemoMap;
+import ca.openosp.openo.managers.DenormalizedTableRefresher.Changes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class CaseloadSummaryManagerImpl implements CaseloadSummaryManager {
+
+    @Autowired
+    private CaseloadDao caseloadDao;
+
+    @Autowired
+    private DemographicDao demographicDao;
+
+    @Autowired
+    private MeasurementDao measurementDao;
+
+    @Autowired
+    private MsgDemoMapDao msgDemoMapDao;
+
+    private final DenormalizedTableRefresher refresher = new DenormalizedTableRefresher("caseload summary", "caseload_summary", 30,
+            new DenormalizedTableRefresher.Table() {
+                @Override
+                public boolean hasRows() {
+                    return caseloadDao.hasCaseloadSummary();
+                }
+
+                @Override
+                public void useRows() {
+                    caseloadDao.setCaseloadSummarySorting(true);
+                }
+
+                @Override
+                public void refreshRows() {
+                    refreshChanged();
+                }
+
+                @Override
+                public void rebuildRows(int fromDemographicNo, int toDemographicNo) {
+                    caseloadDao.refreshCaseloadSummary(fromDemographicNo, toDemographicNo);
+                }
+
+                @Override
+                public Integer getMaxDemographicNo() {
+                    return demographicDao.getMaxDemographicNo();
+                }
+            });
+
+    private final Changes<Integer> changedDemographics = refresher.newChanges();
+    private final Changes<Integer> changedMessages = refresher.newChanges();
+
+    @PostConstruct
+    private void registerChangeListener() {
+        measurementDao.addMeasurementChangeListener(demographicNo -> summaryChanged(demographicNo, null));
+    }
+
+    @Override
+    public void start() {
+        refresher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.stop();
+    }
+
+    @Override
+    public void summaryChanged(Integer demographicNo, Integer messageId) {
+        if (demographicNo != null && demographicNo > 0) refresher.markChanged(changedDemographics, demographicNo);
+        refresher.markChanged(changedMessages, messageId);
+    }
+
+    @Override
+    public void refresh() {
+        refresher.refresh();
+    }
+
+    private void refreshChanged() {
+        Set<Integer> demographicNos = new TreeSet<Integer>(changedDemographics.take());
+        for (Integer messageId : changedMessages.take()) {
+            for (MsgDemoMap map : msgDemoMapDao.findByMessageId(messageId)) {
+                demographicNos.add(map.getDemographic_no());
+            }
+        }
+        demographicNos.addAll(caseloadDao.findCaseloadSummaryPastNextAppointment());
+
+        for (List<Integer> chunk : DenormalizedTableRefresher.chunks(demographicNos)) {
+            caseloadDao.refreshCaseloadSummary(chunk);
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        refresher.rebuild();
+    }
+}
@@ -70,6 +70,8 @@ public class DemographicManagerImpl implements DemographicManager {
     @Autowired
     private DemographicDao demographicDao;
     @Autowired
+    private PatientSearchIndexManager patientSearchIndexManager;
+    @Autowired
     private DemographicExtDao demographicExtDao;
     @Autowired
     private DemographicCustDao demographicCustDao;
@@ -760,8 +762,11 @@ public class DemographicManagerImpl implements DemographicManager {
     @Override
     public List<DemographicSearchResult> searchPatients(LoggedInInfo loggedInInfo,
                                                         DemographicSearchRequest searchRequest, int startIndex, int itemsToReturn) {
-        List<DemographicSearchResult> results = demographicDao.searchPatients(loggedInInfo, searchRequest, startIndex,
+        List<DemographicSearchResult> results = patientSearchIndexManager.searchPatients(loggedInInfo, searchRequest, startIndex,
                 itemsToReturn);
+        if (results == null) {
+            results = demographicDao.searchPatients(loggedInInfo, searchRequest, startIndex, itemsToReturn);
+        }
 
         for (DemographicSearchResult demographic : results) {
             LogAction.addLogSynchronous(loggedInInfo, "DemographicManager.searchPatients result",
@@ -773,7 +778,11 @@ public class DemographicManagerImpl implements DemographicManager {
 
     @Override
     public int searchPatientsCount(LoggedInInfo loggedInInfo, DemographicSearchRequest searchRequest) {
-        return demographicDao.searchPatientCount(loggedInInfo, searchRequest);
+        Integer count = patientSearchIndexManager.searchPatientCount(loggedInInfo, searchRequest);
+        if (count == null) {
+            count = demographicDao.searchPatientCount(loggedInInfo, searchRequest);
+        }
+        return count;
     }
 
     /**
@@ -0,0 +1,290 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+
+package ca.openosp.openo.managers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.Logger;
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.utility.DeamonThreadFactory;
+import ca.openosp.openo.utility.MiscUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps a table worked out from other tables up to date in the background. The table is built when the
+ * refresher starts, the rows marked as changed are refreshed once their transaction commits, and the whole
+ * table is rebuilt periodically to pick up changes made around the application.
+ * <p>
+ * Configured by &lt;property&gt; (false turns the table off), &lt;property&gt;.refresh_seconds and
+ * &lt;property&gt;.rebuild_hours (0 for no periodic rebuild).
+ */
+public class DenormalizedTableRefresher {
+
+    private static Logger logger = MiscUtils.getLogger();
+
+    // rows recomputed per statement
+    public static final int CHUNK_SIZE = 500;
+
+    /**
+     * The table being maintained, all calls are made from the refresher's thread.
+     */
+    public interface Table {
+
+        /**
+         * @return true if rows left by the last run can be used while the table is rebuilt
+         */
+        public boolean hasRows();
+
+        /**
+         * Lets the table's readers use it, called once it has rows.
+         */
+        public void useRows();
+
+        /**
+         * Recomputes the rows of the keys marked as changed, read with {@link Changes#take()}.
+         */
+        public void refreshRows();
+
+        /**
+         * Recomputes the rows of the demographics in the range, both ends included.
+         */
+        public void rebuildRows(int fromDemographicNo, int toDemographicNo);
+
+        public Integer getMaxDemographicNo();
+    }
+
+    /**
+     * Keys of the rows marked as changed and not refreshed yet.
+     */
+    public static final class Changes<T extends Comparable<T>> {
+
+        private final Set<T> marked = ConcurrentHashMap.newKeySet();
+        private final Set<T> taken = new TreeSet<T>();
+
+        private Changes() {
+        }
+
+        /**
+         * @return the keys marked since the last refresh, in order. They are marked again if the refresh fails.
+         */
+        public Set<T> take() {
+            for (Iterator<T> it = marked.iterator(); it.hasNext(); ) {
+                taken.add(it.next());
+                it.remove();
+            }
+            return Collections.unmodifiableSet(taken);
+        }
+
+        private void add(T key) {
+            marked.add(key);
+        }
+
+        private void done(boolean refreshed) {
+            if (!refreshed) marked.addAll(taken);
+            taken.clear();
+        }
+    }
+
+    private final String description;
+    private final String property;
+    private final int defaultRefreshSeconds;
+    private final Table table;
+
+    private final List<Changes<?>> changes = new CopyOnWriteArrayList<Changes<?>>();
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicBoolean refreshQueued = new AtomicBoolean(false);
+    private ScheduledExecutorService scheduler = null;
+
+    /**
+     * @param description what the table is called in the log
+     * @param property the prefix of the table's properties
+     */
+    public DenormalizedTableRefresher(String description, String property, int defaultRefreshSeconds, Table table) {
+        this.description = description;
+        this.property = property;
+        this.defaultRefreshSeconds = defaultRefreshSeconds;
+        this.table = table;
+    }
+
+    public <T extends Comparable<T>> Changes<T> newChanges() {
+        Changes<T> result = new Changes<T>();
+        changes.add(result);
+        return result;
+    }
+
+    /**
+     * Starts the initial build and the background refresh, if they have not been started yet.
+     */
+    public void start() {
+        if (!isEnabled() || !started.compareAndSet(false, true)) return;
+
+        OscarProperties props = OscarProperties.getInstance();
+        int refreshSeconds = Math.max(1, NumberUtils.toInt(props.getProperty(property + ".refresh_seconds"), defaultRefreshSeconds));
+        int rebuildHours = NumberUtils.toInt(props.getProperty(property + ".rebuild_hours"), 24);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new DeamonThreadFactory(property, Thread.MIN_PRIORITY));
+        scheduler.execute(() -> {
+            try {
+                // a table left by the last run is good enough to read while it is rebuilt
+                if (table.hasRows()) {
+                    table.useRows();
+                }
+            } catch (Exception e) {
+                logger.error("Unable to read the " + description, e);
+            }
+            rebuildQuietly();
+        });
+        // changes are refreshed as they're committed, this picks up the ones that failed
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        if (rebuildHours > 0) {
+            scheduler.scheduleWithFixedDelay(this::rebuildQuietly, rebuildHours, rebuildHours, TimeUnit.HOURS);
+        }
+    }
+
+    public void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    public boolean isStarted() {
+        return started.get();
+    }
+
+    /**
+     * Marks the key as changed. When called inside a transaction it's marked after commit.
+     */
+    public <T extends Comparable<T>> void markChanged(Changes<T> changes, T key) {
+        if (!started.get() || key == null) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changed(changes, key);
+                }
+            });
+        } else {
+            changed(changes, key);
+        }
+    }
+
+    private <T extends Comparable<T>> void changed(Changes<T> changes, T key) {
+        changes.add(key);
+
+        // one refresh queued at a time picks up everything marked before it runs
+        if (scheduler != null && refreshQueued.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::refreshQuietly);
+            } catch (RuntimeException e) {
+                refreshQueued.set(false);
+                logger.warn("Unable to queue the " + description + " refresh", e);
+            }
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            logger.error("Unable to refresh the " + description, e);
+        }
+    }
+
+    /**
+     * Recomputes the rows marked as changed, if it fails they are kept for the next refresh.
+     */
+    public synchronized void refresh() {
+        refreshQueued.set(false);
+
+        boolean refreshed = false;
+        try {
+            table.refreshRows();
+            refreshed = true;
+        } finally {
+            for (Changes<?> change : changes) {
+                change.done(refreshed);
+            }
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Unable to build the " + description, e);
+        }
+    }
+
+    /**
+     * Recomputes every row.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Integer maxDemographicNo = table.getMaxDemographicNo();
+        if (maxDemographicNo != null) {
+            for (int from = 0; from <= maxDemographicNo; from += CHUNK_SIZE) {
+                table.rebuildRows(from, from + CHUNK_SIZE - 1);
+            }
+        }
+        table.useRows();
+        logger.info("The " + description + " was built in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * @return the values split in lists of at most {@link #CHUNK_SIZE}, in order
+     */
+    public static <T> List<List<T>> chunks(Collection<T> values) {
+        List<List<T>> chunks = new ArrayList<List<T>>();
+        List<T> chunk = new ArrayList<T>(CHUNK_SIZE);
+        for (T value : values) {
+            chunk.add(value);
+            if (chunk.size() == CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<T>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) chunks.add(chunk);
+        return chunks;
+    }
+
+    private boolean isEnabled() {
+        return !"false".equalsIgnoreCase(OscarProperties.getInstance().getProperty(property, "true").trim());
+    }
+}
@@ -0,0 +1,81 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.Session;
+
+import ca.openosp.openo.commn.model.DomainEventDeadLetter;
+import ca.openosp.openo.event.DomainEventLag;
+import ca.openosp.openo.utility.LoggedInInfo;
+
+/**
+ * Durable domain events. An event is written to the DomainEvent table in the caller's transaction with one
+ * delivery row for each {@link ca.openosp.openo.event.DomainEventListener} interested in its type, and is
+ * handed to the listeners from a bounded pool once the transaction commits. Failed deliveries are retried
+ * with a growing delay and moved to DomainEventDeadLetter when they run out of attempts.
+ */
+public interface DomainEventManager {
+
+    /**
+     * Starts dispatching the pending deliveries, including those left over from before a restart.
+     */
+    public void start();
+
+    /**
+     * Records an event in the caller's transaction, nothing is written if no listener handles its type.
+     * Must be called from the transactional method that makes the change.
+     *
+     * @param aggregateId the record the event is about, events of one aggregate are delivered in order
+     * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is active
+     */
+    public void publish(String eventType, String aggregateId, Map<String, String> payload);
+
+    /**
+     * Records an event through a session of the Hibernate session factory, in the transaction active on it.
+     * Used by the daos that write through that session factory, whose connection is not the one of the
+     * JPA transaction.
+     *
+     * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is active on the session
+     */
+    public void publish(Session session, String eventType, String aggregateId, Map<String, String> payload);
+
+    /**
+     * @return one entry per listener with deliveries pending or dead, and per listener registered here
+     */
+    public List<DomainEventLag> getLag(LoggedInInfo loggedInInfo);
+
+    /**
+     * @return the dead letters, latest failure first
+     */
+    public List<DomainEventDeadLetter> getDeadLetters(LoggedInInfo loggedInInfo, int startPosition, int itemsToReturn);
+
+    /**
+     * Queues the dead letter's event for its listener again.
+     */
+    public void retryDeadLetter(LoggedInInfo loggedInInfo, Long id);
+}
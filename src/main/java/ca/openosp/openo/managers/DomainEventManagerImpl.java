@@ -0,0 +1,418 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.commons.lang3.time.DateUtils;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.commn.dao.DomainEventDao;
+import ca.openosp.openo.commn.dao.DomainEventDeadLetterDao;
+import ca.openosp.openo.commn.dao.DomainEventDeliveryDao;
+import ca.openosp.openo.commn.jobs.OscarJobProgress;
+import ca.openosp.openo.commn.model.DomainEvent;
+import ca.openosp.openo.commn.model.DomainEventDeadLetter;
+import ca.openosp.openo.commn.model.DomainEventDelivery;
+import ca.openosp.openo.event.DomainEventLag;
+import ca.openosp.openo.event.DomainEventListener;
+import ca.openosp.openo.log.LogAction;
+import ca.openosp.openo.utility.DbConnectionFilter;
+import ca.openosp.openo.utility.DeamonThreadFactory;
+import ca.openosp.openo.utility.LoggedInInfo;
+import ca.openosp.openo.utility.MiscUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Service
+public class DomainEventManagerImpl implements DomainEventManager {
+
+    private static final Logger logger = MiscUtils.getLogger();
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String PURGE_JOB = "DomainEventPurge";
+    // the error columns are text columns
+    private static final int MAX_ERROR_LENGTH = 60000;
+    private static final int MAX_RETRY_DELAY_SECONDS = 3600;
+
+    @Autowired
+    private DomainEventDao domainEventDao;
+
+    @Autowired
+    private DomainEventDeliveryDao domainEventDeliveryDao;
+
+    @Autowired
+    private DomainEventDeadLetterDao domainEventDeadLetterDao;
+
+    @Autowired
+    private SecurityInfoManager securityInfoManager;
+
+    @Autowired
+    private OscarJobSchedulerManager oscarJobSchedulerManager;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    // looked up on first use, listeners depend on daos that publish events
+    private volatile Map<String, DomainEventListener> listeners;
+
+    // listener and aggregate of the deliveries being worked on here
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile boolean stopped;
+
+    private String owner;
+    private int pollSeconds;
+    private int batchSize;
+    private int claimSeconds;
+    private int maxAttempts;
+    private int retrySeconds;
+    private ExecutorService pool;
+    private Thread dispatcher;
+
+    @PostConstruct
+    public void init() {
+        OscarProperties props = OscarProperties.getInstance();
+        pollSeconds = Math.max(1, NumberUtils.toInt(props.getProperty("events.poll_seconds"), 5));
+        batchSize = Math.max(1, NumberUtils.toInt(props.getProperty("events.batch_size"), 500));
+        claimSeconds = Math.max(30, NumberUtils.toInt(props.getProperty("events.claim_seconds"), 300));
+        maxAttempts = Math.max(1, NumberUtils.toInt(props.getProperty("events.max_attempts"), 8));
+        retrySeconds = Math.max(1, NumberUtils.toInt(props.getProperty("events.retry_seconds"), 30));
+
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        owner = host + ":" + UUID.randomUUID().toString().substring(0, 8);
+
+        int poolSize = Math.max(1, NumberUtils.toInt(props.getProperty("events.pool_size"), 4));
+        pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new DeamonThreadFactory("DomainEvent", Thread.MIN_PRIORITY));
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        wakeUp.release();
+        if (pool != null) pool.shutdown();
+    }
+
+    @Override
+    public void start() {
+        if (!started.compareAndSet(false, true)) return;
+
+        dispatcher = new DeamonThreadFactory("DomainEventDispatcher", Thread.NORM_PRIORITY).newThread(this::dispatchLoop);
+        dispatcher.start();
+
+        int historyDays = NumberUtils.toInt(OscarProperties.getInstance().getProperty("events.history_days"), 7);
+        if (historyDays > 0) {
+            oscarJobSchedulerManager.schedule(PURGE_JOB, () -> OscarJobProgress.addRowsProcessed(domainEventDao.deleteDeliveredBefore(DateUtils.addDays(new Date(), -historyDays))),
+                    TimeUnit.MINUTES.toMillis(15), TimeUnit.DAYS.toMillis(1));
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, String aggregateId, Map<String, String> payload) {
+        if (!write(eventType, aggregateId, payload, domainEventDao::persist, domainEventDeliveryDao::persist)) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp.release();
+                }
+            });
+        } else {
+            wakeUp.release();
+        }
+    }
+
+    @Override
+    public void publish(Session session, String eventType, String aggregateId, Map<String, String> payload) {
+        Transaction transaction = session.getTransaction();
+        if (!transaction.isActive()) {
+            throw new IllegalTransactionStateException("No transaction is active on the session to publish " + eventType + " in");
+        }
+        if (!write(eventType, aggregateId, payload, session::persist, session::persist)) return;
+
+        transaction.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) wakeUp.release();
+            }
+        });
+    }
+
+    /**
+     * @return true if the event was written, false if no listener handles its type
+     */
+    private boolean write(String eventType, String aggregateId, Map<String, String> payload,
+                          Consumer<DomainEvent> persistEvent, Consumer<DomainEventDelivery> persistDelivery) {
+        List<String> names = new ArrayList<String>();
+        for (Map.Entry<String, DomainEventListener> entry : getListeners().entrySet()) {
+            if (entry.getValue().supportsEventType(eventType)) names.add(entry.getKey());
+        }
+        if (names.isEmpty()) return false;
+
+        DomainEvent event = new DomainEvent();
+        event.setEventType(eventType);
+        event.setAggregateId(aggregateId);
+        event.setCreated(new Date());
+        try {
+            event.setPayload(payload != null ? objectMapper.writeValueAsString(payload) : null);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Unable to write the payload of " + eventType, e);
+        }
+        persistEvent.accept(event);
+
+        for (String name : names) {
+            DomainEventDelivery delivery = new DomainEventDelivery();
+            delivery.setEventId(event.getId());
+            delivery.setListener(name);
+            delivery.setAggregateId(aggregateId);
+            delivery.setNextAttempt(event.getCreated());
+            persistDelivery.accept(delivery);
+        }
+        return true;
+    }
+
+    private Map<String, DomainEventListener> getListeners() {
+        Map<String, DomainEventListener> result = listeners;
+        if (result == null) {
+            result = new TreeMap<String, DomainEventListener>();
+            for (DomainEventListener listener : applicationContext.getBeansOfType(DomainEventListener.class).values()) {
+                result.put(ClassUtils.getUserClass(listener).getName(), listener);
+            }
+            listeners = result = Collections.unmodifiableMap(result);
+        }
+        return result;
+    }
+
+    private void dispatchLoop() {
+        while (!stopped) {
+            try {
+                wakeUp.tryAcquire(pollSeconds, TimeUnit.SECONDS);
+                // one round covers every event committed so far
+                wakeUp.drainPermits();
+                if (!stopped) dispatch();
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                logger.error("Unable to dispatch domain events", e);
+            } finally {
+                DbConnectionFilter.releaseAllThreadDbResources();
+            }
+        }
+    }
+
+    /**
+     * Hands the deliveries that are due to the pool. Only the earliest undelivered event of a listener and
+     * aggregate is pending at a time, so later events of an aggregate never overtake earlier ones. Once it's
+     * delivered the next round picks up the one after it.
+     */
+    void dispatch() {
+        // listeners of modules not enabled on this server are left to the servers that have them
+        List<DomainEventDelivery> pending = domainEventDeliveryDao.findPending(getListeners().keySet(), batchSize);
+
+        for (DomainEventDelivery delivery : pending) {
+            String key = delivery.getListener() + "/" + delivery.getAggregateId();
+            if (!inFlight.add(key)) continue;
+
+            pool.execute(() -> {
+                try {
+                    if (deliver(delivery)) wakeUp.release();
+                } catch (Exception e) {
+                    logger.error("Unable to deliver domain events to " + key, e);
+                } finally {
+                    inFlight.remove(key);
+                    DbConnectionFilter.releaseAllThreadDbResources();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return true if the delivery was handled, delivered or moved to the dead letters
+     */
+    boolean deliver(DomainEventDelivery delivery) {
+        if (!domainEventDeliveryDao.claim(delivery.getId(), owner, claimSeconds)) return false;
+
+        DomainEvent event = domainEventDao.find(delivery.getEventId());
+        if (event == null) {
+            domainEventDeliveryDao.remove(delivery.getId());
+            return true;
+        }
+
+        try {
+            Map<String, String> payload = event.getPayload() != null
+                    ? objectMapper.readValue(event.getPayload(), new TypeReference<Map<String, String>>() {})
+                    : new HashMap<String, String>();
+            getListeners().get(delivery.getListener()).onDomainEvent(event, payload);
+            domainEventDeliveryDao.remove(delivery.getId());
+            return true;
+        } catch (Exception e) {
+            int attempts = delivery.getAttempts() + 1;
+            String error = StringUtils.left(ExceptionUtils.getStackTrace(e), MAX_ERROR_LENGTH);
+            if (attempts < maxAttempts) {
+                logger.warn("Delivery of " + event.getEventType() + " " + event.getAggregateId() + " to " + delivery.getListener() + " failed, attempt " + attempts, e);
+                domainEventDeliveryDao.retryLater(delivery.getId(), attempts, retryDelaySeconds(attempts), error);
+                return false;
+            }
+
+            logger.error("Delivery of " + event.getEventType() + " " + event.getAggregateId() + " to " + delivery.getListener() + " failed " + attempts + " times, moving it to the dead letters", e);
+            DomainEventDeadLetter deadLetter = new DomainEventDeadLetter();
+            deadLetter.setEventId(delivery.getEventId());
+            deadLetter.setListener(delivery.getListener());
+            deadLetter.setAggregateId(delivery.getAggregateId());
+            deadLetter.setAttempts(attempts);
+            deadLetter.setError(error);
+            deadLetter.setFailed(new Date());
+            domainEventDeadLetterDao.persist(deadLetter);
+            domainEventDeliveryDao.remove(delivery.getId());
+            // the aggregate's later events go ahead without it
+            return true;
+        }
+    }
+
+    int retryDelaySeconds(int attempts) {
+        long delay = (long) retrySeconds << Math.min(attempts - 1, 20);
+        return (int) Math.min(delay, MAX_RETRY_DELAY_SECONDS);
+    }
+
+    @Override
+    public List<DomainEventLag> getLag(LoggedInInfo loggedInInfo) {
+        checkPrivilege(loggedInInfo, SecurityInfoManager.READ);
+
+        Map<String, DomainEventLag> lags = new TreeMap<String, DomainEventLag>();
+        for (String listener : getListeners().keySet()) {
+            getLag(lags, listener);
+        }
+        long now = System.currentTimeMillis();
+        for (Object[] row : domainEventDeliveryDao.findLagByListener()) {
+            DomainEventLag lag = getLag(lags, (String) row[0]);
+            lag.setPending(((Number) row[1]).longValue());
+            lag.setRetrying(row[2] != null ? ((Number) row[2]).longValue() : 0);
+            lag.setOldestPending((Date) row[3]);
+            if (lag.getOldestPending() != null) {
+                lag.setLagSeconds(Math.max(0, (now - lag.getOldestPending().getTime()) / 1000));
+            }
+        }
+        for (Object[] row : domainEventDeadLetterDao.countByListener()) {
+            getLag(lags, (String) row[0]).setDeadLetters(((Number) row[1]).longValue());
+        }
+
+        LogAction.addLogSynchronous(loggedInInfo, "DomainEventManager.getLag", "");
+        return new ArrayList<DomainEventLag>(lags.values());
+    }
+
+    private static DomainEventLag getLag(Map<String, DomainEventLag> lags, String listener) {
+        return lags.computeIfAbsent(listener, key -> {
+            DomainEventLag lag = new DomainEventLag();
+            lag.setListener(key);
+            return lag;
+        });
+    }
+
+    @Override
+    public List<DomainEventDeadLetter> getDeadLetters(LoggedInInfo loggedInInfo, int startPosition, int itemsToReturn) {
+        checkPrivilege(loggedInInfo, SecurityInfoManager.READ);
+
+        List<DomainEventDeadLetter> results = domainEventDeadLetterDao.findLatest(startPosition, itemsToReturn);
+        LogAction.addLogSynchronous(loggedInInfo, "DomainEventManager.getDeadLetters", "");
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public void retryDeadLetter(LoggedInInfo loggedInInfo, Long id) {
+        checkPrivilege(loggedInInfo, SecurityInfoManager.WRITE);
+
+        DomainEventDeadLetter deadLetter = domainEventDeadLetterDao.find(id);
+        if (deadLetter == null) return;
+
+        DomainEventDelivery delivery = new DomainEventDelivery();
+        delivery.setEventId(deadLetter.getEventId());
+        delivery.setListener(deadLetter.getListener());
+        delivery.setAggregateId(deadLetter.getAggregateId());
+        delivery.setNextAttempt(new Date());
+        domainEventDeliveryDao.persist(delivery);
+        domainEventDeadLetterDao.remove(deadLetter);
+
+        LogAction.addLogSynchronous(loggedInInfo, "DomainEventManager.retryDeadLetter", "id=" + id);
+        wakeUp.release();
+    }
+
+    private void checkPrivilege(LoggedInInfo loggedInInfo, String privilege) {
+        if (!securityInfoManager.hasPrivilege(loggedInInfo, "_admin", privilege, null)) {
+            throw new RuntimeException("missing required sec object (_admin)");
+        }
+    }
+}
@@ -42,6 +42,10 @@ import ca.openosp.openo.encounter.data.EctFormData;
 
 public interface EformDataManager {
 
+    /**
+     * Saves the eform data. A ClientCreated domain event for its demographic is written in the same
+     * transaction, so the client is matched against the open vacancies.
+     */
     public Integer saveEformData(LoggedInInfo loggedInInfo, EForm eform);
 
     /**
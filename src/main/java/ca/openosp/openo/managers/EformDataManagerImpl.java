@@ -35,12 +35,14 @@ import java.util.List;
 import java.util.Map;
 
 import ca.openosp.openo.commn.dao.EFormDataDao;
+import ca.openosp.openo.commn.model.DomainEvent;
 import ca.openosp.openo.commn.model.EFormData;
 import ca.openosp.openo.commn.model.enumerator.DocumentType;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.PDFGenerationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ca.openosp.openo.documentManager.ConvertToEdoc;
 import ca.openosp.openo.documentManager.DocumentAttachmentManager;
 import ca.openosp.openo.documentManager.EDoc;
@@ -73,6 +75,9 @@ public class EformDataManagerImpl implements EformDataManager {
     @Autowired
     private FormsManager formsManager;
 
+    @Autowired
+    private DomainEventManager domainEventManager;
+
     public EformDataManagerImpl() {
         // Default
     }
@@ -82,6 +87,7 @@ public class EformDataManagerImpl implements EformDataManager {
     //     this.documentAttachmentManager = documentAttachmentManager;
     // }
 
+    @Transactional
     public Integer saveEformData(LoggedInInfo loggedInInfo, EForm eform) {
         Integer formid = null;
 
@@ -92,6 +98,10 @@ public class EformDataManagerImpl implements EformDataManager {
         EFormData eFormData = EFormUtil.toEFormData(eform);
         eFormDataDao.persist(eFormData);
         formid = eFormData.getId();
+        if (eFormData.getDemographicId() != null) {
+            // matched against the open vacancies by MatchEventListener
+            domainEventManager.publish(DomainEvent.CLIENT_CREATED, String.valueOf(eFormData.getDemographicId()), null);
+        }
 
         OscarLog logEntry = new OscarLog();
         logEntry.setProviderNo(loggedInInfo.getLoggedInProviderNo());
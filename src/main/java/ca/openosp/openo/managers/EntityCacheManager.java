@@ -0,0 +1,149 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+
+package ca.openosp.openo.managers;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Second level cache of the JPA and Hibernate session factories.
+ *
+ * The cached reference entities, their concurrency strategy and their region settings are declared on the
+ * entities and in ehcache-hibernate.xml. Updates and deletes committed through one session factory also
+ * evict the entity from the other factory's region. The evict methods are the hooks for changes the
+ * session factories do not see, e.g. data loaded with plain JDBC or changed on another server.
+ */
+public interface EntityCacheManager {
+
+    /**
+     * @return List the cached entity regions of both session factories with their current statistics
+     */
+    public List<RegionStatistics> getRegionStatistics();
+
+    /**
+     * Evicts every entry of one region, as named by {@link RegionStatistics#getRegionName()}.
+     */
+    public void evictRegion(String regionName);
+
+    /**
+     * Evicts one entity from both session factories.
+     */
+    public void evict(Class<?> entityClass, Serializable id);
+
+    /**
+     * Evicts every instance of an entity from both session factories.
+     */
+    public void evict(Class<?> entityClass);
+
+    public void evictAll();
+
+    public static final class RegionStatistics {
+        private final String regionName;
+        private final String sessionFactory;
+        private final String entityName;
+        private final String accessType;
+        private final long size;
+        private final long hitCount;
+        private final long missCount;
+        private final long putCount;
+        private final long evictedCount;
+        private final long expiredCount;
+        private final long maxEntries;
+        private final long timeToLiveSeconds;
+
+        public RegionStatistics(String regionName, String sessionFactory, String entityName, String accessType, long size, long hitCount,
+                                long missCount, long putCount, long evictedCount, long expiredCount, long maxEntries, long timeToLiveSeconds) {
+            this.regionName = regionName;
+            this.sessionFactory = sessionFactory;
+            this.entityName = entityName;
+            this.accessType = accessType;
+            this.size = size;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.putCount = putCount;
+            this.evictedCount = evictedCount;
+            this.expiredCount = expiredCount;
+            this.maxEntries = maxEntries;
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public String getRegionName() {
+            return regionName;
+        }
+
+        public String getSessionFactory() {
+            return sessionFactory;
+        }
+
+        public String getEntityName() {
+            return entityName;
+        }
+
+        public String getAccessType() {
+            return accessType;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getPutCount() {
+            return putCount;
+        }
+
+        public long getEvictedCount() {
+            return evictedCount;
+        }
+
+        public long getExpiredCount() {
+            return expiredCount;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        /**
+         * @return long the time to live of an entry, 0 if entries do not expire
+         */
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public double getHitRatio() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 0 : (double) hitCount / requests;
+        }
+    }
+}
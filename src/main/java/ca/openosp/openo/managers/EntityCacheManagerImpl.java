@@ -0,0 +1,237 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+
+package ca.openosp.openo.managers;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.statistics.StatisticsGateway;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import ca.openosp.openo.utility.MiscUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class EntityCacheManagerImpl implements EntityCacheManager {
+
+    private static Logger logger = MiscUtils.getLogger();
+
+    // the name given to the cache manager in ehcache-hibernate.xml
+    private static final String CACHE_MANAGER_NAME = "hibernate";
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Both session factories can map the same table, e.g. Provider and Program. Their regions are kept
+     * apart (the cached state layout depends on the mapping), so a change committed through one factory
+     * evicts the entity from the other one.
+     */
+    @PostConstruct
+    public void registerInvalidationListeners() {
+        Map<String, SessionFactoryImplementor> factories = getSessionFactories();
+        SessionFactoryImplementor jpa = factories.get("jpa");
+        SessionFactoryImplementor hibernate = factories.get("hibernate");
+        if (jpa == null || hibernate == null || jpa == hibernate) return;
+
+        register(jpa, new CounterpartInvalidator(hibernate));
+        register(hibernate, new CounterpartInvalidator(jpa));
+    }
+
+    private static void register(SessionFactoryImplementor factory, CounterpartInvalidator invalidator) {
+        EventListenerRegistry registry = factory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, invalidator);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, invalidator);
+    }
+
+    @Override
+    public List<RegionStatistics> getRegionStatistics() {
+        CacheManager cacheManager = CacheManager.getCacheManager(CACHE_MANAGER_NAME);
+        Map<String, RegionStatistics> regions = new LinkedHashMap<String, RegionStatistics>();
+        for (Map.Entry<String, SessionFactoryImplementor> factory : getSessionFactories().entrySet()) {
+            for (EntityPersister persister : factory.getValue().getMetamodel().entityPersisters().values()) {
+                if (!persister.hasCache()) continue;
+                String regionName = getRegionName(factory.getValue(), persister);
+                if (regions.containsKey(regionName)) continue;
+
+                Ehcache cache = cacheManager == null ? null : cacheManager.getEhcache(regionName);
+                long size = 0, hits = 0, misses = 0, puts = 0, evicted = 0, expired = 0, maxEntries = 0, timeToLive = 0;
+                if (cache != null) {
+                    StatisticsGateway statistics = cache.getStatistics();
+                    size = statistics.getSize();
+                    hits = statistics.cacheHitCount();
+                    misses = statistics.cacheMissCount();
+                    puts = statistics.cachePutCount();
+                    evicted = statistics.cacheEvictedCount();
+                    expired = statistics.cacheExpiredCount();
+                    CacheConfiguration configuration = cache.getCacheConfiguration();
+                    maxEntries = configuration.getMaxEntriesLocalHeap();
+                    timeToLive = configuration.isEternal() ? 0 : configuration.getTimeToLiveSeconds();
+                }
+                regions.put(regionName, new RegionStatistics(regionName, factory.getKey(), persister.getRootEntityName(),
+                        persister.getCacheAccessStrategy().getAccessType().getExternalName(), size, hits, misses, puts, evicted,
+                        expired, maxEntries, timeToLive));
+            }
+        }
+        return new ArrayList<RegionStatistics>(regions.values());
+    }
+
+    @Override
+    public void evictRegion(String regionName) {
+        for (SessionFactoryImplementor factory : getSessionFactories().values()) {
+            for (EntityPersister persister : factory.getMetamodel().entityPersisters().values()) {
+                if (persister.hasCache() && getRegionName(factory, persister).equals(regionName)) {
+                    factory.getCache().evictEntityData(persister.getRootEntityName());
+                    logger.info("Evicted second level cache region " + regionName);
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void evict(Class<?> entityClass, Serializable id) {
+        for (SessionFactoryImplementor factory : getSessionFactories().values()) {
+            EntityPersister persister = findPersister(factory, entityClass.getName());
+            if (persister != null && persister.hasCache()) {
+                factory.getCache().evictEntityData(persister.getEntityName(), id);
+            }
+        }
+    }
+
+    @Override
+    public void evict(Class<?> entityClass) {
+        for (SessionFactoryImplementor factory : getSessionFactories().values()) {
+            EntityPersister persister = findPersister(factory, entityClass.getName());
+            if (persister != null && persister.hasCache()) {
+                factory.getCache().evictEntityData(persister.getEntityName());
+            }
+        }
+    }
+
+    @Override
+    public void evictAll() {
+        for (SessionFactoryImplementor factory : getSessionFactories().values()) {
+            factory.getCache().evictAllRegions();
+        }
+        logger.info("Evicted every second level cache region");
+    }
+
+    private Map<String, SessionFactoryImplementor> getSessionFactories() {
+        Map<String, SessionFactoryImplementor> factories = new LinkedHashMap<String, SessionFactoryImplementor>();
+        try {
+            factories.put("jpa", entityManagerFactory.unwrap(SessionFactoryImplementor.class));
+        } catch (RuntimeException e) {
+            logger.warn("The JPA entity manager factory is not a hibernate session factory", e);
+        }
+        SessionFactoryImplementor hibernate = sessionFactory.unwrap(SessionFactoryImplementor.class);
+        if (hibernate != null) {
+            factories.put("hibernate", hibernate);
+        }
+        return factories;
+    }
+
+    /**
+     * The name of the ehcache cache behind the persister's region. Hibernate names the region without
+     * the factory's hibernate.cache.region_prefix and adds the prefix to the cache it creates.
+     */
+    private static String getRegionName(SessionFactoryImplementor factory, EntityPersister persister) {
+        String regionName = persister.getCacheAccessStrategy().getRegion().getName();
+        String prefix = factory.getSessionFactoryOptions().getCacheRegionPrefix();
+        return prefix == null || prefix.isEmpty() ? regionName : prefix + "." + regionName;
+    }
+
+    private static EntityPersister findPersister(SessionFactoryImplementor factory, String entityName) {
+        return factory.getMetamodel().entityPersisters().get(entityName);
+    }
+
+    /**
+     * Evicts an updated or deleted entity from the other session factory once the change is committed.
+     */
+    private static final class CounterpartInvalidator implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        private final SessionFactoryImplementor counterpart;
+
+        CounterpartInvalidator(SessionFactoryImplementor counterpart) {
+            this.counterpart = counterpart;
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            evict(event.getPersister(), event.getId());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            evict(event.getPersister(), event.getId());
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+            // nothing was changed, nothing to evict
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+            // nothing was changed, nothing to evict
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            EntityPersister other = findPersister(counterpart, persister.getEntityName());
+            return other != null && other.hasCache();
+        }
+
+        private void evict(EntityPersister persister, Serializable id) {
+            try {
+                counterpart.getCache().evictEntityData(persister.getEntityName(), id);
+            } catch (RuntimeException e) {
+                logger.warn("Unable to evict " + persister.getEntityName() + "#" + id + " from the second level cache", e);
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ package ca.openosp.openo.managers;
 import java.util.Date;
 import java.util.List;
 
+import ca.openosp.openo.commn.dao.BulkWriter;
 import ca.openosp.openo.commn.dao.IntegratorFileLogDao;
 import ca.openosp.openo.commn.model.IntegratorFileLog;
 import ca.openosp.openo.utility.LoggedInInfo;
@@ -77,4 +78,12 @@ public class IntegratorFileLogManager {
     public void updateIntegratorFileLog(LoggedInInfo loggedInInfo, IntegratorFileLog integratorFileLog) {
         integratorFileLogDao.merge(integratorFileLog);
     }
+
+    public void updateIntegratorFileLogs(LoggedInInfo loggedInInfo, List<IntegratorFileLog> integratorFileLogs) {
+        try (BulkWriter<IntegratorFileLog> writer = integratorFileLogDao.bulkWriter()) {
+            for (IntegratorFileLog integratorFileLog : integratorFileLogs) {
+                writer.merge(integratorFileLog);
+            }
+        }
+    }
 }
@@ -0,0 +1,92 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+
+package ca.openosp.openo.managers;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import ca.openosp.openo.commn.model.Measurement;
+import ca.openosp.openo.encounter.oscarMeasurements.data.MeasurementTimeSeries;
+
+/**
+ * Time series access to a patient's measurements.
+ *
+ * <p>All measurement types of a patient are loaded with a single query, indexed per type in
+ * chronological order and cached. The per patient index is dropped whenever a measurement of that
+ * patient is written through {@link ca.openosp.openo.commn.dao.MeasurementDao}, so the next read
+ * rebuilds it from the database.</p>
+ *
+ * <p>Flowsheet rendering and measurement graphs read from this index rather than issuing one
+ * query per measurement type.</p>
+ *
+ * @see MeasurementTimeSeries
+ */
+public interface MeasurementTimeSeriesManager {
+
+    /**
+     * @param demographicNo Integer the patient's demographic number
+     * @return Map of measurement type code to its series, for every type the patient has
+     */
+    public Map<String, MeasurementTimeSeries> getAllSeries(Integer demographicNo);
+
+    /**
+     * @param demographicNo Integer the patient's demographic number
+     * @param type String the measurement type code
+     * @return MeasurementTimeSeries the series, empty if the patient has no measurement of this type
+     */
+    public MeasurementTimeSeries getSeries(Integer demographicNo, String type);
+
+    /**
+     * @param demographicNo Integer the patient's demographic number
+     * @param types Collection the measurement type codes
+     * @return Map of each requested type code to its (possibly empty) series
+     */
+    public Map<String, MeasurementTimeSeries> getSeries(Integer demographicNo, Collection<String> types);
+
+    /**
+     * @return List up to n of the most recent measurements of the type, newest first
+     */
+    public List<Measurement> getLatest(Integer demographicNo, String type, int n);
+
+    /**
+     * @return Measurement the most recent measurement of the type observed on or before the date, or null
+     */
+    public Measurement getValueAt(Integer demographicNo, String type, Date date);
+
+    /**
+     * @return MeasurementTimeSeries.Statistics count, min, max and average of the numeric values in the window
+     */
+    public MeasurementTimeSeries.Statistics getStatistics(Integer demographicNo, String type, Date from, Date to);
+
+    /**
+     * Drops the cached index of a patient.
+     *
+     * @param demographicNo Integer the patient's demographic number
+     */
+    public void evict(Integer demographicNo);
+}
@@ -0,0 +1,133 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+
+package ca.openosp.openo.managers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang3.time.DateUtils;
+import ca.openosp.openo.commn.dao.MeasurementDao;
+import ca.openosp.openo.commn.model.Measurement;
+import ca.openosp.openo.encounter.oscarMeasurements.data.MeasurementTimeSeries;
+import ca.openosp.openo.utility.QueueCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class MeasurementTimeSeriesManagerImpl implements MeasurementTimeSeriesManager {
+
+    /**
+     * Per patient index of every measurement type, keyed by demographic number.
+     * Bounded to the most recently used patients and refreshed at least hourly.
+     */
+    private final QueueCache<Integer, Map<String, MeasurementTimeSeries>> seriesByDemographic = new QueueCache<Integer, Map<String, MeasurementTimeSeries>>(4, 500, DateUtils.MILLIS_PER_HOUR, null);
+
+    @Autowired
+    private MeasurementDao measurementDao;
+
+    @PostConstruct
+    private void registerChangeListener() {
+        measurementDao.addMeasurementChangeListener(this::evict);
+    }
+
+    @Override
+    public Map<String, MeasurementTimeSeries> getAllSeries(Integer demographicNo) {
+        Map<String, MeasurementTimeSeries> index = seriesByDemographic.get(demographicNo);
+        if (index == null) {
+            index = buildIndex(demographicNo);
+            seriesByDemographic.put(demographicNo, index);
+        }
+        return index;
+    }
+
+    @Override
+    public MeasurementTimeSeries getSeries(Integer demographicNo, String type) {
+        MeasurementTimeSeries series = getAllSeries(demographicNo).get(type);
+        if (series == null) {
+            series = new MeasurementTimeSeries(type, Collections.<Measurement>emptyList());
+        }
+        return series;
+    }
+
+    @Override
+    public Map<String, MeasurementTimeSeries> getSeries(Integer demographicNo, Collection<String> types) {
+        Map<String, MeasurementTimeSeries> index = getAllSeries(demographicNo);
+        Map<String, MeasurementTimeSeries> result = new LinkedHashMap<String, MeasurementTimeSeries>();
+        for (String type : types) {
+            MeasurementTimeSeries series = index.get(type);
+            result.put(type, series != null ? series : new MeasurementTimeSeries(type, Collections.<Measurement>emptyList()));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Measurement> getLatest(Integer demographicNo, String type, int n) {
+        return getSeries(demographicNo, type).getLatest(n);
+    }
+
+    @Override
+    public Measurement getValueAt(Integer demographicNo, String type, Date date) {
+        return getSeries(demographicNo, type).getValueAt(date);
+    }
+
+    @Override
+    public MeasurementTimeSeries.Statistics getStatistics(Integer demographicNo, String type, Date from, Date to) {
+        return getSeries(demographicNo, type).getStatistics(from, to);
+    }
+
+    @Override
+    public void evict(Integer demographicNo) {
+        if (demographicNo != null) {
+            seriesByDemographic.remove(demographicNo);
+        }
+    }
+
+    private Map<String, MeasurementTimeSeries> buildIndex(Integer demographicNo) {
+        Map<String, List<Measurement>> rowsByType = new HashMap<String, List<Measurement>>();
+        for (Measurement m : measurementDao.findByDemographicId(demographicNo)) {
+            List<Measurement> rows = rowsByType.get(m.getType());
+            if (rows == null) {
+                rows = new ArrayList<Measurement>();
+                rowsByType.put(m.getType(), rows);
+            }
+            rows.add(m);
+        }
+
+        Map<String, MeasurementTimeSeries> index = new HashMap<String, MeasurementTimeSeries>();
+        for (Map.Entry<String, List<Measurement>> entry : rowsByType.entrySet()) {
+            index.put(entry.getKey(), new MeasurementTimeSeries(entry.getKey(), entry.getValue()));
+        }
+        return Collections.unmodifiableMap(index);
+    }
+}
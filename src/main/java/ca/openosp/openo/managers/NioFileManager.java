@@ -76,6 +76,13 @@ public interface NioFileManager {
 
     public Path saveTempFile(final String fileName, ByteArrayOutputStream os) throws IOException;
 
+    /**
+     * Create an empty PDF file in the temporary directory, to be written to as a stream.
+     *
+     * @throws IOException
+     */
+    public Path createTempPDFFile(final String fileName) throws IOException;
+
     /**
      * Delete a temp file. Do this often.
      *
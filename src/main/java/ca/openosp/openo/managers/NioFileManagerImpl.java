@@ -347,11 +347,7 @@ public class NioFileManagerImpl implements NioFileManager {
      * @throws IOException
      */
     public Path saveTempFile(final String fileName, ByteArrayOutputStream os, String fileType) throws IOException {
-        Path directory = Files.createTempDirectory(TEMP_PDF_DIRECTORY + System.currentTimeMillis());
-        if (fileType == null) {
-            fileType = DEFAULT_FILE_SUFFIX;
-        }
-        Path file = Files.createFile(Paths.get(directory.toString(), String.format("%1$s.%2$s", fileName, fileType)));
+        Path file = createTempPDFFile(fileName, fileType);
         return Files.write(file, os.toByteArray());
     }
 
@@ -359,6 +355,18 @@ public class NioFileManagerImpl implements NioFileManager {
         return saveTempFile(fileName, os, null);
     }
 
+    public Path createTempPDFFile(final String fileName) throws IOException {
+        return createTempPDFFile(fileName, null);
+    }
+
+    private Path createTempPDFFile(final String fileName, String fileType) throws IOException {
+        Path directory = Files.createTempDirectory(TEMP_PDF_DIRECTORY + System.currentTimeMillis());
+        if (fileType == null) {
+            fileType = DEFAULT_FILE_SUFFIX;
+        }
+        return Files.createFile(Paths.get(directory.toString(), String.format("%1$s.%2$s", fileName, fileType)));
+    }
+
     public Path createTempFile(final String fileName, ByteArrayOutputStream os) throws IOException {
         String sanitizedName = new File(fileName).getName();
         
@@ -0,0 +1,78 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import ca.openosp.openo.commn.jobs.OscarJobStatus;
+import ca.openosp.openo.commn.model.OscarJobRun;
+import ca.openosp.openo.utility.LoggedInInfo;
+
+/**
+ * Runs the application's background jobs on one bounded pool of threads. A job runs on one server at a time,
+ * whichever holds its lease in the OscarJobLease table, every run is recorded in OscarJobRun, and jobs can be
+ * paused, resumed and run on demand from the job admin screens.
+ */
+public interface OscarJobSchedulerManager {
+
+    /**
+     * Schedules the {@link ca.openosp.openo.commn.jobs.OscarJobTask} beans of the application context.
+     */
+    public void start();
+
+    /**
+     * Runs the job with a fixed delay between runs, replacing any job scheduled under the same name.
+     */
+    public ScheduledFuture<?> schedule(String name, Runnable job, long delayMillis, long periodMillis);
+
+    /**
+     * Runs the job on a cron expression, replacing any job scheduled under the same name.
+     */
+    public ScheduledFuture<?> schedule(String name, Runnable job, String cronExpression);
+
+    public void unschedule(String name, boolean mayInterruptIfRunning);
+
+    /**
+     * Runs a job scheduled on this server right away, even when paused.
+     *
+     * @return false if there is no such job on this server
+     */
+    public boolean runNow(LoggedInInfo loggedInInfo, String name);
+
+    /**
+     * Stops the scheduled runs of the job on every server until it's resumed.
+     */
+    public void pause(LoggedInInfo loggedInInfo, String name);
+
+    public void resume(LoggedInInfo loggedInInfo, String name);
+
+    public List<OscarJobStatus> getJobStatuses(LoggedInInfo loggedInInfo);
+
+    /**
+     * @return the job's runs, latest first
+     */
+    public List<OscarJobRun> getRunHistory(LoggedInInfo loggedInInfo, String name, int startPosition, int itemsToReturn);
+}
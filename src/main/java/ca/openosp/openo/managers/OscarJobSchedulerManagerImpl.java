@@ -0,0 +1,336 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.commons.lang3.time.DateUtils;
+import org.apache.logging.log4j.Logger;
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.commn.dao.OscarJobLeaseDao;
+import ca.openosp.openo.commn.dao.OscarJobRunDao;
+import ca.openosp.openo.commn.jobs.OscarJobProgress;
+import ca.openosp.openo.commn.jobs.OscarJobStatus;
+import ca.openosp.openo.commn.jobs.OscarJobTask;
+import ca.openosp.openo.commn.model.OscarJobLease;
+import ca.openosp.openo.commn.model.OscarJobRun;
+import ca.openosp.openo.log.LogAction;
+import ca.openosp.openo.utility.DbConnectionFilter;
+import ca.openosp.openo.utility.DeamonThreadFactory;
+import ca.openosp.openo.utility.LoggedInInfo;
+import ca.openosp.openo.utility.MiscUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Service;
+
+@Service
+public class OscarJobSchedulerManagerImpl implements OscarJobSchedulerManager {
+
+    private static final Logger logger = MiscUtils.getLogger();
+
+    private static final String HISTORY_PURGE_JOB = "OscarJobRunPurge";
+    // the error column is a text column
+    private static final int MAX_ERROR_LENGTH = 60000;
+
+    @Autowired
+    private OscarJobLeaseDao oscarJobLeaseDao;
+
+    @Autowired
+    private OscarJobRunDao oscarJobRunDao;
+
+    @Autowired
+    private SecurityInfoManager securityInfoManager;
+
+    @Autowired(required = false)
+    private List<OscarJobTask> tasks = new ArrayList<OscarJobTask>();
+
+    private final Map<String, ScheduledJob> jobs = new ConcurrentHashMap<String, ScheduledJob>();
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private String owner;
+    private int leaseSeconds;
+    private ThreadPoolTaskScheduler scheduler;
+    // kept apart from the pool so leases are renewed while every worker is busy
+    private ScheduledExecutorService leaseRenewer;
+
+    private static class ScheduledJob {
+        private final String name;
+        private final Runnable runnable;
+        private final String schedule;
+        private volatile ScheduledFuture<?> future;
+
+        private ScheduledJob(String name, Runnable runnable, String schedule) {
+            this.name = name;
+            this.runnable = runnable;
+            this.schedule = schedule;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        OscarProperties props = OscarProperties.getInstance();
+        leaseSeconds = Math.max(30, NumberUtils.toInt(props.getProperty("jobs.lease_seconds"), 300));
+
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        owner = host + ":" + UUID.randomUUID().toString().substring(0, 8);
+
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(1, NumberUtils.toInt(props.getProperty("jobs.pool_size"), 4)));
+        scheduler.setThreadFactory(new DeamonThreadFactory("OscarJob", Thread.MIN_PRIORITY));
+        scheduler.initialize();
+
+        leaseRenewer = Executors.newSingleThreadScheduledExecutor(new DeamonThreadFactory("OscarJobLease", Thread.MIN_PRIORITY));
+        leaseRenewer.scheduleWithFixedDelay(this::renewLeases, leaseSeconds / 3, leaseSeconds / 3, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (leaseRenewer != null) leaseRenewer.shutdownNow();
+        if (scheduler != null) scheduler.shutdown();
+    }
+
+    @Override
+    public void start() {
+        if (!started.compareAndSet(false, true)) return;
+
+        for (OscarJobTask task : tasks) {
+            logger.info("Scheduling " + task.getName() + " every " + task.getPeriod() + " ms");
+            schedule(task.getName(), task.getRunnable(), task.getDelay(), task.getPeriod());
+        }
+
+        int historyDays = NumberUtils.toInt(OscarProperties.getInstance().getProperty("jobs.history_days"), 30);
+        if (historyDays > 0) {
+            schedule(HISTORY_PURGE_JOB, () -> OscarJobProgress.addRowsProcessed(oscarJobRunDao.deleteStartedBefore(DateUtils.addDays(new Date(), -historyDays))),
+                    TimeUnit.MINUTES.toMillis(10), TimeUnit.DAYS.toMillis(1));
+        }
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(String name, Runnable runnable, long delayMillis, long periodMillis) {
+        ScheduledJob job = new ScheduledJob(name, runnable, "every " + periodMillis + " ms");
+        replace(job);
+        job.future = scheduler.scheduleWithFixedDelay(() -> execute(job, false), new Date(System.currentTimeMillis() + delayMillis), periodMillis);
+        return job.future;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(String name, Runnable runnable, String cronExpression) {
+        ScheduledJob job = new ScheduledJob(name, runnable, cronExpression);
+        replace(job);
+        job.future = scheduler.schedule(() -> execute(job, false), new CronTrigger(cronExpression));
+        return job.future;
+    }
+
+    private void replace(ScheduledJob job) {
+        ScheduledJob previous = jobs.put(job.name, job);
+        if (previous != null && previous.future != null) previous.future.cancel(false);
+    }
+
+    @Override
+    public void unschedule(String name, boolean mayInterruptIfRunning) {
+        ScheduledJob job = jobs.remove(name);
+        if (job != null && job.future != null) job.future.cancel(mayInterruptIfRunning);
+    }
+
+    /**
+     * One run of a job: skipped if the job is still running here or another server holds its lease,
+     * otherwise recorded in the run history whatever the outcome.
+     */
+    void execute(ScheduledJob job, boolean runNow) {
+        if (!running.add(job.name)) {
+            logger.debug("Job " + job.name + " is still running, skipping this run");
+            return;
+        }
+        try {
+            if (!oscarJobLeaseDao.acquire(job.name, owner, leaseSeconds, runNow)) return;
+
+            OscarJobRun run = new OscarJobRun();
+            run.setName(job.name);
+            run.setOwner(owner);
+            run.setStarted(new Date());
+            run.setStatus(OscarJobRun.STATUS_RUNNING);
+            try {
+                oscarJobRunDao.persist(run);
+            } catch (Exception e) {
+                // the job still runs when its history can't be written
+                logger.error("Unable to record the run of job " + job.name, e);
+            }
+
+            OscarJobProgress.begin();
+            try {
+                job.runnable.run();
+                run.setStatus(OscarJobRun.STATUS_OK);
+            } catch (Throwable t) {
+                logger.error("Job " + job.name + " failed", t);
+                run.setStatus(OscarJobRun.STATUS_FAILED);
+                run.setError(StringUtils.left(ExceptionUtils.getStackTrace(t), MAX_ERROR_LENGTH));
+            } finally {
+                run.setRowsProcessed(OscarJobProgress.end());
+                run.setFinished(new Date());
+                run.setDurationMillis(run.getFinished().getTime() - run.getStarted().getTime());
+                finish(job, run);
+            }
+        } catch (Exception e) {
+            logger.error("Unable to run job " + job.name, e);
+        } finally {
+            running.remove(job.name);
+            DbConnectionFilter.releaseAllThreadDbResources();
+        }
+    }
+
+    private void finish(ScheduledJob job, OscarJobRun run) {
+        try {
+            if (run.getId() != null) oscarJobRunDao.merge(run);
+        } catch (Exception e) {
+            logger.error("Unable to record the run of job " + job.name, e);
+        }
+        try {
+            oscarJobLeaseDao.release(job.name, owner);
+        } catch (Exception e) {
+            // runs out on its own
+            logger.error("Unable to release the lease of job " + job.name, e);
+        }
+    }
+
+    private void renewLeases() {
+        for (String name : running) {
+            try {
+                oscarJobLeaseDao.renew(name, owner, leaseSeconds);
+            } catch (Exception e) {
+                logger.error("Unable to renew the lease of job " + name, e);
+            }
+        }
+        DbConnectionFilter.releaseAllThreadDbResources();
+    }
+
+    @Override
+    public boolean runNow(LoggedInInfo loggedInInfo, String name) {
+        checkPrivilege(loggedInInfo, SecurityInfoManager.WRITE);
+
+        ScheduledJob job = jobs.get(name);
+        if (job == null) return false;
+
+        scheduler.execute(() -> execute(job, true));
+        LogAction.addLogSynchronous(loggedInInfo, "OscarJobSchedulerManager.runNow", "name=" + name);
+        return true;
+    }
+
+    @Override
+    public void pause(LoggedInInfo loggedInInfo, String name) {
+        checkPrivilege(loggedInInfo, SecurityInfoManager.WRITE);
+
+        oscarJobLeaseDao.setPaused(name, true);
+        LogAction.addLogSynchronous(loggedInInfo, "OscarJobSchedulerManager.pause", "name=" + name);
+    }
+
+    @Override
+    public void resume(LoggedInInfo loggedInInfo, String name) {
+        checkPrivilege(loggedInInfo, SecurityInfoManager.WRITE);
+
+        oscarJobLeaseDao.setPaused(name, false);
+        LogAction.addLogSynchronous(loggedInInfo, "OscarJobSchedulerManager.resume", "name=" + name);
+    }
+
+    @Override
+    public List<OscarJobStatus> getJobStatuses(LoggedInInfo loggedInInfo) {
+        checkPrivilege(loggedInInfo, SecurityInfoManager.READ);
+
+        // jobs scheduled here and jobs other servers have run
+        Map<String, OscarJobStatus> statuses = new TreeMap<String, OscarJobStatus>();
+        for (ScheduledJob job : jobs.values()) {
+            OscarJobStatus status = getStatus(statuses, job.name);
+            status.setSchedule(job.schedule);
+            status.setRunning(running.contains(job.name));
+            ScheduledFuture<?> future = job.future;
+            if (future != null && !future.isDone()) {
+                status.setNextRun(new Date(System.currentTimeMillis() + Math.max(0, future.getDelay(TimeUnit.MILLISECONDS))));
+            }
+        }
+        Date now = new Date();
+        for (OscarJobLease lease : oscarJobLeaseDao.findAll(0, OscarJobLeaseDao.MAX_LIST_RETURN_SIZE)) {
+            OscarJobStatus status = getStatus(statuses, lease.getName());
+            status.setPaused(lease.isPaused());
+            if (lease.getOwner() != null && lease.getLeaseUntil() != null && lease.getLeaseUntil().after(now)) {
+                status.setLeaseOwner(lease.getOwner());
+                status.setLeaseUntil(lease.getLeaseUntil());
+            }
+        }
+        for (OscarJobRun run : oscarJobRunDao.findLatestRuns()) {
+            getStatus(statuses, run.getName()).setLastRun(run);
+        }
+
+        LogAction.addLogSynchronous(loggedInInfo, "OscarJobSchedulerManager.getJobStatuses", "");
+        return new ArrayList<OscarJobStatus>(statuses.values());
+    }
+
+    private static OscarJobStatus getStatus(Map<String, OscarJobStatus> statuses, String name) {
+        return statuses.computeIfAbsent(name, key -> {
+            OscarJobStatus status = new OscarJobStatus();
+            status.setName(key);
+            return status;
+        });
+    }
+
+    @Override
+    public List<OscarJobRun> getRunHistory(LoggedInInfo loggedInInfo, String name, int startPosition, int itemsToReturn) {
+        checkPrivilege(loggedInInfo, SecurityInfoManager.READ);
+
+        List<OscarJobRun> runs = oscarJobRunDao.findByName(name, startPosition, itemsToReturn);
+        LogAction.addLogSynchronous(loggedInInfo, "OscarJobSchedulerManager.getRunHistory", "name=" + name);
+        return runs;
+    }
+
+    private void checkPrivilege(LoggedInInfo loggedInInfo, String privilege) {
+        if (!securityInfoManager.hasPrivilege(loggedInInfo, "_admin", privilege, null)) {
+            throw new RuntimeException("missing required sec object (_admin)");
+        }
+    }
+}
@@ -27,10 +27,12 @@
  */
 package ca.openosp.openo.managers;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
-import ca.openosp.openo.commn.dao.OscarLogDao;
+import ca.openosp.openo.commn.dao.RecentDemographicAccessDao;
+import ca.openosp.openo.commn.model.RecentDemographicAccess;
 import ca.openosp.openo.utility.LoggedInInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -41,10 +43,10 @@ import ca.openosp.openo.log.LogAction;
 public class OscarLogManagerImpl implements OscarLogManager {
 
     @Autowired
-    private OscarLogDao oscarLogDao;
+    private RecentDemographicAccessDao recentDemographicAccessDao;
 
     public List<Object[]> getRecentDemographicsViewedByProvider(LoggedInInfo loggedInInfo, String providerNo, int startPosition, int itemsToReturn) {
-        List<Object[]> results = oscarLogDao.getRecentDemographicsViewedByProvider(providerNo, startPosition, itemsToReturn);
+        List<Object[]> results = toResults(recentDemographicAccessDao.findByProviderNo(providerNo, null, startPosition, itemsToReturn));
 
         LogAction.addLogSynchronous(loggedInInfo, "OscarLogManager.getRecentDemographicsViewedByProvider", "providerNo" + providerNo);
 
@@ -53,9 +55,17 @@ public class OscarLogManagerImpl implements OscarLogManager {
     }
 
     public List<Object[]> getRecentDemographicsViewedByProviderAfterDateIncluded(LoggedInInfo loggedInInfo, String providerNo, Date date, int startPosition, int itemsToReturn) {
-        List<Object[]> results = oscarLogDao.getRecentDemographicsViewedByProviderAfterDateIncluded(providerNo, date, startPosition, itemsToReturn);
+        List<Object[]> results = toResults(recentDemographicAccessDao.findByProviderNo(providerNo, date, startPosition, itemsToReturn));
         LogAction.addLogSynchronous(loggedInInfo, "OscarLogManager.getRecentDemographicsViewedByProviderAfterDateIncluded", "providerNo" + providerNo);
         return results;
     }
 
+    // same shape the log table queries returned, [demographicId (Integer), lastDateViewed Date]
+    private static List<Object[]> toResults(List<RecentDemographicAccess> accesses) {
+        List<Object[]> results = new ArrayList<Object[]>(accesses.size());
+        for (RecentDemographicAccess access : accesses) {
+            results.add(new Object[]{access.getDemographicNo(), access.getLastAccess()});
+        }
+        return results;
+    }
 }
@@ -0,0 +1,75 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+
+package ca.openosp.openo.managers;
+
+import java.util.List;
+
+import ca.openosp.openo.commn.model.Demographic;
+import ca.openosp.openo.utility.LoggedInInfo;
+import ca.openosp.openo.webserv.rest.to.model.DemographicSearchRequest;
+import ca.openosp.openo.webserv.rest.to.model.DemographicSearchResult;
+
+/**
+ * Serves patient searches from an in-memory index of the demographic table.
+ *
+ * The index is built in the background once the application has started and is kept current from
+ * demographic create / update events and record merges. Until it is ready, and for searches it cannot
+ * answer, the search methods return null and the caller falls back to the database search.
+ */
+public interface PatientSearchIndexManager {
+
+    /**
+     * @return List the requested page of results, or null if the search must go to the database
+     */
+    public List<DemographicSearchResult> searchPatients(LoggedInInfo loggedInInfo, DemographicSearchRequest searchRequest, int startIndex, int itemsToReturn);
+
+    /**
+     * @return Integer the number of matching patients, or null if the search must go to the database
+     */
+    public Integer searchPatientCount(LoggedInInfo loggedInInfo, DemographicSearchRequest searchRequest);
+
+    public boolean isReady();
+
+    /**
+     * Starts the initial build in the background, if it has not been started yet.
+     */
+    public void start();
+
+    /**
+     * Rebuilds the index from the database, replacing the current one once complete.
+     */
+    public void rebuild();
+
+    /**
+     * Re-indexes a saved demographic. When called inside a transaction the change is applied after commit.
+     */
+    public void update(Demographic demographic);
+
+    /**
+     * Re-reads the current merge of a demographic after it has been merged or unmerged.
+     */
+    public void refreshMerge(Integer demographicNo);
+}
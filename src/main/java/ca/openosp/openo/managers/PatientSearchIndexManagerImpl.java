@@ -0,0 +1,278 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+
+package ca.openosp.openo.managers;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.Logger;
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.PMmodule.dao.ProviderDao;
+import ca.openosp.openo.commn.dao.DemographicDao;
+import ca.openosp.openo.commn.dao.DemographicMergedDao;
+import ca.openosp.openo.commn.model.Demographic;
+import ca.openosp.openo.commn.model.DemographicMerged;
+import ca.openosp.openo.commn.model.Provider;
+import ca.openosp.openo.demographic.data.PatientSearchIndex;
+import ca.openosp.openo.utility.DeamonThreadFactory;
+import ca.openosp.openo.utility.LoggedInInfo;
+import ca.openosp.openo.utility.MiscUtils;
+import ca.openosp.openo.webserv.rest.to.model.DemographicSearchRequest;
+import ca.openosp.openo.webserv.rest.to.model.DemographicSearchResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+public class PatientSearchIndexManagerImpl implements PatientSearchIndexManager {
+
+    private static Logger logger = MiscUtils.getLogger();
+
+    private static final String DEFAULT_INACTIVE_STATUSES = "'IN','DE','IC', 'ID', 'MO', 'FI'";
+    // demographic numbers read per query while building the index
+    private static final int CHUNK_SIZE = 5000;
+
+    @Autowired
+    private DemographicDao demographicDao;
+
+    @Autowired
+    private DemographicMergedDao demographicMergedDao;
+
+    @Autowired
+    private ProviderDao providerDao;
+
+    private volatile PatientSearchIndex index = null;
+
+    // updates made while a rebuild is running, replayed onto the new index before it replaces the old one
+    private List<Consumer<PatientSearchIndex>> replay = null;
+    private final Object updateLock = new Object();
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private ScheduledExecutorService scheduler = null;
+
+    @Override
+    public List<DemographicSearchResult> searchPatients(LoggedInInfo loggedInInfo, DemographicSearchRequest searchRequest, int startIndex, int itemsToReturn) {
+        List<PatientSearchIndex.Entry> entries = search(searchRequest);
+        if (entries == null) return null;
+
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+        List<DemographicSearchResult> results = new ArrayList<DemographicSearchResult>();
+        for (int i = Math.max(startIndex, 0); i < entries.size() && results.size() < itemsToReturn; i++) {
+            results.add(toSearchResult(entries.get(i), sdf));
+        }
+        return results;
+    }
+
+    @Override
+    public Integer searchPatientCount(LoggedInInfo loggedInInfo, DemographicSearchRequest searchRequest) {
+        List<PatientSearchIndex.Entry> entries = search(searchRequest);
+        return entries == null ? null : entries.size();
+    }
+
+    private List<PatientSearchIndex.Entry> search(DemographicSearchRequest searchRequest) {
+        PatientSearchIndex current = index;
+        // a search restricted to the provider's programs needs the admission tables, leave it to the database
+        if (current == null || !searchRequest.isOutOfDomain()) return null;
+        return current.search(searchRequest.getMode(), searchRequest.getKeyword(), searchRequest.isActive(), searchRequest.getSortMode(), searchRequest.getSortDir());
+    }
+
+    @Override
+    public boolean isReady() {
+        return index != null;
+    }
+
+    @Override
+    public void start() {
+        if (!isEnabled() || !started.compareAndSet(false, true)) return;
+
+        int rebuildMinutes = NumberUtils.toInt(OscarProperties.getInstance().getProperty("patient_search_index.rebuild_minutes"), 360);
+        scheduler = Executors.newSingleThreadScheduledExecutor(new DeamonThreadFactory("PatientSearchIndex", Thread.MIN_PRIORITY));
+        scheduler.execute(this::rebuildQuietly);
+        if (rebuildMinutes > 0) {
+            // picks up changes made outside of DemographicDao, e.g. direct SQL updates
+            scheduler.scheduleWithFixedDelay(this::rebuildQuietly, rebuildMinutes, rebuildMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Unable to build the patient search index, searches will use the database", e);
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (updateLock) {
+            replay = new ArrayList<Consumer<PatientSearchIndex>>();
+        }
+        try {
+            PatientSearchIndex built = load();
+            synchronized (updateLock) {
+                for (Consumer<PatientSearchIndex> update : replay) {
+                    update.accept(built);
+                }
+                index = built;
+            }
+            logger.info("Patient search index built with " + built.size() + " demographics in " + (System.currentTimeMillis() - start) + " ms");
+        } finally {
+            synchronized (updateLock) {
+                replay = null;
+            }
+        }
+    }
+
+    private PatientSearchIndex load() {
+        OscarProperties props = OscarProperties.getInstance();
+        PatientSearchIndex built = new PatientSearchIndex(PatientSearchIndex.parseStatuses(props.getProperty("inactive_statuses", DEFAULT_INACTIVE_STATUSES)));
+
+        Integer maxDemographicNo = demographicDao.getMaxDemographicNo();
+        if (maxDemographicNo != null) {
+            int threads = NumberUtils.toInt(props.getProperty("patient_search_index.threads"), Math.min(4, Runtime.getRuntime().availableProcessors()));
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), new DeamonThreadFactory("PatientSearchIndexLoader", Thread.MIN_PRIORITY));
+            try {
+                List<Future<List<PatientSearchIndex.Entry>>> chunks = new ArrayList<Future<List<PatientSearchIndex.Entry>>>();
+                for (int from = 0; from <= maxDemographicNo; from += CHUNK_SIZE) {
+                    final int fromDemographicNo = from;
+                    chunks.add(executor.submit(() -> {
+                        List<PatientSearchIndex.Entry> entries = new ArrayList<PatientSearchIndex.Entry>();
+                        for (Object[] row : demographicDao.findSearchIndexRows(fromDemographicNo, fromDemographicNo + CHUNK_SIZE - 1)) {
+                            entries.add(PatientSearchIndex.Entry.fromRow(row));
+                        }
+                        return entries;
+                    }));
+                }
+                for (Future<List<PatientSearchIndex.Entry>> chunk : chunks) {
+                    built.putAll(chunk.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while building the patient search index", e);
+            } catch (Exception e) {
+                throw new IllegalStateException("Unable to read demographics for the patient search index", e);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        for (DemographicMerged merged : demographicMergedDao.findCurrent()) {
+            built.setMergedTo(merged.getDemographicNo(), merged.getMergedTo());
+        }
+        return built;
+    }
+
+    @Override
+    public void update(Demographic demographic) {
+        if (!isEnabled() || demographic == null || demographic.getDemographicNo() == null) return;
+
+        String providerLastName = null;
+        String providerFirstName = null;
+        if (demographic.getProviderNo() != null && !demographic.getProviderNo().isEmpty()) {
+            Provider provider = providerDao.getProvider(demographic.getProviderNo());
+            if (provider != null) {
+                providerLastName = provider.getLastName();
+                providerFirstName = provider.getFirstName();
+            }
+        }
+
+        PatientSearchIndex.Entry entry = new PatientSearchIndex.Entry(demographic.getDemographicNo(), demographic.getLastName(),
+                demographic.getFirstName(), demographic.getChartNo(), demographic.getSex(), demographic.getProviderNo(),
+                demographic.getRosterStatus(), demographic.getPatientStatus(), demographic.getPhone(), demographic.getYearOfBirth(),
+                demographic.getMonthOfBirth(), demographic.getDateOfBirth(), providerLastName, providerFirstName, demographic.getHin(),
+                demographic.getAddress());
+        applyAfterCommit(idx -> idx.put(entry));
+    }
+
+    @Override
+    public void refreshMerge(Integer demographicNo) {
+        if (!isEnabled() || demographicNo == null) return;
+
+        Integer head = null;
+        for (DemographicMerged merged : demographicMergedDao.findCurrentByDemographicNo(demographicNo)) {
+            head = merged.getMergedTo();
+        }
+        final Integer mergedTo = head;
+        applyAfterCommit(idx -> idx.setMergedTo(demographicNo, mergedTo));
+    }
+
+    private void applyAfterCommit(Consumer<PatientSearchIndex> update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(update);
+                }
+            });
+        } else {
+            apply(update);
+        }
+    }
+
+    private void apply(Consumer<PatientSearchIndex> update) {
+        synchronized (updateLock) {
+            PatientSearchIndex current = index;
+            if (current != null) update.accept(current);
+            if (replay != null) replay.add(update);
+        }
+    }
+
+    private static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(OscarProperties.getInstance().getProperty("patient_search_index", "true").trim());
+    }
+
+    private static DemographicSearchResult toSearchResult(PatientSearchIndex.Entry entry, SimpleDateFormat sdf) {
+        Date dob = null;
+        try {
+            dob = sdf.parse(entry.getYearOfBirth() + "-" + entry.getMonthOfBirth() + "-" + entry.getDateOfBirth());
+        } catch (ParseException e) {
+            // bad or missing date of birth, same as the database search
+        }
+        return new DemographicSearchResult(entry.getDemographicNo(), entry.getLastName(), entry.getFirstName(), entry.getChartNo(),
+                entry.getSex(), entry.getProviderNo(), entry.getRosterStatus(), entry.getPatientStatus(), entry.getPhone(), dob,
+                entry.getProviderLastName(), entry.getProviderFirstName(), entry.getHin());
+    }
+}
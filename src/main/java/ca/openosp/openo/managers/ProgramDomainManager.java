@@ -0,0 +1,60 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+
+package ca.openosp.openo.managers;
+
+/**
+ * Keeps the program_domain_client table, the clients each provider can see through program admissions, current.
+ *
+ * Admission writes mark the client and program provider writes mark the provider as changed; their rows are
+ * recomputed in the background right after commit. The whole table is rebuilt after startup and every
+ * program_domain.rebuild_hours, which picks up changes made outside the DAOs. The demographic searches
+ * restrict to the program domain with the table once it has been built.
+ */
+public interface ProgramDomainManager {
+
+    /**
+     * Starts the initial build and the background refresh, if they have not been started yet.
+     */
+    public void start();
+
+    /**
+     * Marks a client's or provider's program domain as changed. When called inside a transaction it's marked after commit.
+     *
+     * @param demographicNo Integer the client whose admissions changed, or null
+     * @param providerNo String the provider whose programs changed, or null
+     */
+    public void domainChanged(Integer demographicNo, String providerNo);
+
+    /**
+     * Recomputes the rows of the clients and providers marked as changed.
+     */
+    public void refresh();
+
+    /**
+     * Recomputes every row.
+     */
+    public void rebuild();
+}
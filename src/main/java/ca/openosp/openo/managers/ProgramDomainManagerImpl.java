@@ -0,0 +1,111 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import java.util.List;
+
+import javax.annotation.PreDestroy;
+
+import ca.openosp.openo.commn.dao.DemographicDao;
+import ca.openosp.openo.commn.dao.ProgramDomainClientDao;
+import ca.openosp.openo.managers.DenormalizedTableRefresher.Changes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ProgramDomainManagerImpl implements ProgramDomainManager {
+
+    @Autowired
+    private ProgramDomainClientDao programDomainClientDao;
+
+    @Autowired
+    private DemographicDao demographicDao;
+
+    private final DenormalizedTableRefresher refresher = new DenormalizedTableRefresher("program domain table", "program_domain", 60,
+            new DenormalizedTableRefresher.Table() {
+                @Override
+                public boolean hasRows() {
+                    return programDomainClientDao.hasProgramDomainClients();
+                }
+
+                @Override
+                public void useRows() {
+                    demographicDao.setProgramDomainFromTable(true);
+                }
+
+                @Override
+                public void refreshRows() {
+                    refreshChanged();
+                }
+
+                @Override
+                public void rebuildRows(int fromDemographicNo, int toDemographicNo) {
+                    programDomainClientDao.refreshClients(fromDemographicNo, toDemographicNo);
+                }
+
+                @Override
+                public Integer getMaxDemographicNo() {
+                    return demographicDao.getMaxDemographicNo();
+                }
+            });
+
+    private final Changes<Integer> changedClients = refresher.newChanges();
+    private final Changes<String> changedProviders = refresher.newChanges();
+
+    @Override
+    public void start() {
+        refresher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.stop();
+    }
+
+    @Override
+    public void domainChanged(Integer demographicNo, String providerNo) {
+        if (demographicNo != null && demographicNo > 0) refresher.markChanged(changedClients, demographicNo);
+        if (providerNo != null && !providerNo.isEmpty()) refresher.markChanged(changedProviders, providerNo);
+    }
+
+    @Override
+    public void refresh() {
+        refresher.refresh();
+    }
+
+    private void refreshChanged() {
+        for (List<Integer> chunk : DenormalizedTableRefresher.chunks(changedClients.take())) {
+            programDomainClientDao.refreshClients(chunk);
+        }
+        for (List<String> chunk : DenormalizedTableRefresher.chunks(changedProviders.take())) {
+            programDomainClientDao.refreshProviders(chunk);
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        refresher.rebuild();
+    }
+}
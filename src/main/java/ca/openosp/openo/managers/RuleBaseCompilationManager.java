@@ -0,0 +1,49 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+
+package ca.openosp.openo.managers;
+
+/**
+ * Compiles the Drools rule sets ahead of use so the first encounter screen, prevention or
+ * flowsheet request after a restart doesn't pay for it.
+ *
+ * Once the application has started, the registered rule sets (prevention rules), the active
+ * decision support guidelines and the measurement flowsheets are compiled in parallel, reading
+ * rule bases compiled by an earlier start from the on-disk cache of
+ * {@link ca.openosp.openo.drools.RuleBaseCompiler}. The registered rule sets are then checked
+ * periodically and recompiled in the background when their source changes.
+ */
+public interface RuleBaseCompilationManager {
+
+    /**
+     * Starts the compilation in the background, if it has not been started yet.
+     */
+    public void start();
+
+    /**
+     * @return boolean true once the startup compilation has finished
+     */
+    public boolean isReady();
+}
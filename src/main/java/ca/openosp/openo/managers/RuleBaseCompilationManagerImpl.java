@@ -0,0 +1,156 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+
+package ca.openosp.openo.managers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.Logger;
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.commn.dao.DSGuidelineDao;
+import ca.openosp.openo.decisionSupport.model.DSGuideline;
+import ca.openosp.openo.drools.RuleBaseCompiler;
+import ca.openosp.openo.encounter.oscarMeasurements.MeasurementTemplateFlowSheetConfig;
+import ca.openosp.openo.utility.DbConnectionFilter;
+import ca.openosp.openo.utility.DeamonThreadFactory;
+import ca.openosp.openo.utility.MiscUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class RuleBaseCompilationManagerImpl implements RuleBaseCompilationManager {
+
+    private static Logger logger = MiscUtils.getLogger();
+
+    @Autowired
+    private DSGuidelineDao dsGuidelineDao;
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile boolean ready = false;
+    private ScheduledExecutorService scheduler = null;
+
+    @Override
+    public void start() {
+        if (!started.compareAndSet(false, true)) return;
+
+        int checkSeconds = NumberUtils.toInt(OscarProperties.getInstance().getProperty("drools.source_check_seconds"), 60);
+        scheduler = Executors.newSingleThreadScheduledExecutor(new DeamonThreadFactory("RuleBaseCompilation", Thread.MIN_PRIORITY));
+        scheduler.execute(this::compileAllQuietly);
+        if (checkSeconds > 0) {
+            // the rule bases in use are only replaced once the changed rule set has compiled
+            scheduler.scheduleWithFixedDelay(this::refreshRuleSets, checkSeconds, checkSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void compileAllQuietly() {
+        try {
+            compileAll();
+        } catch (Exception e) {
+            logger.error("Unable to compile the rule sets at startup, they will be compiled on first use", e);
+        } finally {
+            ready = true;
+            DbConnectionFilter.releaseAllThreadDbResources();
+        }
+    }
+
+    private void refreshRuleSets() {
+        try {
+            RuleBaseCompiler.refreshAll();
+        } finally {
+            DbConnectionFilter.releaseAllThreadDbResources();
+        }
+    }
+
+    private void compileAll() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for (String name : RuleBaseCompiler.getRuleSetNames()) {
+            tasks.add(() -> {
+                try {
+                    RuleBaseCompiler.refresh(name);
+                } catch (Exception e) {
+                    logger.error("Unable to compile rule set " + name, e);
+                }
+            });
+        }
+        for (DSGuideline guideline : dsGuidelineDao.findActive()) {
+            tasks.add(() -> {
+                try {
+                    guideline.prepare();
+                } catch (Exception e) {
+                    logger.error("Unable to compile decision support guideline " + guideline.getTitle(), e);
+                }
+            });
+        }
+        // loading the flowsheets compiles their rule bases
+        tasks.add(MeasurementTemplateFlowSheetConfig::getInstance);
+
+        int threads = NumberUtils.toInt(OscarProperties.getInstance().getProperty("drools.compile_threads"), Math.min(4, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), new DeamonThreadFactory("RuleBaseCompiler", Thread.MIN_PRIORITY));
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (Runnable task : tasks) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        DbConnectionFilter.releaseAllThreadDbResources();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    logger.error("Unable to compile a rule set at startup", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("Compiled " + tasks.size() + " rule sets in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
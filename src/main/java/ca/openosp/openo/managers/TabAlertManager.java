@@ -0,0 +1,102 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+
+package ca.openosp.openo.managers;
+
+import java.util.Date;
+
+import ca.openosp.openo.utility.LoggedInInfo;
+
+/**
+ * Counts behind the lab, message, tickler and consultation alerts on the schedule page tabs.
+ *
+ * A count is read from the database the first time it is asked for and then served from memory until a
+ * write through the lab routing, message list, tickler or consultation request DAO invalidates it (see
+ * TabAlertChangeEvent) or it is older than tab_alerts.max_age_seconds. The age limit picks up changes
+ * that don't go through the DAOs, ticklers coming due and writes made on another server.
+ *
+ * Subscribers are told which alert changed once the write has committed, so the schedule page can
+ * re-render that one tab instead of polling all of them.
+ */
+public interface TabAlertManager {
+
+    public enum Alert {
+        LAB("oscar_new_lab"), MESSAGE("oscar_new_msg"), TICKLER("oscar_new_tickler"), CONSULT("oscar_aged_consults");
+
+        private final String tabId;
+
+        Alert(String tabId) {
+            this.tabId = tabId;
+        }
+
+        /**
+         * @return the id of the tab element on the schedule page, as passed to tabAlertsRefresh.jsp
+         */
+        public String getTabId() {
+            return tabId;
+        }
+    }
+
+    public interface Subscriber {
+
+        public String getProviderNo();
+
+        /**
+         * @return the provider whose ticklers the tickler tab counts, which the tickler view settings can make
+         * someone other than the subscriber
+         */
+        public String getTicklerAssignee();
+
+        /**
+         * Called on the thread that committed the change, implementations must not block.
+         */
+        public void alertChanged(Alert alert);
+    }
+
+    public int getNewLabCount(String providerNo);
+
+    public int getNewMessageCount(LoggedInInfo loggedInInfo, String providerNo, boolean onlyWithPatientAttached);
+
+    public int getNewIntegratorMessageCount(LoggedInInfo loggedInInfo, String providerNo);
+
+    public int getActiveTicklerCount(LoggedInInfo loggedInInfo, String assignedTo);
+
+    /**
+     * @param team the team to count, or null for all teams
+     */
+    public int getAgedConsultCount(Date referralDateCutoff, String team);
+
+    /**
+     * Drops the cached counts for the alert and notifies the subscribers. When called inside a transaction
+     * this happens after commit.
+     *
+     * @param providerNo the provider whose count changed, or null for every provider
+     */
+    public void alertChanged(Alert alert, String providerNo);
+
+    public void subscribe(Subscriber subscriber);
+
+    public void unsubscribe(Subscriber subscriber);
+}
@@ -0,0 +1,182 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+
+package ca.openosp.openo.managers;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.IntSupplier;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.Logger;
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.commn.dao.ConsultationRequestDao;
+import ca.openosp.openo.commn.dao.ProviderLabRoutingDao;
+import ca.openosp.openo.utility.LoggedInInfo;
+import ca.openosp.openo.utility.MiscUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+public class TabAlertManagerImpl implements TabAlertManager {
+
+    private static Logger logger = MiscUtils.getLogger();
+
+    @Autowired
+    private ProviderLabRoutingDao providerLabRoutingDao;
+
+    @Autowired
+    private ConsultationRequestDao consultationRequestDao;
+
+    @Autowired
+    private MessagingManager messagingManager;
+
+    @Autowired
+    private TicklerManager ticklerManager;
+
+    @Autowired
+    private SecurityInfoManager securityInfoManager;
+
+    private final Map<CounterKey, Counter> counters = new ConcurrentHashMap<CounterKey, Counter>();
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<Subscriber>();
+
+    private record CounterKey(Alert alert, String owner, String variant) {
+    }
+
+    private static final class Counter {
+        private volatile long computedAt = -1;
+        private volatile int value;
+    }
+
+    @Override
+    public int getNewLabCount(String providerNo) {
+        return get(Alert.LAB, providerNo, null, () -> providerLabRoutingDao.countByProviderNo(providerNo, "N"));
+    }
+
+    @Override
+    public int getNewMessageCount(LoggedInInfo loggedInInfo, String providerNo, boolean onlyWithPatientAttached) {
+        checkMessagePrivilege(loggedInInfo);
+        return get(Alert.MESSAGE, providerNo, onlyWithPatientAttached ? "patient" : "all",
+                () -> messagingManager.getMyInboxMessageCount(loggedInInfo, providerNo, onlyWithPatientAttached));
+    }
+
+    @Override
+    public int getNewIntegratorMessageCount(LoggedInInfo loggedInInfo, String providerNo) {
+        checkMessagePrivilege(loggedInInfo);
+        return get(Alert.MESSAGE, providerNo, "integrator", () -> {
+            Integer count = messagingManager.getMyInboxIntegratorMessagesCount(loggedInInfo, providerNo);
+            return count == null ? 0 : count;
+        });
+    }
+
+    @Override
+    public int getActiveTicklerCount(LoggedInInfo loggedInInfo, String assignedTo) {
+        return get(Alert.TICKLER, assignedTo, null, () -> ticklerManager.getActiveTicklerCount(loggedInInfo, assignedTo));
+    }
+
+    @Override
+    public int getAgedConsultCount(Date referralDateCutoff, String team) {
+        // referral dates have no time, any cutoff on the same day gives the same count
+        String day = new SimpleDateFormat("yyyy-MM-dd").format(referralDateCutoff);
+        return get(Alert.CONSULT, team, day, () -> team == null
+                ? consultationRequestDao.getCountReferralsAfterCutOffDateAndNotCompleted(referralDateCutoff)
+                : consultationRequestDao.getCountReferralsAfterCutOffDateAndNotCompleted(referralDateCutoff, team));
+    }
+
+    private void checkMessagePrivilege(LoggedInInfo loggedInInfo) {
+        // checked on every read, not just when the count is computed
+        if (!securityInfoManager.hasPrivilege(loggedInInfo, "_msg", SecurityInfoManager.READ, null)) {
+            throw new SecurityException("missing required sec object (_msg)");
+        }
+    }
+
+    private int get(Alert alert, String owner, String variant, IntSupplier count) {
+        Counter counter = counters.computeIfAbsent(new CounterKey(alert, owner, variant), key -> new Counter());
+        long maxAge = getMaxAgeMillis();
+        if (counter.computedAt >= 0 && System.currentTimeMillis() - counter.computedAt <= maxAge) {
+            return counter.value;
+        }
+
+        // one request recomputes, the others asking for the same count wait for it. A counter invalidated
+        // meanwhile has been dropped from the map so a value read before the commit is never served again.
+        synchronized (counter) {
+            long now = System.currentTimeMillis();
+            if (counter.computedAt < 0 || now - counter.computedAt > maxAge) {
+                counter.value = count.getAsInt();
+                counter.computedAt = now;
+            }
+            return counter.value;
+        }
+    }
+
+    @Override
+    public void alertChanged(Alert alert, String providerNo) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(alert, providerNo);
+                }
+            });
+        } else {
+            invalidate(alert, providerNo);
+        }
+    }
+
+    private void invalidate(Alert alert, String providerNo) {
+        counters.keySet().removeIf(key -> key.alert() == alert && (providerNo == null || providerNo.equals(key.owner())));
+
+        for (Subscriber subscriber : subscribers) {
+            String watched = alert == Alert.TICKLER ? subscriber.getTicklerAssignee() : subscriber.getProviderNo();
+            if (providerNo == null || providerNo.equals(watched)) {
+                try {
+                    subscriber.alertChanged(alert);
+                } catch (Exception e) {
+                    logger.warn("Unable to notify tab alert subscriber for provider " + subscriber.getProviderNo(), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Subscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    private static long getMaxAgeMillis() {
+        return NumberUtils.toLong(OscarProperties.getInstance().getProperty("tab_alerts.max_age_seconds"), 300) * 1000;
+    }
+}
@@ -32,7 +32,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -40,8 +40,6 @@ import org.apache.commons.lang3.StringUtils;
 import ca.openosp.openo.PMmodule.dao.ProgramAccessDAO;
 import ca.openosp.openo.PMmodule.dao.ProgramProviderDAO;
 import ca.openosp.openo.PMmodule.dao.ProviderDao;
-import ca.openosp.openo.PMmodule.model.ProgramAccess;
-import ca.openosp.openo.PMmodule.model.ProgramProvider;
 import ca.openosp.openo.PMmodule.service.ProgramManager;
 import ca.openosp.openo.casemgmt.service.CaseManagementManager;
 import ca.openosp.openo.commn.dao.CustomFilterDao;
@@ -58,6 +56,7 @@ import ca.openosp.openo.commn.model.TicklerComment;
 import ca.openosp.openo.commn.model.TicklerLink;
 import ca.openosp.openo.commn.model.TicklerTextSuggest;
 import ca.openosp.openo.commn.model.TicklerUpdate;
+import ca.openosp.openo.tickler.TicklerAccessEvaluator;
 import ca.openosp.openo.tickler.dto.TicklerListDTO;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
@@ -69,8 +68,6 @@ import java.util.Collections;
 import ca.openosp.OscarProperties;
 import ca.openosp.openo.log.LogAction;
 
-import ca.openosp.openo.model.security.Secrole;
-
 @Service
 public class TicklerManagerImpl implements TicklerManager {
 
@@ -268,10 +265,17 @@ public class TicklerManagerImpl implements TicklerManager {
     public List<Tickler> ticklerFacilityFiltering(LoggedInInfo loggedInInfo, List<Tickler> ticklers) {
         ArrayList<Tickler> results = new ArrayList<Tickler>();
 
+        // most ticklers on a list share a handful of programs
+        Map<Integer, Boolean> programAccess = new HashMap<Integer, Boolean>();
         for (Tickler tickler : ticklers) {
             Integer programId = tickler.getProgramId();
 
-            if (programManager.hasAccessBasedOnCurrentFacility(loggedInInfo, programId)) {
+            Boolean hasAccess = programAccess.get(programId);
+            if (hasAccess == null) {
+                hasAccess = programManager.hasAccessBasedOnCurrentFacility(loggedInInfo, programId);
+                programAccess.put(programId, hasAccess);
+            }
+            if (hasAccess) {
                 results.add(tickler);
             }
         }
@@ -281,93 +285,11 @@ public class TicklerManagerImpl implements TicklerManager {
 
     @Override
     public List<Tickler> filterTicklersByAccess(List<Tickler> ticklers, String providerNo, String programNo) {
-        List<Tickler> filteredTicklers = new ArrayList<Tickler>();
-
         if (ticklers.isEmpty()) {
             return ticklers;
         }
 
-        String programId = "";
-        // iterate through the tickler list
-        for (Iterator<Tickler> iter = ticklers.iterator(); iter.hasNext(); ) {
-            Tickler t = iter.next();
-            boolean add = false;
-            List<ProgramProvider> ppList = new ArrayList<ProgramProvider>();
-
-            programId = String.valueOf(t.getProgramId());
-
-            // If the ticklers are not in any program (old ticklers), show them.
-            // They will not be filtered by the role access.
-            if (programId == null || "".equals(programId) || "null".equals(programId)) {
-                filteredTicklers.add(t);
-                continue;
-            }
-
-            // load up the program_provider entry to get the role for this provider in the
-            // tickler's program
-            ppList = programProviderDAO.getProgramProviderByProviderProgramId(providerNo, Long.valueOf(programId));
-            if (ppList == null || ppList.isEmpty()) {
-                continue;
-            }
-            ProgramProvider pp = ppList.get(0);
-            Secrole role = pp.getRole();
-
-            // Get the tickler assigned to providers's role in the tickler's program
-            String ticklerRole = null;
-            List<ProgramProvider> ppList2 = new ArrayList<ProgramProvider>();
-            ppList2 = this.programProviderDAO.getProgramProviderByProviderProgramId(t.getTaskAssignedTo(),
-                    Long.valueOf(t.getProgramId()));
-            if (ppList2 != null && !ppList2.isEmpty()) {
-                ticklerRole = ppList2.get(0).getRole().getRoleName().toLowerCase();
-            }
-
-            ProgramAccess pa = null;
-
-            // Load up access list from program
-            List<ProgramAccess> programAccessList = programAccessDAO.getAccessListByProgramId(Long.valueOf(programId));
-            Map<String, ProgramAccess> programAccessMap = caseManagementManager
-                    .convertProgramAccessListToMap(programAccessList);
-
-            // read
-
-            // if the providers's role is allowed to read tickler's assigned to
-            // "ticklerRole". add.
-            // if no entry exists, but the the providers has same role as assigned to role,
-            // then we add
-            pa = programAccessMap.get("read ticklers assigned to a " + ticklerRole);
-            if (pa != null) {
-                if (pa.isAllRoles() || caseManagementManager.isRoleIncludedInAccess(pa, role)) {
-                    add = true;
-                }
-            } else {
-                if (ticklerRole.equals(role.getRoleName())) {
-                    add = true;
-                }
-            }
-            pa = null;
-
-            // if this providers wrote the tickler, they should see it..doesn't matter
-            // about the role based access
-            if (!add) {
-                if (t.getProvider().getProviderNo().equals(providerNo)) {
-                    add = true;
-                }
-
-            }
-
-            // apply defaults - i think this is already added above
-            if (!add) {
-                if (ticklerRole.equals(role.getRoleName())) {
-                    add = true;
-                }
-            }
-
-            // did it pass the test?
-            if (add) {
-                filteredTicklers.add(t);
-            }
-        }
-        return filteredTicklers;
+        return new TicklerAccessEvaluator(providerNo, programProviderDAO, programAccessDAO, caseManagementManager).filter(ticklers);
     }
 
     @Override
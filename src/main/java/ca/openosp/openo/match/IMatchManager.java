@@ -31,7 +31,7 @@ public interface IMatchManager {
      * Defines possible {@link Event} for matches.
      */
     public static enum Event {
-        CLIENT_CREATED, VACANCY_CREATED, SCHEDULED_EVENT;
+        CLIENT_CREATED, VACANCY_CREATED, VACANCY_UPDATED, SCHEDULED_EVENT;
     }
 
     /**
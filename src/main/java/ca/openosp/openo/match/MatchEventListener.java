@@ -0,0 +1,70 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.match;
+
+import java.util.Map;
+
+import ca.openosp.openo.PMmodule.dao.VacancyDao;
+import ca.openosp.openo.PMmodule.model.Vacancy;
+import ca.openosp.openo.commn.dao.DemographicDao;
+import ca.openosp.openo.commn.model.Demographic;
+import ca.openosp.openo.commn.model.DomainEvent;
+import ca.openosp.openo.event.DomainEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Matches new clients against the open vacancies and new or edited vacancies against the waiting clients,
+ * off the request thread that saved them.
+ */
+@Component
+public class MatchEventListener implements DomainEventListener {
+
+    @Autowired
+    private DemographicDao demographicDao;
+
+    @Autowired
+    private VacancyDao vacancyDao;
+
+    @Override
+    public boolean supportsEventType(String eventType) {
+        return DomainEvent.CLIENT_CREATED.equals(eventType) || DomainEvent.VACANCY_CREATED.equals(eventType)
+                || DomainEvent.VACANCY_UPDATED.equals(eventType);
+    }
+
+    @Override
+    public void onDomainEvent(DomainEvent event, Map<String, String> payload) throws Exception {
+        IMatchManager matchManager = new MatchManager();
+        if (DomainEvent.CLIENT_CREATED.equals(event.getEventType())) {
+            Demographic client = demographicDao.getDemographicById(Integer.valueOf(event.getAggregateId()));
+            if (client != null) matchManager.processEvent(client, IMatchManager.Event.CLIENT_CREATED);
+        } else {
+            Vacancy vacancy = vacancyDao.find(Integer.valueOf(event.getAggregateId()));
+            IMatchManager.Event matchEvent = DomainEvent.VACANCY_CREATED.equals(event.getEventType())
+                    ? IMatchManager.Event.VACANCY_CREATED : IMatchManager.Event.VACANCY_UPDATED;
+            if (vacancy != null) matchManager.processEvent(vacancy, matchEvent);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.match;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.PMmodule.dao.VacancyDao;
+import ca.openosp.openo.PMmodule.dao.WaitlistDao;
+import ca.openosp.openo.PMmodule.model.Vacancy;
+import ca.openosp.openo.match.client.ClientData;
+import ca.openosp.openo.match.vacancy.VacancyData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The criteria of the active vacancies, kept in memory with an index from criterion to the vacancies
+ * that ask for it so a client is only scored against the vacancies it can match. Built on first use,
+ * a vacancy is reloaded when it's saved and the whole index by the scheduled match run.
+ * <p>
+ * Only the server that delivers a vacancy's event reloads it, so every server also rebuilds its own index
+ * once it's match.index_max_age_seconds old, and vacancies are checked against the database before a
+ * client is scored against them.
+ */
+@Component
+public class MatchIndex {
+
+    private static final String ACTIVE = "ACTIVE";
+
+    @Autowired
+    private WaitlistDao waitlistDao;
+
+    @Autowired
+    private VacancyDao vacancyDao;
+
+    // replaced as a whole, readers never see a half updated index
+    private volatile Snapshot snapshot;
+
+    private static final class Snapshot {
+        private final Map<Integer, VacancyData> vacancies;
+        private final Map<String, Set<Integer>> vacanciesByParam;
+        // when the whole index was last read, single vacancy updates don't change it
+        private final long builtAt;
+
+        private Snapshot(Map<Integer, VacancyData> vacancies, long builtAt) {
+            this.vacancies = vacancies;
+            this.builtAt = builtAt;
+            this.vacanciesByParam = new HashMap<String, Set<Integer>>();
+            for (VacancyData vacancy : vacancies.values()) {
+                for (String param : vacancy.getVacancyData().keySet()) {
+                    vacanciesByParam.computeIfAbsent(param, key -> new LinkedHashSet<Integer>()).add(vacancy.getVacancy_id());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of active vacancies indexed
+     */
+    public synchronized int rebuild() {
+        Map<Integer, VacancyData> vacancies = new HashMap<Integer, VacancyData>();
+        for (VacancyData vacancy : waitlistDao.loadActiveVacancyData()) {
+            vacancies.put(vacancy.getVacancy_id(), vacancy);
+        }
+        snapshot = new Snapshot(vacancies, System.currentTimeMillis());
+        return vacancies.size();
+    }
+
+    /**
+     * Reloads the vacancy's criteria, or drops it if it's no longer active.
+     *
+     * @return the vacancy's criteria, null if it isn't active
+     */
+    public synchronized VacancyData vacancyChanged(int vacancyId) {
+        Snapshot current = getSnapshot();
+        Map<Integer, VacancyData> vacancies = new HashMap<Integer, VacancyData>(current.vacancies);
+        Vacancy vacancy = vacancyDao.find(vacancyId);
+        VacancyData vacancyData = null;
+        if (vacancy != null && ACTIVE.equals(vacancy.getStatus())) {
+            vacancyData = waitlistDao.loadVacancyData(vacancyId);
+            vacancies.put(vacancyId, vacancyData);
+        } else {
+            vacancies.remove(vacancyId);
+        }
+        snapshot = new Snapshot(vacancies, current.builtAt);
+        return vacancyData;
+    }
+
+    /**
+     * Checks the vacancies against the database before they're scored, the ones closed through another
+     * server since the index was read are dropped from it.
+     *
+     * @return the vacancies that are still active, in the order given
+     */
+    public List<VacancyData> retainActive(List<VacancyData> vacancies) {
+        if (vacancies.isEmpty()) return vacancies;
+        List<Integer> ids = new ArrayList<Integer>(vacancies.size());
+        for (VacancyData vacancy : vacancies) {
+            ids.add(vacancy.getVacancy_id());
+        }
+        Set<Integer> active = new HashSet<Integer>(vacancyDao.findActiveIds(ids));
+
+        List<VacancyData> results = new ArrayList<VacancyData>(vacancies.size());
+        List<Integer> closed = new ArrayList<Integer>();
+        for (VacancyData vacancy : vacancies) {
+            if (active.contains(vacancy.getVacancy_id())) {
+                results.add(vacancy);
+            } else {
+                closed.add(vacancy.getVacancy_id());
+            }
+        }
+        if (!closed.isEmpty()) remove(closed);
+        return results;
+    }
+
+    private synchronized void remove(Collection<Integer> vacancyIds) {
+        Snapshot current = getSnapshot();
+        Map<Integer, VacancyData> vacancies = new HashMap<Integer, VacancyData>(current.vacancies);
+        vacancies.keySet().removeAll(vacancyIds);
+        snapshot = new Snapshot(vacancies, current.builtAt);
+    }
+
+    /**
+     * @return the active vacancies with a criterion on one of the client's answers, by vacancy id
+     */
+    public List<VacancyData> getCandidateVacancies(ClientData client) {
+        Snapshot current = getSnapshot();
+        Set<Integer> ids = new TreeSet<Integer>();
+        for (String param : client.getClientData().keySet()) {
+            ids.addAll(current.vacanciesByParam.getOrDefault(param, Collections.<Integer>emptySet()));
+        }
+        return getVacancies(current, ids);
+    }
+
+    /**
+     * @return the vacancies that are active, in the order given
+     */
+    public List<VacancyData> getVacancies(Collection<Integer> vacancyIds) {
+        return getVacancies(getSnapshot(), vacancyIds);
+    }
+
+    private static List<VacancyData> getVacancies(Snapshot current, Collection<Integer> vacancyIds) {
+        List<VacancyData> results = new ArrayList<VacancyData>(vacancyIds.size());
+        for (Integer id : vacancyIds) {
+            VacancyData vacancy = current.vacancies.get(id);
+            if (vacancy != null) results.add(vacancy);
+        }
+        return results;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        long maxAge = getMaxAgeMillis();
+        if (isStale(current, maxAge)) {
+            synchronized (this) {
+                if (isStale(snapshot, maxAge)) rebuild();
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private static boolean isStale(Snapshot current, long maxAge) {
+        return current == null || System.currentTimeMillis() - current.builtAt > maxAge;
+    }
+
+    private static long getMaxAgeMillis() {
+        return NumberUtils.toLong(OscarProperties.getInstance().getProperty("match.index_max_age_seconds"), 300) * 1000;
+    }
+}
@@ -23,12 +23,17 @@
 
 package ca.openosp.openo.match;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import ca.openosp.openo.PMmodule.dao.VacancyClientMatchDao;
 import ca.openosp.openo.PMmodule.model.Vacancy;
 import ca.openosp.openo.PMmodule.model.VacancyClientMatch;
+import ca.openosp.openo.commn.jobs.OscarJobProgress;
 import ca.openosp.openo.commn.model.Demographic;
+import ca.openosp.openo.match.vacancy.VacancyData;
 import ca.openosp.openo.utility.SpringUtils;
 
 /**
@@ -38,31 +43,43 @@ public class MatchManager implements IMatchManager {
 
     private Matcher matcher = new Matcher();
     private VacancyClientMatchDao vacancyClientMatchDao = SpringUtils.getBean(VacancyClientMatchDao.class);
+    private MatchIndex matchIndex = SpringUtils.getBean(MatchIndex.class);
 
     private String processScheduledEvent() {
-        return "Not required";
+        // picks up vacancies closed or edited outside of the vacancy screens
+        OscarJobProgress.addRowsProcessed(matchIndex.rebuild());
+        return "Done";
     }
 
-    private String processVacancyCreatedEvent(Vacancy vacancy) {
-        List<VacancyClientMatch> vacancyClientMatches = matcher.listClientMatchesForVacancy(vacancy.getId(), vacancy.getWlProgramId());
-        persistVacancyClientMatch(vacancyClientMatches);
+    private String processVacancyEvent(Vacancy vacancy) {
+        VacancyData vacancyData = matchIndex.vacancyChanged(vacancy.getId());
+        if (vacancyData == null) return "Vacancy is not active";
+        List<VacancyClientMatch> vacancyClientMatches = matcher.listClientMatchesForVacancy(vacancyData, vacancy.getWlProgramId());
+        saveScores(vacancyClientMatches, new HashSet<Integer>(vacancyClientMatchDao.findClientIdsByVacancyId(vacancy.getId())), false);
         return "Done";
     }
 
     private String processCientCreatedEvent(Demographic client) {
         List<VacancyClientMatch> vacancyClientMatches = matcher.listVacancyMatchesForClient(client.getDemographicNo());
-        persistVacancyClientMatch(vacancyClientMatches);
+        saveScores(vacancyClientMatches, new HashSet<Integer>(vacancyClientMatchDao.findVacancyIdsByClientId(client.getDemographicNo())), true);
         return "Done";
     }
 
-    private void persistVacancyClientMatch(List<VacancyClientMatch> vacancyClientMatches) {
+    /**
+     * Writes the scores of the pairs that match on something and rescores the pairs that already have a
+     * match, a new pair with nothing in common isn't stored.
+     *
+     * @param existing the clients, or vacancies when byVacancy, that already have a match
+     */
+    private void saveScores(List<VacancyClientMatch> vacancyClientMatches, Set<Integer> existing, boolean byVacancy) {
+        List<VacancyClientMatch> scores = new ArrayList<VacancyClientMatch>(vacancyClientMatches.size());
         for (VacancyClientMatch vacancyClientMatch : vacancyClientMatches) {
-            if (vacancyClientMatch.getId() != null && vacancyClientMatch.getId() > 0) {
-                vacancyClientMatchDao.merge(vacancyClientMatch);
-            } else {
-                vacancyClientMatchDao.persist(vacancyClientMatch);
+            int other = byVacancy ? vacancyClientMatch.getVacancy_id() : vacancyClientMatch.getClient_id();
+            if (vacancyClientMatch.getMatchPercentage() > 0 || existing.contains(other)) {
+                scores.add(vacancyClientMatch);
             }
         }
+        vacancyClientMatchDao.upsertScores(scores);
     }
 
     @Override
@@ -71,7 +88,8 @@ public class MatchManager implements IMatchManager {
             case CLIENT_CREATED:
                 return processCientCreatedEvent((Demographic) entity);
             case VACANCY_CREATED:
-                return processVacancyCreatedEvent((Vacancy) entity);
+            case VACANCY_UPDATED:
+                return processVacancyEvent((Vacancy) entity);
             case SCHEDULED_EVENT:
                 return processScheduledEvent();
             default:
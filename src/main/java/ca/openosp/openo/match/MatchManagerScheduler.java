@@ -23,13 +23,10 @@
 
 package ca.openosp.openo.match;
 
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
-
 import org.apache.logging.log4j.Logger;
+import ca.openosp.openo.managers.OscarJobSchedulerManager;
 import ca.openosp.openo.utility.MiscUtils;
+import ca.openosp.openo.utility.SpringUtils;
 
 /**
  * @author AnooshTech
@@ -38,22 +35,13 @@ public class MatchManagerScheduler {
     private Logger logger = MiscUtils.getLogger();
     private IMatchManager matchManager = new MatchManager();
 
+    private static final String JOB_NAME = "MatchManagerScheduler";
     private static final int DELAY = 0;
     private static final int PERIOD = 30 * 60 * 1000;
 
-    private ScheduledExecutorService MATCH_MANAGER_SCHEDULER =
-            new ScheduledThreadPoolExecutor(1, new ScheduledMatchManagerThreadFactory());
-
     public MatchManagerScheduler() {
-        MATCH_MANAGER_SCHEDULER.scheduleWithFixedDelay(new MatchMgrSheduledTask(),
-                DELAY, PERIOD, TimeUnit.MILLISECONDS);
-    }
-
-    private static class ScheduledMatchManagerThreadFactory implements ThreadFactory {
-        @Override
-        public Thread newThread(Runnable r) {
-            return new Thread(r, "SCHEDULED_MATCH_MANAGER_THREAD-1");
-        }
+        OscarJobSchedulerManager jobScheduler = SpringUtils.getBean(OscarJobSchedulerManager.class);
+        jobScheduler.schedule(JOB_NAME, new MatchMgrSheduledTask(), DELAY, PERIOD);
     }
 
     private class MatchMgrSheduledTask implements Runnable {
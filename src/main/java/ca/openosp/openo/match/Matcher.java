@@ -26,9 +26,12 @@ package ca.openosp.openo.match;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
+import ca.openosp.openo.PMmodule.dao.VacancyClientMatchDao;
 import ca.openosp.openo.PMmodule.dao.VacancyDao;
 import ca.openosp.openo.PMmodule.dao.WaitlistDao;
 import ca.openosp.openo.PMmodule.model.Vacancy;
@@ -45,6 +48,8 @@ public class Matcher {
 
     private WaitlistDao waitlistDao = SpringUtils.getBean(WaitlistDao.class);
     private VacancyDao vacancyDao = SpringUtils.getBean(VacancyDao.class);
+    private VacancyClientMatchDao vacancyClientMatchDao = SpringUtils.getBean(VacancyClientMatchDao.class);
+    private MatchIndex matchIndex = SpringUtils.getBean(MatchIndex.class);
 
 
     public List<VacancyClientMatch> listClientMatchesForVacancy(int vacancyId) {
@@ -60,8 +65,14 @@ public class Matcher {
     }
 
     public List<VacancyClientMatch> listClientMatchesForVacancy(int vacancyId, int wlProgramId) {
+        return listClientMatchesForVacancy(waitlistDao.loadVacancyData(vacancyId, wlProgramId), wlProgramId);
+    }
+
+    /**
+     * Scores the clients waiting on the program against the vacancy.
+     */
+    public List<VacancyClientMatch> listClientMatchesForVacancy(VacancyData vacancyData, int wlProgramId) {
         List<VacancyClientMatch> vacancyClientMatches = new ArrayList<VacancyClientMatch>();
-        VacancyData vacancyData = waitlistDao.loadVacancyData(vacancyId, wlProgramId);
         List<ClientData> clientDatas = waitlistDao.getAllClientsDataByProgramId(wlProgramId);
         for (ClientData clientData : clientDatas) {
             VacancyClientMatch vcMatch = match(clientData, vacancyData);
@@ -83,12 +94,22 @@ public class Matcher {
         return vacancyClientMatches;
     }
 
+    /**
+     * Scores the client against the active vacancies with a criterion on one of the client's answers
+     * and the vacancies the client already has a match for, the other vacancies can't score above 0.
+     */
     public List<VacancyClientMatch> listVacancyMatchesForClient(int clientId) {
         List<VacancyClientMatch> vacancyClientMatches = new ArrayList<VacancyClientMatch>();
         ClientData clientData = waitlistDao.getClientData(clientId);
         if (clientData.getClientData().size() == 0) return vacancyClientMatches;
-        List<VacancyData> vacancyDataList = loadAllVacancies();
-        for (VacancyData vData : vacancyDataList) {
+        Map<Integer, VacancyData> vacancies = new LinkedHashMap<Integer, VacancyData>();
+        for (VacancyData vData : matchIndex.getCandidateVacancies(clientData)) {
+            vacancies.put(vData.getVacancy_id(), vData);
+        }
+        for (VacancyData vData : matchIndex.getVacancies(vacancyClientMatchDao.findVacancyIdsByClientId(clientId))) {
+            vacancies.put(vData.getVacancy_id(), vData);
+        }
+        for (VacancyData vData : matchIndex.retainActive(new ArrayList<VacancyData>(vacancies.values()))) {
             VacancyClientMatch vcMatch = match(clientData, vData);
             vacancyClientMatches.add(vcMatch);
         }
@@ -110,20 +131,6 @@ public class Matcher {
 
     }
 
-    private List<VacancyData> loadAllVacancies() {
-        List<VacancyData> vacancies = new ArrayList<VacancyData>();
-        List<Integer> vacancyDataList = new ArrayList<Integer>();
-        for (Vacancy v : vacancyDao.findCurrent()) {
-            vacancyDataList.add(v.getId());
-        }
-        for (Integer vacancyId : vacancyDataList) {
-            VacancyData vacancyData = waitlistDao.loadVacancyData(vacancyId);
-            vacancies.add(vacancyData);
-        }
-        return vacancies;
-
-    }
-
 
     private VacancyClientMatch match(ClientData clientData,
                                      VacancyData vacancyData) {
@@ -35,6 +35,7 @@ import ca.openosp.openo.commn.model.Provider;
 import ca.openosp.openo.commn.model.Security;
 import ca.openosp.openo.managers.FacilityManager;
 import ca.openosp.openo.managers.MessagingManager;
+import ca.openosp.openo.managers.TabAlertManager;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.SpringUtils;
@@ -82,9 +83,9 @@ import ca.openosp.openo.utility.SpringUtils;
 public class MsgNewMessageTag extends TagSupport {
 
     /**
-     * Service for managing messages and message counts.
+     * Cached new message counts, backed by the messaging manager.
      */
-    private static MessagingManager messagingManager = SpringUtils.getBean(MessagingManager.class);
+    private static TabAlertManager tabAlertManager = SpringUtils.getBean(TabAlertManager.class);
     
     /**
      * Service for managing provider information.
@@ -186,12 +187,12 @@ public class MsgNewMessageTag extends TagSupport {
         loggedInInfo.setLoggedInSecurity(new Security());
 
         // Count different categories of new messages
-        numNewMessages = messagingManager.getMyInboxMessageCount(loggedInInfo, providerNo, false);
-        numNewDemographicMessages = messagingManager.getMyInboxMessageCount(loggedInInfo, providerNo, true);
+        numNewMessages = tabAlertManager.getNewMessageCount(loggedInInfo, providerNo, false);
+        numNewDemographicMessages = tabAlertManager.getNewMessageCount(loggedInInfo, providerNo, true);
 
         // Check for integrator messages if facility supports it
         if (facilityManager.getDefaultFacility(loggedInInfo).isIntegratorEnabled()) {
-            numIntegratedMessages = messagingManager.getMyInboxIntegratorMessagesCount(loggedInInfo, providerNo);
+            numIntegratedMessages = tabAlertManager.getNewIntegratorMessageCount(loggedInInfo, providerNo);
         }
 
         try {
@@ -0,0 +1,297 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2008-2012 Indivica Inc.
+ * <p>
+ * This software is made available under the terms of the
+ * GNU General Public License, Version 2, 1991 (GPLv2).
+ * License details are available via "indivica.ca/gplv2"
+ * and "gnu.org/licenses/gpl-2.0.html".
+ */
+package ca.openosp.openo.olis;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.http.impl.cookie.DateUtils;
+import org.apache.logging.log4j.Logger;
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.PMmodule.dao.ProviderDao;
+import ca.openosp.openo.commn.dao.UserPropertyDAO;
+import ca.openosp.openo.commn.model.Provider;
+import ca.openosp.openo.commn.model.UserProperty;
+import ca.openosp.openo.olis.dao.OLISProviderPreferencesDao;
+import ca.openosp.openo.olis.model.OLISProviderPreferences;
+import ca.openosp.openo.olis1.Driver;
+import ca.openosp.openo.olis1.parameters.OBR22;
+import ca.openosp.openo.olis1.parameters.ORC21;
+import ca.openosp.openo.olis1.parameters.ZRP1;
+import ca.openosp.openo.olis1.queries.Query;
+import ca.openosp.openo.olis1.queries.Z04Query;
+import ca.openosp.openo.olis1.queries.Z06Query;
+import ca.openosp.openo.utility.DbConnectionFilter;
+import ca.openosp.openo.utility.DeamonThreadFactory;
+import ca.openosp.openo.utility.LoggedInInfo;
+import ca.openosp.openo.utility.MiscUtils;
+import ca.openosp.openo.utility.SpringUtils;
+
+/**
+ * Polls OLIS for new results, the Z04 query of each provider running concurrently.
+ *
+ * Each provider (and the facility, under id "-1") has a cursor in OLISProviderPreferences: the
+ * start time OLIS returned with the last results and the time of the last poll. A poll asks for
+ * results from the cursor's start time, hands the response to the lab upload path and then moves
+ * the cursor, so a provider whose poll fails is asked for the same window on the next cycle.
+ *
+ * Queries run on olis.poll_threads threads; a slow or failing provider only holds up its own
+ * thread. A query that gets no OLIS response is retried olis.poll_attempts times, waiting
+ * olis.poll_backoff_seconds and then twice as long after each failure. Responses are imported one
+ * at a time, the lab upload path checks for duplicates before saving and the same result is often
+ * returned to more than one provider.
+ *
+ * @author Indivica
+ */
+public class OLISPollingEngine {
+
+    private static final Logger logger = MiscUtils.getLogger();
+
+    /**
+     * Cursor id of the facility (Z06) poll.
+     */
+    public static final String FACILITY_CURSOR_ID = "-1";
+
+    private static final String[] dateFormat = new String[]{"yyyyMMddHHmmssZ"};
+
+    /**
+     * Sends a query to OLIS.
+     */
+    public interface OLISGateway {
+        /**
+         * @return String the unsigned OLIS response, an empty string if OLIS could not be reached
+         */
+        String submitQuery(LoggedInInfo loggedInInfo, Query query) throws Exception;
+    }
+
+    /**
+     * Adds the results of an OLIS response to the inbox.
+     */
+    public interface ResultImporter {
+        /**
+         * @return String the start time for the next poll, null if the response had no results to move it
+         */
+        String importResponse(LoggedInInfo loggedInInfo, String response) throws Exception;
+    }
+
+    private final ProviderDao providerDao;
+    private final UserPropertyDAO userPropertyDAO;
+    private final OLISProviderPreferencesDao olisProviderPreferencesDao;
+    private final OLISGateway gateway;
+    private final ResultImporter importer;
+    private final int threads;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    private final Object importLock = new Object();
+
+    public OLISPollingEngine() {
+        this(SpringUtils.getBean(ProviderDao.class), SpringUtils.getBean(UserPropertyDAO.class), SpringUtils.getBean(OLISProviderPreferencesDao.class),
+                (loggedInInfo, query) -> Driver.submitOLISQuery(loggedInInfo, null, query),
+                OLISPollingUtil::parseAndImportResponse,
+                NumberUtils.toInt(OscarProperties.getInstance().getProperty("olis.poll_threads"), 4),
+                NumberUtils.toInt(OscarProperties.getInstance().getProperty("olis.poll_attempts"), 3),
+                NumberUtils.toLong(OscarProperties.getInstance().getProperty("olis.poll_backoff_seconds"), 10) * 1000);
+    }
+
+    OLISPollingEngine(ProviderDao providerDao, UserPropertyDAO userPropertyDAO, OLISProviderPreferencesDao olisProviderPreferencesDao,
+                      OLISGateway gateway, ResultImporter importer, int threads, int maxAttempts, long backoffMillis) {
+        this.providerDao = providerDao;
+        this.userPropertyDAO = userPropertyDAO;
+        this.olisProviderPreferencesDao = olisProviderPreferencesDao;
+        this.gateway = gateway;
+        this.importer = importer;
+        this.threads = Math.max(1, threads);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = Math.max(0, backoffMillis);
+    }
+
+    /**
+     * Polls every active provider with an official name configured.
+     *
+     * @param loggedInInfo LoggedInInfo the user the polls run as, null to run each poll as its provider
+     * @param defaultStartTime String start of the window for providers without a cursor (yyyyMMddHHmmssZ)
+     * @param defaultEndTime String end of that window, empty for open ended
+     * @return int the number of providers polled successfully
+     */
+    public int pollProviders(LoggedInInfo loggedInInfo, String defaultStartTime, String defaultEndTime) {
+        List<Provider> providers = providerDao.getActiveProviders();
+        if (providers.isEmpty()) return 0;
+
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, providers.size()), new DeamonThreadFactory("OLISPoller", Thread.MIN_PRIORITY));
+        int polled = 0;
+        try {
+            List<Future<Boolean>> polls = new ArrayList<Future<Boolean>>(providers.size());
+            for (Provider provider : providers) {
+                polls.add(executor.submit(() -> {
+                    try {
+                        return pollProvider(loggedInInfo, provider, defaultStartTime, defaultEndTime);
+                    } finally {
+                        DbConnectionFilter.releaseAllThreadDbResources();
+                    }
+                }));
+            }
+            for (int i = 0; i < polls.size(); i++) {
+                try {
+                    if (polls.get(i).get()) polled++;
+                } catch (ExecutionException e) {
+                    logger.error("Error polling OLIS for provider " + providers.get(i).getProviderNo(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("OLIS poll interrupted");
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("OLIS poll of " + providers.size() + " providers done in " + (System.currentTimeMillis() - start) + " ms, " + polled + " polled");
+        return polled;
+    }
+
+    /**
+     * Polls OLIS for one provider's results (Z04).
+     *
+     * @return boolean true if OLIS answered and the results were imported, false if the provider has no
+     * official name configured or OLIS could not be reached
+     */
+    public boolean pollProvider(LoggedInInfo loggedInInfo, Provider provider, String defaultStartTime, String defaultEndTime) throws Exception {
+        String providerNo = provider.getProviderNo();
+        String officialLastName = userPropertyDAO.getStringValue(providerNo, UserProperty.OFFICIAL_LAST_NAME);
+
+        //There is no need to query for users without this configured, it will just end in an error.
+        if (officialLastName == null || officialLastName.trim().equals("")) {
+            return false;
+        }
+        String officialFirstName = userPropertyDAO.getStringValue(providerNo, UserProperty.OFFICIAL_FIRST_NAME);
+        String officialSecondName = userPropertyDAO.getStringValue(providerNo, UserProperty.OFFICIAL_SECOND_NAME);
+        String officialIdType = userPropertyDAO.getStringValue(providerNo, UserProperty.OFFICIAL_OLIS_IDTYPE);
+
+        if (loggedInInfo == null) {
+            // polling on behalf of the provider
+            loggedInInfo = LoggedInInfo.getLoggedInInfoAsCurrentClassAndMethod();
+            loggedInInfo.setLoggedInProvider(provider);
+        }
+
+        return poll(loggedInInfo, providerNo, defaultStartTime, defaultEndTime, obr22 -> {
+            Z04Query providerQuery = new Z04Query();
+            providerQuery.setStartEndTimestamp(obr22);
+            providerQuery.setRequestingHic(new ZRP1(provider.getPractitionerNo(), StringUtils.trimToEmpty(officialIdType), "ON", "HL70347",
+                    StringUtils.trimToEmpty(officialLastName), StringUtils.trimToEmpty(officialFirstName), StringUtils.trimToEmpty(officialSecondName)));
+            return providerQuery;
+        });
+    }
+
+    /**
+     * Polls OLIS for the results ordered by a facility (Z06).
+     *
+     * @param loggedInInfo LoggedInInfo the user the poll runs as, null for the system
+     * @param facilityId String the facility's OID
+     * @return boolean true if OLIS answered and the results were imported
+     */
+    public boolean pollFacility(LoggedInInfo loggedInInfo, String facilityId, String defaultStartTime, String defaultEndTime) throws Exception {
+        if (loggedInInfo == null) {
+            loggedInInfo = LoggedInInfo.getLoggedInInfoAsCurrentClassAndMethod();
+        }
+        return poll(loggedInInfo, FACILITY_CURSOR_ID, defaultStartTime, defaultEndTime, obr22 -> {
+            Z06Query facilityQuery = new Z06Query();
+            facilityQuery.setStartEndTimestamp(obr22);
+            ORC21 orc21 = new ORC21();
+            orc21.setValue(6, 2, "^" + facilityId);
+            orc21.setValue(6, 3, "^ISO");
+            facilityQuery.setOrderingFacilityId(orc21);
+            return facilityQuery;
+        });
+    }
+
+    private interface QueryBuilder {
+        Query build(OBR22 startEndTimestamp) throws Exception;
+    }
+
+    private boolean poll(LoggedInInfo loggedInInfo, String cursorId, String defaultStartTime, String defaultEndTime, QueryBuilder queryBuilder) throws Exception {
+        Date pollTime = new Date();
+        OLISProviderPreferences cursor = olisProviderPreferencesDao.findById(cursorId);
+
+        // Creating OBR22 for this request.
+        OBR22 obr22 = new OBR22();
+        if (cursor != null) {
+            if (StringUtils.isEmpty(cursor.getStartTime())) {
+                cursor.setStartTime(defaultStartTime);
+            }
+            obr22.setValue(DateUtils.parseDate(cursor.getStartTime(), dateFormat));
+        } else {
+            if (StringUtils.isEmpty(defaultEndTime)) {
+                obr22.setValue(DateUtils.parseDate(defaultStartTime, dateFormat));
+            } else {
+                List<Date> dateList = new LinkedList<Date>();
+                dateList.add(DateUtils.parseDate(defaultStartTime, dateFormat));
+                dateList.add(DateUtils.parseDate(defaultEndTime, dateFormat));
+                obr22.setValue(dateList);
+            }
+
+            cursor = new OLISProviderPreferences();
+            cursor.setProviderId(cursorId);
+        }
+
+        String response = submit(loggedInInfo, cursorId, queryBuilder.build(obr22));
+        if (response == null) {
+            return false;
+        }
+
+        String timeStampForNextStartDate;
+        synchronized (importLock) {
+            timeStampForNextStartDate = importer.importResponse(loggedInInfo, response);
+        }
+        logger.info("OLIS poll for " + cursorId + ", next start time " + timeStampForNextStartDate);
+
+        if (timeStampForNextStartDate != null) {
+            cursor.setStartTime(timeStampForNextStartDate);
+        }
+        cursor.setLastRun(pollTime);
+        if (cursor.getId() != null) {
+            olisProviderPreferencesDao.merge(cursor);
+        } else {
+            olisProviderPreferencesDao.persist(cursor);
+        }
+        return true;
+    }
+
+    /**
+     * @return String the OLIS response, or null if there was none after the configured attempts
+     */
+    private String submit(LoggedInInfo loggedInInfo, String cursorId, Query query) throws InterruptedException {
+        long delay = backoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            String response = null;
+            try {
+                response = gateway.submitQuery(loggedInInfo, query);
+            } catch (Exception e) {
+                logger.warn("OLIS query for " + cursorId + " failed, attempt " + attempt + " of " + maxAttempts, e);
+            }
+            if (response != null && response.startsWith("<Response")) {
+                return response;
+            }
+            if (attempt >= maxAttempts) {
+                logger.error("No OLIS response for " + cursorId + " after " + attempt + " attempts, last response " + response);
+                return null;
+            }
+            Thread.sleep(delay);
+            delay *= 2;
+        }
+    }
+}
@@ -28,21 +28,15 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
-import java.util.Date;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.UUID;
 
 import ca.openosp.Misc;
 import ca.openosp.openo.lab.ca.all.upload.HandlerClassFactory;
 import ca.openosp.openo.lab.ca.all.upload.handlers.MessageHandler;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.impl.cookie.DateUtils;
 import org.apache.logging.log4j.Logger;
 import ca.openosp.openo.PMmodule.dao.ProviderDao;
-import ca.openosp.openo.commn.dao.UserPropertyDAO;
 import ca.openosp.openo.commn.model.Provider;
-import ca.openosp.openo.commn.model.UserProperty;
 import ca.openosp.openo.olis.dao.OLISProviderPreferencesDao;
 import ca.openosp.openo.olis.dao.OLISSystemPreferencesDao;
 import ca.openosp.openo.olis.model.OLISProviderPreferences;
@@ -55,13 +49,6 @@ import ca.openosp.OscarProperties;
 import ca.openosp.openo.lab.FileUploadCheck;
 import ca.openosp.openo.lab.ca.all.util.Utilities;
 
-import ca.openosp.openo.olis1.Driver;
-import ca.openosp.openo.olis1.parameters.OBR22;
-import ca.openosp.openo.olis1.parameters.ORC21;
-import ca.openosp.openo.olis1.parameters.ZRP1;
-import ca.openosp.openo.olis1.queries.Z04Query;
-import ca.openosp.openo.olis1.queries.Z06Query;
-
 public class OLISPollingUtil {
 
     private static final Logger logger = MiscUtils.getLogger();
@@ -69,37 +56,34 @@ public class OLISPollingUtil {
     static ProviderDao providerDao = SpringUtils.getBean(ProviderDao.class);
     static OLISSystemPreferencesDao olisSystemPreferencesDao = SpringUtils.getBean(OLISSystemPreferencesDao.class);
     static OLISProviderPreferencesDao olisProviderPreferencesDao = SpringUtils.getBean(OLISProviderPreferencesDao.class);
-    static UserPropertyDAO userPropertyDAO = SpringUtils.getBean(UserPropertyDAO.class);
-    static String[] dateFormat = new String[]{"yyyyMMddHHmmssZ"};
 
     public OLISPollingUtil() {
         super();
     }
 
+    private static OLISPollingEngine engine;
+
+    static synchronized OLISPollingEngine getEngine() {
+        if (engine == null) {
+            engine = new OLISPollingEngine();
+        }
+        return engine;
+    }
+
     public static void requestResults(LoggedInInfo loggedInInfo) {
         OLISSystemPreferences olisSystemPreferences = olisSystemPreferencesDao.getPreferences();
         String defaultStartTime = Misc.getStr(olisSystemPreferences.getStartTime(), "").trim();
         String defaultEndTime = Misc.getStr(olisSystemPreferences.getEndTime(), "").trim();
 
-        pollZ04Query(loggedInInfo, defaultStartTime, defaultEndTime);
+        getEngine().pollProviders(loggedInInfo, defaultStartTime, defaultEndTime);
 
         String facilityId = OscarProperties.getInstance().getProperty("olis_polling_facility"); //Most of the time this will default to null.
         if (facilityId != null) {
-            pollZ06Query(loggedInInfo, defaultStartTime, defaultEndTime, facilityId);
-        }
-    }
-
-    private static void updateProviderLastRun(String providerNo) {
-        OLISProviderPreferences olisProviderPreferences = olisProviderPreferencesDao.findById(providerNo);
-        if (olisProviderPreferences == null) {
-            olisProviderPreferences = new OLISProviderPreferences();
-            olisProviderPreferences.setProviderId(providerNo);
-            olisProviderPreferences.setLastRun(new Date());
-            olisProviderPreferences.setStartTime("");
-            olisProviderPreferencesDao.persist(olisProviderPreferences);
-        } else {
-            olisProviderPreferences.setLastRun(new Date());
-            olisProviderPreferencesDao.merge(olisProviderPreferences);
+            try {
+                getEngine().pollFacility(loggedInInfo, facilityId, defaultStartTime, defaultEndTime);
+            } catch (Exception e) {
+                logger.error("Error polling OLIS for facility", e);
+            }
         }
     }
 
@@ -121,195 +105,15 @@ public class OLISPollingUtil {
 
         logger.info("Z04 Polling: startDateTime = " + defaultStartTime + ", endDateTime=" + defaultEndTime);
 
-        updateProviderLastRun(providerNo);
-
-        pollZ04Query(loggedInInfo, providerNo, defaultStartTime, defaultEndTime);
-    }
-
-    private static void pollZ04Query(LoggedInInfo loggedInInfo, String providerNo, String defaultStartTime, String defaultEndTime) {
-        OLISProviderPreferences olisProviderPreferences = olisProviderPreferencesDao.findById(providerNo);
         Provider provider = providerDao.getProvider(providerNo);
         if (provider == null) return;
 
-        String officialLastName = userPropertyDAO.getStringValue(provider.getProviderNo(), UserProperty.OFFICIAL_LAST_NAME);
-        String officialfirstName = userPropertyDAO.getStringValue(provider.getProviderNo(), UserProperty.OFFICIAL_FIRST_NAME);
-        String officialSecondName = userPropertyDAO.getStringValue(provider.getProviderNo(), UserProperty.OFFICIAL_SECOND_NAME);
-        String officialIdType = userPropertyDAO.getStringValue(provider.getProviderNo(), UserProperty.OFFICIAL_OLIS_IDTYPE);
-
-        if (officialLastName == null || officialLastName.trim().equals("")) {
-            logger.info("No official name..aborting");
-            return;
-        }
-
-        Z04Query providerQuery = new Z04Query();
-
-
-        try {
-            OBR22 obr22 = new OBR22();
-            List<Date> dateList = new LinkedList<Date>();
-            if (olisProviderPreferences != null) {
-                if (StringUtils.isEmpty(olisProviderPreferences.getStartTime())) {
-                    olisProviderPreferences.setStartTime(defaultStartTime);
-                }
-                obr22.setValue(DateUtils.parseDate(olisProviderPreferences.getStartTime(), dateFormat));
-            } else {
-                if (defaultEndTime.equals("")) {
-                    obr22.setValue(DateUtils.parseDate(defaultStartTime, dateFormat));
-                } else {
-                    dateList.add(DateUtils.parseDate(defaultStartTime, dateFormat));
-                    dateList.add(DateUtils.parseDate(defaultEndTime, dateFormat));
-                    obr22.setValue(dateList);
-                }
-
-                olisProviderPreferences = new OLISProviderPreferences();
-                olisProviderPreferences.setProviderId(provider.getProviderNo());
-            }
-            providerQuery.setStartEndTimestamp(obr22);
-
-            ZRP1 zrp1 = new ZRP1(provider.getPractitionerNo(), StringUtils.trimToEmpty(officialIdType), "ON", "HL70347", StringUtils.trimToEmpty(officialLastName), StringUtils.trimToEmpty(officialfirstName), StringUtils.trimToEmpty(officialSecondName));
-            providerQuery.setRequestingHic(zrp1);
-
-            String response = Driver.submitOLISQuery(loggedInInfo, null, providerQuery);
-
-            if (!response.startsWith("<Response")) {
-                logger.error("response does not match, aborting " + response);
-                return;
-            }
-            String timeStampForNextStartDate = OLISPollingUtil.parseAndImportResponse(loggedInInfo, response);
-            logger.info("timeSlot " + timeStampForNextStartDate);
-
-            if (timeStampForNextStartDate != null) {
-                olisProviderPreferences.setStartTime(timeStampForNextStartDate);
-            }
-
-            if (olisProviderPreferences.getId() != null) {
-                olisProviderPreferencesDao.merge(olisProviderPreferences);
-            } else {
-                olisProviderPreferencesDao.persist(olisProviderPreferences);
-            }
-        } catch (Exception e) {
-            logger.error("Error polling OLIS for providers " + provider.getProviderNo(), e);
-        }
-
-    }
-
-    private static void pollZ04Query(LoggedInInfo loggedInInfo, String defaultStartTime, String defaultEndTime) {
-        //Z04Query providerQuery;
-        List<Provider> allProvidersList = providerDao.getActiveProviders();
-        UserPropertyDAO userPropertyDAO = (UserPropertyDAO) SpringUtils.getBean(UserPropertyDAO.class);
-        for (Provider provider : allProvidersList) {
-            try {
-                String officialLastName = userPropertyDAO.getStringValue(provider.getProviderNo(), UserProperty.OFFICIAL_LAST_NAME);
-                String officialfirstName = userPropertyDAO.getStringValue(provider.getProviderNo(), UserProperty.OFFICIAL_FIRST_NAME);
-                String officialSecondName = userPropertyDAO.getStringValue(provider.getProviderNo(), UserProperty.OFFICIAL_SECOND_NAME);
-
-                //There is no need to query for users without this configured, it will just end in an error.
-                if (officialLastName == null || officialLastName.trim().equals("")) {
-                    continue;
-                }
-
-                Z04Query providerQuery = new Z04Query();
-                OLISProviderPreferences olisProviderPreferences = olisProviderPreferencesDao.findById(provider.getProviderNo());
-
-                // Creating OBR22 for this request.
-                OBR22 obr22 = new OBR22();
-                List<Date> dateList = new LinkedList<Date>();
-                if (olisProviderPreferences != null) {
-                    if (olisProviderPreferences.getStartTime() == null) {
-                        olisProviderPreferences.setStartTime(defaultStartTime);
-                    }
-                    obr22.setValue(DateUtils.parseDate(olisProviderPreferences.getStartTime(), dateFormat));
-                } else {
-                    if (defaultEndTime.equals("")) {
-                        obr22.setValue(DateUtils.parseDate(defaultStartTime, dateFormat));
-                    } else {
-                        dateList.add(DateUtils.parseDate(defaultStartTime, dateFormat));
-                        dateList.add(DateUtils.parseDate(defaultEndTime, dateFormat));
-                        obr22.setValue(dateList);
-                    }
-
-                    olisProviderPreferences = new OLISProviderPreferences();
-                    olisProviderPreferences.setProviderId(provider.getProviderNo());
-                }
-                providerQuery.setStartEndTimestamp(obr22);
-
-                // Setting HIC for Z04 Request
-                ZRP1 zrp1 = new ZRP1(provider.getPractitionerNo(), userPropertyDAO.getStringValue(provider.getProviderNo(), UserProperty.OFFICIAL_OLIS_IDTYPE), "ON", "HL70347", officialLastName, officialfirstName, officialSecondName);
-                providerQuery.setRequestingHic(zrp1);
-                String response = Driver.submitOLISQuery(loggedInInfo, null, providerQuery);
-
-                if (!response.startsWith("<Response")) {
-                    logger.error("response does not match, aborting " + response);
-                    continue;
-                }
-                String timeStampForNextStartDate = OLISPollingUtil.parseAndImportResponse(loggedInInfo, response);
-                logger.info("timeSlot " + timeStampForNextStartDate);
-
-                if (timeStampForNextStartDate != null) {
-                    olisProviderPreferences.setStartTime(timeStampForNextStartDate);
-                }
-
-                if (olisProviderPreferences.getId() != null) {
-                    olisProviderPreferencesDao.merge(olisProviderPreferences);
-                } else {
-                    olisProviderPreferencesDao.persist(olisProviderPreferences);
-                }
-            } catch (Exception e) {
-                logger.error("Error polling OLIS for providers " + provider.getProviderNo(), e);
-            }
-        }
-    }
-
-    private static void pollZ06Query(LoggedInInfo loggedInInfo, String defaultStartTime, String defaultEndTime, String facilityId) {
         try {
-            Z06Query facilityQuery = new Z06Query();
-            OLISProviderPreferences olisProviderPreferences = olisProviderPreferencesDao.findById("-1");
-            // Creating OBR22 for this request.
-            OBR22 obr22 = new OBR22();
-            List<Date> dateList = new LinkedList<Date>();
-            if (olisProviderPreferences != null) {
-                if (olisProviderPreferences.getStartTime() == null) {
-                    olisProviderPreferences.setStartTime(defaultStartTime);
-                }
-                obr22.setValue(DateUtils.parseDate(olisProviderPreferences.getStartTime(), dateFormat));
-            } else {
-                if (defaultEndTime.equals("")) {
-                    obr22.setValue(DateUtils.parseDate(defaultStartTime, dateFormat));
-                } else {
-                    dateList.add(DateUtils.parseDate(defaultStartTime, dateFormat));
-                    dateList.add(DateUtils.parseDate(defaultEndTime, dateFormat));
-                    obr22.setValue(dateList);
-                }
-
-                olisProviderPreferences = new OLISProviderPreferences();
-                olisProviderPreferences.setProviderId("-1");
-            }
-            facilityQuery.setStartEndTimestamp(obr22);
-            ORC21 orc21 = new ORC21();
-            orc21.setValue(6, 2, "^" + facilityId);
-            orc21.setValue(6, 3, "^ISO");
-            facilityQuery.setOrderingFacilityId(orc21);
-
-            String response = Driver.submitOLISQuery(loggedInInfo, null, facilityQuery);
-
-            if (!response.startsWith("<Response")) {
-                logger.debug("Didn't equal response.  Returning " + response);
-                return;
-            }
-
-            String timeStampForNextStartDate = OLISPollingUtil.parseAndImportResponse(loggedInInfo, response);
-
-            if (timeStampForNextStartDate != null) {
-                olisProviderPreferences.setStartTime(timeStampForNextStartDate);
-            }
-
-            if (olisProviderPreferences.getId() != null) {
-                olisProviderPreferencesDao.merge(olisProviderPreferences);
-            } else {
-                olisProviderPreferencesDao.persist(olisProviderPreferences);
+            if (!getEngine().pollProvider(loggedInInfo, provider, defaultStartTime, defaultEndTime)) {
+                logger.info("No OLIS results polled for provider " + providerNo);
             }
         } catch (Exception e) {
-            logger.error("Error polling OLIS for facility", e);
+            logger.error("Error polling OLIS for providers " + providerNo, e);
         }
     }
 
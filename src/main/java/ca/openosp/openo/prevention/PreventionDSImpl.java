@@ -32,19 +32,20 @@ package ca.openosp.openo.prevention;
 //import java.io.ByteArrayInputStream;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 import javax.annotation.PostConstruct;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Logger;
 import org.drools.RuleBase;
 import org.drools.WorkingMemory;
-import org.drools.io.RuleBaseLoader;
 import ca.openosp.openo.commn.dao.ResourceStorageDao;
 import ca.openosp.openo.commn.model.ResourceStorage;
 import ca.openosp.openo.decisionSupport.prevention.DSPreventionDrools;
+import ca.openosp.openo.drools.RuleBaseCompiler;
 import ca.openosp.openo.utility.MiscUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -57,8 +58,13 @@ import ca.openosp.OscarProperties;
 @Component
 public class PreventionDSImpl implements PreventionDS {
     private static Logger log = MiscUtils.getLogger();
-    static boolean loaded = false;
-    static RuleBase ruleBase = null;
+
+    /**
+     * Name the prevention rules are registered under with {@link RuleBaseCompiler}.
+     */
+    public static final String RULE_SET_NAME = "prevention";
+
+    private static final String DEFAULT_RULE_SET = "/oscar/oscarPrevention/prevention.drl";  //TODO: change this so it is configurable;
 
     @Autowired
     private ResourceStorageDao resourceStorageDao;// = SpringUtils.getBean(ResourceStorageDao.class);
@@ -68,71 +74,71 @@ public class PreventionDSImpl implements PreventionDS {
     }
 
     public void reloadRuleBase() {
-        loadRuleBase();
+        try {
+            RuleBaseCompiler.refresh(RULE_SET_NAME);
+        } catch (Exception e) {
+            MiscUtils.getLogger().error("Error loading preventions", e);
+        }
     }
 
+    /**
+     * Registers the prevention rules, they are compiled with the other rule sets once the application
+     * has started (or on first use) and recompiled in the background when the source changes.
+     */
     @PostConstruct
-    private void loadRuleBase() {
-        try {
-            boolean fileFound = false;
-            String preventionPath = OscarProperties.getInstance().getProperty("PREVENTION_FILE");
-
-            if (preventionPath != null) {
-                File file = new File(OscarProperties.getInstance().getProperty("PREVENTION_FILE"));
-                if (file.isFile() || file.canRead()) {
-                    log.debug("Loading from file " + file.getName());
-
-                    FileInputStream fis = new FileInputStream(file);
-                    try {
-                        ruleBase = RuleBaseLoader.loadFromInputStream(fis);
-                    } catch (Exception e) {
-                        MiscUtils.getLogger().error("Error loading preventions", e);
-                    } finally {
-                        IOUtils.closeQuietly(fis);
-                    }
-
-                    fileFound = true;
-                }
-
-                if (!fileFound && preventionPath.startsWith("classpath:")) {
-                    URL url = PreventionDS.class.getResource(preventionPath.substring(10));
-                    log.debug("loading from URL " + url.getFile());
-                    ruleBase = RuleBaseLoader.loadFromUrl(url);
-                }
-            }
+    private void registerRuleBase() {
+        RuleBaseCompiler.register(RULE_SET_NAME, this::readRuleSet);
+    }
 
-            if (!fileFound) {
-                ResourceStorage resourceStorage = resourceStorageDao.findActive(ResourceStorage.PREVENTION_RULES);
-                if (resourceStorage != null) {
-                    try {
-                        ruleBase = DSPreventionDrools.createRuleBase(resourceStorage.getFileContents());
-                        log.info("Loading prevention rule base from " + resourceStorage.getResourceName());
-                        fileFound = true;
-                    } catch (Exception resourceError) {
-                        log.error("ERROR LOADING from resource Storage", resourceError);
-                    }
-                }
+    /**
+     * Reads the prevention rules from PREVENTION_FILE, the uploaded rules in resource storage or
+     * the rules shipped with the application, in that order.
+     */
+    private byte[] readRuleSet() throws Exception {
+        String preventionPath = OscarProperties.getInstance().getProperty("PREVENTION_FILE");
+
+        if (preventionPath != null) {
+            File file = new File(preventionPath);
+            if (file.isFile() || file.canRead()) {
+                log.debug("Loading from file " + file.getName());
+                return FileUtils.readFileToByteArray(file);
+            }
 
+            if (preventionPath.startsWith("classpath:")) {
+                URL url = PreventionDS.class.getResource(preventionPath.substring(10));
+                log.debug("loading from URL " + url.getFile());
+                return IOUtils.toByteArray(url);
+            }
+        }
 
-                // check if table has new preventions DRL
+        // check if table has new preventions DRL
+        ResourceStorage resourceStorage = resourceStorageDao.findActive(ResourceStorage.PREVENTION_RULES);
+        if (resourceStorage != null) {
+            try {
+                String ruleSet = DSPreventionDrools.createRuleSetXml(resourceStorage.getFileContents());
+                log.debug("Loading prevention rule base from " + resourceStorage.getResourceName());
+                return ruleSet.getBytes(StandardCharsets.UTF_8);
+            } catch (Exception resourceError) {
+                log.error("ERROR LOADING from resource Storage", resourceError);
             }
+        }
 
+        return IOUtils.toByteArray(PreventionDS.class.getResource(DEFAULT_RULE_SET));
+    }
 
-            if (!fileFound) {
-                URL url = PreventionDS.class.getResource("/oscar/oscarPrevention/prevention.drl");  //TODO: change this so it is configurable;
-                log.debug("loading from URL " + url.getFile());
-                ruleBase = RuleBaseLoader.loadFromUrl(url);
-            }
+    private RuleBase getRuleBase() throws Exception {
+        try {
+            return RuleBaseCompiler.getRuleBase(RULE_SET_NAME);
         } catch (Exception e) {
-            MiscUtils.getLogger().error("Error", e);
+            log.error("Error loading preventions, using the default rules", e);
+            return RuleBaseCompiler.compile(PreventionDS.class.getResource(DEFAULT_RULE_SET));
         }
-        loaded = true;
     }
 
 
     public Prevention getMessages(Prevention p) throws Exception {
         try {
-            WorkingMemory workingMemory = ruleBase.newWorkingMemory();
+            WorkingMemory workingMemory = getRuleBase().newWorkingMemory();
             workingMemory.assertObject(p);
             workingMemory.fireAllRules();
         } catch (Exception e) {
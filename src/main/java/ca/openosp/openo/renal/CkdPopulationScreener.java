@@ -0,0 +1,126 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.renal;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.Logger;
+
+import ca.openosp.openo.commn.model.Dxresearch;
+import ca.openosp.openo.screening.PopulationScreener;
+import ca.openosp.openo.utility.LoggedInInfo;
+import ca.openosp.openo.utility.MiscUtils;
+
+/**
+ * Screens the active patients for chronic kidney disease.
+ * <p>
+ * A patient who matches is tagged with an OscarCode:CKDSCREEN dx entry the first time and the notification is
+ * sent. A CKDSCREEN entry that hasn't been updated in a year is reopened, whether or not the patient still
+ * matches, and the notification is sent again if they do.
+ */
+class CkdPopulationScreener implements PopulationScreener<CkdScreener.Facts, CkdPopulationScreener.Result> {
+
+    private Logger logger = MiscUtils.getLogger();
+
+    private final CkdScreener screener;
+
+    CkdPopulationScreener(CkdScreener screener) {
+        this.screener = screener;
+    }
+
+    @Override
+    public String getName() {
+        return "ckd";
+    }
+
+    @Override
+    public List<Integer> getCohort() {
+        return screener.getActiveDemographicIds();
+    }
+
+    @Override
+    public CkdScreener.Facts prefetch(List<Integer> demographicNos) {
+        return screener.loadFacts(demographicNos);
+    }
+
+    @Override
+    public Result screen(Integer demographicNo, CkdScreener.Facts facts) {
+        List<String> reasons = new ArrayList<String>();
+        boolean isMatch = screener.matches(demographicNo, facts, reasons);
+        logger.debug("demographicNo " + demographicNo + " isMatch=" + isMatch);
+
+        Dxresearch latest = facts.getLatestScreening(demographicNo);
+        Calendar aYearAgo = Calendar.getInstance();
+        aYearAgo.add(Calendar.MONTH, -12);
+        boolean stale = latest != null && latest.getUpdateDate() != null && latest.getUpdateDate().before(aYearAgo.getTime());
+
+        if (!isMatch && !stale) {
+            return null;
+        }
+        return new Result(isMatch, reasons, latest, stale);
+    }
+
+    @Override
+    public void record(LoggedInInfo loggedInInfo, Map<Integer, Result> results) {
+        for (Map.Entry<Integer, Result> entry : results.entrySet()) {
+            Result result = entry.getValue();
+            if (result == null) continue;
+
+            boolean notify = false;
+            if (result.latest == null) {
+                //tag patient w/ screening
+                screener.tagScreened(entry.getKey());
+                notify = true;
+            } else if (result.stale) {
+                //reopen it
+                screener.reopenScreening(result.latest);
+                notify = true;
+            }
+
+            if (result.isMatch && notify) {
+                logger.debug("generating notification");
+                CkdNotificationManager notificationMgr = new CkdNotificationManager();
+                notificationMgr.doNotify(loggedInInfo, entry.getKey(), result.reasons);
+            }
+        }
+    }
+
+    static class Result {
+        private final boolean isMatch;
+        private final List<String> reasons;
+        private final Dxresearch latest;
+        private final boolean stale;
+
+        Result(boolean isMatch, List<String> reasons, Dxresearch latest, boolean stale) {
+            this.isMatch = isMatch;
+            this.reasons = reasons;
+            this.latest = latest;
+            this.stale = stale;
+        }
+    }
+}
@@ -37,9 +37,11 @@ import ca.openosp.openo.utility.SpringUtils;
 import ca.openosp.openo.ckd.CKDConfig;
 import ca.openosp.openo.ckd.CkdConfigDocument;
 import ca.openosp.openo.ckd.DxCodes.Code;
+import ca.openosp.openo.screening.PopulationScreeningEngine;
 import ca.openosp.OscarProperties;
 
 import java.util.*;
+import java.util.regex.Pattern;
 
 public class CkdScreener {
 
@@ -54,7 +56,10 @@ public class CkdScreener {
     private DemographicDao demographicDao = SpringUtils.getBean(DemographicDao.class);
     private DrugDao drugDao = SpringUtils.getBean(DrugDao.class);
 
+    private static final int DEMOGRAPHIC_CHUNK_SIZE = 500;
+
     private CKDConfig config = null;
+    private Pattern cppSearchText;
     private Map<String, Boolean> excludeMap = new HashMap<String, Boolean>();
 
     List<Issue> issues = new ArrayList<Issue>();
@@ -108,6 +113,14 @@ public class CkdScreener {
             throw new RuntimeException("Unable to load CKD configuration file.");
         }
 
+        StringBuilder exp = new StringBuilder();
+        for (int x = 0; x < config.getHx().getSearchtext().getTextArray().length; x++) {
+            if (exp.length() > 0)
+                exp.append("|");
+            exp.append("(?i)" + config.getHx().getSearchtext().getTextArray(x));
+        }
+        cppSearchText = Pattern.compile(exp.toString());
+
         for (String issueStr : config.getHx().getIssues().getIssueArray()) {
             issues.add(issueDao.findIssueByCode(issueStr));
         }
@@ -119,69 +132,99 @@ public class CkdScreener {
         }
     }
 
+    /**
+     * Screens the active patients, see {@link CkdPopulationScreener} for what is recorded.
+     */
     public void screenPopulation(LoggedInInfo loggedInInfo) {
         logger.debug("beginning screening");
         //TODO: only ones which havn't been screened, or don't have have active dx for screening
-        List<Integer> demographicNos = demographicDao.getActiveDemographicIds();
-        for (Integer demographicNo : demographicNos) {
-            List<String> reasons = new ArrayList<String>();
-            MyBoolean first = new MyBoolean();
-            first.setValue(false);
-            boolean isMatch = screenDemographic(demographicNo, reasons, first);
-            logger.debug("demographicNo " + demographicNo + " isMatch=" + isMatch);
-
-            boolean notify = false;
-
-
-            if (!notify) {
-                //there's no active ones, but let's look at the latest one
-                List<Dxresearch> drs = dxResearchDao.find(demographicNo, "OscarCode", "CKDSCREEN");
-                if (drs.size() > 0) {
-                    Dxresearch dr = drs.get(0);
-                    Calendar aYearAgo = Calendar.getInstance();
-                    aYearAgo.add(Calendar.MONTH, -12);
-                    if (dr.getUpdateDate().before(aYearAgo.getTime())) {
-                        notify = true;
-                        //reopen it
-                        dr.setStatus('A');
-                        dr.setUpdateDate(new Date());
-                        dxResearchDao.merge(dr);
-                    }
-                }
-            }
+        new PopulationScreeningEngine().run(loggedInInfo, new CkdPopulationScreener(this));
+    }
+
+    public boolean screenDemographic(int demographicNo, List<String> reasons, MyBoolean first) {
+        Facts facts = loadFacts(Collections.singletonList(demographicNo));
+        if (!matches(demographicNo, facts, reasons))
+            return false;
 
-            if (first.getValue().booleanValue() == true) {
-                notify = true;
+        //has patient been matched before?
+        if (facts.getLatestScreening(demographicNo) == null) {
+            //tag patient w/ screening
+            if (first != null)
+                first.setValue(true);
+            tagScreened(demographicNo);
+        }
+        return true;
+    }
+
+    /**
+     * Reads everything the screening rules look at for the given patients, a handful of queries for the lot
+     * rather than a dozen per patient. The case management notes are the exception, {@link #checkCpp(int)} still
+     * reads them patient by patient.
+     */
+    public Facts loadFacts(List<Integer> demographicNos) {
+        Facts facts = new Facts();
+
+        for (int i = 0; i < demographicNos.size(); i += DEMOGRAPHIC_CHUNK_SIZE) {
+            for (Demographic demographic : demographicDao.getDemographics(demographicNos.subList(i, Math.min(i + DEMOGRAPHIC_CHUNK_SIZE, demographicNos.size())))) {
+                facts.providerNos.put(demographic.getDemographicNo(), demographic.getProviderNo());
             }
+        }
 
-            if (isMatch && notify) {
-                //notification stuff
-                boolean generateNotification = true;
+        for (Dxresearch dx : dxResearchDao.findByDemographicNos(demographicNos)) {
+            facts.dxs.computeIfAbsent(dx.getDemographicNo(), k -> new ArrayList<Dxresearch>()).add(dx);
+        }
 
-                if (generateNotification) {
-                    logger.debug("generating notification");
-                    CkdNotificationManager notificationMgr = new CkdNotificationManager();
-                    notificationMgr.doNotify(loggedInInfo, demographicNo, reasons);
+        if ("ON".equals(OscarProperties.getInstance().getProperty("bill_region"))) {
+            List<String> dxCodes = new ArrayList<String>();
+            for (Code code : config.getDxCodes().getCodeArray()) {
+                dxCodes.add(code.getStringValue());
+            }
+            for (Object[] row : billingDao.findDxCodesByDemographicNos(demographicNos, dxCodes)) {
+                Set<String> billed = facts.billedDxCodes.computeIfAbsent((Integer) row[0], k -> new HashSet<String>());
+                for (int x = 1; x < row.length; x++) {
+                    if (row[x] != null) billed.add(((String) row[x]).trim().toUpperCase());
                 }
             }
+        }
 
+        for (Drug d : drugDao.findByDemographicIdsAndAtc(demographicNos, true, getInterestingATCs())) {
+            if (!d.isDeleted()) {
+                facts.onInterestingMedication.add(d.getDemographicId());
+            }
+        }
+
+        for (Measurement m : measurementDao.findByDemographicIdsAndType(demographicNos, "BP")) {
+            facts.bps.computeIfAbsent(m.getDemographicId(), k -> new ArrayList<Measurement>()).add(m);
+        }
+        for (Measurement m : measurementDao.findByDemographicIdsAndType(demographicNos, "EGFR")) {
+            facts.egfrs.computeIfAbsent(m.getDemographicId(), k -> new ArrayList<Measurement>()).add(m);
         }
 
+        for (DemographicExt ext : demographicExtDao.getDemographicExts(demographicNos, "aboriginal")) {
+            facts.aboriginal.putIfAbsent(ext.getDemographicNo(), ext);
+        }
+
+        return facts;
     }
 
-    public boolean screenDemographic(int demographicNo, List<String> reasons, MyBoolean first) {
+    /**
+     * Applies the screening rules to a patient, nothing is written.
+     *
+     * @param reasons the reasons the patient matched are added to it
+     */
+    public boolean matches(int demographicNo, Facts facts, List<String> reasons) {
 
         logger.debug("checking demographic " + demographicNo);
 
-        Demographic demographic = demographicDao.getDemographicById(demographicNo);
-        if (demographic != null && demographic.getProviderNo() != null && demographic.getProviderNo().length() > 0) {
-            if (excludeMap.get(demographic.getProviderNo()) != null) {
+        String providerNo = facts.providerNos.get(demographicNo);
+        if (providerNo != null && providerNo.length() > 0) {
+            if (excludeMap.get(providerNo) != null) {
                 logger.debug("skipping " + demographicNo + " - providers has opted out");
                 return false;
             }
         }
 
-        if (hasActiveDxCode(demographicNo, "icd9", "585")) {
+        if (facts.hasActiveDxCode(demographicNo, "icd9", "585")) {
             logger.debug("skipping " + demographicNo + " - already dx'ed with Chronic Renal Failure");
             return false;
         }
@@ -192,8 +235,8 @@ public class CkdScreener {
             String type = code.getType().toString();
             String value = code.getStringValue();
 
-            boolean tmp = hasActiveDxCode(demographicNo, type, value);
-            boolean tmp2 = hasBilledDxCode(demographicNo, type, value);
+            boolean tmp = facts.hasActiveDxCode(demographicNo, type, value);
+            boolean tmp2 = facts.hasBilledDxCode(demographicNo, value);
             if (tmp || tmp2) {
                 reasons.add("Patient diagnosted with (" + type + ":" + value + ") " + code.getName());
                 positiveDxMatch = true;
@@ -203,7 +246,7 @@ public class CkdScreener {
         logger.debug("positiveDxMatch:" + positiveDxMatch);
 
 
-        boolean positiveDrugMatch = checkMedication(demographicNo);
+        boolean positiveDrugMatch = facts.onInterestingMedication.contains(demographicNo);
         if (positiveDrugMatch) {
             reasons.add("Patient currently taking medications associated with Hypertension");
         }
@@ -215,7 +258,7 @@ public class CkdScreener {
         int sys = Integer.parseInt(config.getBp().getSystolic());
         int dia = Integer.parseInt(config.getBp().getDiastolic());
 
-        boolean positiveBP = this.checkBP(demographicNo);
+        boolean positiveBP = checkBP(facts.getMeasurements(facts.bps, demographicNo));
         logger.debug("BP match:" + positiveBP);
         if (positiveBP)
             reasons.add(">50% of blood pressure readings over " + sys + "/" + dia);
@@ -227,7 +270,7 @@ public class CkdScreener {
             reasons.add("Family Hx");
 
         boolean positiveAboriginalMatch = false;
-        DemographicExt ab = demographicExtDao.getLatestDemographicExt(demographicNo, "aboriginal");
+        DemographicExt ab = facts.aboriginal.get(demographicNo);
         if (ab != null && "Yes".equalsIgnoreCase(ab.getValue())) {
             positiveAboriginalMatch = true;
         }
@@ -235,7 +278,7 @@ public class CkdScreener {
         if (positiveAboriginalMatch)
             reasons.add("Aboriginal descent");
 
-        boolean labs = checkLabs(demographicNo);
+        boolean labs = checkLabs(facts.getMeasurements(facts.egfrs, demographicNo));
         logger.debug("labs match:" + labs);
         if (labs)
             reasons.add("Overdue EGFR Labs (>12 months)");
@@ -248,49 +291,41 @@ public class CkdScreener {
 
         logger.debug("patient match:" + isMatch);
 
+        return isMatch;
+    }
 
-        if (!isMatch)
-            return false;
+    void tagScreened(Integer demographicNo) {
+        Dxresearch dr = new Dxresearch();
+        dr.setCodingSystem("OscarCode");
+        dr.setDxresearchCode("CKDSCREEN");
+        dr.setDemographicNo(demographicNo);
+        dr.setStartDate(new java.util.Date());
+        dr.setUpdateDate(new java.util.Date());
+        dr.setStatus('A');
+        dxResearchDao.persist(dr);
+    }
 
-        //has patient been matched before?
-        List<Dxresearch> dxs = dxResearchDao.find(demographicNo, "OscarCode", "CKDSCREEN");
-        if (dxs.isEmpty()) {
-            //tag patient w/ screening
-            if (first != null)
-                first.setValue(true);
-            Dxresearch dr = new Dxresearch();
-            dr.setCodingSystem("OscarCode");
-            dr.setDxresearchCode("CKDSCREEN");
-            dr.setDemographicNo(demographicNo);
-            dr.setStartDate(new java.util.Date());
-            dr.setUpdateDate(new java.util.Date());
-            dr.setStatus('A');
-            dxResearchDao.persist(dr);
-        }
-        return true;
+    void reopenScreening(Dxresearch dr) {
+        dr.setStatus('A');
+        dr.setUpdateDate(new Date());
+        dxResearchDao.merge(dr);
     }
 
+    List<Integer> getActiveDemographicIds() {
+        return demographicDao.getActiveDemographicIds();
+    }
 
-    //////////////////////////////////////////////////////////////////////////////////////////////
 
-    private boolean hasActiveDxCode(Integer demographicNo, String codingSystem, String code) {
-        return dxResearchDao.activeEntryExists(demographicNo, codingSystem, code);
-    }
+    //////////////////////////////////////////////////////////////////////////////////////////////
 
-    private boolean hasBilledDxCode(Integer demographicNo, String codingSystem, String code) {
-        if ("ON".equals(OscarProperties.getInstance().getProperty("bill_region"))) {
-            return billingDao.getBillingItemByDxCode(demographicNo, code).size() > 0;
-        }
-        //BC not implemented - this done to avoid exception
-        return false;
+    protected boolean checkBP(int demographicNo) {
+        return checkBP(measurementDao.findByType(demographicNo, "BP"));
     }
 
-    protected boolean checkBP(int demographicNo) {
+    private boolean checkBP(List<Measurement> bps) {
         int sys = Integer.parseInt(config.getBp().getSystolic());
         int dia = Integer.parseInt(config.getBp().getDiastolic());
 
-        List<Measurement> bps = measurementDao.findByType(demographicNo, "BP");
-
         //need at least 2 measurements
         if (bps.size() < 2) {
             return false;
@@ -322,16 +357,7 @@ public class CkdScreener {
         for (Issue issue : issues) {
             List<CaseManagementNote> notes = caseManagementNoteDao.getCPPNotes(String.valueOf(demographicNo), issue.getId(), null);
             for (CaseManagementNote note : notes) {
-
-                StringBuilder exp = new StringBuilder();
-                for (int x = 0; x < config.getHx().getSearchtext().getTextArray().length; x++) {
-                    if (exp.length() > 0)
-                        exp.append("|");
-                    exp.append("(?i)" + config.getHx().getSearchtext().getTextArray(x));
-
-                }
-
-                if (note.getNote().matches(exp.toString())) {
+                if (note.getNote() != null && cppSearchText.matcher(note.getNote()).matches()) {
                     MiscUtils.getLogger().debug("match! - " + note.getNote());
                     result = true;
 
@@ -357,12 +383,15 @@ public class CkdScreener {
     }
 
     protected boolean checkLabs(int demographicNo) {
+        return checkLabs(measurementDao.findByType(demographicNo, "EGFR"));
+    }
+
+    private boolean checkLabs(List<Measurement> measures) {
         Calendar cal = Calendar.getInstance();
         cal.add(Calendar.YEAR, -1);
 
         boolean labs = false;
         //labs over a year
-        List<Measurement> measures = measurementDao.findByType(demographicNo, "EGFR");
         if (measures == null || measures.size() == 0 ||
                 (measures != null && measures.get(0) != null && measures.get(0).getDateObserved() != null && measures.get(0).getDateObserved().before(cal.getTime()))) {
             MiscUtils.getLogger().debug("Missing EGFR lab");
@@ -380,6 +409,50 @@ public class CkdScreener {
         return labs;
     }
 
+    /**
+     * What the screening rules need to know about a set of patients, see {@link #loadFacts(List)}.
+     */
+    public static class Facts {
+        private Map<Integer, String> providerNos = new HashMap<Integer, String>();
+        private Map<Integer, List<Dxresearch>> dxs = new HashMap<Integer, List<Dxresearch>>();
+        private Map<Integer, Set<String>> billedDxCodes = new HashMap<Integer, Set<String>>();
+        private Set<Integer> onInterestingMedication = new HashSet<Integer>();
+        private Map<Integer, List<Measurement>> bps = new HashMap<Integer, List<Measurement>>();
+        private Map<Integer, List<Measurement>> egfrs = new HashMap<Integer, List<Measurement>>();
+        private Map<Integer, DemographicExt> aboriginal = new HashMap<Integer, DemographicExt>();
+
+        // coding systems and codes are compared the way the database compares them
+        private boolean hasActiveDxCode(Integer demographicNo, String codingSystem, String code) {
+            for (Dxresearch dx : dxs.getOrDefault(demographicNo, Collections.<Dxresearch>emptyList())) {
+                if (dx.getStatus() != null && dx.getStatus() == 'A' && codingSystem.equalsIgnoreCase(dx.getCodingSystem()) && code.equalsIgnoreCase(dx.getDxresearchCode())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean hasBilledDxCode(Integer demographicNo, String code) {
+            Set<String> billed = billedDxCodes.get(demographicNo);
+            return billed != null && code != null && billed.contains(code.trim().toUpperCase());
+        }
+
+        private List<Measurement> getMeasurements(Map<Integer, List<Measurement>> measurements, Integer demographicNo) {
+            return measurements.getOrDefault(demographicNo, Collections.<Measurement>emptyList());
+        }
+
+        /**
+         * @return the patient's most recently updated OscarCode:CKDSCREEN entry, active or not
+         */
+        public Dxresearch getLatestScreening(Integer demographicNo) {
+            for (Dxresearch dx : dxs.getOrDefault(demographicNo, Collections.<Dxresearch>emptyList())) {
+                if ("OscarCode".equalsIgnoreCase(dx.getCodingSystem()) && "CKDSCREEN".equalsIgnoreCase(dx.getDxresearchCode())) {
+                    return dx;
+                }
+            }
+            return null;
+        }
+    }
+
     public class MyBoolean {
         private Boolean value;
 
@@ -27,7 +27,6 @@
 package ca.openosp.openo.report.ClinicalReports;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Hashtable;
@@ -36,8 +35,8 @@ import java.util.Map.Entry;
 
 import org.drools.RuleBase;
 import org.drools.WorkingMemory;
-import org.drools.io.RuleBaseLoader;
 import org.jdom2.Element;
+import ca.openosp.openo.drools.RuleBaseCompiler;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
 
@@ -157,8 +156,7 @@ public class DroolsNumerator2 implements Numerator {
                 File file = new File(OscarProperties.getInstance().getProperty("MEASUREMENT_DS_DIRECTORY") + string);
                 if (file.isFile() || file.canRead()) {
                     MiscUtils.getLogger().debug("Loading from file " + file.getName());
-                    FileInputStream fis = new FileInputStream(file);
-                    measurementRuleBase = RuleBaseLoader.loadFromInputStream(fis);
+                    measurementRuleBase = RuleBaseCompiler.compile(file);
                     fileFound = true;
                 }
             }
@@ -166,7 +164,7 @@ public class DroolsNumerator2 implements Numerator {
             if (!fileFound) {
                 URL url = MeasurementFlowSheet.class.getResource("/oscar/oscarEncounter/oscarMeasurements/flowsheets/decisionSupport/" + string);  //TODO: change this so it is configurable;
                 MiscUtils.getLogger().debug("loading from URL " + url.getFile());
-                measurementRuleBase = RuleBaseLoader.loadFromUrl(url);
+                measurementRuleBase = RuleBaseCompiler.compile(url);
             }
         } catch (Exception e) {
             MiscUtils.getLogger().error("Error", e);
@@ -27,7 +27,6 @@
 package ca.openosp.openo.report.ClinicalReports;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.net.URL;
 import java.util.Date;
 import java.util.Hashtable;
@@ -35,7 +34,7 @@ import java.util.Iterator;
 import java.util.Map.Entry;
 
 import org.drools.RuleBase;
-import org.drools.io.RuleBaseLoader;
+import ca.openosp.openo.drools.RuleBaseCompiler;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
 
@@ -126,8 +125,7 @@ public class DroolsNumerator3 implements Numerator {
                 File file = new File(OscarProperties.getInstance().getProperty("MEASUREMENT_DS_DIRECTORY") + string);
                 if (file.isFile() || file.canRead()) {
                     MiscUtils.getLogger().debug("Loading from file " + file.getName());
-                    FileInputStream fis = new FileInputStream(file);
-                    measurementRuleBase = RuleBaseLoader.loadFromInputStream(fis);
+                    measurementRuleBase = RuleBaseCompiler.compile(file);
                     fileFound = true;
                 }
             }
@@ -135,7 +133,7 @@ public class DroolsNumerator3 implements Numerator {
             if (!fileFound) {
                 URL url = MeasurementFlowSheet.class.getResource("/oscar/oscarEncounter/oscarMeasurements/flowsheets/decisionSupport/" + string);  //TODO: change this so it is configurable;
                 MiscUtils.getLogger().debug("loading from URL " + url.getFile());
-                measurementRuleBase = RuleBaseLoader.loadFromUrl(url);
+                measurementRuleBase = RuleBaseCompiler.compile(url);
             }
         } catch (Exception e) {
             MiscUtils.getLogger().error("Error", e);
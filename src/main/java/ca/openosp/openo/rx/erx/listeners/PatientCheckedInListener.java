@@ -25,24 +25,27 @@
 
 package ca.openosp.openo.rx.erx.listeners;
 
+import java.util.Map;
+
 import org.apache.logging.log4j.Logger;
 import ca.openosp.openo.commn.dao.DemographicDao;
 import ca.openosp.openo.commn.dao.OscarAppointmentDao;
 import ca.openosp.openo.commn.dao.ProviderPreferenceDao;
 import ca.openosp.openo.commn.model.Appointment;
 import ca.openosp.openo.commn.model.Demographic;
+import ca.openosp.openo.commn.model.DomainEvent;
 import ca.openosp.openo.commn.model.ProviderPreference;
-import ca.openosp.openo.event.AppointmentStatusChangeEvent;
+import ca.openosp.openo.event.DomainEventListener;
 import ca.openosp.openo.rx.erx.ERxPatientRecordSynchronizer;
-import ca.openosp.openo.utility.DbConnectionFilter;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.SpringUtils;
-import org.springframework.context.ApplicationListener;
 
 /**
- * Listens for PatientCheckedInEvents and triggers sending patient data.
+ * Listens for appointment status changes and triggers sending patient data. Runs off the request thread
+ * so the external prescription service doesn't slow down the appointment screens, a failed send is
+ * retried by DomainEventManager.
  */
-public class PatientCheckedInListener implements ApplicationListener<AppointmentStatusChangeEvent> {
+public class PatientCheckedInListener implements DomainEventListener {
     Logger logger = MiscUtils.getLogger();
 
     /**
@@ -52,51 +55,47 @@ public class PatientCheckedInListener implements ApplicationListener<Appointment
         super();
     }
 
-    /*
-     * (non-Javadoc)
-     *
-     * @see
-     * ca.openosp.openo.event.interfaces.EventListener#onOscarEvent(ca.openosp.openo.event.interfaces.EventData)
-     */
     @Override
-    public void onApplicationEvent(AppointmentStatusChangeEvent event) {
-        try {
-            String providerId = event.getProvider_no();
-            logger.debug("AppointmentStatusChange for providers " + providerId + " appt " + event.getAppointment_no() + " status is " + event.getStatus());
+    public boolean supportsEventType(String eventType) {
+        return DomainEvent.APPOINTMENT_STATUS_CHANGE.equals(eventType);
+    }
 
-            ProviderPreferenceDao providerPreferenceDao = ((ProviderPreferenceDao) SpringUtils.getBean(ProviderPreferenceDao.class));
+    @Override
+    public void onDomainEvent(DomainEvent event, Map<String, String> payload) throws Exception {
+        String providerId = payload.get("provider_no");
+        String apptStatus = payload.get("status");
+        logger.debug("AppointmentStatusChange for providers " + providerId + " appt " + event.getAggregateId() + " status is " + apptStatus);
 
-            // Load provider preferences to see if we should continue
-            ProviderPreference providerPreference = providerPreferenceDao.find(providerId);
-            logger.debug("proPref " + providerPreference);
-            // If the providers uses an external prescription providers, and it's enabled...
-            if ((providerPreference != null) && providerPreference.isERxEnabled()) {
+        ProviderPreferenceDao providerPreferenceDao = ((ProviderPreferenceDao) SpringUtils.getBean(ProviderPreferenceDao.class));
 
-                DemographicDao demographicDao = (DemographicDao) SpringUtils.getBean(DemographicDao.class);
-                OscarAppointmentDao appointmentDao = (OscarAppointmentDao) SpringUtils.getBean(OscarAppointmentDao.class);
+        // Load provider preferences to see if we should continue
+        ProviderPreference providerPreference = providerPreferenceDao.find(providerId);
+        logger.debug("proPref " + providerPreference);
+        // If the providers uses an external prescription providers, and it's enabled...
+        if ((providerPreference != null) && providerPreference.isERxEnabled()) {
 
-                // If the appointment status is "Here" or "Empty room" or "Picked"...
-                String apptStatus = event.getStatus();
-                if (apptStatus.equals("H") || apptStatus.equals("E") || apptStatus.equals("P")) {
-                    // Get data about the appointment
-                    Appointment appt = appointmentDao.find(Integer.parseInt(event.getAppointment_no()));
+            DemographicDao demographicDao = (DemographicDao) SpringUtils.getBean(DemographicDao.class);
+            OscarAppointmentDao appointmentDao = (OscarAppointmentDao) SpringUtils.getBean(OscarAppointmentDao.class);
 
-                    // Load the patient data from the first appointment matched
-                    String patientId = String.valueOf(appt.getDemographicNo());
-                    Demographic patient = demographicDao.getDemographic(patientId);
-                    logger.debug("calling sendRecord");
-                    // Send the patient's record
-                    ERxPatientRecordSynchronizer synchronizer = new ERxPatientRecordSynchronizer();
-                    synchronizer.sendRecord(patient, providerId);
-                } else {
-                    logger.debug("Ignoring appt event");
+            // If the appointment status is "Here" or "Empty room" or "Picked"...
+            if ("H".equals(apptStatus) || "E".equals(apptStatus) || "P".equals(apptStatus)) {
+                // Get data about the appointment
+                Appointment appt = appointmentDao.find(Integer.parseInt(event.getAggregateId()));
+                if (appt == null) {
+                    logger.debug("Appointment " + event.getAggregateId() + " no longer exists");
+                    return;
                 }
+
+                // Load the patient data from the first appointment matched
+                String patientId = String.valueOf(appt.getDemographicNo());
+                Demographic patient = demographicDao.getDemographic(patientId);
+                logger.debug("calling sendRecord");
+                // Send the patient's record
+                ERxPatientRecordSynchronizer synchronizer = new ERxPatientRecordSynchronizer();
+                synchronizer.sendRecord(patient, providerId);
+            } else {
+                logger.debug("Ignoring appt event");
             }
-        } catch (Exception e) {
-            logger.error("error", e);
-        } finally {
-            DbConnectionFilter.releaseAllThreadDbResources();
         }
-
-    }//End of onOscarEvent
+    }
 }
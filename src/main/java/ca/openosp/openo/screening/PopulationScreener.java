@@ -0,0 +1,67 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.screening;
+
+import java.util.List;
+import java.util.Map;
+
+import ca.openosp.openo.utility.LoggedInInfo;
+
+/**
+ * A background screening run over a population of patients, executed by {@link PopulationScreeningEngine}.
+ * <p>
+ * The engine splits the cohort into partitions. For each partition {@link #prefetch(List)} reads everything the
+ * screener needs in bulk and {@link #screen(Integer, Object)} evaluates the patients against it, both on worker
+ * threads and in parallel with other partitions, so they must only read. {@link #record(LoggedInInfo, Map)} is
+ * then called with the partition's results on the thread that started the run, one partition at a time and in
+ * cohort order, and is where anything is written.
+ *
+ * @param <F> the facts prefetched for a partition
+ * @param <R> the result for one patient
+ */
+public interface PopulationScreener<F, R> {
+
+    /**
+     * @return a name unique to this screener, the run's checkpoint is stored under it
+     */
+    public String getName();
+
+    /**
+     * @return the demographic numbers to screen
+     */
+    public List<Integer> getCohort();
+
+    public F prefetch(List<Integer> demographicNos);
+
+    /**
+     * @return the result for the patient, or null if there is nothing to record
+     */
+    public R screen(Integer demographicNo, F facts);
+
+    /**
+     * @param results the results of one partition by demographic number, in cohort order
+     */
+    public void record(LoggedInInfo loggedInInfo, Map<Integer, R> results);
+}
@@ -0,0 +1,180 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.screening;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.Logger;
+
+import ca.openosp.openo.commn.dao.PropertyDao;
+import ca.openosp.openo.commn.model.Property;
+import ca.openosp.openo.utility.DbConnectionFilter;
+import ca.openosp.openo.utility.DeamonThreadFactory;
+import ca.openosp.openo.utility.LoggedInInfo;
+import ca.openosp.openo.utility.MiscUtils;
+import ca.openosp.openo.utility.SpringUtils;
+import ca.openosp.OscarProperties;
+
+/**
+ * Runs a {@link PopulationScreener} over its cohort.
+ * <p>
+ * The cohort is sorted and cut into partitions of population_screening.partition_size patients. Up to
+ * population_screening.threads partitions are prefetched and screened at the same time, and a few more are
+ * queued so the workers don't wait on the recording. The results are recorded partition by partition in cohort
+ * order, after each one the last demographic number recorded is saved in the property table. A run that is
+ * stopped part way (restart, error) carries on after that checkpoint the next time, the checkpoint is removed when
+ * a run completes.
+ */
+public class PopulationScreeningEngine {
+
+    private static final Logger logger = MiscUtils.getLogger();
+
+    private final PropertyDao propertyDao;
+    private final int threads;
+    private final int partitionSize;
+
+    public PopulationScreeningEngine() {
+        this(SpringUtils.getBean(PropertyDao.class),
+                NumberUtils.toInt(OscarProperties.getInstance().getProperty("population_screening.threads"), 4),
+                NumberUtils.toInt(OscarProperties.getInstance().getProperty("population_screening.partition_size"), 500));
+    }
+
+    public PopulationScreeningEngine(PropertyDao propertyDao, int threads, int partitionSize) {
+        this.propertyDao = propertyDao;
+        this.threads = Math.max(1, threads);
+        this.partitionSize = Math.max(1, partitionSize);
+    }
+
+    /**
+     * @return the number of patients screened by this call, not counting those done before the checkpoint
+     */
+    public <F, R> int run(LoggedInInfo loggedInInfo, PopulationScreener<F, R> screener) {
+        String checkpointName = getCheckpointName(screener);
+        Integer checkpoint = readCheckpoint(checkpointName);
+
+        List<Integer> cohort = new ArrayList<Integer>();
+        for (Integer demographicNo : screener.getCohort()) {
+            if (demographicNo != null && (checkpoint == null || demographicNo > checkpoint)) {
+                cohort.add(demographicNo);
+            }
+        }
+        Collections.sort(cohort);
+
+        if (checkpoint != null) {
+            logger.info("Resuming " + screener.getName() + " screening after demographic " + checkpoint + ", " + cohort.size() + " patients left");
+        }
+        long start = System.currentTimeMillis();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new DeamonThreadFactory("PopulationScreening." + screener.getName(), Thread.MIN_PRIORITY));
+        try {
+            Deque<Future<Map<Integer, R>>> pending = new ArrayDeque<Future<Map<Integer, R>>>();
+            int next = 0;
+            int screened = 0;
+            while (next < cohort.size() || !pending.isEmpty()) {
+                while (next < cohort.size() && pending.size() < threads * 2) {
+                    List<Integer> partition = cohort.subList(next, Math.min(next + partitionSize, cohort.size()));
+                    pending.add(executor.submit(() -> screen(screener, partition)));
+                    next += partition.size();
+                }
+
+                Map<Integer, R> results = pending.poll().get();
+                screener.record(loggedInInfo, results);
+
+                Integer last = null;
+                for (Integer demographicNo : results.keySet()) {
+                    last = demographicNo;
+                }
+                screened += results.size();
+                if (last != null) {
+                    writeCheckpoint(checkpointName, last);
+                }
+            }
+            clearCheckpoint(checkpointName);
+            logger.info(screener.getName() + " screening of " + screened + " patients took " + (System.currentTimeMillis() - start) + " ms");
+            return screened;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(screener.getName() + " screening was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(screener.getName() + " screening failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Every patient of the partition is in the returned map, mapped to null when the screener has nothing to
+     * record for them, so the coordinator always knows how far the partition went.
+     */
+    private static <F, R> Map<Integer, R> screen(PopulationScreener<F, R> screener, List<Integer> partition) {
+        try {
+            F facts = screener.prefetch(partition);
+            Map<Integer, R> results = new LinkedHashMap<Integer, R>();
+            for (Integer demographicNo : partition) {
+                results.put(demographicNo, screener.screen(demographicNo, facts));
+            }
+            return results;
+        } finally {
+            DbConnectionFilter.releaseAllThreadDbResources();
+        }
+    }
+
+    static String getCheckpointName(PopulationScreener<?, ?> screener) {
+        return "population_screening." + screener.getName() + ".checkpoint";
+    }
+
+    private Integer readCheckpoint(String name) {
+        Property property = propertyDao.checkByName(name);
+        if (property == null || !NumberUtils.isDigits(property.getValue())) return null;
+        return Integer.valueOf(property.getValue());
+    }
+
+    private void writeCheckpoint(String name, Integer demographicNo) {
+        Property property = propertyDao.checkByName(name);
+        if (property == null) {
+            property = new Property(name);
+            property.setValue(demographicNo.toString());
+            propertyDao.persist(property);
+        } else {
+            property.setValue(demographicNo.toString());
+            propertyDao.merge(property);
+        }
+    }
+
+    private void clearCheckpoint(String name) {
+        propertyDao.removeByName(name);
+    }
+}
@@ -0,0 +1,137 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.tickler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.openosp.openo.PMmodule.dao.ProgramAccessDAO;
+import ca.openosp.openo.PMmodule.dao.ProgramProviderDAO;
+import ca.openosp.openo.PMmodule.model.ProgramAccess;
+import ca.openosp.openo.PMmodule.model.ProgramProvider;
+import ca.openosp.openo.casemgmt.service.CaseManagementManager;
+import ca.openosp.openo.commn.model.Tickler;
+import ca.openosp.openo.model.security.Secrole;
+
+/**
+ * Applies the CAISI program role access rules ("read ticklers assigned to a &lt;role&gt;") to a list of
+ * ticklers for one provider.
+ * <p>
+ * The provider's roles in all of their programs are read once up front. The roles of everyone in a
+ * program and the program's access settings are read the first time a tickler from that program comes
+ * up, so a list costs one query per program rather than several per tickler. An evaluator holds what it
+ * has read for its own lifetime and is meant to be used for a single request.
+ */
+public final class TicklerAccessEvaluator {
+
+    private final String providerNo;
+    private final ProgramProviderDAO programProviderDAO;
+    private final ProgramAccessDAO programAccessDAO;
+    private final CaseManagementManager caseManagementManager;
+
+    // the provider's role in each of their programs
+    private final Map<Long, Secrole> providerRoles = new HashMap<Long, Secrole>();
+    // program id -> provider no -> lower cased role name
+    private final Map<Long, Map<String, String>> programRoleNames = new HashMap<Long, Map<String, String>>();
+    private final Map<Long, Map<String, ProgramAccess>> programAccessMaps = new HashMap<Long, Map<String, ProgramAccess>>();
+
+    public TicklerAccessEvaluator(String providerNo, ProgramProviderDAO programProviderDAO, ProgramAccessDAO programAccessDAO,
+                                  CaseManagementManager caseManagementManager) {
+        this.providerNo = providerNo;
+        this.programProviderDAO = programProviderDAO;
+        this.programAccessDAO = programAccessDAO;
+        this.caseManagementManager = caseManagementManager;
+
+        if (providerNo != null) {
+            for (ProgramProvider pp : programProviderDAO.getProgramProvidersByProvider(providerNo)) {
+                providerRoles.putIfAbsent(pp.getProgramId(), pp.getRole());
+            }
+        }
+    }
+
+    public List<Tickler> filter(List<Tickler> ticklers) {
+        List<Tickler> filteredTicklers = new ArrayList<Tickler>(ticklers.size());
+        for (Tickler tickler : ticklers) {
+            if (canRead(tickler)) {
+                filteredTicklers.add(tickler);
+            }
+        }
+        return filteredTicklers;
+    }
+
+    public boolean canRead(Tickler tickler) {
+        // ticklers that are not in any program (old ticklers) are not filtered by role access
+        if (tickler.getProgramId() == null) {
+            return true;
+        }
+
+        Long programId = Long.valueOf(tickler.getProgramId());
+        Secrole role = providerRoles.get(programId);
+        if (role == null) {
+            return false;
+        }
+
+        // the role of the provider the tickler is assigned to, in the tickler's program
+        String ticklerRole = getRoleNames(programId).get(tickler.getTaskAssignedTo());
+
+        ProgramAccess pa = getAccessMap(programId).get("read ticklers assigned to a " + ticklerRole);
+        if (pa != null && (pa.isAllRoles() || caseManagementManager.isRoleIncludedInAccess(pa, role))) {
+            return true;
+        }
+
+        // the provider who wrote the tickler can always read it
+        if (tickler.getCreator() != null && tickler.getCreator().equals(providerNo)) {
+            return true;
+        }
+
+        // by default providers can read the ticklers assigned to their own role
+        return role.getRoleName().equals(ticklerRole);
+    }
+
+    private Map<String, String> getRoleNames(Long programId) {
+        Map<String, String> roleNames = programRoleNames.get(programId);
+        if (roleNames == null) {
+            roleNames = new HashMap<String, String>();
+            for (ProgramProvider pp : programProviderDAO.getProgramProviders(programId)) {
+                if (pp.getRole() != null && !roleNames.containsKey(pp.getProviderNo())) {
+                    roleNames.put(pp.getProviderNo(), pp.getRole().getRoleName().toLowerCase());
+                }
+            }
+            programRoleNames.put(programId, roleNames);
+        }
+        return roleNames;
+    }
+
+    private Map<String, ProgramAccess> getAccessMap(Long programId) {
+        Map<String, ProgramAccess> accessMap = programAccessMaps.get(programId);
+        if (accessMap == null) {
+            accessMap = caseManagementManager.convertProgramAccessListToMap(programAccessDAO.getAccessListByProgramId(programId));
+            programAccessMaps.put(programId, accessMap);
+        }
+        return accessMap;
+    }
+}
@@ -33,7 +33,7 @@ import javax.servlet.jsp.tagext.TagSupport;
 
 import ca.openosp.openo.commn.dao.ViewDao;
 import ca.openosp.openo.commn.model.View;
-import ca.openosp.openo.managers.TicklerManager;
+import ca.openosp.openo.managers.TabAlertManager;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.utility.SpringUtils;
@@ -66,8 +66,8 @@ public class TicklerTag extends TagSupport {
                     assignedTo = assignedProvider;
                 }
             }
-            TicklerManager ticklerManager = SpringUtils.getBean(TicklerManager.class);
-            numNewLabs = ticklerManager.getActiveTicklerCount(loggedInInfo, assignedTo);
+            TabAlertManager tabAlertManager = SpringUtils.getBean(TabAlertManager.class);
+            numNewLabs = tabAlertManager.getActiveTicklerCount(loggedInInfo, assignedTo);
         }
 
         try {
@@ -0,0 +1,212 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.ui.servlet;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.Logger;
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.commn.dao.ViewDao;
+import ca.openosp.openo.commn.model.View;
+import ca.openosp.openo.managers.TabAlertManager;
+import ca.openosp.openo.utility.DeamonThreadFactory;
+import ca.openosp.openo.utility.LoggedInInfo;
+import ca.openosp.openo.utility.MiscUtils;
+import ca.openosp.openo.utility.SpringUtils;
+
+/**
+ * Streams schedule page tab alert changes to the browser as server-sent events, so the page holds one
+ * connection open instead of polling tabAlertsRefresh.jsp for every tab. Each event carries the id of the
+ * tab that changed and the page re-renders just that tab, the counts themselves come from the
+ * {@link TabAlertManager} cache.
+ * <p>
+ * A comment line is written every 25 seconds to keep proxies from closing the connection and to notice
+ * browsers that have gone away. Connections are completed after tab_alerts.stream_timeout_seconds and the
+ * browser reconnects on its own, refreshing all tabs to catch anything it missed.
+ */
+public final class TabAlertStreamServlet extends HttpServlet {
+    private static Logger logger = MiscUtils.getLogger();
+
+    private static final long HEARTBEAT_SECONDS = 25;
+    private static final long RECONNECT_MILLIS = 10000;
+
+    private TabAlertManager tabAlertManager;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    // writes are made off the request threads so a commit never waits on a browser
+    private ScheduledExecutorService writer;
+
+    @Override
+    public void init() throws ServletException {
+        tabAlertManager = SpringUtils.getBean(TabAlertManager.class);
+        writer = Executors.newSingleThreadScheduledExecutor(new DeamonThreadFactory("TabAlertStream", Thread.NORM_PRIORITY));
+        writer.scheduleWithFixedDelay(() -> {
+            for (Connection connection : connections) {
+                connection.write(":\n\n");
+            }
+        }, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        writer.shutdownNow();
+    }
+
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        LoggedInInfo loggedInInfo = LoggedInInfo.getLoggedInInfoFromSession(request);
+        if (loggedInInfo == null || loggedInInfo.getLoggedInProviderNo() == null) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        // stops nginx from buffering the stream
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(NumberUtils.toLong(OscarProperties.getInstance().getProperty("tab_alerts.stream_timeout_seconds"), 1800) * 1000);
+
+        String providerNo = loggedInInfo.getLoggedInProviderNo();
+        Connection connection = new Connection(asyncContext, providerNo, getTicklerAssignee(loggedInInfo, providerNo));
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                connection.close();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                connection.close();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                connection.close();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        connections.add(connection);
+        tabAlertManager.subscribe(connection);
+        connection.write("retry: " + RECONNECT_MILLIS + "\n\n");
+    }
+
+    /**
+     * The tickler tab counts the ticklers of the provider chosen in the tickler view settings, same as TicklerTag.
+     */
+    private static String getTicklerAssignee(LoggedInInfo loggedInInfo, String providerNo) {
+        ViewDao viewDao = SpringUtils.getBean(ViewDao.class);
+        Map<String, View> settingsMap = viewDao.getView("tickler", (String) loggedInInfo.getSession().getAttribute("userrole"), providerNo);
+        if (settingsMap != null && settingsMap.get("assignedTo") != null) {
+            String assignedProvider = settingsMap.get("assignedTo").getValue();
+            if (assignedProvider != null && !assignedProvider.isEmpty()) {
+                return assignedProvider;
+            }
+        }
+        return providerNo;
+    }
+
+    private final class Connection implements TabAlertManager.Subscriber {
+        private final AsyncContext asyncContext;
+        private final String providerNo;
+        private final String ticklerAssignee;
+        private boolean closed = false;
+
+        private Connection(AsyncContext asyncContext, String providerNo, String ticklerAssignee) {
+            this.asyncContext = asyncContext;
+            this.providerNo = providerNo;
+            this.ticklerAssignee = ticklerAssignee;
+        }
+
+        @Override
+        public String getProviderNo() {
+            return providerNo;
+        }
+
+        @Override
+        public String getTicklerAssignee() {
+            return ticklerAssignee;
+        }
+
+        @Override
+        public void alertChanged(TabAlertManager.Alert alert) {
+            try {
+                writer.execute(() -> write("data: " + alert.getTabId() + "\n\n"));
+            } catch (Exception e) {
+                // shutting down
+                close();
+            }
+        }
+
+        private synchronized void write(String data) {
+            if (closed) return;
+            try {
+                PrintWriter out = asyncContext.getResponse().getWriter();
+                out.write(data);
+                out.flush();
+                if (out.checkError()) close();
+            } catch (Exception e) {
+                logger.debug("Tab alert stream for provider " + providerNo + " closed: " + e.getMessage());
+                close();
+            }
+        }
+
+        private synchronized void close() {
+            if (closed) return;
+            closed = true;
+            connections.remove(this);
+            tabAlertManager.unsubscribe(this);
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                // already completed by the container
+            }
+        }
+    }
+}
@@ -25,14 +25,12 @@
 
 package ca.openosp.openo.util;
 
-import java.util.Timer;
-import java.util.TimerTask;
-
 import ca.openosp.openo.billings.ca.bc.MSP.CDMReminderHlp;
 import org.apache.logging.log4j.Logger;
 import ca.openosp.openo.PMmodule.dao.ProviderDao;
 import ca.openosp.openo.commn.model.Provider;
 import ca.openosp.openo.commn.model.Security;
+import ca.openosp.openo.managers.OscarJobSchedulerManager;
 import ca.openosp.openo.utility.DbConnectionFilter;
 import ca.openosp.openo.utility.LoggedInInfo;
 import ca.openosp.openo.utility.MiscUtils;
@@ -44,7 +42,7 @@ import ca.openosp.openo.utility.SpringUtils;
  *
  * <p>Description: </p>
  * AlertTimer is responsible for managing the execution Schedule of the CDM Reminders(or any other future alerts)
- * at regular intervals.
+ * at regular intervals. The reminders run as a job of the OscarJobSchedulerManager, on one server of a cluster at a time.
  *
  * @author not Joel Legris
  * @version 1.0
@@ -52,20 +50,21 @@ import ca.openosp.openo.utility.SpringUtils;
 public class AlertTimer {
     private static Logger logger = MiscUtils.getLogger();
 
+    public static final String JOB_NAME = "AlertTimer";
+
     private static AlertTimer alerts = null;
-    private static Timer timer;
     String alertCodes[] = null;
     CDMReminderHlp hlp = null;
 
     private AlertTimer(String[] codes, long interval) {
-        timer = new Timer("AlertTimer", true);
         alertCodes = codes;
         hlp = new CDMReminderHlp();
         //triggers alerts 5 seconds after instantiation
-        timer.scheduleAtFixedRate(new ReminderClass(), 5000, interval);
+        OscarJobSchedulerManager jobScheduler = SpringUtils.getBean(OscarJobSchedulerManager.class);
+        jobScheduler.schedule(JOB_NAME, new ReminderClass(), 5000, interval);
     }
 
-    public static AlertTimer getInstance(String[] codes, long interval) {
+    public static synchronized AlertTimer getInstance(String[] codes, long interval) {
         if (alerts == null) {
             alerts = new AlertTimer(codes, interval);
         }
@@ -75,7 +74,7 @@ public class AlertTimer {
     /**
      * The helper class which is responsible for triggering the alerts
      */
-    class ReminderClass extends TimerTask {
+    class ReminderClass implements Runnable {
         public void run() {
             // LoggedInInfo loggedInInfo=LoggedInInfo.getLoggedInInfoAsCurrentClassAndMethod();
             // work around for the sec object.
@@ -93,6 +92,8 @@ public class AlertTimer {
                 logger.debug("AlertTimer noticed shutdown signaled.");
             } catch (Exception e) {
                 logger.error("unexpected error", e);
+                // recorded as a failed run in the job history
+                throw new RuntimeException(e);
             } finally {
                 DbConnectionFilter.releaseAllThreadDbResources();
             }
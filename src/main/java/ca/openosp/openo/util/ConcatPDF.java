@@ -46,21 +46,16 @@ package ca.openosp.openo.util;
  */
 
 import java.io.*;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.pdfbox.io.MemoryUsageSetting;
-import org.apache.pdfbox.multipdf.PDFMergerUtility;
-import org.apache.pdfbox.pdmodel.PDDocument;
 import ca.openosp.openo.utility.MiscUtils;
 
 public class ConcatPDF {
 
 
     public static void concat(ArrayList<Object> alist, String filename) {
-        try (OutputStream os = new FileOutputStream(filename);) {
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(filename));) {
             concat(alist, os);
         } catch (Exception e) {
             MiscUtils.getLogger().error("Error", e);
@@ -70,46 +65,23 @@ public class ConcatPDF {
     /**
      * This class can be used to concatenate existing PDF files.
      * (This was an example known as PdfCopy.java)
+     * <p>
+     * Files and streams that cannot be read are left out, see {@link PDFAssembler} for page
+     * selection, bookmarks and cancellation.
      */
     public static void concat(List<Object> fileOrInputStreamPdfList, OutputStream outputStream) {
-        PDFMergerUtility pdfMerger = new PDFMergerUtility();
-        PDDocument documentReader;
+        PDFAssembler assembler = new PDFAssembler();
+        assembler.setSkipUnreadableSources(true);
         for (Object o : fileOrInputStreamPdfList) {
-            //load pdf file
-            try {
-                if (o instanceof InputStream) {
-                    documentReader = PDDocument.load((InputStream) o);
-                } else {
-                    Path fileName = Paths.get((String) o);
-                    documentReader = PDDocument.load(fileName.toFile());
-                }
-
-                // remove encryption
-                if (documentReader != null && documentReader.isEncrypted()) {
-                    documentReader.setAllSecurityToBeRemoved(true);
-                }
-            } catch (IOException e) {
-                MiscUtils.getLogger().error("Failed to open file for concatenation: " + o, e);
-                continue;
-            }
-
-            // save document to output stream and add resulting data to merger
-            try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-                if (documentReader != null) {
-                    documentReader.save(baos);
-                    try (InputStream inputStream = new ByteArrayInputStream(baos.toByteArray())) {
-                        pdfMerger.addSource(inputStream);
-                        documentReader.close();
-                    }
-                }
-            } catch (IOException e) {
-                MiscUtils.getLogger().error("Document could not be added to merge " + o, e);
+            if (o instanceof InputStream) {
+                assembler.addSource((InputStream) o);
+            } else {
+                assembler.addSource(new File((String) o));
             }
         }
 
         try {
-            pdfMerger.setDestinationStream(outputStream);
-            pdfMerger.mergeDocuments(MemoryUsageSetting.setupMainMemoryOnly());
+            assembler.assemble(outputStream);
         } catch (Exception e) {
             MiscUtils.getLogger().error("Document merge failed.", e);
         }
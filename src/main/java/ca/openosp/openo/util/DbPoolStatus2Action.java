@@ -0,0 +1,121 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+
+import ca.openosp.openo.managers.SecurityInfoManager;
+import ca.openosp.openo.utility.LoggedInInfo;
+import ca.openosp.openo.utility.OscarTrackingBasicDataSource;
+import ca.openosp.openo.utility.SpringUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opensymphony.xwork2.ActionSupport;
+import org.apache.struts2.ServletActionContext;
+
+/**
+ * Returns the jdbc connection pool counters as json, for monitoring. The same figures are shown on
+ * the oscar status page.
+ */
+public class DbPoolStatus2Action extends ActionSupport {
+    HttpServletRequest request = ServletActionContext.getRequest();
+    HttpServletResponse response = ServletActionContext.getResponse();
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int MAX_CHECKOUTS_LISTED = 20;
+
+    private SecurityInfoManager securityInfoManager = SpringUtils.getBean(SecurityInfoManager.class);
+
+    @Override
+    public String execute() throws Exception {
+        LoggedInInfo loggedInInfo = LoggedInInfo.getLoggedInInfoFromSession(request);
+        if (!securityInfoManager.hasPrivilege(loggedInInfo, "_admin", "r", null)) {
+            throw new SecurityException("missing required sec object (_admin)");
+        }
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), getPoolStatus());
+        return null;
+    }
+
+    /**
+     * @return the pool's active and idle counts and limits, the ConnectionPoolMetrics counters and the
+     * oldest connections currently checked out
+     */
+    public static Map<String, Object> getPoolStatus() {
+        Map<String, Object> status = new LinkedHashMap<String, Object>();
+
+        DataSource dataSource = SpringUtils.getBean(DataSource.class);
+        if (dataSource instanceof OscarTrackingBasicDataSource) {
+            OscarTrackingBasicDataSource pool = (OscarTrackingBasicDataSource) dataSource;
+            Map<String, Object> poolStatus = new LinkedHashMap<String, Object>();
+            poolStatus.put("active", pool.getNumActive());
+            poolStatus.put("idle", pool.getNumIdle());
+            poolStatus.put("maxActive", pool.getMaxActive());
+            poolStatus.put("maxIdle", pool.getMaxIdle());
+            poolStatus.put("maxWaitMillis", pool.getMaxWait());
+            poolStatus.put("poolPreparedStatements", pool.isPoolPreparedStatements());
+            status.put("pool", poolStatus);
+        }
+
+        status.putAll(OscarTrackingBasicDataSource.getMetrics().toMap());
+
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> checkouts = new ArrayList<Map<String, Object>>();
+        for (OscarTrackingBasicDataSource.Checkout checkout : OscarTrackingBasicDataSource.getCheckouts()) {
+            if (checkouts.size() == MAX_CHECKOUTS_LISTED) {
+                break;
+            }
+            Map<String, Object> item = new LinkedHashMap<String, Object>();
+            item.put("thread", checkout.getThreadName());
+            item.put("heldMillis", now - checkout.getCheckedOut());
+            item.put("reportedAsLeak", checkout.isReported());
+            if (checkout.getStackTrace() != null) {
+                item.put("stackTrace", Arrays.toString(checkout.getStackTrace()));
+            }
+            checkouts.add(item);
+        }
+        status.put("oldestCheckouts", checkouts);
+
+        return status;
+    }
+
+    public static String getPoolStatusText() {
+        try {
+            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(getPoolStatus());
+        } catch (Exception e) {
+            return "[" + e.getMessage() + "]";
+        }
+    }
+}
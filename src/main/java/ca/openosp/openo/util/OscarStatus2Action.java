@@ -22,6 +22,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.io.FileUtils;
 
 import ca.openosp.OscarProperties;
+import ca.openosp.openo.documentManager.PdfRenderingService;
 
 
 import com.opensymphony.xwork2.ActionSupport;
@@ -60,6 +61,8 @@ public class OscarStatus2Action extends ActionSupport {
         servletRequest.setAttribute("sqlSlaveStatusText", getOscarSQLSlaveStatus());
         servletRequest.setAttribute("filesystemStatusText", getFilesystemStatus());
         servletRequest.setAttribute("uptimeText", uptime());
+        servletRequest.setAttribute("dbPoolStatusText", DbPoolStatus2Action.getPoolStatusText());
+        servletRequest.setAttribute("pdfRenderingStatusText", PdfRenderingService.getInstance().getStatistics().toString());
 //		servletRequest.setAttribute("vmstatText", vmstat());
 
         return SUCCESS;
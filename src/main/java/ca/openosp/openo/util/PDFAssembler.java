@@ -0,0 +1,373 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFCloneUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageTree;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.PageMode;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.utility.MiscUtils;
+
+/**
+ * Builds one PDF out of pages of other PDFs, for chart printing, combined documents and splitting
+ * faxes.
+ * <p>
+ * The sources are opened one at a time when {@link #assemble(OutputStream)} runs. The selected pages
+ * are copied into the new document and the source is closed before the next one is opened. Stream
+ * data of the sources and of the new document is buffered up to pdf_assembly.max_memory_mb per
+ * document and spills to temp files past that, so the heap used does not grow with the size of the
+ * documents. Each source can carry a bookmark pointing at its first page.
+ * <p>
+ * Only the pages are copied. Outlines, form field hierarchies, the structure tree and links to other
+ * pages of the source are left behind, annotations keep their appearance.
+ * <p>
+ * An assembly is used once and from one thread, except for {@link #cancel()}.
+ */
+public class PDFAssembler {
+
+    private static final Logger logger = MiscUtils.getLogger();
+
+    private static final COSName GO_TO = COSName.getPDFName("GoTo");
+    private static final COSName IRT = COSName.getPDFName("IRT");
+
+    private final MemoryUsageSetting memoryUsageSetting;
+    private final List<Source> sources = new ArrayList<Source>();
+    private boolean skipUnreadableSources = false;
+    private volatile boolean cancelled = false;
+
+    public PDFAssembler() {
+        this(getDefaultMemoryUsageSetting());
+    }
+
+    public PDFAssembler(MemoryUsageSetting memoryUsageSetting) {
+        this.memoryUsageSetting = memoryUsageSetting;
+    }
+
+    /**
+     * @return main memory buffered per open document before stream data goes to temp files
+     */
+    public static MemoryUsageSetting getDefaultMemoryUsageSetting() {
+        long maxMemoryMb = NumberUtils.toLong(OscarProperties.getInstance().getProperty("pdf_assembly.max_memory_mb"), 4);
+        return MemoryUsageSetting.setupMixed(Math.max(1, maxMemoryMb) * 1024 * 1024);
+    }
+
+    /**
+     * Adds a PDF file, all of its pages unless pages are selected on the returned source.
+     */
+    public Source addSource(File file) {
+        Source source = new Source(file, null);
+        sources.add(source);
+        return source;
+    }
+
+    /**
+     * Adds a PDF read from the stream when the assembly gets to it, the caller closes the stream.
+     */
+    public Source addSource(InputStream inputStream) {
+        Source source = new Source(null, inputStream);
+        sources.add(source);
+        return source;
+    }
+
+    /**
+     * @param skipUnreadableSources log and leave out sources that cannot be opened instead of failing
+     */
+    public void setSkipUnreadableSources(boolean skipUnreadableSources) {
+        this.skipUnreadableSources = skipUnreadableSources;
+    }
+
+    /**
+     * Stops a running assembly before the next page, {@link #assemble} then throws a
+     * {@link CancellationException}. Can be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Writes the assembled document to the file, through a temp file next to it so the file only
+     * appears once it is complete. The file is not created when no page was selected.
+     *
+     * @return pages written
+     */
+    public int assemble(File target) throws IOException {
+        File directory = target.getAbsoluteFile().getParentFile();
+        File tempFile = File.createTempFile("assembly", ".tmp", directory);
+        boolean complete = false;
+        try {
+            int pages;
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tempFile.toPath()))) {
+                pages = assemble(outputStream);
+            }
+            if (pages > 0) {
+                Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                complete = true;
+            }
+            return pages;
+        } finally {
+            if (!complete && !tempFile.delete()) {
+                logger.warn("Could not delete " + tempFile);
+            }
+        }
+    }
+
+    /**
+     * Writes the assembled document to the stream. Nothing is written when no page was selected.
+     *
+     * @return pages written
+     */
+    public int assemble(OutputStream outputStream) throws IOException {
+        try (PDDocument destination = new PDDocument(memoryUsageSetting)) {
+            for (Source source : sources) {
+                checkCancelled();
+                PDDocument document = load(source);
+                if (document == null) {
+                    continue;
+                }
+                try {
+                    copyPages(source, document, destination);
+                } finally {
+                    document.close();
+                }
+            }
+
+            int pages = destination.getNumberOfPages();
+            if (pages > 0) {
+                checkCancelled();
+                destination.save(outputStream);
+            }
+            return pages;
+        }
+    }
+
+    private PDDocument load(Source source) throws IOException {
+        try {
+            if (source.file != null) {
+                return PDDocument.load(source.file, memoryUsageSetting);
+            }
+            return PDDocument.load(source.inputStream, memoryUsageSetting);
+        } catch (IOException e) {
+            if (!skipUnreadableSources) {
+                throw e;
+            }
+            logger.error("Failed to open " + (source.file != null ? source.file : "stream") + " for assembly, it is left out", e);
+            return null;
+        }
+    }
+
+    private void copyPages(Source source, PDDocument document, PDDocument destination) throws IOException {
+        // a cloner per source, the objects it remembers are released with the source
+        PDFCloneUtility cloner = new PDFCloneUtility(destination);
+        PDPageTree pages = document.getPages();
+        int count = pages.getCount();
+
+        List<int[]> ranges = source.ranges.isEmpty() ? List.of(new int[]{1, count, -1}) : source.ranges;
+        PDPage firstPage = null;
+        for (int[] range : ranges) {
+            for (int pageNumber = range[0]; pageNumber <= Math.min(range[1], count); pageNumber++) {
+                checkCancelled();
+                PDPage page = clonePage(cloner, pages.get(pageNumber - 1));
+                if (range[2] >= 0) {
+                    page.setRotation(range[2]);
+                }
+                destination.addPage(page);
+                if (firstPage == null) {
+                    firstPage = page;
+                }
+            }
+        }
+
+        if (source.bookmark != null && firstPage != null) {
+            PDDocumentOutline outline = destination.getDocumentCatalog().getDocumentOutline();
+            if (outline == null) {
+                outline = new PDDocumentOutline();
+                destination.getDocumentCatalog().setDocumentOutline(outline);
+                destination.getDocumentCatalog().setPageMode(PageMode.USE_OUTLINES);
+            }
+            PDOutlineItem item = new PDOutlineItem();
+            item.setTitle(source.bookmark);
+            item.setDestination(firstPage);
+            outline.addLast(item);
+        }
+    }
+
+    /**
+     * Deep copy of the page into the destination. References back to the source's page tree are
+     * dropped first, following them would copy every page of the source.
+     */
+    private static PDPage clonePage(PDFCloneUtility cloner, PDPage page) throws IOException {
+        COSDictionary pageDictionary = new COSDictionary(page.getCOSObject());
+        pageDictionary.removeItem(COSName.PARENT);
+        pageDictionary.removeItem(COSName.B);
+        pageDictionary.removeItem(COSName.STRUCT_PARENTS);
+
+        COSArray annotations = pageDictionary.getCOSArray(COSName.ANNOTS);
+        if (annotations != null) {
+            COSArray copies = new COSArray();
+            for (int i = 0; i < annotations.size(); i++) {
+                COSBase annotation = annotations.getObject(i);
+                if (annotation instanceof COSDictionary) {
+                    copies.add(detachAnnotation((COSDictionary) annotation));
+                }
+            }
+            pageDictionary.setItem(COSName.ANNOTS, copies);
+        }
+
+        PDPage clone = new PDPage((COSDictionary) cloner.cloneForNewDocument(pageDictionary));
+        // inheritable attributes live on the page tree that was left behind
+        clone.setMediaBox(page.getMediaBox());
+        clone.setCropBox(page.getCropBox());
+        clone.setRotation(page.getRotation());
+        PDResources resources = page.getResources();
+        if (resources != null && !pageDictionary.containsKey(COSName.RESOURCES)) {
+            clone.setResources(new PDResources((COSDictionary) cloner.cloneForNewDocument(resources)));
+        }
+        return clone;
+    }
+
+    private static COSDictionary detachAnnotation(COSDictionary annotation) {
+        COSDictionary copy = new COSDictionary(annotation);
+        copy.removeItem(COSName.P);
+        copy.removeItem(COSName.PARENT);
+        copy.removeItem(COSName.POPUP);
+        copy.removeItem(IRT);
+        if (COSName.LINK.equals(copy.getCOSName(COSName.SUBTYPE))) {
+            copy.removeItem(COSName.DEST);
+            COSDictionary action = copy.getCOSDictionary(COSName.A);
+            if (action != null && GO_TO.equals(action.getCOSName(COSName.S))) {
+                copy.removeItem(COSName.A);
+            }
+        }
+        return copy;
+    }
+
+    private void checkCancelled() {
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("PDF assembly cancelled");
+        }
+    }
+
+    /**
+     * A document added to the assembly with the pages taken from it, in the order they were added.
+     */
+    public static class Source {
+
+        private final File file;
+        private final InputStream inputStream;
+        // from page, to page (inclusive, 1 based) and rotation, -1 to keep the page's own
+        private final List<int[]> ranges = new ArrayList<int[]>();
+        private String bookmark;
+
+        private Source(File file, InputStream inputStream) {
+            this.file = file;
+            this.inputStream = inputStream;
+        }
+
+        /**
+         * @param bookmark title of an outline entry pointing at the first page taken from this source
+         */
+        public Source setBookmark(String bookmark) {
+            this.bookmark = bookmark;
+            return this;
+        }
+
+        public Source addPage(int pageNumber) {
+            return addPage(pageNumber, -1);
+        }
+
+        /**
+         * @param rotation rotation set on the copied page, -1 to keep the page's own
+         */
+        public Source addPage(int pageNumber, int rotation) {
+            if (pageNumber < 1) {
+                throw new IllegalArgumentException("Page numbers start at 1: " + pageNumber);
+            }
+            ranges.add(new int[]{pageNumber, pageNumber, rotation});
+            return this;
+        }
+
+        /**
+         * Adds pages the way a print dialog takes them, "1-3,5,8-" is pages 1 to 3, 5 and 8 to the
+         * end. Pages past the end of the document are ignored.
+         */
+        public Source addPages(String pageRanges) {
+            for (String part : StringUtils.split(pageRanges, ',')) {
+                String range = part.trim();
+                int dash = range.indexOf('-');
+                int from;
+                int to;
+                if (dash < 0) {
+                    from = toPageNumber(range);
+                    to = from;
+                } else {
+                    from = toPageNumber(range.substring(0, dash).trim());
+                    String end = range.substring(dash + 1).trim();
+                    to = end.isEmpty() ? Integer.MAX_VALUE : toPageNumber(end);
+                }
+                if (from > to) {
+                    throw new IllegalArgumentException("Invalid page range: " + range);
+                }
+                ranges.add(new int[]{from, to, -1});
+            }
+            return this;
+        }
+
+        private static int toPageNumber(String value) {
+            int pageNumber = NumberUtils.toInt(value, 0);
+            if (pageNumber < 1) {
+                throw new IllegalArgumentException("Invalid page number: " + value);
+            }
+            return pageNumber;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2005-2012. Centre for Research on Inner City Health, St. Michael's Hospital, Toronto. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for
+ * Centre for Research on Inner City Health, St. Michael's Hospital,
+ * Toronto, Ontario, Canada
+ */
+package ca.openosp.openo.utility;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters of the jdbc connection pool, kept by OscarTrackingBasicDataSource and DbConnectionFilter.
+ * Everything here is lock free so it can be updated on every checkout.
+ */
+public class ConnectionPoolMetrics {
+
+    private final Histogram waitMillis = new Histogram(0, 1, 5, 10, 50, 100, 500, 1000, 5000);
+    private final Histogram checkoutMillis = new Histogram(1, 10, 100, 1000, 10000, 60000, 300000);
+    private final Histogram statementsPerRequest = new Histogram(0, 5, 10, 50, 100, 500, 1000, 5000);
+
+    private final AtomicLong checkouts = new AtomicLong();
+    private final AtomicLong checkoutFailures = new AtomicLong();
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+
+    private final ThreadLocal<RequestCounter> requestCounter = new ThreadLocal<RequestCounter>();
+
+    /**
+     * Starts counting the connections and statements of the current thread's request.
+     *
+     * @return false if a request is already being counted on this thread, the caller must then not call endRequest
+     */
+    public boolean beginRequest() {
+        if (requestCounter.get() != null) {
+            return false;
+        }
+        requestCounter.set(new RequestCounter());
+        return true;
+    }
+
+    /**
+     * Stops counting the current thread's request and adds it to the statements per request histogram.
+     */
+    public RequestCounter endRequest() {
+        RequestCounter counter = requestCounter.get();
+        requestCounter.remove();
+        if (counter != null) {
+            statementsPerRequest.record(counter.statements);
+        }
+        return counter;
+    }
+
+    void connectionCheckedOut(long waitedMillis) {
+        checkouts.incrementAndGet();
+        waitMillis.record(waitedMillis);
+        RequestCounter counter = requestCounter.get();
+        if (counter != null) {
+            counter.connections++;
+            counter.waitMillis += waitedMillis;
+        }
+    }
+
+    void connectionCheckoutFailed(long waitedMillis) {
+        checkoutFailures.incrementAndGet();
+        waitMillis.record(waitedMillis);
+    }
+
+    void connectionReturned(long heldMillis) {
+        checkoutMillis.record(heldMillis);
+    }
+
+    void statementCreated() {
+        statements.incrementAndGet();
+        RequestCounter counter = requestCounter.get();
+        if (counter != null) {
+            counter.statements++;
+        }
+    }
+
+    void leakDetected() {
+        leaks.incrementAndGet();
+    }
+
+    public Histogram getWaitMillis() {
+        return waitMillis;
+    }
+
+    public Histogram getCheckoutMillis() {
+        return checkoutMillis;
+    }
+
+    public Histogram getStatementsPerRequest() {
+        return statementsPerRequest;
+    }
+
+    public long getCheckouts() {
+        return checkouts.get();
+    }
+
+    public long getCheckoutFailures() {
+        return checkoutFailures.get();
+    }
+
+    /**
+     * @return the statements created, prepared or called on pooled connections, a close proxy for queries since
+     * hibernate and the jdbc code prepare one statement per query
+     */
+    public long getStatements() {
+        return statements.get();
+    }
+
+    /**
+     * @return the connections that were found checked out for longer than db_leak_threshold_seconds
+     */
+    public long getLeaks() {
+        return leaks.get();
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("checkouts", getCheckouts());
+        map.put("checkoutFailures", getCheckoutFailures());
+        map.put("statements", getStatements());
+        map.put("leaks", getLeaks());
+        map.put("waitMillis", waitMillis.toMap());
+        map.put("checkoutMillis", checkoutMillis.toMap());
+        map.put("statementsPerRequest", statementsPerRequest.toMap());
+        return map;
+    }
+
+    /**
+     * The database use of one servlet request, only touched by the request's thread.
+     */
+    public static class RequestCounter {
+        private int connections;
+        private int statements;
+        private long waitMillis;
+
+        public int getConnections() {
+            return connections;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getWaitMillis() {
+            return waitMillis;
+        }
+    }
+
+    /**
+     * Counts values into fixed buckets, each bucket holding the values up to and including its bound
+     * and above the previous bound, plus one overflow bucket.
+     */
+    public static class Histogram {
+        private final long[] bounds;
+        private final AtomicLongArray counts;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        public Histogram(long... bounds) {
+            this.bounds = bounds.clone();
+            this.counts = new AtomicLongArray(bounds.length + 1);
+        }
+
+        public void record(long value) {
+            int bucket = 0;
+            while (bucket < bounds.length && value > bounds[bucket]) {
+                bucket++;
+            }
+            counts.incrementAndGet(bucket);
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        public double getMean() {
+            long n = count.get();
+            return n == 0 ? 0 : (double) sum.get() / n;
+        }
+
+        /**
+         * @return the bucket counts keyed "&lt;=bound", the last one "&gt;bound"
+         */
+        public Map<String, Long> getBuckets() {
+            Map<String, Long> buckets = new LinkedHashMap<String, Long>();
+            for (int i = 0; i < bounds.length; i++) {
+                buckets.put("<=" + bounds[i], counts.get(i));
+            }
+            buckets.put(">" + bounds[bounds.length - 1], counts.get(bounds.length));
+            return buckets;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            map.put("count", getCount());
+            map.put("mean", Math.round(getMean() * 10) / 10.0);
+            map.put("max", getMax());
+            map.put("buckets", getBuckets());
+            return map;
+        }
+    }
+}
@@ -32,9 +32,12 @@ import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 import javax.sql.DataSource;
 
+import ca.openosp.OscarProperties;
 import ca.openosp.openo.filters.OscarBaseFilter;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.Logger;
 
 import ca.openosp.openo.util.SqlUtils;
@@ -44,6 +47,8 @@ public class DbConnectionFilter extends OscarBaseFilter {
 
     private static ThreadLocal<Connection> dbConnection = new ThreadLocal<Connection>();
 
+    private static final int requestStatementWarn = NumberUtils.toInt(OscarProperties.getInstance().getProperty("db_request_statement_warn"), 1000);
+
     /**
      * deprecated we should stop using raw jdbc connections. Don't write new code using raw jdbc, use JPA and native queries instead.
      */
@@ -63,6 +68,8 @@ public class DbConnectionFilter extends OscarBaseFilter {
     }
 
     public void doFilterInternal(ServletRequest tmpRequest, ServletResponse tmpResponse, FilterChain chain) throws IOException, ServletException {
+        ConnectionPoolMetrics metrics = OscarTrackingBasicDataSource.getMetrics();
+        boolean counting = metrics.beginRequest();
         try {
             chain.doFilter(tmpRequest, tmpResponse);
         } catch (Exception e) {
@@ -70,6 +77,17 @@ public class DbConnectionFilter extends OscarBaseFilter {
             throw (new ServletException(e));
         } finally {
             releaseAllThreadDbResources();
+            if (counting) {
+                logHeavyRequest(tmpRequest, metrics.endRequest());
+            }
+        }
+    }
+
+    private static void logHeavyRequest(ServletRequest request, ConnectionPoolMetrics.RequestCounter counter) {
+        if (requestStatementWarn > 0 && counter != null && counter.getStatements() >= requestStatementWarn) {
+            String url = request instanceof HttpServletRequest ? ((HttpServletRequest) request).getRequestURI() : request.toString();
+            logger.warn("Request " + url + " created " + counter.getStatements() + " jdbc statements on " + counter.getConnections()
+                    + " connections, waited " + counter.getWaitMillis() + "ms for connections");
         }
     }
 
@@ -37,32 +37,106 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.TimeZone;
 import java.util.WeakHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.Logger;
 
+import ca.openosp.OscarProperties;
+
+/**
+ * The pool of jdbc connections. Every checkout is wrapped so that the connections a thread forgets
+ * can be closed by DbConnectionFilter at the end of the request, and so that the pool metrics
+ * (wait and checkout times, statements per request, see ConnectionPoolMetrics) can be kept.
+ * <p>
+ * Leak tracking is sampled: every checkout records when and on which thread it was taken, but only
+ * one in db_leak_sample_rate records the stack trace. Connections held longer than
+ * db_leak_threshold_seconds are logged once, with the stack trace when it was sampled.
+ */
 public class OscarTrackingBasicDataSource extends BasicDataSource {
 
     public static final int MAX_CONNECTION_WARN_SIZE = 2;
     public static final Logger logger = MiscUtils.getLogger();
-    public static final Map<Connection, StackTraceElement[]> debugMap = Collections.synchronizedMap(new WeakHashMap<Connection, StackTraceElement[]>());
     private static final ThreadLocal<HashSet<Connection>> connections = new ThreadLocal<HashSet<Connection>>();
 
+    private static final ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+    // weak keys, a connection dropped without being closed mustn't keep its checkout, and stack trace, forever
+    private static final Map<TrackingJdbcConnection, Checkout> checkouts = Collections.synchronizedMap(new WeakHashMap<TrackingJdbcConnection, Checkout>());
+    private static final int leakSampleRate = NumberUtils.toInt(OscarProperties.getInstance().getProperty("db_leak_sample_rate"), 20);
+    private static final long leakThresholdMillis = NumberUtils.toLong(OscarProperties.getInstance().getProperty("db_leak_threshold_seconds"), 300) * 1000;
+    private static final ScheduledExecutorService leakChecker = Executors.newSingleThreadScheduledExecutor(new DeamonThreadFactory("db-leak-check", Thread.MIN_PRIORITY));
+
+    static {
+        long period = Math.max(10000, leakThresholdMillis / 4);
+        leakChecker.scheduleWithFixedDelay(OscarTrackingBasicDataSource::checkForLeaks, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * One connection checkout, the stack trace is only set for sampled checkouts.
+     */
+    public static final class Checkout {
+        private final long checkedOut = System.currentTimeMillis();
+        private final String threadName = Thread.currentThread().getName();
+        private final StackTraceElement[] stackTrace;
+        private volatile boolean reported = false;
+
+        private Checkout(boolean sampled) {
+            this.stackTrace = sampled ? Thread.currentThread().getStackTrace() : null;
+        }
+
+        public long getCheckedOut() {
+            return checkedOut;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public StackTraceElement[] getStackTrace() {
+            return stackTrace;
+        }
+
+        public boolean isReported() {
+            return reported;
+        }
+    }
+
+    public static ConnectionPoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the connections currently checked out, oldest first
+     */
+    public static List<Checkout> getCheckouts() {
+        List<Checkout> result = checkoutsSnapshot();
+        result.sort(Comparator.comparingLong(Checkout::getCheckedOut));
+        return result;
+    }
+
     private static Connection trackConnection(Connection c) {
-        c = new TrackingJdbcConnection(c);
+        TrackingJdbcConnection tracked = new TrackingJdbcConnection(c);
 
-        debugMap.put(c, Thread.currentThread().getStackTrace());
+        boolean sampled = leakSampleRate > 0 && (leakSampleRate == 1 || ThreadLocalRandom.current().nextInt(leakSampleRate) == 0);
+        checkouts.put(tracked, new Checkout(sampled));
 
         HashSet<Connection> threadConnections = connections.get();
         if (threadConnections == null) {
@@ -70,7 +144,7 @@ public class OscarTrackingBasicDataSource extends BasicDataSource {
             connections.set(threadConnections);
         }
 
-        threadConnections.add(c);
+        threadConnections.add(tracked);
 
         if (threadConnections.size() > MAX_CONNECTION_WARN_SIZE) {
             String msg = "Thread is currently using " + threadConnections.size() + " separate jdbc connections, it souldn't need more than " + MAX_CONNECTION_WARN_SIZE;
@@ -78,7 +152,7 @@ public class OscarTrackingBasicDataSource extends BasicDataSource {
             logger.debug(msg, new Exception(msg));
         }
 
-        return (c);
+        return (tracked);
     }
 
     public static void releaseThreadConnections() {
@@ -100,21 +174,55 @@ public class OscarTrackingBasicDataSource extends BasicDataSource {
         connections.remove();
     }
 
+    private static void checkForLeaks() {
+        long now = System.currentTimeMillis();
+        for (Checkout checkout : checkoutsSnapshot()) {
+            if (!checkout.reported && now - checkout.checkedOut > leakThresholdMillis) {
+                checkout.reported = true;
+                metrics.leakDetected();
+                logger.warn("Possible jdbc connection leak, held " + ((now - checkout.checkedOut) / 1000) + "s by thread " + checkout.threadName
+                        + (checkout.stackTrace == null ? " (checkout stack trace not sampled)" : ", checked out at:\n" + formatStackTrace(checkout.stackTrace)));
+            }
+        }
+    }
+
+    private static List<Checkout> checkoutsSnapshot() {
+        synchronized (checkouts) {
+            return new ArrayList<Checkout>(checkouts.values());
+        }
+    }
+
+    private static String formatStackTrace(StackTraceElement[] stackTrace) {
+        return Arrays.toString(stackTrace).replace(",", "\n");
+    }
+
     public static void logDebugMapToError() {
         String divider = "------------------------------";
 
-        HashMap<Connection, StackTraceElement[]> connectionMap = new HashMap<Connection, StackTraceElement[]>(debugMap);
-        for (Map.Entry<Connection, StackTraceElement[]> entry : connectionMap.entrySet()) {
-            String key = entry.getKey().hashCode() + ":" + entry.getKey().toString();
-            String value = (Arrays.toString(entry.getValue())).replace(",", "\n");
+        long now = System.currentTimeMillis();
+        Map<TrackingJdbcConnection, Checkout> snapshot;
+        synchronized (checkouts) {
+            snapshot = new HashMap<TrackingJdbcConnection, Checkout>(checkouts);
+        }
+        for (Map.Entry<TrackingJdbcConnection, Checkout> entry : snapshot.entrySet()) {
+            Checkout checkout = entry.getValue();
+            String key = entry.getKey().hashCode() + ":" + entry.getKey().toString() + " held " + (now - checkout.checkedOut) + "ms by " + checkout.threadName;
+            String value = checkout.stackTrace == null ? "(stack trace not sampled)" : formatStackTrace(checkout.stackTrace);
             logger.error(divider + '\n' + key + '\n' + value + '\n' + divider);
         }
     }
 
     public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
         try {
-            return trackConnection(super.getConnection());
+            Connection c = super.getConnection();
+            metrics.connectionCheckedOut((System.nanoTime() - start) / 1000000);
+            return trackConnection(c);
+        } catch (SQLException e) {
+            metrics.connectionCheckoutFailed((System.nanoTime() - start) / 1000000);
+            throw (e);
         } catch (RuntimeException e) {
+            metrics.connectionCheckoutFailed((System.nanoTime() - start) / 1000000);
             logger.error("Error:", e);
             logDebugMapToError();
             throw (e);
@@ -122,9 +230,16 @@ public class OscarTrackingBasicDataSource extends BasicDataSource {
     }
 
     public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
         try {
-            return trackConnection(super.getConnection(username, password));
+            Connection c = super.getConnection(username, password);
+            metrics.connectionCheckedOut((System.nanoTime() - start) / 1000000);
+            return trackConnection(c);
+        } catch (SQLException e) {
+            metrics.connectionCheckoutFailed((System.nanoTime() - start) / 1000000);
+            throw (e);
         } catch (RuntimeException e) {
+            metrics.connectionCheckoutFailed((System.nanoTime() - start) / 1000000);
             logger.error("Error:", e);
             logDebugMapToError();
             throw (e);
@@ -160,7 +275,10 @@ public class OscarTrackingBasicDataSource extends BasicDataSource {
 
         public void close() throws SQLException {
             try {
-                debugMap.remove(this);
+                Checkout checkout = checkouts.remove(this);
+                if (checkout != null) {
+                    metrics.connectionReturned(System.currentTimeMillis() - checkout.checkedOut);
+                }
 
                 HashSet<Connection> map = connections.get();
                 if (map != null) {
@@ -196,14 +314,17 @@ public class OscarTrackingBasicDataSource extends BasicDataSource {
         }
 
         public Statement createStatement() throws SQLException {
+            metrics.statementCreated();
             return connection.createStatement();
         }
 
         public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+            metrics.statementCreated();
             return connection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
         }
 
         public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+            metrics.statementCreated();
             return connection.createStatement(resultSetType, resultSetConcurrency);
         }
 
@@ -268,38 +389,47 @@ public class OscarTrackingBasicDataSource extends BasicDataSource {
         }
 
         public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+            metrics.statementCreated();
             return connection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
         }
 
         public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+            metrics.statementCreated();
             return connection.prepareCall(sql, resultSetType, resultSetConcurrency);
         }
 
         public CallableStatement prepareCall(String sql) throws SQLException {
+            metrics.statementCreated();
             return connection.prepareCall(sql);
         }
 
         public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+            metrics.statementCreated();
             return connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
         }
 
         public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+            metrics.statementCreated();
             return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
         }
 
         public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+            metrics.statementCreated();
             return connection.prepareStatement(sql, autoGeneratedKeys);
         }
 
         public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+            metrics.statementCreated();
             return connection.prepareStatement(sql, columnIndexes);
         }
 
         public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+            metrics.statementCreated();
             return connection.prepareStatement(sql, columnNames);
         }
 
         public PreparedStatement prepareStatement(String sql) throws SQLException {
+            metrics.statementCreated();
             return connection.prepareStatement(sql);
         }
 
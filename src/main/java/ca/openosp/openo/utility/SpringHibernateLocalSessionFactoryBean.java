@@ -232,7 +232,7 @@ public class SpringHibernateLocalSessionFactoryBean extends LocalSessionFactoryB
 
         @Override
         public Cache getCache() {
-            return null;
+            return sessionFactory.getCache();
         }
 
         @Override
@@ -247,7 +247,7 @@ public class SpringHibernateLocalSessionFactoryBean extends LocalSessionFactoryB
 
         @Override
         public <T> T unwrap(Class<T> cls) {
-            return null;
+            return sessionFactory.unwrap(cls);
         }
 
         @Override
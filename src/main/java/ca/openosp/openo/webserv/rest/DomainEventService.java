@@ -0,0 +1,89 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.webserv.rest;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import ca.openosp.openo.commn.model.DomainEventDeadLetter;
+import ca.openosp.openo.event.DomainEventLag;
+import ca.openosp.openo.managers.DomainEventManager;
+import ca.openosp.openo.webserv.rest.to.DomainEventStatusResponse;
+import ca.openosp.openo.webserv.rest.to.model.DomainEventDeadLetterTo1;
+import ca.openosp.openo.webserv.rest.to.model.DomainEventLagTo1;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivery lag of the domain event listeners and the dead letters they left behind.
+ */
+@Path("/events")
+@Component("domainEventService")
+@Consumes(MediaType.APPLICATION_JSON)
+public class DomainEventService extends AbstractServiceImpl {
+
+    @Autowired
+    DomainEventManager domainEventManager;
+
+    @GET
+    @Path("/lag")
+    @Produces("application/json")
+    public DomainEventStatusResponse getLag() {
+        DomainEventStatusResponse response = new DomainEventStatusResponse();
+        for (DomainEventLag lag : domainEventManager.getLag(getLoggedInInfo())) {
+            DomainEventLagTo1 to = new DomainEventLagTo1();
+            BeanUtils.copyProperties(lag, to);
+            response.getListeners().add(to);
+        }
+        return response;
+    }
+
+    @GET
+    @Path("/deadLetters")
+    @Produces("application/json")
+    public DomainEventStatusResponse getDeadLetters(@QueryParam("startIndex") Integer startIndex, @QueryParam("itemsToReturn") Integer itemsToReturn) {
+        DomainEventStatusResponse response = new DomainEventStatusResponse();
+        for (DomainEventDeadLetter deadLetter : domainEventManager.getDeadLetters(getLoggedInInfo(), startIndex != null ? startIndex : 0, itemsToReturn != null ? itemsToReturn : 50)) {
+            DomainEventDeadLetterTo1 to = new DomainEventDeadLetterTo1();
+            BeanUtils.copyProperties(deadLetter, to);
+            response.getDeadLetters().add(to);
+        }
+        return response;
+    }
+
+    @GET
+    @Path("/deadLetters/{id}/retry")
+    @Produces("application/json")
+    public DomainEventStatusResponse retryDeadLetter(@PathParam("id") Long id) {
+        domainEventManager.retryDeadLetter(getLoggedInInfo(), id);
+        return getLag();
+    }
+}
@@ -26,7 +26,6 @@ package ca.openosp.openo.webserv.rest;
 
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.ScheduledFuture;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.core.MediaType;
@@ -39,14 +38,19 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MultivaluedMap;
 
 import org.apache.logging.log4j.Logger;
-import ca.openosp.openo.commn.jobs.OscarJobExecutingManager;
+import ca.openosp.openo.commn.jobs.OscarJobStatus;
 import ca.openosp.openo.commn.jobs.OscarJobUtils;
 import ca.openosp.openo.commn.model.OscarJob;
+import ca.openosp.openo.commn.model.OscarJobRun;
 import ca.openosp.openo.commn.model.OscarJobType;
 import ca.openosp.openo.managers.OscarJobManager;
+import ca.openosp.openo.managers.OscarJobSchedulerManager;
 import ca.openosp.openo.utility.MiscUtils;
 import ca.openosp.openo.webserv.rest.to.OscarJobResponse;
+import ca.openosp.openo.webserv.rest.to.OscarJobStatusResponse;
 import ca.openosp.openo.webserv.rest.to.OscarJobTypeResponse;
+import ca.openosp.openo.webserv.rest.to.model.OscarJobRunTo1;
+import ca.openosp.openo.webserv.rest.to.model.OscarJobStatusTo1;
 import ca.openosp.openo.webserv.rest.to.model.OscarJobTo1;
 import ca.openosp.openo.webserv.rest.to.model.OscarJobTypeTo1;
 import org.springframework.beans.BeanUtils;
@@ -65,6 +69,9 @@ public class OscarJobService extends AbstractServiceImpl {
     @Autowired
     OscarJobManager oscarJobManager;
 
+    @Autowired
+    OscarJobSchedulerManager oscarJobSchedulerManager;
+
 
     @GET
     @Path("/types/current")
@@ -192,10 +199,7 @@ public class OscarJobService extends AbstractServiceImpl {
     @Produces("application/json")
     public OscarJobResponse cancelJob(@QueryParam(value = "jobId") Integer jobId) {
 
-        ScheduledFuture<Object> future = OscarJobExecutingManager.getFutures().get(jobId);
-        if (future != null) {
-            future.cancel(true);
-        }
+        OscarJobUtils.unscheduleJob(jobId, true);
         return getJob(jobId);
     }
 
@@ -357,12 +361,68 @@ public class OscarJobService extends AbstractServiceImpl {
         }
         oscarJobManager.updateJob(getLoggedInInfo(), job);
 
-        ScheduledFuture<Object> future = OscarJobExecutingManager.getFutures().get(job.getId());
-        if (future != null) {
-            future.cancel(false);
-        }
+        OscarJobUtils.unscheduleJob(job.getId(), false);
 
 
         return getJob(jobId);
     }
+
+    @GET
+    @Path("/scheduler/status")
+    @Produces("application/json")
+    public OscarJobStatusResponse getSchedulerStatus() {
+        OscarJobStatusResponse response = new OscarJobStatusResponse();
+        for (OscarJobStatus status : oscarJobSchedulerManager.getJobStatuses(getLoggedInInfo())) {
+            OscarJobStatusTo1 to = new OscarJobStatusTo1();
+            BeanUtils.copyProperties(status, to, new String[]{"lastRun"});
+            if (status.getLastRun() != null) {
+                to.setLastRun(toRunTo1(status.getLastRun()));
+            }
+            response.getJobs().add(to);
+        }
+        return response;
+    }
+
+    @GET
+    @Path("/scheduler/history")
+    @Produces("application/json")
+    public OscarJobStatusResponse getSchedulerHistory(@QueryParam("name") String name, @QueryParam("startIndex") Integer startIndex, @QueryParam("itemsToReturn") Integer itemsToReturn) {
+        OscarJobStatusResponse response = new OscarJobStatusResponse();
+        for (OscarJobRun run : oscarJobSchedulerManager.getRunHistory(getLoggedInInfo(), name, startIndex != null ? startIndex : 0, itemsToReturn != null ? itemsToReturn : 50)) {
+            response.getRuns().add(toRunTo1(run));
+        }
+        return response;
+    }
+
+    @GET
+    @Path("/scheduler/pause")
+    @Produces("application/json")
+    public OscarJobStatusResponse pauseScheduledJob(@QueryParam("name") String name) {
+        oscarJobSchedulerManager.pause(getLoggedInInfo(), name);
+        return getSchedulerStatus();
+    }
+
+    @GET
+    @Path("/scheduler/resume")
+    @Produces("application/json")
+    public OscarJobStatusResponse resumeScheduledJob(@QueryParam("name") String name) {
+        oscarJobSchedulerManager.resume(getLoggedInInfo(), name);
+        return getSchedulerStatus();
+    }
+
+    @GET
+    @Path("/scheduler/runNow")
+    @Produces("application/json")
+    public OscarJobStatusResponse runScheduledJobNow(@QueryParam("name") String name) {
+        if (!oscarJobSchedulerManager.runNow(getLoggedInInfo(), name)) {
+            logger.warn("job " + name + " is not scheduled on this server");
+        }
+        return getSchedulerStatus();
+    }
+
+    private static OscarJobRunTo1 toRunTo1(OscarJobRun run) {
+        OscarJobRunTo1 to = new OscarJobRunTo1();
+        BeanUtils.copyProperties(run, to);
+        return to;
+    }
 }
@@ -0,0 +1,57 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.webserv.rest.to;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+import ca.openosp.openo.webserv.rest.to.model.OscarJobRunTo1;
+import ca.openosp.openo.webserv.rest.to.model.OscarJobStatusTo1;
+
+@XmlRootElement
+public class OscarJobStatusResponse {
+
+    private List<OscarJobStatusTo1> jobs = new ArrayList<OscarJobStatusTo1>();
+
+    private List<OscarJobRunTo1> runs = new ArrayList<OscarJobRunTo1>();
+
+    public List<OscarJobStatusTo1> getJobs() {
+        return jobs;
+    }
+
+    public void setJobs(List<OscarJobStatusTo1> jobs) {
+        this.jobs = jobs;
+    }
+
+    public List<OscarJobRunTo1> getRuns() {
+        return runs;
+    }
+
+    public void setRuns(List<OscarJobRunTo1> runs) {
+        this.runs = runs;
+    }
+}
@@ -0,0 +1,96 @@
+//CHECKSTYLE:OFF
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.webserv.rest.to.model;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+@XmlRootElement(name = "DomainEventLag")
+public class DomainEventLagTo1 implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String listener;
+
+    private long pending;
+
+    private long retrying;
+
+    private long deadLetters;
+
+    private Date oldestPending;
+
+    private long lagSeconds;
+
+    public String getListener() {
+        return listener;
+    }
+
+    public void setListener(String listener) {
+        this.listener = listener;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public void setPending(long pending) {
+        this.pending = pending;
+    }
+
+    public long getRetrying() {
+        return retrying;
+    }
+
+    public void setRetrying(long retrying) {
+        this.retrying = retrying;
+    }
+
+    public long getDeadLetters() {
+        return deadLetters;
+    }
+
+    public void setDeadLetters(long deadLetters) {
+        this.deadLetters = deadLetters;
+    }
+
+    public Date getOldestPending() {
+        return oldestPending;
+    }
+
+    public void setOldestPending(Date oldestPending) {
+        this.oldestPending = oldestPending;
+    }
+
+    public long getLagSeconds() {
+        return lagSeconds;
+    }
+
+    public void setLagSeconds(long lagSeconds) {
+        this.lagSeconds = lagSeconds;
+    }
+}
@@ -144,9 +144,9 @@
 
                 <p>Welcome to the Audit Log Purge Tool.</p>
                 <p>
-                    When run, this tool will backup all the log entries set to be purged using mysqldump onto the OSCAR
+                    When run, this tool will archive all the log entries set to be purged as compressed files on the OSCAR
                     server.
-                    The file can be found in <%=outputDirectory %>.
+                    The files can be found in <%=outputDirectory %>/audit_log_archive.
                 </p>
                 <p>The admin of this system has set log.purge.minDays to <%=minDays%> meaning that you must choose a
                     date below
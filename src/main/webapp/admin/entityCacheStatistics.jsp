@@ -0,0 +1,126 @@
+<!DOCTYPE html>
+<%--
+
+    Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+    This software is published under the GPL GNU General Public License.
+    This program is free software; you can redistribute it and/or
+    modify it under the terms of the GNU General Public License
+    as published by the Free Software Foundation; either version 2
+    of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program; if not, write to the Free Software
+    Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+
+    This software was written for the
+    Department of Family Medicine
+    McMaster University
+    Hamilton
+    Ontario, Canada
+
+--%>
+
+<%@ taglib uri="/WEB-INF/security.tld" prefix="security" %>
+<%
+    String roleName$ = (String) session.getAttribute("userrole") + "," + (String) session.getAttribute("user");
+    boolean authed = true;
+%>
+<security:oscarSec roleName="<%=roleName$%>" objectName="_admin" rights="r" reverse="<%=true%>">
+    <%authed = false; %>
+    <%response.sendRedirect(request.getContextPath() + "/securityError.jsp?type=_admin");%>
+</security:oscarSec>
+<%
+    if (!authed) {
+        return;
+    }
+%>
+
+<%@ taglib uri="http://java.sun.com/jsp/jstl/core" prefix="c" %>
+<%@ taglib uri="http://java.sun.com/jsp/jstl/fmt" prefix="fmt" %>
+<c:set var="ctx" value="${pageContext.request.contextPath}" scope="request"/>
+
+<html>
+    <head>
+        <title>Entity Cache Statistics</title>
+
+        <link rel="stylesheet" href="${ctx}/css/bootstrap.css" type="text/css">
+        <link rel="stylesheet" href="${ctx}/css/bootstrap-responsive.css" type="text/css">
+        <script src="${ctx}/csrfguard"></script>
+    </head>
+
+    <body>
+
+    <div class="container-fluid well">
+        <h3>Entity Cache Statistics</h3>
+
+        <p>
+            Reference data read through the JPA and Hibernate session factories is kept in these second level cache
+            regions. Counts are since the server started. Clear a region after changing its table outside of OSCAR.
+        </p>
+
+        <c:if test="${not empty msg}">
+            <p class="text-info"><c:out value="${msg}"/></p>
+        </c:if>
+
+        <table class="table table-condensed table-striped">
+            <thead>
+            <tr>
+                <th>Region</th>
+                <th>Strategy</th>
+                <th>Entries</th>
+                <th>Max</th>
+                <th>TTL (s)</th>
+                <th>Hits</th>
+                <th>Misses</th>
+                <th>Hit ratio</th>
+                <th>Puts</th>
+                <th>Evicted</th>
+                <th>Expired</th>
+                <th></th>
+            </tr>
+            </thead>
+            <tbody>
+            <c:forEach var="region" items="${regions}">
+                <tr>
+                    <td><c:out value="${region.regionName}"/></td>
+                    <td><c:out value="${region.accessType}"/></td>
+                    <td>${region.size}</td>
+                    <td>${region.maxEntries}</td>
+                    <td>${region.timeToLiveSeconds == 0 ? '-' : region.timeToLiveSeconds}</td>
+                    <td>${region.hitCount}</td>
+                    <td>${region.missCount}</td>
+                    <td><fmt:formatNumber value="${region.hitRatio}" type="percent" maxFractionDigits="1"/></td>
+                    <td>${region.putCount}</td>
+                    <td>${region.evictedCount}</td>
+                    <td>${region.expiredCount}</td>
+                    <td>
+                        <form method="post" action="${ctx}/admin/EntityCache.do" style="margin:0">
+                            <input type="hidden" name="method" value="evict"/>
+                            <input type="hidden" name="region" value="<c:out value='${region.regionName}'/>"/>
+                            <input type="submit" class="btn btn-mini" value="Clear"/>
+                        </form>
+                    </td>
+                </tr>
+            </c:forEach>
+            <c:if test="${empty regions}">
+                <tr>
+                    <td colspan="12">The second level cache is disabled (hibernate.cache.use_second_level_cache).</td>
+                </tr>
+            </c:if>
+            </tbody>
+        </table>
+
+        <form method="post" action="${ctx}/admin/EntityCache.do">
+            <input type="hidden" name="method" value="evictAll"/>
+            <input type="submit" class="btn" value="Clear all regions" onclick="return confirm('Clear every cache region?');"/>
+            <a class="btn" href="${ctx}/admin/EntityCache.do">Refresh</a>
+        </form>
+    </div>
+
+    </body>
+</html>
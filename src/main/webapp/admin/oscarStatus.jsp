@@ -103,6 +103,12 @@
         <h5>Virtual Memory:</h5>
         <pre><%=request.getAttribute("vmstatText") %></pre>
 
+        <h5>Database Connection Pool: <a href="<%= request.getContextPath() %>/admin/dbPoolStatus.do">json</a></h5>
+        <pre><%=org.apache.commons.text.StringEscapeUtils.escapeHtml4((String) request.getAttribute("dbPoolStatusText")) %></pre>
+
+        <h5>PDF Rendering:</h5>
+        <pre><%=request.getAttribute("pdfRenderingStatusText") %></pre>
+
                 <%if (request.getAttribute("documentStatusText") != null) { %>
         <h5>Oscar Document Storage:</h5>
         <pre><%=request.getAttribute("documentStatusText") %></pre>
@@ -152,7 +152,7 @@
             a.setProgramId(Integer.parseInt((String) request.getSession().getAttribute("programId_oscarView")));
             a.setUrgency((request.getParameter("urgency") != null) ? request.getParameter("urgency") : "");
 
-            appointmentDao.persist(a);
+            appointmentDao.persistAndPublish(a);
             int rowsAffected = 1;
 
             if (rowsAffected == 1) {
@@ -107,7 +107,7 @@
                     a.setCreator(request.getParameter("creator"));
                     a.setCreateDateTime(ConversionUtils.fromDateString(request.getParameter("createdatetime")));
                     a.setReasonCode(Integer.parseInt(request.getParameter("reasonCode")));
-                    appointmentDao.persist(a);
+                    appointmentDao.persistAndPublish(a);
                     rowsAffected = 1;
                 }
                 if (request.getParameter("appointment_no") != null) {
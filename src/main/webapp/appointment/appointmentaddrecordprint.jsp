@@ -114,7 +114,7 @@
             a.setProgramId(Integer.parseInt((String) request.getSession().getAttribute("programId_oscarView")));
             a.setUrgency((request.getParameter("urgency") != null) ? request.getParameter("urgency") : "");
 
-            appointmentDao.persist(a);
+            appointmentDao.persistAndPublish(a);
 
 
             int rowsAffected = 1;
@@ -85,7 +85,7 @@
                 if (appt != null) {
                     appt.setStatus(request.getParameter("buttoncancel").equals("Cancel Appt") ? "C" : "N");
                     appt.setLastUpdateUser(updateuser);
-                    appointmentDao.merge(appt);
+                    appointmentDao.mergeAndPublish(appt, changedStatus);
                     rowsAffected = 1;
                 }
 
@@ -118,7 +118,7 @@
                         appt.setReasonCode(Integer.parseInt(rc));
                     }
 
-                    appointmentDao.merge(appt);
+                    appointmentDao.mergeAndPublish(appt, changedStatus);
                     rowsAffected = 1;
                 }
 
@@ -124,6 +124,7 @@
                     <div>
                         <input type="checkbox" name="showChangedCodes" value="on" checked tabindex="1"/><fmt:setBundle basename="oscarResources"/><fmt:message key="oscar.billing.CA.ON.billingON.sobUpload.showCodesChangedPrices"/><br>
                         <input type="checkbox" name="showNewCodes" value="on" tabindex="2"/><fmt:setBundle basename="oscarResources"/><fmt:message key="oscar.billing.CA.ON.billingON.sobUpload.showNewCodes"/><br>
+                        <input type="checkbox" name="showRetiredCodes" value="on" tabindex="4"/><fmt:setBundle basename="oscarResources"/><fmt:message key="oscar.billing.CA.ON.billingON.sobUpload.showRetiredCodes"/><br>
                         <input type="checkbox" name="forceUpdate" value="on" tabindex="3"/><fmt:setBundle basename="oscarResources"/><fmt:message key="oscar.billing.CA.ON.billingON.sobUpload.forceUpdate"/><br>
                         <input type="checkbox" name="updateAssistantFees" onclick="toggleAssistantInput(this);"
                                value="on" tabindex="5"/><fmt:setBundle basename="oscarResources"/><fmt:message key="oscar.billing.CA.ON.billingON.sobUpload.updateAssistantFees"/><span
@@ -161,11 +162,21 @@
             <div class="alert alert-error">There was a problem uploading this SOB file</div>
             <%} else if (outcome != null && outcome.equals("uploadedPreviously")) { %>
             <div class="alert ">This file has already been processed</div>
+            <%} else if (outcome != null && outcome.equals("updateFailed")) { %>
+            <div class="alert alert-error">There was a problem updating the billing codes, no prices have been changed</div>
             <%}%>
 
 
             <% if (warnings != null && outcome.equals("success")) { %>
             <div>
+                <% Map<String, Integer> changeCounts = new TreeMap<String, Integer>();
+                    for (Object w : warnings) {
+                        changeCounts.merge(String.valueOf(((Hashtable) w).get("changeType")), 1, Integer::sum);
+                    } %>
+                Nothing has been changed yet: <%=warnings.size()%> changes
+                <% for (Map.Entry<String, Integer> count : changeCounts.entrySet()) { %>
+                (<%=count.getKey()%>: <%=count.getValue()%>)
+                <% } %><br>
                 4. Click "Update" checkbox to select All<br>
 
                 <form action="${pageContext.request.contextPath}/billing/CA/ON/benefitScheduleChange.do" method="POST"
@@ -178,6 +189,7 @@
                                        onclick="checkAll('sbForm')" id="checkA"/>
                             </oscar:oscarPropertiesCheck> Update
                             </th>
+                            <th>Change</th>
                             <th>Fee Code</th>
                             <th>Current Price</th>
                             <th>New Price</th>
@@ -193,7 +205,9 @@
                         %>
                         <tr>
                             <td><input type="checkbox" name="change"
-                                       value="<%=h.get("feeCode")%>|<%=h.get("newprice")%>|<%=h.get("effectiveDate")%>|<%=h.get("terminactionDate")%>|<%=h.get("description")%>"/>
+                                       value="<%=h.get("feeCode")%>|<%=h.get("newprice")%>|<%=h.get("effectiveDate")%>|<%=h.get("terminactionDate")%>|<%=h.get("description")%>|<%=h.get("changeType")%>"/>
+                            </td>
+                            <td><%=h.get("changeType")%>
                             </td>
                             <td><%=h.get("feeCode")%>
                             </td>
@@ -67,7 +67,8 @@
 <%@page import="ca.openosp.openo.commn.model.Demographic" %>
 <%@page import="ca.openosp.openo.commn.dao.DemographicDao" %>
 <%@ page import="ca.openosp.openo.demographic.data.DemographicMerged" %>
-<%@page import="ca.openosp.openo.commn.dao.OscarLogDao" %>
+<%@page import="ca.openosp.openo.commn.dao.RecentDemographicAccessDao" %>
+<%@page import="ca.openosp.openo.commn.model.RecentDemographicAccess" %>
 <%@ page import="org.owasp.encoder.Encode" %>
 <%@ page import="ca.openosp.Misc" %>
 <%@ page import="ca.openosp.OscarProperties" %>
@@ -96,7 +97,7 @@
 
     List<Demographic> demoList = null;
     DemographicDao demographicDao = (DemographicDao) SpringUtils.getBean(DemographicDao.class);
-    OscarLogDao oscarLogDao = (OscarLogDao) SpringUtils.getBean(OscarLogDao.class);
+    RecentDemographicAccessDao recentDemographicAccessDao = SpringUtils.getBean(RecentDemographicAccessDao.class);
     String providerNo = loggedInInfo.getLoggedInProviderNo();
     boolean outOfDomain = true;
     if (OscarProperties.getInstance().getProperty("ModuleNames", "").indexOf("Caisi") != -1) {
@@ -416,10 +417,10 @@
 
                     if (request.getParameter("keyword") != null && request.getParameter("keyword").length() == 0) {
                         int mostRecentPatientListSize = Integer.parseInt(OscarProperties.getInstance().getProperty("MOST_RECENT_PATIENT_LIST_SIZE", "3"));
-                        List<Integer> results = oscarLogDao.getRecentDemographicsAccessedByProvider(providerNo, 0, mostRecentPatientListSize);
+                        List<RecentDemographicAccess> results = recentDemographicAccessDao.findByProviderNo(providerNo, null, 0, mostRecentPatientListSize);
                         demoList = new ArrayList<Demographic>();
-                        for (Integer r : results) {
-                            demoList.add(demographicDao.getDemographicById(r));
+                        for (RecentDemographicAccess r : results) {
+                            demoList.add(demographicDao.getDemographicById(r.getDemographicNo()));
                         }
                     } else {
 
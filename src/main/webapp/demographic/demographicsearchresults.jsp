@@ -47,7 +47,8 @@
 <%@page import="ca.openosp.openo.caisi_integrator.ws.FacilityIdStringCompositePk" %>
 <%@page import="ca.openosp.openo.PMmodule.caisi_integrator.CaisiIntegratorManager" %>
 <%@page import="org.apache.commons.lang3.time.DateFormatUtils" %>
-<%@page import="ca.openosp.openo.commn.dao.OscarLogDao" %>
+<%@page import="ca.openosp.openo.commn.dao.RecentDemographicAccessDao" %>
+<%@page import="ca.openosp.openo.commn.model.RecentDemographicAccess" %>
 <%@page import="ca.openosp.openo.caisi_integrator.ws.DemographicTransfer" %>
 <%@page import="ca.openosp.openo.caisi_integrator.ws.MatchingDemographicTransferScore" %>
 <%@page import="ca.openosp.openo.casemgmt.service.CaseManagementManager" %>
@@ -294,7 +295,7 @@
 
 <%!
 	DemographicDao demographicDao = SpringUtils.getBean(DemographicDao.class);
-        OscarLogDao oscarLogDao = SpringUtils.getBean(OscarLogDao.class);
+        RecentDemographicAccessDao recentDemographicAccessDao = SpringUtils.getBean(RecentDemographicAccessDao.class);
 	CaseManagementManager caseManagementManager = SpringUtils.getBean(CaseManagementManager.class);
 
 %>
@@ -323,10 +324,10 @@
 
                     if (keyword != null && keyword.length() == 0) {
                         int mostRecentPatientListSize = Integer.parseInt(OscarProperties.getInstance().getProperty("MOST_RECENT_PATIENT_LIST_SIZE", "3"));
-                        List<Integer> results = oscarLogDao.getRecentDemographicsAccessedByProvider(providerNo, 0, mostRecentPatientListSize);
+                        List<RecentDemographicAccess> results = recentDemographicAccessDao.findByProviderNo(providerNo, null, 0, mostRecentPatientListSize);
                         demoList = new ArrayList<Demographic>();
-                        for (Integer r : results) {
-                            demoList.add(demographicDao.getDemographicById(r));
+                        for (RecentDemographicAccess r : results) {
+                            demoList.add(demographicDao.getDemographicById(r.getDemographicNo()));
                         }
                     } else {
                         demoList = doSearch(demographicDao, searchMode, ptStatus, keyword, limit, offset, orderBy, providerNo, outOfDomain);
@@ -46,7 +46,7 @@
     if (appt != null) {
         appt.setStatus(request.getParameter("status") + request.getParameter("statusch"));
         appt.setLastUpdateUser((String) session.getAttribute("user"));
-        appointmentDao.merge(appt);
+        appointmentDao.mergeAndPublish(appt, request.getParameter("statusch"));
         rowsAffected = 1;
     }
 
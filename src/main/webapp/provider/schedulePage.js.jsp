@@ -28,6 +28,7 @@
 <%
     String newticklerwarningwindow = null;
     String cbiReminderWindow = null;
+    int tabAlertPollSeconds = org.apache.commons.lang3.math.NumberUtils.toInt(ca.openosp.OscarProperties.getInstance().getProperty("tab_alerts.poll_seconds"), 60);
 
     if (ca.openosp.openo.commn.IsPropertiesOn.isCaisiEnable() && ca.openosp.openo.commn.IsPropertiesOn.propertiesOn("CBI_REMINDER_WINDOW")) {
         cbiReminderWindow = (String) session.getAttribute("cbiReminderWindow");
@@ -345,6 +346,7 @@ pu.focus();
 
 popupPageOfChangePassword();
 refreshAllTabAlerts();
+listenForTabAlerts();
 }
 
 function IsPopupBlocker() {
@@ -366,6 +368,44 @@ refreshTabAlerts("oscar_aged_consults");
 refreshTabAlerts("oscar_scratch");
 }
 
+<%-- Changed tabs are pushed by TabAlertStreamServlet, browsers without EventSource or that can't keep the stream open poll instead --%>
+var tabAlertPollTimer = null;
+
+function listenForTabAlerts() {
+if (!window.EventSource) {
+pollTabAlerts();
+return;
+}
+var reconnecting = false;
+var source = new EventSource("<%= request.getContextPath() %>/provider/tabAlertStream");
+source.onopen = function() {
+if (tabAlertPollTimer != null) {
+clearInterval(tabAlertPollTimer);
+tabAlertPollTimer = null;
+}
+<%-- catch up on anything missed while disconnected --%>
+if (reconnecting) {
+refreshAllTabAlerts();
+}
+reconnecting = true;
+};
+source.onmessage = function(e) {
+refreshTabAlerts(e.data);
+};
+source.onerror = function() {
+<%-- the browser retries on its own unless the server refused the stream --%>
+if (source.readyState == EventSource.CLOSED) {
+pollTabAlerts();
+}
+};
+}
+
+function pollTabAlerts() {
+if (tabAlertPollTimer == null) {
+tabAlertPollTimer = setInterval(refreshAllTabAlerts, <%= tabAlertPollSeconds %> * 1000);
+}
+}
+
 function callRefreshTabAlerts(id) {
 setTimeout("refreshTabAlerts('"+id+"')", 10);
 }
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.billings.ca.on.OHIP;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ca.openosp.openo.commn.dao.BillingServiceDao;
+import ca.openosp.openo.commn.model.BillingService;
+import ca.openosp.openo.util.ConversionUtils;
+import ca.openosp.openo.utility.SpringUtils;
+
+public class ScheduleOfBenefitsTest {
+
+    private BillingServiceDao billingServiceDao;
+    private BeanFactory previousBeanFactory;
+
+    @Before
+    public void setUp() {
+        billingServiceDao = mock(BillingServiceDao.class);
+        when(billingServiceDao.findAllMostRecent()).thenReturn(Arrays.asList(
+                fee("A001A", "10.00", "2020-01-01", "Minor assessment"),
+                fee("A002A", "20.00", "2020-01-01", "Intermediate assessment"),
+                fee("A003A", "30.00", "2020-01-01", "Retired assessment")));
+
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("billingServiceDao", billingServiceDao);
+        previousBeanFactory = SpringUtils.getBeanFactory();
+        ReflectionTestUtils.setField(SpringUtils.class, "beanFactory", beanFactory);
+    }
+
+    @After
+    public void tearDown() {
+        ReflectionTestUtils.setField(SpringUtils.class, "beanFactory", previousBeanFactory);
+    }
+
+    @Test
+    public void scheduleIsDiffedAgainstTheCurrentFeesInOneQuery() {
+        String schedule = line("A001", "20200101", "100000") + "\n"
+                + line("A002", "20240401", "250000") + "\n"
+                + line("A004", "20240401", "400000") + "\n";
+
+        List changes = new ScheduleOfBenefits().processNewFeeSchedule(new ByteArrayInputStream(schedule.getBytes(StandardCharsets.US_ASCII)),
+                true, true, true, false, null, null);
+
+        Map<String, Map> byCode = new TreeMap<String, Map>();
+        for (Object change : changes) {
+            byCode.put((String) ((Map) change).get("feeCode"), (Map) change);
+        }
+        assertEquals(Arrays.asList("A002A", "A003A", "A004A"), Arrays.asList(byCode.keySet().toArray()));
+        assertEquals("price", byCode.get("A002A").get("changeType"));
+        assertEquals(new BigDecimal("25.00"), byCode.get("A002A").get("newprice"));
+        assertEquals("1", byCode.get("A002A").get("numCodes"));
+        assertEquals("retired", byCode.get("A003A").get("changeType"));
+        assertEquals("new", byCode.get("A004A").get("changeType"));
+        assertEquals("----", byCode.get("A004A").get("description"));
+        verify(billingServiceDao, times(1)).findAllMostRecent();
+    }
+
+    @Test
+    public void retiredCodesAreOnlyListedWhenAsked() {
+        String schedule = line("A001", "20240401", "100000") + "\n";
+
+        List changes = new ScheduleOfBenefits().processNewFeeSchedule(new ByteArrayInputStream(schedule.getBytes(StandardCharsets.US_ASCII)),
+                true, true, false, null, null);
+
+        assertEquals(0, changes.size());
+    }
+
+    private static String line(String feeCode, String effectiveDate, String gpFee) {
+        String zero = String.format("%011d", 0);
+        return feeCode + effectiveDate + "99999999" + String.format("%011d", Long.parseLong(gpFee)) + zero + zero + zero + zero;
+    }
+
+    private static BillingService fee(String code, String value, String date, String description) {
+        BillingService bs = new BillingService();
+        bs.setServiceCode(code);
+        bs.setValue(value);
+        bs.setBillingserviceDate(ConversionUtils.fromDateString(date));
+        bs.setTerminationDate(ConversionUtils.fromDateString("9999-12-31"));
+        bs.setDescription(description);
+        bs.setRegion("ON");
+        return bs;
+    }
+}
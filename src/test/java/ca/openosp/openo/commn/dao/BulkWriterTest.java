@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.openosp.openo.commn.model.MeasurementsExt;
+
+public class BulkWriterTest {
+
+    private List<String> calls;
+    private boolean failPersist;
+    private boolean transactionActive;
+    private EntityManagerFactory entityManagerFactory;
+
+    @Before
+    public void setUp() {
+        calls = new ArrayList<String>();
+        failPersist = false;
+        transactionActive = false;
+
+        final EntityTransaction transaction = (EntityTransaction) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{EntityTransaction.class}, (proxy, method, args) -> {
+            calls.add(method.getName());
+            if (method.getName().equals("begin")) {
+                transactionActive = true;
+            } else if (method.getName().equals("commit") || method.getName().equals("rollback")) {
+                transactionActive = false;
+            } else if (method.getName().equals("isActive")) {
+                calls.remove(calls.size() - 1);
+                return transactionActive;
+            }
+            return null;
+        });
+        final EntityManager entityManager = (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{EntityManager.class}, (proxy, method, args) -> {
+            if (method.getName().equals("getTransaction")) {
+                return transaction;
+            }
+            if (method.getName().equals("persist") && failPersist) {
+                throw new IllegalStateException("constraint violation");
+            }
+            calls.add(method.getName());
+            return method.getName().equals("merge") ? args[0] : null;
+        });
+        entityManagerFactory = (EntityManagerFactory) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{EntityManagerFactory.class}, (proxy, method, args) ->
+                method.getName().equals("createEntityManager") ? entityManager : null);
+    }
+
+    private BulkWriter<MeasurementsExt> writer(int batchSize) {
+        return new BulkWriter<MeasurementsExt>(MeasurementsExt.class, entityManagerFactory, null, batchSize);
+    }
+
+    @Test
+    public void testCommitsEachBatchOutsideTransaction() {
+        BulkWriter<MeasurementsExt> writer = writer(2);
+        try {
+            for (int i = 0; i < 5; i++) {
+                writer.persist(new MeasurementsExt());
+            }
+        } finally {
+            writer.close();
+        }
+
+        List<String> expected = new ArrayList<String>();
+        expected.add("begin");
+        for (int batch = 0; batch < 2; batch++) {
+            expected.add("persist");
+            expected.add("persist");
+            expected.add("flush");
+            expected.add("clear");
+            expected.add("commit");
+            expected.add("begin");
+        }
+        expected.add("persist");
+        expected.add("flush");
+        expected.add("commit");
+        expected.add("close");
+        assertEquals(expected, calls);
+
+        assertEquals(5, writer.getStatistics().getInserts());
+        assertEquals(3, writer.getStatistics().getFlushes());
+    }
+
+    @Test
+    public void testRollsBackAndClosesOnFailure() {
+        BulkWriter<MeasurementsExt> writer = writer(10);
+        writer.merge(new MeasurementsExt());
+        failPersist = true;
+        try {
+            writer.persist(new MeasurementsExt());
+            fail("the persist failure should be rethrown");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        writer.close();
+
+        assertEquals("[begin, merge, rollback, close]", calls.toString());
+        assertEquals(1, writer.getStatistics().getUpdates());
+        try {
+            writer.persist(new MeasurementsExt());
+            fail("a closed writer should refuse rows");
+        } catch (IllegalStateException e) {
+            assertEquals("The bulk writer for MeasurementsExt is closed", e.getMessage());
+        }
+    }
+}
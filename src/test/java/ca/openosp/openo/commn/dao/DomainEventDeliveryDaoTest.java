@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.Before;
+import org.junit.Test;
+import ca.openosp.openo.commn.dao.utils.SchemaUtils;
+import ca.openosp.openo.commn.model.DomainEventDelivery;
+import ca.openosp.openo.utility.SpringUtils;
+
+public class DomainEventDeliveryDaoTest extends DaoTestFixtures {
+
+    private static final String FAILING = "test.FailingListener";
+    private static final String WORKING = "test.WorkingListener";
+
+    protected DomainEventDeliveryDao dao = SpringUtils.getBean(DomainEventDeliveryDao.class);
+
+    private final Date due = DateUtils.addMinutes(new Date(), -5);
+    private final Date notDue = DateUtils.addHours(new Date(), 1);
+
+    @Before
+    public void before() throws Exception {
+        SchemaUtils.restoreTable("DomainEventDelivery");
+    }
+
+    @Test
+    public void testRetryingBacklogDoesNotHoldBackOtherListeners() throws Exception {
+        for (long eventId = 1; eventId <= 600; eventId++) {
+            persist(eventId, FAILING, String.valueOf(eventId), notDue, null, null);
+        }
+        persist(601L, WORKING, "1", due, null, null);
+
+        List<DomainEventDelivery> pending = dao.findPending(Arrays.asList(FAILING, WORKING), 500);
+        assertEquals(1, pending.size());
+        assertEquals(WORKING, pending.get(0).getListener());
+    }
+
+    @Test
+    public void testOnlyTheEarliestEventOfAnAggregateIsPending() throws Exception {
+        persist(1L, FAILING, "1", notDue, null, null);
+        persist(2L, FAILING, "1", due, null, null);
+        persist(3L, FAILING, "2", due, null, null);
+        persist(4L, FAILING, "2", due, null, null);
+        // the same aggregate of another listener is delivered on its own
+        persist(5L, WORKING, "1", due, null, null);
+
+        List<DomainEventDelivery> pending = dao.findPending(Arrays.asList(FAILING, WORKING), 500);
+        assertEquals(2, pending.size());
+        assertEquals(Long.valueOf(3L), pending.get(0).getEventId());
+        assertEquals(Long.valueOf(5L), pending.get(1).getEventId());
+    }
+
+    @Test
+    public void testClaimedDeliveryIsPendingOnceTheClaimExpires() throws Exception {
+        persist(1L, FAILING, "1", due, "other", notDue);
+        persist(2L, FAILING, "2", due, "other", due);
+
+        List<DomainEventDelivery> pending = dao.findPending(Arrays.asList(FAILING), 500);
+        assertEquals(1, pending.size());
+        assertEquals(Long.valueOf(2L), pending.get(0).getEventId());
+    }
+
+    @Test
+    public void testOnlyTheGivenListenersArePending() throws Exception {
+        persist(1L, FAILING, "1", due, null, null);
+        persist(2L, WORKING, "1", due, null, null);
+
+        List<DomainEventDelivery> pending = dao.findPending(Arrays.asList(WORKING), 500);
+        assertEquals(1, pending.size());
+        assertEquals(WORKING, pending.get(0).getListener());
+    }
+
+    private void persist(Long eventId, String listener, String aggregateId, Date nextAttempt, String claimedBy, Date claimedUntil) {
+        DomainEventDelivery delivery = new DomainEventDelivery();
+        delivery.setEventId(eventId);
+        delivery.setListener(listener);
+        delivery.setAggregateId(aggregateId);
+        delivery.setNextAttempt(nextAttempt);
+        delivery.setClaimedBy(claimedBy);
+        delivery.setClaimedUntil(claimedUntil);
+        dao.persist(delivery);
+    }
+}
@@ -32,9 +32,12 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ca.openosp.openo.commn.dao.MeasurementDaoImpl.SearchCriteria;
 import ca.openosp.openo.commn.dao.utils.SchemaUtils;
 import ca.openosp.openo.commn.model.Measurement;
@@ -130,6 +133,20 @@ public class MeasurementDaoTest extends DaoTestFixtures {
         return m;
     }
 
+    @Test
+    public void testChangeIsHeardAgainOnceTheTransactionCompletes() {
+        List<Integer> heard = new CopyOnWriteArrayList<Integer>();
+        dao.addMeasurementChangeListener(demographicId -> {
+            if (demographicId == 999) heard.add(demographicId);
+        });
+
+        new TransactionTemplate(SpringUtils.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            populate();
+            assertEquals(1, heard.size());
+        });
+        assertEquals(2, heard.size());
+    }
+
     @Test
     public void testFindById() {
         populate();
@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ca.openosp.openo.PMmodule.dao.ProgramProviderDAO;
+import ca.openosp.openo.PMmodule.dao.ProviderDao;
+import ca.openosp.openo.PMmodule.model.ProgramProvider;
+import ca.openosp.openo.commn.dao.utils.EntityDataGenerator;
+import ca.openosp.openo.commn.dao.utils.SchemaUtils;
+import ca.openosp.openo.commn.model.Admission;
+import ca.openosp.openo.commn.model.Demographic;
+import ca.openosp.openo.commn.model.Provider;
+import ca.openosp.openo.utility.LoggedInInfo;
+import ca.openosp.openo.utility.SpringUtils;
+import ca.openosp.openo.webserv.rest.to.model.DemographicSearchRequest;
+import ca.openosp.openo.webserv.rest.to.model.DemographicSearchRequest.SEARCHMODE;
+import ca.openosp.openo.webserv.rest.to.model.DemographicSearchResult;
+
+/**
+ * The demographic searches restricted to a provider's program domain must find the same clients whether they
+ * read program_domain_client or work the domain out from program_provider and admission.
+ */
+public class ProgramDomainClientDaoTest extends DaoTestFixtures {
+
+    private static final String ALICE = "999998";
+    private static final String BOB = "999997";
+
+    protected ProgramDomainClientDao dao = SpringUtils.getBean(ProgramDomainClientDao.class);
+    protected DemographicDao demographicDao = SpringUtils.getBean(DemographicDao.class);
+    protected AdmissionDao admissionDao = SpringUtils.getBean(AdmissionDao.class);
+    protected ProgramProviderDAO programProviderDao = SpringUtils.getBean(ProgramProviderDAO.class);
+    protected ProviderDao providerDao = SpringUtils.getBean(ProviderDao.class);
+
+    @Before
+    public void before() throws Exception {
+        this.beforeForInnoDB();
+        SchemaUtils.restoreTable("demographic", "lst_gender", "admission", "demographic_merged", "program", "program_provider",
+                "program_domain_client", "provider", "health_safety", "providersite", "site", "program_team", "log", "Facility",
+                "demographicExt");
+        provider(ALICE);
+        provider(BOB);
+    }
+
+    @After
+    public void after() {
+        demographicDao.setProgramDomainFromTable(false);
+    }
+
+    @Test
+    public void testSearchesMatchAfterEveryChange() throws Exception {
+        Demographic anne = demographic("Anne");
+        Demographic carl = demographic("Carl");
+        Demographic dora = demographic("Dora");
+        admit(anne, 1);
+        admit(carl, 2);
+        admit(dora, 3);
+        grant(ALICE, 1);
+        ProgramProvider aliceInProgram2 = grant(ALICE, 2);
+        grant(BOB, 3);
+
+        dao.refreshClients(0, dora.getDemographicNo());
+        assertSameResults(ALICE, 2);
+        assertSameResults(BOB, 1);
+
+        // a revoked program takes its clients out of the provider's domain
+        programProviderDao.deleteProgramProvider(aliceInProgram2.getId());
+        dao.refreshProviders(List.of(ALICE));
+        assertSameResults(ALICE, 1);
+
+        // an added one brings them in
+        grant(ALICE, 3);
+        dao.refreshProviders(List.of(ALICE));
+        assertSameResults(ALICE, 2);
+        assertSameResults(BOB, 1);
+
+        // and so does a new admission
+        Demographic emma = demographic("Emma");
+        admit(emma, 3);
+        dao.refreshClients(List.of(emma.getDemographicNo()));
+        assertSameResults(ALICE, 3);
+        assertSameResults(BOB, 2);
+    }
+
+    private void assertSameResults(String providerNo, int expected) {
+        List<Integer> restricted = search(providerNo, false);
+        assertEquals(expected, restricted.size());
+        assertEquals(restricted, search(providerNo, true));
+
+        restricted = searchActive(providerNo, false);
+        assertEquals(expected, restricted.size());
+        assertEquals(restricted, searchActive(providerNo, true));
+
+        restricted = searchPatients(providerNo, false);
+        assertEquals(expected, restricted.size());
+        assertEquals(restricted, searchPatients(providerNo, true));
+        assertEquals(expected, searchPatientCount(providerNo, true).intValue());
+    }
+
+    private List<Integer> search(String providerNo, boolean fromTable) {
+        demographicDao.setProgramDomainFromTable(fromTable);
+        return ids(demographicDao.searchDemographicByName("Smith", 100, 0, "demographic_no", providerNo, false));
+    }
+
+    private List<Integer> searchActive(String providerNo, boolean fromTable) {
+        demographicDao.setProgramDomainFromTable(fromTable);
+        return ids(demographicDao.searchDemographicByNameAndStatus("Smith", List.of("AC"), 100, 0, "demographic_no", providerNo, false));
+    }
+
+    private List<Integer> searchPatients(String providerNo, boolean fromTable) {
+        demographicDao.setProgramDomainFromTable(fromTable);
+        List<Integer> ids = new ArrayList<Integer>();
+        for (DemographicSearchResult result : demographicDao.searchPatients(loggedInInfo(providerNo), searchRequest(), 0, 100)) {
+            ids.add(result.getDemographicNo());
+        }
+        return ids;
+    }
+
+    private Integer searchPatientCount(String providerNo, boolean fromTable) {
+        demographicDao.setProgramDomainFromTable(fromTable);
+        return demographicDao.searchPatientCount(loggedInInfo(providerNo), searchRequest());
+    }
+
+    private static DemographicSearchRequest searchRequest() {
+        DemographicSearchRequest searchRequest = new DemographicSearchRequest();
+        searchRequest.setMode(SEARCHMODE.Name);
+        searchRequest.setKeyword("smith");
+        searchRequest.setActive(true);
+        searchRequest.setOutOfDomain(false);
+        return searchRequest;
+    }
+
+    private static LoggedInInfo loggedInInfo(String providerNo) {
+        Provider provider = new Provider();
+        provider.setProviderNo(providerNo);
+        LoggedInInfo loggedInInfo = new LoggedInInfo();
+        loggedInInfo.setLoggedInProvider(provider);
+        return loggedInInfo;
+    }
+
+    private static List<Integer> ids(List<Demographic> demographics) {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (Demographic demographic : demographics) {
+            ids.add(demographic.getDemographicNo());
+        }
+        return ids;
+    }
+
+    private Demographic demographic(String firstName) throws Exception {
+        Demographic demographic = new Demographic();
+        EntityDataGenerator.generateTestDataForModelClass(demographic);
+        demographic.setDemographicNo(null);
+        demographic.setLastName("Smith");
+        demographic.setFirstName(firstName);
+        demographic.setPatientStatus("AC");
+        demographicDao.save(demographic);
+        return demographic;
+    }
+
+    private void admit(Demographic demographic, int programId) {
+        Admission admission = new Admission();
+        admission.setProgramId(programId);
+        admission.setClientId(demographic.getDemographicNo());
+        admission.setProviderNo(ALICE);
+        admission.setAdmissionDate(new Date());
+        admission.setAdmissionStatus("current");
+        admissionDao.saveAdmission(admission);
+    }
+
+    private ProgramProvider grant(String providerNo, long programId) {
+        ProgramProvider programProvider = new ProgramProvider();
+        programProvider.setProgramId(programId);
+        programProvider.setProviderNo(providerNo);
+        programProvider.setRoleId(1L);
+        programProviderDao.saveProgramProvider(programProvider);
+        return programProvider;
+    }
+
+    private void provider(String providerNo) throws Exception {
+        Provider provider = new Provider();
+        EntityDataGenerator.generateTestDataForModelClass(provider);
+        provider.setProviderNo(providerNo);
+        providerDao.saveProvider(provider);
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.commn.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import ca.openosp.openo.commn.dao.utils.SchemaUtils;
+import ca.openosp.openo.commn.model.RecentDemographicAccess;
+import ca.openosp.openo.utility.SpringUtils;
+
+public class RecentDemographicAccessDaoTest extends DaoTestFixtures {
+
+    protected RecentDemographicAccessDao dao = SpringUtils.getBean(RecentDemographicAccessDao.class);
+
+    @Before
+    public void before() throws Exception {
+        SchemaUtils.restoreTable("recent_demographic_access");
+    }
+
+    @Test
+    public void testRecordAccess() throws Exception {
+        dao.recordAccess("999998", 1, new Date(1000000), 3);
+        dao.recordAccess("999998", 2, new Date(2000000), 3);
+        dao.recordAccess("999998", 1, new Date(3000000), 3);
+        // an older log entry written late doesn't move the patient back
+        dao.recordAccess("999998", 1, new Date(500000), 3);
+        dao.recordAccess("999997", 3, new Date(4000000), 3);
+
+        List<RecentDemographicAccess> results = dao.findByProviderNo("999998", null, 0, 10);
+        assertEquals(2, results.size());
+        assertEquals(Integer.valueOf(1), results.get(0).getDemographicNo());
+        assertEquals(3000000, results.get(0).getLastAccess().getTime());
+        assertEquals(Integer.valueOf(2), results.get(1).getDemographicNo());
+
+        assertEquals(1, dao.findByProviderNo("999998", new Date(2500000), 0, 10).size());
+    }
+
+    @Test
+    public void testRecordAccessKeepsMaxEntries() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            dao.recordAccess("999998", i, new Date(i * 1000000L), 3);
+        }
+
+        List<RecentDemographicAccess> results = dao.findByProviderNo("999998", null, 0, 10);
+        assertEquals(3, results.size());
+        assertEquals(Integer.valueOf(5), results.get(0).getDemographicNo());
+        assertEquals(Integer.valueOf(3), results.get(2).getDemographicNo());
+    }
+
+    @Test
+    public void testRecordAccessKeepsMaxEntriesWithTheSameTimestamp() throws Exception {
+        Date accessed = new Date(1000000);
+        for (int i = 1; i <= 5; i++) {
+            dao.recordAccess("999998", i, accessed, 3);
+        }
+
+        List<RecentDemographicAccess> results = dao.findByProviderNo("999998", null, 0, 10);
+        assertEquals(3, results.size());
+        assertEquals(Integer.valueOf(5), results.get(0).getDemographicNo());
+        assertEquals(Integer.valueOf(3), results.get(2).getDemographicNo());
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.decisionSupport.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ca.openosp.openo.commn.dao.DSGuidelineDao;
+import ca.openosp.openo.decisionSupport.model.DSCondition;
+import ca.openosp.openo.decisionSupport.model.DSConsequence;
+import ca.openosp.openo.decisionSupport.model.DSDemographicAccess;
+import ca.openosp.openo.decisionSupport.model.DSGuideline;
+import ca.openosp.openo.decisionSupport.model.DSGuidelineResult;
+import ca.openosp.openo.decisionSupport.model.DSPatientFacts;
+
+public class DSServiceTest {
+
+    private DSService dsService;
+    private DSGuidelineDao dsGuidelineDao;
+    private DSGuideline diabetes;
+    private DSGuideline hypertension;
+    private List<DSConsequence> warning;
+
+    @Before
+    public void setUp() throws Exception {
+        dsGuidelineDao = mock(DSGuidelineDao.class);
+        dsService = new DSServiceImpl();
+        ReflectionTestUtils.setField(dsService, "dSGuidelineDao", dsGuidelineDao);
+
+        warning = new ArrayList<DSConsequence>();
+        warning.add(new DSConsequence());
+        diabetes = guideline(1, "Diabetes");
+        hypertension = guideline(2, "Hypertension");
+        when(diabetes.evaluate(any(), any(DSPatientFacts.class), eq("101"))).thenReturn(warning);
+        when(hypertension.evaluate(any(), any(DSPatientFacts.class), eq("101"))).thenReturn(null);
+
+        List<DSGuideline> guidelines = new ArrayList<DSGuideline>();
+        guidelines.add(diabetes);
+        guidelines.add(hypertension);
+        when(dsGuidelineDao.getDSGuidelinesByProvider("101")).thenReturn(guidelines);
+    }
+
+    @Test
+    public void evaluatesOnceAndServesTheCachedResults() throws Exception {
+        List<DSGuidelineResult> first = dsService.evaluate(null, "1000", "101");
+        List<DSGuidelineResult> second = dsService.evaluate(null, "1000", "101");
+
+        assertEquals(1, first.size());
+        assertSame(diabetes, first.get(0).getGuideline());
+        assertSame(warning, first.get(0).getConsequences());
+        assertSame(first, second);
+        verify(diabetes, times(1)).evaluate(any(), any(DSPatientFacts.class), eq("101"));
+        verify(hypertension, times(1)).evaluate(any(), any(DSPatientFacts.class), eq("101"));
+    }
+
+    @Test
+    public void sharesOneSnapshotBetweenTheGuidelines() throws Exception {
+        dsService.evaluate(null, "1000", "101");
+
+        ArgumentCaptor<DSPatientFacts> facts = ArgumentCaptor.forClass(DSPatientFacts.class);
+        verify(diabetes).evaluate(any(), facts.capture(), eq("101"));
+        verify(hypertension).evaluate(any(), eq(facts.getValue()), eq("101"));
+        assertEquals("1000", facts.getValue().getDemographicNo());
+    }
+
+    @Test
+    public void patientDataChangeDropsOnlyThatPatient() throws Exception {
+        dsService.evaluate(null, "1000", "101");
+        dsService.evaluate(null, "2000", "101");
+
+        dsService.patientDataChanged(1000);
+        dsService.evaluate(null, "1000", "101");
+        dsService.evaluate(null, "2000", "101");
+
+        verify(diabetes, times(3)).evaluate(any(), any(DSPatientFacts.class), eq("101"));
+    }
+
+    @Test
+    public void editedGuidelineIsEvaluatedAgain() throws Exception {
+        dsService.evaluate(null, "1000", "101");
+        when(diabetes.getVersion()).thenReturn(2);
+        dsService.evaluate(null, "1000", "101");
+
+        verify(diabetes, times(2)).evaluate(any(), any(DSPatientFacts.class), eq("101"));
+    }
+
+    @Test
+    public void failingGuidelineIsSkipped() throws Exception {
+        DSGuideline broken = guideline(3, "Broken");
+        when(broken.evaluate(any(), any(DSPatientFacts.class), eq("101"))).thenThrow(new IllegalStateException("no such flowsheet"));
+        dsGuidelineDao.getDSGuidelinesByProvider("101").add(0, broken);
+
+        List<DSGuidelineResult> passed = dsService.evaluate(null, "1000", "101");
+
+        assertEquals(1, passed.size());
+        assertSame(diabetes, passed.get(0).getGuideline());
+    }
+
+    @Test
+    public void billingGuidelineIsEvaluatedEveryTime() throws Exception {
+        DSGuideline billing = guideline(3, "Billing");
+        DSCondition billedFor = new DSCondition();
+        billedFor.setConditionType(DSDemographicAccess.Module.billedFor);
+        List<DSCondition> conditions = new ArrayList<DSCondition>();
+        conditions.add(billedFor);
+        when(billing.getConditions()).thenReturn(conditions);
+        when(billing.evaluate(any(), any(DSPatientFacts.class), eq("101"))).thenReturn(warning);
+        dsGuidelineDao.getDSGuidelinesByProvider("101").add(0, billing);
+
+        dsService.evaluate(null, "1000", "101");
+        List<DSGuidelineResult> passed = dsService.evaluate(null, "1000", "101");
+
+        assertEquals(2, passed.size());
+        assertSame(billing, passed.get(0).getGuideline());
+        assertSame(diabetes, passed.get(1).getGuideline());
+        verify(billing, times(2)).evaluate(any(), any(DSPatientFacts.class), eq("101"));
+        verify(diabetes, times(1)).evaluate(any(), any(DSPatientFacts.class), eq("101"));
+    }
+
+    private static DSGuideline guideline(Integer id, String title) {
+        DSGuideline guideline = mock(DSGuideline.class);
+        when(guideline.getId()).thenReturn(id);
+        when(guideline.getTitle()).thenReturn(title);
+        when(guideline.getVersion()).thenReturn(1);
+        when(guideline.getXml()).thenReturn("<guideline title=\"" + title + "\"/>");
+        return guideline;
+    }
+}
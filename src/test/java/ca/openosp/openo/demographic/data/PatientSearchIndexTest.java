@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.demographic.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import ca.openosp.openo.webserv.rest.to.model.DemographicSearchRequest.SEARCHMODE;
+import ca.openosp.openo.webserv.rest.to.model.DemographicSearchRequest.SORTDIR;
+import ca.openosp.openo.webserv.rest.to.model.DemographicSearchRequest.SORTMODE;
+
+public class PatientSearchIndexTest {
+
+    private PatientSearchIndex index;
+
+    private static PatientSearchIndex.Entry entry(int demographicNo, String lastName, String firstName, String status, String phone, String hin) {
+        return new PatientSearchIndex.Entry(demographicNo, lastName, firstName, "C" + demographicNo, "F", "999998", "RO", status,
+                phone, "1970", "01", "02", "Doe", "John", hin, demographicNo + " Main St");
+    }
+
+    private static List<Integer> ids(List<PatientSearchIndex.Entry> entries) {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (PatientSearchIndex.Entry entry : entries) {
+            ids.add(entry.getDemographicNo());
+        }
+        return ids;
+    }
+
+    private List<Integer> search(SEARCHMODE mode, String keyword) {
+        return ids(index.search(mode, keyword, true, null, null));
+    }
+
+    @Before
+    public void setUp() {
+        index = new PatientSearchIndex(PatientSearchIndex.parseStatuses("'IN','DE','IC', 'ID', 'MO', 'FI'"));
+        index.put(entry(1, "Smith", "William", "AC", "(905) 555-1234", "1234567890"));
+        index.put(entry(2, "Smithers", "Anne", "AC", "416-555-0000", "2222222222"));
+        index.put(entry(3, "Côté", "Zoé", "AC", null, null));
+        index.put(entry(4, "Smyth", "Bill", "AC", null, null));
+        index.put(entry(5, "Smith", "Amy", "DE", null, null));
+    }
+
+    @Test
+    public void testNameSearchMatchesLikeTheDatabase() {
+        assertEquals(List.of(1, 2), search(SEARCHMODE.Name, "SMITH"));
+        assertEquals(List.of(1, 2), search(SEARCHMODE.Name, "mit"));
+        assertEquals(List.of(1), search(SEARCHMODE.Name, "smith,will"));
+        assertEquals(List.of(2), search(SEARCHMODE.Name, ",anne"));
+        assertEquals(List.of(3), search(SEARCHMODE.Name, "cote"));
+        assertEquals(List.of(5), ids(index.search(SEARCHMODE.Name, "smith", false, null, null)));
+    }
+
+    @Test
+    public void testSimilarNamesOnlyWhenNothingMatches() {
+        // "smyth" sounds like "smith" but has an exact match of its own
+        assertEquals(List.of(4), search(SEARCHMODE.Name, "smyth"));
+        assertEquals(List.of(1, 4), search(SEARCHMODE.Name, "smithe,william"));
+        assertEquals(List.of(1, 4), search(SEARCHMODE.Name, ",billy"));
+    }
+
+    @Test
+    public void testPhoneAndHinMatchOnDigits() {
+        assertEquals(List.of(1), search(SEARCHMODE.Phone, "905 555 1234"));
+        assertEquals(List.of(1), search(SEARCHMODE.Phone, "(905)555"));
+        assertEquals(List.of(2), search(SEARCHMODE.HIN, "2222-222"));
+        assertEquals(List.of(2), search(SEARCHMODE.Address, "2 main"));
+    }
+
+    @Test
+    public void testUnsupportedSearchesAreLeftToTheDatabase() {
+        assertFalse(PatientSearchIndex.isSupported(SEARCHMODE.Name, "sm*"));
+        assertFalse(PatientSearchIndex.isSupported(SEARCHMODE.Name, "^smith$"));
+        assertFalse(PatientSearchIndex.isSupported(SEARCHMODE.Name, ","));
+        assertFalse(PatientSearchIndex.isSupported(SEARCHMODE.DOB, "1970-01-02"));
+        assertTrue(PatientSearchIndex.isSupported(SEARCHMODE.Phone, "(905) 555-1234"));
+        assertNull(index.search(SEARCHMODE.Address, "main.*", true, null, null));
+    }
+
+    @Test
+    public void testUpdatesSortingAndMerges() {
+        index.put(entry(2, "Jones", "Anne", "AC", null, null));
+        assertEquals(List.of(1), search(SEARCHMODE.Name, "smith"));
+
+        assertEquals(List.of(4, 2, 1), ids(index.search(SEARCHMODE.Name, "s", true, SORTMODE.DemographicNo, SORTDIR.desc)));
+
+        index.setMergedTo(4, 1);
+        assertEquals(List.of(1), search(SEARCHMODE.Name, "smyth"));
+        index.setMergedTo(4, null);
+        assertEquals(List.of(4), search(SEARCHMODE.Name, "smyth"));
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.documentManager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PdfRenderingServiceTest {
+
+    private static final byte[] PDF = "%PDF-1.4 rendered".getBytes(StandardCharsets.US_ASCII);
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("pdfrender");
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        directory.toFile().delete();
+    }
+
+    @Test
+    public void testTimedOutRenderKeepsItsSlotAndFile() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger conversions = new AtomicInteger();
+        // a conversion that ignores interrupts, like the native converter
+        EDocConverterInterface converter = (html, os) -> {
+            if (conversions.incrementAndGet() == 1) {
+                while (true) {
+                    try {
+                        release.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        // keep converting
+                    }
+                }
+            }
+            os.write(PDF);
+        };
+        PdfRenderingService service = new PdfRenderingService(1, 0, 1, 1, converter);
+
+        Path slow = newTarget();
+        try {
+            service.render("<html/>", slow);
+            fail("render did not time out");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Timed out"));
+        }
+
+        // the abandoned conversion still holds the only slot
+        try {
+            service.render("<html/>", newTarget());
+            fail("second render was admitted while the first was still converting");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("PDF rendering is busy"));
+        }
+        assertEquals(1, service.getStatistics().getRejected());
+
+        release.countDown();
+        Path next = newTarget();
+        service.render("<html/>", next);
+        assertArrayEquals(PDF, Files.readAllBytes(next));
+
+        // the abandoned worker dropped its output instead of writing the caller's file
+        assertEquals(0, Files.size(slow));
+        assertEquals(3, directory.toFile().listFiles().length);
+        assertEquals(1, service.getStatistics().getCompleted());
+        assertEquals(1, service.getStatistics().getFailed());
+    }
+
+    @Test
+    public void testConcurrencyLimits() throws Exception {
+        AtomicInteger converting = new AtomicInteger();
+        AtomicInteger maxConverting = new AtomicInteger();
+        EDocConverterInterface converter = (html, os) -> {
+            maxConverting.accumulateAndGet(converting.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            converting.decrementAndGet();
+            os.write(PDF);
+        };
+        PdfRenderingService service = new PdfRenderingService(3, 20, 30, 2, converter);
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Path>> renders = new ArrayList<Future<Path>>();
+            for (int i = 0; i < 16; i++) {
+                renders.add(callers.submit(() -> {
+                    Path target = newTarget();
+                    service.render("<html/>", target);
+                    return target;
+                }));
+            }
+            for (Future<Path> render : renders) {
+                assertArrayEquals(PDF, Files.readAllBytes(render.get(30, TimeUnit.SECONDS)));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(2, maxConverting.get());
+        assertEquals(16, service.getStatistics().getCompleted());
+        assertEquals(16, directory.toFile().listFiles().length);
+    }
+
+    @Test
+    public void testQueuedRenderAbandonedReturnsSlot() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        EDocConverterInterface converter = (html, os) -> {
+            release.await(10, TimeUnit.SECONDS);
+            os.write(PDF);
+        };
+        // one worker and one waiting slot
+        PdfRenderingService service = new PdfRenderingService(1, 1, 10, 1, converter);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Path first = newTarget();
+            Future<?> firstRender = callers.submit(() -> {
+                service.render("<html/>", first);
+                return null;
+            });
+            Thread.sleep(200);
+            // the second document is given up while it is still in the queue
+            Future<?> secondRender = callers.submit(() -> {
+                service.render("<html/>", newTarget());
+                return null;
+            });
+            Thread.sleep(200);
+            secondRender.cancel(true);
+
+            release.countDown();
+            firstRender.get(10, TimeUnit.SECONDS);
+            assertArrayEquals(PDF, Files.readAllBytes(first));
+
+            // both slots are free again
+            List<Future<Path>> renders = new ArrayList<Future<Path>>();
+            for (int i = 0; i < 2; i++) {
+                renders.add(callers.submit(() -> {
+                    Path target = newTarget();
+                    service.render("<html/>", target);
+                    return target;
+                }));
+            }
+            for (Future<Path> render : renders) {
+                assertArrayEquals(PDF, Files.readAllBytes(render.get(10, TimeUnit.SECONDS)));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(0, service.getStatistics().getRejected());
+        assertEquals(3, service.getStatistics().getCompleted());
+        assertEquals(1, service.getStatistics().getFailed());
+    }
+
+    private Path newTarget() throws IOException {
+        return Files.createTempFile(directory, "target", ".pdf");
+    }
+
+}
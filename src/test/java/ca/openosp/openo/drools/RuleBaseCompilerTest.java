@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.drools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.io.FileUtils;
+import org.drools.RuleBase;
+import org.drools.WorkingMemory;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RuleBaseCompilerTest {
+
+    private File cacheDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheDirectory = Files.createTempDirectory("rulebase-cache").toFile();
+        RuleBaseCompiler.setCacheDirectory(cacheDirectory);
+        RuleBaseFactory.flushAllCached();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        RuleBaseCompiler.setCacheDirectory(null);
+        RuleBaseFactory.flushAllCached();
+        FileUtils.deleteQuietly(cacheDirectory);
+    }
+
+    @Test
+    public void compileSharesTheRuleBaseForTheSameRuleSet() throws Exception {
+        String ruleSet = ruleSet("shared", 2, "!");
+
+        RuleBase first = RuleBaseCompiler.compile(ruleSet);
+        RuleBase second = RuleBaseCompiler.compile(ruleSet);
+
+        assertSame(first, second);
+        assertEquals("abc!", fire(first, "abc"));
+        assertEquals("ab", fire(first, "ab"));
+    }
+
+    @Test
+    public void compiledRuleBaseIsReadBackFromTheCacheDirectory() throws Exception {
+        String ruleSet = ruleSet("cached", 1, "?");
+        RuleBase compiled = RuleBaseCompiler.compile(ruleSet);
+        File cacheFile = new File(cacheDirectory, RuleBaseCompiler.hash(ruleSet.getBytes(StandardCharsets.UTF_8)) + ".rulebase");
+        assertTrue(cacheFile.isFile());
+
+        // a restart: nothing in memory, the rule base comes from disk
+        RuleBaseFactory.flushAllCached();
+        RuleBase read = RuleBaseCompiler.compile(ruleSet);
+
+        assertNotSame(compiled, read);
+        assertEquals("ab?", fire(read, "ab"));
+    }
+
+    @Test
+    public void unreadableCacheEntryIsReplaced() throws Exception {
+        String ruleSet = ruleSet("corrupt", 1, "#");
+        File cacheFile = new File(cacheDirectory, RuleBaseCompiler.hash(ruleSet.getBytes(StandardCharsets.UTF_8)) + ".rulebase");
+        FileUtils.writeStringToFile(cacheFile, "not a rule base", StandardCharsets.UTF_8);
+
+        RuleBase ruleBase = RuleBaseCompiler.compile(ruleSet);
+
+        assertEquals("ab#", fire(ruleBase, "ab"));
+        assertTrue(cacheFile.length() > "not a rule base".length());
+    }
+
+    @Test
+    public void cacheEntryWithoutAValidHmacIsNotDeserialized() throws Exception {
+        String ruleSet = ruleSet("planted", 1, "%");
+        File cacheFile = new File(cacheDirectory, RuleBaseCompiler.hash(ruleSet.getBytes(StandardCharsets.UTF_8)) + ".rulebase");
+        ByteArrayOutputStream planted = new ByteArrayOutputStream();
+        planted.write(new byte[32]);
+        ObjectOutputStream out = new ObjectOutputStream(planted);
+        out.writeObject(new Planted());
+        out.flush();
+        FileUtils.writeByteArrayToFile(cacheFile, planted.toByteArray());
+
+        RuleBase ruleBase = RuleBaseCompiler.compile(ruleSet);
+
+        assertFalse(Planted.deserialized);
+        assertEquals("ab%", fire(ruleBase, "ab"));
+    }
+
+    @Test
+    public void directoryWritableByOthersIsNotUsed() throws Exception {
+        Assume.assumeTrue(Files.getFileStore(cacheDirectory.toPath()).supportsFileAttributeView(PosixFileAttributeView.class));
+
+        Files.setPosixFilePermissions(cacheDirectory.toPath(), PosixFilePermissions.fromString("rwx------"));
+        assertTrue(RuleBaseCompiler.isPrivate(cacheDirectory.toPath()));
+        Files.setPosixFilePermissions(cacheDirectory.toPath(), PosixFilePermissions.fromString("rwxrwx---"));
+        assertFalse(RuleBaseCompiler.isPrivate(cacheDirectory.toPath()));
+        Files.setPosixFilePermissions(cacheDirectory.toPath(), PosixFilePermissions.fromString("rwx---rwx"));
+        assertFalse(RuleBaseCompiler.isPrivate(cacheDirectory.toPath()));
+    }
+
+    @Test
+    public void registeredRuleSetIsSwappedWhenTheSourceChanges() throws Exception {
+        AtomicReference<String> source = new AtomicReference<String>(ruleSet("registered", 1, "1"));
+        RuleBaseCompiler.register("test.registered", () -> source.get().getBytes(StandardCharsets.UTF_8));
+
+        RuleBase original = RuleBaseCompiler.getRuleBase("test.registered");
+        assertSame(original, RuleBaseCompiler.refresh("test.registered"));
+
+        source.set(ruleSet("registered", 1, "2"));
+        assertSame(original, RuleBaseCompiler.getRuleBase("test.registered"));
+        RuleBaseCompiler.refresh("test.registered");
+        assertEquals("ab2", fire(RuleBaseCompiler.getRuleBase("test.registered"), "ab"));
+
+        // a broken rule set leaves the last good rule base in place
+        source.set("<rule-set");
+        try {
+            RuleBaseCompiler.refresh("test.registered");
+            fail("expected the broken rule set to fail");
+        } catch (Exception e) {
+            // expected
+        }
+        assertEquals("ab2", fire(RuleBaseCompiler.getRuleBase("test.registered"), "ab"));
+    }
+
+    private static class Planted implements Serializable {
+        private static volatile boolean deserialized = false;
+
+        private void readObject(ObjectInputStream in) throws Exception {
+            in.defaultReadObject();
+            deserialized = true;
+        }
+    }
+
+    private static String ruleSet(String name, int minLength, String suffix) {
+        return "<?xml version=\"1.0\"?>\n"
+                + "<rule-set name=\"" + name + "\" xmlns=\"http://drools.org/rules\" xmlns:java=\"http://drools.org/semantics/java\">\n"
+                + "  <rule name=\"" + name + ".1\">\n"
+                + "    <parameter identifier=\"s\"><class>java.lang.StringBuffer</class></parameter>\n"
+                + "    <java:condition>s.length() &gt; " + minLength + "</java:condition>\n"
+                + "    <java:condition>s.indexOf(\"" + suffix + "\") &lt; 0</java:condition>\n"
+                + "    <java:consequence>s.append(\"" + suffix + "\");</java:consequence>\n"
+                + "  </rule>\n"
+                + "</rule-set>\n";
+    }
+
+    private static String fire(RuleBase ruleBase, String value) throws Exception {
+        StringBuffer fact = new StringBuffer(value);
+        WorkingMemory workingMemory = ruleBase.newWorkingMemory();
+        workingMemory.assertObject(fact);
+        workingMemory.fireAllRules();
+        return fact.toString();
+    }
+}
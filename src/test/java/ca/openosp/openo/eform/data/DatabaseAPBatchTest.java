@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.eform.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DatabaseAPBatchTest {
+
+    @Test
+    public void testSameTableAndWhereAreMerged() {
+        DatabaseAPBatch batch = new DatabaseAPBatch();
+        batch.add("SELECT last_name FROM demographic WHERE demographic_no=1", Arrays.asList("last_name"));
+        batch.add("SELECT hin, ver FROM demographic WHERE demographic_no=1", Arrays.asList("hin", "ver"));
+        batch.add("SELECT provider.first_name FROM provider WHERE provider.provider_no='999998'", Arrays.asList("first_name"));
+
+        List<String> merged = batch.getMergedSql();
+        assertEquals(1, merged.size());
+        assertEquals("SELECT last_name, hin, ver FROM demographic WHERE demographic_no=1", merged.get(0));
+    }
+
+    @Test
+    public void testStarAbsorbsPlainColumns() {
+        DatabaseAPBatch batch = new DatabaseAPBatch();
+        batch.add("SELECT * FROM demographic WHERE demographic_no=1", Arrays.asList("last_name", "first_name"));
+        batch.add("SELECT demographic.hin FROM demographic WHERE demographic_no=1;", Arrays.asList("hin"));
+        // a computed label could shadow a real column of SELECT *, so it stays on its own
+        batch.add("SELECT CONCAT(UPPER(SUBSTRING(first_name, 1, 1)), LOWER(SUBSTRING(first_name FROM 2))) AS first_name FROM demographic WHERE demographic_no=1", Arrays.asList("first_name"));
+
+        List<String> merged = batch.getMergedSql();
+        assertEquals(1, merged.size());
+        assertEquals("SELECT * FROM demographic WHERE demographic_no=1", merged.get(0));
+    }
+
+    @Test
+    public void testUnsafeQueriesAreNotParsed() {
+        assertNull(DatabaseAPBatch.parse("SELECT count(*) AS n FROM allergies WHERE demographic_no=1", Arrays.asList("n")));
+        assertNull(DatabaseAPBatch.parse("SELECT DISTINCT name FROM allergies WHERE demographic_no=1", Arrays.asList("name")));
+        assertNull(DatabaseAPBatch.parse("SELECT d.hin FROM demographic d JOIN provider p ON p.provider_no=d.provider_no", Arrays.asList("hin")));
+        assertNull(DatabaseAPBatch.parse("SELECT @bdate:=1 AS x FROM demographic WHERE demographic_no=1", Arrays.asList("x")));
+        assertNull(DatabaseAPBatch.parse("SELECT curdate()", Arrays.asList("curdate()")));
+        // output refers to a column the query does not select
+        assertNull(DatabaseAPBatch.parse("SELECT hin FROM demographic WHERE demographic_no=1", Arrays.asList("ver")));
+        assertNotNull(DatabaseAPBatch.parse("SELECT IF(LENGTH(residentialAddress)>1, residentialAddress, address) as adr FROM demographic WHERE demographic_no=1", Arrays.asList("adr")));
+    }
+
+    @Test
+    public void testConflictingLabelsAreNotMerged() {
+        DatabaseAPBatch batch = new DatabaseAPBatch();
+        batch.add("SELECT UPPER(last_name) AS name FROM demographic WHERE demographic_no=1", Arrays.asList("name"));
+        batch.add("SELECT LOWER(last_name) AS name FROM demographic WHERE demographic_no=1", Arrays.asList("name"));
+        assertTrue(batch.getMergedSql().isEmpty());
+        assertNull(batch.getValues("SELECT UPPER(last_name) AS name FROM demographic WHERE demographic_no=1", Arrays.asList("name")));
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.encounter.oscarMeasurements;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.openosp.openo.commn.model.FlowSheetCustomization;
+import org.junit.Test;
+
+public class FlowSheetCompilationCacheTest {
+
+    private FlowSheetCustomization customization(int id, String action, String measurement, String payload) {
+        FlowSheetCustomization cust = new FlowSheetCustomization();
+        cust.setId(id);
+        cust.setAction(action);
+        cust.setMeasurement(measurement);
+        cust.setPayload(payload);
+        return cust;
+    }
+
+    @Test
+    public void testSameCustomizationsShareKey() {
+        List<FlowSheetCustomization> a = new ArrayList<FlowSheetCustomization>();
+        a.add(customization(1, FlowSheetCustomization.DELETE, "BP", null));
+        a.add(customization(2, FlowSheetCustomization.ADD, "WT", "<item/>"));
+
+        List<FlowSheetCustomization> b = new ArrayList<FlowSheetCustomization>();
+        b.add(customization(1, FlowSheetCustomization.DELETE, "BP", null));
+        b.add(customization(2, FlowSheetCustomization.ADD, "WT", "<item/>"));
+
+        assertEquals(FlowSheetCompilationCache.customizationKey(a), FlowSheetCompilationCache.customizationKey(b));
+    }
+
+    @Test
+    public void testChangedPayloadChangesKey() {
+        List<FlowSheetCustomization> a = new ArrayList<FlowSheetCustomization>();
+        a.add(customization(2, FlowSheetCustomization.UPDATE, "WT", "<item a=\"1\"/>"));
+
+        List<FlowSheetCustomization> b = new ArrayList<FlowSheetCustomization>();
+        b.add(customization(2, FlowSheetCustomization.UPDATE, "WT", "<item a=\"2\"/>"));
+
+        assertNotEquals(FlowSheetCompilationCache.customizationKey(a), FlowSheetCompilationCache.customizationKey(b));
+    }
+
+    @Test
+    public void testPutKeepsFirstInstanceAndInvalidate() {
+        FlowSheetCompilationCache cache = new FlowSheetCompilationCache();
+        MeasurementFlowSheet first = new MeasurementFlowSheet();
+        MeasurementFlowSheet second = new MeasurementFlowSheet();
+
+        assertSame(first, cache.put("diab2", "k", first));
+        assertSame(first, cache.put("diab2", "k", second));
+        assertSame(first, cache.get("diab2", "k"));
+        assertEquals(1, cache.size());
+
+        cache.invalidate("diab2");
+        assertNull(cache.get("diab2", "k"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.encounter.oscarMeasurements.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import ca.openosp.openo.commn.model.Measurement;
+import org.junit.Test;
+
+public class MeasurementTimeSeriesTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private Measurement measurement(long day, String value) {
+        Measurement m = new Measurement();
+        m.setType("WT");
+        m.setDataField(value);
+        m.setDateObserved(new Date(day * DAY));
+        m.setCreateDate(new Date(day * DAY));
+        return m;
+    }
+
+    private MeasurementTimeSeries series() {
+        List<Measurement> rows = new ArrayList<Measurement>();
+        rows.add(measurement(30, "80"));
+        rows.add(measurement(10, "70"));
+        rows.add(measurement(40, "n/a"));
+        rows.add(measurement(20, "90"));
+        return new MeasurementTimeSeries("WT", rows);
+    }
+
+    @Test
+    public void testOrderingAndLatest() {
+        MeasurementTimeSeries s = series();
+        assertEquals(4, s.size());
+        assertEquals("70", s.getMeasurements().get(0).getDataField());
+        assertEquals("n/a", s.getLatest().getDataField());
+
+        List<Measurement> latest = s.getLatest(2);
+        assertEquals(2, latest.size());
+        assertEquals("n/a", latest.get(0).getDataField());
+        assertEquals("80", latest.get(1).getDataField());
+    }
+
+    @Test
+    public void testValueAt() {
+        MeasurementTimeSeries s = series();
+        assertNull(s.getValueAt(new Date(5 * DAY)));
+        assertEquals("90", s.getValueAt(new Date(20 * DAY)).getDataField());
+        assertEquals("90", s.getValueAt(new Date(25 * DAY)).getDataField());
+    }
+
+    @Test
+    public void testStatisticsIgnoreNonNumericValues() {
+        MeasurementTimeSeries s = series();
+        MeasurementTimeSeries.Statistics all = s.getStatistics(null, null);
+        assertEquals(3, all.getCount());
+        assertEquals(70.0, all.getMin(), 0.0001);
+        assertEquals(90.0, all.getMax(), 0.0001);
+        assertEquals(80.0, all.getAverage(), 0.0001);
+
+        MeasurementTimeSeries.Statistics window = s.getStatistics(new Date(15 * DAY), new Date(30 * DAY));
+        assertEquals(2, window.getCount());
+        assertEquals(85.0, window.getAverage(), 0.0001);
+
+        assertEquals(0, s.getStatistics(new Date(35 * DAY), new Date(45 * DAY)).getCount());
+    }
+}
@@ -23,8 +23,12 @@
  */
 package ca.openosp.openo.hospitalReportManager.dao;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.util.Date;
+import java.util.List;
+
 import ca.openosp.openo.hospitalReportManager.dao.HRMDocumentDao;
 import org.junit.Before;
 import org.junit.Test;
@@ -32,11 +36,13 @@ import ca.openosp.openo.commn.dao.DaoTestFixtures;
 import ca.openosp.openo.commn.dao.utils.EntityDataGenerator;
 import ca.openosp.openo.commn.dao.utils.SchemaUtils;
 import ca.openosp.openo.hospitalReportManager.model.HRMDocument;
+import ca.openosp.openo.hospitalReportManager.model.HRMDocumentToDemographic;
 import ca.openosp.openo.utility.SpringUtils;
 
 public class HRMDocumentDaoTest extends DaoTestFixtures {
 
     public HRMDocumentDao dao = SpringUtils.getBean(HRMDocumentDao.class);
+    public HRMDocumentToDemographicDao hrmDocumentToDemographicDao = SpringUtils.getBean(HRMDocumentToDemographicDao.class);
 
 
     @Before
@@ -51,4 +57,37 @@ public class HRMDocumentDaoTest extends DaoTestFixtures {
         dao.persist(entity);
         assertNotNull(entity.getId());
     }
+
+    @Test
+    public void testFindRoutedToDemographic() throws Exception {
+        HRMDocument older = createDocument(new Date(1000000000000L));
+        HRMDocument newer = createDocument(new Date(1100000000000L));
+        HRMDocument otherPatient = createDocument(new Date(1200000000000L));
+        routeToDemographic(older, 1);
+        routeToDemographic(newer, 1);
+        routeToDemographic(otherPatient, 2);
+
+        List<HRMDocument> documents = dao.findRoutedToDemographic(1);
+
+        assertEquals(2, documents.size());
+        assertEquals(newer.getId(), documents.get(0).getId());
+        assertEquals(older.getId(), documents.get(1).getId());
+        assertEquals(older.getReportContentHash(), documents.get(1).getReportContentHash());
+    }
+
+    private HRMDocument createDocument(Date reportDate) throws Exception {
+        HRMDocument entity = new HRMDocument();
+        EntityDataGenerator.generateTestDataForModelClass(entity);
+        entity.setReportDate(reportDate);
+        dao.persist(entity);
+        return entity;
+    }
+
+    private void routeToDemographic(HRMDocument document, Integer demographicNo) {
+        HRMDocumentToDemographic routing = new HRMDocumentToDemographic();
+        routing.setHrmDocumentId(document.getId());
+        routing.setDemographicNo(demographicNo);
+        routing.setTimeAssigned(new Date());
+        hrmDocumentToDemographicDao.persist(routing);
+    }
 }
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AuditLogArchiveTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Object[] row(long id, Date created, String providerNo, String action, Integer demographicNo) {
+        return new Object[]{id, created, providerNo, action, "demographic", String.valueOf(demographicNo), "127.0.0.1", demographicNo, "data " + id, 1};
+    }
+
+    @Test
+    public void testWriteSearchAndVerify() throws Exception {
+        AuditLogArchive archive = new AuditLogArchive(folder.getRoot().toPath().resolve("archive"));
+        Date base = new Date(1000L * DAY);
+
+        List<Object[]> first = new ArrayList<Object[]>();
+        first.add(row(10, base, "999998", "read", 1));
+        first.add(row(11, new Date(base.getTime() + DAY), "999998", "update", 2));
+        List<Object[]> second = new ArrayList<Object[]>();
+        second.add(row(20, new Date(base.getTime() + 10 * DAY), "999997", "read", 1));
+
+        archive.write(first);
+        archive.write(second);
+
+        List<AuditLogArchive.Segment> segments = archive.getSegments();
+        assertEquals(2, segments.size());
+        assertEquals(10, segments.get(0).getFirstId());
+        assertEquals(11, segments.get(0).getLastId());
+        assertEquals(2, segments.get(0).getRows());
+        assertTrue(archive.verify(segments.get(0)));
+
+        List<AuditLogArchive.Entry> reads = archive.search(null, null, 1, null, "read", 100);
+        assertEquals(2, reads.size());
+        assertEquals(10, reads.get(0).getId());
+        assertEquals("data 10", reads.get(0).getData());
+
+        // the first segment ends before the window and is skipped
+        List<AuditLogArchive.Entry> late = archive.search(new Date(base.getTime() + 5 * DAY), null, null, null, null, 100);
+        assertEquals(1, late.size());
+        assertEquals("999997", late.get(0).getProviderNo());
+
+        Files.write(segments.get(1).getFile(), new byte[]{1, 2, 3});
+        assertFalse(archive.verify(segments.get(1)));
+    }
+
+    @Test
+    public void testCheckpoint() throws Exception {
+        AuditLogArchive archive = new AuditLogArchive(folder.getRoot().toPath());
+        assertNull(archive.readCheckpoint());
+
+        Date end = new Date(1000L * DAY);
+        archive.writeCheckpoint(new AuditLogArchive.Checkpoint(end, 500, 250));
+        AuditLogArchive.Checkpoint checkpoint = archive.readCheckpoint();
+        assertEquals(500, checkpoint.getArchivedThroughId());
+        assertEquals(250, checkpoint.getDeletedThroughId());
+        assertEquals(end.getTime() / 1000, checkpoint.getEndDate().getTime() / 1000);
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ca.openosp.openo.commn.dao.CaseloadDao;
+import ca.openosp.openo.commn.dao.MsgDemoMapDao;
+import ca.openosp.openo.commn.model.MsgDemoMap;
+
+/**
+ * The marking, retrying and scheduling are covered by {@link DenormalizedTableRefresherTest}.
+ */
+public class CaseloadSummaryManagerImplTest {
+
+    private CaseloadDao caseloadDao;
+    private MsgDemoMapDao msgDemoMapDao;
+    private CaseloadSummaryManagerImpl manager;
+
+    @Before
+    public void setUp() {
+        caseloadDao = mock(CaseloadDao.class);
+        msgDemoMapDao = mock(MsgDemoMapDao.class);
+        when(caseloadDao.findCaseloadSummaryPastNextAppointment()).thenReturn(new ArrayList<Integer>());
+        when(msgDemoMapDao.findByMessageId(9)).thenReturn(List.of(map(9, 3), map(9, 5)));
+
+        manager = new CaseloadSummaryManagerImpl();
+        ReflectionTestUtils.setField(manager, "caseloadDao", caseloadDao);
+        ReflectionTestUtils.setField(manager, "msgDemoMapDao", msgDemoMapDao);
+        ((AtomicBoolean) ReflectionTestUtils.getField(ReflectionTestUtils.getField(manager, "refresher"), "started")).set(true);
+    }
+
+    @Test
+    public void patientsOfChangedMessagesAndPastAppointmentsAreRefreshed() {
+        when(caseloadDao.findCaseloadSummaryPastNextAppointment()).thenReturn(List.of(7));
+        List<List<Integer>> refreshed = new ArrayList<List<Integer>>();
+        doAnswer(invocation -> {
+            refreshed.add(new ArrayList<Integer>(invocation.<List<Integer>>getArgument(0)));
+            return null;
+        }).when(caseloadDao).refreshCaseloadSummary(anyList());
+
+        manager.summaryChanged(5, null);
+        manager.summaryChanged(1, null);
+        manager.summaryChanged(null, 9);
+        manager.refresh();
+
+        assertEquals(List.of(List.of(1, 3, 5, 7)), refreshed);
+    }
+
+    private static MsgDemoMap map(int messageId, int demographicNo) {
+        MsgDemoMap map = new MsgDemoMap();
+        map.setMessageID(messageId);
+        map.setDemographic_no(demographicNo);
+        return map;
+    }
+}
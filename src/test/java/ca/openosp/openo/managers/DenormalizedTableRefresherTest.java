@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ca.openosp.openo.managers.DenormalizedTableRefresher.Changes;
+
+public class DenormalizedTableRefresherTest {
+
+    private DenormalizedTableRefresher.Table table;
+    private DenormalizedTableRefresher refresher;
+    private Changes<Integer> clients;
+    private Changes<String> providers;
+    private List<Set<Object>> refreshed;
+
+    @Before
+    public void setUp() {
+        table = mock(DenormalizedTableRefresher.Table.class);
+        refresher = new DenormalizedTableRefresher("test table", "test_table", 60, table);
+        clients = refresher.newChanges();
+        providers = refresher.newChanges();
+        ((AtomicBoolean) ReflectionTestUtils.getField(refresher, "started")).set(true);
+
+        refreshed = new ArrayList<Set<Object>>();
+        doAnswer(invocation -> {
+            refreshed.add(Set.copyOf(clients.take()));
+            refreshed.add(Set.copyOf(providers.take()));
+            return null;
+        }).when(table).refreshRows();
+    }
+
+    @Test
+    public void changedKeysAreRefreshedOnce() {
+        refresher.markChanged(clients, 5);
+        refresher.markChanged(clients, 1);
+        refresher.markChanged(clients, 5);
+        refresher.markChanged(providers, "999998");
+        refresher.refresh();
+        refresher.refresh();
+
+        assertEquals(List.of(Set.of(1, 5), Set.of("999998"), Set.of(), Set.of()), refreshed);
+    }
+
+    @Test
+    public void keysAreTakenInOrder() {
+        refresher.markChanged(clients, 5);
+        refresher.markChanged(clients, 1);
+        refresher.markChanged(clients, 3);
+
+        assertEquals(List.of(1, 3, 5), new ArrayList<Integer>(clients.take()));
+    }
+
+    @Test
+    public void failedKeysAreRefreshedAgain() {
+        doThrow(new RuntimeException("deadlock")).doAnswer(invocation -> {
+            refreshed.add(Set.copyOf(clients.take()));
+            return null;
+        }).when(table).refreshRows();
+
+        refresher.markChanged(clients, 2);
+        try {
+            refresher.refresh();
+            fail();
+        } catch (RuntimeException e) {
+            // expected
+        }
+        refresher.refresh();
+
+        assertEquals(List.of(Set.of(2)), refreshed);
+    }
+
+    @Test
+    public void changeIsMarkedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            refresher.markChanged(clients, 4);
+            assertTrue(clients.take().isEmpty());
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(Set.of(4), clients.take());
+    }
+
+    @Test
+    public void changesAreIgnoredUntilStarted() {
+        ((AtomicBoolean) ReflectionTestUtils.getField(refresher, "started")).set(false);
+
+        refresher.markChanged(clients, 4);
+
+        assertTrue(clients.take().isEmpty());
+    }
+
+    @Test
+    public void changeIsRefreshedWithoutWaitingForThePeriod() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        ReflectionTestUtils.setField(refresher, "scheduler", scheduler);
+        try {
+            refresher.markChanged(clients, 3);
+            verify(table, timeout(5000)).refreshRows();
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rebuildCoversEveryDemographicAndThenUsesTheTable() {
+        when(table.getMaxDemographicNo()).thenReturn(1000);
+
+        refresher.rebuild();
+
+        InOrder order = inOrder(table);
+        order.verify(table).rebuildRows(0, 499);
+        order.verify(table).rebuildRows(500, 999);
+        order.verify(table).rebuildRows(1000, 1499);
+        order.verify(table).useRows();
+    }
+
+    @Test
+    public void emptyTableIsUsedAfterRebuild() {
+        when(table.getMaxDemographicNo()).thenReturn(null);
+
+        refresher.rebuild();
+
+        verify(table, never()).rebuildRows(anyInt(), anyInt());
+        verify(table).useRows();
+    }
+
+    @Test
+    public void valuesAreSplitInChunks() {
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < DenormalizedTableRefresher.CHUNK_SIZE + 1; i++) {
+            values.add(i);
+        }
+
+        List<List<Integer>> chunks = DenormalizedTableRefresher.chunks(values);
+
+        assertEquals(2, chunks.size());
+        assertEquals(DenormalizedTableRefresher.CHUNK_SIZE, chunks.get(0).size());
+        assertEquals(List.of(DenormalizedTableRefresher.CHUNK_SIZE), chunks.get(1));
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.IllegalTransactionStateException;
+
+import ca.openosp.openo.commn.dao.DomainEventDao;
+import ca.openosp.openo.commn.dao.DomainEventDeadLetterDao;
+import ca.openosp.openo.commn.dao.DomainEventDeliveryDao;
+import ca.openosp.openo.commn.model.DomainEvent;
+import ca.openosp.openo.commn.model.DomainEventDeadLetter;
+import ca.openosp.openo.commn.model.DomainEventDelivery;
+import ca.openosp.openo.event.DomainEventListener;
+
+public class DomainEventManagerImplTest {
+
+    private static final String LISTENER = "test.Listener";
+
+    private DomainEventDao domainEventDao;
+    private DomainEventDeliveryDao domainEventDeliveryDao;
+    private DomainEventDeadLetterDao domainEventDeadLetterDao;
+    private DomainEventListener listener;
+    private DomainEventManagerImpl manager;
+
+    @Before
+    public void setUp() {
+        domainEventDao = mock(DomainEventDao.class);
+        domainEventDeliveryDao = mock(DomainEventDeliveryDao.class);
+        domainEventDeadLetterDao = mock(DomainEventDeadLetterDao.class);
+        listener = mock(DomainEventListener.class);
+        when(listener.supportsEventType(DomainEvent.APPOINTMENT_STATUS_CHANGE)).thenReturn(true);
+        when(domainEventDeliveryDao.claim(any(Long.class), anyString(), anyInt())).thenReturn(true);
+
+        manager = new DomainEventManagerImpl();
+        ReflectionTestUtils.setField(manager, "domainEventDao", domainEventDao);
+        ReflectionTestUtils.setField(manager, "domainEventDeliveryDao", domainEventDeliveryDao);
+        ReflectionTestUtils.setField(manager, "domainEventDeadLetterDao", domainEventDeadLetterDao);
+        ReflectionTestUtils.setField(manager, "listeners", Map.of(LISTENER, listener));
+        manager.init();
+    }
+
+    @After
+    public void tearDown() {
+        manager.stop();
+    }
+
+    @Test
+    public void eventWithoutListenersIsNotWritten() {
+        manager.publish(DomainEvent.VACANCY_CREATED, "3", null);
+
+        verify(domainEventDao, never()).persist(any(DomainEvent.class));
+        verify(domainEventDeliveryDao, never()).persist(any(DomainEventDelivery.class));
+    }
+
+    @Test
+    public void eventIsWrittenWithADeliveryPerListener() {
+        manager.publish(DomainEvent.APPOINTMENT_STATUS_CHANGE, "12", Map.of("status", "H"));
+
+        ArgumentCaptor<DomainEvent> event = ArgumentCaptor.forClass(DomainEvent.class);
+        verify(domainEventDao).persist(event.capture());
+        assertEquals("12", event.getValue().getAggregateId());
+        assertEquals("{\"status\":\"H\"}", event.getValue().getPayload());
+
+        ArgumentCaptor<DomainEventDelivery> delivery = ArgumentCaptor.forClass(DomainEventDelivery.class);
+        verify(domainEventDeliveryDao).persist(delivery.capture());
+        assertEquals(LISTENER, delivery.getValue().getListener());
+        assertEquals("12", delivery.getValue().getAggregateId());
+    }
+
+    @Test
+    public void eventIsWrittenThroughTheCallersSession() {
+        Session session = mock(Session.class);
+        Transaction transaction = mock(Transaction.class);
+        when(session.getTransaction()).thenReturn(transaction);
+        when(transaction.isActive()).thenReturn(true);
+
+        manager.publish(session, DomainEvent.APPOINTMENT_STATUS_CHANGE, "12", null);
+
+        verify(session).persist(any(DomainEvent.class));
+        verify(session).persist(any(DomainEventDelivery.class));
+        verify(domainEventDao, never()).persist(any(DomainEvent.class));
+        verify(domainEventDeliveryDao, never()).persist(any(DomainEventDelivery.class));
+
+        // the dispatcher is only woken once the session's transaction commits
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transaction).registerSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(Status.STATUS_ROLLEDBACK);
+        assertEquals(0, ((Semaphore) ReflectionTestUtils.getField(manager, "wakeUp")).availablePermits());
+    }
+
+    @Test(expected = IllegalTransactionStateException.class)
+    public void sessionWithoutATransactionIsRefused() {
+        Session session = mock(Session.class);
+        Transaction transaction = mock(Transaction.class);
+        when(session.getTransaction()).thenReturn(transaction);
+
+        manager.publish(session, DomainEvent.APPOINTMENT_STATUS_CHANGE, "12", null);
+    }
+
+    @Test
+    public void failedDeliveryIsRetriedLater() throws Exception {
+        DomainEvent first = event(1L);
+        doThrow(new IllegalStateException("unavailable")).when(listener).onDomainEvent(eq(first), any());
+
+        assertFalse(manager.deliver(delivery(10L, 1L, 0)));
+
+        verify(domainEventDeliveryDao).retryLater(eq(10L), eq(1), eq(30), anyString());
+        verify(domainEventDeliveryDao, never()).remove(any(Object.class));
+    }
+
+    @Test
+    public void deliveryOutOfAttemptsBecomesADeadLetter() throws Exception {
+        DomainEvent first = event(1L);
+        doThrow(new IllegalStateException("unavailable")).when(listener).onDomainEvent(eq(first), any());
+
+        assertTrue(manager.deliver(delivery(10L, 1L, 7)));
+
+        ArgumentCaptor<DomainEventDeadLetter> deadLetter = ArgumentCaptor.forClass(DomainEventDeadLetter.class);
+        verify(domainEventDeadLetterDao).persist(deadLetter.capture());
+        assertEquals(Long.valueOf(1L), deadLetter.getValue().getEventId());
+        assertEquals(8, deadLetter.getValue().getAttempts());
+        verify(domainEventDeliveryDao).remove((Object) 10L);
+    }
+
+    @Test
+    public void deliveryClaimedElsewhereIsLeftAlone() throws Exception {
+        event(1L);
+        when(domainEventDeliveryDao.claim(eq(10L), anyString(), anyInt())).thenReturn(false);
+
+        assertFalse(manager.deliver(delivery(10L, 1L, 0)));
+
+        verify(listener, never()).onDomainEvent(any(), any());
+        verify(domainEventDeliveryDao, never()).remove(any(Object.class));
+    }
+
+    @Test
+    public void dispatchAsksOnlyForThisServersListeners() throws Exception {
+        DomainEvent first = event(1L);
+        when(domainEventDeliveryDao.findPending(eq(Set.of(LISTENER)), anyInt())).thenReturn(List.of(delivery(10L, 1L, 0)));
+
+        manager.dispatch();
+
+        verify(listener, timeout(5000)).onDomainEvent(eq(first), any());
+        verify(domainEventDeliveryDao, timeout(5000)).remove((Object) 10L);
+    }
+
+    @Test
+    public void retryDelayDoublesUpToAnHour() {
+        assertEquals(30, manager.retryDelaySeconds(1));
+        assertEquals(60, manager.retryDelaySeconds(2));
+        assertEquals(3600, manager.retryDelaySeconds(20));
+    }
+
+    private DomainEvent event(Long id) {
+        DomainEvent event = new DomainEvent();
+        ReflectionTestUtils.setField(event, "id", id);
+        event.setEventType(DomainEvent.APPOINTMENT_STATUS_CHANGE);
+        event.setAggregateId("12");
+        event.setCreated(new Date());
+        when(domainEventDao.find(id)).thenReturn(event);
+        return event;
+    }
+
+    private static DomainEventDelivery delivery(Long id, Long eventId, int attempts) {
+        DomainEventDelivery delivery = new DomainEventDelivery();
+        ReflectionTestUtils.setField(delivery, "id", id);
+        delivery.setEventId(eventId);
+        delivery.setListener(LISTENER);
+        delivery.setAggregateId("12");
+        delivery.setAttempts(attempts);
+        return delivery;
+    }
+}
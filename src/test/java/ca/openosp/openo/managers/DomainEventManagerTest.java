@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ca.openosp.openo.commn.dao.DaoTestFixtures;
+import ca.openosp.openo.commn.dao.DomainEventDeliveryDao;
+import ca.openosp.openo.commn.dao.utils.SchemaUtils;
+import ca.openosp.openo.commn.model.DomainEvent;
+import ca.openosp.openo.commn.model.DomainEventDelivery;
+import ca.openosp.openo.event.DomainEventListener;
+import ca.openosp.openo.utility.SpringUtils;
+
+/**
+ * A domain event is written with the change it describes, so it disappears when that change is rolled back.
+ */
+public class DomainEventManagerTest extends DaoTestFixtures {
+
+    private static final String LISTENER = "test.Listener";
+
+    protected DomainEventManager manager = SpringUtils.getBean(DomainEventManager.class);
+    protected DomainEventDeliveryDao deliveryDao = SpringUtils.getBean(DomainEventDeliveryDao.class);
+    protected PlatformTransactionManager transactionManager = SpringUtils.getBean(PlatformTransactionManager.class);
+    protected SessionFactory sessionFactory = (SessionFactory) SpringUtils.getBean("sessionFactory");
+
+    private Object listeners;
+
+    @Before
+    public void before() throws Exception {
+        SchemaUtils.restoreTable("DomainEvent", "DomainEventDelivery");
+
+        Object target = AopTestUtils.getUltimateTargetObject(manager);
+        listeners = ReflectionTestUtils.getField(target, "listeners");
+        ReflectionTestUtils.setField(target, "listeners", Map.of(LISTENER, new DomainEventListener() {
+            @Override
+            public boolean supportsEventType(String eventType) {
+                return true;
+            }
+
+            @Override
+            public void onDomainEvent(DomainEvent event, Map<String, String> payload) {
+            }
+        }));
+    }
+
+    @After
+    public void after() {
+        ReflectionTestUtils.setField(AopTestUtils.getUltimateTargetObject(manager), "listeners", listeners);
+    }
+
+    @Test(expected = IllegalTransactionStateException.class)
+    public void testPublishOutsideATransactionIsRefused() {
+        manager.publish(DomainEvent.VACANCY_CREATED, "1", null);
+    }
+
+    @Test
+    public void testRolledBackTransactionDiscardsItsEvent() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            manager.publish(DomainEvent.VACANCY_CREATED, "1", null);
+            status.setRollbackOnly();
+        });
+        assertEquals(0, pending().size());
+
+        transaction.executeWithoutResult(status -> manager.publish(DomainEvent.VACANCY_CREATED, "2", null));
+        List<DomainEventDelivery> pending = pending();
+        assertEquals(1, pending.size());
+        assertEquals("2", pending.get(0).getAggregateId());
+    }
+
+    @Test
+    public void testRolledBackSessionDiscardsItsEvent() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            manager.publish(session, DomainEvent.DEMOGRAPHIC_UPDATE, "1", null);
+            transaction.rollback();
+
+            transaction = session.beginTransaction();
+            manager.publish(session, DomainEvent.DEMOGRAPHIC_UPDATE, "2", null);
+            transaction.commit();
+        }
+
+        List<DomainEventDelivery> pending = pending();
+        assertEquals(1, pending.size());
+        assertEquals("2", pending.get(0).getAggregateId());
+    }
+
+    @Test(expected = IllegalTransactionStateException.class)
+    public void testPublishOnASessionWithoutATransactionIsRefused() {
+        try (Session session = sessionFactory.openSession()) {
+            manager.publish(session, DomainEvent.DEMOGRAPHIC_UPDATE, "1", null);
+        }
+    }
+
+    private List<DomainEventDelivery> pending() {
+        return deliveryDao.findPending(List.of(LISTENER), 10);
+    }
+}
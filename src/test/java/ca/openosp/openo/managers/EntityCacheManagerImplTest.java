@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ca.openosp.openo.billing.CA.ON.model.BillingPercLimit;
+import ca.openosp.openo.commn.model.BillingService;
+
+/**
+ * Runs the two session factories of the application, JPA and Hibernate, against one in-memory
+ * database with the regions of ehcache-hibernate.xml.
+ */
+public class EntityCacheManagerImplTest {
+
+    private static final String REGION = "jpa." + BillingService.class.getName();
+
+    private SessionFactory jpa;
+    private SessionFactory hibernate;
+    private EntityCacheManagerImpl entityCacheManager;
+    private Integer id;
+
+    @Before
+    public void setUp() {
+        jpa = buildSessionFactory("jpa", "create");
+        hibernate = buildSessionFactory("hibernate", "none");
+
+        entityCacheManager = new EntityCacheManagerImpl();
+        ReflectionTestUtils.setField(entityCacheManager, "entityManagerFactory", jpa);
+        ReflectionTestUtils.setField(entityCacheManager, "sessionFactory", hibernate);
+        entityCacheManager.registerInvalidationListeners();
+
+        BillingService service = new BillingService();
+        service.setServiceCode("A001A");
+        service.setDescription("Minor assessment");
+        service.setValue("10.00");
+        service.setRegion("ON");
+        service.setBillingserviceDate(new Date());
+        try (Session session = jpa.openSession()) {
+            session.beginTransaction();
+            session.persist(service);
+            session.getTransaction().commit();
+        }
+        id = service.getId();
+    }
+
+    @After
+    public void tearDown() {
+        hibernate.close();
+        jpa.close();
+    }
+
+    @Test
+    public void testCommittedUpdateEvictsTheOtherSessionFactory() {
+        assertEquals("10.00", read(jpa).getValue());
+        assertTrue(jpa.getCache().containsEntity(BillingService.class, id));
+
+        try (Session session = hibernate.openSession()) {
+            session.beginTransaction();
+            session.get(BillingService.class, id).setValue("12.50");
+            session.getTransaction().commit();
+        }
+
+        assertFalse(jpa.getCache().containsEntity(BillingService.class, id));
+        assertEquals("12.50", read(jpa).getValue());
+    }
+
+    @Test
+    public void testRolledBackUpdateKeepsTheEntry() {
+        assertEquals("10.00", read(jpa).getValue());
+
+        try (Session session = hibernate.openSession()) {
+            session.beginTransaction();
+            session.get(BillingService.class, id).setValue("12.50");
+            session.flush();
+            session.getTransaction().rollback();
+        }
+
+        assertTrue(jpa.getCache().containsEntity(BillingService.class, id));
+        assertEquals("10.00", read(jpa).getValue());
+    }
+
+    @Test
+    public void testCommittedDeleteEvictsTheOtherSessionFactory() {
+        assertNotNull(read(jpa));
+
+        try (Session session = hibernate.openSession()) {
+            session.beginTransaction();
+            session.delete(session.get(BillingService.class, id));
+            session.getTransaction().commit();
+        }
+
+        assertNull(read(jpa));
+    }
+
+    @Test
+    public void testEvictAfterJdbcWrite() {
+        assertEquals("10.00", read(jpa).getValue());
+
+        // bulk writes go around the session, like BillingServiceDao.applyFeeSchedule
+        try (Session session = jpa.openSession()) {
+            session.beginTransaction();
+            session.doWork(connection -> connection.createStatement().executeUpdate("update billingservice set value = '15.00'"));
+            session.getTransaction().commit();
+        }
+        assertEquals("10.00", read(jpa).getValue());
+
+        entityCacheManager.evict(BillingService.class);
+        assertEquals("15.00", read(jpa).getValue());
+    }
+
+    @Test
+    public void testRegionUsesItsConfiguration() {
+        read(jpa);
+        EntityCacheManager.RegionStatistics region = null;
+        for (EntityCacheManager.RegionStatistics statistics : entityCacheManager.getRegionStatistics()) {
+            if (statistics.getRegionName().equals(REGION)) {
+                region = statistics;
+            }
+        }
+        assertNotNull(region);
+        assertEquals("nonstrict-read-write", region.getAccessType());
+        assertEquals(20000, region.getMaxEntries());
+        assertEquals(3600, region.getTimeToLiveSeconds());
+        assertEquals(1, region.getSize());
+
+        entityCacheManager.evictRegion(REGION);
+        assertFalse(jpa.getCache().containsEntity(BillingService.class, id));
+    }
+
+    private BillingService read(SessionFactory factory) {
+        try (Session session = factory.openSession()) {
+            return session.get(BillingService.class, id);
+        }
+    }
+
+    private static SessionFactory buildSessionFactory(String regionPrefix, String schema) {
+        Configuration configuration = new Configuration();
+        configuration.setProperty(AvailableSettings.DRIVER, "org.h2.Driver");
+        configuration.setProperty(AvailableSettings.URL, "jdbc:h2:mem:entitycache;MODE=MySQL;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1");
+        configuration.setProperty(AvailableSettings.USER, "sa");
+        configuration.setProperty(AvailableSettings.PASS, "");
+        configuration.setProperty(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect");
+        configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, schema);
+        // the cache settings of spring_jpa.xml and spring_hibernate.xml
+        configuration.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+        configuration.setProperty(AvailableSettings.CACHE_REGION_FACTORY, "org.hibernate.cache.ehcache.SingletonEhCacheRegionFactory");
+        configuration.setProperty("net.sf.ehcache.configurationResourceName", "/ehcache-hibernate.xml");
+        configuration.setProperty(AvailableSettings.CACHE_REGION_PREFIX, regionPrefix);
+        configuration.setProperty(AvailableSettings.JPA_SHARED_CACHE_MODE, "ENABLE_SELECTIVE");
+        configuration.addAnnotatedClass(BillingService.class);
+        configuration.addAnnotatedClass(BillingPercLimit.class);
+        return configuration.buildSessionFactory();
+    }
+}
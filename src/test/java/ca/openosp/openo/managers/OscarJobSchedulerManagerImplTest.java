@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ca.openosp.openo.commn.dao.OscarJobLeaseDao;
+import ca.openosp.openo.commn.dao.OscarJobRunDao;
+import ca.openosp.openo.commn.jobs.OscarJobProgress;
+import ca.openosp.openo.commn.model.OscarJobRun;
+
+public class OscarJobSchedulerManagerImplTest {
+
+    private static final long NEVER = TimeUnit.DAYS.toMillis(1);
+
+    private OscarJobLeaseDao oscarJobLeaseDao;
+    private OscarJobRunDao oscarJobRunDao;
+    private OscarJobSchedulerManagerImpl manager;
+
+    @Before
+    public void setUp() {
+        oscarJobLeaseDao = mock(OscarJobLeaseDao.class);
+        oscarJobRunDao = mock(OscarJobRunDao.class);
+        doAnswer(invocation -> {
+            ReflectionTestUtils.setField((OscarJobRun) invocation.getArgument(0), "id", 1);
+            return null;
+        }).when(oscarJobRunDao).persist(any(OscarJobRun.class));
+
+        manager = new OscarJobSchedulerManagerImpl();
+        ReflectionTestUtils.setField(manager, "oscarJobLeaseDao", oscarJobLeaseDao);
+        ReflectionTestUtils.setField(manager, "oscarJobRunDao", oscarJobRunDao);
+        manager.init();
+    }
+
+    @After
+    public void tearDown() {
+        manager.stop();
+    }
+
+    @Test
+    public void runIsSkippedWithoutTheLease() throws Exception {
+        when(oscarJobLeaseDao.acquire(eq("test"), anyString(), anyInt(), anyBoolean())).thenReturn(false);
+        CountDownLatch ran = new CountDownLatch(1);
+
+        manager.schedule("test", ran::countDown, 0, NEVER);
+
+        verify(oscarJobLeaseDao, timeout(5000)).acquire(eq("test"), anyString(), anyInt(), eq(false));
+        assertEquals(1, ran.getCount());
+        verify(oscarJobRunDao, never()).persist(any(OscarJobRun.class));
+    }
+
+    @Test
+    public void successfulRunIsRecorded() {
+        when(oscarJobLeaseDao.acquire(eq("test"), anyString(), anyInt(), anyBoolean())).thenReturn(true);
+
+        manager.schedule("test", () -> OscarJobProgress.addRowsProcessed(12), 0, NEVER);
+
+        OscarJobRun run = finishedRun();
+        assertEquals(OscarJobRun.STATUS_OK, run.getStatus());
+        assertEquals(Integer.valueOf(12), run.getRowsProcessed());
+        assertNotNull(run.getFinished());
+        verify(oscarJobLeaseDao, timeout(5000)).release(eq("test"), anyString());
+    }
+
+    @Test
+    public void failedRunIsRecordedAndTheLeaseReleased() {
+        when(oscarJobLeaseDao.acquire(eq("test"), anyString(), anyInt(), anyBoolean())).thenReturn(true);
+
+        manager.schedule("test", () -> {
+            throw new IllegalStateException("remote server down");
+        }, 0, NEVER);
+
+        OscarJobRun run = finishedRun();
+        assertEquals(OscarJobRun.STATUS_FAILED, run.getStatus());
+        assertTrue(run.getError().contains("remote server down"));
+        assertNull(run.getRowsProcessed());
+        verify(oscarJobLeaseDao, timeout(5000)).release(eq("test"), anyString());
+    }
+
+    private OscarJobRun finishedRun() {
+        ArgumentCaptor<OscarJobRun> captor = ArgumentCaptor.forClass(OscarJobRun.class);
+        verify(oscarJobRunDao, timeout(5000)).merge(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ca.openosp.openo.commn.dao.DemographicDao;
+import ca.openosp.openo.commn.dao.ProgramDomainClientDao;
+
+/**
+ * The marking, retrying and scheduling are covered by {@link DenormalizedTableRefresherTest}.
+ */
+public class ProgramDomainManagerImplTest {
+
+    private ProgramDomainClientDao programDomainClientDao;
+    private ProgramDomainManagerImpl manager;
+
+    @Before
+    public void setUp() {
+        programDomainClientDao = mock(ProgramDomainClientDao.class);
+
+        manager = new ProgramDomainManagerImpl();
+        ReflectionTestUtils.setField(manager, "programDomainClientDao", programDomainClientDao);
+        ReflectionTestUtils.setField(manager, "demographicDao", mock(DemographicDao.class));
+        ((AtomicBoolean) ReflectionTestUtils.getField(ReflectionTestUtils.getField(manager, "refresher"), "started")).set(true);
+    }
+
+    @Test
+    public void changedClientsAndProvidersAreRefreshedSeparately() {
+        manager.domainChanged(5, null);
+        manager.domainChanged(1, null);
+        manager.domainChanged(null, "999998");
+        manager.domainChanged(0, "");
+        manager.refresh();
+
+        verify(programDomainClientDao).refreshClients(List.of(1, 5));
+        verify(programDomainClientDao).refreshProviders(List.of("999998"));
+    }
+
+    @Test
+    public void onlyClientsChanged() {
+        manager.domainChanged(2, null);
+        manager.refresh();
+
+        verify(programDomainClientDao).refreshClients(List.of(2));
+        verify(programDomainClientDao, never()).refreshProviders(anyList());
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ca.openosp.openo.commn.dao.ProviderLabRoutingDao;
+
+public class TabAlertManagerImplTest {
+
+    private ProviderLabRoutingDao providerLabRoutingDao;
+    private TabAlertManagerImpl manager;
+
+    @Before
+    public void setUp() {
+        providerLabRoutingDao = mock(ProviderLabRoutingDao.class);
+        when(providerLabRoutingDao.countByProviderNo("101", "N")).thenReturn(3, 4);
+        when(providerLabRoutingDao.countByProviderNo("102", "N")).thenReturn(7, 8);
+
+        manager = new TabAlertManagerImpl();
+        ReflectionTestUtils.setField(manager, "providerLabRoutingDao", providerLabRoutingDao);
+    }
+
+    @Test
+    public void countsAreServedFromMemoryUntilChanged() {
+        assertEquals(3, manager.getNewLabCount("101"));
+        assertEquals(3, manager.getNewLabCount("101"));
+        verify(providerLabRoutingDao, times(1)).countByProviderNo("101", "N");
+
+        manager.alertChanged(TabAlertManager.Alert.LAB, "101");
+        assertEquals(4, manager.getNewLabCount("101"));
+        verify(providerLabRoutingDao, times(2)).countByProviderNo("101", "N");
+    }
+
+    @Test
+    public void changeOnlyInvalidatesThatProvider() {
+        assertEquals(3, manager.getNewLabCount("101"));
+        assertEquals(7, manager.getNewLabCount("102"));
+
+        manager.alertChanged(TabAlertManager.Alert.LAB, "101");
+        manager.alertChanged(TabAlertManager.Alert.TICKLER, "102");
+        assertEquals(4, manager.getNewLabCount("101"));
+        assertEquals(7, manager.getNewLabCount("102"));
+
+        manager.alertChanged(TabAlertManager.Alert.LAB, null);
+        assertEquals(8, manager.getNewLabCount("102"));
+    }
+
+    @Test
+    public void subscribersAreNotifiedOfTheirOwnAlerts() {
+        List<String> received = new ArrayList<String>();
+        manager.subscribe(subscriber("101", "101", received));
+        // a provider whose tickler view shows another provider's ticklers
+        manager.subscribe(subscriber("102", "101", received));
+
+        manager.alertChanged(TabAlertManager.Alert.LAB, "101");
+        manager.alertChanged(TabAlertManager.Alert.TICKLER, "101");
+        manager.alertChanged(TabAlertManager.Alert.MESSAGE, "103");
+        manager.alertChanged(TabAlertManager.Alert.CONSULT, null);
+
+        assertEquals(List.of("101:oscar_new_lab", "101:oscar_new_tickler", "102:oscar_new_tickler",
+                "101:oscar_aged_consults", "102:oscar_aged_consults"), received);
+    }
+
+    private static TabAlertManager.Subscriber subscriber(String providerNo, String ticklerAssignee, List<String> received) {
+        return new TabAlertManager.Subscriber() {
+            @Override
+            public String getProviderNo() {
+                return providerNo;
+            }
+
+            @Override
+            public String getTicklerAssignee() {
+                return ticklerAssignee;
+            }
+
+            @Override
+            public void alertChanged(TabAlertManager.Alert alert) {
+                received.add(providerNo + ":" + alert.getTabId());
+            }
+        };
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.match;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ca.openosp.OscarProperties;
+import ca.openosp.openo.PMmodule.dao.VacancyDao;
+import ca.openosp.openo.PMmodule.dao.WaitlistDao;
+import ca.openosp.openo.PMmodule.model.Vacancy;
+import ca.openosp.openo.match.client.ClientData;
+import ca.openosp.openo.match.vacancy.VacancyData;
+import ca.openosp.openo.match.vacancy.VacancyTemplateData;
+
+public class MatchIndexTest {
+
+    private WaitlistDao waitlistDao;
+    private VacancyDao vacancyDao;
+    private MatchIndex matchIndex;
+
+    @Before
+    public void setUp() {
+        waitlistDao = mock(WaitlistDao.class);
+        vacancyDao = mock(VacancyDao.class);
+        when(waitlistDao.loadActiveVacancyData()).thenReturn(Arrays.asList(vacancy(1, "age", "gender"), vacancy(2, "language"), vacancy(3)));
+
+        matchIndex = new MatchIndex();
+        ReflectionTestUtils.setField(matchIndex, "waitlistDao", waitlistDao);
+        ReflectionTestUtils.setField(matchIndex, "vacancyDao", vacancyDao);
+    }
+
+    @Test
+    public void candidatesShareACriterionWithTheClient() {
+        List<VacancyData> candidates = matchIndex.getCandidateVacancies(client("gender", "language"));
+
+        assertEquals(2, candidates.size());
+        assertEquals(1, candidates.get(0).getVacancy_id());
+        assertEquals(2, candidates.get(1).getVacancy_id());
+        assertTrue(matchIndex.getCandidateVacancies(client("income")).isEmpty());
+        verify(waitlistDao, times(1)).loadActiveVacancyData();
+    }
+
+    @Test
+    public void closedVacancyIsDropped() {
+        Vacancy closed = new Vacancy();
+        closed.setStatus("FILLED");
+        when(vacancyDao.find(2)).thenReturn(closed);
+
+        assertNull(matchIndex.vacancyChanged(2));
+
+        assertTrue(matchIndex.getCandidateVacancies(client("language")).isEmpty());
+        assertEquals(2, matchIndex.getVacancies(Arrays.asList(1, 2, 3)).size());
+    }
+
+    @Test
+    public void editedVacancyIsReindexed() {
+        Vacancy active = new Vacancy();
+        active.setStatus("ACTIVE");
+        when(vacancyDao.find(3)).thenReturn(active);
+        when(waitlistDao.loadVacancyData(3)).thenReturn(vacancy(3, "language"));
+
+        matchIndex.vacancyChanged(3);
+
+        List<VacancyData> candidates = matchIndex.getCandidateVacancies(client("language"));
+        assertEquals(2, candidates.size());
+        assertEquals(3, candidates.get(1).getVacancy_id());
+    }
+
+    @Test
+    public void vacancyClosedElsewhereIsNotScored() {
+        when(vacancyDao.findActiveIds(Arrays.asList(1, 2))).thenReturn(Arrays.asList(1));
+
+        List<VacancyData> active = matchIndex.retainActive(matchIndex.getCandidateVacancies(client("gender", "language")));
+
+        assertEquals(1, active.size());
+        assertEquals(1, active.get(0).getVacancy_id());
+        assertTrue(matchIndex.getCandidateVacancies(client("language")).isEmpty());
+    }
+
+    @Test
+    public void oldIndexIsReadAgain() throws Exception {
+        OscarProperties.getInstance().setProperty("match.index_max_age_seconds", "0");
+        try {
+            matchIndex.getCandidateVacancies(client("language"));
+            Thread.sleep(10);
+            matchIndex.getCandidateVacancies(client("language"));
+        } finally {
+            OscarProperties.getInstance().remove("match.index_max_age_seconds");
+        }
+
+        verify(waitlistDao, times(2)).loadActiveVacancyData();
+    }
+
+    private static VacancyData vacancy(int id, String... params) {
+        VacancyData vacancyData = new VacancyData();
+        vacancyData.setVacancy_id(id);
+        for (String param : params) {
+            VacancyTemplateData templateData = new VacancyTemplateData();
+            templateData.setParam(param);
+            vacancyData.getVacancyData().put(param, templateData);
+        }
+        return vacancyData;
+    }
+
+    private static ClientData client(String... params) {
+        ClientData clientData = new ClientData();
+        clientData.setClientId(10);
+        for (String param : params) {
+            clientData.getClientData().put(param, "x");
+        }
+        return clientData;
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.olis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.openosp.openo.PMmodule.dao.ProviderDao;
+import ca.openosp.openo.commn.dao.UserPropertyDAO;
+import ca.openosp.openo.commn.model.Provider;
+import ca.openosp.openo.commn.model.UserProperty;
+import ca.openosp.openo.olis.dao.OLISProviderPreferencesDao;
+import ca.openosp.openo.olis.model.OLISProviderPreferences;
+
+public class OLISPollingEngineTest {
+
+    private static final String START = "20260101000000-0500";
+
+    private ProviderDao providerDao;
+    private UserPropertyDAO userPropertyDAO;
+    private OLISProviderPreferencesDao olisProviderPreferencesDao;
+
+    /** canned responses by practitioner number, replayed in order */
+    private final Map<String, Deque<String>> responses = new ConcurrentHashMap<String, Deque<String>>();
+    private final Map<String, AtomicInteger> queries = new ConcurrentHashMap<String, AtomicInteger>();
+    private final Map<String, OLISProviderPreferences> cursors = new ConcurrentHashMap<String, OLISProviderPreferences>();
+    private final List<String> imported = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() {
+        providerDao = mock(ProviderDao.class);
+        userPropertyDAO = mock(UserPropertyDAO.class);
+        olisProviderPreferencesDao = mock(OLISProviderPreferencesDao.class);
+
+        when(userPropertyDAO.getStringValue(anyString(), eq(UserProperty.OFFICIAL_LAST_NAME))).thenReturn("Smith");
+        when(olisProviderPreferencesDao.findById(anyString())).thenAnswer(invocation -> cursors.get(invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            OLISProviderPreferences cursor = invocation.getArgument(0);
+            cursors.put(cursor.getProviderId(), cursor);
+            return cursor;
+        }).when(olisProviderPreferencesDao).merge(any(OLISProviderPreferences.class));
+    }
+
+    private OLISPollingEngine createEngine(int maxAttempts) {
+        OLISPollingEngine.OLISGateway gateway = (loggedInInfo, query) -> {
+            String practitionerNo = query.getRequestingHICProviderNo();
+            queries.computeIfAbsent(practitionerNo, k -> new AtomicInteger()).incrementAndGet();
+            String response = responses.get(practitionerNo).poll();
+            if (response == null) throw new IllegalStateException("OLIS unavailable");
+            return response;
+        };
+        OLISPollingEngine.ResultImporter importer = (loggedInInfo, response) -> {
+            imported.add(response);
+            return response.substring(response.indexOf('|') + 1);
+        };
+        return new OLISPollingEngine(providerDao, userPropertyDAO, olisProviderPreferencesDao, gateway, importer, 3, maxAttempts, 1);
+    }
+
+    private Provider provider(String providerNo, String... cannedResponses) {
+        Provider provider = new Provider();
+        provider.setProviderNo(providerNo);
+        provider.setPractitionerNo("P" + providerNo);
+        responses.put("P" + providerNo, new ConcurrentLinkedDeque<String>(Arrays.asList(cannedResponses)));
+        return provider;
+    }
+
+    @Test
+    public void pollProviders_importsResultsAndMovesCursors() {
+        when(providerDao.getActiveProviders()).thenReturn(Arrays.asList(
+                provider("1", "<Response>1|20260102000000-0500"),
+                provider("2", "<Response>2|20260103000000-0500")));
+
+        assertEquals(2, createEngine(3).pollProviders(null, START, ""));
+
+        assertEquals(2, imported.size());
+        assertEquals("20260102000000-0500", cursors.get("1").getStartTime());
+        assertEquals("20260103000000-0500", cursors.get("2").getStartTime());
+        assertNotNull(cursors.get("1").getLastRun());
+    }
+
+    @Test
+    public void pollProvider_retriesUntilOLISResponds() throws Exception {
+        Provider provider = provider("1", "", "<Error/>", "<Response>1|20260102000000-0500");
+
+        assertTrue(createEngine(3).pollProvider(null, provider, START, ""));
+
+        assertEquals(3, queries.get("P1").get());
+        assertEquals(1, imported.size());
+        assertEquals("20260102000000-0500", cursors.get("1").getStartTime());
+    }
+
+    @Test
+    public void pollProviders_failingProviderDoesNotStopOthersAndKeepsItsCursor() {
+        OLISProviderPreferences cursor = new OLISProviderPreferences();
+        cursor.setProviderId("2");
+        cursor.setStartTime("20251201000000-0500");
+        cursors.put("2", cursor);
+        when(providerDao.getActiveProviders()).thenReturn(Arrays.asList(
+                provider("1", "<Response>1|20260102000000-0500"),
+                provider("2"),
+                provider("3", "<Response>3|20260104000000-0500")));
+
+        assertEquals(2, createEngine(2).pollProviders(null, START, ""));
+
+        assertEquals(2, queries.get("P2").get());
+        assertEquals("20251201000000-0500", cursors.get("2").getStartTime());
+        assertNull(cursors.get("2").getLastRun());
+        assertEquals("20260104000000-0500", cursors.get("3").getStartTime());
+    }
+
+    @Test
+    public void pollProvider_skipsProvidersWithoutOfficialName() throws Exception {
+        when(userPropertyDAO.getStringValue("4", UserProperty.OFFICIAL_LAST_NAME)).thenReturn(" ");
+
+        assertFalse(createEngine(3).pollProvider(null, provider("4", "<Response>4|20260102000000-0500"), START, ""));
+
+        assertNull(queries.get("P4"));
+        assertTrue(cursors.isEmpty());
+    }
+}
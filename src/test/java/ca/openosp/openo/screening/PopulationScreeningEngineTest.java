@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.screening;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.openosp.openo.commn.dao.PropertyDao;
+import ca.openosp.openo.commn.model.Property;
+import ca.openosp.openo.utility.LoggedInInfo;
+
+public class PopulationScreeningEngineTest {
+
+    private Map<String, Property> properties;
+    private PropertyDao propertyDao;
+
+    @Before
+    public void setUp() {
+        properties = new HashMap<String, Property>();
+        propertyDao = mock(PropertyDao.class);
+        when(propertyDao.checkByName(anyString())).thenAnswer(invocation -> properties.get(invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            Property property = invocation.getArgument(0);
+            properties.put(property.getName(), property);
+            return null;
+        }).when(propertyDao).persist(any(Property.class));
+        doAnswer(invocation -> properties.remove(invocation.getArgument(0))).when(propertyDao).removeByName(anyString());
+    }
+
+    @Test
+    public void recordsEveryPatientInCohortOrder() {
+        List<Integer> cohort = new ArrayList<Integer>();
+        for (int i = 1000; i > 0; i--) {
+            cohort.add(i);
+        }
+        DoublingScreener screener = new DoublingScreener(cohort, -1);
+
+        int screened = new PopulationScreeningEngine(propertyDao, 4, 7).run(null, screener);
+
+        assertEquals(1000, screened);
+        assertEquals(1000, screener.recorded.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i + 1), screener.recorded.get(i));
+        }
+        assertNull(properties.get(PopulationScreeningEngine.getCheckpointName(screener)));
+    }
+
+    @Test
+    public void resumesAfterTheCheckpoint() {
+        List<Integer> cohort = new ArrayList<Integer>();
+        for (int i = 1; i <= 100; i++) {
+            cohort.add(i);
+        }
+        DoublingScreener failing = new DoublingScreener(cohort, 45);
+        try {
+            new PopulationScreeningEngine(propertyDao, 2, 10).run(null, failing);
+            fail("the screening should have failed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals("40", properties.get(PopulationScreeningEngine.getCheckpointName(failing)).getValue());
+
+        DoublingScreener resumed = new DoublingScreener(cohort, -1);
+        assertEquals(60, new PopulationScreeningEngine(propertyDao, 2, 10).run(null, resumed));
+        assertEquals(Integer.valueOf(41), resumed.recorded.get(0));
+        assertNull(properties.get(PopulationScreeningEngine.getCheckpointName(resumed)));
+    }
+
+    private static class DoublingScreener implements PopulationScreener<Map<Integer, Integer>, Integer> {
+
+        private final List<Integer> cohort;
+        private final int failOn;
+        private final List<Integer> recorded = Collections.synchronizedList(new ArrayList<Integer>());
+
+        DoublingScreener(List<Integer> cohort, int failOn) {
+            this.cohort = cohort;
+            this.failOn = failOn;
+        }
+
+        @Override
+        public String getName() {
+            return "doubling";
+        }
+
+        @Override
+        public List<Integer> getCohort() {
+            return cohort;
+        }
+
+        @Override
+        public Map<Integer, Integer> prefetch(List<Integer> demographicNos) {
+            Map<Integer, Integer> facts = new HashMap<Integer, Integer>();
+            for (Integer demographicNo : demographicNos) {
+                if (demographicNo == failOn) throw new IllegalArgumentException("unreadable " + demographicNo);
+                facts.put(demographicNo, demographicNo * 2);
+            }
+            return facts;
+        }
+
+        @Override
+        public Integer screen(Integer demographicNo, Map<Integer, Integer> facts) {
+            return facts.get(demographicNo);
+        }
+
+        @Override
+        public void record(LoggedInInfo loggedInInfo, Map<Integer, Integer> results) {
+            for (Map.Entry<Integer, Integer> result : results.entrySet()) {
+                assertEquals(Integer.valueOf(result.getKey() * 2), result.getValue());
+                recorded.add(result.getKey());
+            }
+        }
+    }
+}
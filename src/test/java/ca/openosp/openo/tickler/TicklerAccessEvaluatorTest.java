@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.tickler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.openosp.openo.PMmodule.dao.ProgramAccessDAO;
+import ca.openosp.openo.PMmodule.dao.ProgramProviderDAO;
+import ca.openosp.openo.PMmodule.model.ProgramAccess;
+import ca.openosp.openo.PMmodule.model.ProgramProvider;
+import ca.openosp.openo.casemgmt.service.CaseManagementManager;
+import ca.openosp.openo.commn.model.Tickler;
+import ca.openosp.openo.model.security.Secrole;
+
+public class TicklerAccessEvaluatorTest {
+
+    private static final Long PROGRAM = 10L;
+    private static final Long OTHER_PROGRAM = 20L;
+
+    private ProgramProviderDAO programProviderDAO;
+    private ProgramAccessDAO programAccessDAO;
+    private CaseManagementManager caseManagementManager;
+    private Map<String, ProgramAccess> accessMap;
+
+    private Secrole doctor;
+    private Secrole nurse;
+
+    @Before
+    public void setUp() {
+        doctor = role(1L, "doctor");
+        nurse = role(2L, "nurse");
+
+        programProviderDAO = mock(ProgramProviderDAO.class);
+        programAccessDAO = mock(ProgramAccessDAO.class);
+        caseManagementManager = mock(CaseManagementManager.class);
+        accessMap = new HashMap<String, ProgramAccess>();
+
+        when(programProviderDAO.getProgramProvidersByProvider("101")).thenReturn(List.of(programProvider("101", PROGRAM, doctor)));
+        when(programProviderDAO.getProgramProviders(PROGRAM)).thenReturn(List.of(programProvider("101", PROGRAM, doctor),
+                programProvider("102", PROGRAM, doctor), programProvider("201", PROGRAM, nurse)));
+        when(programAccessDAO.getAccessListByProgramId(PROGRAM)).thenReturn(Collections.<ProgramAccess>emptyList());
+        when(caseManagementManager.convertProgramAccessListToMap(any())).thenReturn(accessMap);
+        when(caseManagementManager.isRoleIncludedInAccess(any(), any())).thenAnswer(invocation ->
+                ((ProgramAccess) invocation.getArgument(0)).getRoles().contains(invocation.getArgument(1)));
+    }
+
+    @Test
+    public void ticklersOfTheSameRoleAreVisible() {
+        TicklerAccessEvaluator evaluator = evaluator();
+        assertTrue(evaluator.canRead(tickler(null, "999", "999")));
+        assertTrue(evaluator.canRead(tickler(PROGRAM, "102", "999")));
+        assertFalse(evaluator.canRead(tickler(PROGRAM, "201", "999")));
+        // not in the program at all
+        assertFalse(evaluator.canRead(tickler(OTHER_PROGRAM, "102", "101")));
+        // assigned to someone without a role in the program
+        assertFalse(evaluator.canRead(tickler(PROGRAM, "999", "999")));
+    }
+
+    @Test
+    public void writerCanReadTheirOwnTickler() {
+        assertTrue(evaluator().canRead(tickler(PROGRAM, "201", "101")));
+    }
+
+    @Test
+    public void accessRuleGrantsOtherRoles() {
+        ProgramAccess readNurseTicklers = new ProgramAccess();
+        readNurseTicklers.setRoles(new java.util.HashSet<Secrole>(List.of(doctor)));
+        accessMap.put("read ticklers assigned to a nurse", readNurseTicklers);
+
+        assertTrue(evaluator().canRead(tickler(PROGRAM, "201", "999")));
+    }
+
+    @Test
+    public void programIsLoadedOncePerList() {
+        List<Tickler> ticklers = new ArrayList<Tickler>();
+        for (int i = 0; i < 500; i++) {
+            ticklers.add(tickler(PROGRAM, i % 2 == 0 ? "102" : "201", "999"));
+        }
+
+        assertEquals(250, evaluator().filter(ticklers).size());
+        verify(programProviderDAO, times(1)).getProgramProvidersByProvider("101");
+        verify(programProviderDAO, times(1)).getProgramProviders(PROGRAM);
+        verify(programAccessDAO, times(1)).getAccessListByProgramId(PROGRAM);
+    }
+
+    private TicklerAccessEvaluator evaluator() {
+        return new TicklerAccessEvaluator("101", programProviderDAO, programAccessDAO, caseManagementManager);
+    }
+
+    private static Secrole role(Long id, String name) {
+        Secrole role = new Secrole();
+        role.setId(id);
+        role.setRoleName(name);
+        return role;
+    }
+
+    private static ProgramProvider programProvider(String providerNo, Long programId, Secrole role) {
+        ProgramProvider pp = new ProgramProvider();
+        pp.setProviderNo(providerNo);
+        pp.setProgramId(programId);
+        pp.setRole(role);
+        return pp;
+    }
+
+    private static Tickler tickler(Long programId, String assignedTo, String creator) {
+        Tickler tickler = new Tickler();
+        tickler.setProgramId(programId == null ? null : programId.intValue());
+        tickler.setTaskAssignedTo(assignedTo);
+        tickler.setCreator(creator);
+        return tickler;
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageDestination;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PDFAssemblerTest {
+
+    private File directory;
+    private File fivePages;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("assembler", "");
+        directory.delete();
+        directory.mkdir();
+        fivePages = new File(directory, "five.pdf");
+        try (PDDocument document = createDocument(5, 100)) {
+            document.save(fivePages);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testPageRangesAndRotation() throws IOException {
+        PDFAssembler assembler = new PDFAssembler(MemoryUsageSetting.setupMixed(64 * 1024));
+        assembler.addSource(fivePages).addPages("2-3, 5").addPage(1, 90);
+
+        File target = new File(directory, "selected.pdf");
+        assertEquals(4, assembler.assemble(target));
+
+        try (PDDocument result = PDDocument.load(target)) {
+            assertEquals(4, result.getNumberOfPages());
+            assertEquals(102, (int) result.getPage(0).getMediaBox().getWidth());
+            assertEquals(103, (int) result.getPage(1).getMediaBox().getWidth());
+            assertEquals(105, (int) result.getPage(2).getMediaBox().getWidth());
+            assertEquals(101, (int) result.getPage(3).getMediaBox().getWidth());
+            assertEquals(0, result.getPage(0).getRotation());
+            assertEquals(90, result.getPage(3).getRotation());
+        }
+        assertEquals(2, directory.listFiles().length);
+    }
+
+    @Test
+    public void testBookmarkPerSource() throws IOException {
+        ByteArrayOutputStream twoPages = new ByteArrayOutputStream();
+        try (PDDocument document = createDocument(2, 300)) {
+            document.save(twoPages);
+        }
+
+        PDFAssembler assembler = new PDFAssembler();
+        assembler.addSource(fivePages).addPages("4-").setBookmark("Consultation");
+        assembler.addSource(new ByteArrayInputStream(twoPages.toByteArray())).setBookmark("Lab");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(4, assembler.assemble(out));
+
+        try (PDDocument result = PDDocument.load(out.toByteArray())) {
+            PDOutlineItem first = result.getDocumentCatalog().getDocumentOutline().getFirstChild();
+            assertEquals("Consultation", first.getTitle());
+            assertEquals(0, ((PDPageDestination) first.getDestination()).retrievePageNumber());
+            PDOutlineItem second = first.getNextSibling();
+            assertEquals("Lab", second.getTitle());
+            assertEquals(2, ((PDPageDestination) second.getDestination()).retrievePageNumber());
+            assertEquals(301, (int) result.getPage(2).getMediaBox().getWidth());
+            assertNull(second.getNextSibling());
+        }
+    }
+
+    @Test
+    public void testUnreadableSource() throws IOException {
+        PDFAssembler assembler = new PDFAssembler();
+        assembler.addSource(new ByteArrayInputStream("not a pdf".getBytes()));
+        assembler.addSource(fivePages).addPage(3);
+        try {
+            assembler.assemble(new ByteArrayOutputStream());
+            fail("unreadable source was accepted");
+        } catch (IOException e) {
+            // expected
+        }
+
+        assembler = new PDFAssembler();
+        assembler.setSkipUnreadableSources(true);
+        assembler.addSource(new ByteArrayInputStream("not a pdf".getBytes()));
+        assembler.addSource(fivePages).addPage(3);
+        assertEquals(1, assembler.assemble(new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void testCancel() throws IOException {
+        PDFAssembler assembler = new PDFAssembler();
+        assembler.addSource(fivePages);
+        assembler.cancel();
+
+        File target = new File(directory, "cancelled.pdf");
+        try {
+            assembler.assemble(target);
+            fail("cancelled assembly completed");
+        } catch (CancellationException e) {
+            // expected
+        }
+        assertFalse(target.exists());
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    @Test
+    public void testNoPagesSelected() throws IOException {
+        PDFAssembler assembler = new PDFAssembler();
+        assembler.addSource(fivePages).addPages("7-9");
+
+        File target = new File(directory, "empty.pdf");
+        assertEquals(0, assembler.assemble(target));
+        assertFalse(target.exists());
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPageRange() {
+        new PDFAssembler().addSource(fivePages).addPages("3-1");
+    }
+
+    private static PDDocument createDocument(int pages, int width) {
+        PDDocument document = new PDDocument();
+        for (int i = 1; i <= pages; i++) {
+            document.addPage(new PDPage(new PDRectangle(width + i, 200)));
+        }
+        return document;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2001-2002. Department of Family Medicine, McMaster University. All Rights Reserved.
+ * This software is published under the GPL GNU General Public License.
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA.
+ * <p>
+ * This software was written for the
+ * Department of Family Medicine
+ * McMaster University
+ * Hamilton
+ * Ontario, Canada
+ */
+package ca.openosp.openo.utility;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ConnectionPoolMetricsTest {
+
+    @Test
+    public void testHistogramBuckets() {
+        ConnectionPoolMetrics.Histogram histogram = new ConnectionPoolMetrics.Histogram(1, 10, 100);
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(2);
+        histogram.record(100);
+        histogram.record(5000);
+
+        Map<String, Long> buckets = histogram.getBuckets();
+        assertEquals(Long.valueOf(2), buckets.get("<=1"));
+        assertEquals(Long.valueOf(1), buckets.get("<=10"));
+        assertEquals(Long.valueOf(1), buckets.get("<=100"));
+        assertEquals(Long.valueOf(1), buckets.get(">100"));
+        assertEquals(5, histogram.getCount());
+        assertEquals(5000, histogram.getMax());
+        assertEquals(1020.6, histogram.getMean(), 0.001);
+    }
+
+    @Test
+    public void testRequestCounting() {
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+
+        // outside a request only the totals move
+        metrics.statementCreated();
+        assertNull(metrics.endRequest());
+
+        assertTrue(metrics.beginRequest());
+        assertFalse(metrics.beginRequest());
+        metrics.connectionCheckedOut(3);
+        metrics.statementCreated();
+        metrics.statementCreated();
+        metrics.connectionReturned(40);
+        ConnectionPoolMetrics.RequestCounter counter = metrics.endRequest();
+
+        assertEquals(1, counter.getConnections());
+        assertEquals(2, counter.getStatements());
+        assertEquals(3, counter.getWaitMillis());
+        assertEquals(3, metrics.getStatements());
+        assertEquals(1, metrics.getCheckouts());
+        assertEquals(1, metrics.getStatementsPerRequest().getCount());
+        assertEquals(2, metrics.getStatementsPerRequest().getMax());
+        assertEquals(40, metrics.getCheckoutMillis().getMax());
+    }
+}